@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.neo4j.graphdb.config.Configuration;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
+import org.neo4j.io.pagecache.impl.muninn.EvictionPolicy;
+import org.neo4j.io.pagecache.impl.muninn.MuninnPageCache;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracerSupplier;
+
+/**
+ * Utilities for setting up the page caches and files that the benchmarks run against.
+ */
+public final class BenchmarkSupport
+{
+    public static final int PAGE_SIZE = 8192;
+
+    private BenchmarkSupport()
+    {
+    }
+
+    /**
+     * Create a page cache of the given number of {@link #PAGE_SIZE 8 KiB} pages, without any tracing, so that the
+     * benchmarks measure the page cache itself, and not the overhead of the monitoring.
+     */
+    public static PageCache createPageCache( FileSystemAbstraction fs, int maxPages, boolean hugePages )
+    {
+        SingleFilePageSwapperFactory swapperFactory = new SingleFilePageSwapperFactory();
+        swapperFactory.open( fs, Configuration.EMPTY );
+        return new MuninnPageCache( swapperFactory, maxPages, PAGE_SIZE, PageCacheTracer.NULL,
+                PageCursorTracerSupplier.NULL, EvictionPolicy.CLOCK, hugePages );
+    }
+
+    public static File createTempDirectory( String prefix ) throws IOException
+    {
+        return Files.createTempDirectory( prefix ).toFile();
+    }
+}
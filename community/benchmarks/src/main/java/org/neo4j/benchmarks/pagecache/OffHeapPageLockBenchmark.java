@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks.pagecache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.io.pagecache.impl.muninn.OffHeapPageLock;
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+/**
+ * Measures the cost of the {@link OffHeapPageLock} operations that every page access goes through, both on their own
+ * and when readers have to validate their optimistic read locks against a concurrent writer.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 5 )
+@Fork( 1 )
+public class OffHeapPageLockBenchmark
+{
+    private long lockWord;
+
+    @Setup
+    public void setUp()
+    {
+        lockWord = UnsafeUtil.allocateMemory( Long.BYTES );
+        UnsafeUtil.putLong( lockWord, OffHeapPageLock.initialLockWordWithExclusiveLock() );
+        OffHeapPageLock.unlockExclusive( lockWord );
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        UnsafeUtil.free( lockWord );
+    }
+
+    @Benchmark
+    @Threads( 1 )
+    public boolean optimisticRead()
+    {
+        long stamp = OffHeapPageLock.tryOptimisticReadLock( lockWord );
+        return OffHeapPageLock.validateReadLock( lockWord, stamp );
+    }
+
+    @Benchmark
+    @Threads( Threads.MAX )
+    public boolean optimisticReadMultiThreaded()
+    {
+        long stamp = OffHeapPageLock.tryOptimisticReadLock( lockWord );
+        return OffHeapPageLock.validateReadLock( lockWord, stamp );
+    }
+
+    @Benchmark
+    @Group( "readersAndWriter" )
+    @GroupThreads( 3 )
+    public boolean optimisticReadWithConcurrentWriter()
+    {
+        long stamp = OffHeapPageLock.tryOptimisticReadLock( lockWord );
+        return OffHeapPageLock.validateReadLock( lockWord, stamp );
+    }
+
+    @Benchmark
+    @Group( "readersAndWriter" )
+    @GroupThreads( 1 )
+    public boolean writeLockWithConcurrentReaders()
+    {
+        if ( OffHeapPageLock.tryWriteLock( lockWord ) )
+        {
+            OffHeapPageLock.unlockWrite( lockWord );
+            return true;
+        }
+        return false;
+    }
+
+    @Benchmark
+    @Threads( 1 )
+    public boolean exclusiveLock()
+    {
+        if ( OffHeapPageLock.tryExclusiveLock( lockWord ) )
+        {
+            OffHeapPageLock.unlockExclusive( lockWord );
+            return true;
+        }
+        return false;
+    }
+}
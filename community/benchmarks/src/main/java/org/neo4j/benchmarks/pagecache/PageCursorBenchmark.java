@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks.pagecache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.benchmarks.BenchmarkSupport;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static org.neo4j.benchmarks.BenchmarkSupport.PAGE_SIZE;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+
+/**
+ * Measures the throughput of pinning and unpinning pages with {@link PageCursor#next(long)}, for page caches that can
+ * hold all, half or a tenth of the file. The pages are accessed uniformly at random, so the size of the page cache
+ * relative to the file is also the expected cache hit ratio.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 5 )
+@Fork( 1 )
+public class PageCursorBenchmark
+{
+    private static final int FILE_PAGES = 32 * 1024; // 256 MiB
+
+    @Param( {"1.0", "0.5", "0.1"} )
+    public double cacheHitRatio;
+
+    @Param( {"false", "true"} )
+    public boolean hugePages;
+
+    private FileSystemAbstraction fs;
+    private File directory;
+    private PageCache pageCache;
+    private PagedFile pagedFile;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        fs = new DefaultFileSystemAbstraction();
+        directory = BenchmarkSupport.createTempDirectory( "page-cursor-benchmark" );
+        pageCache = BenchmarkSupport.createPageCache( fs, (int) (FILE_PAGES * cacheHitRatio), hugePages );
+        pagedFile = pageCache.map( new File( directory, "file" ), PAGE_SIZE, CREATE );
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+        {
+            for ( long pageId = 0; pageId < FILE_PAGES; pageId++ )
+            {
+                cursor.next();
+                cursor.putLong( pageId );
+            }
+        }
+        pagedFile.flushAndForce();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        pagedFile.close();
+        pageCache.close();
+        fs.deleteRecursively( directory );
+        fs.close();
+    }
+
+    @Benchmark
+    @Threads( 1 )
+    public long readRandomPage() throws IOException
+    {
+        return readPage( randomPageId() );
+    }
+
+    @Benchmark
+    @Threads( Threads.MAX )
+    public long readRandomPageMultiThreaded() throws IOException
+    {
+        return readPage( randomPageId() );
+    }
+
+    @Benchmark
+    @Threads( 1 )
+    public void writeRandomPage() throws IOException
+    {
+        writePage( randomPageId() );
+    }
+
+    @Benchmark
+    @Threads( Threads.MAX )
+    public void writeRandomPageMultiThreaded() throws IOException
+    {
+        writePage( randomPageId() );
+    }
+
+    @Benchmark
+    @Threads( 1 )
+    public long scanAllPages() throws IOException
+    {
+        long sum = 0;
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK ) )
+        {
+            while ( cursor.next() )
+            {
+                long value;
+                do
+                {
+                    value = cursor.getLong( 0 );
+                }
+                while ( cursor.shouldRetry() );
+                sum += value;
+            }
+        }
+        return sum;
+    }
+
+    private static long randomPageId()
+    {
+        return ThreadLocalRandom.current().nextInt( FILE_PAGES );
+    }
+
+    private long readPage( long pageId ) throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( pageId, PF_SHARED_READ_LOCK ) )
+        {
+            long value = 0;
+            if ( cursor.next() )
+            {
+                do
+                {
+                    value = cursor.getLong( 0 );
+                }
+                while ( cursor.shouldRetry() );
+            }
+            return value;
+        }
+    }
+
+    private void writePage( long pageId ) throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( pageId, PF_SHARED_WRITE_LOCK ) )
+        {
+            if ( cursor.next() )
+            {
+                cursor.putLong( 0, pageId );
+            }
+        }
+    }
+}
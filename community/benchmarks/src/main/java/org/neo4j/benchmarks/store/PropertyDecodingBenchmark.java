@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks.store;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.kernel.impl.store.PropertyStore;
+import org.neo4j.kernel.impl.store.PropertyType;
+import org.neo4j.kernel.impl.store.format.standard.Standard;
+import org.neo4j.kernel.impl.store.record.PropertyBlock;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.values.storable.Value;
+import org.neo4j.values.storable.Values;
+
+/**
+ * Measures reading property records at random through the page cache, and decoding the values of their property
+ * blocks. Only values that are inlined in the property blocks are used, so that the dynamic string and array stores
+ * are not involved.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 5 )
+@Fork( 1 )
+public class PropertyDecodingBenchmark
+{
+    private static final long RECORDS = 1 << 20;
+
+    @Param( {"int", "long", "double", "short_string"} )
+    public String valueType;
+
+    private RecordFile<PropertyRecord> recordFile;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        recordFile = new RecordFile<>( Standard.LATEST_RECORD_FORMATS.property(), RECORDS );
+        recordFile.create( 1.0, this::createRecord );
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        recordFile.close();
+    }
+
+    private PropertyRecord createRecord( long id )
+    {
+        PropertyRecord record = new PropertyRecord( id );
+        record.initialize( true, -1, -1 );
+        int keyId = 0;
+        while ( true )
+        {
+            PropertyBlock block = new PropertyBlock();
+            PropertyStore.encodeValue( block, keyId, value( id + keyId ), null, null );
+            if ( record.size() + block.getSize() > PropertyType.getPayloadSize() )
+            {
+                return record;
+            }
+            record.addPropertyBlock( block );
+            keyId++;
+        }
+    }
+
+    private Value value( long seed )
+    {
+        switch ( valueType )
+        {
+        case "int":
+            return Values.intValue( (int) seed );
+        case "long":
+            return Values.longValue( seed * 1_000_003L );
+        case "double":
+            return Values.doubleValue( seed / 7.0 );
+        case "short_string":
+            return Values.stringValue( "user" + (seed % 10_000) );
+        default:
+            throw new IllegalArgumentException( "Unknown value type: " + valueType );
+        }
+    }
+
+    @State( Scope.Thread )
+    public static class Reader
+    {
+        PropertyRecord record;
+
+        @Setup
+        public void setUp( PropertyDecodingBenchmark benchmark )
+        {
+            record = benchmark.recordFile.newRecord();
+        }
+    }
+
+    @Benchmark
+    @Threads( 1 )
+    public void readAndDecodeRandomRecord( Reader reader, Blackhole blackhole ) throws IOException
+    {
+        readAndDecodeRandom( reader.record, blackhole );
+    }
+
+    @Benchmark
+    @Threads( Threads.MAX )
+    public void readAndDecodeRandomRecordMultiThreaded( Reader reader, Blackhole blackhole ) throws IOException
+    {
+        readAndDecodeRandom( reader.record, blackhole );
+    }
+
+    private void readAndDecodeRandom( PropertyRecord record, Blackhole blackhole ) throws IOException
+    {
+        long id = ThreadLocalRandom.current().nextLong( recordFile.records() );
+        for ( PropertyBlock block : recordFile.read( id, record ) )
+        {
+            blackhole.consume( block.newPropertyValue( null ) );
+        }
+    }
+}
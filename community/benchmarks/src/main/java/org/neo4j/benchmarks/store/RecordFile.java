@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks.store;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.neo4j.benchmarks.BenchmarkSupport;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.kernel.impl.store.NoStoreHeader;
+import org.neo4j.kernel.impl.store.format.RecordFormat;
+import org.neo4j.kernel.impl.store.record.AbstractBaseRecord;
+import org.neo4j.kernel.impl.store.record.RecordLoad;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static org.neo4j.benchmarks.BenchmarkSupport.PAGE_SIZE;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+
+/**
+ * A file of records in a given {@link RecordFormat}, that the record benchmarks read from through the page cache, the
+ * same way the record stores do.
+ */
+class RecordFile<RECORD extends AbstractBaseRecord>
+{
+    private final RecordFormat<RECORD> format;
+    private final int recordSize;
+    private final int recordsPerPage;
+    private final long records;
+    private FileSystemAbstraction fs;
+    private File directory;
+    private PageCache pageCache;
+    private PagedFile pagedFile;
+
+    RecordFile( RecordFormat<RECORD> format, long records )
+    {
+        this.format = format;
+        this.recordSize = format.getRecordSize( NoStoreHeader.NO_STORE_HEADER );
+        this.recordsPerPage = PAGE_SIZE / recordSize;
+        this.records = records;
+    }
+
+    /**
+     * Create the file, with a page cache that can hold the given fraction of it, and write all of its records.
+     */
+    void create( double cacheHitRatio, RecordFactory<RECORD> recordFactory ) throws IOException
+    {
+        fs = new DefaultFileSystemAbstraction();
+        directory = BenchmarkSupport.createTempDirectory( "record-benchmark" );
+        long filePages = (records + recordsPerPage - 1) / recordsPerPage;
+        pageCache = BenchmarkSupport.createPageCache( fs, (int) Math.max( 2, filePages * cacheHitRatio ), false );
+        pagedFile = pageCache.map( new File( directory, "store" ), PAGE_SIZE, CREATE );
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+        {
+            for ( long id = 0; id < records; id++ )
+            {
+                cursor.next( pageIdOf( id ) );
+                cursor.setOffset( offsetOf( id ) );
+                format.write( recordFactory.create( id ), cursor, recordSize );
+            }
+        }
+        pagedFile.flushAndForce();
+    }
+
+    void close() throws IOException
+    {
+        pagedFile.close();
+        pageCache.close();
+        fs.deleteRecursively( directory );
+        fs.close();
+    }
+
+    RECORD newRecord()
+    {
+        return format.newRecord();
+    }
+
+    long records()
+    {
+        return records;
+    }
+
+    /**
+     * Read the record with the given id into the given record instance.
+     */
+    RECORD read( long id, RECORD record ) throws IOException
+    {
+        record.setId( id );
+        try ( PageCursor cursor = pagedFile.io( pageIdOf( id ), PF_SHARED_READ_LOCK ) )
+        {
+            if ( cursor.next() )
+            {
+                int offset = offsetOf( id );
+                do
+                {
+                    cursor.setOffset( offset );
+                    format.read( record, cursor, RecordLoad.NORMAL, recordSize );
+                }
+                while ( cursor.shouldRetry() );
+                cursor.checkAndClearBoundsFlag();
+                cursor.checkAndClearCursorException();
+            }
+        }
+        return record;
+    }
+
+    private long pageIdOf( long id )
+    {
+        return id / recordsPerPage;
+    }
+
+    private int offsetOf( long id )
+    {
+        return (int) (id % recordsPerPage) * recordSize;
+    }
+
+    interface RecordFactory<RECORD>
+    {
+        RECORD create( long id );
+    }
+}
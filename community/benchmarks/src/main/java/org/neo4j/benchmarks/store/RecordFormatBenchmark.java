@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks.store;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.kernel.impl.store.format.RecordFormats;
+import org.neo4j.kernel.impl.store.format.standard.Standard;
+import org.neo4j.kernel.impl.store.record.AbstractBaseRecord;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+
+/**
+ * Measures reading node and relationship records at random through the page cache, with the latest standard record
+ * formats.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 5 )
+@Fork( 1 )
+public class RecordFormatBenchmark
+{
+    private static final long RECORDS = 1 << 20;
+
+    @Param( {"node", "relationship"} )
+    public String recordType;
+
+    @Param( {"1.0", "0.1"} )
+    public double cacheHitRatio;
+
+    private RecordFile<AbstractBaseRecord> recordFile;
+
+    @Setup
+    @SuppressWarnings( "unchecked" )
+    public void setUp() throws IOException
+    {
+        RecordFormats formats = Standard.LATEST_RECORD_FORMATS;
+        switch ( recordType )
+        {
+        case "node":
+            RecordFile<NodeRecord> nodes = new RecordFile<>( formats.node(), RECORDS );
+            nodes.create( cacheHitRatio, id -> new NodeRecord( id ).initialize(
+                    true, id + 1, id % 2 == 0, id + 2, id % 64 ) );
+            recordFile = (RecordFile) nodes;
+            break;
+        case "relationship":
+            RecordFile<RelationshipRecord> relationships = new RecordFile<>( formats.relationship(), RECORDS );
+            relationships.create( cacheHitRatio, id -> new RelationshipRecord( id ).initialize(
+                    true, id + 1, id / 2, id / 3, (int) (id % 16), id - 1, id + 1, id - 2, id + 2, true, false ) );
+            recordFile = (RecordFile) relationships;
+            break;
+        default:
+            throw new IllegalArgumentException( "Unknown record type: " + recordType );
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        recordFile.close();
+    }
+
+    @State( Scope.Thread )
+    public static class Reader
+    {
+        AbstractBaseRecord record;
+
+        @Setup
+        public void setUp( RecordFormatBenchmark benchmark )
+        {
+            record = benchmark.recordFile.newRecord();
+        }
+    }
+
+    @Benchmark
+    @Threads( 1 )
+    public AbstractBaseRecord readRandomRecord( Reader reader ) throws IOException
+    {
+        return readRandom( reader.record );
+    }
+
+    @Benchmark
+    @Threads( Threads.MAX )
+    public AbstractBaseRecord readRandomRecordMultiThreaded( Reader reader ) throws IOException
+    {
+        return readRandom( reader.record );
+    }
+
+    private AbstractBaseRecord readRandom( AbstractBaseRecord record ) throws IOException
+    {
+        long id = ThreadLocalRandom.current().nextLong( recordFile.records() );
+        return recordFile.read( id, record );
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import org.apache.commons.lang3.mutable.MutableLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.benchmarks.BenchmarkSupport;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+
+/**
+ * Measures how the insert throughput of a {@link GBPTree} scales with the number of concurrent writers. Each writer
+ * inserts batches of random keys, one {@link Writer} per batch, the way index updaters apply updates from a batch
+ * of transactions. The tree is recreated for every iteration, so that all iterations start from the same size.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 5 )
+@Fork( 1 )
+public class GBPTreeWriterBenchmark
+{
+    private static final int BATCH_SIZE = 1_000;
+
+    private FileSystemAbstraction fs;
+    private PageCache pageCache;
+    private File directory;
+    private File indexFile;
+    private GBPTree<MutableLong,MutableLong> tree;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        fs = new DefaultFileSystemAbstraction();
+        pageCache = BenchmarkSupport.createPageCache( fs, 1 << 16, false );
+        directory = BenchmarkSupport.createTempDirectory( "gbptree" );
+        indexFile = new File( directory, "index" );
+    }
+
+    @Setup( Level.Iteration )
+    public void createTree() throws IOException
+    {
+        tree = new GBPTree<>( pageCache, indexFile, new LongLayout(), 0, GBPTree.NO_MONITOR,
+                GBPTree.NO_HEADER_READER, GBPTree.NO_HEADER_WRITER, RecoveryCleanupWorkCollector.IMMEDIATE );
+    }
+
+    @TearDown( Level.Iteration )
+    public void deleteTree() throws IOException
+    {
+        tree.close();
+        fs.deleteFile( indexFile );
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        pageCache.close();
+        fs.deleteRecursively( directory );
+        fs.close();
+    }
+
+    @Benchmark
+    @Threads( 1 )
+    @OperationsPerInvocation( BATCH_SIZE )
+    public void insertWithOneWriter( WriterState state ) throws IOException
+    {
+        insertBatch( state );
+    }
+
+    @Benchmark
+    @Threads( 4 )
+    @OperationsPerInvocation( BATCH_SIZE )
+    public void insertWithFourWriters( WriterState state ) throws IOException
+    {
+        insertBatch( state );
+    }
+
+    @Benchmark
+    @Threads( Threads.MAX )
+    @OperationsPerInvocation( BATCH_SIZE )
+    public void insertWithOneWriterPerCore( WriterState state ) throws IOException
+    {
+        insertBatch( state );
+    }
+
+    private void insertBatch( WriterState state ) throws IOException
+    {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try ( Writer<MutableLong,MutableLong> writer = tree.writer() )
+        {
+            for ( int i = 0; i < BATCH_SIZE; i++ )
+            {
+                state.key.setValue( random.nextLong( Long.MAX_VALUE ) );
+                state.value.setValue( i );
+                writer.put( state.key, state.value );
+            }
+        }
+    }
+
+    @State( Scope.Thread )
+    public static class WriterState
+    {
+        final MutableLong key = new MutableLong();
+        final MutableLong value = new MutableLong();
+    }
+
+    private static class LongLayout extends Layout.Adapter<MutableLong,MutableLong>
+    {
+        @Override
+        public int compare( MutableLong o1, MutableLong o2 )
+        {
+            return Long.compare( o1.longValue(), o2.longValue() );
+        }
+
+        @Override
+        public MutableLong newKey()
+        {
+            return new MutableLong();
+        }
+
+        @Override
+        public MutableLong copyKey( MutableLong key, MutableLong into )
+        {
+            into.setValue( key.longValue() );
+            return into;
+        }
+
+        @Override
+        public MutableLong newValue()
+        {
+            return new MutableLong();
+        }
+
+        @Override
+        public int keySize()
+        {
+            return Long.BYTES;
+        }
+
+        @Override
+        public int valueSize()
+        {
+            return Long.BYTES;
+        }
+
+        @Override
+        public void writeKey( PageCursor cursor, MutableLong key )
+        {
+            cursor.putLong( key.longValue() );
+        }
+
+        @Override
+        public void writeValue( PageCursor cursor, MutableLong value )
+        {
+            cursor.putLong( value.longValue() );
+        }
+
+        @Override
+        public void readKey( PageCursor cursor, MutableLong into )
+        {
+            into.setValue( cursor.getLong() );
+        }
+
+        @Override
+        public void readValue( PageCursor cursor, MutableLong into )
+        {
+            into.setValue( cursor.getLong() );
+        }
+
+        @Override
+        public long identifier()
+        {
+            return Layout.namedIdentifier( "Bnch", Long.BYTES );
+        }
+
+        @Override
+        public int majorVersion()
+        {
+            return 0;
+        }
+
+        @Override
+        public int minorVersion()
+        {
+            return 1;
+        }
+    }
+}
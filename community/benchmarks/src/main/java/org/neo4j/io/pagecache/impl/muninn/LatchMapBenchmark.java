@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how the page fault coordination in the {@link LatchMap} scales with the number of threads that fault in
+ * pages concurrently. This benchmark lives in the Muninn package, because the LatchMap is internal to it. Use the
+ * {@code PageCursorBenchmark} to measure page faults and hits end to end.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 5 )
+@Fork( 1 )
+public class LatchMapBenchmark
+{
+    @Param( {"128", "1024"} )
+    public int faultLockStriping;
+
+    private LatchMap latches;
+
+    @Setup
+    public void setUp()
+    {
+        latches = new LatchMap( faultLockStriping );
+    }
+
+    @Benchmark
+    @Threads( 1 )
+    public boolean takeAndReleaseLatch()
+    {
+        return takeAndRelease();
+    }
+
+    @Benchmark
+    @Threads( Threads.MAX )
+    public boolean takeAndReleaseLatchMultiThreaded()
+    {
+        return takeAndRelease();
+    }
+
+    private boolean takeAndRelease()
+    {
+        LatchMap.Latch latch = latches.takeOrAwaitLatch( ThreadLocalRandom.current().nextLong( 1 << 24 ) );
+        if ( latch != null )
+        {
+            latch.release();
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.state;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.kernel.api.exceptions.schema.ConstraintValidationException;
+import org.neo4j.kernel.api.exceptions.schema.CreateConstraintFailureException;
+import org.neo4j.storageengine.api.txstate.TxStateVisitor;
+
+/**
+ * Measures the throughput, in relationships per time unit, of building the transaction state of a large write
+ * transaction and visiting it the way a commit does, with the created relationships kept on or off the heap.
+ * The heap and native memory retained by the transaction state of one such transaction are measured during setup,
+ * and reported as the {@code retainedHeapKiB} and {@code nativeKiB} counters. Run with {@code -prof gc} to also see
+ * the allocation rate and the time spent in garbage collection.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3 )
+@Measurement( iterations = 5 )
+@Fork( value = 1, jvmArgsAppend = "-Xmx4g" )
+public class TxStateBenchmark
+{
+    private static final int RELATIONSHIPS = 1_000_000;
+    private static final int NODES = 100_000;
+
+    @Param( {"false", "true"} )
+    public boolean offHeap;
+
+    private OffHeapTxStateMemory memory;
+    private long retainedHeapKiB;
+    private long nativeKiB;
+
+    @Setup
+    public void setUp()
+    {
+        memory = new OffHeapTxStateMemory( Long.MAX_VALUE );
+        long heapBefore = usedHeap();
+        TxState state = buildState();
+        long heapAfter = usedHeap();
+        retainedHeapKiB = (heapAfter - heapBefore) / 1024;
+        nativeKiB = memory.usedBytes() / 1024;
+        state.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation( RELATIONSHIPS )
+    public void createAndCommit( Footprint footprint, Blackhole blackhole ) throws ConstraintValidationException,
+            CreateConstraintFailureException
+    {
+        footprint.retainedHeapKiB = retainedHeapKiB;
+        footprint.nativeKiB = nativeKiB;
+        TxState state = buildState();
+        try
+        {
+            state.accept( new TxStateVisitor.Adapter()
+            {
+                @Override
+                public void visitCreatedRelationship( long id, int type, long startNode, long endNode )
+                {
+                    blackhole.consume( startNode );
+                }
+            } );
+        }
+        finally
+        {
+            state.close();
+        }
+    }
+
+    private TxState buildState()
+    {
+        TxState state = offHeap ? new TxState( memory ) : new TxState();
+        for ( long node = 0; node < NODES; node++ )
+        {
+            state.nodeDoCreate( node );
+        }
+        for ( long relationship = 0; relationship < RELATIONSHIPS; relationship++ )
+        {
+            long startNode = relationship % NODES;
+            long endNode = (relationship * 31) % NODES;
+            state.relationshipDoCreate( relationship, (int) (relationship & 7), startNode, endNode );
+        }
+        return state;
+    }
+
+    private static long usedHeap()
+    {
+        Runtime runtime = Runtime.getRuntime();
+        for ( int i = 0; i < 3; i++ )
+        {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @State( Scope.Thread )
+    @AuxCounters( AuxCounters.Type.EVENTS )
+    public static class Footprint
+    {
+        public long retainedHeapKiB;
+        public long nativeKiB;
+    }
+}
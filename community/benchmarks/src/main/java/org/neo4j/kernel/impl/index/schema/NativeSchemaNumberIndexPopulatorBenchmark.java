@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.benchmarks.BenchmarkSupport;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.api.exceptions.index.IndexEntryConflictException;
+import org.neo4j.kernel.api.index.IndexEntryUpdate;
+import org.neo4j.kernel.api.schema.index.IndexDescriptor;
+import org.neo4j.kernel.api.schema.index.IndexDescriptorFactory;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingConfig;
+import org.neo4j.values.storable.Values;
+
+/**
+ * Measures the time it takes to populate a non-unique native number index from a store scan of nodes with random
+ * property values, either sorting the scanned entries and bulk loading them into the tree or inserting them one
+ * by one. The size of the index file after population is reported as the {@code indexFileKiB} counter, to compare
+ * how compact the trees are.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.SingleShotTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3 )
+@Measurement( iterations = 5 )
+public class NativeSchemaNumberIndexPopulatorBenchmark
+{
+    private static final int NODES = 5_000_000;
+    private static final int BATCH_SIZE = 1_000;
+    private static final String BULK_LOAD_TOGGLE =
+            "-Dorg.neo4j.kernel.impl.index.schema.NativeSchemaIndexPopulator.bulkLoad=";
+
+    private final IndexDescriptor descriptor = IndexDescriptorFactory.forLabel( 0, 0 );
+    private FileSystemAbstraction fs;
+    private PageCache pageCache;
+    private File directory;
+    private File indexFile;
+    private List<List<IndexEntryUpdate<?>>> scanBatches;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        fs = new DefaultFileSystemAbstraction();
+        pageCache = BenchmarkSupport.createPageCache( fs, 1 << 16, false );
+        directory = BenchmarkSupport.createTempDirectory( "index" );
+        indexFile = new File( directory, "index" );
+
+        Random random = new Random( 42 );
+        scanBatches = new ArrayList<>();
+        List<IndexEntryUpdate<?>> batch = new ArrayList<>( BATCH_SIZE );
+        for ( long nodeId = 0; nodeId < NODES; nodeId++ )
+        {
+            batch.add( IndexEntryUpdate.add( nodeId, descriptor, Values.of( random.nextInt( NODES / 10 ) ) ) );
+            if ( batch.size() == BATCH_SIZE )
+            {
+                scanBatches.add( batch );
+                batch = new ArrayList<>( BATCH_SIZE );
+            }
+        }
+        scanBatches.add( batch );
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        pageCache.close();
+        fs.deleteRecursively( directory );
+        fs.close();
+    }
+
+    @Benchmark
+    @Fork( value = 1, jvmArgsAppend = {"-Xmx4g", BULK_LOAD_TOGGLE + "true"} )
+    public void populateUsingBulkLoad( IndexSize size ) throws IOException, IndexEntryConflictException
+    {
+        populate( size );
+    }
+
+    @Benchmark
+    @Fork( value = 1, jvmArgsAppend = {"-Xmx4g", BULK_LOAD_TOGGLE + "false"} )
+    public void populateInsertingOneByOne( IndexSize size ) throws IOException, IndexEntryConflictException
+    {
+        populate( size );
+    }
+
+    private void populate( IndexSize size ) throws IOException, IndexEntryConflictException
+    {
+        NativeNonUniqueSchemaIndexPopulator<SchemaNumberKey,NativeSchemaValue> populator =
+                new NativeNonUniqueSchemaIndexPopulator<>( pageCache, indexFile, new NonUniqueNumberLayout(),
+                        new IndexSamplingConfig( Config.defaults() ) );
+        populator.create();
+        for ( List<IndexEntryUpdate<?>> batch : scanBatches )
+        {
+            populator.add( batch );
+        }
+        populator.close( true );
+        size.indexFileKiB = fs.getFileSize( indexFile ) / 1024;
+    }
+
+    @State( Scope.Thread )
+    @AuxCounters( AuxCounters.Type.EVENTS )
+    public static class IndexSize
+    {
+        public long indexFileKiB;
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.benchmarks.BenchmarkSupport;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.api.exceptions.index.IndexEntryConflictException;
+import org.neo4j.kernel.api.exceptions.index.IndexNotApplicableKernelException;
+import org.neo4j.kernel.api.impl.schema.LuceneSchemaIndexProviderFactory;
+import org.neo4j.kernel.api.index.IndexAccessor;
+import org.neo4j.kernel.api.index.IndexEntryUpdate;
+import org.neo4j.kernel.api.index.IndexPopulator;
+import org.neo4j.kernel.api.index.SchemaIndexProvider;
+import org.neo4j.kernel.api.schema.IndexQuery;
+import org.neo4j.kernel.api.schema.index.IndexDescriptor;
+import org.neo4j.kernel.api.schema.index.IndexDescriptorFactory;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingConfig;
+import org.neo4j.kernel.impl.factory.OperationalMode;
+import org.neo4j.logging.NullLogProvider;
+import org.neo4j.storageengine.api.schema.IndexReader;
+import org.neo4j.values.storable.Values;
+
+/**
+ * Measures the latency of exact and prefix seeks in a string index, comparing the native string index with
+ * the lucene index. A reader is acquired for every seek, like a transaction querying an index would.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 5 )
+@Fork( 1 )
+public class NativeSchemaStringIndexReaderBenchmark
+{
+    private static final int NODES = 1_000_000;
+    private static final int DISTINCT_PREFIXES = 10_000;
+    private static final int PROPERTY_KEY = 0;
+
+    @Param( {"native", "lucene"} )
+    public String provider;
+
+    private final IndexDescriptor descriptor = IndexDescriptorFactory.forLabel( 0, PROPERTY_KEY );
+    private FileSystemAbstraction fs;
+    private PageCache pageCache;
+    private File directory;
+    private IndexAccessor accessor;
+    private String[] values;
+
+    @Setup
+    public void setUp() throws IOException, IndexEntryConflictException
+    {
+        fs = new DefaultFileSystemAbstraction();
+        pageCache = BenchmarkSupport.createPageCache( fs, 1 << 16, false );
+        directory = BenchmarkSupport.createTempDirectory( "index" );
+
+        values = new String[NODES];
+        List<IndexEntryUpdate<?>> updates = new ArrayList<>( NODES );
+        for ( int nodeId = 0; nodeId < NODES; nodeId++ )
+        {
+            values[nodeId] = "user-" + (nodeId % DISTINCT_PREFIXES) + "-" + nodeId;
+            updates.add( IndexEntryUpdate.add( nodeId, descriptor, Values.stringValue( values[nodeId] ) ) );
+        }
+
+        SchemaIndexProvider indexProvider = indexProvider();
+        IndexSamplingConfig samplingConfig = new IndexSamplingConfig( Config.defaults() );
+        IndexPopulator populator = indexProvider.getPopulator( 1, descriptor, samplingConfig );
+        populator.create();
+        populator.add( updates );
+        populator.close( true );
+        accessor = indexProvider.getOnlineAccessor( 1, descriptor, samplingConfig );
+    }
+
+    private SchemaIndexProvider indexProvider()
+    {
+        switch ( provider )
+        {
+        case "native":
+            return new NativeSchemaStringIndexProvider( pageCache, directory, NullLogProvider.getInstance(),
+                    RecoveryCleanupWorkCollector.IMMEDIATE, false );
+        case "lucene":
+            return LuceneSchemaIndexProviderFactory.create( fs, directory, NullLogProvider.getInstance(),
+                    Config.defaults(), OperationalMode.single );
+        default:
+            throw new IllegalArgumentException( "Unknown provider: " + provider );
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        accessor.close();
+        pageCache.close();
+        fs.deleteRecursively( directory );
+        fs.close();
+    }
+
+    @Benchmark
+    public void exactSeek( Blackhole blackhole ) throws IndexNotApplicableKernelException
+    {
+        String value = values[ThreadLocalRandom.current().nextInt( NODES )];
+        seek( IndexQuery.exact( PROPERTY_KEY, value ), blackhole );
+    }
+
+    @Benchmark
+    public void prefixSeek( Blackhole blackhole ) throws IndexNotApplicableKernelException
+    {
+        // matches NODES / DISTINCT_PREFIXES nodes
+        String prefix = "user-" + ThreadLocalRandom.current().nextInt( DISTINCT_PREFIXES ) + "-";
+        seek( IndexQuery.stringPrefix( PROPERTY_KEY, prefix ), blackhole );
+    }
+
+    private void seek( IndexQuery query, Blackhole blackhole ) throws IndexNotApplicableKernelException
+    {
+        try ( IndexReader reader = accessor.newReader() )
+        {
+            PrimitiveLongIterator result = reader.query( query );
+            while ( result.hasNext() )
+            {
+                blackhole.consume( result.next() );
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.storageengine.impl.recordstorage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.benchmarks.BenchmarkSupport;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.impl.api.BatchTransactionApplier;
+import org.neo4j.kernel.impl.api.BatchTransactionApplierFacade;
+import org.neo4j.kernel.impl.api.TransactionApplier;
+import org.neo4j.kernel.impl.api.TransactionToApply;
+import org.neo4j.kernel.impl.locking.LockGroup;
+import org.neo4j.kernel.impl.locking.LockService;
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.impl.store.StoreFactory;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.Record;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+import org.neo4j.kernel.impl.transaction.command.Command;
+import org.neo4j.kernel.impl.transaction.command.HighIdBatchTransactionApplier;
+import org.neo4j.kernel.impl.transaction.command.NeoStoreBatchTransactionApplier;
+import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
+import org.neo4j.logging.NullLogProvider;
+import org.neo4j.storageengine.api.StorageCommand;
+
+/**
+ * Measures replaying a synthetic tail of the transaction log onto the store files, the way recovery does, either one
+ * transaction at a time like {@link RecordStorageEngine} does it, or with the {@link ParallelRecoveryApplier}.
+ * <p>
+ * Each transaction creates two nodes and a relationship between them, and some of them also update a node that was
+ * created by an earlier transaction, like a log tail of a write heavy workload would.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3 )
+@Measurement( iterations = 5 )
+@Fork( 1 )
+public class ParallelRecoveryBenchmark
+{
+    private static final int TRANSACTIONS = 100_000;
+    private static final int MAX_PAGES = 1 << 14;
+
+    /**
+     * The number of threads to apply with, where 1 means applying the transactions one at a time on the calling
+     * thread, without the parallel applier.
+     */
+    @Param( {"1", "2", "4", "8"} )
+    public int parallelism;
+
+    private DefaultFileSystemAbstraction fs;
+    private File directory;
+    private PageCache pageCache;
+    private NeoStores neoStores;
+    private ParallelRecoveryApplier parallelApplier;
+    private TransactionToApply logTail;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        fs = new DefaultFileSystemAbstraction();
+        directory = BenchmarkSupport.createTempDirectory( "recovery-benchmark" );
+        pageCache = BenchmarkSupport.createPageCache( fs, MAX_PAGES, false );
+        neoStores = new StoreFactory( directory, pageCache, fs, NullLogProvider.getInstance() )
+                .openAllNeoStores( true );
+        // Recovery runs without id generators, they are rebuilt afterwards
+        neoStores.deleteIdGenerators();
+        parallelApplier = new ParallelRecoveryApplier( neoStores, null, parallelism,
+                new ParallelRecoveryApplier.Monitor()
+                {
+                } );
+        logTail = createLogTail();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        parallelApplier.close();
+        neoStores.close();
+        pageCache.close();
+        fs.deleteRecursively( directory );
+        fs.close();
+    }
+
+    @Benchmark
+    public void recoverLogTail() throws Exception
+    {
+        if ( parallelism == 1 )
+        {
+            applySerially();
+        }
+        else
+        {
+            parallelApplier.apply( logTail, new HighIdBatchTransactionApplier( neoStores ) );
+        }
+    }
+
+    private void applySerially() throws Exception
+    {
+        try ( BatchTransactionApplier applier = new BatchTransactionApplierFacade(
+                new NeoStoreBatchTransactionApplier( neoStores, null, LockService.NO_LOCK_SERVICE ),
+                new HighIdBatchTransactionApplier( neoStores ) ) )
+        {
+            for ( TransactionToApply tx = logTail; tx != null; tx = tx.next() )
+            {
+                try ( LockGroup locks = new LockGroup();
+                      TransactionApplier txApplier = applier.startTx( tx, locks ) )
+                {
+                    tx.accept( txApplier );
+                }
+            }
+        }
+    }
+
+    private static TransactionToApply createLogTail()
+    {
+        Random random = new Random( 42 );
+        TransactionToApply first = null;
+        TransactionToApply last = null;
+        for ( int i = 0; i < TRANSACTIONS; i++ )
+        {
+            long startNode = 2L * i;
+            long endNode = startNode + 1;
+            List<StorageCommand> commands = new ArrayList<>();
+            commands.add( createNode( startNode, i ) );
+            commands.add( createNode( endNode, i ) );
+            long noRelationship = Record.NO_NEXT_RELATIONSHIP.intValue();
+            RelationshipRecord relationship = new RelationshipRecord( i ).initialize( true,
+                    Record.NO_NEXT_PROPERTY.intValue(), startNode, endNode, i % 16, 1, noRelationship,
+                    1, noRelationship, true, true );
+            commands.add( new Command.RelationshipCommand( new RelationshipRecord( i ), relationship ) );
+            if ( i > 0 && random.nextInt( 4 ) == 0 )
+            {
+                commands.add( createNode( random.nextInt( 2 * i ), i ) );
+            }
+
+            PhysicalTransactionRepresentation transaction = new PhysicalTransactionRepresentation( commands );
+            transaction.setHeader( new byte[0], -1, -1, -1, -1, -1, -1 );
+            TransactionToApply tx = new TransactionToApply( transaction, i + 2 );
+            if ( first == null )
+            {
+                first = tx;
+            }
+            else
+            {
+                last.next( tx );
+            }
+            last = tx;
+        }
+        return first;
+    }
+
+    private static Command.NodeCommand createNode( long id, long relationship )
+    {
+        NodeRecord node = new NodeRecord( id ).initialize( true, Record.NO_NEXT_PROPERTY.intValue(), false,
+                relationship, 0 );
+        return new Command.NodeCommand( new NodeRecord( id ), node );
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.entry;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.Record;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+import org.neo4j.kernel.impl.transaction.command.Command;
+import org.neo4j.kernel.impl.transaction.log.InMemoryClosableChannel;
+import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionCursor;
+import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.ReadableClosablePositionAwareChannel;
+import org.neo4j.kernel.impl.transaction.log.TransactionLogWriter;
+import org.neo4j.storageengine.api.StorageCommand;
+
+/**
+ * Measures the throughput, in commands per time unit, of appending transactions to the transaction log and of
+ * replaying them from it, with and without {@link CommandCompressor compressed commands}. The log is kept in memory,
+ * so that the cost of encoding and decoding is measured, rather than that of the storage. The resulting size of the
+ * log is reported as the {@code logBytes} counter.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3 )
+@Measurement( iterations = 5 )
+@Fork( 1 )
+public class LogEntryCompressionBenchmark
+{
+    private static final int COMMANDS = 200_000;
+
+    @Param( {"false", "true"} )
+    public boolean compress;
+
+    /**
+     * Small transactions, like those of an OLTP workload, and large ones, like those of a batch load.
+     */
+    @Param( {"4", "1000"} )
+    public int commandsPerTransaction;
+
+    private List<PhysicalTransactionRepresentation> transactions;
+    private InMemoryClosableChannel appendChannel;
+    private TransactionLogWriter appendWriter;
+    private InMemoryClosableChannel replayChannel;
+    private long logBytes;
+    private final LogEntryReader<ReadableClosablePositionAwareChannel> reader = new VersionAwareLogEntryReader<>();
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        transactions = createTransactions();
+        // Commands are roughly 60 bytes uncompressed, so this leaves plenty of room
+        appendChannel = new InMemoryClosableChannel( COMMANDS * 128 );
+        appendWriter = newWriter( appendChannel );
+        replayChannel = new InMemoryClosableChannel( COMMANDS * 128 );
+        TransactionLogWriter replayWriter = newWriter( replayChannel );
+        long txId = 2;
+        for ( PhysicalTransactionRepresentation transaction : transactions )
+        {
+            replayWriter.append( transaction, txId++ );
+        }
+        logBytes = replayChannel.writerPosition();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation( COMMANDS )
+    public void append( LogSize size ) throws IOException
+    {
+        size.logBytes = logBytes;
+        appendChannel.positionWriter( 0 );
+        long txId = 2;
+        for ( PhysicalTransactionRepresentation transaction : transactions )
+        {
+            appendWriter.append( transaction, txId++ );
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation( COMMANDS )
+    public void replay( LogSize size, Blackhole blackhole ) throws IOException
+    {
+        size.logBytes = logBytes;
+        replayChannel.positionReader( 0 );
+        try ( PhysicalTransactionCursor<ReadableClosablePositionAwareChannel> cursor =
+                      new PhysicalTransactionCursor<>( replayChannel, reader ) )
+        {
+            while ( cursor.next() )
+            {
+                blackhole.consume( cursor.get() );
+            }
+        }
+    }
+
+    private TransactionLogWriter newWriter( InMemoryClosableChannel channel )
+    {
+        CommandCompressor compressor = compress ? new CommandCompressor( ( commandBytes, writtenBytes ) ->
+        {
+        } ) : null;
+        return new TransactionLogWriter( new LogEntryWriter( channel, compressor ) );
+    }
+
+    private List<PhysicalTransactionRepresentation> createTransactions()
+    {
+        Random random = new Random( 42 );
+        List<PhysicalTransactionRepresentation> result = new ArrayList<>();
+        List<StorageCommand> commands = new ArrayList<>();
+        long nodeId = 0;
+        long relationshipId = 0;
+        for ( int i = 0; i < COMMANDS; )
+        {
+            long startNode = nodeId++;
+            long endNode = nodeId++;
+            commands.add( createNode( startNode, relationshipId, random ) );
+            commands.add( createNode( endNode, relationshipId, random ) );
+            commands.add( createRelationship( relationshipId++, startNode, endNode, random ) );
+            i += 3;
+            if ( commands.size() >= commandsPerTransaction || i >= COMMANDS )
+            {
+                PhysicalTransactionRepresentation transaction = new PhysicalTransactionRepresentation( commands );
+                transaction.setHeader( new byte[0], -1, -1, -1, -1, -1, -1 );
+                result.add( transaction );
+                commands = new ArrayList<>();
+            }
+        }
+        return result;
+    }
+
+    private static Command.NodeCommand createNode( long id, long relationship, Random random )
+    {
+        NodeRecord node = new NodeRecord( id ).initialize( true, random.nextInt( 1_000_000 ), false,
+                relationship, random.nextInt( 8 ) );
+        return new Command.NodeCommand( new NodeRecord( id ), node );
+    }
+
+    private static Command.RelationshipCommand createRelationship( long id, long startNode, long endNode,
+            Random random )
+    {
+        long noRelationship = Record.NO_NEXT_RELATIONSHIP.intValue();
+        RelationshipRecord relationship = new RelationshipRecord( id ).initialize( true,
+                random.nextInt( 1_000_000 ), startNode, endNode, random.nextInt( 16 ), 1, noRelationship,
+                1, noRelationship, true, true );
+        return new Command.RelationshipCommand( new RelationshipRecord( id ), relationship );
+    }
+
+    @State( Scope.Thread )
+    @AuxCounters( AuxCounters.Type.EVENTS )
+    public static class LogSize
+    {
+        public long logBytes;
+    }
+}
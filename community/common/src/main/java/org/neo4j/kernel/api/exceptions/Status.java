@@ -189,7 +189,11 @@ public interface Status
         Terminated( TransientError,
                 "Explicitly terminated by the user." ),
         Interrupted( TransientError,
-                "Interrupted while waiting." );
+                "Interrupted while waiting." ),
+        OffHeapMemoryExhausted( TransientError,
+                "The transaction state needed more off-heap memory than is left of the limit shared by all " +
+                "transactions. Retrying may succeed once other large transactions have completed, otherwise split " +
+                "the work into smaller transactions." );
 
         private final Code code;
 
@@ -169,6 +169,21 @@ public interface JobScheduler extends Lifecycle
          */
         public static Group transactionTimeoutMonitor = new Group( "TransactionTimeoutMonitor" );
 
+        /**
+         * Page cache warmup and profiling.
+         */
+        public static Group pageCacheWarmup = new Group( "PageCacheWarmup" );
+
+        /**
+         * Writing dirty pages out in the background, in between check points.
+         */
+        public static Group backgroundPageFlush = new Group( "BackgroundPageFlush" );
+
+        /**
+         * Zero filling of spare transaction log files.
+         */
+        public static Group logFilePreallocation = new Group( "LogFilePreallocation" );
+
         private Groups()
         {
         }
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Builds an empty {@link GBPTree} bottom-up from key/value pairs {@link #add(Object, Object) added} in strictly
+ * ascending key order. Leaves are filled one after the other and the internal levels are built on top of them
+ * when the bulk loader is {@link #close() closed}, which is when the entries become visible in the tree.
+ *
+ * @param <KEY> type of keys
+ * @param <VALUE> type of values
+ */
+public interface BulkLoader<KEY,VALUE> extends Closeable
+{
+    /**
+     * Adds {@code key} associated with {@code value}. Keys must be added in strictly ascending order.
+     *
+     * @param key key to add.
+     * @param value value to associate with key.
+     * @throws IOException on index access error.
+     * @throws IllegalArgumentException if {@code key} isn't greater than the previously added key.
+     */
+    void add( KEY key, VALUE value ) throws IOException;
+
+    /**
+     * Builds the internal levels of the tree on top of the added entries and makes them visible.
+     *
+     * @throws IOException on index access error.
+     */
+    @Override
+    void close() throws IOException;
+}
@@ -31,33 +31,32 @@ import org.neo4j.io.pagecache.PageCursor;
 /**
  * Wraps a byte array and present it as a PageCursor.
  * <p>
- * This class is bridging something which would otherwise make {@link InternalTreeLogic} code slightly more
- * complicated. Currently when splitting nodes keys/values/children are read into temporary arrays
- * and manipulating that data by standard means (which are designed to work on {@link PageCursor}
- * can stay the same if wrapping the byte array as such. If splitting code later changes to not
- * do this temporary copy then this class won't be needed anymore.
+ * {@link TreeNodeDynamicSize} stores keys in leaves with their common prefix stripped off and uses this class
+ * to present a prefix and suffix, copied together into a byte array, to {@link Layout#readKey(PageCursor, Object, int)}
+ * and to serialize keys into byte arrays using {@link Layout#writeKey(PageCursor, Object)}. Users of a {@link Layout}
+ * outside of the tree can use it in the same way, to serialize keys on their own.
  * <p>
  * All the accessor methods (getXXX, putXXX) are implemented and delegates calls to its internal {@link ByteBuffer}.
  * {@link #setOffset(int)}, {@link #getOffset()} and {@link #rewind()} positions the internal {@link ByteBuffer}.
  * {@link #shouldRetry()} always returns {@code false}. No other methods should be used and will throw
  * {@link UnsupportedOperationException}.
  */
-class ByteArrayPageCursor extends PageCursor
+public class ByteArrayPageCursor extends PageCursor
 {
     private final ByteBuffer buffer;
     private CursorException cursorException;
 
-    static PageCursor wrap( byte[] array, int offset, int length )
+    public static PageCursor wrap( byte[] array, int offset, int length )
     {
         return new ByteArrayPageCursor( array, offset, length );
     }
 
-    static PageCursor wrap( byte[] array )
+    public static PageCursor wrap( byte[] array )
     {
         return wrap( array, 0, array.length );
     }
 
-    static PageCursor wrap( int length )
+    public static PageCursor wrap( int length )
     {
         return wrap( new byte[length] );
     }
@@ -27,7 +27,10 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.StandardOpenOption;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Consumer;
 import java.util.function.LongSupplier;
 import java.util.function.Supplier;
@@ -75,8 +78,10 @@ import static org.neo4j.index.internal.gbptree.PointerChecking.assertNoSuccessor
  * while at the same time keeping one pointer to the stable version, in case there's a crash or non-clean
  * shutdown, followed by recovery.
  * <p>
- * A single writer w/ multiple concurrent readers is supported. Assuming usage adheres to this
- * constraint neither writer nor readers are blocking. Readers are virtually garbage-free.
+ * Multiple concurrent writers w/ multiple concurrent readers are supported. Readers are never blocking and
+ * are virtually garbage-free. Changes which stay within a single leaf are made concurrently by writers,
+ * each holding a latch for that leaf only, whereas changes to the structure of the tree, i.e. splits, merges
+ * and creating successors of tree nodes, are made by one writer at a time.
  * <p>
  * An reader of GB+Tree is a {@link SeekCursor} that returns result as it finds them.
  * As the cursor move over keys/values, returned results are considered "behind" it
@@ -215,6 +220,11 @@ public class GBPTree<KEY,VALUE> implements Closeable
     {
     };
 
+    /**
+     * Lowest fill factor accepted by {@link #bulkLoader(double)}.
+     */
+    public static final double MIN_BULK_LOAD_FILL_FACTOR = 0.5;
+
     /**
      * Paged file in a {@link PageCache} providing the means of storage.
      */
@@ -245,9 +255,32 @@ public class GBPTree<KEY,VALUE> implements Closeable
     private final FreeListIdProvider freeList;
 
     /**
-     * A single instance {@link Writer} because tree only supports single writer.
+     * Writers not currently in use. {@link #writer()} hands out one of these, or creates a new one if there
+     * are none, and closing a writer puts it back.
+     */
+    private final Queue<TreeWriter> idleWriters = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Keeps concurrent writers from seeing the tree structure while it's being changed. Changes which stay
+     * within a single leaf are made holding the read lock and the {@link #leafLatch(long) latch} of that leaf.
+     * Changes which may change the structure of the tree are made holding the write lock.
+     */
+    private final ReentrantReadWriteLock structureLock = new ReentrantReadWriteLock();
+
+    /**
+     * Incremented every time a writer holds the {@link #structureLock} write lock. A writer caches its path
+     * down the tree between changes and uses this to know when that path may be stale and it needs to start
+     * over from the root. Only changed when holding the {@link #structureLock} write lock.
+     */
+    private volatile long structureVersion;
+
+    /**
+     * Striped latches for leaves, guarding changes to a leaf between writers holding the {@link #structureLock}
+     * read lock.
      */
-    private final SingleWriter writer;
+    private final ReentrantLock[] leafLatches = new ReentrantLock[LEAF_LATCH_STRIPES];
+
+    private static final int LEAF_LATCH_STRIPES = 128;
 
     /**
      * Tells whether or not there have been made changes (using {@link #writer()}) to this tree
@@ -265,7 +298,8 @@ public class GBPTree<KEY,VALUE> implements Closeable
      *     <li>Checkpoint and close</li>
      *     <li>Write and checkpoint</li>
      * </ul>
-     * For those scenarios, writer lock is taken.
+     * For those scenarios, writer lock is taken. Writers themselves take the shared writer lock, so that multiple
+     * concurrent writers can exist at the same time.
      * <p>
      * If cleaning of crash pointers is needed the tree can not be allowed to perform a checkpoint until that job
      * has finished. For this scenario, cleaner lock is taken.
@@ -395,9 +429,12 @@ public class GBPTree<KEY,VALUE> implements Closeable
             this.pagedFile = openOrCreate( pageCache, indexFile, tentativePageSize, layout );
             this.pageSize = pagedFile.pageSize();
             closed = false;
-            this.bTreeNode = new TreeNode<>( pageSize, layout );
+            this.bTreeNode = TreeNode.instantiate( pageSize, layout );
             this.freeList = new FreeListIdProvider( pagedFile, pageSize, rootId, FreeListIdProvider.NO_MONITOR );
-            this.writer = new SingleWriter( new InternalTreeLogic<>( freeList, bTreeNode, layout ) );
+            for ( int i = 0; i < leafLatches.length; i++ )
+            {
+                leafLatches[i] = new ReentrantLock();
+            }
 
             // Create or load state
             if ( created )
@@ -449,7 +486,7 @@ public class GBPTree<KEY,VALUE> implements Closeable
         {
             long stableGeneration = stableGeneration( generation );
             long unstableGeneration = unstableGeneration( generation );
-            TreeNode.initializeLeaf( cursor, stableGeneration, unstableGeneration );
+            bTreeNode.initializeLeaf( cursor, stableGeneration, unstableGeneration );
             checkOutOfBounds( cursor );
         }
 
@@ -790,7 +827,7 @@ public class GBPTree<KEY,VALUE> implements Closeable
         long rootGeneration = root.goTo( cursor );
 
         // Returns cursor which is now initiated with left-most leaf node for the specified range
-        return new SeekCursor<>( cursor, bTreeNode, fromInclusive, toExclusive, layout,
+        return new SeekCursor<>( cursor, bTreeNode.forSingleThread(), fromInclusive, toExclusive, layout,
                 stableGeneration, unstableGeneration, generationSupplier, rootCatchup, rootGeneration,
                 exceptionDecorator );
     }
@@ -933,21 +970,63 @@ public class GBPTree<KEY,VALUE> implements Closeable
     /**
      * Returns a {@link Writer} able to modify the index, i.e. insert and remove keys/values.
      * After usage the returned writer must be closed, typically by using try-with-resource clause.
+     * <p>
+     * Multiple writers can be used concurrently, although each writer must only be used by one thread at a time.
+     * A {@link #checkpoint(IOLimiter) checkpoint} waits for all writers to be closed.
      *
-     * @return the single {@link Writer} for this index. The returned writer must be
-     * {@link Writer#close() closed} before another caller can acquire this writer.
+     * @return a {@link Writer} for this index. The returned writer must be {@link Writer#close() closed}
+     * after usage.
      * @throws IOException on error accessing the index.
-     * @throws IllegalStateException for calls made between a successful call to this method and closing the
-     * returned writer.
      */
     public Writer<KEY,VALUE> writer() throws IOException
     {
         assertRecoveryCleanSuccessful();
+        TreeWriter writer = idleWriters.poll();
+        if ( writer == null )
+        {
+            TreeNode<KEY,VALUE> writerTreeNode = bTreeNode.forSingleThread();
+            writer = new TreeWriter( new InternalTreeLogic<>( freeList, writerTreeNode, layout ), writerTreeNode );
+        }
         writer.initialize();
         changesSinceLastCheckpoint = true;
         return writer;
     }
 
+    /**
+     * Returns a {@link BulkLoader} which builds this tree bottom-up from entries added in ascending key order,
+     * filling leaves and internal tree nodes up to {@code fillFactor} of their capacity. This is much faster than
+     * inserting the entries one by one using a {@link #writer() writer} and produces a compact tree. The tree must
+     * be empty and no writer can make changes until the bulk loader is closed. The returned bulk loader must be
+     * closed by the same thread which acquired it.
+     * <p>
+     * Tree nodes are never less than half full after a split and removals rely on that when merging tree nodes,
+     * which is why {@code fillFactor} can't be less than {@link #MIN_BULK_LOAD_FILL_FACTOR}.
+     *
+     * @param fillFactor how full to make each tree node, between {@link #MIN_BULK_LOAD_FILL_FACTOR} and 1.
+     * @return a {@link BulkLoader} for this tree. The returned bulk loader must be {@link BulkLoader#close() closed}
+     * for the added entries to become visible.
+     * @throws IOException on error accessing the index.
+     * @throws IllegalStateException if this tree isn't empty.
+     */
+    public BulkLoader<KEY,VALUE> bulkLoader( double fillFactor ) throws IOException
+    {
+        if ( fillFactor < MIN_BULK_LOAD_FILL_FACTOR || fillFactor > 1 )
+        {
+            throw new IllegalArgumentException( "Fill factor must be in the range [" + MIN_BULK_LOAD_FILL_FACTOR +
+                    ",1], was " + fillFactor );
+        }
+        assertRecoveryCleanSuccessful();
+        TreeBulkLoader bulkLoader = new TreeBulkLoader( fillFactor );
+        bulkLoader.initialize();
+        changesSinceLastCheckpoint = true;
+        return bulkLoader;
+    }
+
+    private ReentrantLock leafLatch( long leafId )
+    {
+        return leafLatches[(int) (leafId ^ (leafId >>> 32)) & (LEAF_LATCH_STRIPES - 1)];
+    }
+
     private void setRoot( long rootId, long rootGeneration )
     {
         this.root = new Root( rootId, rootGeneration );
@@ -1023,8 +1102,8 @@ public class GBPTree<KEY,VALUE> implements Closeable
     {
         try ( PageCursor cursor = openRootCursor( PagedFile.PF_SHARED_READ_LOCK ) )
         {
-            new TreePrinter<>( bTreeNode, layout, stableGeneration( generation ), unstableGeneration( generation ) )
-                .printTree( cursor, System.out, printValues, printPosition, printState );
+            new TreePrinter<>( bTreeNode.forSingleThread(), layout, stableGeneration( generation ),
+                    unstableGeneration( generation ) ).printTree( cursor, System.out, printValues, printPosition, printState );
         }
     }
 
@@ -1034,8 +1113,8 @@ public class GBPTree<KEY,VALUE> implements Closeable
         try ( PageCursor cursor = pagedFile.io( 0L /*ignored*/, PagedFile.PF_SHARED_READ_LOCK ) )
         {
             long unstableGeneration = unstableGeneration( generation );
-            ConsistencyChecker<KEY> consistencyChecker = new ConsistencyChecker<>( bTreeNode, layout,
-                    stableGeneration( generation ), unstableGeneration );
+            ConsistencyChecker<KEY> consistencyChecker = new ConsistencyChecker<>( bTreeNode.forSingleThread(),
+                    layout, stableGeneration( generation ), unstableGeneration );
 
             long rootGeneration = root.goTo( cursor );
             boolean check = consistencyChecker.check( cursor, rootGeneration );
@@ -1064,26 +1143,32 @@ public class GBPTree<KEY,VALUE> implements Closeable
         return Exceptions.withMessage( e, e.getMessage() + " | " + toString() );
     }
 
-    private class SingleWriter implements Writer<KEY,VALUE>
+    private class TreeWriter implements Writer<KEY,VALUE>
     {
+        private final InternalTreeLogic<KEY,VALUE> treeLogic;
         /**
-         * Currently an index only supports one concurrent writer and so this boolean will act as
-         * guard so that only one writer ever exist.
+         * This writer's own {@link TreeNode}, the same instance as {@link #treeLogic} uses.
          */
-        private final AtomicBoolean writerTaken = new AtomicBoolean();
-        private final InternalTreeLogic<KEY,VALUE> treeLogic;
+        private final TreeNode<KEY,VALUE> treeNode;
         private final StructurePropagation<KEY> structurePropagation;
         private PageCursor cursor;
+        private boolean open;
+
+        /**
+         * The {@link #structureVersion} which the path in {@link #treeLogic} is based on.
+         */
+        private long seenStructureVersion;
 
         // Writer can't live past a checkpoint because of the mutex with checkpoint,
         // therefore safe to locally cache these generation fields from the volatile generation in the tree
         private long stableGeneration;
         private long unstableGeneration;
 
-        SingleWriter( InternalTreeLogic<KEY,VALUE> treeLogic )
+        TreeWriter( InternalTreeLogic<KEY,VALUE> treeLogic, TreeNode<KEY,VALUE> treeNode )
         {
             this.structurePropagation = new StructurePropagation<>( layout.newKey(), layout.newKey(), layout.newKey() );
             this.treeLogic = treeLogic;
+            this.treeNode = treeNode;
         }
 
         /**
@@ -1091,14 +1176,14 @@ public class GBPTree<KEY,VALUE> implements Closeable
          * <p>
          * Either fully initialized:
          * <ul>
-         *    <li>{@link #writerTaken} - true</li>
-         *    <li>{@link #lock} - writerLock locked</li>
+         *    <li>{@link #open} - true</li>
+         *    <li>{@link #lock} - shared writer lock locked</li>
          *    <li>{@link #cursor} - not null</li>
          * </ul>
          * Of fully closed:
          * <ul>
-         *    <li>{@link #writerTaken} - false</li>
-         *    <li>{@link #lock} - writerLock unlocked</li>
+         *    <li>{@link #open} - false</li>
+         *    <li>{@link #lock} - shared writer lock unlocked</li>
          *    <li>{@link #cursor} - null</li>
          * </ul>
          *
@@ -1106,22 +1191,16 @@ public class GBPTree<KEY,VALUE> implements Closeable
          */
         void initialize() throws IOException
         {
-            if ( !writerTaken.compareAndSet( false, true ) )
-            {
-                throw new IllegalStateException( "Writer in " + this + " is already acquired by someone else. " +
-                        "Only a single writer is allowed. The writer will become available as soon as " +
-                        "acquired writer is closed" );
-            }
-
+            lock.sharedWriterLock();
+            open = true;
             boolean success = false;
             try
             {
-                lock.writerLock();
                 cursor = openRootCursor( PagedFile.PF_SHARED_WRITE_LOCK );
                 stableGeneration = stableGeneration( generation );
                 unstableGeneration = unstableGeneration( generation );
-                assert assertNoSuccessor( cursor, stableGeneration, unstableGeneration );
-                treeLogic.initialize( cursor );
+                // Path down the tree is set up from root on first change, when holding the structure lock
+                seenStructureVersion = structureVersion - 1;
                 success = true;
             }
             catch ( Throwable e )
@@ -1147,10 +1226,13 @@ public class GBPTree<KEY,VALUE> implements Closeable
         @Override
         public void merge( KEY key, VALUE value, ValueMerger<KEY,VALUE> valueMerger ) throws IOException
         {
+            treeNode.validateKeyValueSize( key, value );
             try
             {
-                treeLogic.insert( cursor, structurePropagation, key, value, valueMerger,
-                        stableGeneration, unstableGeneration );
+                if ( mergeInLeaf( key, value, valueMerger ) == InternalTreeLogic.LeafChange.STRUCTURE_CHANGE_NEEDED )
+                {
+                    mergeWithStructureChange( key, value, valueMerger );
+                }
             }
             catch ( Throwable e )
             {
@@ -1158,28 +1240,73 @@ public class GBPTree<KEY,VALUE> implements Closeable
                 throw e;
             }
 
+            checkOutOfBounds( cursor );
+        }
+
+        private InternalTreeLogic.LeafChange mergeInLeaf( KEY key, VALUE value, ValueMerger<KEY,VALUE> valueMerger )
+                throws IOException
+        {
+            structureLock.readLock().lock();
+            try
+            {
+                moveToLeaf( key );
+                ReentrantLock leafLatch = leafLatch( cursor.getCurrentPageId() );
+                leafLatch.lock();
+                try
+                {
+                    return treeLogic.insertInLeafOnly( cursor, key, value, valueMerger,
+                            stableGeneration, unstableGeneration );
+                }
+                finally
+                {
+                    leafLatch.unlock();
+                }
+            }
+            finally
+            {
+                structureLock.readLock().unlock();
+            }
+        }
+
+        private void mergeWithStructureChange( KEY key, VALUE value, ValueMerger<KEY,VALUE> valueMerger )
+                throws IOException
+        {
+            structureLock.writeLock().lock();
+            try
+            {
+                beginStructureChange();
+                treeLogic.insert( cursor, structurePropagation, key, value, valueMerger,
+                        stableGeneration, unstableGeneration );
+
+                handleStructureChangeOfRoot();
+            }
+            finally
+            {
+                structurePropagation.clear();
+                structureLock.writeLock().unlock();
+            }
+        }
+
+        private void handleStructureChangeOfRoot() throws IOException
+        {
             if ( structurePropagation.hasRightKeyInsert )
             {
                 // New root
                 long newRootId = freeList.acquireNewId( stableGeneration, unstableGeneration );
                 PageCursorUtil.goTo( cursor, "new root", newRootId );
 
-                TreeNode.initializeInternal( cursor, stableGeneration, unstableGeneration );
-                bTreeNode.insertKeyAt( cursor, structurePropagation.rightKey, 0, 0 );
-                TreeNode.setKeyCount( cursor, 1 );
-                bTreeNode.setChildAt( cursor, structurePropagation.midChild, 0,
-                        stableGeneration, unstableGeneration );
-                bTreeNode.setChildAt( cursor, structurePropagation.rightChild, 1,
+                treeNode.initializeInternal( cursor, stableGeneration, unstableGeneration );
+                treeNode.setChildAt( cursor, structurePropagation.midChild, 0,
                         stableGeneration, unstableGeneration );
+                treeNode.insertKeyAndRightChildAt( cursor, structurePropagation.rightKey,
+                        structurePropagation.rightChild, 0, 0, stableGeneration, unstableGeneration );
+                TreeNode.setKeyCount( cursor, 1 );
                 setRoot( newRootId );
             }
             else if ( structurePropagation.hasMidChildUpdate )
             {
                 setRoot( structurePropagation.midChild );
             }
-            structurePropagation.clear();
-
-            checkOutOfBounds( cursor );
         }
 
         private void setRoot( long rootPointer )
@@ -1195,8 +1322,17 @@ public class GBPTree<KEY,VALUE> implements Closeable
             VALUE result;
             try
             {
-                result = treeLogic.remove( cursor, structurePropagation, key, layout.newValue(),
-                        stableGeneration, unstableGeneration );
+                result = layout.newValue();
+                switch ( removeFromLeaf( key, result ) )
+                {
+                case CHANGED:
+                    break;
+                case UNCHANGED:
+                    result = null;
+                    break;
+                default:
+                    result = removeWithStructureChange( key, result );
+                }
             }
             catch ( Throwable e )
             {
@@ -1204,26 +1340,104 @@ public class GBPTree<KEY,VALUE> implements Closeable
                 throw e;
             }
 
-            if ( structurePropagation.hasMidChildUpdate )
+            checkOutOfBounds( cursor );
+            return result;
+        }
+
+        private InternalTreeLogic.LeafChange removeFromLeaf( KEY key, VALUE into ) throws IOException
+        {
+            structureLock.readLock().lock();
+            try
             {
-                setRoot( structurePropagation.midChild );
+                moveToLeaf( key );
+                ReentrantLock leafLatch = leafLatch( cursor.getCurrentPageId() );
+                leafLatch.lock();
+                try
+                {
+                    return treeLogic.removeFromLeafOnly( cursor, key, into, stableGeneration, unstableGeneration );
+                }
+                finally
+                {
+                    leafLatch.unlock();
+                }
+            }
+            finally
+            {
+                structureLock.readLock().unlock();
             }
-            structurePropagation.clear();
+        }
 
-            checkOutOfBounds( cursor );
-            return result;
+        private VALUE removeWithStructureChange( KEY key, VALUE into ) throws IOException
+        {
+            structureLock.writeLock().lock();
+            try
+            {
+                beginStructureChange();
+                VALUE result = treeLogic.remove( cursor, structurePropagation, key, into,
+                        stableGeneration, unstableGeneration );
+
+                // Replacing a key in an internal node may split the root if keys aren't fixed size
+                handleStructureChangeOfRoot();
+                return result;
+            }
+            finally
+            {
+                structurePropagation.clear();
+                structureLock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Moves the cursor to the leaf where {@code key} belongs. Called holding the {@link #structureLock} read lock.
+         */
+        private void moveToLeaf( KEY key ) throws IOException
+        {
+            if ( seenStructureVersion != structureVersion )
+            {
+                goToRoot();
+            }
+            treeLogic.moveToLeaf( cursor, key, stableGeneration, unstableGeneration );
+        }
+
+        /**
+         * Called holding the {@link #structureLock} write lock, before changing the structure of the tree.
+         * The path which this writer has cached is still valid afterwards, as long as no other writer
+         * changed the structure in between.
+         */
+        private void beginStructureChange() throws IOException
+        {
+            boolean pathIsCurrent = seenStructureVersion == structureVersion;
+            structureVersion++;
+            if ( pathIsCurrent )
+            {
+                seenStructureVersion = structureVersion;
+            }
+            else
+            {
+                goToRoot();
+            }
+        }
+
+        private void goToRoot() throws IOException
+        {
+            root.goTo( cursor );
+            assert assertNoSuccessor( cursor, stableGeneration, unstableGeneration );
+            treeLogic.initialize( cursor );
+            seenStructureVersion = structureVersion;
         }
 
         @Override
         public void close() throws IOException
         {
-            if ( !writerTaken.compareAndSet( true, false ) )
+            if ( !open )
             {
                 throw new IllegalStateException( "Tried to close writer of " + GBPTree.this +
                         ", but writer is already closed." );
             }
+            open = false;
             closeCursor();
-            lock.writerUnlock();
+            lock.sharedWriterUnlock();
+            idleWriters.offer( this );
         }
 
         private void closeCursor()
@@ -1235,4 +1449,258 @@ public class GBPTree<KEY,VALUE> implements Closeable
             }
         }
     }
+
+    private class TreeBulkLoader implements BulkLoader<KEY,VALUE>
+    {
+        private final KEY previousKey = layout.newKey();
+        private final KEY readKey = layout.newKey();
+        private final TreeNode<KEY,VALUE> treeNode = bTreeNode.forSingleThread();
+        private final double fillFactor;
+        private PageCursor cursor;
+        private PageCursor readCursor;
+        private long stableGeneration;
+        private long unstableGeneration;
+
+        private long firstLeafId = TreeNode.NO_NODE_FLAG;
+        private long currentNodeId = TreeNode.NO_NODE_FLAG;
+        private long previousNodeId = TreeNode.NO_NODE_FLAG;
+        private int currentKeyCount;
+        private long leafCount;
+        private long firstOnLevel;
+
+        TreeBulkLoader( double fillFactor )
+        {
+            this.fillFactor = fillFactor;
+        }
+
+        /**
+         * Takes a shared writer lock and the structure write lock, which are held until {@link #close()}.
+         */
+        void initialize() throws IOException
+        {
+            lock.sharedWriterLock();
+            structureLock.writeLock().lock();
+            boolean success = false;
+            try
+            {
+                cursor = openRootCursor( PagedFile.PF_SHARED_WRITE_LOCK );
+                readCursor = pagedFile.io( 0L /*Ignored*/, PagedFile.PF_SHARED_WRITE_LOCK );
+                stableGeneration = stableGeneration( generation );
+                unstableGeneration = unstableGeneration( generation );
+                if ( !TreeNode.isLeaf( cursor ) || TreeNode.keyCount( cursor ) != 0 )
+                {
+                    throw new IllegalStateException( "Can only bulk load into an empty tree" );
+                }
+                success = true;
+            }
+            catch ( Throwable e )
+            {
+                appendTreeInformation( e );
+                throw e;
+            }
+            finally
+            {
+                if ( !success )
+                {
+                    release();
+                }
+            }
+        }
+
+        @Override
+        public void add( KEY key, VALUE value ) throws IOException
+        {
+            if ( leafCount > 0 && layout.compare( key, previousKey ) <= 0 )
+            {
+                throw new IllegalArgumentException( "Keys must be added in strictly ascending order, but " + key +
+                        " was added after " + previousKey );
+            }
+            treeNode.validateKeyValueSize( key, value );
+            if ( leafCount == 0 || treeNode.leafOverflow( cursor, currentKeyCount, key, fillFactor ) )
+            {
+                long previousLeafId = currentNodeId;
+                newNode( true );
+                if ( previousLeafId == TreeNode.NO_NODE_FLAG )
+                {
+                    firstLeafId = currentNodeId;
+                }
+                leafCount++;
+            }
+            treeNode.insertKeyValueAt( cursor, key, value, currentKeyCount, currentKeyCount );
+            currentKeyCount++;
+            TreeNode.setKeyCount( cursor, currentKeyCount );
+            layout.copyKey( key, previousKey );
+            checkOutOfBounds( cursor );
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            try
+            {
+                if ( leafCount > 0 )
+                {
+                    long levelFirstId = firstLeafId;
+                    long levelCount = leafCount;
+                    while ( levelCount > 1 )
+                    {
+                        levelCount = buildInternalLevel( levelFirstId, levelCount );
+                        levelFirstId = firstOnLevel;
+                    }
+
+                    long oldRootId = root.id();
+                    freeList.releaseId( stableGeneration, unstableGeneration, oldRootId );
+                    GBPTree.this.setRoot( levelFirstId, unstableGeneration );
+                    structureVersion++;
+                }
+            }
+            catch ( Throwable e )
+            {
+                appendTreeInformation( e );
+                throw e;
+            }
+            finally
+            {
+                release();
+            }
+        }
+
+        /**
+         * Builds one internal level on top of the {@code childCount} tree nodes on the level below, starting at
+         * {@code firstChildId} and linked by their right sibling pointers. Internal tree nodes are filled up to
+         * {@link #fillFactor} of their capacity, although always with at least three children if they fit.
+         * The last internal tree node on the level gets a child from the one before it if it would otherwise
+         * only have one child.
+         *
+         * @return number of tree nodes on the new level, the first of which is placed in {@link #firstOnLevel}.
+         */
+        private long buildInternalLevel( long firstChildId, long childCount ) throws IOException
+        {
+            long nodeCount = 0;
+            currentNodeId = TreeNode.NO_NODE_FLAG;
+            long childId = firstChildId;
+            for ( long child = 0; child < childCount; child++ )
+            {
+                TreeNode.goTo( readCursor, "child", childId );
+                long rightSibling = TreeNode.rightSibling( readCursor, stableGeneration, unstableGeneration );
+                PointerChecking.checkPointer( rightSibling, true );
+                // Separator key is the lowest key in the subtree of this child
+                KEY separator = child == 0 ? null : lowestKeyInSubtree();
+                if ( child == 0 ||
+                     treeNode.internalOverflow( cursor, currentKeyCount, separator, fillFactor ) )
+                {
+                    newNode( false );
+                    if ( child == 0 )
+                    {
+                        firstOnLevel = currentNodeId;
+                    }
+                    treeNode.setChildAt( cursor, childId, 0, stableGeneration, unstableGeneration );
+                    nodeCount++;
+                }
+                else
+                {
+                    treeNode.insertKeyAndRightChildAt( cursor, separator, childId, currentKeyCount, currentKeyCount,
+                            stableGeneration, unstableGeneration );
+                    currentKeyCount++;
+                    TreeNode.setKeyCount( cursor, currentKeyCount );
+                }
+                checkOutOfBounds( cursor );
+                childId = GenerationSafePointerPair.pointer( rightSibling );
+            }
+
+            if ( nodeCount > 1 && currentKeyCount == 0 )
+            {
+                moveLastChildOfPreviousNode();
+            }
+            return nodeCount;
+        }
+
+        /**
+         * Moves the rightmost child of {@link #previousNodeId} to become the leftmost child of the internal tree node
+         * where {@link #cursor} is, which has only one child.
+         */
+        private void moveLastChildOfPreviousNode() throws IOException
+        {
+            long onlyChild = GenerationSafePointerPair.pointer(
+                    treeNode.childAt( cursor, 0, stableGeneration, unstableGeneration ) );
+
+            TreeNode.goTo( readCursor, "previous node", previousNodeId );
+            int previousKeyCount = TreeNode.keyCount( readCursor );
+            long movedChild = treeNode.childAt( readCursor, previousKeyCount, stableGeneration, unstableGeneration );
+            PointerChecking.checkPointer( movedChild, false );
+            treeNode.removeKeyAndRightChildAt( readCursor, previousKeyCount - 1, previousKeyCount );
+            TreeNode.setKeyCount( readCursor, previousKeyCount - 1 );
+            checkOutOfBounds( readCursor );
+
+            TreeNode.goTo( readCursor, "child", onlyChild );
+            treeNode.insertKeyAndRightChildAt( cursor, lowestKeyInSubtree(), onlyChild, 0, 0,
+                    stableGeneration, unstableGeneration );
+            treeNode.setChildAt( cursor, GenerationSafePointerPair.pointer( movedChild ), 0,
+                    stableGeneration, unstableGeneration );
+            currentKeyCount = 1;
+            TreeNode.setKeyCount( cursor, currentKeyCount );
+            checkOutOfBounds( cursor );
+        }
+
+        /**
+         * Reads the lowest key in the subtree rooted at where {@link #readCursor} is, leaving {@link #readCursor}
+         * at the leftmost leaf in that subtree.
+         */
+        private KEY lowestKeyInSubtree() throws IOException
+        {
+            while ( TreeNode.isInternal( readCursor ) )
+            {
+                long childId = treeNode.childAt( readCursor, 0, stableGeneration, unstableGeneration );
+                PointerChecking.checkPointer( childId, false );
+                TreeNode.goTo( readCursor, "child", childId );
+            }
+            return treeNode.keyAt( readCursor, readKey, 0 );
+        }
+
+        /**
+         * Acquires and initializes a new tree node, linking it as right sibling to the previous node on the
+         * same level, if any, and leaves {@link #cursor} at it.
+         */
+        private void newNode( boolean leaf ) throws IOException
+        {
+            long previousId = currentNodeId;
+            long newId = freeList.acquireNewId( stableGeneration, unstableGeneration );
+            if ( previousId != TreeNode.NO_NODE_FLAG )
+            {
+                TreeNode.setRightSibling( cursor, newId, stableGeneration, unstableGeneration );
+            }
+            PageCursorUtil.goTo( cursor, "new node", newId );
+            if ( leaf )
+            {
+                treeNode.initializeLeaf( cursor, stableGeneration, unstableGeneration );
+            }
+            else
+            {
+                treeNode.initializeInternal( cursor, stableGeneration, unstableGeneration );
+            }
+            if ( previousId != TreeNode.NO_NODE_FLAG )
+            {
+                TreeNode.setLeftSibling( cursor, previousId, stableGeneration, unstableGeneration );
+            }
+            previousNodeId = previousId;
+            currentNodeId = newId;
+            currentKeyCount = 0;
+        }
+
+        private void release()
+        {
+            if ( cursor != null )
+            {
+                cursor.close();
+                cursor = null;
+            }
+            if ( readCursor != null )
+            {
+                readCursor.close();
+                readCursor = null;
+            }
+            structureLock.writeLock().unlock();
+            lock.sharedWriterUnlock();
+        }
+    }
 }
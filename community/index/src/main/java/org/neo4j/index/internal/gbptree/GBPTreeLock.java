@@ -29,6 +29,8 @@ class GBPTreeLock
     private static final long stateOffset = UnsafeUtil.getFieldOffset( GBPTreeLock.class, "state" );
     private static final long writerLockBit = 0x00000000_00000001L;
     private static final long cleanerLockBit = 0x00000000_00000002L;
+    private static final long sharedWriterUnit = 0x00000001_00000000L;
+    private static final long sharedWriterMask = 0xFFFFFFFF_00000000L;
     private volatile long state;
 
     // Used for testing
@@ -49,6 +51,39 @@ class GBPTreeLock
         doUnlock( writerLockBit );
     }
 
+    /**
+     * Shared writer lock, held by each of the concurrent writers of the tree. Any number of writers can hold it
+     * at the same time, but it excludes, and is excluded by, {@link #writerLock()}.
+     */
+    void sharedWriterLock()
+    {
+        long currentState;
+        do
+        {
+            currentState = state;
+            while ( !canLock( currentState, writerLockBit ) )
+            {
+                sleep();
+                currentState = state;
+            }
+        }
+        while ( !UnsafeUtil.compareAndSwapLong( this, stateOffset, currentState, currentState + sharedWriterUnit ) );
+    }
+
+    void sharedWriterUnlock()
+    {
+        long currentState;
+        do
+        {
+            currentState = state;
+            if ( (currentState & sharedWriterMask) == 0 )
+            {
+                throw new IllegalStateException( "Can not unlock shared writer lock that isn't locked" );
+            }
+        }
+        while ( !UnsafeUtil.compareAndSwapLong( this, stateOffset, currentState, currentState - sharedWriterUnit ) );
+    }
+
     void cleanerLock()
     {
         doLock( cleanerLockBit );
@@ -84,6 +119,15 @@ class GBPTreeLock
             }
             newState = currentState | targetLockBit;
         } while ( !UnsafeUtil.compareAndSwapLong( this, stateOffset, currentState, newState ) );
+
+        if ( (targetLockBit & writerLockBit) != 0 )
+        {
+            // The writer lock bit is set and so no new shared writers will get in, wait for the current ones to leave
+            while ( (state & sharedWriterMask) != 0 )
+            {
+                sleep();
+            }
+        }
     }
 
     private void doUnlock( long targetLockBit )
@@ -102,6 +102,28 @@ class InternalTreeLogic<KEY,VALUE>
     private Level<KEY>[] levels = new Level[0]; // grows on demand
     private int currentLevel = -1;
 
+    /**
+     * Outcome of a change which only is allowed to touch a single leaf, see
+     * {@link #insertInLeafOnly(PageCursor, Object, Object, ValueMerger, long, long)} and
+     * {@link #removeFromLeafOnly(PageCursor, Object, Object, long, long)}.
+     */
+    enum LeafChange
+    {
+        /**
+         * The leaf was changed.
+         */
+        CHANGED,
+        /**
+         * Nothing needed to be changed, e.g. removing a key which doesn't exist.
+         */
+        UNCHANGED,
+        /**
+         * The change wasn't made because it would have changed the structure of the tree, i.e. needed to split,
+         * merge, rebalance or create a successor of a tree node.
+         */
+        STRUCTURE_CHANGE_NEEDED
+    }
+
     /**
      * Keeps information about one level in a path down the tree where the {@link PageCursor} is currently at.
      *
@@ -371,6 +393,77 @@ class InternalTreeLogic<KEY,VALUE>
         }
     }
 
+    /**
+     * Moves the cursor to the leaf where {@code key} belongs, in the same way as
+     * {@link #insert(PageCursor, StructurePropagation, Object, Object, ValueMerger, long, long)} and
+     * {@link #remove(PageCursor, StructurePropagation, Object, Object, long, long)} does. Used before
+     * {@link #insertInLeafOnly(PageCursor, Object, Object, ValueMerger, long, long)} and
+     * {@link #removeFromLeafOnly(PageCursor, Object, Object, long, long)}.
+     *
+     * @param cursor {@link PageCursor} pinned to root of tree or at where last change left it.
+     * @param key key to find leaf for.
+     * @param stableGeneration stable generation, i.e. generations <= this generation are considered stable.
+     * @param unstableGeneration unstable generation, i.e. generation which is under development right now.
+     * @throws IOException on cursor failure
+     */
+    void moveToLeaf( PageCursor cursor, KEY key, long stableGeneration, long unstableGeneration ) throws IOException
+    {
+        assert cursorIsAtExpectedLocation( cursor );
+        moveToCorrectLeaf( cursor, key, stableGeneration, unstableGeneration );
+    }
+
+    /**
+     * Insert {@code key} and associate it with {@code value} in the leaf which {@code cursor} is at, like
+     * {@link #insert(PageCursor, StructurePropagation, Object, Object, ValueMerger, long, long)} does,
+     * but only if that can be done without changing the structure of the tree. That is the case if the leaf
+     * already is of {@code unstableGeneration} and either already contains {@code key} or has room for one more.
+     * <p>
+     * Changes like this only touch the leaf itself and can therefore be made concurrently with other such changes
+     * in other leaves. Caller is responsible for having placed the cursor using
+     * {@link #moveToLeaf(PageCursor, Object, long, long)} and for making sure no other change is made
+     * to this leaf concurrently.
+     *
+     * @param cursor {@link PageCursor} pinned to the leaf where {@code key} belongs.
+     * @param key key to be inserted
+     * @param value value to be associated with key
+     * @param valueMerger {@link ValueMerger} for deciding what to do with existing keys
+     * @param stableGeneration stable generation, i.e. generations <= this generation are considered stable.
+     * @param unstableGeneration unstable generation, i.e. generation which is under development right now.
+     * @return {@link LeafChange#STRUCTURE_CHANGE_NEEDED} if nothing was done and the insert needs to be made
+     * using {@link #insert(PageCursor, StructurePropagation, Object, Object, ValueMerger, long, long)} instead.
+     */
+    LeafChange insertInLeafOnly( PageCursor cursor, KEY key, VALUE value, ValueMerger<KEY,VALUE> valueMerger,
+            long stableGeneration, long unstableGeneration )
+    {
+        if ( TreeNode.generation( cursor ) != unstableGeneration )
+        {
+            return LeafChange.STRUCTURE_CHANGE_NEEDED;
+        }
+
+        int keyCount = TreeNode.keyCount( cursor );
+        int search = search( cursor, key, readKey, keyCount );
+        int pos = positionOf( search );
+        if ( isHit( search ) )
+        {
+            bTreeNode.valueAt( cursor, readValue, pos );
+            VALUE mergedValue = valueMerger.merge( readKey, key, readValue, value );
+            if ( mergedValue == null )
+            {
+                return LeafChange.UNCHANGED;
+            }
+            bTreeNode.setValueAt( cursor, mergedValue, pos );
+            return LeafChange.CHANGED;
+        }
+
+        if ( bTreeNode.leafOverflow( cursor, keyCount, key ) )
+        {
+            return LeafChange.STRUCTURE_CHANGE_NEEDED;
+        }
+        bTreeNode.insertKeyValueAt( cursor, key, value, pos, keyCount );
+        TreeNode.setKeyCount( cursor, keyCount + 1 );
+        return LeafChange.CHANGED;
+    }
+
     private int search( PageCursor cursor, KEY key, KEY readKey, int keyCount )
     {
         int searchResult = KeySearch.search( cursor, bTreeNode, key, readKey, keyCount );
@@ -414,15 +507,15 @@ class InternalTreeLogic<KEY,VALUE>
     {
         createSuccessorIfNeeded( cursor, structurePropagation, UPDATE_MID_CHILD,
                 stableGeneration, unstableGeneration );
-        if ( keyCount < bTreeNode.internalMaxKeyCount() )
+        if ( !bTreeNode.internalOverflow( cursor, keyCount, primKey ) )
         {
             // No overflow
             int pos = positionOf( search( cursor, primKey, readKey, keyCount ) );
 
-            bTreeNode.insertKeyAt( cursor, primKey, pos, keyCount );
-            // NOTE pos+1 since we never insert a new child before child(0) because its key is really
-            // the one from the parent.
-            bTreeNode.insertChildAt( cursor, rightChild, pos + 1, keyCount, stableGeneration, unstableGeneration );
+            // NOTE the child is inserted at pos+1 since we never insert a new child before child(0) because
+            // its key is really the one from the parent.
+            bTreeNode.insertKeyAndRightChildAt( cursor, primKey, rightChild, pos, keyCount,
+                    stableGeneration, unstableGeneration );
 
             // Increase key count
             TreeNode.setKeyCount( cursor, keyCount + 1 );
@@ -432,7 +525,7 @@ class InternalTreeLogic<KEY,VALUE>
 
         // Overflow
         // We will overwrite rightKey in structurePropagation, so copy it over to a place holder
-        layout.copyKey( structurePropagation.rightKey, newKeyPlaceHolder );
+        layout.copyKey( primKey, newKeyPlaceHolder );
         splitInternal( cursor, structurePropagation, newKeyPlaceHolder, rightChild, keyCount,
                 stableGeneration, unstableGeneration );
     }
@@ -460,133 +553,32 @@ class InternalTreeLogic<KEY,VALUE>
         // Find position to insert new key
         int pos = positionOf( search( cursor, newKey, readKey, keyCount ) );
 
-        int keyCountAfterInsert = keyCount + 1;
-        int middlePos = middle( keyCountAfterInsert );
-
         // Update structurePropagation
         structurePropagation.hasRightKeyInsert = true;
         structurePropagation.midChild = current;
         structurePropagation.rightChild = newRight;
-        if ( middlePos == pos )
-        {
-            layout.copyKey( newKey, structurePropagation.rightKey );
-        }
-        else
-        {
-            bTreeNode.keyAt( cursor, structurePropagation.rightKey, pos < middlePos ? middlePos - 1 : middlePos );
-        }
 
-        // Update new right
+        // Update new right and left, which gets its new right sibling before cursor leaves it
         try ( PageCursor rightCursor = cursor.openLinkedCursor( newRight ) )
         {
             TreeNode.goTo( rightCursor, "new right sibling in split", newRight );
-            TreeNode.initializeInternal( rightCursor, stableGeneration, unstableGeneration );
+            bTreeNode.initializeInternal( rightCursor, stableGeneration, unstableGeneration );
             TreeNode.setRightSibling( rightCursor, oldRight, stableGeneration, unstableGeneration );
             TreeNode.setLeftSibling( rightCursor, current, stableGeneration, unstableGeneration );
-            int rightKeyCount = keyCountAfterInsert - middlePos - 1; // -1 because don't keep prim key in internal
-
-            if ( pos < middlePos )
-            {
-                //                         v-------v       copy
-                // before key    _,_,_,_,_,_,_,_,_,_
-                // before child -,-,-,-,-,-,-,-,-,-,-
-                // insert key    _,_,X,_,_,_,_,_,_,_,_
-                // insert child -,-,-,x,-,-,-,-,-,-,-,-
-                // middle key              ^
-
-                // children
-                cursor.copyTo( bTreeNode.keyOffset( middlePos ), rightCursor, bTreeNode.keyOffset( 0 ),
-                        rightKeyCount * bTreeNode.keySize() );
-                cursor.copyTo( bTreeNode.childOffset( middlePos ), rightCursor, bTreeNode.childOffset( 0 ),
-                        (rightKeyCount + 1) * TreeNode.childSize() );
-            }
-            else
-            {
-                // pos > middlePos
-                //                         v-v          first copy
-                //                             v-v-v    second copy
-                // before key    _,_,_,_,_,_,_,_,_,_
-                // before child -,-,-,-,-,-,-,-,-,-,-
-                // insert key    _,_,_,_,_,_,_,X,_,_,_
-                // insert child -,-,-,-,-,-,-,-,x,-,-,-
-                // middle key              ^
-
-                // pos == middlePos
-                //                                      first copy
-                //                         v-v-v-v-v    second copy
-                // before key    _,_,_,_,_,_,_,_,_,_
-                // before child -,-,-,-,-,-,-,-,-,-,-
-                // insert key    _,_,_,_,_,X,_,_,_,_,_
-                // insert child -,-,-,-,-,-,x,-,-,-,-,-
-                // middle key              ^
-
-                // Keys
-                int countBeforePos = pos - (middlePos + 1);
-                // ... first copy
-                if ( countBeforePos > 0 )
-                {
-                    cursor.copyTo( bTreeNode.keyOffset( middlePos + 1 ), rightCursor, bTreeNode.keyOffset( 0 ),
-                            countBeforePos * bTreeNode.keySize() );
-                }
-                // ... insert
-                if ( countBeforePos >= 0 )
-                {
-                    bTreeNode.insertKeyAt( rightCursor, newKey, countBeforePos, countBeforePos );
-                }
-                // ... second copy
-                int countAfterPos = keyCount - pos;
-                if ( countAfterPos > 0 )
-                {
-                    cursor.copyTo( bTreeNode.keyOffset( pos ), rightCursor,
-                            bTreeNode.keyOffset( countBeforePos + 1 ), countAfterPos * bTreeNode.keySize() );
-                }
-
-                // Children
-                countBeforePos = pos - middlePos;
-                // ... first copy
-                if ( countBeforePos > 0 )
-                {
-                    // first copy
-                    cursor.copyTo( bTreeNode.childOffset( middlePos + 1 ), rightCursor, bTreeNode.childOffset( 0 ),
-                            countBeforePos * TreeNode.childSize() );
-                }
-                // ... insert
-                bTreeNode.insertChildAt( rightCursor, newRightChild, countBeforePos, countBeforePos,
-                        stableGeneration, unstableGeneration );
-                // ... second copy
-                if ( countAfterPos > 0 )
-                {
-                    cursor.copyTo( bTreeNode.childOffset( pos + 1 ), rightCursor,
-                            bTreeNode.childOffset( countBeforePos + 1 ), countAfterPos * TreeNode.childSize() );
-                }
-            }
-            TreeNode.setKeyCount( rightCursor, rightKeyCount );
+            bTreeNode.doSplitInternal( cursor, keyCount, rightCursor, pos, newKey, newRightChild,
+                    stableGeneration, unstableGeneration, structurePropagation.rightKey );
         }
+        TreeNode.setRightSibling( cursor, newRight, stableGeneration, unstableGeneration );
 
         // Update old right with new left sibling (newRight)
         if ( TreeNode.isNode( oldRight ) )
         {
-            TreeNode.goTo( cursor, "old right sibling", oldRight );
-            TreeNode.setLeftSibling( cursor, newRight, stableGeneration, unstableGeneration );
-        }
-
-        // Update left node
-        // Move cursor back to left
-        TreeNode.goTo( cursor, "left", current );
-        TreeNode.setKeyCount( cursor, middlePos );
-        if ( pos < middlePos )
-        {
-            bTreeNode.insertKeyAt( cursor, newKey, pos, middlePos - 1 );
-            bTreeNode.insertChildAt( cursor, newRightChild, pos + 1, middlePos - 1,
-                    stableGeneration, unstableGeneration );
+            try ( PageCursor oldRightCursor = cursor.openLinkedCursor( oldRight ) )
+            {
+                TreeNode.goTo( oldRightCursor, "old right sibling", oldRight );
+                TreeNode.setLeftSibling( oldRightCursor, newRight, stableGeneration, unstableGeneration );
+            }
         }
-
-        TreeNode.setRightSibling( cursor, newRight, stableGeneration, unstableGeneration );
-    }
-
-    private static int middle( int keyCountAfterInsert )
-    {
-        return keyCountAfterInsert / 2;
     }
 
     /**
@@ -626,11 +618,10 @@ class InternalTreeLogic<KEY,VALUE>
         createSuccessorIfNeeded( cursor, structurePropagation, UPDATE_MID_CHILD,
                 stableGeneration, unstableGeneration );
 
-        if ( keyCount < bTreeNode.leafMaxKeyCount() )
+        if ( !bTreeNode.leafOverflow( cursor, keyCount, key ) )
         {
             // No overflow, insert key and value
-            bTreeNode.insertKeyAt( cursor, key, pos, keyCount );
-            bTreeNode.insertValueAt( cursor, value, pos, keyCount );
+            bTreeNode.insertKeyValueAt( cursor, key, value, pos, keyCount );
             TreeNode.setKeyCount( cursor, keyCount + 1 );
 
             return; // No split has occurred
@@ -674,111 +665,31 @@ class InternalTreeLogic<KEY,VALUE>
         PointerChecking.checkPointer( oldRight, true );
         long newRight = idProvider.acquireNewId( stableGeneration, unstableGeneration );
 
-        // BALANCE KEYS AND VALUES
-        // Two different scenarios
-        // Before split
-        // [key1]<=[key2]<=[key3]<=[key4]<=[key5]   (<= greater than or equal to)
-        //                           ^
-        //                           |
-        //                      pos  |
-        // [newKey] -----------------
-        //
-        // After split
-        // Left
-        // [key1]<=[key2]<=[key3]
-        //
-        // Right
-        // [newKey][key4][key5]
-        //
-        // Before split
-        // [key1]<=[key2]<=[key3]<=[key4]<=[key5]   (<= greater than or equal to)
-        //   ^
-        //   | pos
-        //   |
-        // [newKey]
-        //
-        // After split
-        // Left
-        // [newKey]<=[key1]<=[key2]
-        //
-        // Right
-        // [key3][key4][key5]
-        //
-
         // CONCURRENCY
         // To have readers see correct state at all times, the order of updates must be:
         // 1. Acquire new page id R
-        // 2. Copy "right-hand" keys/values to R and set key count
+        // 2. Move "right-hand" keys/values to R and set key count, while L stays pinned by cursor
         // 3. Set L's right sibling to R
-        // 4. Set key count of L to new "left-hand" key count
-        // 5. Write new key/values into L
+        // 4. Set R as left sibling of L's old right sibling
 
         // Position where newKey / newValue is to be inserted
         int pos = positionOf( search( cursor, newKey, readKey, keyCount ) );
-        int keyCountAfterInsert = keyCount + 1;
-        int middlePos = middle( keyCountAfterInsert );
-
-        // allKeysIncludingNewKey should now contain all keys in sorted order and
-        // allValuesIncludingNewValue should now contain all values in same order as corresponding keys
-        // and are ready to be split between left and newRight.
-
-        // We now have everything we need to start working on newRight
-        // and everything that needs to be updated in left has been so.
 
         structurePropagation.hasRightKeyInsert = true;
         structurePropagation.midChild = current;
         structurePropagation.rightChild = newRight;
 
-        if ( middlePos == pos )
-        {
-            layout.copyKey( newKey, structurePropagation.rightKey );
-        }
-        else
-        {
-            bTreeNode.keyAt( cursor, structurePropagation.rightKey, pos < middlePos ? middlePos - 1 : middlePos );
-        }
-
-        // Update new right
+        // Update new right and left, where the tree node decides how to balance keys and values between them
         try ( PageCursor rightCursor = cursor.openLinkedCursor( newRight ) )
         {
             TreeNode.goTo( rightCursor, "new right sibling in split", newRight );
-            TreeNode.initializeLeaf( rightCursor, stableGeneration, unstableGeneration );
+            bTreeNode.initializeLeaf( rightCursor, stableGeneration, unstableGeneration );
             TreeNode.setRightSibling( rightCursor, oldRight, stableGeneration, unstableGeneration );
             TreeNode.setLeftSibling( rightCursor, current, stableGeneration, unstableGeneration );
-            int rightKeyCount = keyCountAfterInsert - middlePos;
-
-            if ( pos < middlePos )
-            {
-                //                  v-------v       copy
-                // before _,_,_,_,_,_,_,_,_,_
-                // insert _,_,_,X,_,_,_,_,_,_,_
-                // middle           ^
-                copyKeysAndValues( cursor, middlePos - 1, rightCursor, 0, rightKeyCount );
-            }
-            else
-            {
-                //                  v---v           first copy
-                //                        v-v       second copy
-                // before _,_,_,_,_,_,_,_,_,_
-                // insert _,_,_,_,_,_,_,_,X,_,_
-                // middle           ^
-                int countBeforePos = pos - middlePos;
-                if ( countBeforePos > 0 )
-                {
-                    // first copy
-                    copyKeysAndValues( cursor, middlePos, rightCursor, 0, countBeforePos );
-                }
-                bTreeNode.insertKeyAt( rightCursor, newKey, countBeforePos, countBeforePos );
-                bTreeNode.insertValueAt( rightCursor, newValue, countBeforePos, countBeforePos );
-                int countAfterPos = keyCount - pos;
-                if ( countAfterPos > 0 )
-                {
-                    // second copy
-                    copyKeysAndValues( cursor, pos, rightCursor, countBeforePos + 1, countAfterPos );
-                }
-            }
-            TreeNode.setKeyCount( rightCursor, rightKeyCount );
+            bTreeNode.doSplitLeaf( cursor, keyCount, rightCursor, pos, newKey, newValue,
+                    structurePropagation.rightKey );
         }
+        TreeNode.setRightSibling( cursor, newRight, stableGeneration, unstableGeneration );
 
         // Update old right with new left sibling (newRight)
         if ( TreeNode.isNode( oldRight ) )
@@ -789,24 +700,6 @@ class InternalTreeLogic<KEY,VALUE>
                 TreeNode.setLeftSibling( oldRightCursor, newRight, stableGeneration, unstableGeneration );
             }
         }
-
-        // Update left child
-        // If pos < middle. Write shifted values to left node. Else, don't write anything.
-        if ( pos < middlePos )
-        {
-            bTreeNode.insertKeyAt( cursor, newKey, pos, middlePos - 1 );
-            bTreeNode.insertValueAt( cursor, newValue, pos, middlePos - 1 );
-        }
-        TreeNode.setKeyCount( cursor, middlePos );
-        TreeNode.setRightSibling( cursor, newRight, stableGeneration, unstableGeneration );
-    }
-
-    private void copyKeysAndValues( PageCursor fromCursor, int fromPos, PageCursor toCursor, int toPos, int count )
-    {
-        fromCursor.copyTo( bTreeNode.keyOffset( fromPos ), toCursor, bTreeNode.keyOffset( toPos ),
-                count * bTreeNode.keySize() );
-        fromCursor.copyTo( bTreeNode.valueOffset( fromPos ), toCursor, bTreeNode.valueOffset( toPos ),
-                count * bTreeNode.valueSize() );
     }
 
     /**
@@ -848,7 +741,8 @@ class InternalTreeLogic<KEY,VALUE>
                 structurePropagation.hasMidChildUpdate ||
                 structurePropagation.hasRightChildUpdate ||
                 structurePropagation.hasLeftKeyReplace ||
-                structurePropagation.hasRightKeyReplace )
+                structurePropagation.hasRightKeyReplace ||
+                structurePropagation.hasRightKeyInsert )
         {
             int pos = levels[currentLevel].childPos;
             if ( !popLevel( cursor ) )
@@ -856,6 +750,8 @@ class InternalTreeLogic<KEY,VALUE>
                 // Root split, let that be handled outside
                 break;
             }
+            // Key replacement on this level may split it and so ask for a right key insert on the level above
+            boolean hasRightKeyInsertFromBelow = structurePropagation.hasRightKeyInsert;
 
             if ( structurePropagation.hasLeftChildUpdate )
             {
@@ -902,7 +798,8 @@ class InternalTreeLogic<KEY,VALUE>
                 case REPLACE:
                     createSuccessorIfNeeded( cursor, structurePropagation, UPDATE_MID_CHILD,
                             stableGeneration, unstableGeneration );
-                    bTreeNode.setKeyAt( cursor, structurePropagation.leftKey, pos - 1 );
+                    replaceKeyInInternal( cursor, structurePropagation, structurePropagation.leftKey, pos - 1,
+                            stableGeneration, unstableGeneration );
                     break;
                 case BUBBLE:
                     replaceKeyByBubbleRightmostFromSubtree( cursor, structurePropagation, pos - 1,
@@ -923,7 +820,8 @@ class InternalTreeLogic<KEY,VALUE>
                 case REPLACE:
                     createSuccessorIfNeeded( cursor, structurePropagation, UPDATE_MID_CHILD,
                             stableGeneration, unstableGeneration );
-                    bTreeNode.setKeyAt( cursor, structurePropagation.rightKey, pos );
+                    replaceKeyInInternal( cursor, structurePropagation, structurePropagation.rightKey, pos,
+                            stableGeneration, unstableGeneration );
                     break;
                 case BUBBLE:
                     replaceKeyByBubbleRightmostFromSubtree( cursor, structurePropagation, pos,
@@ -934,9 +832,18 @@ class InternalTreeLogic<KEY,VALUE>
                             structurePropagation.keyReplaceStrategy );
                 }
             }
+
+            if ( hasRightKeyInsertFromBelow )
+            {
+                // Replacing a key caused a split on the level below
+                structurePropagation.hasRightKeyInsert = false;
+                insertInInternal( cursor, structurePropagation, TreeNode.keyCount( cursor ),
+                        structurePropagation.rightKey, structurePropagation.rightChild,
+                        stableGeneration, unstableGeneration );
+            }
         }
 
-        if ( currentLevel <= 0 )
+        if ( currentLevel <= 0 && !structurePropagation.hasRightKeyInsert )
         {
             tryShrinkTree( cursor, structurePropagation, stableGeneration, unstableGeneration );
         }
@@ -998,7 +905,8 @@ class InternalTreeLogic<KEY,VALUE>
             // It's in structurePropagation.leftKey and should be inserted in subtreePosition.
             createSuccessorIfNeeded( cursor, structurePropagation, UPDATE_MID_CHILD,
                     stableGeneration, unstableGeneration );
-            bTreeNode.setKeyAt( cursor, structurePropagation.bubbleKey, subtreePosition );
+            replaceKeyInInternal( cursor, structurePropagation, structurePropagation.bubbleKey, subtreePosition,
+                    stableGeneration, unstableGeneration );
         }
         else
         {
@@ -1008,10 +916,43 @@ class InternalTreeLogic<KEY,VALUE>
             createSuccessorIfNeeded( cursor, structurePropagation, UPDATE_MID_CHILD,
                     stableGeneration, unstableGeneration);
             int keyCount = TreeNode.keyCount( cursor );
-            simplyRemoveFromInternal( cursor, keyCount, subtreePosition, subtreePosition );
+            simplyRemoveFromInternal( cursor, keyCount, subtreePosition, true );
         }
     }
 
+    /**
+     * Replaces key at {@code keyPos} in internal node, where {@code cursor} is, with {@code key}. Keys of layouts
+     * which aren't fixed size may not fit in place of the old key and if so the old key is removed together
+     * with its right child and then inserted again with the new key, splitting the internal node. That split is
+     * reported through {@code structurePropagation} just like any other split.
+     * <p>
+     * Leaves cursor at same page as when called. No guarantees on offset.
+     *
+     * @param cursor {@link PageCursor} pinned to page containing internal node, of unstable generation.
+     * @param structurePropagation {@link StructurePropagation} used to report structure changes between tree levels.
+     * @param key key to replace old key with.
+     * @param keyPos position of key to replace.
+     * @throws IOException on cursor failure
+     */
+    private void replaceKeyInInternal( PageCursor cursor, StructurePropagation<KEY> structurePropagation, KEY key,
+            int keyPos, long stableGeneration, long unstableGeneration ) throws IOException
+    {
+        if ( bTreeNode.setKeyAtInternal( cursor, key, keyPos ) )
+        {
+            return;
+        }
+
+        int keyCount = TreeNode.keyCount( cursor );
+        long rightChild = bTreeNode.childAt( cursor, keyPos + 1, stableGeneration, unstableGeneration );
+        PointerChecking.checkPointer( rightChild, false );
+        rightChild = GenerationSafePointerPair.pointer( rightChild );
+        keyCount = simplyRemoveFromInternal( cursor, keyCount, keyPos, false );
+        // Key may be one of the keys in structurePropagation, which split will overwrite, so copy it to a place holder
+        layout.copyKey( key, newKeyPlaceHolder );
+        splitInternal( cursor, structurePropagation, newKeyPlaceHolder, rightChild, keyCount,
+                stableGeneration, unstableGeneration );
+    }
+
     private boolean bubbleRightmostKeyRecursive( PageCursor cursor, StructurePropagation<KEY> structurePropagation,
             long previousNode, long stableGeneration, long unstableGeneration ) throws IOException
     {
@@ -1057,7 +998,7 @@ class InternalTreeLogic<KEY,VALUE>
             createSuccessorIfNeeded( cursor, structurePropagation, UPDATE_MID_CHILD,
                     stableGeneration, unstableGeneration );
             bTreeNode.keyAt( cursor, structurePropagation.bubbleKey, keyCount - 1 );
-            simplyRemoveFromInternal( cursor, keyCount, keyCount - 1, keyCount );
+            simplyRemoveFromInternal( cursor, keyCount, keyCount - 1, false );
 
             return true;
         }
@@ -1067,11 +1008,17 @@ class InternalTreeLogic<KEY,VALUE>
         }
     }
 
-    private int simplyRemoveFromInternal( PageCursor cursor, int keyCount, int keyPos, int childPos )
+    private int simplyRemoveFromInternal( PageCursor cursor, int keyCount, int keyPos, boolean leftChild )
     {
         // Remove key and child
-        bTreeNode.removeKeyAt( cursor, keyPos, keyCount );
-        bTreeNode.removeChildAt( cursor, childPos, keyCount );
+        if ( leftChild )
+        {
+            bTreeNode.removeKeyAndLeftChildAt( cursor, keyPos, keyCount );
+        }
+        else
+        {
+            bTreeNode.removeKeyAndRightChildAt( cursor, keyPos, keyCount );
+        }
 
         // Decrease key count
         int newKeyCount = keyCount - 1;
@@ -1142,7 +1089,7 @@ class InternalTreeLogic<KEY,VALUE>
                 stableGeneration, unstableGeneration );
         keyCount = simplyRemoveFromLeaf( cursor, into, keyCount, pos );
 
-        if ( keyCount < (bTreeNode.leafMaxKeyCount() + 1) / 2 )
+        if ( bTreeNode.leafUnderflow( cursor, keyCount ) )
         {
             // Underflow
             underflowInLeaf( cursor, structurePropagation, keyCount, stableGeneration, unstableGeneration );
@@ -1151,6 +1098,56 @@ class InternalTreeLogic<KEY,VALUE>
         return true;
     }
 
+    /**
+     * Remove given {@code key} and associated value from the leaf which {@code cursor} is at, like
+     * {@link #remove(PageCursor, StructurePropagation, Object, Object, long, long)} does, but only if that can be
+     * done without changing the structure of the tree. That is the case if the leaf already is of
+     * {@code unstableGeneration} and either won't underflow or has no siblings to merge or rebalance with.
+     * <p>
+     * Same requirements regarding cursor placement and concurrency as for
+     * {@link #insertInLeafOnly(PageCursor, Object, Object, ValueMerger, long, long)}.
+     *
+     * @param cursor {@link PageCursor} pinned to the leaf where {@code key} belongs.
+     * @param key key to be removed
+     * @param into {@code VALUE} instance to write removed value to
+     * @param stableGeneration stable generation, i.e. generations <= this generation are considered stable.
+     * @param unstableGeneration unstable generation, i.e. generation which is under development right now.
+     * @return {@link LeafChange#CHANGED} if {@code key} was removed, {@link LeafChange#UNCHANGED} if it didn't exist
+     * or {@link LeafChange#STRUCTURE_CHANGE_NEEDED} if nothing was done and the remove needs to be made using
+     * {@link #remove(PageCursor, StructurePropagation, Object, Object, long, long)} instead.
+     */
+    LeafChange removeFromLeafOnly( PageCursor cursor, KEY key, VALUE into,
+            long stableGeneration, long unstableGeneration )
+    {
+        if ( TreeNode.generation( cursor ) != unstableGeneration )
+        {
+            return LeafChange.STRUCTURE_CHANGE_NEEDED;
+        }
+
+        int keyCount = TreeNode.keyCount( cursor );
+        int search = search( cursor, key, readKey, keyCount );
+        if ( !isHit( search ) )
+        {
+            return LeafChange.UNCHANGED;
+        }
+
+        int pos = positionOf( search );
+        if ( bTreeNode.leafUnderflowAfterRemoveAt( cursor, keyCount, pos ) )
+        {
+            long leftSibling = TreeNode.leftSibling( cursor, stableGeneration, unstableGeneration );
+            PointerChecking.checkPointer( leftSibling, true );
+            long rightSibling = TreeNode.rightSibling( cursor, stableGeneration, unstableGeneration );
+            PointerChecking.checkPointer( rightSibling, true );
+            if ( TreeNode.isNode( leftSibling ) || TreeNode.isNode( rightSibling ) )
+            {
+                // Would underflow and have to merge or rebalance with a sibling
+                return LeafChange.STRUCTURE_CHANGE_NEEDED;
+            }
+        }
+        simplyRemoveFromLeaf( cursor, into, keyCount, pos );
+        return LeafChange.CHANGED;
+    }
+
     private void underflowInLeaf( PageCursor cursor, StructurePropagation<KEY> structurePropagation, int keyCount,
             long stableGeneration, long unstableGeneration ) throws IOException
     {
@@ -1167,13 +1164,13 @@ class InternalTreeLogic<KEY,VALUE>
                 leftSiblingCursor.next();
                 int leftSiblingKeyCount = TreeNode.keyCount( leftSiblingCursor );
 
-                if ( keyCount + leftSiblingKeyCount >= bTreeNode.leafMaxKeyCount() )
+                if ( bTreeNode.canRebalanceLeaves( leftSiblingCursor, leftSiblingKeyCount, cursor, keyCount ) )
                 {
                     createSuccessorIfNeeded( leftSiblingCursor, structurePropagation,
                             StructurePropagation.UPDATE_LEFT_CHILD, stableGeneration, unstableGeneration );
                     rebalanceLeaf( cursor, leftSiblingCursor, structurePropagation, keyCount, leftSiblingKeyCount );
                 }
-                else
+                else if ( bTreeNode.canMergeLeaves( leftSiblingCursor, leftSiblingKeyCount, cursor, keyCount ) )
                 {
                     // No need to create new unstable version of left sibling.
                     // Parent pointer will be updated later.
@@ -1190,7 +1187,7 @@ class InternalTreeLogic<KEY,VALUE>
                 rightSiblingCursor.next();
                 int rightSiblingKeyCount = TreeNode.keyCount( rightSiblingCursor );
 
-                if ( keyCount + rightSiblingKeyCount <= bTreeNode.leafMaxKeyCount() )
+                if ( bTreeNode.canMergeLeaves( cursor, keyCount, rightSiblingCursor, rightSiblingKeyCount ) )
                 {
                     createSuccessorIfNeeded( rightSiblingCursor, structurePropagation, UPDATE_RIGHT_CHILD,
                             stableGeneration, unstableGeneration );
@@ -1234,9 +1231,11 @@ class InternalTreeLogic<KEY,VALUE>
         // right key was separator key
         structurePropagation.hasMidChildUpdate = true;
         structurePropagation.midChild = rightSiblingCursor.getCurrentPageId();
+        // first key which was in right child before merge is covered by the level of separator key, keys from mid
+        // child are not
         structurePropagation.hasRightKeyReplace = true;
         structurePropagation.keyReplaceStrategy = BUBBLE;
-        bTreeNode.keyAt( rightSiblingCursor, structurePropagation.rightKey, rightSiblingKeyCount - 1 );
+        bTreeNode.keyAt( rightSiblingCursor, structurePropagation.rightKey, keyCount );
     }
 
     private void mergeFromLeftSiblingLeaf( PageCursor cursor, PageCursor leftSiblingCursor,
@@ -1259,13 +1258,8 @@ class InternalTreeLogic<KEY,VALUE>
     private void merge( PageCursor leftSiblingCursor, int leftSiblingKeyCount, PageCursor rightSiblingCursor,
             int rightSiblingKeyCount, long stableGeneration, long unstableGeneration ) throws IOException
     {
-        // Push keys in right sibling to the right
-        bTreeNode.insertKeySlotsAt( rightSiblingCursor, 0, leftSiblingKeyCount, rightSiblingKeyCount );
-        bTreeNode.insertValueSlotsAt( rightSiblingCursor, 0, leftSiblingKeyCount, rightSiblingKeyCount );
-
-        // Move keys and values from left sibling to right sibling
-        copyKeysAndValues( leftSiblingCursor, 0, rightSiblingCursor, 0, leftSiblingKeyCount );
-        TreeNode.setKeyCount( rightSiblingCursor, rightSiblingKeyCount + leftSiblingKeyCount );
+        // Move keys and values from left sibling to right sibling and update key count
+        bTreeNode.doMergeLeaves( leftSiblingCursor, leftSiblingKeyCount, rightSiblingCursor, rightSiblingKeyCount );
 
         // Update successor of left sibling to be right sibling
         TreeNode.setSuccessor( leftSiblingCursor, rightSiblingCursor.getCurrentPageId(),
@@ -1279,18 +1273,8 @@ class InternalTreeLogic<KEY,VALUE>
     private void rebalanceLeaf( PageCursor cursor, PageCursor leftSiblingCursor,
             StructurePropagation<KEY> structurePropagation, int keyCount, int leftSiblingKeyCount )
     {
-        int totalKeyCount = keyCount + leftSiblingKeyCount;
-        int keyCountInLeftSiblingAfterRebalance = totalKeyCount / 2;
-        int numberOfKeysToMove = leftSiblingKeyCount - keyCountInLeftSiblingAfterRebalance;
-
-        // Push keys in right sibling to the right
-        bTreeNode.insertKeySlotsAt( cursor, 0, numberOfKeysToMove, keyCount );
-        bTreeNode.insertValueSlotsAt( cursor, 0, numberOfKeysToMove, keyCount );
-
-        // Move keys and values from left sibling to right sibling
-        copyKeysAndValues( leftSiblingCursor, keyCountInLeftSiblingAfterRebalance, cursor, 0, numberOfKeysToMove );
-        TreeNode.setKeyCount( cursor, keyCount + numberOfKeysToMove );
-        TreeNode.setKeyCount( leftSiblingCursor, leftSiblingKeyCount - numberOfKeysToMove );
+        // Move keys and values from left sibling to right sibling and update key counts
+        bTreeNode.doRebalanceLeaves( leftSiblingCursor, leftSiblingKeyCount, cursor, keyCount );
 
         // Propagate change
         structurePropagation.hasLeftKeyReplace = true;
@@ -1311,9 +1295,8 @@ class InternalTreeLogic<KEY,VALUE>
     private int simplyRemoveFromLeaf( PageCursor cursor, VALUE into, int keyCount, int pos )
     {
         // Remove key/value
-        bTreeNode.removeKeyAt( cursor, pos, keyCount );
         bTreeNode.valueAt( cursor, into, pos );
-        bTreeNode.removeValueAt( cursor, pos, keyCount );
+        bTreeNode.removeKeyValueAt( cursor, pos, keyCount );
 
         // Decrease key count
         int newKeyCount = keyCount - 1;
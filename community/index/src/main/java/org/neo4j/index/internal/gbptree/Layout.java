@@ -60,7 +60,8 @@ public interface Layout<KEY, VALUE> extends Comparator<KEY>
     VALUE newValue();
 
     /**
-     * @return size, in bytes, of a key.
+     * @return size, in bytes, of a key. Layouts which aren't {@link #fixedSize() fixed size} return the size of
+     * the largest key they can write, or {@code -1} if there's no such bound.
      */
     int keySize();
 
@@ -93,6 +94,24 @@ public interface Layout<KEY, VALUE> extends Comparator<KEY>
      */
     void readKey( PageCursor cursor, KEY into );
 
+    /**
+     * Reads key contents at {@code cursor} at its current offset into {@code key}, where the key is known to be
+     * {@code keySize} bytes. Only called for layouts which aren't {@link #fixedSize() fixed size}.
+     * <p>
+     * Readers read tree nodes optimistically and may therefore see a {@code keySize} which makes no sense,
+     * while a writer is changing the tree node concurrently. The read will be retried in that case, but until then
+     * this method must not fail or read more than {@code keySize} bytes. {@link PageCursor#setCursorException(String)}
+     * can be called for a {@code keySize} which this layout can't have written.
+     *
+     * @param cursor {@link PageCursor} to read from, at current offset.
+     * @param into key instances to read into.
+     * @param keySize size, in bytes, of the key to read.
+     */
+    default void readKey( PageCursor cursor, KEY into, int keySize )
+    {
+        readKey( cursor, into );
+    }
+
     /**
      * Reads value contents at {@code cursor} at its current offset into {@code value}.
      *
@@ -101,6 +120,34 @@ public interface Layout<KEY, VALUE> extends Comparator<KEY>
      */
     void readValue( PageCursor cursor, VALUE into );
 
+    /**
+     * Keys written by a layout which isn't fixed size can have any size, as given by {@link #keySize(Object)},
+     * and are stored in tree nodes with their common prefix in each leaf stripped off. Values are always
+     * of the fixed size given by {@link #valueSize()}.
+     * <p>
+     * A key which compares between two other keys must start with the bytes which those two keys have in common,
+     * which is the case if keys compare like their written bytes, at least as far as their common prefix goes.
+     * Otherwise a tree node may not be possible to split into two which fit its keys.
+     *
+     * @return {@code true} if all keys are of the size given by {@link #keySize()}, otherwise {@code false}.
+     */
+    default boolean fixedSize()
+    {
+        return true;
+    }
+
+    /**
+     * Only called for layouts which aren't {@link #fixedSize() fixed size}.
+     *
+     * @param key key to get the size of.
+     * @return size, in bytes, of the given key, i.e. the number of bytes which {@link #writeKey(PageCursor, Object)}
+     * will write for it.
+     */
+    default int keySize( KEY key )
+    {
+        return keySize();
+    }
+
     /**
      * Used as a checksum for when loading an index after creation, to verify that the same layout is used,
      * as the one it was initially created with.
@@ -33,38 +33,25 @@ import static org.neo4j.index.internal.gbptree.GenerationSafePointerPair.read;
  * <p>
  * DESIGN
  * <p>
- * Using Separate design the internal nodes should look like
+ * All tree nodes start with the same header
  * <pre>
- * # = empty space
- *
- * [                                   HEADER   82B                           ]|[   KEYS   ]|[     CHILDREN      ]
- * [NODETYPE][TYPE][GENERATION][KEYCOUNT][RIGHTSIBLING][LEFTSIBLING][SUCCESSOR]|[[KEY]...##]|[[CHILD][CHILD]...##]
- *  0         1     2           6         10            34           58          82
- * </pre>
- * Calc offset for key i (starting from 0)
- * HEADER_LENGTH + i * SIZE_KEY
- * <p>
- * Calc offset for child i
- * HEADER_LENGTH + SIZE_KEY * MAX_KEY_COUNT_INTERNAL + i * SIZE_CHILD
- * <p>
- * Using Separate design the leaf nodes should look like
- *
- * <pre>
- * [                                   HEADER   82B                           ]|[    KEYS  ]|[   VALUES   ]
- * [NODETYPE][TYPE][GENERATION][KEYCOUNT][RIGHTSIBLING][LEFTSIBLING][SUCCESSOR]|[[KEY]...##]|[[VALUE]...##]
+ * [                                   HEADER   82B                           ]
+ * [NODETYPE][TYPE][GENERATION][KEYCOUNT][RIGHTSIBLING][LEFTSIBLING][SUCCESSOR]
  *  0         1     2           6         10            34           58          82
  * </pre>
- *
- * Calc offset for key i (starting from 0)
- * HEADER_LENGTH + i * SIZE_KEY
+ * How keys, values and children are laid out after the header depends on the format, which is decided by
+ * {@link Layout#fixedSize()}: {@link TreeNodeFixedSize} for layouts with fixed size keys and
+ * {@link TreeNodeDynamicSize} for layouts where keys vary in size.
  * <p>
- * Calc offset for value i
- * HEADER_LENGTH + SIZE_KEY * MAX_KEY_COUNT_LEAF + i * SIZE_VALUE
+ * {@link InternalTreeLogic} only ever changes tree nodes using the format independent operations in this class,
+ * like {@link #insertKeyValueAt(PageCursor, Object, Object, int, int)}, {@link #leafOverflow(PageCursor, int, Object)}
+ * and {@link #doSplitLeaf(PageCursor, int, PageCursor, int, Object, Object, Object)}. Whether or not a tree node
+ * overflows or underflows is decided by the format as well, by number of keys or by number of bytes.
  *
  * @param <KEY> type of key
  * @param <VALUE> type of value
  */
-class TreeNode<KEY,VALUE>
+abstract class TreeNode<KEY,VALUE>
 {
     // Shared between all node types: TreeNode and FreelistNode
     static final int BYTE_POS_NODE_TYPE = 0;
@@ -84,35 +71,22 @@ class TreeNode<KEY,VALUE>
     static final byte INTERNAL_FLAG = 0;
     static final long NO_NODE_FLAG = 0;
 
-    private final int pageSize;
-    private final int internalMaxKeyCount;
-    private final int leafMaxKeyCount;
-    private final Layout<KEY,VALUE> layout;
-
-    private final int keySize;
-    private final int valueSize;
+    final int pageSize;
+    final Layout<KEY,VALUE> layout;
 
     TreeNode( int pageSize, Layout<KEY,VALUE> layout )
     {
         this.pageSize = pageSize;
         this.layout = layout;
-        this.keySize = layout.keySize();
-        this.valueSize = layout.valueSize();
-        this.internalMaxKeyCount = Math.floorDiv( pageSize - (HEADER_LENGTH + SIZE_PAGE_REFERENCE),
-                keySize + SIZE_PAGE_REFERENCE);
-        this.leafMaxKeyCount = Math.floorDiv( pageSize - HEADER_LENGTH, keySize + valueSize );
+    }
 
-        if ( internalMaxKeyCount < 2 )
-        {
-            throw new MetadataMismatchException(
-                    "For layout %s a page size of %d would only fit %d internal keys, minimum is 2",
-                    layout, pageSize, internalMaxKeyCount );
-        }
-        if ( leafMaxKeyCount < 2 )
-        {
-            throw new MetadataMismatchException( "A page size of %d would only fit leaf keys, minimum is 2",
-                    pageSize, leafMaxKeyCount );
-        }
+    /**
+     * @return a {@link TreeNode} of the format which {@code layout} needs, see {@link Layout#fixedSize()}.
+     */
+    static <KEY,VALUE> TreeNode<KEY,VALUE> instantiate( int pageSize, Layout<KEY,VALUE> layout )
+    {
+        return layout.fixedSize() ? new TreeNodeFixedSize<>( pageSize, layout )
+                                  : new TreeNodeDynamicSize<>( pageSize, layout );
     }
 
     static byte nodeType( PageCursor cursor )
@@ -120,7 +94,7 @@ class TreeNode<KEY,VALUE>
         return cursor.getByte( BYTE_POS_NODE_TYPE );
     }
 
-    private static void initialize( PageCursor cursor, byte type, long stableGeneration, long unstableGeneration )
+    private void initialize( PageCursor cursor, byte type, long stableGeneration, long unstableGeneration )
     {
         cursor.putByte( BYTE_POS_NODE_TYPE, NODE_TYPE_TREE_NODE );
         cursor.putByte( BYTE_POS_TYPE, type );
@@ -129,18 +103,24 @@ class TreeNode<KEY,VALUE>
         setRightSibling( cursor, NO_NODE_FLAG, stableGeneration, unstableGeneration );
         setLeftSibling( cursor, NO_NODE_FLAG, stableGeneration, unstableGeneration );
         setSuccessor( cursor, NO_NODE_FLAG, stableGeneration, unstableGeneration );
+        initializeAdditionalHeader( cursor );
     }
 
-    static void initializeLeaf( PageCursor cursor, long stableGeneration, long unstableGeneration )
+    void initializeLeaf( PageCursor cursor, long stableGeneration, long unstableGeneration )
     {
         initialize( cursor, LEAF_FLAG, stableGeneration, unstableGeneration );
     }
 
-    static void initializeInternal( PageCursor cursor, long stableGeneration, long unstableGeneration )
+    void initializeInternal( PageCursor cursor, long stableGeneration, long unstableGeneration )
     {
         initialize( cursor, INTERNAL_FLAG, stableGeneration, unstableGeneration );
     }
 
+    /**
+     * Initializes format specific header fields, following the common header, in a newly initialized tree node.
+     */
+    abstract void initializeAdditionalHeader( PageCursor cursor );
+
     // HEADER METHODS
 
     static boolean isLeaf( PageCursor cursor )
@@ -230,63 +210,53 @@ class TreeNode<KEY,VALUE>
 
     // BODY METHODS
 
-    KEY keyAt( PageCursor cursor, KEY into, int pos )
-    {
-        cursor.setOffset( keyOffset( pos ) );
-        layout.readKey( cursor, into );
-        return into;
-    }
+    /**
+     * Reads key at {@code pos} in leaf or internal node, whichever {@code cursor} is at.
+     */
+    abstract KEY keyAt( PageCursor cursor, KEY into, int pos );
 
-    void insertKeyAt( PageCursor cursor, KEY key, int pos, int keyCount )
-    {
-        insertKeySlotsAt( cursor, pos, 1, keyCount );
-        cursor.setOffset( keyOffset( pos ) );
-        layout.writeKey( cursor, key );
-    }
+    abstract VALUE valueAt( PageCursor cursor, VALUE into, int pos );
 
-    void removeKeyAt( PageCursor cursor, int pos, int keyCount )
-    {
-        removeSlotAt( cursor, pos, keyCount, keyOffset( 0 ), keySize );
-    }
+    abstract void setValueAt( PageCursor cursor, VALUE value, int pos );
 
-    private static void removeSlotAt( PageCursor cursor, int pos, int itemCount, int baseOffset, int itemSize )
-    {
-        for ( int posToMoveLeft = pos + 1, offset = baseOffset + posToMoveLeft * itemSize;
-                posToMoveLeft < itemCount; posToMoveLeft++, offset += itemSize )
-        {
-            cursor.copyTo( offset, cursor, offset - itemSize, itemSize );
-        }
-    }
+    /**
+     * Inserts key and value at {@code pos} in leaf, moving higher keys and values one step to the right.
+     * Caller must have checked that they fit using {@link #leafOverflow(PageCursor, int, Object)} and is responsible
+     * for updating key count.
+     */
+    abstract void insertKeyValueAt( PageCursor cursor, KEY key, VALUE value, int pos, int keyCount );
 
-    void setKeyAt( PageCursor cursor, KEY key, int pos )
-    {
-        cursor.setOffset( keyOffset( pos ) );
-        layout.writeKey( cursor, key );
-    }
+    /**
+     * Removes key and value at {@code pos} in leaf. Caller is responsible for updating key count.
+     */
+    abstract void removeKeyValueAt( PageCursor cursor, int pos, int keyCount );
 
-    VALUE valueAt( PageCursor cursor, VALUE value, int pos )
-    {
-        cursor.setOffset( valueOffset( pos ) );
-        layout.readValue( cursor, value );
-        return value;
-    }
+    /**
+     * Inserts key at {@code pos} in internal node, together with its right child at {@code pos + 1}.
+     * Caller must have checked that they fit using {@link #internalOverflow(PageCursor, int, Object)} and is
+     * responsible for updating key count.
+     */
+    abstract void insertKeyAndRightChildAt( PageCursor cursor, KEY key, long child, int pos, int keyCount,
+            long stableGeneration, long unstableGeneration );
 
-    void insertValueAt( PageCursor cursor, VALUE value, int pos, int keyCount )
-    {
-        insertValueSlotsAt( cursor, pos, 1, keyCount );
-        setValueAt( cursor, value, pos );
-    }
+    /**
+     * Removes key at {@code keyPos} and child at {@code keyPos + 1} in internal node. Caller is responsible for
+     * updating key count.
+     */
+    abstract void removeKeyAndRightChildAt( PageCursor cursor, int keyPos, int keyCount );
 
-    void removeValueAt( PageCursor cursor, int pos, int keyCount )
-    {
-        removeSlotAt( cursor, pos, keyCount, valueOffset( 0 ), valueSize );
-    }
+    /**
+     * Removes key and child at {@code keyPos} in internal node. Caller is responsible for updating key count.
+     */
+    abstract void removeKeyAndLeftChildAt( PageCursor cursor, int keyPos, int keyCount );
 
-    void setValueAt( PageCursor cursor, VALUE value, int pos )
-    {
-        cursor.setOffset( valueOffset( pos ) );
-        layout.writeValue( cursor, value );
-    }
+    /**
+     * Overwrites key at {@code pos} in internal node.
+     *
+     * @return {@code true} if the key was written, or {@code false} if there wasn't room for it, in which case
+     * the tree node is left unchanged.
+     */
+    abstract boolean setKeyAtInternal( PageCursor cursor, KEY key, int pos );
 
     long childAt( PageCursor cursor, int pos, long stableGeneration, long unstableGeneration )
     {
@@ -294,18 +264,6 @@ class TreeNode<KEY,VALUE>
         return read( cursor, stableGeneration, unstableGeneration, pos );
     }
 
-    void insertChildAt( PageCursor cursor, long child, int pos, int keyCount,
-            long stableGeneration, long unstableGeneration )
-    {
-        insertChildSlotsAt( cursor, pos, 1, keyCount );
-        setChildAt( cursor, child, pos, stableGeneration, unstableGeneration );
-    }
-
-    void removeChildAt( PageCursor cursor, int pos, int keyCount )
-    {
-        removeSlotAt( cursor, pos, keyCount + 1, childOffset( 0 ), childSize() );
-    }
-
     void setChildAt( PageCursor cursor, long child, int pos, long stableGeneration, long unstableGeneration )
     {
         cursor.setOffset( childOffset( pos ) );
@@ -317,76 +275,134 @@ class TreeNode<KEY,VALUE>
         GenerationSafePointerPair.write( cursor, child, stableGeneration, unstableGeneration );
     }
 
+    abstract int childOffset( int pos );
+
+    // CAPACITY METHODS
+
     /**
-     * Moves items (key/value/child) one step to the right, which means rewriting all items of the particular type
-     * from pos - itemCount.
-     * itemCount is keyCount for key and value, but keyCount+1 for children.
+     * @return whether or not inserting {@code newKey} in leaf with {@code keyCount} keys would overflow it.
      */
-    private static void insertSlotsAt( PageCursor cursor, int pos, int numberOfSlots, int itemCount, int baseOffset,
-            int itemSize )
+    boolean leafOverflow( PageCursor cursor, int keyCount, KEY newKey )
     {
-        for ( int posToMoveRight = itemCount - 1, offset = baseOffset + posToMoveRight * itemSize;
-              posToMoveRight >= pos; posToMoveRight--, offset -= itemSize )
-        {
-            cursor.copyTo( offset, cursor, offset + itemSize * numberOfSlots, itemSize );
-        }
+        return leafOverflow( cursor, keyCount, newKey, 1 );
     }
 
-    void insertKeySlotsAt( PageCursor cursor, int pos, int numberOfSlots, int keyCount )
-    {
-        insertSlotsAt( cursor, pos, numberOfSlots, keyCount, keyOffset( 0 ), keySize );
-    }
+    /**
+     * @return whether or not inserting {@code newKey} in leaf with {@code keyCount} keys would fill it beyond
+     * {@code fillFactor} of its capacity, or not fit at all. A key always fits in an empty leaf.
+     */
+    abstract boolean leafOverflow( PageCursor cursor, int keyCount, KEY newKey, double fillFactor );
 
-    void insertValueSlotsAt( PageCursor cursor, int pos, int numberOfSlots, int keyCount )
+    /**
+     * @return whether or not inserting {@code newKey}, with its right child, in internal node with
+     * {@code keyCount} keys would overflow it.
+     */
+    boolean internalOverflow( PageCursor cursor, int keyCount, KEY newKey )
     {
-        insertSlotsAt( cursor, pos, numberOfSlots, keyCount, valueOffset( 0 ), valueSize );
+        return internalOverflow( cursor, keyCount, newKey, 1 );
     }
 
-    void insertChildSlotsAt( PageCursor cursor, int pos, int numberOfSlots, int keyCount )
-    {
-        insertSlotsAt( cursor, pos, numberOfSlots, keyCount + 1, childOffset( 0 ), childSize() );
-    }
+    /**
+     * @return whether or not inserting {@code newKey}, with its right child, in internal node with
+     * {@code keyCount} keys would fill it beyond {@code fillFactor} of its capacity, or not fit at all.
+     * An internal node filled according to this holds at least three children, if they fit.
+     */
+    abstract boolean internalOverflow( PageCursor cursor, int keyCount, KEY newKey, double fillFactor );
 
-    int internalMaxKeyCount()
-    {
-        return internalMaxKeyCount;
-    }
+    /**
+     * @return whether or not leaf with {@code keyCount} keys is less than half full.
+     */
+    abstract boolean leafUnderflow( PageCursor cursor, int keyCount );
 
-    int leafMaxKeyCount()
-    {
-        return leafMaxKeyCount;
-    }
+    /**
+     * @return whether or not leaf with {@code keyCount} keys would be less than half full after removing
+     * key and value at {@code pos}.
+     */
+    abstract boolean leafUnderflowAfterRemoveAt( PageCursor cursor, int keyCount, int pos );
 
-    // HELPERS
+    /**
+     * @return whether or not left and right sibling leaves, one of them underflowing, should be rebalanced
+     * rather than merged. Rebalancing moves at least one key from left to right. Leaves which can neither
+     * be rebalanced nor merged are left as they are.
+     */
+    abstract boolean canRebalanceLeaves( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor,
+            int rightKeyCount );
 
-    int keyOffset( int pos )
-    {
-        return HEADER_LENGTH + pos * keySize;
-    }
+    /**
+     * @return whether or not all keys and values in left and right sibling leaves fit in one leaf.
+     */
+    abstract boolean canMergeLeaves( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor,
+            int rightKeyCount );
 
-    int valueOffset( int pos )
-    {
-        return HEADER_LENGTH + leafMaxKeyCount * keySize + pos * valueSize;
-    }
+    // STRUCTURE METHODS
 
-    int childOffset( int pos )
-    {
-        return HEADER_LENGTH + internalMaxKeyCount * keySize + pos * SIZE_PAGE_REFERENCE;
-    }
+    /**
+     * Splits the full leaf at {@code leftCursor} while inserting {@code newKey} and {@code newValue} at
+     * {@code insertPos}, moving the higher keys and values to the newly initialized leaf at {@code rightCursor}.
+     * Key counts of both leaves are updated, sibling pointers are left for the caller to update.
+     *
+     * @param newSplitter key instance which gets the first key in the right leaf, i.e. the key which separates
+     * the two leaves in their parent.
+     */
+    abstract void doSplitLeaf( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int insertPos,
+            KEY newKey, VALUE newValue, KEY newSplitter );
 
-    static boolean isNode( long node )
-    {
-        return GenerationSafePointerPair.pointer( node ) != NO_NODE_FLAG;
-    }
+    /**
+     * Splits the full internal node at {@code leftCursor} while inserting {@code newKey} at {@code insertPos} and
+     * {@code newRightChild} at {@code insertPos + 1}, moving the higher keys and children to the newly initialized
+     * internal node at {@code rightCursor}. Key counts of both nodes are updated, sibling pointers are left for
+     * the caller to update.
+     *
+     * @param newSplitter key instance which gets the middle key, which is moved up to the parent rather than
+     * being kept in either of the two nodes.
+     */
+    abstract void doSplitInternal( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int insertPos,
+            KEY newKey, long newRightChild, long stableGeneration, long unstableGeneration, KEY newSplitter );
 
-    int keySize()
-    {
-        return keySize;
+    /**
+     * Moves all keys and values in the left leaf to the beginning of its right sibling and updates key count
+     * of the right sibling. The left leaf is left for the caller to release.
+     */
+    abstract void doMergeLeaves( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount );
+
+    /**
+     * Moves the highest keys and values in the left leaf to the beginning of its underflowing right sibling,
+     * so that the two become about equally full, and updates key count of both.
+     */
+    abstract void doRebalanceLeaves( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor,
+            int rightKeyCount );
+
+    // MISC
+
+    /**
+     * @return highest number of keys an internal node can possibly have, used for sanity checking key counts.
+     */
+    abstract int internalMaxKeyCount();
+
+    /**
+     * @return highest number of keys a leaf can possibly have, used for sanity checking key counts.
+     */
+    abstract int leafMaxKeyCount();
+
+    /**
+     * Formats which keep scratch state between calls can't be shared between threads.
+     *
+     * @return a {@link TreeNode} of this format for use by a single thread, which can be this instance if
+     * this format keeps no such state.
+     */
+    abstract TreeNode<KEY,VALUE> forSingleThread();
+
+    /**
+     * Throws {@link IllegalArgumentException} if {@code key} and {@code value} can't be stored in this format.
+     * Called before inserting them, so that no change is made to the tree in that case.
+     */
+    void validateKeyValueSize( KEY key, VALUE value )
+    {   // Fixed size keys and values always fit
     }
 
-    int valueSize()
+    static boolean isNode( long node )
     {
-        return valueSize;
+        return GenerationSafePointerPair.pointer( node ) != NO_NODE_FLAG;
     }
 
     static int childSize()
@@ -404,11 +420,4 @@ class TreeNode<KEY,VALUE>
     {
         PageCursorUtil.goTo( cursor, messageOnError, GenerationSafePointerPair.pointer( nodeId ) );
     }
-
-    @Override
-    public String toString()
-    {
-        return "TreeNode[pageSize:" + pageSize + ", internalMax:" + internalMaxKeyCount +
-                ", leafMax:" + leafMaxKeyCount + ", keySize:" + keySize + ", valueSize:" + valueSize + "]";
-    }
 }
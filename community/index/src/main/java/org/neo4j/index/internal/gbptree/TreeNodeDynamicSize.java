@@ -0,0 +1,1039 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import java.util.Arrays;
+
+import org.neo4j.io.pagecache.PageCursor;
+
+import static java.lang.Math.abs;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.String.format;
+
+/**
+ * {@link TreeNode} format for layouts where keys vary in size, see {@link Layout#fixedSize()}. Values are
+ * of fixed size also in this format. Keys are stored in a heap which grows from the end of the page towards
+ * an array of offsets to them, which follows the header. Keys in a leaf are stored with the byte prefix which all
+ * keys in that leaf have in common stripped off, the prefix itself is stored once at the very end of the page.
+ * A tree node overflows and underflows by number of bytes rather than number of keys.
+ * <p>
+ * Internal nodes look like
+ * <pre>
+ * # = empty space
+ *
+ * [HEADER 82B][ALLOCOFFSET][DEADSPACE][PREFIXLENGTH]|[CHILD][OFFSET][CHILD][OFFSET][CHILD]...####...[KEY]..[KEY]
+ *  0           82           84         86            88
+ * </pre>
+ * where child i is at HEADER_LENGTH_DYNAMIC + i * (SIZE_CHILD + SIZE_OFFSET), directly followed by the offset of key i.
+ * Each key is stored as [KEYLENGTH 2B][KEY].
+ * <p>
+ * Leaves look like
+ * <pre>
+ * [HEADER 82B][ALLOCOFFSET][DEADSPACE][PREFIXLENGTH]|[OFFSET][OFFSET]...######...[SUFFIX][VALUE]..[SUFFIX][VALUE]|[PREFIX]
+ *  0           82           84         86            88
+ * </pre>
+ * where offset i is at HEADER_LENGTH_DYNAMIC + i * SIZE_OFFSET. Each key is stored as [SUFFIXLENGTH 2B][SUFFIX], where
+ * the suffix is what remains of the key after stripping off the prefix, directly followed by its value.
+ * <p>
+ * ALLOCOFFSET is where the heap currently starts and DEADSPACE is the number of bytes in the heap which belongs to
+ * removed or replaced keys. Dead space is reclaimed by compacting the heap when a new key doesn't otherwise fit.
+ * The prefix of a leaf only ever shrinks when inserting a key which doesn't share all of it, which rewrites the leaf.
+ * Each rewrite, like splits and merges, computes the longest prefix which the keys in the leaf have in common.
+ * <p>
+ * Offsets are unsigned shorts, which limits the page size to {@link #MAX_PAGE_SIZE}. Keys can be at most
+ * {@link #keySizeCap()} bytes, which makes sure that at least four keys fit in each tree node and that splitting
+ * a tree node in two always results in two tree nodes which fit the keys.
+ *
+ * @param <KEY> type of key
+ * @param <VALUE> type of value
+ */
+class TreeNodeDynamicSize<KEY,VALUE> extends TreeNode<KEY,VALUE>
+{
+    static final int MAX_PAGE_SIZE = 1 << 15;
+
+    static final int SIZE_OFFSET = Short.BYTES;
+    static final int SIZE_KEY_LENGTH = Short.BYTES;
+    static final int BYTE_POS_ALLOC_OFFSET = HEADER_LENGTH;
+    static final int BYTE_POS_DEAD_SPACE = BYTE_POS_ALLOC_OFFSET + SIZE_OFFSET;
+    static final int BYTE_POS_PREFIX_LENGTH = BYTE_POS_DEAD_SPACE + Short.BYTES;
+    static final int HEADER_LENGTH_DYNAMIC = BYTE_POS_PREFIX_LENGTH + SIZE_KEY_LENGTH;
+
+    private static final int SIZE_INTERNAL_ENTRY = SIZE_PAGE_REFERENCE + SIZE_OFFSET;
+    private static final byte[] NO_CHILD = new byte[SIZE_PAGE_REFERENCE];
+
+    private final int valueSize;
+    private final int capacity;
+    private final int keySizeCap;
+    private final int internalMaxKeyCount;
+    private final int leafMaxKeyCount;
+
+    // Scratch for reading prefixed keys
+    private byte[] keyBuffer;
+    private PageCursor keyBufferCursor;
+
+    // Scratch for serializing keys and values about to be written
+    private byte[] newKeyBuffer;
+    private PageCursor newKeyCursor;
+    private byte[] newValueBuffer;
+    private PageCursor newValueCursor;
+
+    // Scratch for keys, values and children gathered from tree nodes which are about to be rewritten
+    private byte[] gatherBytes = new byte[0];
+    private int gatherBytesSize;
+    private int[] gatherKeyOffset = new int[0];
+    private int[] gatherKeyLength = new int[0];
+    private int[] gatherLcpFromStart = new int[0];
+    private int[] gatherLcpToEnd = new int[0];
+    private byte[] gatherValues = new byte[0];
+    private byte[] gatherChildren = new byte[0];
+    private int gatherCount;
+    private int gatherChildCount;
+
+    TreeNodeDynamicSize( int pageSize, Layout<KEY,VALUE> layout )
+    {
+        super( pageSize, layout );
+        this.valueSize = layout.valueSize();
+        this.capacity = pageSize - HEADER_LENGTH_DYNAMIC;
+        int leafEntryOverhead = SIZE_OFFSET + SIZE_KEY_LENGTH + valueSize;
+        int internalEntryOverhead = SIZE_INTERNAL_ENTRY + SIZE_KEY_LENGTH;
+        this.keySizeCap = (capacity - SIZE_PAGE_REFERENCE) / 4 - max( leafEntryOverhead, internalEntryOverhead );
+        this.internalMaxKeyCount = (capacity - SIZE_PAGE_REFERENCE) / internalEntryOverhead;
+        this.leafMaxKeyCount = capacity / leafEntryOverhead;
+
+        if ( pageSize > MAX_PAGE_SIZE )
+        {
+            throw new MetadataMismatchException( "For layout %s a page size of %d is larger than maximum page size %d",
+                    layout, pageSize, MAX_PAGE_SIZE );
+        }
+        if ( keySizeCap < 1 )
+        {
+            throw new MetadataMismatchException( "For layout %s a page size of %d would only fit keys of %d bytes",
+                    layout, pageSize, keySizeCap );
+        }
+    }
+
+    @Override
+    void initializeAdditionalHeader( PageCursor cursor )
+    {
+        setAllocOffset( cursor, pageSize );
+        setDeadSpace( cursor, 0 );
+        setPrefixLength( cursor, 0 );
+        // Bytes of a recycled page may be anything, but a child is written as a pair which must start out empty
+        clearChildAt( cursor, 0 );
+    }
+
+    // BODY METHODS
+
+    @Override
+    KEY keyAt( PageCursor cursor, KEY into, int pos )
+    {
+        if ( isInternal( cursor ) )
+        {
+            int keyOffset = getUnsignedShort( cursor, keyOffsetSlot( pos ) );
+            int keyLength = getUnsignedShort( cursor, keyOffset );
+            if ( keyLength > keySizeCap )
+            {
+                cursor.setCursorException( format( "Read unreasonable key length %d at offset %d",
+                        keyLength, keyOffset ) );
+                return into;
+            }
+            cursor.setOffset( keyOffset + SIZE_KEY_LENGTH );
+            layout.readKey( cursor, into, keyLength );
+            return into;
+        }
+
+        int prefixLength = prefixLength( cursor );
+        int recordOffset = getUnsignedShort( cursor, leafOffsetSlot( pos ) );
+        int suffixLength = getUnsignedShort( cursor, recordOffset );
+        int keyLength = prefixLength + suffixLength;
+        if ( keyLength > keySizeCap )
+        {
+            cursor.setCursorException( format( "Read unreasonable key length %d, prefix %d, at offset %d",
+                    keyLength, prefixLength, recordOffset ) );
+            return into;
+        }
+        if ( prefixLength == 0 )
+        {
+            cursor.setOffset( recordOffset + SIZE_KEY_LENGTH );
+            layout.readKey( cursor, into, keyLength );
+            return into;
+        }
+        ensureKeyBuffer();
+        cursor.setOffset( pageSize - prefixLength );
+        cursor.getBytes( keyBuffer, 0, prefixLength );
+        cursor.setOffset( recordOffset + SIZE_KEY_LENGTH );
+        cursor.getBytes( keyBuffer, prefixLength, suffixLength );
+        keyBufferCursor.setOffset( 0 );
+        layout.readKey( keyBufferCursor, into, keyLength );
+        return into;
+    }
+
+    @Override
+    VALUE valueAt( PageCursor cursor, VALUE into, int pos )
+    {
+        cursor.setOffset( valueOffset( cursor, pos ) );
+        layout.readValue( cursor, into );
+        return into;
+    }
+
+    @Override
+    void setValueAt( PageCursor cursor, VALUE value, int pos )
+    {
+        cursor.setOffset( valueOffset( cursor, pos ) );
+        layout.writeValue( cursor, value );
+    }
+
+    @Override
+    void insertKeyValueAt( PageCursor cursor, KEY key, VALUE value, int pos, int keyCount )
+    {
+        int keyLength = serializeNewKey( key );
+        int prefixLength = prefixLength( cursor );
+        int recordSize = SIZE_KEY_LENGTH + keyLength - prefixLength + valueSize;
+        if ( keyCount == 0 || commonPrefixWithLeaf( cursor, keyLength ) < prefixLength ||
+             leafContiguousSpace( cursor, keyCount ) < SIZE_OFFSET + recordSize )
+        {
+            // The prefix needs to shrink, or the heap needs compacting. Either way the leaf is rewritten
+            serializeNewValue( value );
+            resetGather();
+            gatherLeafEntries( cursor, 0, pos );
+            gatherNewLeafEntry( keyLength );
+            gatherLeafEntries( cursor, pos, keyCount );
+            writeLeaf( cursor, 0, gatherCount );
+            return;
+        }
+
+        for ( int i = keyCount - 1; i >= pos; i-- )
+        {
+            cursor.putShort( leafOffsetSlot( i + 1 ), cursor.getShort( leafOffsetSlot( i ) ) );
+        }
+        int recordOffset = allocOffset( cursor ) - recordSize;
+        putUnsignedShort( cursor, recordOffset, keyLength - prefixLength );
+        cursor.setOffset( recordOffset + SIZE_KEY_LENGTH );
+        cursor.putBytes( newKeyBuffer, prefixLength, keyLength - prefixLength );
+        layout.writeValue( cursor, value );
+        putUnsignedShort( cursor, leafOffsetSlot( pos ), recordOffset );
+        setAllocOffset( cursor, recordOffset );
+    }
+
+    @Override
+    void removeKeyValueAt( PageCursor cursor, int pos, int keyCount )
+    {
+        if ( keyCount == 1 )
+        {
+            initializeAdditionalHeader( cursor );
+            return;
+        }
+
+        int recordOffset = getUnsignedShort( cursor, leafOffsetSlot( pos ) );
+        int recordSize = SIZE_KEY_LENGTH + getUnsignedShort( cursor, recordOffset ) + valueSize;
+        freeRecord( cursor, recordOffset, recordSize );
+        for ( int i = pos + 1; i < keyCount; i++ )
+        {
+            cursor.putShort( leafOffsetSlot( i - 1 ), cursor.getShort( leafOffsetSlot( i ) ) );
+        }
+    }
+
+    @Override
+    void insertKeyAndRightChildAt( PageCursor cursor, KEY key, long child, int pos, int keyCount,
+            long stableGeneration, long unstableGeneration )
+    {
+        int keyLength = serializeNewKey( key );
+        int recordSize = SIZE_KEY_LENGTH + keyLength;
+        if ( internalContiguousSpace( cursor, keyCount ) < SIZE_INTERNAL_ENTRY + recordSize )
+        {
+            compactInternal( cursor, keyCount, -1 );
+        }
+
+        for ( int i = keyCount - 1; i >= pos; i-- )
+        {
+            cursor.copyTo( keyOffsetSlot( i ), cursor, keyOffsetSlot( i + 1 ), SIZE_INTERNAL_ENTRY );
+        }
+        int recordOffset = allocOffset( cursor ) - recordSize;
+        writeNewInternalKey( cursor, recordOffset, keyLength );
+        putUnsignedShort( cursor, keyOffsetSlot( pos ), recordOffset );
+        setAllocOffset( cursor, recordOffset );
+        if ( pos == keyCount )
+        {
+            // This child slot used to be free space, where key records may have been
+            clearChildAt( cursor, pos + 1 );
+        }
+        setChildAt( cursor, child, pos + 1, stableGeneration, unstableGeneration );
+    }
+
+    private void clearChildAt( PageCursor cursor, int pos )
+    {
+        cursor.setOffset( childOffset( pos ) );
+        cursor.putBytes( NO_CHILD );
+    }
+
+    @Override
+    void removeKeyAndRightChildAt( PageCursor cursor, int keyPos, int keyCount )
+    {
+        int recordOffset = getUnsignedShort( cursor, keyOffsetSlot( keyPos ) );
+        freeRecord( cursor, recordOffset, SIZE_KEY_LENGTH + getUnsignedShort( cursor, recordOffset ) );
+        for ( int i = keyPos + 1; i < keyCount; i++ )
+        {
+            cursor.copyTo( keyOffsetSlot( i ), cursor, keyOffsetSlot( i - 1 ), SIZE_INTERNAL_ENTRY );
+        }
+    }
+
+    @Override
+    void removeKeyAndLeftChildAt( PageCursor cursor, int keyPos, int keyCount )
+    {
+        // The right child takes the place of the left child, after which this is the same as removing the key
+        // together with its right child
+        cursor.copyTo( childOffset( keyPos + 1 ), cursor, childOffset( keyPos ), SIZE_PAGE_REFERENCE );
+        removeKeyAndRightChildAt( cursor, keyPos, keyCount );
+    }
+
+    @Override
+    boolean setKeyAtInternal( PageCursor cursor, KEY key, int pos )
+    {
+        int keyLength = serializeNewKey( key );
+        int oldRecordOffset = getUnsignedShort( cursor, keyOffsetSlot( pos ) );
+        int oldKeyLength = getUnsignedShort( cursor, oldRecordOffset );
+        if ( keyLength == oldKeyLength )
+        {
+            writeNewInternalKey( cursor, oldRecordOffset, keyLength );
+            return true;
+        }
+
+        int keyCount = keyCount( cursor );
+        int recordSize = SIZE_KEY_LENGTH + keyLength;
+        int oldRecordSize = SIZE_KEY_LENGTH + oldKeyLength;
+        if ( internalUsedSpace( cursor, keyCount ) - oldRecordSize + recordSize > capacity )
+        {
+            return false;
+        }
+        if ( internalContiguousSpace( cursor, keyCount ) < recordSize )
+        {
+            compactInternal( cursor, keyCount, pos );
+        }
+        else
+        {
+            freeRecord( cursor, oldRecordOffset, oldRecordSize );
+        }
+        int recordOffset = allocOffset( cursor ) - recordSize;
+        writeNewInternalKey( cursor, recordOffset, keyLength );
+        putUnsignedShort( cursor, keyOffsetSlot( pos ), recordOffset );
+        setAllocOffset( cursor, recordOffset );
+        return true;
+    }
+
+    @Override
+    int childOffset( int pos )
+    {
+        return HEADER_LENGTH_DYNAMIC + pos * SIZE_INTERNAL_ENTRY;
+    }
+
+    // CAPACITY METHODS
+
+    @Override
+    boolean leafOverflow( PageCursor cursor, int keyCount, KEY newKey, double fillFactor )
+    {
+        if ( keyCount == 0 )
+        {
+            return false;
+        }
+        int keyLength = serializeNewKey( newKey );
+        int prefixLength = prefixLength( cursor );
+        int commonPrefix = commonPrefixWithLeaf( cursor, keyLength );
+        // A shorter prefix makes each existing key longer, but is itself stored in fewer bytes
+        int prefixShrink = prefixLength - commonPrefix;
+        int usedAfterInsert = leafUsedSpace( cursor, keyCount ) + prefixShrink * (keyCount - 1) +
+                SIZE_OFFSET + SIZE_KEY_LENGTH + keyLength - commonPrefix + valueSize;
+        return usedAfterInsert > fillFactor * capacity;
+    }
+
+    @Override
+    boolean internalOverflow( PageCursor cursor, int keyCount, KEY newKey, double fillFactor )
+    {
+        int keyLength = serializeNewKey( newKey );
+        int usedAfterInsert = internalUsedSpace( cursor, keyCount ) + SIZE_INTERNAL_ENTRY + SIZE_KEY_LENGTH + keyLength;
+        if ( usedAfterInsert > capacity )
+        {
+            return true;
+        }
+        return keyCount >= 2 && usedAfterInsert > fillFactor * capacity;
+    }
+
+    @Override
+    boolean leafUnderflow( PageCursor cursor, int keyCount )
+    {
+        return leafUsedSpace( cursor, keyCount ) < capacity / 2;
+    }
+
+    @Override
+    boolean leafUnderflowAfterRemoveAt( PageCursor cursor, int keyCount, int pos )
+    {
+        int recordOffset = getUnsignedShort( cursor, leafOffsetSlot( pos ) );
+        int recordSize = SIZE_KEY_LENGTH + getUnsignedShort( cursor, recordOffset ) + valueSize;
+        return leafUsedSpace( cursor, keyCount ) - SIZE_OFFSET - recordSize < capacity / 2;
+    }
+
+    @Override
+    boolean canRebalanceLeaves( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor,
+            int rightKeyCount )
+    {
+        // Leaves are gathered by this call
+        return !canMergeLeaves( leftCursor, leftKeyCount, rightCursor, rightKeyCount ) &&
+                balancedLeafSplit( 1, leftKeyCount - 1 ) != -1;
+    }
+
+    @Override
+    boolean canMergeLeaves( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount )
+    {
+        resetGather();
+        gatherLeafEntries( leftCursor, 0, leftKeyCount );
+        gatherLeafEntries( rightCursor, 0, rightKeyCount );
+        computeCommonPrefixes();
+        return gatheredLeafSize() <= capacity;
+    }
+
+    // STRUCTURE METHODS
+
+    @Override
+    void doSplitLeaf( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int insertPos,
+            KEY newKey, VALUE newValue, KEY newSplitter )
+    {
+        int keyLength = serializeNewKey( newKey );
+        serializeNewValue( newValue );
+        resetGather();
+        gatherLeafEntries( leftCursor, 0, insertPos );
+        gatherNewLeafEntry( keyLength );
+        gatherLeafEntries( leftCursor, insertPos, leftKeyCount );
+        computeCommonPrefixes();
+
+        int middlePos = balancedLeafSplit( 1, gatherCount - 1 );
+        if ( middlePos == -1 )
+        {
+            throw new IllegalStateException( format( "Could not split leaf into two leaves which fit its %d keys. " +
+                    "This is likely caused by layout %s not following the requirements of a layout which isn't " +
+                    "fixed size", gatherCount, layout ) );
+        }
+        readGatheredKey( middlePos, newSplitter );
+
+        writeLeaf( rightCursor, middlePos, gatherCount );
+        TreeNode.setKeyCount( rightCursor, gatherCount - middlePos );
+        writeLeaf( leftCursor, 0, middlePos );
+        TreeNode.setKeyCount( leftCursor, middlePos );
+    }
+
+    @Override
+    void doSplitInternal( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int insertPos,
+            KEY newKey, long newRightChild, long stableGeneration, long unstableGeneration, KEY newSplitter )
+    {
+        int keyLength = serializeNewKey( newKey );
+        resetGather();
+        gatherInternalEntries( leftCursor, 0, insertPos, true );
+        gatherNewInternalEntry( keyLength );
+        gatherInternalEntries( leftCursor, insertPos, leftKeyCount, false );
+
+        // Key at middlePos is moved up to the parent, so that left keeps keys [0,middlePos) and
+        // right keeps keys (middlePos,keyCountAfterInsert)
+        int keyCountAfterInsert = gatherCount;
+        int middlePos = -1;
+        int bestImbalance = Integer.MAX_VALUE;
+        int totalKeyBytes = 0;
+        for ( int i = 0; i < keyCountAfterInsert; i++ )
+        {
+            totalKeyBytes += gatherKeyLength[i];
+        }
+        int leftKeyBytes = 0;
+        for ( int pos = 0; pos < keyCountAfterInsert; pos++ )
+        {
+            int leftSize = internalSize( pos, leftKeyBytes );
+            int rightSize = internalSize( keyCountAfterInsert - pos - 1, totalKeyBytes - leftKeyBytes - gatherKeyLength[pos] );
+            int imbalance = abs( leftSize - rightSize );
+            if ( pos > 0 && pos < keyCountAfterInsert - 1 && leftSize <= capacity && rightSize <= capacity &&
+                 imbalance < bestImbalance )
+            {
+                middlePos = pos;
+                bestImbalance = imbalance;
+            }
+            leftKeyBytes += gatherKeyLength[pos];
+        }
+        if ( middlePos == -1 )
+        {
+            throw new IllegalStateException( format( "Could not split internal node into two which fit its %d keys",
+                    keyCountAfterInsert ) );
+        }
+        readGatheredKey( middlePos, newSplitter );
+
+        writeInternal( rightCursor, middlePos + 1, keyCountAfterInsert );
+        TreeNode.setKeyCount( rightCursor, keyCountAfterInsert - middlePos - 1 );
+        writeInternal( leftCursor, 0, middlePos );
+        TreeNode.setKeyCount( leftCursor, middlePos );
+
+        int newChildPos = insertPos + 1;
+        if ( newChildPos <= middlePos )
+        {
+            setChildAt( leftCursor, newRightChild, newChildPos, stableGeneration, unstableGeneration );
+        }
+        else
+        {
+            setChildAt( rightCursor, newRightChild, newChildPos - middlePos - 1, stableGeneration, unstableGeneration );
+        }
+    }
+
+    @Override
+    void doMergeLeaves( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount )
+    {
+        resetGather();
+        gatherLeafEntries( leftCursor, 0, leftKeyCount );
+        gatherLeafEntries( rightCursor, 0, rightKeyCount );
+        writeLeaf( rightCursor, 0, gatherCount );
+        TreeNode.setKeyCount( rightCursor, gatherCount );
+    }
+
+    @Override
+    void doRebalanceLeaves( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount )
+    {
+        resetGather();
+        gatherLeafEntries( leftCursor, 0, leftKeyCount );
+        gatherLeafEntries( rightCursor, 0, rightKeyCount );
+        computeCommonPrefixes();
+
+        // Only ever move keys from left to right, at least one
+        int middlePos = balancedLeafSplit( 1, leftKeyCount - 1 );
+        if ( middlePos == -1 )
+        {
+            throw new IllegalStateException( format( "Could not rebalance leaves with %d and %d keys, " +
+                    "which is only expected after asking whether or not they can be rebalanced",
+                    leftKeyCount, rightKeyCount ) );
+        }
+        writeLeaf( rightCursor, middlePos, gatherCount );
+        TreeNode.setKeyCount( rightCursor, gatherCount - middlePos );
+        writeLeaf( leftCursor, 0, middlePos );
+        TreeNode.setKeyCount( leftCursor, middlePos );
+    }
+
+    // MISC
+
+    @Override
+    int internalMaxKeyCount()
+    {
+        return internalMaxKeyCount;
+    }
+
+    @Override
+    int leafMaxKeyCount()
+    {
+        return leafMaxKeyCount;
+    }
+
+    @Override
+    TreeNode<KEY,VALUE> forSingleThread()
+    {
+        return new TreeNodeDynamicSize<>( pageSize, layout );
+    }
+
+    @Override
+    void validateKeyValueSize( KEY key, VALUE value )
+    {
+        int keySize = layout.keySize( key );
+        if ( keySize > keySizeCap )
+        {
+            throw new IllegalArgumentException( format(
+                    "Key of %d bytes is larger than the maximum key size of %d bytes for page size %d, key:%s",
+                    keySize, keySizeCap, pageSize, key ) );
+        }
+    }
+
+    /**
+     * @return largest size, in bytes, of a key.
+     */
+    int keySizeCap()
+    {
+        return keySizeCap;
+    }
+
+    // HEADER HELPERS
+
+    private static int getUnsignedShort( PageCursor cursor, int offset )
+    {
+        return cursor.getShort( offset ) & 0xFFFF;
+    }
+
+    private static void putUnsignedShort( PageCursor cursor, int offset, int value )
+    {
+        cursor.putShort( offset, (short) value );
+    }
+
+    static int allocOffset( PageCursor cursor )
+    {
+        return getUnsignedShort( cursor, BYTE_POS_ALLOC_OFFSET );
+    }
+
+    private static void setAllocOffset( PageCursor cursor, int allocOffset )
+    {
+        putUnsignedShort( cursor, BYTE_POS_ALLOC_OFFSET, allocOffset );
+    }
+
+    static int deadSpace( PageCursor cursor )
+    {
+        return getUnsignedShort( cursor, BYTE_POS_DEAD_SPACE );
+    }
+
+    private static void setDeadSpace( PageCursor cursor, int deadSpace )
+    {
+        putUnsignedShort( cursor, BYTE_POS_DEAD_SPACE, deadSpace );
+    }
+
+    static int prefixLength( PageCursor cursor )
+    {
+        return getUnsignedShort( cursor, BYTE_POS_PREFIX_LENGTH );
+    }
+
+    private static void setPrefixLength( PageCursor cursor, int prefixLength )
+    {
+        putUnsignedShort( cursor, BYTE_POS_PREFIX_LENGTH, prefixLength );
+    }
+
+    // SPACE HELPERS
+
+    private static int leafOffsetSlot( int pos )
+    {
+        return HEADER_LENGTH_DYNAMIC + pos * SIZE_OFFSET;
+    }
+
+    private int keyOffsetSlot( int pos )
+    {
+        return childOffset( pos ) + SIZE_PAGE_REFERENCE;
+    }
+
+    private int valueOffset( PageCursor cursor, int pos )
+    {
+        int recordOffset = getUnsignedShort( cursor, leafOffsetSlot( pos ) );
+        return recordOffset + SIZE_KEY_LENGTH + getUnsignedShort( cursor, recordOffset );
+    }
+
+    private int leafUsedSpace( PageCursor cursor, int keyCount )
+    {
+        return keyCount * SIZE_OFFSET + pageSize - allocOffset( cursor ) - deadSpace( cursor );
+    }
+
+    private int leafContiguousSpace( PageCursor cursor, int keyCount )
+    {
+        return allocOffset( cursor ) - leafOffsetSlot( keyCount );
+    }
+
+    private int internalUsedSpace( PageCursor cursor, int keyCount )
+    {
+        return SIZE_PAGE_REFERENCE + keyCount * SIZE_INTERNAL_ENTRY + pageSize - allocOffset( cursor ) -
+                deadSpace( cursor );
+    }
+
+    private int internalContiguousSpace( PageCursor cursor, int keyCount )
+    {
+        return allocOffset( cursor ) - childOffset( keyCount ) - SIZE_PAGE_REFERENCE;
+    }
+
+    private int internalSize( int keyCount, int keyBytes )
+    {
+        return SIZE_PAGE_REFERENCE + keyCount * (SIZE_INTERNAL_ENTRY + SIZE_KEY_LENGTH) + keyBytes;
+    }
+
+    /**
+     * Frees a record in the heap, which becomes dead space unless it's the record at the start of the heap.
+     */
+    private static void freeRecord( PageCursor cursor, int recordOffset, int recordSize )
+    {
+        int allocOffset = allocOffset( cursor );
+        if ( recordOffset == allocOffset )
+        {
+            setAllocOffset( cursor, allocOffset + recordSize );
+        }
+        else
+        {
+            setDeadSpace( cursor, deadSpace( cursor ) + recordSize );
+        }
+    }
+
+    /**
+     * @return length of the prefix which the key serialized in {@link #newKeyBuffer} has in common with
+     * the prefix of the leaf at {@code cursor}.
+     */
+    private int commonPrefixWithLeaf( PageCursor cursor, int keyLength )
+    {
+        int prefixLength = min( prefixLength( cursor ), keyLength );
+        int prefixOffset = pageSize - prefixLength( cursor );
+        for ( int i = 0; i < prefixLength; i++ )
+        {
+            if ( cursor.getByte( prefixOffset + i ) != newKeyBuffer[i] )
+            {
+                return i;
+            }
+        }
+        return prefixLength;
+    }
+
+    // SERIALIZATION HELPERS
+
+    private void ensureKeyBuffer()
+    {
+        if ( keyBuffer == null )
+        {
+            keyBuffer = new byte[keySizeCap];
+            keyBufferCursor = ByteArrayPageCursor.wrap( keyBuffer );
+        }
+    }
+
+    private int serializeNewKey( KEY key )
+    {
+        if ( newKeyBuffer == null )
+        {
+            newKeyBuffer = new byte[keySizeCap];
+            newKeyCursor = ByteArrayPageCursor.wrap( newKeyBuffer );
+        }
+        newKeyCursor.setOffset( 0 );
+        layout.writeKey( newKeyCursor, key );
+        return newKeyCursor.getOffset();
+    }
+
+    private void serializeNewValue( VALUE value )
+    {
+        if ( newValueBuffer == null )
+        {
+            newValueBuffer = new byte[valueSize];
+            newValueCursor = ByteArrayPageCursor.wrap( newValueBuffer );
+        }
+        newValueCursor.setOffset( 0 );
+        layout.writeValue( newValueCursor, value );
+    }
+
+    private void writeNewInternalKey( PageCursor cursor, int recordOffset, int keyLength )
+    {
+        putUnsignedShort( cursor, recordOffset, keyLength );
+        cursor.setOffset( recordOffset + SIZE_KEY_LENGTH );
+        cursor.putBytes( newKeyBuffer, 0, keyLength );
+    }
+
+    // GATHER AND REWRITE HELPERS
+
+    private void resetGather()
+    {
+        gatherCount = 0;
+        gatherChildCount = 0;
+        gatherBytesSize = 0;
+    }
+
+    private void ensureGatherCapacity( int entries, int bytes )
+    {
+        if ( gatherKeyOffset.length < entries )
+        {
+            int length = max( entries, gatherKeyOffset.length * 2 );
+            gatherKeyOffset = Arrays.copyOf( gatherKeyOffset, length );
+            gatherKeyLength = Arrays.copyOf( gatherKeyLength, length );
+            gatherLcpFromStart = new int[length];
+            gatherLcpToEnd = new int[length];
+            gatherValues = Arrays.copyOf( gatherValues, length * valueSize );
+            gatherChildren = Arrays.copyOf( gatherChildren, (length + 1) * SIZE_PAGE_REFERENCE );
+        }
+        if ( gatherBytes.length < gatherBytesSize + bytes )
+        {
+            gatherBytes = Arrays.copyOf( gatherBytes, max( gatherBytesSize + bytes, gatherBytes.length * 2 ) );
+        }
+    }
+
+    private void gatherLeafEntries( PageCursor cursor, int fromPos, int toPos )
+    {
+        int prefixLength = prefixLength( cursor );
+        for ( int pos = fromPos; pos < toPos; pos++ )
+        {
+            int recordOffset = getUnsignedShort( cursor, leafOffsetSlot( pos ) );
+            int suffixLength = getUnsignedShort( cursor, recordOffset );
+            int keyLength = prefixLength + suffixLength;
+            ensureGatherCapacity( gatherCount + 1, keyLength );
+            cursor.setOffset( pageSize - prefixLength );
+            cursor.getBytes( gatherBytes, gatherBytesSize, prefixLength );
+            cursor.setOffset( recordOffset + SIZE_KEY_LENGTH );
+            cursor.getBytes( gatherBytes, gatherBytesSize + prefixLength, suffixLength );
+            cursor.getBytes( gatherValues, gatherCount * valueSize, valueSize );
+            addGatheredKey( keyLength );
+        }
+    }
+
+    private void gatherNewLeafEntry( int keyLength )
+    {
+        ensureGatherCapacity( gatherCount + 1, keyLength );
+        System.arraycopy( newKeyBuffer, 0, gatherBytes, gatherBytesSize, keyLength );
+        System.arraycopy( newValueBuffer, 0, gatherValues, gatherCount * valueSize, valueSize );
+        addGatheredKey( keyLength );
+    }
+
+    /**
+     * Gathers keys in range [fromPos,toPos) and their right children, also the leftmost child if
+     * {@code includeLeftmostChild}.
+     */
+    private void gatherInternalEntries( PageCursor cursor, int fromPos, int toPos, boolean includeLeftmostChild )
+    {
+        if ( includeLeftmostChild )
+        {
+            ensureGatherCapacity( gatherCount + 1, 0 );
+            gatherChild( cursor, 0 );
+        }
+        for ( int pos = fromPos; pos < toPos; pos++ )
+        {
+            int keyOffset = getUnsignedShort( cursor, keyOffsetSlot( pos ) );
+            int keyLength = getUnsignedShort( cursor, keyOffset );
+            ensureGatherCapacity( gatherCount + 1, keyLength );
+            cursor.setOffset( keyOffset + SIZE_KEY_LENGTH );
+            cursor.getBytes( gatherBytes, gatherBytesSize, keyLength );
+            addGatheredKey( keyLength );
+            gatherChild( cursor, pos + 1 );
+        }
+    }
+
+    /**
+     * Gathers the serialized new key and an empty placeholder for its right child, which is written afterwards.
+     */
+    private void gatherNewInternalEntry( int keyLength )
+    {
+        ensureGatherCapacity( gatherCount + 1, keyLength );
+        System.arraycopy( newKeyBuffer, 0, gatherBytes, gatherBytesSize, keyLength );
+        addGatheredKey( keyLength );
+        Arrays.fill( gatherChildren, gatherChildCount * SIZE_PAGE_REFERENCE,
+                (gatherChildCount + 1) * SIZE_PAGE_REFERENCE, (byte) 0 );
+        gatherChildCount++;
+    }
+
+    private void gatherChild( PageCursor cursor, int pos )
+    {
+        cursor.setOffset( childOffset( pos ) );
+        cursor.getBytes( gatherChildren, gatherChildCount * SIZE_PAGE_REFERENCE, SIZE_PAGE_REFERENCE );
+        gatherChildCount++;
+    }
+
+    private void addGatheredKey( int keyLength )
+    {
+        gatherKeyOffset[gatherCount] = gatherBytesSize;
+        gatherKeyLength[gatherCount] = keyLength;
+        gatherBytesSize += keyLength;
+        gatherCount++;
+    }
+
+    private void readGatheredKey( int index, KEY into )
+    {
+        ensureKeyBuffer();
+        int keyLength = gatherKeyLength[index];
+        System.arraycopy( gatherBytes, gatherKeyOffset[index], keyBuffer, 0, keyLength );
+        keyBufferCursor.setOffset( 0 );
+        layout.readKey( keyBufferCursor, into, keyLength );
+    }
+
+    private int commonPrefix( int index, int otherIndex, int maxLength )
+    {
+        int length = min( maxLength, min( gatherKeyLength[index], gatherKeyLength[otherIndex] ) );
+        int offset = gatherKeyOffset[index];
+        int otherOffset = gatherKeyOffset[otherIndex];
+        for ( int i = 0; i < length; i++ )
+        {
+            if ( gatherBytes[offset + i] != gatherBytes[otherOffset + i] )
+            {
+                return i;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Computes, for each gathered key, the prefix it has in common with all keys before it and with all keys
+     * after it respectively.
+     */
+    private void computeCommonPrefixes()
+    {
+        for ( int i = 0; i < gatherCount; i++ )
+        {
+            gatherLcpFromStart[i] = i == 0 ? gatherKeyLength[0] : commonPrefix( 0, i, gatherLcpFromStart[i - 1] );
+        }
+        int last = gatherCount - 1;
+        for ( int i = last; i >= 0; i-- )
+        {
+            gatherLcpToEnd[i] = i == last ? gatherKeyLength[last] : commonPrefix( last, i, gatherLcpToEnd[i + 1] );
+        }
+    }
+
+    /**
+     * Size of a leaf with {@code count} entries, which have {@code keyBytes} in total and {@code prefixLength}
+     * bytes in common.
+     */
+    private int leafSize( int count, int keyBytes, int prefixLength )
+    {
+        if ( count == 0 )
+        {
+            return 0;
+        }
+        return count * (SIZE_OFFSET + SIZE_KEY_LENGTH + valueSize) + keyBytes - count * prefixLength + prefixLength;
+    }
+
+    /**
+     * @return size of a leaf with all gathered entries.
+     */
+    private int gatheredLeafSize()
+    {
+        return leafSize( gatherCount, gatherBytesSize, gatherCount == 0 ? 0 : gatherLcpFromStart[gatherCount - 1] );
+    }
+
+    /**
+     * @return position in range [minPos,maxPos] to split gathered entries at, such that both leaves fit their entries
+     * and are as equally full as possible, or {@code -1} if there's no such position.
+     */
+    private int balancedLeafSplit( int minPos, int maxPos )
+    {
+        int bestPos = -1;
+        int bestImbalance = Integer.MAX_VALUE;
+        int leftKeyBytes = 0;
+        for ( int i = 0; i < minPos; i++ )
+        {
+            leftKeyBytes += gatherKeyLength[i];
+        }
+        for ( int pos = minPos; pos <= maxPos; pos++ )
+        {
+            int leftSize = leafSize( pos, leftKeyBytes, gatherLcpFromStart[pos - 1] );
+            int rightSize = leafSize( gatherCount - pos, gatherBytesSize - leftKeyBytes,
+                    pos == gatherCount ? 0 : gatherLcpToEnd[pos] );
+            int imbalance = abs( leftSize - rightSize );
+            if ( leftSize <= capacity && rightSize <= capacity && imbalance < bestImbalance )
+            {
+                bestPos = pos;
+                bestImbalance = imbalance;
+            }
+            if ( pos < gatherCount )
+            {
+                leftKeyBytes += gatherKeyLength[pos];
+            }
+        }
+        return bestPos;
+    }
+
+    /**
+     * Writes gathered entries [fromIndex,toIndex) to the leaf at {@code cursor}, with the longest prefix they
+     * have in common. Key count is left for the caller to update.
+     */
+    private void writeLeaf( PageCursor cursor, int fromIndex, int toIndex )
+    {
+        int prefixLength = 0;
+        if ( toIndex > fromIndex )
+        {
+            prefixLength = gatherKeyLength[fromIndex];
+            for ( int i = fromIndex + 1; i < toIndex && prefixLength > 0; i++ )
+            {
+                prefixLength = commonPrefix( fromIndex, i, prefixLength );
+            }
+        }
+
+        int allocOffset = pageSize - prefixLength;
+        if ( prefixLength > 0 )
+        {
+            cursor.setOffset( allocOffset );
+            cursor.putBytes( gatherBytes, gatherKeyOffset[fromIndex], prefixLength );
+        }
+        for ( int i = fromIndex; i < toIndex; i++ )
+        {
+            int suffixLength = gatherKeyLength[i] - prefixLength;
+            allocOffset -= SIZE_KEY_LENGTH + suffixLength + valueSize;
+            putUnsignedShort( cursor, allocOffset, suffixLength );
+            cursor.setOffset( allocOffset + SIZE_KEY_LENGTH );
+            cursor.putBytes( gatherBytes, gatherKeyOffset[i] + prefixLength, suffixLength );
+            cursor.putBytes( gatherValues, i * valueSize, valueSize );
+            putUnsignedShort( cursor, leafOffsetSlot( i - fromIndex ), allocOffset );
+        }
+        setAllocOffset( cursor, allocOffset );
+        setDeadSpace( cursor, 0 );
+        setPrefixLength( cursor, prefixLength );
+    }
+
+    /**
+     * Writes gathered keys [fromIndex,toIndex) and children [fromIndex,toIndex] to the internal node at
+     * {@code cursor}. Key count is left for the caller to update.
+     */
+    private void writeInternal( PageCursor cursor, int fromIndex, int toIndex )
+    {
+        int allocOffset = pageSize;
+        cursor.setOffset( childOffset( 0 ) );
+        cursor.putBytes( gatherChildren, fromIndex * SIZE_PAGE_REFERENCE, SIZE_PAGE_REFERENCE );
+        for ( int i = fromIndex; i < toIndex; i++ )
+        {
+            int pos = i - fromIndex;
+            int keyLength = gatherKeyLength[i];
+            allocOffset -= SIZE_KEY_LENGTH + keyLength;
+            putUnsignedShort( cursor, allocOffset, keyLength );
+            cursor.setOffset( allocOffset + SIZE_KEY_LENGTH );
+            cursor.putBytes( gatherBytes, gatherKeyOffset[i], keyLength );
+            putUnsignedShort( cursor, keyOffsetSlot( pos ), allocOffset );
+            cursor.setOffset( childOffset( pos + 1 ) );
+            cursor.putBytes( gatherChildren, (i + 1) * SIZE_PAGE_REFERENCE, SIZE_PAGE_REFERENCE );
+        }
+        setAllocOffset( cursor, allocOffset );
+        setDeadSpace( cursor, 0 );
+        setPrefixLength( cursor, 0 );
+    }
+
+    /**
+     * Rewrites the heap of the internal node at {@code cursor} without dead space, leaving out the key at
+     * {@code skipPos}, if any, which is about to be replaced.
+     */
+    private void compactInternal( PageCursor cursor, int keyCount, int skipPos )
+    {
+        resetGather();
+        for ( int pos = 0; pos < keyCount; pos++ )
+        {
+            int keyLength = 0;
+            if ( pos != skipPos )
+            {
+                int keyOffset = getUnsignedShort( cursor, keyOffsetSlot( pos ) );
+                keyLength = getUnsignedShort( cursor, keyOffset );
+                ensureGatherCapacity( gatherCount + 1, keyLength );
+                cursor.setOffset( keyOffset + SIZE_KEY_LENGTH );
+                cursor.getBytes( gatherBytes, gatherBytesSize, keyLength );
+            }
+            else
+            {
+                ensureGatherCapacity( gatherCount + 1, 0 );
+            }
+            addGatheredKey( keyLength );
+        }
+
+        int allocOffset = pageSize;
+        for ( int pos = 0; pos < keyCount; pos++ )
+        {
+            if ( pos != skipPos )
+            {
+                int keyLength = gatherKeyLength[pos];
+                allocOffset -= SIZE_KEY_LENGTH + keyLength;
+                putUnsignedShort( cursor, allocOffset, keyLength );
+                cursor.setOffset( allocOffset + SIZE_KEY_LENGTH );
+                cursor.putBytes( gatherBytes, gatherKeyOffset[pos], keyLength );
+                putUnsignedShort( cursor, keyOffsetSlot( pos ), allocOffset );
+            }
+        }
+        setAllocOffset( cursor, allocOffset );
+        setDeadSpace( cursor, 0 );
+    }
+
+    @Override
+    public String toString()
+    {
+        return "TreeNodeDynamicSize[pageSize:" + pageSize + ", keySizeCap:" + keySizeCap +
+                ", valueSize:" + valueSize + "]";
+    }
+}
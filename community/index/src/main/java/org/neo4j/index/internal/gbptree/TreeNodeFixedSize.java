@@ -0,0 +1,571 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import org.neo4j.io.pagecache.PageCursor;
+
+/**
+ * {@link TreeNode} format for layouts with fixed size keys and values, where keys, values and children are
+ * stored in arrays of fixed size slots and a tree node overflows and underflows by number of keys.
+ * <p>
+ * Using Separate design the internal nodes should look like
+ * <pre>
+ * # = empty space
+ *
+ * [                                   HEADER   82B                           ]|[   KEYS   ]|[     CHILDREN      ]
+ * [NODETYPE][TYPE][GENERATION][KEYCOUNT][RIGHTSIBLING][LEFTSIBLING][SUCCESSOR]|[[KEY]...##]|[[CHILD][CHILD]...##]
+ *  0         1     2           6         10            34           58          82
+ * </pre>
+ * Calc offset for key i (starting from 0)
+ * HEADER_LENGTH + i * SIZE_KEY
+ * <p>
+ * Calc offset for child i
+ * HEADER_LENGTH + SIZE_KEY * MAX_KEY_COUNT_INTERNAL + i * SIZE_CHILD
+ * <p>
+ * Using Separate design the leaf nodes should look like
+ *
+ * <pre>
+ * [                                   HEADER   82B                           ]|[    KEYS  ]|[   VALUES   ]
+ * [NODETYPE][TYPE][GENERATION][KEYCOUNT][RIGHTSIBLING][LEFTSIBLING][SUCCESSOR]|[[KEY]...##]|[[VALUE]...##]
+ *  0         1     2           6         10            34           58          82
+ * </pre>
+ *
+ * Calc offset for key i (starting from 0)
+ * HEADER_LENGTH + i * SIZE_KEY
+ * <p>
+ * Calc offset for value i
+ * HEADER_LENGTH + SIZE_KEY * MAX_KEY_COUNT_LEAF + i * SIZE_VALUE
+ *
+ * @param <KEY> type of key
+ * @param <VALUE> type of value
+ */
+class TreeNodeFixedSize<KEY,VALUE> extends TreeNode<KEY,VALUE>
+{
+    private final int internalMaxKeyCount;
+    private final int leafMaxKeyCount;
+
+    private final int keySize;
+    private final int valueSize;
+
+    TreeNodeFixedSize( int pageSize, Layout<KEY,VALUE> layout )
+    {
+        super( pageSize, layout );
+        this.keySize = layout.keySize();
+        this.valueSize = layout.valueSize();
+        this.internalMaxKeyCount = Math.floorDiv( pageSize - (HEADER_LENGTH + SIZE_PAGE_REFERENCE),
+                keySize + SIZE_PAGE_REFERENCE);
+        this.leafMaxKeyCount = Math.floorDiv( pageSize - HEADER_LENGTH, keySize + valueSize );
+
+        if ( internalMaxKeyCount < 2 )
+        {
+            throw new MetadataMismatchException(
+                    "For layout %s a page size of %d would only fit %d internal keys, minimum is 2",
+                    layout, pageSize, internalMaxKeyCount );
+        }
+        if ( leafMaxKeyCount < 2 )
+        {
+            throw new MetadataMismatchException( "A page size of %d would only fit leaf keys, minimum is 2",
+                    pageSize, leafMaxKeyCount );
+        }
+    }
+
+    @Override
+    void initializeAdditionalHeader( PageCursor cursor )
+    {   // no additional header
+    }
+
+    // BODY METHODS
+
+    @Override
+    KEY keyAt( PageCursor cursor, KEY into, int pos )
+    {
+        cursor.setOffset( keyOffset( pos ) );
+        layout.readKey( cursor, into );
+        return into;
+    }
+
+    void insertKeyAt( PageCursor cursor, KEY key, int pos, int keyCount )
+    {
+        insertKeySlotsAt( cursor, pos, 1, keyCount );
+        cursor.setOffset( keyOffset( pos ) );
+        layout.writeKey( cursor, key );
+    }
+
+    void removeKeyAt( PageCursor cursor, int pos, int keyCount )
+    {
+        removeSlotAt( cursor, pos, keyCount, keyOffset( 0 ), keySize );
+    }
+
+    private static void removeSlotAt( PageCursor cursor, int pos, int itemCount, int baseOffset, int itemSize )
+    {
+        for ( int posToMoveLeft = pos + 1, offset = baseOffset + posToMoveLeft * itemSize;
+                posToMoveLeft < itemCount; posToMoveLeft++, offset += itemSize )
+        {
+            cursor.copyTo( offset, cursor, offset - itemSize, itemSize );
+        }
+    }
+
+    void setKeyAt( PageCursor cursor, KEY key, int pos )
+    {
+        cursor.setOffset( keyOffset( pos ) );
+        layout.writeKey( cursor, key );
+    }
+
+    @Override
+    VALUE valueAt( PageCursor cursor, VALUE value, int pos )
+    {
+        cursor.setOffset( valueOffset( pos ) );
+        layout.readValue( cursor, value );
+        return value;
+    }
+
+    void insertValueAt( PageCursor cursor, VALUE value, int pos, int keyCount )
+    {
+        insertValueSlotsAt( cursor, pos, 1, keyCount );
+        setValueAt( cursor, value, pos );
+    }
+
+    void removeValueAt( PageCursor cursor, int pos, int keyCount )
+    {
+        removeSlotAt( cursor, pos, keyCount, valueOffset( 0 ), valueSize );
+    }
+
+    @Override
+    void setValueAt( PageCursor cursor, VALUE value, int pos )
+    {
+        cursor.setOffset( valueOffset( pos ) );
+        layout.writeValue( cursor, value );
+    }
+
+    void insertChildAt( PageCursor cursor, long child, int pos, int keyCount,
+            long stableGeneration, long unstableGeneration )
+    {
+        insertChildSlotsAt( cursor, pos, 1, keyCount );
+        setChildAt( cursor, child, pos, stableGeneration, unstableGeneration );
+    }
+
+    void removeChildAt( PageCursor cursor, int pos, int keyCount )
+    {
+        removeSlotAt( cursor, pos, keyCount + 1, childOffset( 0 ), childSize() );
+    }
+
+    @Override
+    void insertKeyValueAt( PageCursor cursor, KEY key, VALUE value, int pos, int keyCount )
+    {
+        insertKeyAt( cursor, key, pos, keyCount );
+        insertValueAt( cursor, value, pos, keyCount );
+    }
+
+    @Override
+    void removeKeyValueAt( PageCursor cursor, int pos, int keyCount )
+    {
+        removeKeyAt( cursor, pos, keyCount );
+        removeValueAt( cursor, pos, keyCount );
+    }
+
+    @Override
+    void insertKeyAndRightChildAt( PageCursor cursor, KEY key, long child, int pos, int keyCount,
+            long stableGeneration, long unstableGeneration )
+    {
+        insertKeyAt( cursor, key, pos, keyCount );
+        insertChildAt( cursor, child, pos + 1, keyCount, stableGeneration, unstableGeneration );
+    }
+
+    @Override
+    void removeKeyAndRightChildAt( PageCursor cursor, int keyPos, int keyCount )
+    {
+        removeKeyAt( cursor, keyPos, keyCount );
+        removeChildAt( cursor, keyPos + 1, keyCount );
+    }
+
+    @Override
+    void removeKeyAndLeftChildAt( PageCursor cursor, int keyPos, int keyCount )
+    {
+        removeKeyAt( cursor, keyPos, keyCount );
+        removeChildAt( cursor, keyPos, keyCount );
+    }
+
+    @Override
+    boolean setKeyAtInternal( PageCursor cursor, KEY key, int pos )
+    {
+        setKeyAt( cursor, key, pos );
+        return true;
+    }
+
+    /**
+     * Moves items (key/value/child) one step to the right, which means rewriting all items of the particular type
+     * from pos - itemCount.
+     * itemCount is keyCount for key and value, but keyCount+1 for children.
+     */
+    private static void insertSlotsAt( PageCursor cursor, int pos, int numberOfSlots, int itemCount, int baseOffset,
+            int itemSize )
+    {
+        for ( int posToMoveRight = itemCount - 1, offset = baseOffset + posToMoveRight * itemSize;
+              posToMoveRight >= pos; posToMoveRight--, offset -= itemSize )
+        {
+            cursor.copyTo( offset, cursor, offset + itemSize * numberOfSlots, itemSize );
+        }
+    }
+
+    void insertKeySlotsAt( PageCursor cursor, int pos, int numberOfSlots, int keyCount )
+    {
+        insertSlotsAt( cursor, pos, numberOfSlots, keyCount, keyOffset( 0 ), keySize );
+    }
+
+    void insertValueSlotsAt( PageCursor cursor, int pos, int numberOfSlots, int keyCount )
+    {
+        insertSlotsAt( cursor, pos, numberOfSlots, keyCount, valueOffset( 0 ), valueSize );
+    }
+
+    void insertChildSlotsAt( PageCursor cursor, int pos, int numberOfSlots, int keyCount )
+    {
+        insertSlotsAt( cursor, pos, numberOfSlots, keyCount + 1, childOffset( 0 ), childSize() );
+    }
+
+    // CAPACITY METHODS
+
+    @Override
+    boolean leafOverflow( PageCursor cursor, int keyCount, KEY newKey, double fillFactor )
+    {
+        return keyCount >= Math.max( 1, (int) (leafMaxKeyCount * fillFactor) );
+    }
+
+    @Override
+    boolean internalOverflow( PageCursor cursor, int keyCount, KEY newKey, double fillFactor )
+    {
+        int maxChildren = internalMaxKeyCount + 1;
+        int children = Math.min( maxChildren, Math.max( 3, (int) (maxChildren * fillFactor) ) );
+        return keyCount + 1 >= children;
+    }
+
+    @Override
+    boolean leafUnderflow( PageCursor cursor, int keyCount )
+    {
+        return keyCount < (leafMaxKeyCount + 1) / 2;
+    }
+
+    @Override
+    boolean leafUnderflowAfterRemoveAt( PageCursor cursor, int keyCount, int pos )
+    {
+        return leafUnderflow( cursor, keyCount - 1 );
+    }
+
+    @Override
+    boolean canRebalanceLeaves( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor,
+            int rightKeyCount )
+    {
+        return leftKeyCount + rightKeyCount >= leafMaxKeyCount;
+    }
+
+    @Override
+    boolean canMergeLeaves( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount )
+    {
+        return leftKeyCount + rightKeyCount <= leafMaxKeyCount;
+    }
+
+    // STRUCTURE METHODS
+
+    @Override
+    void doSplitLeaf( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int insertPos,
+            KEY newKey, VALUE newValue, KEY newSplitter )
+    {
+        // BALANCE KEYS AND VALUES
+        // Two different scenarios
+        // Before split
+        // [key1]<=[key2]<=[key3]<=[key4]<=[key5]   (<= greater than or equal to)
+        //                           ^
+        //                           |
+        //                      pos  |
+        // [newKey] -----------------
+        //
+        // After split
+        // Left
+        // [key1]<=[key2]<=[key3]
+        //
+        // Right
+        // [newKey][key4][key5]
+        //
+        // Before split
+        // [key1]<=[key2]<=[key3]<=[key4]<=[key5]   (<= greater than or equal to)
+        //   ^
+        //   | pos
+        //   |
+        // [newKey]
+        //
+        // After split
+        // Left
+        // [newKey]<=[key1]<=[key2]
+        //
+        // Right
+        // [key3][key4][key5]
+        //
+        int keyCountAfterInsert = leftKeyCount + 1;
+        int middlePos = middle( keyCountAfterInsert );
+
+        if ( middlePos == insertPos )
+        {
+            layout.copyKey( newKey, newSplitter );
+        }
+        else
+        {
+            keyAt( leftCursor, newSplitter, insertPos < middlePos ? middlePos - 1 : middlePos );
+        }
+
+        int rightKeyCount = keyCountAfterInsert - middlePos;
+        if ( insertPos < middlePos )
+        {
+            //                  v-------v       copy
+            // before _,_,_,_,_,_,_,_,_,_
+            // insert _,_,_,X,_,_,_,_,_,_,_
+            // middle           ^
+            copyKeysAndValues( leftCursor, middlePos - 1, rightCursor, 0, rightKeyCount );
+        }
+        else
+        {
+            //                  v---v           first copy
+            //                        v-v       second copy
+            // before _,_,_,_,_,_,_,_,_,_
+            // insert _,_,_,_,_,_,_,_,X,_,_
+            // middle           ^
+            int countBeforePos = insertPos - middlePos;
+            if ( countBeforePos > 0 )
+            {
+                // first copy
+                copyKeysAndValues( leftCursor, middlePos, rightCursor, 0, countBeforePos );
+            }
+            insertKeyAt( rightCursor, newKey, countBeforePos, countBeforePos );
+            insertValueAt( rightCursor, newValue, countBeforePos, countBeforePos );
+            int countAfterPos = leftKeyCount - insertPos;
+            if ( countAfterPos > 0 )
+            {
+                // second copy
+                copyKeysAndValues( leftCursor, insertPos, rightCursor, countBeforePos + 1, countAfterPos );
+            }
+        }
+        TreeNode.setKeyCount( rightCursor, rightKeyCount );
+
+        // Update left child
+        // If pos < middle. Write shifted values to left node. Else, don't write anything.
+        if ( insertPos < middlePos )
+        {
+            insertKeyAt( leftCursor, newKey, insertPos, middlePos - 1 );
+            insertValueAt( leftCursor, newValue, insertPos, middlePos - 1 );
+        }
+        TreeNode.setKeyCount( leftCursor, middlePos );
+    }
+
+    @Override
+    void doSplitInternal( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int insertPos,
+            KEY newKey, long newRightChild, long stableGeneration, long unstableGeneration, KEY newSplitter )
+    {
+        int keyCountAfterInsert = leftKeyCount + 1;
+        int middlePos = middle( keyCountAfterInsert );
+
+        if ( middlePos == insertPos )
+        {
+            layout.copyKey( newKey, newSplitter );
+        }
+        else
+        {
+            keyAt( leftCursor, newSplitter, insertPos < middlePos ? middlePos - 1 : middlePos );
+        }
+
+        int rightKeyCount = keyCountAfterInsert - middlePos - 1; // -1 because don't keep prim key in internal
+        if ( insertPos < middlePos )
+        {
+            //                         v-------v       copy
+            // before key    _,_,_,_,_,_,_,_,_,_
+            // before child -,-,-,-,-,-,-,-,-,-,-
+            // insert key    _,_,X,_,_,_,_,_,_,_,_
+            // insert child -,-,-,x,-,-,-,-,-,-,-,-
+            // middle key              ^
+
+            // children
+            leftCursor.copyTo( keyOffset( middlePos ), rightCursor, keyOffset( 0 ), rightKeyCount * keySize );
+            leftCursor.copyTo( childOffset( middlePos ), rightCursor, childOffset( 0 ),
+                    (rightKeyCount + 1) * childSize() );
+        }
+        else
+        {
+            // pos > middlePos
+            //                         v-v          first copy
+            //                             v-v-v    second copy
+            // before key    _,_,_,_,_,_,_,_,_,_
+            // before child -,-,-,-,-,-,-,-,-,-,-
+            // insert key    _,_,_,_,_,_,_,X,_,_,_
+            // insert child -,-,-,-,-,-,-,-,x,-,-,-
+            // middle key              ^
+
+            // pos == middlePos
+            //                                      first copy
+            //                         v-v-v-v-v    second copy
+            // before key    _,_,_,_,_,_,_,_,_,_
+            // before child -,-,-,-,-,-,-,-,-,-,-
+            // insert key    _,_,_,_,_,X,_,_,_,_,_
+            // insert child -,-,-,-,-,-,x,-,-,-,-,-
+            // middle key              ^
+
+            // Keys
+            int countBeforePos = insertPos - (middlePos + 1);
+            // ... first copy
+            if ( countBeforePos > 0 )
+            {
+                leftCursor.copyTo( keyOffset( middlePos + 1 ), rightCursor, keyOffset( 0 ),
+                        countBeforePos * keySize );
+            }
+            // ... insert
+            if ( countBeforePos >= 0 )
+            {
+                insertKeyAt( rightCursor, newKey, countBeforePos, countBeforePos );
+            }
+            // ... second copy
+            int countAfterPos = leftKeyCount - insertPos;
+            if ( countAfterPos > 0 )
+            {
+                leftCursor.copyTo( keyOffset( insertPos ), rightCursor, keyOffset( countBeforePos + 1 ),
+                        countAfterPos * keySize );
+            }
+
+            // Children
+            countBeforePos = insertPos - middlePos;
+            // ... first copy
+            if ( countBeforePos > 0 )
+            {
+                // first copy
+                leftCursor.copyTo( childOffset( middlePos + 1 ), rightCursor, childOffset( 0 ),
+                        countBeforePos * childSize() );
+            }
+            // ... insert
+            insertChildAt( rightCursor, newRightChild, countBeforePos, countBeforePos,
+                    stableGeneration, unstableGeneration );
+            // ... second copy
+            if ( countAfterPos > 0 )
+            {
+                leftCursor.copyTo( childOffset( insertPos + 1 ), rightCursor, childOffset( countBeforePos + 1 ),
+                        countAfterPos * childSize() );
+            }
+        }
+        TreeNode.setKeyCount( rightCursor, rightKeyCount );
+
+        // Update left node
+        TreeNode.setKeyCount( leftCursor, middlePos );
+        if ( insertPos < middlePos )
+        {
+            insertKeyAt( leftCursor, newKey, insertPos, middlePos - 1 );
+            insertChildAt( leftCursor, newRightChild, insertPos + 1, middlePos - 1,
+                    stableGeneration, unstableGeneration );
+        }
+    }
+
+    private static int middle( int keyCountAfterInsert )
+    {
+        return keyCountAfterInsert / 2;
+    }
+
+    @Override
+    void doMergeLeaves( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount )
+    {
+        // Push keys in right sibling to the right
+        insertKeySlotsAt( rightCursor, 0, leftKeyCount, rightKeyCount );
+        insertValueSlotsAt( rightCursor, 0, leftKeyCount, rightKeyCount );
+
+        // Move keys and values from left sibling to right sibling
+        copyKeysAndValues( leftCursor, 0, rightCursor, 0, leftKeyCount );
+        TreeNode.setKeyCount( rightCursor, rightKeyCount + leftKeyCount );
+    }
+
+    @Override
+    void doRebalanceLeaves( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount )
+    {
+        int totalKeyCount = rightKeyCount + leftKeyCount;
+        int keyCountInLeftSiblingAfterRebalance = totalKeyCount / 2;
+        int numberOfKeysToMove = leftKeyCount - keyCountInLeftSiblingAfterRebalance;
+
+        // Push keys in right sibling to the right
+        insertKeySlotsAt( rightCursor, 0, numberOfKeysToMove, rightKeyCount );
+        insertValueSlotsAt( rightCursor, 0, numberOfKeysToMove, rightKeyCount );
+
+        // Move keys and values from left sibling to right sibling
+        copyKeysAndValues( leftCursor, keyCountInLeftSiblingAfterRebalance, rightCursor, 0, numberOfKeysToMove );
+        TreeNode.setKeyCount( rightCursor, rightKeyCount + numberOfKeysToMove );
+        TreeNode.setKeyCount( leftCursor, leftKeyCount - numberOfKeysToMove );
+    }
+
+    private void copyKeysAndValues( PageCursor fromCursor, int fromPos, PageCursor toCursor, int toPos, int count )
+    {
+        fromCursor.copyTo( keyOffset( fromPos ), toCursor, keyOffset( toPos ), count * keySize );
+        fromCursor.copyTo( valueOffset( fromPos ), toCursor, valueOffset( toPos ), count * valueSize );
+    }
+
+    // MISC
+
+    @Override
+    int internalMaxKeyCount()
+    {
+        return internalMaxKeyCount;
+    }
+
+    @Override
+    int leafMaxKeyCount()
+    {
+        return leafMaxKeyCount;
+    }
+
+    @Override
+    TreeNode<KEY,VALUE> forSingleThread()
+    {
+        return this;
+    }
+
+    // HELPERS
+
+    int keyOffset( int pos )
+    {
+        return HEADER_LENGTH + pos * keySize;
+    }
+
+    int valueOffset( int pos )
+    {
+        return HEADER_LENGTH + leafMaxKeyCount * keySize + pos * valueSize;
+    }
+
+    @Override
+    int childOffset( int pos )
+    {
+        return HEADER_LENGTH + internalMaxKeyCount * keySize + pos * SIZE_PAGE_REFERENCE;
+    }
+
+    int keySize()
+    {
+        return keySize;
+    }
+
+    int valueSize()
+    {
+        return valueSize;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "TreeNodeFixedSize[pageSize:" + pageSize + ", internalMax:" + internalMaxKeyCount +
+                ", leafMax:" + leafMaxKeyCount + ", keySize:" + keySize + ", valueSize:" + valueSize + "]";
+    }
+}
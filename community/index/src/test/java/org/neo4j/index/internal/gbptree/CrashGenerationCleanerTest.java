@@ -334,7 +334,7 @@ public class CrashGenerationCleanerTest
                     void write( PageCursor cursor, CorruptableTreeNode corruptableTreeNode, int stableGeneration,
                             int unstableGeneration )
                     {
-                        TreeNode.initializeLeaf( cursor, stableGeneration, unstableGeneration );
+                        corruptableTreeNode.initializeLeaf( cursor, stableGeneration, unstableGeneration );
                     }
                 },
         INTERNAL
@@ -343,7 +343,7 @@ public class CrashGenerationCleanerTest
                     void write( PageCursor cursor, CorruptableTreeNode corruptableTreeNode, int stableGeneration,
                             int unstableGeneration )
                     {
-                        TreeNode.initializeInternal( cursor, stableGeneration, unstableGeneration );
+                        corruptableTreeNode.initializeInternal( cursor, stableGeneration, unstableGeneration );
                         int maxKeyCount = corruptableTreeNode.internalMaxKeyCount();
                         long base = IdSpace.MIN_TREE_NODE_ID;
                         for ( int i = 0; i <= maxKeyCount; i++ )
@@ -431,7 +431,7 @@ public class CrashGenerationCleanerTest
                 int unstableGeneration, int crashGeneration );
     }
 
-    class CorruptableTreeNode extends TreeNode<MutableLong,MutableLong>
+    class CorruptableTreeNode extends TreeNodeFixedSize<MutableLong,MutableLong>
     {
         CorruptableTreeNode( int pageSize, Layout<MutableLong,MutableLong> layout )
         {
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import org.apache.commons.lang3.mutable.MutableLong;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.index.internal.gbptree.SimpleByteArrayLayout.RawBytes;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.test.rule.PageCacheRule;
+import org.neo4j.test.rule.RandomRule;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.test.rule.fs.DefaultFileSystemRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.rules.RuleChain.outerRule;
+import static org.neo4j.test.rule.PageCacheRule.config;
+
+public class GBPTreeDynamicSizeIT
+{
+    private static final int PAGE_SIZE = 512;
+
+    private final DefaultFileSystemRule fs = new DefaultFileSystemRule();
+    private final TestDirectory directory = TestDirectory.testDirectory( getClass(), fs.get() );
+    private final PageCacheRule pageCacheRule = new PageCacheRule();
+    private final RandomRule random = new RandomRule();
+
+    @Rule
+    public final RuleChain rules = outerRule( fs ).around( directory ).around( pageCacheRule ).around( random );
+
+    private final SimpleByteArrayLayout layout = new SimpleByteArrayLayout();
+    private final int maxKeySize = new TreeNodeDynamicSize<>( PAGE_SIZE, layout ).keySizeCap();
+
+    @Test
+    public void shouldStayCorrectAfterRandomModifications() throws Exception
+    {
+        // GIVEN
+        TreeMap<RawBytes,MutableLong> data = new TreeMap<>( layout );
+        PageCache pageCache = pageCacheRule.getPageCache( fs.get(), config().withPageSize( PAGE_SIZE ) );
+        File file = directory.file( "index" );
+        GBPTree<RawBytes,MutableLong> index = new GBPTreeBuilder<>( pageCache, file, layout ).build();
+        try
+        {
+            for ( int round = 0; round < 30; round++ )
+            {
+                // WHEN
+                boolean mostlyInserts = round < 20;
+                try ( Writer<RawBytes,MutableLong> writer = index.writer() )
+                {
+                    for ( int i = 0; i < 500; i++ )
+                    {
+                        if ( data.isEmpty() || random.nextInt( 10 ) < (mostlyInserts ? 7 : 3) )
+                        {
+                            RawBytes key = randomKey();
+                            MutableLong value = new MutableLong( random.nextLong() );
+                            writer.put( key, value );
+                            data.put( key, value );
+                        }
+                        else
+                        {
+                            RawBytes key = data.ceilingKey( randomKey() );
+                            key = key != null ? key : data.firstKey();
+                            assertEquals( data.remove( key ), writer.remove( key ) );
+                        }
+                    }
+                }
+                if ( round % 5 == 4 )
+                {
+                    index.checkpoint( IOLimiter.unlimited() );
+                }
+                if ( round % 10 == 9 )
+                {
+                    index.close();
+                    index = new GBPTreeBuilder<>( pageCache, file, layout ).build();
+                }
+
+                // THEN
+                assertSeekResults( index, data );
+                assertTrue( index.consistencyCheck() );
+            }
+        }
+        finally
+        {
+            index.close();
+        }
+    }
+
+    @Test
+    public void shouldBulkLoadKeysOfDifferentSizes() throws Exception
+    {
+        // GIVEN
+        TreeMap<RawBytes,MutableLong> data = new TreeMap<>( layout );
+        while ( data.size() < 5_000 )
+        {
+            data.put( randomKey(), new MutableLong( random.nextLong() ) );
+        }
+        PageCache pageCache = pageCacheRule.getPageCache( fs.get(), config().withPageSize( PAGE_SIZE ) );
+
+        // WHEN
+        try ( GBPTree<RawBytes,MutableLong> index =
+                new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build() )
+        {
+            try ( BulkLoader<RawBytes,MutableLong> bulkLoader = index.bulkLoader( 0.8 ) )
+            {
+                for ( Map.Entry<RawBytes,MutableLong> entry : data.entrySet() )
+                {
+                    bulkLoader.add( entry.getKey(), entry.getValue() );
+                }
+            }
+
+            // THEN
+            assertSeekResults( index, data );
+            assertTrue( index.consistencyCheck() );
+        }
+    }
+
+    @Test
+    public void shouldNotAcceptKeyLargerThanMaxKeySize() throws Exception
+    {
+        // GIVEN
+        PageCache pageCache = pageCacheRule.getPageCache( fs.get(), config().withPageSize( PAGE_SIZE ) );
+        try ( GBPTree<RawBytes,MutableLong> index =
+                new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build();
+              Writer<RawBytes,MutableLong> writer = index.writer() )
+        {
+            // WHEN
+            writer.put( new RawBytes( new byte[maxKeySize + 1] ), new MutableLong( 1 ) );
+            fail( "Should have failed" );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            // THEN good
+        }
+    }
+
+    private RawBytes randomKey()
+    {
+        byte[] bytes;
+        if ( random.nextBoolean() )
+        {
+            // Keys sharing a prefix, which leaves strip
+            bytes = ("prefix/" + random.nextInt( 10_000 )).getBytes();
+        }
+        else
+        {
+            bytes = new byte[random.nextInt( maxKeySize + 1 )];
+            random.nextBytes( bytes );
+        }
+        return new RawBytes( bytes );
+    }
+
+    private void assertSeekResults( GBPTree<RawBytes,MutableLong> index, TreeMap<RawBytes,MutableLong> data )
+            throws IOException
+    {
+        List<RawBytes> keys = new ArrayList<>( data.keySet() );
+        for ( int i = 0; i < 20 && !keys.isEmpty(); i++ )
+        {
+            RawBytes from = keys.get( random.nextInt( keys.size() ) );
+            RawBytes to = keys.get( random.nextInt( keys.size() ) );
+            if ( layout.compare( from, to ) == 0 )
+            {
+                continue;
+            }
+            if ( layout.compare( from, to ) > 0 )
+            {
+                RawBytes tmp = from;
+                from = to;
+                to = tmp;
+            }
+            Iterator<Map.Entry<RawBytes,MutableLong>> expected = data.subMap( from, true, to, false ).entrySet().iterator();
+            try ( RawCursor<Hit<RawBytes,MutableLong>,IOException> result = index.seek( from, to ) )
+            {
+                while ( expected.hasNext() )
+                {
+                    Map.Entry<RawBytes,MutableLong> entry = expected.next();
+                    assertTrue( result.next() );
+                    assertEquals( entry.getKey(), result.get().key() );
+                    assertEquals( entry.getValue(), result.get().value() );
+                }
+                assertFalse( result.next() );
+            }
+        }
+    }
+}
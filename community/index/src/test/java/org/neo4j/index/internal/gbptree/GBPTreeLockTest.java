@@ -161,6 +161,53 @@ public class GBPTreeLockTest
         assertOnlyOneSucceeds( lock::writerAndCleanerLock, lock::writerAndCleanerLock );
     }
 
+    @Test
+    public void sharedWriterLockShouldAllowOtherSharedWriters() throws Exception
+    {
+        // given
+        lock.sharedWriterLock();
+
+        // then
+        lock.sharedWriterLock();
+        lock.sharedWriterUnlock();
+        copy = lock.copy();
+        assertBlock( copy::writerLock, copy::sharedWriterUnlock );
+
+        lock.sharedWriterUnlock();
+        assertUU();
+        assertThrow( lock::sharedWriterUnlock );
+    }
+
+    @Test
+    public void writerLockShouldBlockSharedWriters() throws Exception
+    {
+        // given
+        lock.writerLock();
+
+        // then
+        copy = lock.copy();
+        assertBlock( copy::sharedWriterLock, copy::writerUnlock, "sharedWriterLock" );
+
+        lock.writerUnlock();
+        assertUU();
+    }
+
+    @Test
+    public void sharedWriterLockShouldNotBlockCleaner() throws Exception
+    {
+        // given
+        lock.sharedWriterLock();
+
+        // then
+        lock.cleanerLock();
+        lock.cleanerUnlock();
+        copy = lock.copy();
+        assertBlock( copy::writerAndCleanerLock, copy::sharedWriterUnlock );
+
+        lock.sharedWriterUnlock();
+        assertUU();
+    }
+
     private void assertOnlyOneSucceeds( Runnable lockAction1, Runnable lockAction2 ) throws Throwable
     {
         assertUU();
@@ -260,13 +307,18 @@ public class GBPTreeLockTest
     }
 
     private void assertBlock( Runnable runLock, Runnable runUnlock ) throws Exception
+    {
+        assertBlock( runLock, runUnlock, "doLock" );
+    }
+
+    private void assertBlock( Runnable runLock, Runnable runUnlock, String blockingMethod ) throws Exception
     {
         Future<Object> future = executor.execute( state ->
         {
             runLock.run();
             return null;
         } );
-        executor.get().waitUntilWaiting( details -> details.isAt( GBPTreeLock.class, "doLock" ) );
+        executor.get().waitUntilWaiting( details -> details.isAt( GBPTreeLock.class, blockingMethod ) );
         runUnlock.run();
         future.get();
     }
@@ -406,7 +406,7 @@ public class GBPTreeTest
     /* Lifecycle tests */
 
     @Test
-    public void shouldNotBeAbleToAcquireModifierTwice() throws Exception
+    public void shouldBeAbleToAcquireMultipleWritersAtTheSameTime() throws Exception
     {
         // GIVEN
         try ( GBPTree<MutableLong,MutableLong> index = index().build() )
@@ -414,20 +414,23 @@ public class GBPTreeTest
             Writer<MutableLong,MutableLong> writer = index.writer();
 
             // WHEN
-            try
+            try ( Writer<MutableLong,MutableLong> otherWriter = index.writer() )
             {
-                index.writer();
-                fail( "Should have failed" );
+                writer.put( new MutableLong( 0 ), new MutableLong( 0 ) );
+                otherWriter.put( new MutableLong( 1 ), new MutableLong( 1 ) );
             }
-            catch ( IllegalStateException e )
+            writer.close();
+
+            // THEN
+            try ( RawCursor<Hit<MutableLong,MutableLong>,IOException> cursor =
+                          index.seek( new MutableLong( 0 ), new MutableLong( Long.MAX_VALUE ) ) )
             {
-                // THEN good
+                assertTrue( cursor.next() );
+                assertEquals( 0, cursor.get().key().longValue() );
+                assertTrue( cursor.next() );
+                assertEquals( 1, cursor.get().key().longValue() );
+                assertFalse( cursor.next() );
             }
-
-            // Should be able to close old writer
-            writer.close();
-            // And open and closing a new one
-            index.writer().close();
         }
     }
 
@@ -1114,6 +1117,236 @@ public class GBPTreeTest
         }
     }
 
+    @Test
+    public void shouldSeeInsertionsAndRemovalsFromConcurrentWriters() throws Exception
+    {
+        try ( GBPTree<MutableLong,MutableLong> index = index().build() )
+        {
+            int threads = 4;
+            int countPerThread = 2_000;
+            List<Future<?>> writers = new ArrayList<>();
+            for ( int t = 0; t < threads; t++ )
+            {
+                int thread = t;
+                writers.add( executor.submit( throwing( () ->
+                {
+                    try ( Writer<MutableLong,MutableLong> writer = index.writer() )
+                    {
+                        for ( int i = 0; i < countPerThread; i++ )
+                        {
+                            long key = (long) i * threads + thread;
+                            writer.put( new MutableLong( key ), new MutableLong( key ) );
+                            if ( i % 3 == 0 )
+                            {
+                                // Remove every third key written by this thread
+                                writer.remove( new MutableLong( key ) );
+                            }
+                        }
+                    }
+                } ) ) );
+            }
+            for ( Future<?> writer : writers )
+            {
+                writer.get();
+            }
+
+            try ( RawCursor<Hit<MutableLong,MutableLong>,IOException> cursor =
+                          index.seek( new MutableLong( 0 ), new MutableLong( Long.MAX_VALUE ) ) )
+            {
+                for ( long key = 0; key < (long) threads * countPerThread; key++ )
+                {
+                    if ( (key / threads) % 3 != 0 )
+                    {
+                        assertTrue( cursor.next() );
+                        assertEquals( key, cursor.get().key().longValue() );
+                        assertEquals( key, cursor.get().value().longValue() );
+                    }
+                }
+                assertFalse( cursor.next() );
+            }
+            assertTrue( index.consistencyCheck() );
+        }
+    }
+
+    /* Bulk loading tests */
+
+    @Test
+    public void shouldBulkLoadSortedEntries() throws Exception
+    {
+        for ( double fillFactor : new double[] {GBPTree.MIN_BULK_LOAD_FILL_FACTOR, 0.75, 1.0} )
+        {
+            // given
+            fs.get().deleteFile( indexFile );
+            try ( GBPTree<MutableLong,MutableLong> index = index().build() )
+            {
+                // when
+                int count = 100_000;
+                try ( BulkLoader<MutableLong,MutableLong> bulkLoader = index.bulkLoader( fillFactor ) )
+                {
+                    for ( long i = 0; i < count; i++ )
+                    {
+                        bulkLoader.add( new MutableLong( i * 2 ), new MutableLong( i ) );
+                    }
+                }
+
+                // then
+                assertSequentialEntries( index, count );
+                assertTrue( index.consistencyCheck() );
+            }
+        }
+    }
+
+    @Test
+    public void shouldBeAbleToWriteAfterBulkLoad() throws Exception
+    {
+        try ( GBPTree<MutableLong,MutableLong> index = index().build() )
+        {
+            // given
+            int count = 10_000;
+            try ( BulkLoader<MutableLong,MutableLong> bulkLoader = index.bulkLoader( 1.0 ) )
+            {
+                for ( long i = 0; i < count; i++ )
+                {
+                    bulkLoader.add( new MutableLong( i * 2 ), new MutableLong( i ) );
+                }
+            }
+
+            // when
+            try ( Writer<MutableLong,MutableLong> writer = index.writer() )
+            {
+                for ( long i = 0; i < count; i++ )
+                {
+                    writer.put( new MutableLong( i * 2 + 1 ), new MutableLong( i ) );
+                }
+            }
+            index.checkpoint( unlimited() );
+
+            // then
+            try ( RawCursor<Hit<MutableLong,MutableLong>,IOException> cursor =
+                          index.seek( new MutableLong( 0 ), new MutableLong( Long.MAX_VALUE ) ) )
+            {
+                for ( long key = 0; key < count * 2; key++ )
+                {
+                    assertTrue( cursor.next() );
+                    assertEquals( key, cursor.get().key().longValue() );
+                    assertEquals( key / 2, cursor.get().value().longValue() );
+                }
+                assertFalse( cursor.next() );
+            }
+            assertTrue( index.consistencyCheck() );
+        }
+    }
+
+    @Test
+    public void shouldSeeBulkLoadedEntriesAfterRestart() throws Exception
+    {
+        // given
+        int count = 10_000;
+        try ( GBPTree<MutableLong,MutableLong> index = index().build() )
+        {
+            try ( BulkLoader<MutableLong,MutableLong> bulkLoader = index.bulkLoader( 0.5 ) )
+            {
+                for ( long i = 0; i < count; i++ )
+                {
+                    bulkLoader.add( new MutableLong( i * 2 ), new MutableLong( i ) );
+                }
+            }
+            index.checkpoint( unlimited() );
+        }
+
+        // when
+        try ( GBPTree<MutableLong,MutableLong> index = index().build() )
+        {
+            // then
+            assertSequentialEntries( index, count );
+            assertTrue( index.consistencyCheck() );
+        }
+    }
+
+    @Test
+    public void bulkLoadMustThrowOnKeysNotInAscendingOrder() throws Exception
+    {
+        try ( GBPTree<MutableLong,MutableLong> index = index().build();
+              BulkLoader<MutableLong,MutableLong> bulkLoader = index.bulkLoader( 1.0 ) )
+        {
+            bulkLoader.add( new MutableLong( 10 ), new MutableLong( 10 ) );
+            try
+            {
+                bulkLoader.add( new MutableLong( 10 ), new MutableLong( 10 ) );
+                fail( "Should have failed" );
+            }
+            catch ( IllegalArgumentException e )
+            {
+                // then good
+            }
+        }
+    }
+
+    @Test
+    public void bulkLoadMustThrowIfTreeIsNotEmpty() throws Exception
+    {
+        try ( GBPTree<MutableLong,MutableLong> index = index().build() )
+        {
+            // given
+            try ( Writer<MutableLong,MutableLong> writer = index.writer() )
+            {
+                writer.put( new MutableLong( 1 ), new MutableLong( 1 ) );
+            }
+
+            // when
+            try
+            {
+                index.bulkLoader( 1.0 );
+                fail( "Should have failed" );
+            }
+            catch ( IllegalStateException e )
+            {
+                // then good
+            }
+
+            // and the tree must still be writable
+            try ( Writer<MutableLong,MutableLong> writer = index.writer() )
+            {
+                writer.put( new MutableLong( 2 ), new MutableLong( 2 ) );
+            }
+        }
+    }
+
+    @Test
+    public void bulkLoadMustThrowOnInvalidFillFactor() throws Exception
+    {
+        try ( GBPTree<MutableLong,MutableLong> index = index().build() )
+        {
+            for ( double fillFactor : new double[] {0, 0.4, 1.1} )
+            {
+                try
+                {
+                    index.bulkLoader( fillFactor );
+                    fail( "Should have failed on fill factor " + fillFactor );
+                }
+                catch ( IllegalArgumentException e )
+                {
+                    // then good
+                }
+            }
+        }
+    }
+
+    private static void assertSequentialEntries( GBPTree<MutableLong,MutableLong> index, int count ) throws IOException
+    {
+        try ( RawCursor<Hit<MutableLong,MutableLong>,IOException> cursor =
+                      index.seek( new MutableLong( 0 ), new MutableLong( Long.MAX_VALUE ) ) )
+        {
+            for ( long i = 0; i < count; i++ )
+            {
+                assertTrue( cursor.next() );
+                assertEquals( i * 2, cursor.get().key().longValue() );
+                assertEquals( i, cursor.get().value().longValue() );
+            }
+            assertFalse( cursor.next() );
+        }
+    }
+
     @Test
     public void shouldSeeSimpleInsertionsWithExactMatch() throws Exception
     {
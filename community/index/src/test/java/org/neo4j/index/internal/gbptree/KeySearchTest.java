@@ -42,7 +42,7 @@ public class KeySearchTest
     private static final int PAGE_SIZE = 512;
     private final PageCursor cursor = wrap( new byte[PAGE_SIZE], 0, PAGE_SIZE );
     private final Layout<MutableLong,MutableLong> layout = new SimpleLongLayout();
-    private final TreeNode<MutableLong,MutableLong> node = new TreeNode<>( PAGE_SIZE, layout );
+    private final TreeNodeFixedSize<MutableLong,MutableLong> node = new TreeNodeFixedSize<>( PAGE_SIZE, layout );
     private final MutableLong readKey = layout.newKey();
     private final MutableLong searchKey = layout.newKey();
     private final MutableLong insertKey = layout.newKey();
@@ -54,7 +54,7 @@ public class KeySearchTest
     public void searchEmptyLeaf() throws Exception
     {
         // given
-        TreeNode.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
         int keyCount = TreeNode.keyCount( cursor );
 
         // then
@@ -66,7 +66,7 @@ public class KeySearchTest
     public void searchEmptyInternal() throws Exception
     {
         // given
-        TreeNode.initializeInternal( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.initializeInternal( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
         int keyCount = TreeNode.keyCount( cursor );
 
         // then
@@ -78,7 +78,7 @@ public class KeySearchTest
     public void searchNoHitLessThanWithOneKeyInLeaf() throws Exception
     {
         // given
-        TreeNode.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
         appendKey( 1L );
 
         // then
@@ -90,7 +90,7 @@ public class KeySearchTest
     public void searchNoHitLessThanWithOneKeyInInternal() throws Exception
     {
         // given
-        TreeNode.initializeInternal( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.initializeInternal( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
         appendKey( 1L );
 
         // then
@@ -103,7 +103,7 @@ public class KeySearchTest
     {
         // given
         long key = 1L;
-        TreeNode.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
         appendKey( key );
 
         // then
@@ -116,7 +116,7 @@ public class KeySearchTest
     {
         // given
         long key = 1L;
-        TreeNode.initializeInternal( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.initializeInternal( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
         appendKey( key );
 
         // then
@@ -128,7 +128,7 @@ public class KeySearchTest
     public void searchNoHitGreaterThanWithOneKeyInLeaf() throws Exception
     {
         // given
-        TreeNode.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
         appendKey( 1L );
 
         // then
@@ -140,7 +140,7 @@ public class KeySearchTest
     public void searchNoHitGreaterThanWithOneKeyInInternal() throws Exception
     {
         // given
-        TreeNode.initializeInternal( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.initializeInternal( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
         appendKey( 1L );
 
         // then
@@ -152,7 +152,7 @@ public class KeySearchTest
     public void searchNoHitGreaterThanWithFullLeaf() throws Exception
     {
         // given
-        TreeNode.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
         for ( int i = 0; i < KEY_COUNT; i++ )
         {
             appendKey( i );
@@ -167,7 +167,7 @@ public class KeySearchTest
     public void searchNoHitGreaterThanWithFullInternal() throws Exception
     {
         // given
-        TreeNode.initializeInternal( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.initializeInternal( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
         for ( int i = 0; i < KEY_COUNT; i++ )
         {
             appendKey( i );
@@ -182,7 +182,7 @@ public class KeySearchTest
     public void searchHitOnLastWithFullLeaf() throws Exception
     {
         // given
-        TreeNode.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
         for ( int i = 0; i < KEY_COUNT; i++ )
         {
             appendKey( i );
@@ -197,7 +197,7 @@ public class KeySearchTest
     public void searchHitOnLastWithFullInternal() throws Exception
     {
         // given
-        TreeNode.initializeInternal( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.initializeInternal( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
         for ( int i = 0; i < KEY_COUNT; i++ )
         {
             appendKey( i );
@@ -212,7 +212,7 @@ public class KeySearchTest
     public void searchHitOnFirstWithFullLeaf() throws Exception
     {
         // given
-        TreeNode.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
         for ( int i = 0; i < KEY_COUNT; i++ )
         {
             appendKey( i );
@@ -227,7 +227,7 @@ public class KeySearchTest
     public void searchHitOnFirstWithFullInternal() throws Exception
     {
         // given
-        TreeNode.initializeInternal( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.initializeInternal( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
         for ( int i = 0; i < KEY_COUNT; i++ )
         {
             appendKey( i );
@@ -242,7 +242,7 @@ public class KeySearchTest
     public void searchNoHitLessThanWithFullLeaf() throws Exception
     {
         // given
-        TreeNode.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
         for ( int i = 0; i < KEY_COUNT; i++ )
         {
             appendKey( i + 1 );
@@ -257,7 +257,7 @@ public class KeySearchTest
     public void searchNoHitLessThanWithFullInternal() throws Exception
     {
         // given
-        TreeNode.initializeInternal( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.initializeInternal( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
         for ( int i = 0; i < KEY_COUNT; i++ )
         {
             appendKey( i + 1 );
@@ -272,7 +272,7 @@ public class KeySearchTest
     public void searchHitOnMiddleWithFullLeaf() throws Exception
     {
         // given
-        TreeNode.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
         for ( int i = 0; i < KEY_COUNT; i++ )
         {
             appendKey( i );
@@ -288,7 +288,7 @@ public class KeySearchTest
     public void searchHitOnMiddleWithFullInternal() throws Exception
     {
         // given
-        TreeNode.initializeInternal( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.initializeInternal( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
         for ( int i = 0; i < KEY_COUNT; i++ )
         {
             appendKey( i );
@@ -304,7 +304,7 @@ public class KeySearchTest
     public void searchNoHitInMiddleWithFullLeaf() throws Exception
     {
         // given
-        TreeNode.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
         for ( int i = 0; i < KEY_COUNT; i++ )
         {
             appendKey( i * 2 );
@@ -320,7 +320,7 @@ public class KeySearchTest
     public void searchNoHitInMiddleWithFullInternal() throws Exception
     {
         // given
-        TreeNode.initializeInternal( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.initializeInternal( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
         for ( int i = 0; i < KEY_COUNT; i++ )
         {
             appendKey( i * 2 );
@@ -338,7 +338,7 @@ public class KeySearchTest
         // given
         long first = 1L;
         long second = 2L;
-        TreeNode.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
         for ( int i = 0; i < KEY_COUNT; i++ )
         {
             long key = i < KEY_COUNT / 2 ? first : second;
@@ -356,7 +356,7 @@ public class KeySearchTest
         // given
         long first = 1L;
         long second = 2L;
-        TreeNode.initializeInternal( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.initializeInternal( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
         for ( int i = 0; i < KEY_COUNT; i++ )
         {
             long key = i < KEY_COUNT / 2 ? first : second;
@@ -375,7 +375,7 @@ public class KeySearchTest
         long first = 1L;
         long second = 2L;
         int middle = KEY_COUNT / 2;
-        TreeNode.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
         for ( int i = 0; i < KEY_COUNT; i++ )
         {
             long key = i < middle ? first : second;
@@ -394,7 +394,7 @@ public class KeySearchTest
         long first = 1L;
         long second = 2L;
         int middle = KEY_COUNT / 2;
-        TreeNode.initializeInternal( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.initializeInternal( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
         for ( int i = 0; i < KEY_COUNT; i++ )
         {
             long key = i < middle ? first : second;
@@ -448,7 +448,7 @@ public class KeySearchTest
     public void shouldSearchAndFindOnRandomData() throws Exception
     {
         // GIVEN a leaf node with random, although sorted (as of course it must be to binary-search), data
-        TreeNode.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
         int internalMaxKeyCount = node.internalMaxKeyCount();
         int half = internalMaxKeyCount / 2;
         int keyCount = random.nextInt( half ) + half;
@@ -523,7 +523,7 @@ public class KeySearchTest
     private void fullLeafWithUniqueKeys()
     {
         // [2,4,8,16,32,64,128,512,1024,2048]
-        TreeNode.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
         MutableLong key = layout.newKey();
         for ( int i = 0; i < KEY_COUNT; i++ )
         {
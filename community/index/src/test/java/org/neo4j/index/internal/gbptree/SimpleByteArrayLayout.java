@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import org.apache.commons.lang3.mutable.MutableLong;
+
+import java.util.Arrays;
+
+import org.neo4j.io.pagecache.PageCursor;
+
+/**
+ * {@link Layout} with keys of variable size, comparing like their bytes, and fixed size values.
+ */
+class SimpleByteArrayLayout extends Layout.Adapter<SimpleByteArrayLayout.RawBytes,MutableLong>
+{
+    static class RawBytes
+    {
+        byte[] bytes = new byte[0];
+
+        RawBytes()
+        {
+        }
+
+        RawBytes( byte[] bytes )
+        {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public boolean equals( Object o )
+        {
+            return o instanceof RawBytes && Arrays.equals( bytes, ((RawBytes) o).bytes );
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Arrays.hashCode( bytes );
+        }
+
+        @Override
+        public String toString()
+        {
+            return Arrays.toString( bytes );
+        }
+    }
+
+    @Override
+    public int compare( RawBytes o1, RawBytes o2 )
+    {
+        int length = Math.min( o1.bytes.length, o2.bytes.length );
+        for ( int i = 0; i < length; i++ )
+        {
+            int compare = Integer.compare( o1.bytes[i] & 0xFF, o2.bytes[i] & 0xFF );
+            if ( compare != 0 )
+            {
+                return compare;
+            }
+        }
+        return Integer.compare( o1.bytes.length, o2.bytes.length );
+    }
+
+    @Override
+    public RawBytes newKey()
+    {
+        return new RawBytes();
+    }
+
+    @Override
+    public RawBytes copyKey( RawBytes key, RawBytes into )
+    {
+        into.bytes = Arrays.copyOf( key.bytes, key.bytes.length );
+        return into;
+    }
+
+    @Override
+    public MutableLong newValue()
+    {
+        return new MutableLong();
+    }
+
+    @Override
+    public int keySize()
+    {
+        return -1;
+    }
+
+    @Override
+    public int keySize( RawBytes key )
+    {
+        return key.bytes.length;
+    }
+
+    @Override
+    public boolean fixedSize()
+    {
+        return false;
+    }
+
+    @Override
+    public int valueSize()
+    {
+        return Long.BYTES;
+    }
+
+    @Override
+    public void writeKey( PageCursor cursor, RawBytes key )
+    {
+        cursor.putBytes( key.bytes );
+    }
+
+    @Override
+    public void writeValue( PageCursor cursor, MutableLong value )
+    {
+        cursor.putLong( value.longValue() );
+    }
+
+    @Override
+    public void readKey( PageCursor cursor, RawBytes into )
+    {
+        throw new UnsupportedOperationException( "Size of key is needed to read it" );
+    }
+
+    @Override
+    public void readKey( PageCursor cursor, RawBytes into, int keySize )
+    {
+        into.bytes = new byte[keySize];
+        cursor.getBytes( into.bytes );
+    }
+
+    @Override
+    public void readValue( PageCursor cursor, MutableLong into )
+    {
+        into.setValue( cursor.getLong() );
+    }
+
+    @Override
+    public long identifier()
+    {
+        return 666;
+    }
+
+    @Override
+    public int majorVersion()
+    {
+        return 0;
+    }
+
+    @Override
+    public int minorVersion()
+    {
+        return 0;
+    }
+}
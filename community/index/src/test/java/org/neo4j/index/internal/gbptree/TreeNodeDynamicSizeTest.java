@@ -0,0 +1,349 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import org.apache.commons.lang3.mutable.MutableLong;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import org.neo4j.index.internal.gbptree.SimpleByteArrayLayout.RawBytes;
+import org.neo4j.io.pagecache.PageCursor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import static org.neo4j.index.internal.gbptree.GenerationSafePointerPair.pointer;
+
+public class TreeNodeDynamicSizeTest
+{
+    private static final int STABLE_GENERATION = 1;
+    private static final int UNSTABLE_GENERATION = 3;
+
+    private static final int PAGE_SIZE = 512;
+    private final PageCursor cursor = new PageAwareByteArrayCursor( PAGE_SIZE );
+    private final SimpleByteArrayLayout layout = new SimpleByteArrayLayout();
+    private final TreeNodeDynamicSize<RawBytes,MutableLong> node = new TreeNodeDynamicSize<>( PAGE_SIZE, layout );
+    private final RawBytes readKey = layout.newKey();
+    private final MutableLong readValue = layout.newValue();
+
+    @Before
+    public void prepareCursor() throws IOException
+    {
+        cursor.next();
+    }
+
+    @Test
+    public void shouldInsertAndReadKeysOfDifferentSizesInLeaf() throws Exception
+    {
+        // GIVEN
+        node.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+
+        // WHEN
+        insertInLeaf( "b", 2, 0, 0 );
+        insertInLeaf( "a much longer key", 1, 0, 1 );
+        insertInLeaf( "c", 3, 2, 2 );
+        TreeNode.setKeyCount( cursor, 3 );
+
+        // THEN
+        assertLeaf( "a much longer key", "b", "c" );
+        assertEquals( 1, node.valueAt( cursor, readValue, 0 ).longValue() );
+        assertEquals( 2, node.valueAt( cursor, readValue, 1 ).longValue() );
+        assertEquals( 3, node.valueAt( cursor, readValue, 2 ).longValue() );
+    }
+
+    @Test
+    public void shouldStoreCommonPrefixOfLeafKeysOnlyOnce() throws Exception
+    {
+        // GIVEN
+        node.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        insertInLeaf( "common/prefix/b", 2, 0, 0 );
+
+        // WHEN
+        insertInLeaf( "common/prefix/a", 1, 0, 1 );
+        insertInLeaf( "common/other", 3, 0, 2 );
+        TreeNode.setKeyCount( cursor, 3 );
+
+        // THEN
+        assertEquals( "common/".length(), TreeNodeDynamicSize.prefixLength( cursor ) );
+        int keyBytes = "common/other".length() + "common/prefix/a".length() + "common/prefix/b".length();
+        int usedBytes = PAGE_SIZE - TreeNodeDynamicSize.allocOffset( cursor );
+        assertTrue( usedBytes < keyBytes + 3 * (Short.BYTES + Long.BYTES) );
+        assertLeaf( "common/other", "common/prefix/a", "common/prefix/b" );
+    }
+
+    @Test
+    public void shouldRemoveKeyValueInLeaf() throws Exception
+    {
+        // GIVEN
+        node.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        insertInLeaf( "a", 1, 0, 0 );
+        insertInLeaf( "bb", 2, 1, 1 );
+        insertInLeaf( "ccc", 3, 2, 2 );
+        TreeNode.setKeyCount( cursor, 3 );
+
+        // WHEN
+        node.removeKeyValueAt( cursor, 1, 3 );
+        TreeNode.setKeyCount( cursor, 2 );
+
+        // THEN
+        assertLeaf( "a", "ccc" );
+        assertEquals( 3, node.valueAt( cursor, readValue, 1 ).longValue() );
+    }
+
+    @Test
+    public void shouldOverflowLeafOnlyWhenKeysNoLongerFit() throws Exception
+    {
+        // GIVEN
+        node.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        int keyCount = 0;
+        RawBytes key = key( 0 );
+
+        // WHEN
+        while ( !node.leafOverflow( cursor, keyCount, key ) )
+        {
+            node.insertKeyValueAt( cursor, key, new MutableLong( keyCount ), keyCount, keyCount );
+            TreeNode.setKeyCount( cursor, ++keyCount );
+            key = key( keyCount );
+        }
+
+        // THEN
+        assertTrue( keyCount > 1 );
+        for ( int i = 0; i < keyCount; i++ )
+        {
+            assertEquals( key( i ), node.keyAt( cursor, readKey, i ) );
+            assertEquals( i, node.valueAt( cursor, readValue, i ).longValue() );
+        }
+    }
+
+    @Test
+    public void shouldInsertReplaceAndRemoveKeysInInternal() throws Exception
+    {
+        // GIVEN
+        node.initializeInternal( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.setChildAt( cursor, 10, 0, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.insertKeyAndRightChildAt( cursor, key( "b" ), 12, 0, 0, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.insertKeyAndRightChildAt( cursor, key( "a" ), 11, 0, 1, STABLE_GENERATION, UNSTABLE_GENERATION );
+        TreeNode.setKeyCount( cursor, 2 );
+
+        // WHEN
+        assertTrue( node.setKeyAtInternal( cursor, key( "a longer key than before" ), 0 ) );
+
+        // THEN
+        assertEquals( key( "a longer key than before" ), node.keyAt( cursor, readKey, 0 ) );
+        assertEquals( key( "b" ), node.keyAt( cursor, readKey, 1 ) );
+        assertChildren( 10, 11, 12 );
+
+        // WHEN
+        node.removeKeyAndRightChildAt( cursor, 0, 2 );
+        TreeNode.setKeyCount( cursor, 1 );
+
+        // THEN
+        assertEquals( key( "b" ), node.keyAt( cursor, readKey, 0 ) );
+        assertChildren( 10, 12 );
+    }
+
+    @Test
+    public void shouldNotReplaceKeyInInternalWhenItDoesNotFit() throws Exception
+    {
+        // GIVEN
+        node.initializeInternal( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.setChildAt( cursor, 10, 0, STABLE_GENERATION, UNSTABLE_GENERATION );
+        int keyCount = 0;
+        while ( !node.internalOverflow( cursor, keyCount, key( keyCount ) ) )
+        {
+            node.insertKeyAndRightChildAt( cursor, key( keyCount ), 11 + keyCount, keyCount, keyCount,
+                    STABLE_GENERATION, UNSTABLE_GENERATION );
+            TreeNode.setKeyCount( cursor, ++keyCount );
+        }
+
+        // WHEN
+        boolean replaced = node.setKeyAtInternal( cursor, new RawBytes( new byte[node.keySizeCap()] ), 0 );
+
+        // THEN
+        assertFalse( replaced );
+        assertEquals( key( 0 ), node.keyAt( cursor, readKey, 0 ) );
+    }
+
+    @Test
+    public void shouldSplitLeafIntoTwoWhichBothFit() throws Exception
+    {
+        // GIVEN
+        PageCursor rightCursor = new PageAwareByteArrayCursor( PAGE_SIZE );
+        rightCursor.next();
+        node.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.initializeLeaf( rightCursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        int keyCount = fillLeaf( cursor );
+        RawBytes newKey = new RawBytes( new byte[node.keySizeCap()] );
+        RawBytes splitter = layout.newKey();
+
+        // WHEN
+        node.doSplitLeaf( cursor, keyCount, rightCursor, 0, newKey, new MutableLong( -1 ), splitter );
+
+        // THEN
+        int leftKeyCount = TreeNode.keyCount( cursor );
+        int rightKeyCount = TreeNode.keyCount( rightCursor );
+        assertEquals( keyCount + 1, leftKeyCount + rightKeyCount );
+        assertTrue( leftKeyCount > 0 && rightKeyCount > 0 );
+        assertEquals( newKey, node.keyAt( cursor, readKey, 0 ) );
+        assertEquals( splitter, node.keyAt( rightCursor, readKey, 0 ) );
+        for ( int i = 1; i < leftKeyCount; i++ )
+        {
+            assertEquals( key( i - 1 ), node.keyAt( cursor, readKey, i ) );
+        }
+        for ( int i = 0; i < rightKeyCount; i++ )
+        {
+            assertEquals( key( leftKeyCount - 1 + i ), node.keyAt( rightCursor, readKey, i ) );
+        }
+    }
+
+    @Test
+    public void shouldMergeLeavesWhichFitInOne() throws Exception
+    {
+        // GIVEN
+        PageCursor rightCursor = new PageAwareByteArrayCursor( PAGE_SIZE );
+        rightCursor.next();
+        node.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.initializeLeaf( rightCursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        insertInLeaf( "prefix/a", 1, 0, 0 );
+        TreeNode.setKeyCount( cursor, 1 );
+        node.insertKeyValueAt( rightCursor, key( "prefix/b" ), new MutableLong( 2 ), 0, 0 );
+        node.insertKeyValueAt( rightCursor, key( "prefix/c" ), new MutableLong( 3 ), 1, 1 );
+        TreeNode.setKeyCount( rightCursor, 2 );
+
+        // WHEN
+        assertTrue( node.canMergeLeaves( cursor, 1, rightCursor, 2 ) );
+        assertFalse( node.canRebalanceLeaves( cursor, 1, rightCursor, 2 ) );
+        node.doMergeLeaves( cursor, 1, rightCursor, 2 );
+
+        // THEN
+        assertEquals( 3, TreeNode.keyCount( rightCursor ) );
+        for ( int i = 0; i < 3; i++ )
+        {
+            assertEquals( key( "prefix/" + (char) ('a' + i) ), node.keyAt( rightCursor, readKey, i ) );
+            assertEquals( i + 1, node.valueAt( rightCursor, readValue, i ).longValue() );
+        }
+    }
+
+    @Test
+    public void shouldRebalanceByMovingKeysFromLeftToRightLeaf() throws Exception
+    {
+        // GIVEN
+        PageCursor rightCursor = new PageAwareByteArrayCursor( PAGE_SIZE );
+        rightCursor.next();
+        node.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.initializeLeaf( rightCursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        int leftKeyCount = fillLeaf( cursor );
+        RawBytes rightKey = new RawBytes( new byte[]{(byte) 0xFF} );
+        node.insertKeyValueAt( rightCursor, rightKey, new MutableLong( -1 ), 0, 0 );
+        TreeNode.setKeyCount( rightCursor, 1 );
+
+        // WHEN
+        assertTrue( node.canRebalanceLeaves( cursor, leftKeyCount, rightCursor, 1 ) );
+        node.doRebalanceLeaves( cursor, leftKeyCount, rightCursor, 1 );
+
+        // THEN
+        int leftKeyCountAfter = TreeNode.keyCount( cursor );
+        int rightKeyCountAfter = TreeNode.keyCount( rightCursor );
+        assertTrue( leftKeyCountAfter < leftKeyCount );
+        assertEquals( leftKeyCount + 1, leftKeyCountAfter + rightKeyCountAfter );
+        assertEquals( key( leftKeyCountAfter ), node.keyAt( rightCursor, readKey, 0 ) );
+        assertEquals( rightKey, node.keyAt( rightCursor, readKey, rightKeyCountAfter - 1 ) );
+    }
+
+    @Test
+    public void shouldNotAcceptKeyLargerThanKeySizeCap() throws Exception
+    {
+        // GIVEN
+        node.validateKeyValueSize( new RawBytes( new byte[node.keySizeCap()] ), new MutableLong() );
+
+        // WHEN
+        try
+        {
+            node.validateKeyValueSize( new RawBytes( new byte[node.keySizeCap() + 1] ), new MutableLong() );
+            fail( "Should have failed" );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            // THEN good
+        }
+    }
+
+    @Test
+    public void shouldNotAcceptPageSizeTooSmallForKeys() throws Exception
+    {
+        try
+        {
+            new TreeNodeDynamicSize<>( 128, layout );
+            fail( "Should have failed" );
+        }
+        catch ( MetadataMismatchException e )
+        {
+            // good
+        }
+    }
+
+    private int fillLeaf( PageCursor cursor )
+    {
+        int keyCount = 0;
+        while ( !node.leafOverflow( cursor, keyCount, key( keyCount ) ) )
+        {
+            node.insertKeyValueAt( cursor, key( keyCount ), new MutableLong( keyCount ), keyCount, keyCount );
+            TreeNode.setKeyCount( cursor, ++keyCount );
+        }
+        return keyCount;
+    }
+
+    private void insertInLeaf( String key, long value, int pos, int keyCount )
+    {
+        node.insertKeyValueAt( cursor, key( key ), new MutableLong( value ), pos, keyCount );
+    }
+
+    private void assertLeaf( String... keys )
+    {
+        assertEquals( keys.length, TreeNode.keyCount( cursor ) );
+        for ( int i = 0; i < keys.length; i++ )
+        {
+            assertEquals( key( keys[i] ), node.keyAt( cursor, readKey, i ) );
+        }
+    }
+
+    private void assertChildren( long... children )
+    {
+        for ( int i = 0; i < children.length; i++ )
+        {
+            assertEquals( children[i], pointer( node.childAt( cursor, i, STABLE_GENERATION, UNSTABLE_GENERATION ) ) );
+        }
+    }
+
+    private static RawBytes key( String key )
+    {
+        return new RawBytes( key.getBytes() );
+    }
+
+    private static RawBytes key( int number )
+    {
+        // Same prefix for all and growing sizes, still sorted by number
+        return key( String.format( "key/%04d/%s", number, new String( new char[number % 20] ).replace( '\0', 'x' ) ) );
+    }
+}
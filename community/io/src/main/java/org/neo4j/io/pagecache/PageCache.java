@@ -23,6 +23,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.OpenOption;
 import java.nio.file.StandardOpenOption;
+import java.util.List;
 import java.util.Optional;
 
 import org.neo4j.io.fs.FileSystemAbstraction;
@@ -78,6 +79,19 @@ public interface PageCache extends AutoCloseable
      */
     Optional<PagedFile> getExistingMapping( File file ) throws IOException;
 
+    /**
+     * List a snapshot of the current file mappings.
+     * <p>
+     * The mappings can change as soon as this method returns, but every returned {@link PagedFile} will stay mapped
+     * until it is closed.
+     * <p>
+     * NOTE! User is responsible for closing all of the returned paged files.
+     *
+     * @return A list of the {@link PagedFile}s that are currently mapped by this {@link PageCache}.
+     * @throws IOException if page cache has been closed or page eviction problems occur.
+     */
+    List<PagedFile> listExistingMappings() throws IOException;
+
     /** Flush all dirty pages */
     void flushAndForce() throws IOException;
 
@@ -88,6 +102,21 @@ public interface PageCache extends AutoCloseable
      */
     void flushAndForce( IOLimiter limiter ) throws IOException;
 
+    /**
+     * Write all dirty pages to their files, but limit the rate of IO as advised by the given IOPSLimiter. Unlike
+     * {@link #flushAndForce(IOLimiter)}, the files are not forced to the storage device, so the written pages are
+     * not guaranteed to be durable. This is for writing dirty pages out ahead of time, such that a later
+     * {@link #flushAndForce(IOLimiter)} has less to do.
+     * <p>
+     * Page caches that cannot write pages without forcing them fall back to {@link #flushAndForce(IOLimiter)}.
+     * @param limiter The {@link IOLimiter} that determines if pauses or sleeps should be injected into the flushing
+     * process to keep the IO rate down.
+     */
+    default void flush( IOLimiter limiter ) throws IOException
+    {
+        flushAndForce( limiter );
+    }
+
     /**
      * Close the page cache to prevent any future mapping of files.
      * This also releases any internal resources, including the {@link PageSwapperFactory} through its
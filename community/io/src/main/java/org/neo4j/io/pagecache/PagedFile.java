@@ -63,17 +63,30 @@ public interface PagedFile extends AutoCloseable
     int PF_NO_GROW = 1 << 2;
     /**
      * Read-ahead hint for sequential forward scanning.
+     * <p>
+     * When page faults on a file are found to be sequential, then the faulting cursor will also read in a number of
+     * the following pages, with a single vectored read, into pages that are readily available in the page cache.
+     * The number of pages read ahead grows as long as the access stays sequential. Random access is unaffected.
      */
-    int PF_READ_AHEAD = 1 << 3; // TBD
+    int PF_READ_AHEAD = 1 << 3;
     /**
-     * Do not load in the page if it is not loaded already. Only useful with
-     * exclusive locking when you want to overwrite the whole page anyway.
+     * Do not load in the page if it is not loaded already.
+     * <p>
+     * The {@link PageCursor#next()} and {@link PageCursor#next(long)} methods will still return {@code true} for
+     * pages that are within the range of the file, but {@link PageCursor#getCurrentPageId()} will return
+     * {@link PageCursor#UNBOUND_PAGE_ID} for the pages that are not in memory. The current page id is therefore the
+     * way to find out if a page is in memory or not. This is useful for inspecting what parts of a file are cached,
+     * without disturbing the contents of the page cache.
      */
-    int PF_NO_FAULT = 1 << 4; // TBD
+    int PF_NO_FAULT = 1 << 4;
     /**
      * Do not update page access statistics.
+     * <p>
+     * Pinning a page that is already in memory will then neither count as a use of the page, for the purpose of
+     * eviction, nor as a cache hit. Combined with {@link #PF_NO_FAULT}, this allows inspecting what parts of a file
+     * are cached without influencing what gets evicted or the reported hit ratios.
      */
-    int PF_TRANSIENT = 1 << 5; // TBD
+    int PF_TRANSIENT = 1 << 5;
     /**
      * Flush pages more aggressively, after they have been dirtied by a write cursor.
      */
@@ -139,6 +152,11 @@ public interface PagedFile extends AutoCloseable
      */
     int pageSize();
 
+    /**
+     * Get the file that this PagedFile is a mapping of.
+     */
+    File file();
+
     /**
      * Size of file, in bytes.
      */
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+/**
+ * The AdmissionFilter decides, at page fault time, if a newly faulted in page should be admitted to the protected
+ * part of the page cache, or be put on probation.
+ *
+ * Pages on probation have not yet proven that they are worth keeping in memory, and will be the first to go when the
+ * eviction sweep needs to free up memory. They are taken off probation, and become protected, the moment they are
+ * accessed again while they are still in memory.
+ *
+ * @see EvictionPolicy
+ */
+interface AdmissionFilter
+{
+    /**
+     * An AdmissionFilter that admits all pages, which makes the eviction a plain clock sweep.
+     */
+    AdmissionFilter ADMIT_ALL = new AdmissionFilter()
+    {
+        @Override
+        public boolean admit( int swapperId, long filePageId )
+        {
+            return true;
+        }
+
+        @Override
+        public void evicted( int swapperId, long filePageId )
+        {
+        }
+
+        @Override
+        public boolean usesProbation()
+        {
+            return false;
+        }
+    };
+
+    /**
+     * Called when the given file page has been faulted into memory.
+     * @return {@code true} if the page should be protected, or {@code false} if it should be put on probation.
+     */
+    boolean admit( int swapperId, long filePageId );
+
+    /**
+     * Called when the given file page has been evicted from memory.
+     */
+    void evicted( int swapperId, long filePageId );
+
+    /**
+     * @return {@code true} if this filter can put pages on probation, which means that the eviction sweep should prefer
+     * evicting probationary pages over aging the protected ones.
+     */
+    boolean usesProbation();
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.unsafe.impl.internal.dragons.MemoryManager;
+
+/**
+ * The eviction policies that the {@link MuninnPageCache} can be configured with.
+ */
+public enum EvictionPolicy
+{
+    /**
+     * A plain clock sweep over the page usage counters. Every page that is faulted in is treated the same, which means
+     * that large scans can push the entire working set out of memory.
+     */
+    CLOCK
+            {
+                @Override
+                AdmissionFilter createAdmissionFilter( int pageCount, MemoryManager memoryManager,
+                        PageCacheTracer tracer )
+                {
+                    return AdmissionFilter.ADMIT_ALL;
+                }
+            },
+    /**
+     * A clock sweep with a frequency based admission filter in front of it. Pages that have not been seen recently
+     * are put on probation when they are faulted in, and the eviction sweep will prefer evicting those over the
+     * protected pages. This keeps the working set in memory in the face of large scans.
+     */
+    SCAN_RESISTANT
+            {
+                @Override
+                AdmissionFilter createAdmissionFilter( int pageCount, MemoryManager memoryManager,
+                        PageCacheTracer tracer )
+                {
+                    return new FrequencyAdmissionFilter( pageCount, memoryManager, tracer );
+                }
+            };
+
+    abstract AdmissionFilter createAdmissionFilter(
+            int pageCount, MemoryManager memoryManager, PageCacheTracer tracer );
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.unsafe.impl.internal.dragons.MemoryManager;
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+import static org.neo4j.unsafe.impl.internal.dragons.FeatureToggles.getInteger;
+
+/**
+ * A TinyLFU-style admission filter, that keeps its state off-heap, next to the {@link PageList}.
+ *
+ * The filter keeps two structures:
+ * <ul>
+ *     <li>A frequency sketch of 4-bit counters, with 16 counters packed into every long word. Each file page is
+ *     hashed to a single word, and to one counter in each of the four quarters of that word. The estimated frequency
+ *     is the minimum of those four counters. The counters are aged incrementally: every {@code sampleSizeFactor}
+ *     recorded accesses, the counters of the next word in the sketch are halved. The whole sketch is thereby halved
+ *     once every {@code sampleSizeFactor} accesses per sketch word, so it keeps favouring recent accesses, without
+ *     any page fault having to pay for aging more than a single word.</li>
+ *     <li>A direct mapped table of ghost entries; the hashes of recently evicted file pages. A page fault that finds
+ *     its own hash in the ghost table is a page that was evicted too early, and it is therefore admitted.</li>
+ * </ul>
+ *
+ * A faulted page is admitted if it is a ghost hit, or if its estimated frequency is at least the admission frequency.
+ * Everything else is put on probation.
+ *
+ * Updates to both structures are intentionally left benignly racy for performance. Lost updates only make the
+ * frequency estimates slightly less precise.
+ */
+final class FrequencyAdmissionFilter implements AdmissionFilter
+{
+    // A page fault is admitted if the frequency sketch has seen the file page at least this many times, including the
+    // current page fault.
+    private static final int admissionFrequency = getInteger(
+            FrequencyAdmissionFilter.class, "admissionFrequency", 2 );
+
+    // One word of the frequency sketch is aged for every this many recorded accesses.
+    private static final int sampleSizeFactor = getInteger( FrequencyAdmissionFilter.class, "sampleSizeFactor", 10 );
+
+    private static final long RESET_MASK = 0x7777_7777_7777_7777L;
+    private static final long COUNTER_MAX = 15;
+    private static final long EMPTY_GHOST = 0;
+
+    private final PageCacheTracer tracer;
+    private final long sketchAddress;
+    private final int sketchMask;
+    private final long ghostAddress;
+    private final int ghostMask;
+    // Racy by design: this is incremented by all faulting threads without synchronisation. A lost increment only
+    // postpones the aging of a word a little, and two threads that see the same count both halve the same word,
+    // which only makes those counters forget a bit faster.
+    private long accessCount;
+
+    FrequencyAdmissionFilter( int pageCount, MemoryManager memoryManager, PageCacheTracer tracer )
+    {
+        this.tracer = tracer;
+        int entries = ceilingPowerOfTwo( Math.max( pageCount, 16 ) );
+        long bytes = ((long) entries) * Long.BYTES;
+        this.sketchAddress = memoryManager.allocateAligned( bytes );
+        this.sketchMask = entries - 1;
+        this.ghostAddress = memoryManager.allocateAligned( bytes );
+        this.ghostMask = entries - 1;
+        UnsafeUtil.setMemory( sketchAddress, bytes, (byte) 0 );
+        UnsafeUtil.setMemory( ghostAddress, bytes, (byte) 0 );
+        UnsafeUtil.fullFence(); // Guarantee the visibility of the cleared memory
+    }
+
+    private static int ceilingPowerOfTwo( int value )
+    {
+        int ceiling = Integer.highestOneBit( value );
+        return ceiling == value ? ceiling : ceiling << 1;
+    }
+
+    @Override
+    public boolean admit( int swapperId, long filePageId )
+    {
+        long hash = hash( swapperId, filePageId );
+        int frequency = incrementAndEstimateFrequency( hash );
+        if ( removeGhost( hash ) )
+        {
+            tracer.ghostHits( 1 );
+            return true;
+        }
+        if ( frequency >= admissionFrequency )
+        {
+            return true;
+        }
+        tracer.admissionsRejected( 1 );
+        return false;
+    }
+
+    @Override
+    public void evicted( int swapperId, long filePageId )
+    {
+        long hash = hash( swapperId, filePageId );
+        UnsafeUtil.putLong( ghostAddress( hash ), hash );
+    }
+
+    @Override
+    public boolean usesProbation()
+    {
+        return true;
+    }
+
+    private static long hash( int swapperId, long filePageId )
+    {
+        // A 64-bit finaliser mix (from MurmurHash3) of the swapper id and file page id.
+        long hash = (filePageId * 0x9E3779B97F4A7C15L) ^ swapperId;
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash == EMPTY_GHOST ? 1 : hash;
+    }
+
+    private long ghostAddress( long hash )
+    {
+        return ghostAddress + (((int) (hash >>> 32) & ghostMask) * (long) Long.BYTES);
+    }
+
+    private boolean removeGhost( long hash )
+    {
+        long address = ghostAddress( hash );
+        if ( UnsafeUtil.getLong( address ) == hash )
+        {
+            UnsafeUtil.putLong( address, EMPTY_GHOST );
+            return true;
+        }
+        return false;
+    }
+
+    private int incrementAndEstimateFrequency( long hash )
+    {
+        long address = sketchAddress + (((int) hash & sketchMask) * (long) Long.BYTES);
+        long word = UnsafeUtil.getLong( address );
+        long min = COUNTER_MAX;
+        for ( int i = 0; i < 4; i++ )
+        {
+            // Pick one of the four counters in the i'th quarter of the word, using a different pair of hash bits
+            // for each quarter.
+            int shift = ((i << 2) + ((int) (hash >>> (16 + (i << 1))) & 3)) << 2;
+            long count = (word >>> shift) & COUNTER_MAX;
+            if ( count < COUNTER_MAX )
+            {
+                count++;
+                word += 1L << shift;
+            }
+            min = Math.min( min, count );
+        }
+        UnsafeUtil.putLong( address, word );
+
+        long count = ++accessCount;
+        if ( count % sampleSizeFactor == 0 )
+        {
+            age( (int) (count / sampleSizeFactor) & sketchMask );
+        }
+        return (int) min;
+    }
+
+    private void age( int wordIndex )
+    {
+        // Halve the counters of the given word, so old accesses are gradually forgotten.
+        long address = sketchAddress + wordIndex * (long) Long.BYTES;
+        UnsafeUtil.putLong( address, (UnsafeUtil.getLong( address ) >>> 1) & RESET_MASK );
+    }
+}
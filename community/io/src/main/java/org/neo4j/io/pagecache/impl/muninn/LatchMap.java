@@ -44,16 +44,46 @@ final class LatchMap
         }
     }
 
-    private static final int faultLockStriping = FeatureToggles.getInteger( LatchMap.class, "faultLockStriping", 128 );
-    private static final long faultLockMask = faultLockStriping - 1;
+    private static final int CACHE_LINE_SIZE = 64;
+    private static final int faultLockStriping = FeatureToggles.getInteger(
+            LatchMap.class, "faultLockStriping", defaultFaultLockStriping() );
     private static final int latchesArrayBase = UnsafeUtil.arrayBaseOffset( Latch[].class );
     private static final int latchesArrayScale = UnsafeUtil.arrayIndexScale( Latch[].class );
+    // Each latch slot is padded out to its own cache line, so that threads that fault in unrelated pages at the same
+    // time do not contend on the cache lines of neighbouring slots.
+    private static final int latchPaddingShift = Integer.numberOfTrailingZeros(
+            Math.max( 1, CACHE_LINE_SIZE / latchesArrayScale ) );
 
     private final Latch[] latches;
+    private final long faultLockMask;
 
     LatchMap()
     {
-        latches = new Latch[faultLockStriping];
+        this( faultLockStriping );
+    }
+
+    /**
+     * @param faultLockStriping the number of latch slots, which must be a power of two.
+     */
+    LatchMap( int faultLockStriping )
+    {
+        if ( Integer.bitCount( faultLockStriping ) != 1 )
+        {
+            throw new IllegalArgumentException(
+                    "Fault lock striping must be a power of two, but was " + faultLockStriping );
+        }
+        latches = new Latch[faultLockStriping << latchPaddingShift];
+        faultLockMask = faultLockStriping - 1;
+    }
+
+    /**
+     * The striping scales with the number of processors, since that is what bounds the number of concurrent page
+     * faults, but is never less than 128.
+     */
+    private static int defaultFaultLockStriping()
+    {
+        int minimumStriping = Math.max( 128, Runtime.getRuntime().availableProcessors() * 4 );
+        return Integer.highestOneBit( minimumStriping - 1 ) << 1;
     }
 
     private long offset( int index )
@@ -104,9 +134,29 @@ final class LatchMap
         return null;
     }
 
+    /**
+     * Like {@link #takeOrAwaitLatch(long)}, except this method never waits. If a latch is already installed for the
+     * given (or any colliding) identifier, then {@code null} is returned immediately.
+     */
+    Latch tryTakeLatch( long identifier )
+    {
+        int index = index( identifier );
+        if ( getLatch( index ) == null )
+        {
+            Latch latch = new Latch();
+            if ( compareAndSetLatch( index, null, latch ) )
+            {
+                latch.latchMap = this;
+                latch.index = index;
+                return latch;
+            }
+        }
+        return null;
+    }
+
     private int index( long identifier )
     {
-        return (int) (mix( identifier ) & faultLockMask);
+        return (int) (mix( identifier ) & faultLockMask) << latchPaddingShift;
     }
 
     private long mix( long identifier )
@@ -22,8 +22,12 @@ package org.neo4j.io.pagecache.impl.muninn;
 import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
 import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -33,6 +37,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.LockSupport;
 
+import org.neo4j.io.IOUtils;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCache;
@@ -117,6 +122,10 @@ public class MuninnPageCache implements PageCache
     private static final int cooperativeEvictionLiveLockThreshold = getInteger(
             MuninnPageCache.class, "cooperativeEvictionLiveLockThreshold", 100 );
 
+    // The max number of threads that will be flushing mapped files concurrently, when the whole page cache is flushed.
+    private static final int flushParallelism = getInteger(
+            MuninnPageCache.class, "flushParallelism", Math.min( 4, Runtime.getRuntime().availableProcessors() ) );
+
     // This is a pre-allocated constant, so we can throw it without allocating any objects:
     @SuppressWarnings( "ThrowableInstanceNeverThrown" )
     private static final IOException oomException = new IOException(
@@ -152,6 +161,7 @@ public class MuninnPageCache implements PageCache
     private final int keepFree;
     private final PageCacheTracer pageCacheTracer;
     private final PageCursorTracerSupplier pageCursorTracerSupplier;
+    private final EvictionPolicy evictionPolicy;
     final PageList pages;
     // All PageCursors are initialised with their pointers pointing to the victim page. This way, we don't have to throw
     // exceptions on bounds checking failures; we can instead return the victim page pointer, and permit the page
@@ -184,6 +194,16 @@ public class MuninnPageCache implements PageCache
     // Flag for when page cache is closed - writes guarded by synchronized(this), reads can be unsynchronized
     private volatile boolean closed;
 
+    // The number of pages the background eviction thread has swept past, since it last found a page on probation.
+    // Only accessed by the eviction thread.
+    private int evictorPagesSinceProbation;
+
+    // The page reservations that are applied to files as they are mapped - guarded by synchronized(this)
+    private final List<PageReservation> pageReservations = new ArrayList<>();
+    // The sum of the reserved pages of all mapped files. Writes guarded by synchronized(this), reads can be
+    // unsynchronized. This never exceeds half of the page cache, so that eviction can always make progress.
+    private volatile int reservedPageCount;
+
     // Only used by ensureThreadsInitialised while holding the monitor lock on this MuninnPageCache instance.
     private boolean threadsInitialised;
 
@@ -205,6 +225,52 @@ public class MuninnPageCache implements PageCache
             int cachePageSize,
             PageCacheTracer pageCacheTracer,
             PageCursorTracerSupplier pageCursorTracerSupplier )
+    {
+        this( swapperFactory, maxPages, cachePageSize, pageCacheTracer, pageCursorTracerSupplier,
+                EvictionPolicy.CLOCK );
+    }
+
+    /**
+     * Create page cache
+     * @param swapperFactory page cache swapper factory
+     * @param maxPages maximum number of pages
+     * @param cachePageSize page cache size
+     * @param pageCacheTracer global page cache tracer
+     * @param pageCursorTracerSupplier supplier of thread local (transaction local) page cursor tracer that will provide
+     * thread local page cache statistics
+     * @param evictionPolicy the policy that decides which pages to keep in memory, and which to evict
+     */
+    public MuninnPageCache(
+            PageSwapperFactory swapperFactory,
+            int maxPages,
+            int cachePageSize,
+            PageCacheTracer pageCacheTracer,
+            PageCursorTracerSupplier pageCursorTracerSupplier,
+            EvictionPolicy evictionPolicy )
+    {
+        this( swapperFactory, maxPages, cachePageSize, pageCacheTracer, pageCursorTracerSupplier, evictionPolicy,
+                false );
+    }
+
+    /**
+     * Create page cache
+     * @param swapperFactory page cache swapper factory
+     * @param maxPages maximum number of pages
+     * @param cachePageSize page cache size
+     * @param pageCacheTracer global page cache tracer
+     * @param pageCursorTracerSupplier supplier of thread local (transaction local) page cursor tracer that will provide
+     * thread local page cache statistics
+     * @param evictionPolicy the policy that decides which pages to keep in memory, and which to evict
+     * @param hugePages {@code true} if the page memory should be allocated in slabs that are aligned to huge pages
+     */
+    public MuninnPageCache(
+            PageSwapperFactory swapperFactory,
+            int maxPages,
+            int cachePageSize,
+            PageCacheTracer pageCacheTracer,
+            PageCursorTracerSupplier pageCursorTracerSupplier,
+            EvictionPolicy evictionPolicy,
+            boolean hugePages )
     {
         verifyHacks();
         verifyCachePageSizeIsPowerOfTwo( cachePageSize );
@@ -216,14 +282,17 @@ public class MuninnPageCache implements PageCache
         this.keepFree = Math.min( pagesToKeepFree, maxPages / 2 );
         this.pageCacheTracer = pageCacheTracer;
         this.pageCursorTracerSupplier = pageCursorTracerSupplier;
+        this.evictionPolicy = evictionPolicy;
         this.printExceptionsOnClose = true;
 
         long alignment = swapperFactory.getRequiredBufferAlignment();
         long expectedMaxMemory = ((long) maxPages) * cachePageSize; // cast to long prevents overflow
-        MemoryManager memoryManager = new MemoryManager( expectedMaxMemory, alignment );
+        MemoryManager memoryManager = new MemoryManager( expectedMaxMemory, alignment, hugePages );
         this.victimPage = VictimPageReference.getVictimPage( cachePageSize );
 
-        this.pages = new PageList( maxPages, cachePageSize, memoryManager, new SwapperSet(), victimPage );
+        AdmissionFilter admissionFilter = evictionPolicy.createAdmissionFilter( maxPages, memoryManager, pageCacheTracer );
+        this.pages = new PageList(
+                maxPages, cachePageSize, memoryManager, new SwapperSet(), victimPage, admissionFilter );
 
         setFreelistHead( new AtomicInteger() );
     }
@@ -345,10 +414,93 @@ public class MuninnPageCache implements PageCache
         current = new FileMapping( file, pagedFile );
         current.next = mappedFiles;
         mappedFiles = current;
-        pageCacheTracer.mappedFile( file );
+        applyPageReservation( file, pagedFile );
+        pageCacheTracer.mappedFile( file, pagedFile.counters );
         return pagedFile;
     }
 
+    /**
+     * Reserve the given fraction of the pages in this page cache, for each of the mapped files whose file name matches
+     * the given glob pattern. As long as such a file has no more pages resident in the cache than it has reserved,
+     * those pages will not be chosen for eviction. The reservations apply both to the files that are already mapped,
+     * and to the files that are mapped later. The first matching reservation wins, and the reservations of all the
+     * mapped files are in total limited to half of the page cache. Reservations that do not fit within that limit are
+     * reduced accordingly.
+     *
+     * @param fileNameGlob a glob pattern, as understood by {@link java.nio.file.FileSystem#getPathMatcher(String)},
+     * which is matched against the name of the mapped files.
+     * @param fraction the fraction of the page cache to reserve for each matching file, between 0 and 1.
+     */
+    public synchronized void reservePages( String fileNameGlob, double fraction )
+    {
+        if ( !(fraction > 0.0 && fraction <= 1.0) )
+        {
+            throw new IllegalArgumentException(
+                    "The reserved fraction must be greater than 0, and at most 1, but was " + fraction );
+        }
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher( "glob:" + fileNameGlob );
+        pageReservations.add( new PageReservation( matcher, fraction ) );
+
+        FileMapping current = mappedFiles;
+        while ( current != null )
+        {
+            applyPageReservation( current.file, current.pagedFile );
+            current = current.next;
+        }
+    }
+
+    private void applyPageReservation( File file, MuninnPagedFile pagedFile )
+    {
+        MuninnPagedFileCounters counters = pagedFile.counters;
+        if ( counters.reservedPages() > 0 )
+        {
+            return;
+        }
+        Path fileName = file.toPath().getFileName();
+        for ( PageReservation reservation : pageReservations )
+        {
+            if ( fileName != null && reservation.matcher.matches( fileName ) )
+            {
+                int available = pages.getPageCount() / 2 - reservedPageCount;
+                int reserved = Math.min( (int) (pages.getPageCount() * reservation.fraction), available );
+                if ( reserved > 0 )
+                {
+                    counters.setReservedPages( reserved );
+                    reservedPageCount += reserved;
+                }
+                return;
+            }
+        }
+    }
+
+    private void releasePageReservation( MuninnPagedFile pagedFile )
+    {
+        int reserved = pagedFile.counters.reservedPages();
+        if ( reserved > 0 )
+        {
+            pagedFile.counters.setReservedPages( 0 );
+            reservedPageCount -= reserved;
+        }
+    }
+
+    @Override
+    public synchronized List<PagedFile> listExistingMappings() throws IOException
+    {
+        assertHealthy();
+        ensureThreadsInitialised();
+
+        List<PagedFile> list = new ArrayList<>();
+        FileMapping current = mappedFiles;
+        while ( current != null )
+        {
+            MuninnPagedFile pagedFile = current.pagedFile;
+            pagedFile.incrementRefCount();
+            list.add( pagedFile );
+            current = current.next;
+        }
+        return list;
+    }
+
     @Override
     public synchronized Optional<PagedFile> getExistingMapping( File file ) throws IOException
     {
@@ -443,6 +595,7 @@ public class MuninnPageCache implements PageCache
                         prev.next = current.next;
                     }
                     pageCacheTracer.unmappedFile( current.file );
+                    releasePageReservation( file );
                     flushAndCloseWithoutFail( file );
                     break;
                 }
@@ -505,17 +658,55 @@ public class MuninnPageCache implements PageCache
         clearEvictorException();
     }
 
+    @Override
+    public void flush( IOLimiter limiter ) throws IOException
+    {
+        if ( limiter == null )
+        {
+            throw new IllegalArgumentException( "IOPSLimiter cannot be null" );
+        }
+        // Not synchronized, so that a slow, rate limited flush does not hold up the mapping and unmapping of files,
+        // or a flushAndForce. The listed files stay mapped until we close them.
+        List<PagedFile> files = listExistingMappings();
+        try ( MajorFlushEvent cacheFlush = pageCacheTracer.beginCacheFlush() )
+        {
+            FlushEventOpportunity flushOpportunity = cacheFlush.flushEventOpportunity();
+            for ( PagedFile file : files )
+            {
+                ((MuninnPagedFile) file).flushInternal( flushOpportunity, false, limiter );
+            }
+        }
+        finally
+        {
+            IOUtils.closeAll( files );
+        }
+        clearEvictorException();
+    }
+
     private void flushAllPages( IOLimiter limiter ) throws IOException
     {
         try ( MajorFlushEvent cacheFlush = pageCacheTracer.beginCacheFlush() )
         {
             FlushEventOpportunity flushOpportunity = cacheFlush.flushEventOpportunity();
+            List<MuninnPagedFile> files = new ArrayList<>();
             FileMapping fileMapping = mappedFiles;
             while ( fileMapping != null )
             {
-                fileMapping.pagedFile.flushAndForceInternal( flushOpportunity, false, limiter );
+                files.add( fileMapping.pagedFile );
                 fileMapping = fileMapping.next;
             }
+            int threads = Math.min( flushParallelism, files.size() );
+            if ( threads > 1 )
+            {
+                new ParallelFileFlush( files, flushOpportunity, limiter ).flush( backgroundThreadExecutor, threads );
+            }
+            else
+            {
+                for ( MuninnPagedFile file : files )
+                {
+                    file.flushAndForceInternal( flushOpportunity, false, limiter );
+                }
+            }
             syncDevice();
         }
     }
@@ -604,6 +795,11 @@ public class MuninnPageCache implements PageCache
         return pages.getPageCount();
     }
 
+    public EvictionPolicy getEvictionPolicy()
+    {
+        return evictionPolicy;
+    }
+
     @Override
     public FileSystemAbstraction getCachedFileSystem()
     {
@@ -637,11 +833,10 @@ public class MuninnPageCache implements PageCache
         // to check and see if it is the shutdownSignal instance. If that's the
         // case, then the page cache has been shut down, and we should throw an
         // exception from our page fault routine.
-        Object current;
         for (;;)
         {
             assertHealthy();
-            current = getFreelistHead();
+            Object current = getFreelistHead();
             if ( current == null )
             {
                 unparkEvictor();
@@ -651,34 +846,75 @@ public class MuninnPageCache implements PageCache
                     return pageRef;
                 }
             }
-            else if ( current instanceof AtomicInteger )
+            else
             {
-                int pageCount = pages.getPageCount();
-                AtomicInteger counter = (AtomicInteger) current;
-                int pageId = counter.get();
-                if ( pageId < pageCount && counter.compareAndSet( pageId, pageId + 1 ) )
-                {
-                    return pages.deref( pageId );
-                }
-                if ( pageId >= pageCount )
+                long pageRef = grabFromFreelist( current );
+                if ( pageRef != 0 )
                 {
-                    compareAndSetFreelistHead( current, null );
+                    return pageRef;
                 }
             }
-            else if ( current instanceof FreePage )
+        }
+    }
+
+    /**
+     * Like {@link #grabFreeAndExclusivelyLockedPage(PageFaultEvent)}, except this method never evicts anything. If the
+     * freelist is empty, then zero is returned instead of a page reference. This is used by read-ahead, which is only
+     * worth doing when there are free pages readily available.
+     */
+    long tryGrabFreeAndExclusivelyLockedPage() throws IOException
+    {
+        for (;;)
+        {
+            assertHealthy();
+            Object current = getFreelistHead();
+            if ( current == null )
             {
-                FreePage freePage = (FreePage) current;
-                if ( freePage == shutdownSignal )
-                {
-                    throw new IllegalStateException( "The PageCache has been shut down." );
-                }
+                unparkEvictor();
+                return 0;
+            }
+            long pageRef = grabFromFreelist( current );
+            if ( pageRef != 0 )
+            {
+                return pageRef;
+            }
+        }
+    }
 
-                if ( compareAndSetFreelistHead( freePage, freePage.next ) )
-                {
-                    return freePage.pageRef;
-                }
+    /**
+     * Try to take the given freelist head off the freelist. Returns the reference to the grabbed page, or zero if we
+     * raced with another thread and must look at the freelist again.
+     */
+    private long grabFromFreelist( Object current )
+    {
+        if ( current instanceof AtomicInteger )
+        {
+            int pageCount = pages.getPageCount();
+            AtomicInteger counter = (AtomicInteger) current;
+            int pageId = counter.get();
+            if ( pageId < pageCount && counter.compareAndSet( pageId, pageId + 1 ) )
+            {
+                return pages.deref( pageId );
+            }
+            if ( pageId >= pageCount )
+            {
+                compareAndSetFreelistHead( current, null );
+            }
+        }
+        else if ( current instanceof FreePage )
+        {
+            FreePage freePage = (FreePage) current;
+            if ( freePage == shutdownSignal )
+            {
+                throw new IllegalStateException( "The PageCache has been shut down." );
+            }
+
+            if ( compareAndSetFreelistHead( freePage, freePage.next ) )
+            {
+                return freePage.pageRef;
             }
         }
+        return 0;
     }
 
     private long cooperativelyEvict( PageFaultEvent faultEvent ) throws IOException
@@ -686,6 +922,7 @@ public class MuninnPageCache implements PageCache
         int iterations = 0;
         int pageCount = pages.getPageCount();
         int clockArm = ThreadLocalRandom.current().nextInt( pageCount );
+        int pagesSinceProbation = 0;
         boolean evicted = false;
         long pageRef;
         do
@@ -707,7 +944,10 @@ public class MuninnPageCache implements PageCache
             }
 
             pageRef = pages.deref( clockArm );
-            if ( pages.isLoaded( pageRef ) && pages.decrementUsage( pageRef ) )
+            // Only loaded pages count as being on probation, since free pages have no use for their usage stamp
+            boolean loaded = pages.isLoaded( pageRef );
+            pagesSinceProbation = loaded && pages.isOnProbation( pageRef ) ? 0 : pagesSinceProbation + 1;
+            if ( loaded && isEvictionCandidate( pageRef, pagesSinceProbation ) )
             {
                 evicted = pages.tryEvict( pageRef, faultEvent );
             }
@@ -846,7 +1086,9 @@ public class MuninnPageCache implements PageCache
             }
 
             long pageRef = pages.deref( clockArm );
-            if ( pages.isLoaded( pageRef ) && pages.decrementUsage( pageRef ) )
+            boolean loaded = pages.isLoaded( pageRef );
+            evictorPagesSinceProbation = loaded && pages.isOnProbation( pageRef ) ? 0 : evictorPagesSinceProbation + 1;
+            if ( loaded && isEvictionCandidate( pageRef, evictorPagesSinceProbation ) )
             {
                 try
                 {
@@ -878,7 +1120,29 @@ public class MuninnPageCache implements PageCache
         return clockArm;
     }
 
-    private void addFreePageToFreelist( long pageRef )
+    /**
+     * Decide if the clock arm should try to evict the given page. Pages on probation are always candidates.
+     * Protected pages get their usage stamp decremented, and become candidates when it reaches zero. However, if the
+     * eviction policy puts pages on probation, then the protected pages are only aged once the clock arm has gone a
+     * full revolution without coming across any pages on probation. This way, pages brought in by large scans are
+     * evicted before the working set. Pages of files that are within their {@link #reservePages(String, double) page
+     * reservation} are never candidates.
+     */
+    private boolean isEvictionCandidate( long pageRef, int pagesSinceProbation )
+    {
+        if ( reservedPageCount > 0 && pages.isProtectedByReservation( pageRef ) )
+        {
+            return false;
+        }
+        if ( pages.isOnProbation( pageRef ) )
+        {
+            return true;
+        }
+        return (pagesSinceProbation >= pages.getPageCount() || !pages.usesProbation()) &&
+               pages.decrementUsage( pageRef );
+    }
+
+    void addFreePageToFreelist( long pageRef )
     {
         Object current;
         FreePage freePage = new FreePage( pageRef );
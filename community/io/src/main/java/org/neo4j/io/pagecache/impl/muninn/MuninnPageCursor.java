@@ -32,6 +32,9 @@ import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
 
 import static org.neo4j.io.pagecache.PagedFile.PF_EAGER_FLUSH;
+import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
+import static org.neo4j.io.pagecache.PagedFile.PF_TRANSIENT;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
 import static org.neo4j.io.pagecache.impl.muninn.MuninnPagedFile.UNMAPPED_TTE;
 import static org.neo4j.unsafe.impl.internal.dragons.FeatureToggles.flag;
@@ -249,7 +252,13 @@ abstract class MuninnPageCursor extends PageCursor
                 if ( locked & pagedFile.isBoundTo( pageRef, swapperId, filePageId ) )
                 {
                     pinCursorToPage( pageRef, filePageId, swapper );
-                    pinEvent.hit();
+                    if ( (pf_flags & PF_TRANSIENT) == 0 )
+                    {
+                        // Page faults count their own usage, in PageList.fault, so only hits increment it here.
+                        pagedFile.incrementUsage( pageRef );
+                        pinEvent.hit();
+                        pagedFile.counters.hit();
+                    }
                     return;
                 }
                 if ( locked )
@@ -274,6 +283,12 @@ abstract class MuninnPageCursor extends PageCursor
 
     private boolean uncommonPin( long filePageId, long chunkOffset, int[] chunk ) throws IOException
     {
+        if ( (pf_flags & PF_NO_FAULT) == PF_NO_FAULT )
+        {
+            // The page is not in memory, and we've been asked not to fault it in, so the cursor stays unbound.
+            pinEvent.done();
+            return true;
+        }
         // Looks like there's no mapping, so we'd like to do a page fault.
         LatchMap.Latch latch = pagedFile.pageFaultLatches.takeOrAwaitLatch( filePageId );
         if ( latch != null )
@@ -287,6 +302,10 @@ abstract class MuninnPageCursor extends PageCursor
                 // Sweet, we didn't race with any other fault on this translation table entry.
                 long pageRef = pageFault( filePageId, swapper, chunkOffset, chunk, latch );
                 pinCursorToPage( pageRef, filePageId, swapper );
+                if ( (pf_flags & PF_READ_AHEAD) == PF_READ_AHEAD )
+                {
+                    readAhead( filePageId );
+                }
                 return true;
             }
             // Oops, looks like we raced with another page fault on this file page.
@@ -357,6 +376,127 @@ abstract class MuninnPageCursor extends PageCursor
         return pageRef;
     }
 
+    private void readAhead( long faultedFilePageId ) throws IOException
+    {
+        // The read-ahead is done synchronously, by the thread that took the page fault, and only into pages that are
+        // immediately available on the freelist. We never wait for latches held by other page faults, so we cannot
+        // deadlock, and we grab all the pages and latches before we do any IO, so the whole window can be read with
+        // a single vectored read. The read-ahead stops short at the first page that is already mapped, is currently
+        // being faulted in by someone else, or for which we cannot get a free page.
+        long lastPageId = assertPagedFileStillMappedAndGetIdOfLastPage();
+        int window = pagedFile.computeReadAheadWindow( faultedFilePageId, lastPageId );
+        if ( window == 0 )
+        {
+            return;
+        }
+        long startFilePageId = faultedFilePageId + 1;
+        long[] pageRefs = new long[window];
+        int[][] chunks = new int[window][];
+        long[] chunkOffsets = new long[window];
+        LatchMap.Latch[] latches = new LatchMap.Latch[window];
+        int length = 0;
+        try
+        {
+            for ( ; length < window; length++ )
+            {
+                long filePageId = startFilePageId + length;
+                int chunkId = MuninnPagedFile.computeChunkId( filePageId );
+                int[][] tt = pagedFile.translationTable;
+                if ( tt.length <= chunkId )
+                {
+                    tt = expandTranslationTableCapacity( chunkId );
+                }
+                int[] chunk = tt[chunkId];
+                long chunkOffset = MuninnPagedFile.computeChunkOffset( filePageId );
+                if ( UnsafeUtil.getIntVolatile( chunk, chunkOffset ) != UNMAPPED_TTE )
+                {
+                    break;
+                }
+                LatchMap.Latch latch = pagedFile.pageFaultLatches.tryTakeLatch( filePageId );
+                if ( latch == null )
+                {
+                    break;
+                }
+                // Record the latch, and the page once we have it, before calling anything that might throw, so an
+                // abort will release them.
+                chunks[length] = chunk;
+                chunkOffsets[length] = chunkOffset;
+                latches[length] = latch;
+                if ( UnsafeUtil.getIntVolatile( chunk, chunkOffset ) != UNMAPPED_TTE )
+                {
+                    latches[length] = null;
+                    latch.release();
+                    break;
+                }
+                long pageRef = pagedFile.tryGrabFreeAndExclusivelyLockedPage();
+                if ( pageRef == 0 )
+                {
+                    latches[length] = null;
+                    latch.release();
+                    break;
+                }
+                pageRefs[length] = pageRef;
+                pagedFile.initBuffer( pageRef );
+            }
+        }
+        catch ( Throwable throwable )
+        {
+            // Also abort the entry we were in the middle of setting up, if we got as far as taking its latch.
+            abortReadAhead( pageRefs, chunks, chunkOffsets, latches, length + 1 );
+            throw throwable;
+        }
+        pagedFile.readAheadCompleted( faultedFilePageId, length );
+        if ( length == 0 )
+        {
+            return;
+        }
+
+        PageFaultEvent faultEvent = pinEvent.beginPageFault();
+        try
+        {
+            // Check if we're racing with unmapping, just like a normal page fault does.
+            assertPagedFileStillMappedAndGetIdOfLastPage();
+            pagedFile.fault( pageRefs, length, swapper, pagedFile.swapperId, startFilePageId, faultEvent );
+        }
+        catch ( Throwable throwable )
+        {
+            abortReadAhead( pageRefs, chunks, chunkOffsets, latches, length );
+            faultEvent.done( throwable );
+            throw throwable;
+        }
+        for ( int i = 0; i < length; i++ )
+        {
+            long pageRef = pageRefs[i];
+            UnsafeUtil.putIntVolatile( chunks[i], chunkOffsets[i], pagedFile.toId( pageRef ) );
+            pagedFile.unlockExclusive( pageRef );
+            latches[i].release();
+        }
+        faultEvent.done();
+    }
+
+    private void abortReadAhead( long[] pageRefs, int[][] chunks, long[] chunkOffsets, LatchMap.Latch[] latches,
+                                 int length )
+    {
+        for ( int i = 0; i < length && latches[i] != null; i++ )
+        {
+            long pageRef = pageRefs[i];
+            if ( pageRef != 0 ) // Zero if we failed before we got a page for this entry
+            {
+                if ( pagedFile.isLoaded( pageRef ) )
+                {
+                    // Unlocking the page without publishing it, lets the eviction thread pick it up again.
+                    pagedFile.unlockExclusive( pageRef );
+                }
+                else
+                {
+                    pagedFile.releaseFreePage( pageRef );
+                }
+            }
+            UnsafeUtil.putIntVolatile( chunks[i], chunkOffsets[i], UNMAPPED_TTE );
+            latches[i].release();
+        }
+    }
+
     private void abortPageFault( Throwable throwable, int[] chunk, long chunkOffset,
                                  LatchMap.Latch latch,
                                  PageFaultEvent faultEvent ) throws IOException
@@ -40,6 +40,7 @@ import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.PageFaultEvent;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracerSupplier;
+import org.neo4j.unsafe.impl.internal.dragons.FeatureToggles;
 import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
 
 final class MuninnPagedFile extends PageList implements PagedFile, Flushable
@@ -59,6 +60,13 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
     private static final long headerStateRefCountMask = 0x7FFF_0000_0000_0000L;
     private static final long headerStateLastPageIdMask = 0x8000_FFFF_FFFF_FFFFL;
 
+    // The read-ahead window starts out at this many pages, once sequential page faults have been detected.
+    private static final int readAheadMinPages =
+            FeatureToggles.getInteger( MuninnPagedFile.class, "readAheadMinPages", 4 );
+    // The read-ahead window doubles with every sequential page fault, up to this many pages.
+    private static final int readAheadMaxPages =
+            FeatureToggles.getInteger( MuninnPagedFile.class, "readAheadMaxPages", 32 );
+
     final MuninnPageCache pageCache;
     final int filePageSize;
     final PageCacheTracer pageCacheTracer;
@@ -70,6 +78,7 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
 
     final PageSwapper swapper;
     final int swapperId;
+    final MuninnPagedFileCounters counters;
     private final CursorPool cursorPool;
 
     // Guarded by the monitor lock on MuninnPageCache (map and unmap)
@@ -78,6 +87,11 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
     // Used to trace the causes of any exceptions from getLastPageId.
     private volatile Exception closeStackTrace;
 
+    // Sequential access detection for cursors with the PF_READ_AHEAD flag. These fields are deliberately racy, since
+    // a lost update can at worst cause us to skip or shrink a read-ahead, which does not affect correctness.
+    private long readAheadNextPageId = PageCursor.UNBOUND_PAGE_ID;
+    private int readAheadWindow;
+
     /**
      * The header state includes both the reference count of the PagedFile – 15 bits – and the ID of the last page in
      * the file – 48 bits, plus an empty file marker bit. Because our pages are usually 2^13 bytes, this means that we
@@ -158,7 +172,8 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         translationTable = tt;
 
         initialiseLastPageId( lastPageId );
-        this.swapperId = getSwappers().allocate( swapper );
+        this.counters = new MuninnPagedFileCounters( file );
+        this.swapperId = getSwappers().allocate( swapper, counters );
     }
 
     @Override
@@ -212,7 +227,8 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         return (lastPageId + 1) * pageSize();
     }
 
-    File file()
+    @Override
+    public File file()
     {
         return swapper.file();
     }
@@ -344,6 +360,16 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
 
     void flushAndForceInternal( FlushEventOpportunity flushOpportunity, boolean forClosing, IOLimiter limiter )
             throws IOException
+    {
+        flushInternal( flushOpportunity, forClosing, limiter );
+        swapper.force();
+    }
+
+    /**
+     * Write all the dirty pages of this file to the file, without forcing the file to the storage device.
+     */
+    void flushInternal( FlushEventOpportunity flushOpportunity, boolean forClosing, IOLimiter limiter )
+            throws IOException
     {
         // TODO it'd be awesome if, on Linux, we'd call sync_file_range(2) instead of fsync
         long[] pages = new long[translationTableChunkSize];
@@ -352,12 +378,14 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         long filePageId = -1; // Start at -1 because we increment at the *start* of the chunk-loop iteration.
         long limiterStamp = IOLimiter.INITIAL_STAMP;
         int[][] tt = this.translationTable;
+        // Runs of dirty pages are allowed to continue across chunk boundaries, so the vectors only end when we find a
+        // page that is not dirty, or when the vector is full.
+        int pagesGrabbed = 0;
         for ( int[] chunk : tt )
         {
             // TODO Look into if we can tolerate flushing a few clean pages if it means we can use larger vectors.
             // TODO The clean pages in question must still be loaded, though. Otherwise we'll end up writing
             // TODO garbage to the file.
-            int pagesGrabbed = 0;
             chunkLoop:
             for ( int i = 0; i < chunk.length; i++ )
             {
@@ -395,6 +423,13 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
                             }
                             bufferAddresses[pagesGrabbed] = getAddress( pageRef );
                             pagesGrabbed++;
+                            if ( pagesGrabbed == pages.length )
+                            {
+                                vectoredFlush( pages, bufferAddresses, flushStamps, pagesGrabbed, flushOpportunity,
+                                        forClosing );
+                                limiterStamp = limiter.maybeLimitIO( limiterStamp, pagesGrabbed, this );
+                                pagesGrabbed = 0;
+                            }
                             continue chunkLoop;
                         }
                         else if ( forClosing )
@@ -415,14 +450,12 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
                     pagesGrabbed = 0;
                 }
             }
-            if ( pagesGrabbed > 0 )
-            {
-                vectoredFlush( pages, bufferAddresses, flushStamps, pagesGrabbed, flushOpportunity, forClosing );
-                limiterStamp = limiter.maybeLimitIO( limiterStamp, pagesGrabbed, this );
-            }
         }
-
-        swapper.force();
+        if ( pagesGrabbed > 0 )
+        {
+            vectoredFlush( pages, bufferAddresses, flushStamps, pagesGrabbed, flushOpportunity, forClosing );
+            limiter.maybeLimitIO( limiterStamp, pagesGrabbed, this );
+        }
     }
 
     private void vectoredFlush(
@@ -643,6 +676,54 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         return pageCache.grabFreeAndExclusivelyLockedPage( faultEvent );
     }
 
+    /**
+     * Grab a free page for the purpose of reading ahead, but only if one is immediately available on the freelist.
+     * @return The reference to the grabbed page, or zero if the freelist is empty.
+     */
+    long tryGrabFreeAndExclusivelyLockedPage() throws IOException
+    {
+        return pageCache.tryGrabFreeAndExclusivelyLockedPage();
+    }
+
+    /**
+     * Give an exclusively locked page, that was grabbed but never faulted into, back to the freelist.
+     */
+    void releaseFreePage( long pageRef )
+    {
+        pageCache.addFreePageToFreelist( pageRef );
+    }
+
+    /**
+     * Compute how many pages following the given file page should be read ahead, after a page fault on it by a cursor
+     * with the {@link PagedFile#PF_READ_AHEAD} flag. Nothing is read ahead unless the fault continues where the
+     * previous fault or read-ahead left off. The window then grows with every sequential fault, but it never grows
+     * beyond a small fraction of the page cache, or beyond the end of the file.
+     * @param filePageId The file page that was just faulted in.
+     * @param lastPageId The current last page id of the file.
+     * @return The number of pages to read ahead, which might be zero.
+     */
+    int computeReadAheadWindow( long filePageId, long lastPageId )
+    {
+        int window = 0;
+        if ( filePageId == readAheadNextPageId )
+        {
+            int maxWindow = Math.min( readAheadMaxPages, getPageCount() >> 4 );
+            window = Math.min( Math.max( readAheadMinPages, readAheadWindow << 1 ), maxWindow );
+            window = (int) Math.max( 0, Math.min( window, lastPageId - filePageId ) );
+        }
+        readAheadWindow = window;
+        readAheadNextPageId = filePageId + 1;
+        return window;
+    }
+
+    /**
+     * Record that the given number of pages were read ahead, following the given faulted file page.
+     */
+    void readAheadCompleted( long filePageId, int pagesRead )
+    {
+        readAheadNextPageId = filePageId + 1 + pagesRead;
+    }
+
     /**
      * Remove the mapping of the given filePageId from the translation table, and return the evicted page object.
      * @param filePageId The id of the file page to evict.
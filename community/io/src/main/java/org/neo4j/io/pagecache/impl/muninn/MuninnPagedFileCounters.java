@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.neo4j.helpers.MathUtil;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
+
+/**
+ * The per-file counters of a {@link MuninnPagedFile}. The resident page count is maintained by {@link PageList} as
+ * pages are faulted in and evicted, and is compared against the reserved page count, to decide if the pages of the
+ * file are currently protected from eviction.
+ */
+final class MuninnPagedFileCounters implements PagedFileCounters
+{
+    private final File file;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder faults = new LongAdder();
+    private final AtomicInteger residentPages = new AtomicInteger();
+    private volatile int reservedPages;
+
+    MuninnPagedFileCounters( File file )
+    {
+        this.file = file;
+    }
+
+    @Override
+    public File file()
+    {
+        return file;
+    }
+
+    @Override
+    public long hits()
+    {
+        return hits.sum();
+    }
+
+    @Override
+    public long faults()
+    {
+        return faults.sum();
+    }
+
+    @Override
+    public double hitRatio()
+    {
+        return MathUtil.portion( hits(), faults() );
+    }
+
+    @Override
+    public int residentPages()
+    {
+        return residentPages.get();
+    }
+
+    @Override
+    public int reservedPages()
+    {
+        return reservedPages;
+    }
+
+    void hit()
+    {
+        hits.increment();
+    }
+
+    void faulted( int pageCount )
+    {
+        faults.add( pageCount );
+        residentPages.addAndGet( pageCount );
+    }
+
+    void evicted()
+    {
+        residentPages.decrementAndGet();
+    }
+
+    void setReservedPages( int reservedPages )
+    {
+        this.reservedPages = reservedPages;
+    }
+
+    /**
+     * @return {@code true} if the file is within its reservation, such that its pages should not be evicted.
+     */
+    boolean isProtected()
+    {
+        int reserved = reservedPages;
+        return reserved > 0 && residentPages.get() <= reserved;
+    }
+}
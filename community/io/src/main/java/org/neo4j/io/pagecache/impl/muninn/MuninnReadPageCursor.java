@@ -57,7 +57,8 @@ final class MuninnReadPageCursor extends MuninnPageCursor
             return false;
         }
         pin( nextPageId, false );
-        currentPageId = nextPageId;
+        // The cursor is left unbound if the page was not in memory, and the PF_NO_FAULT flag was given.
+        currentPageId = pinnedPageRef == 0 ? UNBOUND_PAGE_ID : nextPageId;
         nextPageId++;
         return true;
     }
@@ -78,7 +79,6 @@ final class MuninnReadPageCursor extends MuninnPageCursor
     protected void pinCursorToPage( long pageRef, long filePageId, PageSwapper swapper )
     {
         reset( pageRef );
-        pagedFile.incrementUsage( pageRef );
     }
 
     @Override
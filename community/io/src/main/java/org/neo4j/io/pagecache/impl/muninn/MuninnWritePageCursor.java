@@ -94,7 +94,8 @@ final class MuninnWritePageCursor extends MuninnPageCursor
             }
         }
         pin( nextPageId, true );
-        currentPageId = nextPageId;
+        // The cursor is left unbound if the page was not in memory, and the PF_NO_FAULT flag was given.
+        currentPageId = pinnedPageRef == 0 ? UNBOUND_PAGE_ID : nextPageId;
         nextPageId++;
         return true;
     }
@@ -123,7 +124,6 @@ final class MuninnWritePageCursor extends MuninnPageCursor
         // after the reset() call, which means that if we throw, the cursor will
         // be closed and the page lock will be released.
         assertPagedFileStillMappedAndGetIdOfLastPage();
-        pagedFile.incrementUsage( pageRef );
     }
 
     @Override
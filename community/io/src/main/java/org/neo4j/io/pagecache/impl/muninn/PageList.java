@@ -43,7 +43,8 @@ import static java.lang.String.format;
  *     <tr><td>8</td><td>Pointer to the memory page.</td></tr>
  *     <tr><td>8</td><td>File page id.</td></tr>
  *     <tr><td>4</td><td>Page swapper id.</td></tr>
- *     <tr><td>1</td><td>Usage stamp. Optimistically incremented; truncated to a max of 4.</td></tr>
+ *     <tr><td>1</td><td>Usage stamp. Optimistically incremented; truncated to a max of 4. The high bit is set while
+ *     the page is on probation, see {@link AdmissionFilter}.</td></tr>
  *     <tr><td>3</td><td>Padding.</td></tr>
  * </table>
  */
@@ -55,6 +56,8 @@ class PageList
     private static final int OFFSET_FILE_PAGE_ID = 16; // 8 bytes
     private static final int OFFSET_SWAPPER_ID = 24; // 4 bytes
     private static final int OFFSET_USAGE_COUNTER = 28; // 1 byte
+    private static final byte USAGE_COUNTER_MASK = 0x7F;
+    private static final byte PROBATION_BIT = (byte) 0x80;
     // todo it's possible to reduce the overhead of the individual page to just 24 bytes,
     // todo because the file page id can be represented with 5 bytes (enough to address 8-4 PBs),
     // todo and then the usage counter can use the high bits of that word, and the swapper id
@@ -92,14 +95,22 @@ class PageList
     private final SwapperSet swappers;
     private final long victimPageAddress;
     private final long baseAddress;
+    private final AdmissionFilter admissionFilter;
 
     PageList( int pageCount, int cachePageSize, MemoryManager memoryManager, SwapperSet swappers, long victimPageAddress )
+    {
+        this( pageCount, cachePageSize, memoryManager, swappers, victimPageAddress, AdmissionFilter.ADMIT_ALL );
+    }
+
+    PageList( int pageCount, int cachePageSize, MemoryManager memoryManager, SwapperSet swappers,
+            long victimPageAddress, AdmissionFilter admissionFilter )
     {
         this.pageCount = pageCount;
         this.cachePageSize = cachePageSize;
         this.memoryManager = memoryManager;
         this.swappers = swappers;
         this.victimPageAddress = victimPageAddress;
+        this.admissionFilter = admissionFilter;
         long bytes = pageCount * META_DATA_BYTES_PER_PAGE;
         this.baseAddress = memoryManager.allocateAligned( bytes );
         clearMemory( baseAddress, pageCount );
@@ -120,6 +131,7 @@ class PageList
         this.swappers = pageList.swappers;
         this.victimPageAddress = pageList.victimPageAddress;
         this.baseAddress = pageList.baseAddress;
+        this.admissionFilter = pageList.admissionFilter;
     }
 
     private void clearMemory( long baseAddress, long pageCount )
@@ -288,15 +300,17 @@ class PageList
     }
 
     /**
-     * Increment the usage stamp to at most 4.
+     * Increment the usage stamp to at most 4. This also takes the page off probation, if it was on probation.
      **/
     public void incrementUsage( long pageRef )
     {
         // This is intentionally left benignly racy for performance.
         byte usage = getUsageCounter( pageRef );
-        if ( usage < 4 ) // avoid cache sloshing by not doing a write if counter is already maxed out
+        // avoid cache sloshing by not doing a write if counter is already maxed out.
+        // Pages on probation have the high bit set, and thus a negative usage counter.
+        if ( usage < 4 )
         {
-            usage++;
+            usage = (byte) ((usage & USAGE_COUNTER_MASK) + 1);
             setUsageCounter( pageRef, usage );
         }
     }
@@ -307,7 +321,7 @@ class PageList
     public boolean decrementUsage( long pageRef )
     {
         // This is intentionally left benignly racy for performance.
-        byte usage = getUsageCounter( pageRef );
+        byte usage = (byte) (getUsageCounter( pageRef ) & USAGE_COUNTER_MASK);
         if ( usage > 0 )
         {
             usage--;
@@ -316,6 +330,22 @@ class PageList
         return usage == 0;
     }
 
+    /**
+     * @return {@code true} if the page was put on probation when it was faulted in, and has not been accessed since.
+     */
+    public boolean isOnProbation( long pageRef )
+    {
+        return getUsageCounter( pageRef ) < 0;
+    }
+
+    /**
+     * @return {@code true} if the eviction policy can put pages on probation.
+     */
+    public boolean usesProbation()
+    {
+        return admissionFilter.usesProbation();
+    }
+
     public long getFilePageId( long pageRef )
     {
         return UnsafeUtil.getLong( offFilePageId( pageRef ) );
@@ -371,7 +401,81 @@ class PageList
         long bytesRead = swapper.read( filePageId, getAddress( pageRef ), cachePageSize );
         event.addBytesRead( bytesRead );
         event.setCachePageId( toId( pageRef ) );
+        // The page fault counts as the first usage of the page, unless the page is put on probation.
+        boolean admitted = admissionFilter.admit( swapperId, filePageId );
+        setUsageCounter( pageRef, admitted ? 1 : (byte) (PROBATION_BIT | 1) );
         setSwapperId( pageRef, swapperId ); // Page now considered isBoundTo( swapper, filePageId )
+        countFaults( swapperId, 1 );
+    }
+
+    /**
+     * Fault the given consecutive range of file pages into the given exclusively locked cache pages, using a single
+     * vectored read. The page at index {@code i} in the {@code pageRefs} array is bound to the file page
+     * {@code startFilePageId + i}. The same binding rules as for {@link #fault(long, PageSwapper, int, long,
+     * PageFaultEvent)} applies to every page in the range.
+     */
+    public void fault( long[] pageRefs, int length, PageSwapper swapper, int swapperId, long startFilePageId,
+                       PageFaultEvent event ) throws IOException
+    {
+        if ( swapper == null )
+        {
+            throw swapperCannotBeNull();
+        }
+        long[] bufferAddresses = new long[length];
+        for ( int i = 0; i < length; i++ )
+        {
+            long pageRef = pageRefs[i];
+            long filePageId = startFilePageId + i;
+            int currentSwapper = getSwapperId( pageRef );
+            long currentFilePageId = getFilePageId( pageRef );
+            if ( filePageId == PageCursor.UNBOUND_PAGE_ID || !isExclusivelyLocked( pageRef )
+                 || currentSwapper != 0 || currentFilePageId != PageCursor.UNBOUND_PAGE_ID )
+            {
+                throw cannotFaultException(
+                        pageRef, swapper, swapperId, filePageId, currentSwapper, currentFilePageId );
+            }
+            bufferAddresses[i] = getAddress( pageRef );
+        }
+        // As with single page faults, the file page ids are assigned before we swap in, and the swapper ids after.
+        for ( int i = 0; i < length; i++ )
+        {
+            setFilePageId( pageRefs[i], startFilePageId + i );
+        }
+        long bytesRead = swapper.read( startFilePageId, bufferAddresses, cachePageSize, 0, length );
+        event.addBytesRead( bytesRead );
+        event.setCachePageId( toId( pageRefs[0] ) );
+        for ( int i = 0; i < length; i++ )
+        {
+            long pageRef = pageRefs[i];
+            boolean admitted = admissionFilter.admit( swapperId, startFilePageId + i );
+            setUsageCounter( pageRef, admitted ? 1 : (byte) (PROBATION_BIT | 1) );
+            setSwapperId( pageRef, swapperId );
+        }
+        countFaults( swapperId, length );
+    }
+
+    private void countFaults( int swapperId, int pageCount )
+    {
+        SwapperSet.SwapperMapping swapperMapping = swappers.getAllocation( swapperId );
+        if ( swapperMapping != null && swapperMapping.counters != null )
+        {
+            swapperMapping.counters.faulted( pageCount );
+        }
+    }
+
+    /**
+     * Check if the given page is bound to a file that currently has no more pages resident than it has reserved, in
+     * which case the page should not be evicted.
+     */
+    public boolean isProtectedByReservation( long pageRef )
+    {
+        int swapperId = getSwapperId( pageRef );
+        if ( swapperId == 0 )
+        {
+            return false;
+        }
+        SwapperSet.SwapperMapping swapperMapping = swappers.getAllocation( swapperId );
+        return swapperMapping != null && swapperMapping.counters != null && swapperMapping.counters.isProtected();
     }
 
     private static IllegalArgumentException swapperCannotBeNull()
@@ -429,7 +533,12 @@ class PageList
                     flushModifiedPage( pageRef, evictionEvent, filePageId, swapper );
                 }
                 swapper.evicted( filePageId );
+                if ( swapperMapping.counters != null )
+                {
+                    swapperMapping.counters.evicted();
+                }
             }
+            admissionFilter.evicted( swapperId, filePageId );
         }
         clearBinding( pageRef );
     }
@@ -460,6 +569,8 @@ class PageList
     {
         setFilePageId( pageRef, PageCursor.UNBOUND_PAGE_ID );
         setSwapperId( pageRef, 0 );
+        // Evicted pages must not look like they are on probation, or still in use, to the eviction clock arm
+        setUsageCounter( pageRef, (byte) 0 );
     }
 
     public String toString( long pageRef )
@@ -475,7 +586,8 @@ class PageList
         sb.append( ", address = " ).append( getAddress( pageRef ) );
         sb.append( ", filePageId = " ).append( getFilePageId( pageRef ) );
         sb.append( ", swapperId = " ).append( getSwapperId( pageRef ) );
-        sb.append( ", usageCounter = " ).append( getUsageCounter( pageRef ) );
+        sb.append( ", usageCounter = " ).append( getUsageCounter( pageRef ) & USAGE_COUNTER_MASK );
+        sb.append( ", probation = " ).append( isOnProbation( pageRef ) );
         sb.append( " ] " ).append( OffHeapPageLock.toString( offLock( pageRef ) ) );
     }
 }
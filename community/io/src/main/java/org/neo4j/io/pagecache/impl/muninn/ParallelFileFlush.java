@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.tracing.FlushEventOpportunity;
+
+/**
+ * Flushes and forces a number of {@link MuninnPagedFile files} using a number of threads, such that multiple files
+ * are flushed at the same time. The threads take turns picking the next file to flush, until all files have been
+ * flushed.
+ * <p>
+ * All of the threads share a single {@link IOLimiter} stamp. Calls to the limiter are serialised, so a limiter that
+ * pauses will pause all the flushing threads. This way, the parallel flush does no more IO than the limiter would
+ * allow a single thread to do, and the IO budget that the limiter leaves for foreground work is preserved.
+ */
+final class ParallelFileFlush implements IOLimiter
+{
+    private final List<MuninnPagedFile> files;
+    private final FlushEventOpportunity flushOpportunity;
+    private final IOLimiter limiter;
+    private final AtomicInteger nextFile;
+    private long limiterStamp = IOLimiter.INITIAL_STAMP; // Guarded by synchronized(this)
+    private IOException failure; // Guarded by synchronized(this)
+
+    ParallelFileFlush( List<MuninnPagedFile> files, FlushEventOpportunity flushOpportunity, IOLimiter limiter )
+    {
+        this.files = files;
+        this.flushOpportunity = flushOpportunity;
+        this.limiter = limiter;
+        this.nextFile = new AtomicInteger();
+    }
+
+    /**
+     * Flush all the files, using the calling thread and {@code threads - 1} threads from the given executor.
+     * This method returns when all the files have been flushed, or have failed to flush.
+     * @throws IOException If any of the files could not be flushed. Any further exceptions are added as suppressed.
+     */
+    void flush( Executor executor, int threads ) throws IOException
+    {
+        CountDownLatch helpersDone = new CountDownLatch( threads - 1 );
+        for ( int i = 1; i < threads; i++ )
+        {
+            executor.execute( () ->
+            {
+                try
+                {
+                    flushFiles();
+                }
+                finally
+                {
+                    helpersDone.countDown();
+                }
+            } );
+        }
+        flushFiles();
+        awaitUninterruptibly( helpersDone );
+
+        IOException exception;
+        synchronized ( this )
+        {
+            exception = failure;
+        }
+        if ( exception != null )
+        {
+            throw exception;
+        }
+    }
+
+    private void flushFiles()
+    {
+        int index;
+        while ( (index = nextFile.getAndIncrement()) < files.size() )
+        {
+            try
+            {
+                files.get( index ).flushAndForceInternal( flushOpportunity, false, this );
+            }
+            catch ( Throwable e )
+            {
+                addFailure( e );
+            }
+        }
+    }
+
+    private synchronized void addFailure( Throwable e )
+    {
+        IOException exception = e instanceof IOException ? (IOException) e : new IOException( e );
+        if ( failure == null )
+        {
+            failure = exception;
+        }
+        else
+        {
+            failure.addSuppressed( exception );
+        }
+    }
+
+    private static void awaitUninterruptibly( CountDownLatch latch )
+    {
+        // We must not return before all the flushing threads are done, since the files might otherwise be unmapped
+        // while they are still being flushed.
+        boolean interrupted = false;
+        for (;;)
+        {
+            try
+            {
+                latch.await();
+                break;
+            }
+            catch ( InterruptedException e )
+            {
+                interrupted = true;
+            }
+        }
+        if ( interrupted )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public synchronized long maybeLimitIO( long previousStamp, int recentlyCompletedIOs, Flushable flushable )
+            throws IOException
+    {
+        // The stamps given to us by the individual files are ignored, in favour of the shared stamp.
+        limiterStamp = limiter.maybeLimitIO( limiterStamp, recentlyCompletedIOs, flushable );
+        return limiterStamp;
+    }
+
+    @Override
+    public void disableLimit()
+    {
+        limiter.disableLimit();
+    }
+
+    @Override
+    public void enableLimit()
+    {
+        limiter.enableLimit();
+    }
+}
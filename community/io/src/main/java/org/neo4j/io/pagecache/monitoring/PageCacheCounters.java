@@ -19,6 +19,8 @@
  */
 package org.neo4j.io.pagecache.monitoring;
 
+import java.util.Collection;
+
 /**
  * The PageCacheCounters exposes internal counters from the page cache.
  * The data for these counters is sourced through the PageCacheTracer API.
@@ -84,4 +86,40 @@ public interface PageCacheCounters
      * @return The cache hit ratio observed thus far.
      */
     double hitRatio();
+
+    /**
+     * @return The number of page faults whose pages were not admitted to the protected part of the cache thus far.
+     */
+    long admissionsRejected();
+
+    /**
+     * @return The number of page faults for recently evicted pages, that were remembered by the eviction policy.
+     */
+    long ghostHits();
+
+    /**
+     * @return The number of bytes per second written by the most recently completed flush of the whole page cache,
+     * or zero if no such flush has completed yet.
+     */
+    long flushThroughput();
+
+    /**
+     * @return The counters of the individual files that are currently mapped, for page caches that keep such counters.
+     */
+    Collection<PagedFileCounters> pagedFileCounters();
+
+    /**
+     * Notify the given listener about files being mapped and unmapped, starting with the files that are mapped
+     * already. Page caches that keep no counters per file never notify the listener.
+     */
+    default void addPagedFileCountersListener( PagedFileCountersListener listener )
+    {
+    }
+
+    /**
+     * Stop notifying the given listener about files being mapped and unmapped.
+     */
+    default void removePagedFileCountersListener( PagedFileCountersListener listener )
+    {
+    }
 }
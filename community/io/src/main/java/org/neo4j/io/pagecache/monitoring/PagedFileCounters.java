@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.monitoring;
+
+import java.io.File;
+
+/**
+ * The PagedFileCounters exposes the internal counters that the page cache keeps for a single mapped file.
+ */
+public interface PagedFileCounters
+{
+    /**
+     * @return The file that these counters are for.
+     */
+    File file();
+
+    /**
+     * @return The number of page cache hits on pages of this file so far.
+     */
+    long hits();
+
+    /**
+     * @return The number of page faults on pages of this file so far.
+     */
+    long faults();
+
+    /**
+     * @return The cache hit ratio observed for this file thus far.
+     */
+    double hitRatio();
+
+    /**
+     * @return The number of pages of this file that are currently resident in the page cache.
+     */
+    int residentPages();
+
+    /**
+     * @return The number of cache pages that are reserved for this file. As long as no more than this many pages of
+     * the file are resident, those pages will not be chosen for eviction.
+     */
+    int reservedPages();
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.monitoring;
+
+import java.io.File;
+
+/**
+ * Notified about files being mapped and unmapped by a page cache that keeps {@link PagedFileCounters} per file, so
+ * that the counters of a file can be picked up as soon as the file is mapped.
+ */
+public interface PagedFileCountersListener
+{
+    /**
+     * The file of the given counters has been mapped. The counters remain valid until the file is
+     * {@link #unmapped(File) unmapped}. A listener may be notified more than once about the same file.
+     */
+    void mapped( PagedFileCounters counters );
+
+    /**
+     * The last reference to the given file has been unmapped, and its counters are no longer updated.
+     */
+    void unmapped( File file );
+}
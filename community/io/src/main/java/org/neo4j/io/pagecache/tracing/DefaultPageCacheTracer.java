@@ -21,10 +21,19 @@ package org.neo4j.io.pagecache.tracing;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.LongAdder;
 
 import org.neo4j.helpers.MathUtil;
 import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
+import org.neo4j.io.pagecache.monitoring.PagedFileCountersListener;
 
 /**
  * The default PageCacheTracer implementation, that just increments counters.
@@ -42,6 +51,11 @@ public class DefaultPageCacheTracer implements PageCacheTracer
     protected final LongAdder filesMapped = new LongAdder();
     protected final LongAdder filesUnmapped = new LongAdder();
     protected final LongAdder evictionExceptions = new LongAdder();
+    protected final LongAdder admissionsRejected = new LongAdder();
+    protected final LongAdder ghostHits = new LongAdder();
+    protected volatile long flushThroughput;
+    protected final ConcurrentMap<File,PagedFileCounters> pagedFileCounters = new ConcurrentHashMap<>();
+    private final List<PagedFileCountersListener> pagedFileCountersListeners = new CopyOnWriteArrayList<>();
 
     private final FlushEvent flushEvent = new FlushEvent()
     {
@@ -141,10 +155,28 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         filesMapped.increment();
     }
 
+    @Override
+    public void mappedFile( File file, PagedFileCounters counters )
+    {
+        mappedFile( file );
+        pagedFileCounters.put( file, counters );
+        for ( PagedFileCountersListener listener : pagedFileCountersListeners )
+        {
+            listener.mapped( counters );
+        }
+    }
+
     @Override
     public void unmappedFile( File file )
     {
         filesUnmapped.increment();
+        if ( pagedFileCounters.remove( file ) != null )
+        {
+            for ( PagedFileCountersListener listener : pagedFileCountersListeners )
+            {
+                listener.unmapped( file );
+            }
+        }
     }
 
     @Override
@@ -162,7 +194,7 @@ public class DefaultPageCacheTracer implements PageCacheTracer
     @Override
     public MajorFlushEvent beginCacheFlush()
     {
-        return majorFlushEvent;
+        return new CacheFlushEvent();
     }
 
     @Override
@@ -237,6 +269,46 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         return MathUtil.portion( hits(), faults() );
     }
 
+    @Override
+    public long admissionsRejected()
+    {
+        return admissionsRejected.sum();
+    }
+
+    @Override
+    public long ghostHits()
+    {
+        return ghostHits.sum();
+    }
+
+    @Override
+    public long flushThroughput()
+    {
+        return flushThroughput;
+    }
+
+    @Override
+    public Collection<PagedFileCounters> pagedFileCounters()
+    {
+        return Collections.unmodifiableCollection( pagedFileCounters.values() );
+    }
+
+    @Override
+    public void addPagedFileCountersListener( PagedFileCountersListener listener )
+    {
+        pagedFileCountersListeners.add( listener );
+        for ( PagedFileCounters counters : pagedFileCounters.values() )
+        {
+            listener.mapped( counters );
+        }
+    }
+
+    @Override
+    public void removePagedFileCountersListener( PagedFileCountersListener listener )
+    {
+        pagedFileCountersListeners.remove( listener );
+    }
+
     @Override
     public void pins( long pins )
     {
@@ -290,4 +362,70 @@ public class DefaultPageCacheTracer implements PageCacheTracer
     {
         this.flushes.add( flushes );
     }
+
+    @Override
+    public void admissionsRejected( long admissionsRejected )
+    {
+        this.admissionsRejected.add( admissionsRejected );
+    }
+
+    @Override
+    public void ghostHits( long ghostHits )
+    {
+        this.ghostHits.add( ghostHits );
+    }
+
+    /**
+     * Flushes of the whole page cache can be carried out by multiple threads at once, so this event counts its bytes
+     * with an adder, and computes the achieved throughput when it is closed.
+     */
+    private class CacheFlushEvent implements MajorFlushEvent, FlushEventOpportunity, FlushEvent
+    {
+        private final LongAdder cacheFlushBytesWritten = new LongAdder();
+        private final long startNanos = System.nanoTime();
+
+        @Override
+        public FlushEventOpportunity flushEventOpportunity()
+        {
+            return this;
+        }
+
+        @Override
+        public FlushEvent beginFlush( long filePageId, long cachePageId, PageSwapper swapper )
+        {
+            return this;
+        }
+
+        @Override
+        public void addBytesWritten( long bytes )
+        {
+            bytesWritten.add( bytes );
+            cacheFlushBytesWritten.add( bytes );
+        }
+
+        @Override
+        public void done()
+        {
+            flushes.increment();
+        }
+
+        @Override
+        public void done( IOException exception )
+        {
+            done();
+        }
+
+        @Override
+        public void addPagesFlushed( int pageCount )
+        {
+        }
+
+        @Override
+        public void close()
+        {
+            long elapsedNanos = Math.max( 1, System.nanoTime() - startNanos );
+            double seconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos( 1 );
+            flushThroughput = (long) (cacheFlushBytesWritten.sum() / seconds);
+        }
+    }
 }
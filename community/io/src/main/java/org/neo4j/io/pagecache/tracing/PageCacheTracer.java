@@ -20,9 +20,12 @@
 package org.neo4j.io.pagecache.tracing;
 
 import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
 
 import org.neo4j.io.pagecache.PageSwapper;
 import org.neo4j.io.pagecache.monitoring.PageCacheCounters;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
 
 /**
  * A PageCacheTracer receives a steady stream of events and data about what
@@ -41,6 +44,11 @@ public interface PageCacheTracer extends PageCacheCounters
         {
         }
 
+        @Override
+        public void mappedFile( File file, PagedFileCounters counters )
+        {
+        }
+
         @Override
         public void unmappedFile( File file )
         {
@@ -136,6 +144,30 @@ public interface PageCacheTracer extends PageCacheCounters
             return 0d;
         }
 
+        @Override
+        public long admissionsRejected()
+        {
+            return 0;
+        }
+
+        @Override
+        public long ghostHits()
+        {
+            return 0;
+        }
+
+        @Override
+        public long flushThroughput()
+        {
+            return 0;
+        }
+
+        @Override
+        public Collection<PagedFileCounters> pagedFileCounters()
+        {
+            return Collections.emptyList();
+        }
+
         @Override
         public void pins( long pins )
         {
@@ -181,6 +213,16 @@ public interface PageCacheTracer extends PageCacheCounters
         {
         }
 
+        @Override
+        public void admissionsRejected( long admissionsRejected )
+        {
+        }
+
+        @Override
+        public void ghostHits( long ghostHits )
+        {
+        }
+
         @Override
         public String toString()
         {
@@ -193,6 +235,12 @@ public interface PageCacheTracer extends PageCacheCounters
      */
     void mappedFile( File file );
 
+    /**
+     * The given file has been mapped, where no existing mapping for that file existed, and the page cache keeps the
+     * given counters for the file. The counters remain valid until the file is {@link #unmappedFile(File) unmapped}.
+     */
+    void mappedFile( File file, PagedFileCounters counters );
+
     /**
      * The last reference to the given file has been unmapped.
      */
@@ -270,4 +318,16 @@ public interface PageCacheTracer extends PageCacheCounters
      * @param flushes number of flushes
      */
     void flushes( long flushes );
+
+    /**
+     * Report number of page faults that the eviction policy did not admit to the protected part of the cache
+     * @param admissionsRejected number of rejected admissions
+     */
+    void admissionsRejected( long admissionsRejected );
+
+    /**
+     * Report number of page faults for pages that the eviction policy remembered as recently evicted
+     * @param ghostHits number of ghost hits
+     */
+    void ghostHits( long ghostHits );
 }
@@ -22,6 +22,7 @@ package org.neo4j.io.pagecache.checking;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.OpenOption;
+import java.util.List;
 import java.util.Optional;
 
 import org.neo4j.io.pagecache.DelegatingPageCache;
@@ -54,4 +55,15 @@ public class AccessCheckingPageCache extends DelegatingPageCache
     {
         return super.getExistingMapping( file );
     }
+
+    @Override
+    public List<PagedFile> listExistingMappings() throws IOException
+    {
+        List<PagedFile> list = super.listExistingMappings();
+        for ( int i = 0; i < list.size(); i++ )
+        {
+            list.set( i, new AccessCheckingPagedFile( list.get( i ) ) );
+        }
+        return list;
+    }
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.neo4j.io.ByteUnit;
+import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
+import org.neo4j.unsafe.impl.internal.dragons.MemoryManager;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class FrequencyAdmissionFilterTest
+{
+    private static final int PAGE_COUNT = 1 << 16;
+
+    private DefaultPageCacheTracer tracer;
+    private FrequencyAdmissionFilter filter;
+
+    @Before
+    public void setUp()
+    {
+        tracer = new DefaultPageCacheTracer();
+        MemoryManager mman = new MemoryManager( ByteUnit.mebiBytes( 2 ), 8 );
+        filter = new FrequencyAdmissionFilter( PAGE_COUNT, mman, tracer );
+    }
+
+    @Test
+    public void mustPutPageOnProbationTheFirstTimeItIsFaultedIn() throws Exception
+    {
+        assertFalse( filter.admit( 1, 42 ) );
+        assertThat( tracer.admissionsRejected(), is( 1L ) );
+        assertThat( tracer.ghostHits(), is( 0L ) );
+    }
+
+    @Test
+    public void mustAdmitPageThatIsFaultedInRepeatedly() throws Exception
+    {
+        assertFalse( filter.admit( 1, 42 ) );
+        assertTrue( filter.admit( 1, 42 ) );
+        assertThat( tracer.admissionsRejected(), is( 1L ) );
+    }
+
+    @Test
+    public void mustNotConfusePagesFromDifferentSwappers() throws Exception
+    {
+        assertFalse( filter.admit( 1, 42 ) );
+        assertFalse( filter.admit( 2, 42 ) );
+        assertThat( tracer.admissionsRejected(), is( 2L ) );
+    }
+
+    @Test
+    public void mustAdmitAndCountGhostHitsForRecentlyEvictedPages() throws Exception
+    {
+        filter.evicted( 1, 42 );
+        assertTrue( filter.admit( 1, 42 ) );
+        assertThat( tracer.ghostHits(), is( 1L ) );
+        assertThat( tracer.admissionsRejected(), is( 0L ) );
+    }
+
+    @Test
+    public void ghostEntryMustOnlyBeHitOnce() throws Exception
+    {
+        filter.evicted( 1, 42 );
+        filter.admit( 1, 42 );
+        filter.admit( 1, 42 );
+        assertThat( tracer.ghostHits(), is( 1L ) );
+    }
+
+    @Test
+    public void sequentialScanMustMostlyBePutOnProbation() throws Exception
+    {
+        int scanPages = PAGE_COUNT / 4;
+        for ( int i = 0; i < scanPages; i++ )
+        {
+            filter.admit( 1, i );
+        }
+        // We allow a few false admissions from hash collisions in the frequency sketch.
+        assertTrue( tracer.admissionsRejected() > scanPages * 0.95 );
+    }
+
+    @Test
+    public void mustForgetOldAccessesAsTheSketchIsAged() throws Exception
+    {
+        assertFalse( filter.admit( 1, 42 ) );
+
+        // Enough accesses to some other page, to age every word of the sketch a couple of times over
+        for ( int i = 0; i < PAGE_COUNT * 100; i++ )
+        {
+            filter.admit( 2, 7 );
+        }
+
+        assertFalse( filter.admit( 1, 42 ) );
+    }
+
+    @Test
+    public void onlyScanResistantEvictionPolicyMustUseProbation() throws Exception
+    {
+        MemoryManager mman = new MemoryManager( ByteUnit.mebiBytes( 2 ), 8 );
+        assertFalse( EvictionPolicy.CLOCK.createAdmissionFilter( PAGE_COUNT, mman, tracer ).usesProbation() );
+        assertTrue( EvictionPolicy.SCAN_RESISTANT.createAdmissionFilter( PAGE_COUNT, mman, tracer ).usesProbation() );
+    }
+}
@@ -90,4 +90,49 @@ public class LatchMapTest
         latches.takeOrAwaitLatch( 42 ).release();
         latches.takeOrAwaitLatch( 42 ).release();
     }
+
+    @Test
+    public void tryTakeLatchMustReturnLatchIfAvailable() throws Exception
+    {
+        BinaryLatch latch = latches.tryTakeLatch( 42 );
+        assertThat( latch, is( notNullValue() ) );
+        latch.release();
+    }
+
+    @Test
+    public void tryTakeLatchMustReturnNullWithoutWaitingIfLatchIsTaken() throws Exception
+    {
+        BinaryLatch latch = latches.takeOrAwaitLatch( 42 );
+        assertThat( latches.tryTakeLatch( 42 ), is( nullValue() ) );
+        latch.release();
+        latches.tryTakeLatch( 42 ).release();
+    }
+
+    @Test
+    public void mustBeAbleToTakeAsManyUnrelatedLatchesAsThereAreStripes() throws Exception
+    {
+        int stripes = 16;
+        LatchMap stripedLatches = new LatchMap( stripes );
+        int taken = 0;
+        BinaryLatch[] held = new BinaryLatch[stripes];
+        for ( long identifier = 0; taken < stripes; identifier++ )
+        {
+            BinaryLatch latch = stripedLatches.tryTakeLatch( identifier );
+            if ( latch != null )
+            {
+                held[taken++] = latch;
+            }
+            assertThat( "all stripes must be reachable", identifier < 100_000, is( true ) );
+        }
+        for ( BinaryLatch latch : held )
+        {
+            latch.release();
+        }
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void stripingMustBeAPowerOfTwo() throws Exception
+    {
+        new LatchMap( 100 );
+    }
 }
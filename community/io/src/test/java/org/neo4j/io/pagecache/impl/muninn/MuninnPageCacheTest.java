@@ -25,13 +25,17 @@ import org.junit.Test;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.neo4j.graphdb.mockfs.DelegatingFileSystemAbstraction;
 import org.neo4j.graphdb.mockfs.DelegatingStoreChannel;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCacheTest;
 import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.PagedFile;
@@ -46,15 +50,19 @@ import org.neo4j.io.pagecache.tracing.recording.RecordingPageCursorTracer;
 import org.neo4j.io.pagecache.tracing.recording.RecordingPageCursorTracer.Fault;
 
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
 import static org.neo4j.io.pagecache.PagedFile.PF_NO_GROW;
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_TRANSIENT;
 import static org.neo4j.io.pagecache.tracing.recording.RecordingPageCacheTracer.Evict;
 
 public class MuninnPageCacheTest extends PageCacheTest<MuninnPageCache>
@@ -342,6 +350,356 @@ public class MuninnPageCacheTest extends PageCacheTest<MuninnPageCache>
         }
     }
 
+    @Test
+    public void mustReadAheadWhenPageFaultsAreSequential() throws Exception
+    {
+        int filePages = 64;
+        writePageIdsTo( file( "a" ), filePages );
+        RecordingPageCursorTracer cursorTracer = new RecordingPageCursorTracer();
+        ConfigurablePageCursorTracerSupplier cursorTracerSupplier = new ConfigurablePageCursorTracerSupplier( cursorTracer );
+
+        try ( MuninnPageCache pageCache = createPageCache( fs, 256, 8, PageCacheTracer.NULL, cursorTracerSupplier );
+              PagedFile pagedFile = pageCache.map( file( "a" ), 8 ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_READ_AHEAD ) )
+            {
+                for ( long pageId = 0; pageId < filePages; pageId++ )
+                {
+                    assertTrue( cursor.next() );
+                    long value;
+                    do
+                    {
+                        value = cursor.getLong();
+                    }
+                    while ( cursor.shouldRetry() );
+                    assertThat( value, is( pageId ) );
+                }
+                assertFalse( cursor.next() );
+            }
+            assertThat( cursorTracer.faults(), lessThan( (long) filePages / 2 ) );
+        }
+    }
+
+    @Test
+    public void mustNotReadAheadWithoutReadAheadFlag() throws Exception
+    {
+        int filePages = 64;
+        writePageIdsTo( file( "a" ), filePages );
+        RecordingPageCursorTracer cursorTracer = new RecordingPageCursorTracer();
+        ConfigurablePageCursorTracerSupplier cursorTracerSupplier = new ConfigurablePageCursorTracerSupplier( cursorTracer );
+
+        try ( MuninnPageCache pageCache = createPageCache( fs, 256, 8, PageCacheTracer.NULL, cursorTracerSupplier );
+              PagedFile pagedFile = pageCache.map( file( "a" ), 8 ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK ) )
+            {
+                for ( long pageId = 0; pageId < filePages; pageId++ )
+                {
+                    assertTrue( cursor.next() );
+                }
+            }
+            assertThat( cursorTracer.faults(), is( (long) filePages ) );
+        }
+    }
+
+    @Test
+    public void mustNotReadAheadOnRandomPageFaults() throws Exception
+    {
+        int filePages = 64;
+        writePageIdsTo( file( "a" ), filePages );
+        RecordingPageCursorTracer cursorTracer = new RecordingPageCursorTracer();
+        ConfigurablePageCursorTracerSupplier cursorTracerSupplier = new ConfigurablePageCursorTracerSupplier( cursorTracer );
+
+        try ( MuninnPageCache pageCache = createPageCache( fs, 256, 8, PageCacheTracer.NULL, cursorTracerSupplier );
+              PagedFile pagedFile = pageCache.map( file( "a" ), 8 ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_READ_AHEAD ) )
+            {
+                for ( long pageId = 0; pageId < filePages; pageId += 2 )
+                {
+                    assertTrue( cursor.next( pageId ) );
+                }
+            }
+            assertThat( cursorTracer.faults(), is( (long) filePages / 2 ) );
+        }
+    }
+
+    @Test
+    public void flushingMultipleFilesMustWriteAllDirtyPagesWithoutConcurrentCallsToTheLimiter() throws Exception
+    {
+        int filePages = 100;
+        File[] files = {file( "a" ), file( "b" ), file( "c" ), file( "d" )};
+        AtomicBoolean limiterBusy = new AtomicBoolean();
+        AtomicInteger limiterIOs = new AtomicInteger();
+
+        try ( MuninnPageCache pageCache = createPageCache( fs, 1024, 8, PageCacheTracer.NULL,
+                DefaultPageCursorTracerSupplier.NULL ) )
+        {
+            PagedFile[] pagedFiles = new PagedFile[files.length];
+            for ( int i = 0; i < files.length; i++ )
+            {
+                pagedFiles[i] = pageCache.map( files[i], 8 );
+                try ( PageCursor cursor = pagedFiles[i].io( 0, PF_SHARED_WRITE_LOCK ) )
+                {
+                    for ( long pageId = 0; pageId < filePages; pageId++ )
+                    {
+                        assertTrue( cursor.next() );
+                        cursor.putLong( pageId );
+                    }
+                }
+            }
+
+            pageCache.flushAndForce( ( previousStamp, recentlyCompletedIOs, flushable ) ->
+            {
+                assertTrue( "limiter must not be called concurrently", limiterBusy.compareAndSet( false, true ) );
+                limiterIOs.addAndGet( recentlyCompletedIOs );
+                limiterBusy.set( false );
+                return previousStamp + 1;
+            } );
+
+            for ( PagedFile pagedFile : pagedFiles )
+            {
+                pagedFile.close();
+            }
+        }
+
+        assertThat( limiterIOs.get(), is( files.length * filePages ) );
+        for ( File file : files )
+        {
+            ByteBuffer buffer = ByteBuffer.allocate( 8 * filePages );
+            try ( StoreChannel channel = fs.open( file, "r" ) )
+            {
+                while ( buffer.hasRemaining() && channel.read( buffer ) != -1 )
+                {
+                    // Keep reading until the buffer is full.
+                }
+            }
+            buffer.flip();
+            for ( long pageId = 0; pageId < filePages; pageId++ )
+            {
+                assertThat( buffer.getLong(), is( pageId ) );
+            }
+        }
+    }
+
+    @Test
+    public void flushMustWriteAllDirtyPagesWithoutForcingTheFiles() throws Exception
+    {
+        int filePages = 100;
+        AtomicInteger forces = new AtomicInteger();
+        FileSystemAbstraction fs = new DelegatingFileSystemAbstraction( this.fs )
+        {
+            @Override
+            public StoreChannel open( File fileName, String mode ) throws IOException
+            {
+                return new DelegatingStoreChannel( super.open( fileName, mode ) )
+                {
+                    @Override
+                    public void force( boolean metaData ) throws IOException
+                    {
+                        forces.incrementAndGet();
+                        super.force( metaData );
+                    }
+                };
+            }
+        };
+
+        try ( MuninnPageCache pageCache = createPageCache( fs, 1024, 8, PageCacheTracer.NULL,
+                DefaultPageCursorTracerSupplier.NULL );
+              PagedFile pagedFile = pageCache.map( file( "a" ), 8 ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                for ( long pageId = 0; pageId < filePages; pageId++ )
+                {
+                    assertTrue( cursor.next() );
+                    cursor.putLong( pageId );
+                }
+            }
+
+            pageCache.flush( IOLimiter.unlimited() );
+
+            assertThat( forces.get(), is( 0 ) );
+            ByteBuffer buffer = ByteBuffer.allocate( 8 * filePages );
+            try ( StoreChannel channel = this.fs.open( file( "a" ), "r" ) )
+            {
+                while ( buffer.hasRemaining() && channel.read( buffer ) != -1 )
+                {
+                    // Keep reading until the buffer is full.
+                }
+            }
+            buffer.flip();
+            for ( long pageId = 0; pageId < filePages; pageId++ )
+            {
+                assertThat( buffer.getLong(), is( pageId ) );
+            }
+        }
+    }
+
+    @Test
+    public void pagesOfFileWithinItsReservationMustNotBeEvicted() throws Exception
+    {
+        int reservedFilePages = 5;
+        int scannedFilePages = 200;
+        writePageIdsTo( file( "a" ), reservedFilePages );
+        writePageIdsTo( file( "b" ), scannedFilePages );
+
+        try ( MuninnPageCache pageCache = createPageCache( fs, 20, 8, PageCacheTracer.NULL,
+                DefaultPageCursorTracerSupplier.NULL ) )
+        {
+            pageCache.reservePages( "a", 0.25 );
+            try ( PagedFile pagedFileA = pageCache.map( file( "a" ), 8 );
+                  PagedFile pagedFileB = pageCache.map( file( "b" ), 8 ) )
+            {
+                MuninnPagedFileCounters counters = ((MuninnPagedFile) pagedFileA).counters;
+                assertThat( counters.reservedPages(), is( reservedFilePages ) );
+
+                readAllPages( pagedFileA, reservedFilePages );
+                assertThat( counters.faults(), is( (long) reservedFilePages ) );
+                assertThat( counters.residentPages(), is( reservedFilePages ) );
+
+                readAllPages( pagedFileB, scannedFilePages );
+                readAllPages( pagedFileA, reservedFilePages );
+                assertThat( counters.faults(), is( (long) reservedFilePages ) );
+                assertThat( counters.hits(), is( (long) reservedFilePages ) );
+            }
+        }
+    }
+
+    @Test
+    public void totalPageReservationsMustBeLimitedToHalfTheCache() throws Exception
+    {
+        writeInitialDataTo( file( "a" ) );
+        writeInitialDataTo( file( "b" ) );
+
+        try ( MuninnPageCache pageCache = createPageCache( fs, 20, 8, PageCacheTracer.NULL,
+                DefaultPageCursorTracerSupplier.NULL );
+              PagedFile pagedFileA = pageCache.map( file( "a" ), 8 );
+              PagedFile pagedFileB = pageCache.map( file( "b" ), 8 ) )
+        {
+            pageCache.reservePages( "*", 1.0 );
+            int reservedA = ((MuninnPagedFile) pagedFileA).counters.reservedPages();
+            int reservedB = ((MuninnPagedFile) pagedFileB).counters.reservedPages();
+            assertThat( reservedA + reservedB, is( 10 ) );
+        }
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void mustThrowOnPageReservationOutsideOfValidRange() throws Exception
+    {
+        try ( MuninnPageCache pageCache = createPageCache( fs, 20, 8, PageCacheTracer.NULL,
+                DefaultPageCursorTracerSupplier.NULL ) )
+        {
+            pageCache.reservePages( "a", 1.5 );
+        }
+    }
+
+    @Test
+    public void noFaultCursorMustOnlyBindToPagesThatAreInMemory() throws Exception
+    {
+        writePageIdsTo( file( "a" ), 10 );
+
+        try ( MuninnPageCache pageCache = createPageCache( fs, 20, 8, PageCacheTracer.NULL,
+                DefaultPageCursorTracerSupplier.NULL );
+              PagedFile pagedFile = pageCache.map( file( "a" ), 8 ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 3, PF_SHARED_READ_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+                assertTrue( cursor.next() );
+            }
+
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_NO_FAULT ) )
+            {
+                for ( long pageId = 0; pageId < 10; pageId++ )
+                {
+                    assertTrue( cursor.next() );
+                    long expectedPageId = pageId == 3 || pageId == 4 ? pageId : PageCursor.UNBOUND_PAGE_ID;
+                    assertThat( cursor.getCurrentPageId(), is( expectedPageId ) );
+                }
+                assertFalse( cursor.next() );
+            }
+            assertThat( ((MuninnPagedFile) pagedFile).counters.faults(), is( 2L ) );
+        }
+    }
+
+    @Test
+    public void transientCursorMustNotCountHits() throws Exception
+    {
+        writePageIdsTo( file( "a" ), 10 );
+
+        try ( MuninnPageCache pageCache = createPageCache( fs, 20, 8, PageCacheTracer.NULL,
+                DefaultPageCursorTracerSupplier.NULL );
+              PagedFile pagedFile = pageCache.map( file( "a" ), 8 ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 3, PF_SHARED_READ_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+            }
+
+            try ( PageCursor cursor = pagedFile.io( 3, PF_SHARED_READ_LOCK | PF_NO_FAULT | PF_TRANSIENT ) )
+            {
+                assertTrue( cursor.next() );
+                assertThat( cursor.getCurrentPageId(), is( 3L ) );
+            }
+            assertThat( ((MuninnPagedFile) pagedFile).counters.hits(), is( 0L ) );
+
+            try ( PageCursor cursor = pagedFile.io( 3, PF_SHARED_READ_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+            }
+            assertThat( ((MuninnPagedFile) pagedFile).counters.hits(), is( 1L ) );
+        }
+    }
+
+    @Test
+    public void listExistingMappingsMustReturnMappedFilesUntilTheyAreClosed() throws Exception
+    {
+        writeInitialDataTo( file( "a" ) );
+
+        try ( MuninnPageCache pageCache = createPageCache( fs, 20, 8, PageCacheTracer.NULL,
+                DefaultPageCursorTracerSupplier.NULL ) )
+        {
+            PagedFile pagedFile = pageCache.map( file( "a" ), 8 );
+            List<PagedFile> mappings = pageCache.listExistingMappings();
+            assertThat( mappings.size(), is( 1 ) );
+            assertThat( mappings.get( 0 ).file(), is( file( "a" ) ) );
+
+            pagedFile.close();
+            try ( PageCursor cursor = mappings.get( 0 ).io( 0, PF_SHARED_READ_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+            }
+            mappings.get( 0 ).close();
+            assertTrue( pageCache.listExistingMappings().isEmpty() );
+        }
+    }
+
+    private void readAllPages( PagedFile pagedFile, int pageCount ) throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK ) )
+        {
+            for ( long pageId = 0; pageId < pageCount; pageId++ )
+            {
+                assertTrue( cursor.next() );
+            }
+        }
+    }
+
+    private void writePageIdsTo( File file, int pageCount ) throws IOException
+    {
+        try ( StoreChannel channel = fs.create( file ) )
+        {
+            ByteBuffer buf = ByteBuffer.allocate( 8 * pageCount );
+            for ( long pageId = 0; pageId < pageCount; pageId++ )
+            {
+                buf.putLong( pageId );
+            }
+            buf.flip();
+            channel.writeAll( buf );
+        }
+    }
+
     private void writeInitialDataTo( File file ) throws IOException
     {
         try ( StoreChannel channel = fs.create( file ) )
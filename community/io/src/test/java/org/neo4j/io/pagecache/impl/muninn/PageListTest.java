@@ -1293,6 +1293,99 @@ public class PageListTest
         assertFalse( pageList.decrementUsage( nextPageRef ) );
     }
 
+    @Test
+    public void pageFaultMustCountAsFirstUsageOfAdmittedPage() throws Exception
+    {
+        // exclusive lock implied by the constructor
+        pageList.initBuffer( pageRef );
+        pageList.fault( pageRef, DUMMY_SWAPPER, 0, 0, PageFaultEvent.NULL );
+        assertFalse( pageList.isOnProbation( pageRef ) );
+        assertTrue( pageList.decrementUsage( pageRef ) );
+    }
+
+    @Test
+    public void pageFaultMustPutRejectedPageOnProbation() throws Exception
+    {
+        PageList list = new PageList( pageIds.length, pageSize, mman, swappers,
+                VictimPageReference.getVictimPage( pageSize ), new RejectingAdmissionFilter() );
+        long ref = list.deref( pageId );
+        list.initBuffer( ref );
+        list.fault( ref, DUMMY_SWAPPER, 0, 0, PageFaultEvent.NULL );
+        assertTrue( list.isOnProbation( ref ) );
+        assertTrue( list.usesProbation() );
+    }
+
+    @Test
+    public void incrementingUsageCounterMustTakePageOffProbation() throws Exception
+    {
+        PageList list = new PageList( pageIds.length, pageSize, mman, swappers,
+                VictimPageReference.getVictimPage( pageSize ), new RejectingAdmissionFilter() );
+        long ref = list.deref( pageId );
+        list.initBuffer( ref );
+        list.fault( ref, DUMMY_SWAPPER, 0, 0, PageFaultEvent.NULL );
+        list.incrementUsage( ref );
+        assertFalse( list.isOnProbation( ref ) );
+        assertFalse( list.decrementUsage( ref ) );
+        assertTrue( list.decrementUsage( ref ) );
+    }
+
+    @Test
+    public void evictionMustBeReportedToAdmissionFilter() throws Exception
+    {
+        RejectingAdmissionFilter filter = new RejectingAdmissionFilter();
+        PageList list = new PageList( pageIds.length, pageSize, mman, swappers,
+                VictimPageReference.getVictimPage( pageSize ), filter );
+        long ref = list.deref( pageId );
+        int swapperId = swappers.allocate( DUMMY_SWAPPER );
+        list.initBuffer( ref );
+        list.fault( ref, DUMMY_SWAPPER, swapperId, 42, PageFaultEvent.NULL );
+        list.unlockExclusive( ref );
+        assertTrue( list.tryEvict( ref, EvictionRunEvent.NULL ) );
+        assertThat( filter.lastEvictedSwapperId, is( swapperId ) );
+        assertThat( filter.lastEvictedFilePageId, is( 42L ) );
+    }
+
+    @Test
+    public void evictionMustTakePageOffProbation() throws Exception
+    {
+        PageList list = new PageList( pageIds.length, pageSize, mman, swappers,
+                VictimPageReference.getVictimPage( pageSize ), new RejectingAdmissionFilter() );
+        long ref = list.deref( pageId );
+        int swapperId = swappers.allocate( DUMMY_SWAPPER );
+        list.initBuffer( ref );
+        list.fault( ref, DUMMY_SWAPPER, swapperId, 42, PageFaultEvent.NULL );
+        list.unlockExclusive( ref );
+        assertTrue( list.isOnProbation( ref ) );
+        assertTrue( list.tryEvict( ref, EvictionRunEvent.NULL ) );
+        assertFalse( list.isLoaded( ref ) );
+        assertFalse( list.isOnProbation( ref ) );
+    }
+
+    private static class RejectingAdmissionFilter implements AdmissionFilter
+    {
+        private int lastEvictedSwapperId;
+        private long lastEvictedFilePageId = PageCursor.UNBOUND_PAGE_ID;
+
+        @Override
+        public boolean admit( int swapperId, long filePageId )
+        {
+            return false;
+        }
+
+        @Override
+        public void evicted( int swapperId, long filePageId )
+        {
+            lastEvictedSwapperId = swapperId;
+            lastEvictedFilePageId = filePageId;
+        }
+
+        @Override
+        public boolean usesProbation()
+        {
+            return true;
+        }
+    }
+
     @Test
     public void filePageIdIsUnboundByDefault() throws Exception
     {
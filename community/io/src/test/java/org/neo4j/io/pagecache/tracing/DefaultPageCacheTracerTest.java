@@ -21,16 +21,25 @@ package org.neo4j.io.pagecache.tracing;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.InOrder;
 
 import java.io.File;
 import java.io.IOException;
 
 import org.neo4j.io.ByteUnit;
 import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
+import org.neo4j.io.pagecache.monitoring.PagedFileCountersListener;
 
 import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 public class DefaultPageCacheTracerTest
 {
@@ -90,6 +99,46 @@ public class DefaultPageCacheTracerTest
         assertCounts( 0, 0, 0, 0, 0, 0, 0, 0, 0, 1, 1,  0d );
     }
 
+    @Test
+    public void mustTrackCountersOfMappedFilesUntilTheyAreUnmapped()
+    {
+        PagedFileCounters counters = mock( PagedFileCounters.class );
+        tracer.mappedFile( new File( "a" ), counters );
+
+        assertCounts( 0, 0, 0, 0, 0, 0, 0, 0, 0, 1, 0,  0d );
+        assertThat( tracer.pagedFileCounters(), contains( counters ) );
+
+        tracer.unmappedFile( new File( "a" ) );
+
+        assertCounts( 0, 0, 0, 0, 0, 0, 0, 0, 0, 1, 1,  0d );
+        assertThat( tracer.pagedFileCounters(), is( empty() ) );
+    }
+
+    @Test
+    public void mustNotifyListenersAboutMappedFilesUntilTheyAreRemoved()
+    {
+        // given
+        PagedFileCounters countersOfA = mock( PagedFileCounters.class );
+        PagedFileCounters countersOfB = mock( PagedFileCounters.class );
+        PagedFileCountersListener listener = mock( PagedFileCountersListener.class );
+        tracer.mappedFile( new File( "a" ), countersOfA );
+
+        // when
+        tracer.addPagedFileCountersListener( listener );
+        tracer.mappedFile( new File( "b" ), countersOfB );
+        tracer.unmappedFile( new File( "a" ) );
+        tracer.unmappedFile( new File( "c" ) );
+        tracer.removePagedFileCountersListener( listener );
+        tracer.unmappedFile( new File( "b" ) );
+
+        // then
+        InOrder inOrder = inOrder( listener );
+        inOrder.verify( listener ).mapped( countersOfA );
+        inOrder.verify( listener ).mapped( countersOfB );
+        inOrder.verify( listener ).unmapped( new File( "a" ) );
+        verifyNoMoreInteractions( listener );
+    }
+
     @Test
     public void mustCountFlushes()
     {
@@ -112,6 +161,22 @@ public class DefaultPageCacheTracerTest
         assertCounts( 0, 0, 0, 0, 0, 0, 6, 0, 0, 0, 0, 0d );
     }
 
+    @Test
+    public void mustMeasureCacheFlushThroughput()
+    {
+        assertThat( tracer.flushThroughput(), is( 0L ) );
+
+        try ( MajorFlushEvent cacheFlush = tracer.beginCacheFlush() )
+        {
+            FlushEvent flushEvent = cacheFlush.flushEventOpportunity().beginFlush( 0, 0, swapper );
+            flushEvent.addBytesWritten( ByteUnit.mebiBytes( 1 ) );
+            flushEvent.done();
+        }
+
+        assertCounts( 0, 0, 0, 0, 0, 0, 1, 0, ByteUnit.mebiBytes( 1 ), 0, 0, 0d );
+        assertThat( tracer.flushThroughput(), greaterThan( 0L ) );
+    }
+
     @Test
     public void shouldCalculateHitRatio() throws Exception
     {
@@ -20,8 +20,11 @@
 package org.neo4j.io.pagecache.tracing;
 
 import java.io.File;
+import java.util.Collection;
 
 import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
+import org.neo4j.io.pagecache.monitoring.PagedFileCountersListener;
 
 /**
  * A PageCacheTracer that delegates all calls to a wrapped instance.
@@ -43,6 +46,12 @@ public class DelegatingPageCacheTracer implements PageCacheTracer
         delegate.mappedFile( file );
     }
 
+    @Override
+    public void mappedFile( File file, PagedFileCounters counters )
+    {
+        delegate.mappedFile( file, counters );
+    }
+
     @Override
     public long bytesRead()
     {
@@ -169,6 +178,18 @@ public class DelegatingPageCacheTracer implements PageCacheTracer
         delegate.flushes( flushes );
     }
 
+    @Override
+    public void admissionsRejected( long admissionsRejected )
+    {
+        delegate.admissionsRejected( admissionsRejected );
+    }
+
+    @Override
+    public void ghostHits( long ghostHits )
+    {
+        delegate.ghostHits( ghostHits );
+    }
+
     @Override
     public long filesMapped()
     {
@@ -192,4 +213,40 @@ public class DelegatingPageCacheTracer implements PageCacheTracer
     {
         return delegate.evictions();
     }
+
+    @Override
+    public long admissionsRejected()
+    {
+        return delegate.admissionsRejected();
+    }
+
+    @Override
+    public long ghostHits()
+    {
+        return delegate.ghostHits();
+    }
+
+    @Override
+    public long flushThroughput()
+    {
+        return delegate.flushThroughput();
+    }
+
+    @Override
+    public Collection<PagedFileCounters> pagedFileCounters()
+    {
+        return delegate.pagedFileCounters();
+    }
+
+    @Override
+    public void addPagedFileCountersListener( PagedFileCountersListener listener )
+    {
+        delegate.addPagedFileCountersListener( listener );
+    }
+
+    @Override
+    public void removePagedFileCountersListener( PagedFileCountersListener listener )
+    {
+        delegate.removePagedFileCountersListener( listener );
+    }
 }
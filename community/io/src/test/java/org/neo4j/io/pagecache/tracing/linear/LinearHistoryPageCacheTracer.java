@@ -20,8 +20,11 @@
 package org.neo4j.io.pagecache.tracing.linear;
 
 import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
 
 import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
 import org.neo4j.io.pagecache.tracing.EvictionRunEvent;
 import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
@@ -54,6 +57,12 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
         tracer.add( new MappedFileHEvent( file ) );
     }
 
+    @Override
+    public void mappedFile( File file, PagedFileCounters counters )
+    {
+        mappedFile( file );
+    }
+
     @Override
     public void unmappedFile( File file )
     {
@@ -150,6 +159,30 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
         return 0d;
     }
 
+    @Override
+    public long admissionsRejected()
+    {
+        return 0;
+    }
+
+    @Override
+    public long ghostHits()
+    {
+        return 0;
+    }
+
+    @Override
+    public long flushThroughput()
+    {
+        return 0;
+    }
+
+    @Override
+    public Collection<PagedFileCounters> pagedFileCounters()
+    {
+        return Collections.emptyList();
+    }
+
     @Override
     public void pins( long pins )
     {
@@ -194,4 +227,14 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
     public void flushes( long flushes )
     {
     }
+
+    @Override
+    public void admissionsRejected( long admissionsRejected )
+    {
+    }
+
+    @Override
+    public void ghostHits( long ghostHits )
+    {
+    }
 }
@@ -21,7 +21,11 @@ package org.neo4j.graphdb.factory;
 
 import java.io.File;
 import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 import org.neo4j.configuration.Description;
 import org.neo4j.configuration.Dynamic;
@@ -33,6 +37,7 @@ import org.neo4j.graphdb.config.Setting;
 import org.neo4j.helpers.AdvertisedSocketAddress;
 import org.neo4j.helpers.ListenSocketAddress;
 import org.neo4j.io.ByteUnit;
+import org.neo4j.io.pagecache.impl.muninn.EvictionPolicy;
 import org.neo4j.kernel.configuration.BoltConnectorValidator;
 import org.neo4j.kernel.configuration.ConfigurationMigrator;
 import org.neo4j.kernel.configuration.GraphDatabaseConfigurationMigrator;
@@ -266,6 +271,21 @@ public class GraphDatabaseSettings implements LoadableConfig
     public static final Setting<Duration> transaction_timeout = setting( "dbms.transaction.timeout", DURATION, String
             .valueOf( UNSPECIFIED_TIMEOUT ) );
 
+    @Description( "Defines whether the state of a running transaction is kept on the heap, or partly in native " +
+                  "memory. `OFF_HEAP` keeps the nodes and relationships created and deleted by a transaction, and " +
+                  "the relationships of each changed node, in compact structures outside the Java heap, which " +
+                  "reduces garbage collection pressure from large write transactions. Labels and properties are " +
+                  "still kept on the heap. Native memory used for this is limited by " +
+                  "`dbms.tx_state.max_off_heap_memory`." )
+    public static final Setting<TransactionStateMemoryAllocation> tx_state_memory_allocation =
+            setting( "dbms.tx_state.memory_allocation", options( TransactionStateMemoryAllocation.class ),
+                    TransactionStateMemoryAllocation.ON_HEAP.name() );
+
+    @Description( "The maximum amount of native memory that off-heap transaction state may use, summed over all " +
+                  "running transactions. A transaction that needs more than is left fails, and can not be committed." )
+    public static final Setting<Long> tx_state_max_off_heap_memory =
+            buildSetting( "dbms.tx_state.max_off_heap_memory", BYTES, "2g" ).constraint( min( 0L ) ).build();
+
     @Description( "The maximum time interval within which lock should be acquired." )
     public static final Setting<Duration> lock_acquisition_timeout = setting( "dbms.lock.acquisition.timeout", DURATION,
             String.valueOf( UNSPECIFIED_TIMEOUT ) );
@@ -310,6 +330,33 @@ public class GraphDatabaseSettings implements LoadableConfig
     public static final Setting<Integer> store_internal_log_max_archives =
             buildSetting( "dbms.logs.debug.rotation.keep_number", INTEGER, "7" ).constraint( min( 1 ) ).build();
 
+    @Description( "Configures the check point policy. With the `periodic` policy, check points happen when the " +
+            "`dbms.checkpoint.interval.tx` or `dbms.checkpoint.interval.time` thresholds are reached, and each " +
+            "check point flushes everything that has been changed since the previous one. The `continuous` " +
+            "policy check points on the same thresholds as `periodic`, and in between check points it continuously " +
+            "writes changed data to the store files in the background, so that each check point only has a small " +
+            "amount of data left to flush. This avoids periodic bursts of I/O. With the `volumetric` " +
+            "policy, check points happen based on the amount of transaction log written since the last check " +
+            "point, such that recovering that log after a crash is estimated to stay within " +
+            "`dbms.checkpoint.recovery_time_objective`. The I/O of the check points is limited by " +
+            "`dbms.checkpoint.iops.limit` in all policies." )
+    public static final Setting<String> check_point_policy =
+            setting( "dbms.checkpoint", options( "periodic", "continuous", "volumetric" ), "periodic" );
+
+    @Description( "The longest time that recovery after a crash should take, when using the `volumetric` check " +
+            "point policy. Check points are triggered when the transaction log written since the last check point " +
+            "would take about half of this time to recover, leaving the other half for the log that is written " +
+            "while the check point is in progress." )
+    public static final Setting<Duration> check_point_recovery_time_objective =
+            buildSetting( "dbms.checkpoint.recovery_time_objective", DURATION, "5m" )
+                    .constraint( min( Duration.ofSeconds( 1 ) ) ).build();
+
+    @Description( "The number of bytes of transaction log that recovery is assumed to replay per second, when " +
+            "using the `volumetric` check point policy. This estimate is used until the database has measured " +
+            "the actual rate, by recovering a significant amount of transaction log." )
+    public static final Setting<Long> check_point_recovery_rate_estimate =
+            buildSetting( "dbms.checkpoint.recovery_rate_estimate", BYTES, "32m" ).constraint( min( 1L ) ).build();
+
     @Description( "Configures the transaction interval between check-points. The database will not check-point more " +
                   "often  than this (unless check pointing is triggered by a different event), but might check-point " +
                   "less often than this interval, if performing a check-point takes longer time than the configured " +
@@ -428,6 +475,54 @@ public class GraphDatabaseSettings implements LoadableConfig
     public static final Setting<Long> logical_log_rotation_threshold =
             buildSetting( "dbms.tx_log.rotation.size", BYTES, "250M" ).constraint( min( ByteUnit.mebiBytes( 1 ) ) ).build();
 
+    @Description( "Preallocate transaction log files to the rotation size, so that appending to the log does not " +
+            "change the size of the file and forcing it does not need to update file system metadata. Pruned log " +
+            "files are also recycled, zero filled and reused for the next log version instead of being deleted." )
+    public static final Setting<Boolean> tx_log_preallocate = setting( "dbms.tx_log.preallocate", BOOLEAN, FALSE );
+
+    @Description( "Keep a sparse index of where transactions start in each transaction log file. This lets old " +
+            "transactions, e.g. those asked for by read replicas catching up or by incremental backups, be found " +
+            "without scanning their transaction log file from the start." )
+    public static final Setting<Boolean> tx_log_position_index_enabled =
+            setting( "dbms.tx_log.position_index.enabled", BOOLEAN, FALSE );
+
+    @Description( "Enable group commit with an adaptive batching window. When enabled, the thread that forces the " +
+            "transaction log to disk will wait a short while for other committing transactions to be appended, " +
+            "so that a single force makes all of them durable. The wait adapts to the observed force latency and " +
+            "to the rate at which transactions arrive: it is never longer than half of the average force latency, " +
+            "and it is skipped when no other transaction is expected to arrive in time. This trades a small amount " +
+            "of commit latency for higher commit throughput under concurrent write load." )
+    public static final Setting<Boolean> group_commit_enabled =
+            setting( "dbms.tx_log.group_commit.enabled", BOOLEAN, FALSE );
+
+    @Description( "The maximum time that a transaction log force will be delayed in order to group more " +
+            "transactions into it, when group commit is enabled. See `dbms.tx_log.group_commit.enabled`." )
+    public static final Setting<Duration> group_commit_max_window =
+            setting( "dbms.tx_log.group_commit.max_window", DURATION, "2ms" );
+
+    @Description( "Compress the commands of each transaction that is written to the transaction log. The commands " +
+            "are compressed with LZ4, and written uncompressed if compressing them would not make them smaller. " +
+            "This makes the transaction logs considerably smaller, at a small CPU cost when writing and reading " +
+            "them. Transaction logs with compressed transactions cannot be read by earlier versions of Neo4j." )
+    public static final Setting<Boolean> tx_log_compression_enabled =
+            setting( "dbms.tx_log.compression.enabled", BOOLEAN, FALSE );
+
+    @Description( "Enable pipelined commit. When enabled, transactions that have been committed to the transaction " +
+            "log are applied to the store files, indexes and counts by a shared applier stage, which applies the " +
+            "transactions of many concurrently committing threads in one batch, while the next group of " +
+            "transactions is written to the log. This makes commit throughput bound by the transaction log force " +
+            "rather than by store application. Committing transactions still wait for their changes to be applied " +
+            "before the commit returns." )
+    public static final Setting<Boolean> pipelined_commit =
+            setting( "dbms.transaction.pipelined_commit", BOOLEAN, FALSE );
+
+    @Description( "The number of threads used to write the records of recovered transactions to the store files " +
+            "when recovering after an unclean shutdown. Recovered record changes are partitioned by the store page " +
+            "they target, and the partitions are written concurrently. A value of 1 replays the transactions one " +
+            "by one, on a single thread." )
+    public static final Setting<Integer> recovery_parallelism =
+            buildSetting( "dbms.recovery.parallelism", INTEGER, "1" ).constraint( min( 1 ) ).build();
+
     @Description( "Use a quick approach for rebuilding the ID generators. This give quicker recovery time, " +
             "but will limit the ability to reuse the space of deleted entities." )
     @Internal
@@ -458,6 +553,45 @@ public class GraphDatabaseSettings implements LoadableConfig
     public static final Setting<String> pagecache_swapper =
             setting( "dbms.memory.pagecache.swapper", STRING, null );
 
+    @Description( "Specify which eviction policy the page cache should use. `CLOCK` treats all pages alike, while " +
+                  "`SCAN_RESISTANT` puts pages that have not been accessed recently on probation when they are " +
+                  "loaded, and evicts those first. This keeps the frequently accessed pages in memory when large " +
+                  "parts of the store are scanned, for instance by consistency checks, index population or large " +
+                  "analytical queries." )
+    public static final Setting<EvictionPolicy> pagecache_eviction_policy =
+            setting( "dbms.memory.pagecache.eviction_policy", options( EvictionPolicy.class ),
+                    EvictionPolicy.CLOCK.name() );
+
+    @Description( "Reserve a fraction of the page cache for the store files whose names match a pattern. This is a " +
+                  "comma separated list of `pattern:fraction` pairs, where the pattern is a file name glob, and the " +
+                  "fraction is between 0 and 1. For instance, `neostore.nodestore.db:0.1,index-*:0.05` reserves 10% " +
+                  "of the page cache for the node store, and 5% for each native index file. Pages of a file are not " +
+                  "evicted while the file has no more pages in memory than it has reserved. The configured " +
+                  "fractions may in total be at most 0.5, and the reservations of all files are in total limited to " +
+                  "half of the page cache." )
+    public static final Setting<Map<String,Double>> pagecache_reservations =
+            buildSetting( "dbms.memory.pagecache.reservations", pageCacheReservations(), "" )
+                    .constraint( totalReservedFractionAtMost( 0.5 ) ).build();
+
+    @Description( "Allocate the page cache memory in large slabs that are aligned to 2 MiB huge pages, rather than in " +
+                  "small chunks. This allows the transparent huge pages support of the operating system to back the " +
+                  "page cache with huge pages, which reduces the number of TLB misses when the page cache is large. " +
+                  "On machines with multiple NUMA nodes, the placement of the page cache memory across the nodes is " +
+                  "decided by the memory policy of the process, for instance `numactl --interleave=all`." )
+    public static final Setting<Boolean> pagecache_huge_pages =
+            setting( "dbms.memory.pagecache.huge_pages", BOOLEAN, FALSE );
+
+    @Description( "Page cache can be configured to periodically record which pages of the store files are in memory, " +
+                  "and to load those pages back in when the database starts. This shortens the time it takes for " +
+                  "the database to get back to full speed after a restart. The profiles are small files, with the " +
+                  "`.cacheprof` suffix, that are written next to the store files." )
+    public static final Setting<Boolean> pagecache_warmup_enabled =
+            setting( "dbms.memory.pagecache.warmup.enable", BOOLEAN, FALSE );
+
+    @Description( "The interval at which the page cache profiles are written, when page cache warmup is enabled." )
+    public static final Setting<Duration> pagecache_warmup_profiling_interval =
+            setting( "dbms.memory.pagecache.warmup.profile.interval", DURATION, "1m" );
+
     /**
      * Block size properties values depends from selected record format.
      * We can't figured out record format until it will be selected by corresponding edition.
@@ -571,6 +705,12 @@ public class GraphDatabaseSettings implements LoadableConfig
     public static final Setting<Integer> batch_inserter_batch_size = setting( "unsupported.tools.batch_inserter.batch_size", INTEGER,
             "10000" );
 
+    public enum TransactionStateMemoryAllocation
+    {
+        ON_HEAP,
+        OFF_HEAP
+    }
+
     /**
      * @deprecated - lucene label index has been removed.
      */
@@ -769,4 +909,77 @@ public class GraphDatabaseSettings implements LoadableConfig
             DISABLED
         }
     }
+
+    /**
+     * Parses a comma separated list of {@code pattern:fraction} pairs into fractions of the page cache by file name
+     * glob, in the order they are listed, since the first matching pattern applies to a file.
+     */
+    private static Function<String,Map<String,Double>> pageCacheReservations()
+    {
+        return new Function<String,Map<String,Double>>()
+        {
+            @Override
+            public Map<String,Double> apply( String value )
+            {
+                Map<String,Double> reservations = new LinkedHashMap<>();
+                for ( String reservation : STRING_LIST.apply( value ) )
+                {
+                    int separator = reservation.lastIndexOf( ':' );
+                    if ( separator < 1 )
+                    {
+                        throw new IllegalArgumentException( "'" + reservation + "' is not on the form " +
+                                "`pattern:fraction`, for instance `neostore.nodestore.db:0.1`" );
+                    }
+                    String pattern = reservation.substring( 0, separator ).trim();
+                    double fraction = DOUBLE.apply( reservation.substring( separator + 1 ).trim() );
+                    if ( !(fraction > 0.0 && fraction <= 1.0) )
+                    {
+                        throw new IllegalArgumentException( "the fraction of '" + reservation +
+                                "' must be greater than 0, and at most 1" );
+                    }
+                    if ( reservations.put( pattern, fraction ) != null )
+                    {
+                        throw new IllegalArgumentException( "the pattern '" + pattern + "' is listed more than once" );
+                    }
+                }
+                return reservations;
+            }
+
+            @Override
+            public String toString()
+            {
+                return "a list separated by \",\" where items are `pattern:fraction` pairs of a file name glob and " +
+                        "a fraction greater than 0 and at most 1";
+            }
+        };
+    }
+
+    private static BiFunction<Map<String,Double>,Function<String,String>,Map<String,Double>>
+            totalReservedFractionAtMost( double max )
+    {
+        return new BiFunction<Map<String,Double>,Function<String,String>,Map<String,Double>>()
+        {
+            @Override
+            public Map<String,Double> apply( Map<String,Double> reservations, Function<String,String> settings )
+            {
+                double total = 0;
+                for ( double fraction : reservations.values() )
+                {
+                    total += fraction;
+                }
+                if ( total > max )
+                {
+                    throw new IllegalArgumentException(
+                            String.format( "the fractions must in total be at most %s, but were %s", max, total ) );
+                }
+                return reservations;
+            }
+
+            @Override
+            public String toString()
+            {
+                return "has fractions that are in total at most `" + max + "`";
+            }
+        };
+    }
 }
@@ -70,6 +70,8 @@ import org.neo4j.kernel.impl.api.index.IndexingService;
 import org.neo4j.kernel.impl.api.index.SchemaIndexProviderMap;
 import org.neo4j.kernel.impl.api.operations.QueryRegistrationOperations;
 import org.neo4j.kernel.impl.api.state.ConstraintIndexCreator;
+import org.neo4j.kernel.impl.api.state.OffHeapTxStateMemory;
+import org.neo4j.kernel.impl.api.state.TxState;
 import org.neo4j.kernel.impl.constraints.ConstraintSemantics;
 import org.neo4j.kernel.impl.core.LabelTokenHolder;
 import org.neo4j.kernel.impl.core.PropertyKeyTokenHolder;
@@ -84,6 +86,8 @@ import org.neo4j.kernel.impl.locking.LockService;
 import org.neo4j.kernel.impl.locking.ReentrantLockService;
 import org.neo4j.kernel.impl.locking.StatementLocksFactory;
 import org.neo4j.kernel.impl.logging.LogService;
+import org.neo4j.kernel.impl.pagecache.BackgroundPageFlusher;
+import org.neo4j.kernel.impl.pagecache.PageCacheWarmer;
 import org.neo4j.kernel.impl.proc.Procedures;
 import org.neo4j.kernel.impl.storageengine.impl.recordstorage.RecordStorageEngine;
 import org.neo4j.kernel.impl.storageengine.impl.recordstorage.id.IdController;
@@ -100,6 +104,7 @@ import org.neo4j.kernel.impl.transaction.TransactionHeaderInformationFactory;
 import org.neo4j.kernel.impl.transaction.TransactionMonitor;
 import org.neo4j.kernel.impl.transaction.log.BatchingTransactionAppender;
 import org.neo4j.kernel.impl.transaction.log.LogFileInformation;
+import org.neo4j.kernel.impl.transaction.log.LogFilePreallocator;
 import org.neo4j.kernel.impl.transaction.log.LogHeaderCache;
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
 import org.neo4j.kernel.impl.transaction.log.LogVersionRepository;
@@ -113,15 +118,15 @@ import org.neo4j.kernel.impl.transaction.log.ReadableClosablePositionAwareChanne
 import org.neo4j.kernel.impl.transaction.log.ReadableLogChannel;
 import org.neo4j.kernel.impl.transaction.log.TransactionAppender;
 import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
+import org.neo4j.kernel.impl.transaction.log.TransactionLogPositionIndex;
 import org.neo4j.kernel.impl.transaction.log.TransactionMetadataCache;
 import org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointScheduler;
 import org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointThreshold;
 import org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointThresholds;
 import org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointerImpl;
-import org.neo4j.kernel.impl.transaction.log.checkpoint.CountCommittedTransactionThreshold;
 import org.neo4j.kernel.impl.transaction.log.checkpoint.SimpleTriggerInfo;
 import org.neo4j.kernel.impl.transaction.log.checkpoint.StoreCopyCheckPointMutex;
-import org.neo4j.kernel.impl.transaction.log.checkpoint.TimeCheckPointThreshold;
+import org.neo4j.kernel.impl.transaction.log.entry.CommandCompressor;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntry;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart;
@@ -515,6 +520,14 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
             throw Exceptions.launderedException( e );
         }
 
+        if ( config.get( GraphDatabaseSettings.pagecache_warmup_enabled ) )
+        {
+            life.add( new PageCacheWarmer( fs, pageCache, scheduler, storeDir,
+                    config.get( GraphDatabaseSettings.pagecache_warmup_profiling_interval ).toMillis(),
+                    monitors.newMonitor( PageCacheWarmer.Monitor.class ),
+                    logProvider.getLog( PageCacheWarmer.class ) ) );
+        }
+
         // NOTE: please make sure this is performed after having added everything to the life, in fact we would like
         // to perform the checkpointing as first step when the life is shutdown.
         life.add( lifecycleToTriggerCheckPointOnShutdown() );
@@ -610,10 +623,14 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
         final PhysicalLogFiles logFiles = new PhysicalLogFiles( storeDir, PhysicalLogFile.DEFAULT_NAME,
                 fileSystemAbstraction );
 
+        long rotateAtSize = config.get( GraphDatabaseSettings.logical_log_rotation_threshold );
+        LogFilePreallocator logFilePreallocator = config.get( GraphDatabaseSettings.tx_log_preallocate )
+                ? new LogFilePreallocator( fileSystemAbstraction, logFiles, rotateAtSize,
+                        scheduler.executor( JobScheduler.Groups.logFilePreallocation ),
+                        logProvider.getLog( LogFilePreallocator.class ) ) : null;
         final PhysicalLogFile logFile = life.add( new PhysicalLogFile( fileSystemAbstraction, logFiles,
-                config.get( GraphDatabaseSettings.logical_log_rotation_threshold ),
-                transactionIdStore::getLastCommittedTransactionId, logVersionRepository, physicalLogMonitor,
-                logHeaderCache ) );
+                rotateAtSize, transactionIdStore::getLastCommittedTransactionId, logVersionRepository,
+                physicalLogMonitor, logHeaderCache, logFilePreallocator, logEntryReader ) );
 
         final PhysicalLogFileInformation.LogVersionToTimestamp logInformation = version ->
         {
@@ -641,39 +658,45 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
         }
         String pruningConf = config.get( GraphDatabaseSettings.keep_logical_logs );
 
-        LogPruneStrategy logPruneStrategy = fromConfigValue( fs, logFileInformation, logFiles, pruningConf );
+        LogPruneStrategy logPruneStrategy = fromConfigValue( fs, logFileInformation, logFiles, pruningConf,
+                logFilePreallocator );
 
         final LogPruning logPruning = new LogPruningImpl( logPruneStrategy, logProvider );
 
         final LogRotation logRotation =
                 new LogRotationImpl( monitors.newMonitor( LogRotation.Monitor.class ), logFile, databaseHealth );
 
+        long groupCommitMaxWindowNanos = config.get( GraphDatabaseSettings.group_commit_enabled )
+                                         ? config.get( GraphDatabaseSettings.group_commit_max_window ).toNanos() : 0;
+        CommandCompressor commandCompressor = config.get( GraphDatabaseSettings.tx_log_compression_enabled )
+                ? new CommandCompressor( monitors.newMonitor( CommandCompressor.Monitor.class ) ) : null;
+        TransactionLogPositionIndex positionIndex = config.get( GraphDatabaseSettings.tx_log_position_index_enabled )
+                ? life.add( new TransactionLogPositionIndex( fileSystemAbstraction, logFiles, logProvider ) ) : null;
         final TransactionAppender appender = life.add( new BatchingTransactionAppender(
                 logFile, logRotation, transactionMetadataCache, transactionIdStore, legacyIndexTransactionOrdering,
-                databaseHealth ) );
-        final LogicalTransactionStore logicalTransactionStore =
-                new PhysicalLogicalTransactionStore( logFile, transactionMetadataCache, logEntryReader );
+                databaseHealth, groupCommitMaxWindowNanos,
+                monitors.newMonitor( BatchingTransactionAppender.Monitor.class ), commandCompressor,
+                positionIndex ) );
+        final LogicalTransactionStore logicalTransactionStore = new PhysicalLogicalTransactionStore(
+                logFile, transactionMetadataCache, logEntryReader, positionIndex );
 
-        int txThreshold = config.get( GraphDatabaseSettings.check_point_interval_tx );
-        final CountCommittedTransactionThreshold countCommittedTransactionThreshold =
-                new CountCommittedTransactionThreshold( txThreshold );
-
-        long timeMillisThreshold = config.get( GraphDatabaseSettings.check_point_interval_time ).toMillis();
-        TimeCheckPointThreshold timeCheckPointThreshold = new TimeCheckPointThreshold( timeMillisThreshold, clock );
-
-        CheckPointThreshold threshold =
-                CheckPointThresholds.or( countCommittedTransactionThreshold, timeCheckPointThreshold );
+        CheckPointThreshold threshold = CheckPointThresholds.createThreshold( config, clock, monitors,
+                transactionIdStore, logFiles, fileSystemAbstraction );
 
         final CheckPointerImpl checkPointer = new CheckPointerImpl(
                 transactionIdStore, threshold, storageEngine, logPruning, appender, databaseHealth, logProvider,
                 tracers.checkPointTracer, ioLimiter, storeCopyCheckPointMutex );
 
-        long recurringPeriod = Math.min( timeMillisThreshold, TimeUnit.SECONDS.toMillis( 10 ) );
         CheckPointScheduler checkPointScheduler = new CheckPointScheduler( checkPointer, ioLimiter, scheduler,
-                recurringPeriod, databaseHealth );
+                threshold.checkFrequencyMillis(), databaseHealth );
 
         life.add( checkPointer );
         life.add( checkPointScheduler );
+        if ( CheckPointThresholds.CONTINUOUS.equals( config.get( GraphDatabaseSettings.check_point_policy ) ) )
+        {
+            life.add( new BackgroundPageFlusher( pageCache, ioLimiter, scheduler,
+                    BackgroundPageFlusher.FLUSH_INTERVAL_MILLIS, logProvider.getLog( BackgroundPageFlusher.class ) ) );
+        }
 
         return new NeoStoreTransactionLogModule( logicalTransactionStore, logFileInformation, logFiles, logFile,
                 logRotation, checkPointer, appender, legacyIndexTransactionOrdering );
@@ -742,7 +765,8 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
         KernelTransactions kernelTransactions = life.add( new KernelTransactions( statementLocksFactory,
                 constraintIndexCreator, statementOperationParts, schemaWriteGuard, transactionHeaderInformationFactory,
                 transactionCommitProcess, indexConfigStore, legacyIndexProviderLookup, hooks, transactionMonitor,
-                availabilityGuard, tracers, storageEngine, procedures, transactionIdStore, clock, accessCapability ) );
+                availabilityGuard, tracers, storageEngine, procedures, transactionIdStore, clock, accessCapability,
+                txStateSupplier( config ) ) );
 
         buildTransactionMonitor( kernelTransactions, clock, config );
 
@@ -757,6 +781,18 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
         return new NeoStoreKernelModule( transactionCommitProcess, kernel, kernelTransactions, fileListing );
     }
 
+    private static Supplier<TxState> txStateSupplier( Config config )
+    {
+        if ( config.get( GraphDatabaseSettings.tx_state_memory_allocation ) ==
+             GraphDatabaseSettings.TransactionStateMemoryAllocation.OFF_HEAP )
+        {
+            OffHeapTxStateMemory memory =
+                    new OffHeapTxStateMemory( config.get( GraphDatabaseSettings.tx_state_max_off_heap_memory ) );
+            return () -> new TxState( memory );
+        }
+        return TxState::new;
+    }
+
     private void buildTransactionMonitor( KernelTransactions kernelTransactions, Clock clock, Config config )
     {
         KernelTransactionTimeoutMonitor kernelTransactionTimeoutMonitor =
@@ -99,6 +99,7 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
     private final TransactionTracer transactionTracer;
     private final Pool<KernelTransactionImplementation> pool;
     private final Supplier<LegacyIndexTransactionState> legacyIndexTxStateSupplier;
+    private final Supplier<TxState> txStateSupplier;
 
     // For committing
     private final TransactionHeaderInformationFactory headerInformationFactory;
@@ -110,7 +111,7 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
 
     // State that needs to be reset between uses. Most of these should be cleared or released in #release(),
     // whereas others, such as timestamp or txId when transaction starts, even locks, needs to be set in #initialize().
-    private TransactionState txState;
+    private TxState txState;
     private LegacyIndexTransactionState legacyIndexTransactionState;
     private TransactionWriteState writeState;
     private TransactionHooks.TransactionHooksState hooksState;
@@ -154,6 +155,7 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
                                             TransactionCommitProcess commitProcess,
                                             TransactionMonitor transactionMonitor,
                                             Supplier<LegacyIndexTransactionState> legacyIndexTxStateSupplier,
+                                            Supplier<TxState> txStateSupplier,
                                             Pool<KernelTransactionImplementation> pool,
                                             Clock clock,
                                             TransactionTracer transactionTracer,
@@ -172,6 +174,7 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
         this.storeLayer = storageEngine.storeReadLayer();
         this.storageEngine = storageEngine;
         this.legacyIndexTxStateSupplier = legacyIndexTxStateSupplier;
+        this.txStateSupplier = txStateSupplier;
         this.pool = pool;
         this.clock = clock;
         this.transactionTracer = transactionTracer;
@@ -379,7 +382,7 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
         if ( txState == null )
         {
             transactionMonitor.upgradeToWriteTransaction();
-            txState = new TxState();
+            txState = txStateSupplier.get();
         }
         return txState;
     }
@@ -716,7 +719,11 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
             securityContext = null;
             transactionEvent = null;
             legacyIndexTransactionState = null;
-            txState = null;
+            if ( txState != null )
+            {
+                txState.close();
+                txState = null;
+            }
             hooksState = null;
             closeListeners.clear();
             reuseCount++;
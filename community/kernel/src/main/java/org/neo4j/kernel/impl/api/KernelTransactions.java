@@ -39,6 +39,7 @@ import org.neo4j.kernel.api.security.SecurityContext;
 import org.neo4j.kernel.api.txstate.LegacyIndexTransactionState;
 import org.neo4j.kernel.impl.api.state.ConstraintIndexCreator;
 import org.neo4j.kernel.impl.api.state.LegacyIndexTransactionStateImpl;
+import org.neo4j.kernel.impl.api.state.TxState;
 import org.neo4j.kernel.impl.factory.AccessCapability;
 import org.neo4j.kernel.impl.index.IndexConfigStore;
 import org.neo4j.kernel.impl.locking.StatementLocks;
@@ -80,6 +81,7 @@ public class KernelTransactions extends LifecycleAdapter implements Supplier<Ker
     private final TransactionIdStore transactionIdStore;
     private final AccessCapability accessCapability;
     private final Supplier<LegacyIndexTransactionState> legacyIndexTxStateSupplier;
+    private final Supplier<TxState> txStateSupplier;
     private final Clock clock;
     private final ReentrantReadWriteLock newTransactionsLock = new ReentrantReadWriteLock();
 
@@ -126,7 +128,7 @@ public class KernelTransactions extends LifecycleAdapter implements Supplier<Ker
                                StorageEngine storageEngine,
                                Procedures procedures,
                                TransactionIdStore transactionIdStore,
-                               Clock clock, AccessCapability accessCapability )
+                               Clock clock, AccessCapability accessCapability, Supplier<TxState> txStateSupplier )
     {
         this.statementLocksFactory = statementLocksFactory;
         this.constraintIndexCreator = constraintIndexCreator;
@@ -142,6 +144,7 @@ public class KernelTransactions extends LifecycleAdapter implements Supplier<Ker
         this.procedures = procedures;
         this.transactionIdStore = transactionIdStore;
         this.accessCapability = accessCapability;
+        this.txStateSupplier = txStateSupplier;
         this.legacyIndexTxStateSupplier = () -> new CachingLegacyIndexTransactionState(
                 new LegacyIndexTransactionStateImpl( indexConfigStore, legacyIndexProviderLookup ) );
         this.clock = clock;
@@ -325,9 +328,9 @@ public class KernelTransactions extends LifecycleAdapter implements Supplier<Ker
             KernelTransactionImplementation tx =
                     new KernelTransactionImplementation( statementOperations, schemaWriteGuard, hooks,
                             constraintIndexCreator, procedures, transactionHeaderInformationFactory,
-                            transactionCommitProcess, transactionMonitor, legacyIndexTxStateSupplier, localTxPool,
-                            clock, tracers.transactionTracer, tracers.lockTracer, tracers.pageCursorTracerSupplier,
-                            storageEngine, accessCapability );
+                            transactionCommitProcess, transactionMonitor, legacyIndexTxStateSupplier, txStateSupplier,
+                            localTxPool, clock, tracers.transactionTracer, tracers.lockTracer,
+                            tracers.pageCursorTracerSupplier, storageEngine, accessCapability );
             this.transactions.add( tx );
             return tx;
         }
@@ -301,10 +301,21 @@ public class LockingStatementOperations implements
     private void lockRelationshipNodes( KernelStatement state, long startNodeId, long endNodeId )
     {
         // Order the locks to lower the risk of deadlocks with other threads creating/deleting rels concurrently
-        acquireExclusiveNodeLock( state, min( startNodeId, endNodeId ) );
-        if ( startNodeId != endNodeId )
+        long lowNodeId = min( startNodeId, endNodeId );
+        long highNodeId = max( startNodeId, endNodeId );
+        boolean lockLow = nodeNeedsLock( state, lowNodeId );
+        boolean lockHigh = startNodeId != endNodeId && nodeNeedsLock( state, highNodeId );
+        if ( lockLow && lockHigh )
         {
-            acquireExclusiveNodeLock( state, max( startNodeId, endNodeId ) );
+            exclusiveOptimisticLock( state, ResourceTypes.NODE, lowNodeId, highNodeId );
+        }
+        else if ( lockLow )
+        {
+            exclusiveOptimisticLock( state, ResourceTypes.NODE, lowNodeId );
+        }
+        else if ( lockHigh )
+        {
+            exclusiveOptimisticLock( state, ResourceTypes.NODE, highNodeId );
         }
     }
 
@@ -495,12 +506,17 @@ public class LockingStatementOperations implements
 
     private void acquireExclusiveNodeLock( KernelStatement state, long nodeId )
     {
-        if ( !state.hasTxStateWithChanges() || !state.txState().nodeIsAddedInThisTx( nodeId ) )
+        if ( nodeNeedsLock( state, nodeId ) )
         {
             exclusiveOptimisticLock( state, ResourceTypes.NODE, nodeId );
         }
     }
 
+    private boolean nodeNeedsLock( KernelStatement state, long nodeId )
+    {
+        return !state.hasTxStateWithChanges() || !state.txState().nodeIsAddedInThisTx( nodeId );
+    }
+
     private void acquireExclusiveRelationshipLock( KernelStatement state, long relationshipId )
     {
         if ( !state.hasTxStateWithChanges() || !state.txState().relationshipIsAddedInThisTx( relationshipId ) )
@@ -534,8 +550,8 @@ public class LockingStatementOperations implements
         statement.locks().optimistic().acquireShared( statement.lockTracer(), resource, resourceId );
     }
 
-    private void exclusiveOptimisticLock( KernelStatement statement, ResourceType resource, long resourceId )
+    private void exclusiveOptimisticLock( KernelStatement statement, ResourceType resource, long... resourceIds )
     {
-        statement.locks().optimistic().acquireExclusive( statement.lockTracer(), resource, resourceId );
+        statement.locks().optimistic().acquireExclusive( statement.lockTracer(), resource, resourceIds );
     }
 }
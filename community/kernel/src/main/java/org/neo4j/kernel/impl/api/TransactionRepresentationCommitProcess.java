@@ -19,6 +19,15 @@
  */
 package org.neo4j.kernel.impl.api;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import org.neo4j.concurrent.Work;
+import org.neo4j.concurrent.WorkSync;
 import org.neo4j.kernel.api.exceptions.TransactionFailureException;
 import org.neo4j.kernel.impl.transaction.log.TransactionAppender;
 import org.neo4j.kernel.impl.transaction.tracing.CommitEvent;
@@ -34,11 +43,40 @@ public class TransactionRepresentationCommitProcess implements TransactionCommit
 {
     private final TransactionAppender appender;
     private final StorageEngine storageEngine;
+    private final Map<TransactionApplicationMode,WorkSync<StorageEngine,StoreApplication>> storeApplications;
 
     public TransactionRepresentationCommitProcess( TransactionAppender appender, StorageEngine storageEngine )
+    {
+        this( appender, storageEngine, false );
+    }
+
+    /**
+     * @param pipelined if {@code true}, then committed batches are applied to the store by a shared applier stage,
+     * instead of by each committing thread on its own. The thread that gets to apply will apply all batches that
+     * have been committed to the log in the meantime, in one go, while other threads are appending to the log.
+     * This way, the cost of applying is amortised over many transactions, and commit throughput becomes bound by
+     * the log force rather than by store application. Committing threads still wait for their transactions to be
+     * applied before returning, so the visibility of committed transactions is unchanged. If applying a combined
+     * batch fails, then the transactions of all threads in it fail, see {@link StoreApplication}.
+     */
+    public TransactionRepresentationCommitProcess( TransactionAppender appender, StorageEngine storageEngine,
+            boolean pipelined )
     {
         this.appender = appender;
         this.storageEngine = storageEngine;
+        this.storeApplications = pipelined ? newStoreApplications( storageEngine ) : null;
+    }
+
+    private static Map<TransactionApplicationMode,WorkSync<StorageEngine,StoreApplication>> newStoreApplications(
+            StorageEngine storageEngine )
+    {
+        Map<TransactionApplicationMode,WorkSync<StorageEngine,StoreApplication>> storeApplications =
+                new EnumMap<>( TransactionApplicationMode.class );
+        for ( TransactionApplicationMode mode : TransactionApplicationMode.values() )
+        {
+            storeApplications.put( mode, new WorkSync<>( storageEngine ) );
+        }
+        return storeApplications;
     }
 
     @Override
@@ -75,7 +113,14 @@ public class TransactionRepresentationCommitProcess implements TransactionCommit
     {
         try ( StoreApplyEvent storeApplyEvent = commitEvent.beginStoreApply() )
         {
-            storageEngine.apply( batch, mode );
+            if ( storeApplications != null && !requiresApplicationOrdering( batch ) )
+            {
+                applyPipelined( batch, mode );
+            }
+            else
+            {
+                storageEngine.apply( batch, mode );
+            }
         }
         catch ( Throwable cause )
         {
@@ -84,6 +129,42 @@ public class TransactionRepresentationCommitProcess implements TransactionCommit
         }
     }
 
+    private void applyPipelined( TransactionToApply batch, TransactionApplicationMode mode ) throws Throwable
+    {
+        StoreApplication application = new StoreApplication( batch, mode );
+        try
+        {
+            storeApplications.get( mode ).apply( application );
+        }
+        catch ( ExecutionException e )
+        {
+            throw e.getCause();
+        }
+        if ( application.failure != null )
+        {
+            // Our batch was applied together with a batch from another thread, and that application failed.
+            throw application.failure;
+        }
+    }
+
+    /**
+     * Transactions with legacy index changes wait for their turn in the legacy index transaction ordering when they
+     * are applied. Such a batch could wait for a transaction whose thread is itself waiting to get its batch
+     * applied by us, so these batches are always applied directly by the committing thread.
+     */
+    private static boolean requiresApplicationOrdering( TransactionToApply batch )
+    {
+        while ( batch != null )
+        {
+            if ( batch.requiresApplicationOrdering() )
+            {
+                return true;
+            }
+            batch = batch.next();
+        }
+        return false;
+    }
+
     private void close( TransactionToApply batch )
     {
         while ( batch != null )
@@ -96,4 +177,93 @@ public class TransactionRepresentationCommitProcess implements TransactionCommit
             batch = batch.next();
         }
     }
+
+    /**
+     * The store application of the batch of a single committing thread, which can be combined with the batches of
+     * other committing threads and applied to the store as one big batch, in transaction id order.
+     * <p>
+     * A failure to apply the combined batch poisons all batches in it, also those that would have been applied
+     * fine on their own, since there's no telling which batch failed, or how far the application got. This does
+     * not make things worse than they are: the transactions are already in the log when they are applied, so a
+     * failed store application panics the database, after which no transaction can commit anyway.
+     */
+    private static class StoreApplication implements Work<StorageEngine,StoreApplication>
+    {
+        private static final Comparator<StoreApplication> TRANSACTION_ID_ORDER =
+                Comparator.comparingLong( application -> application.batch.transactionId() );
+
+        private final TransactionToApply batch;
+        private final TransactionApplicationMode mode;
+        private List<StoreApplication> combined;
+        private volatile Throwable failure;
+
+        StoreApplication( TransactionToApply batch, TransactionApplicationMode mode )
+        {
+            this.batch = batch;
+            this.mode = mode;
+        }
+
+        @Override
+        public StoreApplication combine( StoreApplication work )
+        {
+            if ( combined == null )
+            {
+                combined = new ArrayList<>();
+                combined.add( this );
+            }
+            combined.add( work );
+            return this;
+        }
+
+        @Override
+        public void apply( StorageEngine storageEngine ) throws Exception
+        {
+            if ( combined == null )
+            {
+                storageEngine.apply( batch, mode );
+                return;
+            }
+
+            combined.sort( TRANSACTION_ID_ORDER );
+            List<TransactionToApply> tails = new ArrayList<>( combined.size() );
+            for ( int i = 0; i < combined.size(); i++ )
+            {
+                TransactionToApply tail = tail( combined.get( i ).batch );
+                if ( i + 1 < combined.size() )
+                {
+                    tail.next( combined.get( i + 1 ).batch );
+                }
+                tails.add( tail );
+            }
+            try
+            {
+                storageEngine.apply( combined.get( 0 ).batch, mode );
+            }
+            catch ( Throwable t )
+            {
+                // Fails all combined batches, see the class documentation
+                for ( StoreApplication application : combined )
+                {
+                    application.failure = t;
+                }
+            }
+            finally
+            {
+                // Every committing thread closes its own batch, so unlink them again.
+                for ( TransactionToApply tail : tails )
+                {
+                    tail.next( null );
+                }
+            }
+        }
+
+        private static TransactionToApply tail( TransactionToApply batch )
+        {
+            while ( batch.next() != null )
+            {
+                batch = batch.next();
+            }
+            return batch;
+        }
+    }
 }
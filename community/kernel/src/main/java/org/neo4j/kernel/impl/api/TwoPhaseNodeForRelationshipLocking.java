@@ -19,8 +19,9 @@
  */
 package org.neo4j.kernel.impl.api;
 
+import java.util.Arrays;
+
 import org.neo4j.collection.primitive.Primitive;
-import org.neo4j.collection.primitive.PrimitiveLongIterator;
 import org.neo4j.collection.primitive.PrimitiveLongSet;
 import org.neo4j.cursor.Cursor;
 import org.neo4j.function.ThrowingConsumer;
@@ -31,6 +32,8 @@ import org.neo4j.storageengine.api.Direction;
 import org.neo4j.storageengine.api.NodeItem;
 import org.neo4j.storageengine.api.RelationshipItem;
 
+import static org.neo4j.collection.primitive.PrimitiveLongCollections.asArray;
+
 class TwoPhaseNodeForRelationshipLocking
 {
     private final PrimitiveLongSet nodeIds = Primitive.longSet();
@@ -38,6 +41,7 @@ class TwoPhaseNodeForRelationshipLocking
     private final ThrowingConsumer<Long,KernelException> relIdAction;
 
     private long firstRelId;
+    private long[] lockedNodeIds;
 
     TwoPhaseNodeForRelationshipLocking( EntityReadOperations entityReadOperations,
             ThrowingConsumer<Long,KernelException> relIdAction )
@@ -84,21 +88,16 @@ class TwoPhaseNodeForRelationshipLocking
 
     private void lockAllNodes( KernelStatement state )
     {
-        PrimitiveLongIterator nodeIdIterator = nodeIds.iterator();
-        while ( nodeIdIterator.hasNext() )
-        {
-            state.locks().optimistic()
-                    .acquireExclusive( state.lockTracer(), ResourceTypes.NODE, nodeIdIterator.next() );
-        }
+        // The whole set of nodes is handed to the lock client as one sorted batch, which keeps the lock
+        // order consistent between transactions and lets the client acquire them in a single call
+        lockedNodeIds = asArray( nodeIds.iterator() );
+        Arrays.sort( lockedNodeIds );
+        state.locks().optimistic().acquireExclusive( state.lockTracer(), ResourceTypes.NODE, lockedNodeIds );
     }
 
     private void unlockAllNodes( KernelStatement state )
     {
-        PrimitiveLongIterator iterator = nodeIds.iterator();
-        while ( iterator.hasNext() )
-        {
-            state.locks().optimistic().releaseExclusive( ResourceTypes.NODE, iterator.next() );
-        }
+        state.locks().optimistic().releaseExclusive( ResourceTypes.NODE, lockedNodeIds );
         nodeIds.clear();
     }
 
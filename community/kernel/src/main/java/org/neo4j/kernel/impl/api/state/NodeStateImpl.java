@@ -74,7 +74,7 @@ public class NodeStateImpl extends PropertyContainerStateImpl implements NodeSta
     {
         if ( !hasAddedRelationships() )
         {
-            relationshipsAdded = new RelationshipChangesForNode( DiffStrategy.ADD, state );
+            relationshipsAdded = new RelationshipChangesForNode( DiffStrategy.ADD, state, state::newIdSet );
         }
         relationshipsAdded.addRelationship( relId, typeId, direction );
     }
@@ -92,7 +92,7 @@ public class NodeStateImpl extends PropertyContainerStateImpl implements NodeSta
         }
         if ( !hasRemovedRelationships() )
         {
-            relationshipsRemoved = new RelationshipChangesForNode( DiffStrategy.REMOVE, state );
+            relationshipsRemoved = new RelationshipChangesForNode( DiffStrategy.REMOVE, state, state::newIdSet );
         }
         relationshipsRemoved.addRelationship( relId, typeId, direction );
     }
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.state;
+
+import org.neo4j.kernel.impl.api.RelationshipVisitor;
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+/**
+ * The type, start node and end node of the relationships created in a transaction, kept in a native memory hash
+ * table instead of as one {@link RelationshipStateImpl} per relationship on the heap. Large write transactions
+ * create millions of relationships, and this keeps them from adding millions of objects for the garbage collector
+ * to trace.
+ * <p>
+ * Each relationship takes a fixed size record of 32 bytes, in an open addressing table with linear probing that is
+ * kept at most half full. Removed relationships leave a tombstone that is dropped when the table grows.
+ * <p>
+ * All memory is reserved from an {@link OffHeapTxStateAllocation} before it is allocated, so
+ * {@link #add(long, int, long, long)} throws {@link OffHeapTxStateMemoryExhaustedException} when the budget is used
+ * up.
+ * <p>
+ * Instances are not thread safe, and must be {@link #close() closed} to free the native memory.
+ */
+class OffHeapCreatedRelationships implements AutoCloseable
+{
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    private static final int RECORD_SIZE = 32;
+    private static final int ID_OFFSET = 0;
+    private static final int START_NODE_OFFSET = 8;
+    private static final int END_NODE_OFFSET = 16;
+    private static final int TYPE_OFFSET = 24;
+    private static final int REMOVED_OFFSET = 28;
+    private static final long EMPTY = -1;
+
+    private final OffHeapTxStateAllocation allocation;
+    private long address;
+    private int capacity;
+    private int occupied;
+    private int size;
+
+    OffHeapCreatedRelationships( OffHeapTxStateAllocation allocation )
+    {
+        this.allocation = allocation;
+    }
+
+    void add( long id, int type, long startNode, long endNode )
+    {
+        if ( (occupied + 1) * 2L > capacity )
+        {
+            grow();
+        }
+
+        long record = address + slot( id, capacity ) * (long) RECORD_SIZE;
+        while ( true )
+        {
+            long recordId = UnsafeUtil.getLong( record + ID_OFFSET );
+            if ( recordId == EMPTY )
+            {
+                occupied++;
+                break;
+            }
+            if ( recordId == id )
+            {
+                if ( isRemoved( record ) )
+                {
+                    break;
+                }
+                size--;
+                break;
+            }
+            record = nextRecord( record, address, capacity );
+        }
+        writeRecord( record, id, type, startNode, endNode );
+        size++;
+    }
+
+    boolean contains( long id )
+    {
+        return find( id ) != 0;
+    }
+
+    <EX extends Exception> boolean visit( long id, RelationshipVisitor<EX> visitor ) throws EX
+    {
+        long record = find( id );
+        if ( record == 0 )
+        {
+            return false;
+        }
+        visitor.visit( id, UnsafeUtil.getInt( record + TYPE_OFFSET ), UnsafeUtil.getLong( record + START_NODE_OFFSET ),
+                UnsafeUtil.getLong( record + END_NODE_OFFSET ) );
+        return true;
+    }
+
+    boolean remove( long id )
+    {
+        long record = find( id );
+        if ( record == 0 )
+        {
+            return false;
+        }
+        UnsafeUtil.putInt( record + REMOVED_OFFSET, 1 );
+        size--;
+        return true;
+    }
+
+    int size()
+    {
+        return size;
+    }
+
+    @Override
+    public void close()
+    {
+        if ( address != 0 )
+        {
+            UnsafeUtil.free( address );
+            allocation.release( bytes( capacity ) );
+            address = 0;
+            capacity = 0;
+            occupied = 0;
+            size = 0;
+        }
+    }
+
+    private long find( long id )
+    {
+        if ( address == 0 )
+        {
+            return 0;
+        }
+        long record = address + slot( id, capacity ) * (long) RECORD_SIZE;
+        long recordId;
+        while ( (recordId = UnsafeUtil.getLong( record + ID_OFFSET )) != EMPTY )
+        {
+            if ( recordId == id )
+            {
+                return isRemoved( record ) ? 0 : record;
+            }
+            record = nextRecord( record, address, capacity );
+        }
+        return 0;
+    }
+
+    private void grow()
+    {
+        int newCapacity = capacity == 0 ? INITIAL_CAPACITY : capacity * 2;
+        if ( newCapacity < 0 )
+        {
+            throw new IllegalStateException( "Can not keep more than " + capacity / 2 + " created relationships" );
+        }
+        allocation.reserve( bytes( newCapacity ) );
+        long newAddress = UnsafeUtil.allocateMemory( bytes( newCapacity ) );
+        UnsafeUtil.setMemory( newAddress, bytes( newCapacity ), (byte) -1 );
+
+        int live = 0;
+        for ( long record = address, end = address + bytes( capacity ); record < end; record += RECORD_SIZE )
+        {
+            long id = UnsafeUtil.getLong( record + ID_OFFSET );
+            if ( id != EMPTY && !isRemoved( record ) )
+            {
+                long target = newAddress + slot( id, newCapacity ) * (long) RECORD_SIZE;
+                while ( UnsafeUtil.getLong( target + ID_OFFSET ) != EMPTY )
+                {
+                    target = nextRecord( target, newAddress, newCapacity );
+                }
+                UnsafeUtil.copyMemory( record, target, RECORD_SIZE );
+                live++;
+            }
+        }
+
+        close();
+        address = newAddress;
+        capacity = newCapacity;
+        occupied = live;
+        size = live;
+    }
+
+    private static long nextRecord( long record, long tableAddress, int tableCapacity )
+    {
+        record += RECORD_SIZE;
+        return record == tableAddress + bytes( tableCapacity ) ? tableAddress : record;
+    }
+
+    private static void writeRecord( long record, long id, int type, long startNode, long endNode )
+    {
+        UnsafeUtil.putLong( record + ID_OFFSET, id );
+        UnsafeUtil.putLong( record + START_NODE_OFFSET, startNode );
+        UnsafeUtil.putLong( record + END_NODE_OFFSET, endNode );
+        UnsafeUtil.putInt( record + TYPE_OFFSET, type );
+        UnsafeUtil.putInt( record + REMOVED_OFFSET, 0 );
+    }
+
+    private static boolean isRemoved( long record )
+    {
+        return UnsafeUtil.getInt( record + REMOVED_OFFSET ) != 0;
+    }
+
+    private static int slot( long id, int capacity )
+    {
+        long hash = id * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & (capacity - 1);
+    }
+
+    private static long bytes( int capacity )
+    {
+        return capacity * (long) RECORD_SIZE;
+    }
+}
@@ -0,0 +1,420 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.state;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import org.neo4j.collection.primitive.PrimitiveLongCollections.PrimitiveLongBaseIterator;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.collection.primitive.PrimitiveLongVisitor;
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+/**
+ * Set of node or relationship ids kept in native memory, for the off-heap state of a transaction.
+ * <p>
+ * Ids are appended to a log in the order they are added, and found through an open addressing index of their
+ * positions in that log, with linear probing. A removed id is blanked out in the log and leaves a tombstone in the
+ * index, which is dropped when the index is rebuilt.
+ * <p>
+ * Iterators walk the log by position, and behave like those of the
+ * {@link org.neo4j.kernel.impl.util.VersionedHashMap} that on-heap state uses: the set may be changed while iterating
+ * over it, ids added after an iterator was created are not returned by it, and ids removed before the iterator
+ * reaches them are skipped.
+ * <p>
+ * All memory is reserved from an {@link OffHeapTxStateAllocation} before it is allocated, and nothing is allocated
+ * until the first id is added. Instances are not thread safe, and must be {@link #close() closed} to free the native
+ * memory.
+ */
+class OffHeapLongSet implements PrimitiveLongSet
+{
+    private static final int INITIAL_LOG_CAPACITY = 8;
+    private static final int INITIAL_INDEX_CAPACITY = 16;
+    private static final long REMOVED = -1;
+    private static final int EMPTY_SLOT = -1;
+    private static final int TOMBSTONE = -2;
+
+    private final OffHeapTxStateAllocation allocation;
+    private long log;
+    private int logCapacity;
+    private int length;
+    private long index;
+    private int indexCapacity;
+    private int occupiedSlots;
+    private int size;
+
+    OffHeapLongSet( OffHeapTxStateAllocation allocation )
+    {
+        this.allocation = allocation;
+    }
+
+    @Override
+    public boolean add( long value )
+    {
+        if ( value < 0 )
+        {
+            throw new IllegalArgumentException( "Only non-negative ids can be kept off heap, but got " + value );
+        }
+        if ( findSlot( value ) != -1 )
+        {
+            return false;
+        }
+        if ( length == logCapacity )
+        {
+            growLog();
+        }
+        if ( (occupiedSlots + 1) * 2L > indexCapacity )
+        {
+            // Only grow the index when it fills up with ids, and just drop the tombstones otherwise
+            long newCapacity = indexCapacity == 0 ? INITIAL_INDEX_CAPACITY : indexCapacity;
+            if ( (size + 1) * 4L > newCapacity )
+            {
+                newCapacity *= 2;
+            }
+            rebuildIndex( newCapacity );
+        }
+
+        int slot = slot( value, indexCapacity );
+        int tombstone = -1;
+        int position;
+        while ( (position = slotPosition( slot )) != EMPTY_SLOT )
+        {
+            if ( position == TOMBSTONE && tombstone == -1 )
+            {
+                tombstone = slot;
+            }
+            slot = nextSlot( slot, indexCapacity );
+        }
+        if ( tombstone != -1 )
+        {
+            slot = tombstone;
+        }
+        else
+        {
+            occupiedSlots++;
+        }
+        UnsafeUtil.putLong( logEntry( length ), value );
+        UnsafeUtil.putInt( slotAddress( index, slot ), length );
+        length++;
+        size++;
+        return true;
+    }
+
+    @Override
+    public boolean addAll( PrimitiveLongIterator values )
+    {
+        boolean changed = false;
+        while ( values.hasNext() )
+        {
+            changed |= add( values.next() );
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean contains( long value )
+    {
+        return findSlot( value ) != -1;
+    }
+
+    @Override
+    public boolean test( long value )
+    {
+        return contains( value );
+    }
+
+    @Override
+    public boolean remove( long value )
+    {
+        int slot = findSlot( value );
+        if ( slot == -1 )
+        {
+            return false;
+        }
+        UnsafeUtil.putLong( logEntry( slotPosition( slot ) ), REMOVED );
+        UnsafeUtil.putInt( slotAddress( index, slot ), TOMBSTONE );
+        size--;
+        return true;
+    }
+
+    @Override
+    public PrimitiveLongIterator iterator()
+    {
+        return new PrimitiveLongBaseIterator()
+        {
+            private final int limit = length;
+            private int position;
+
+            @Override
+            protected boolean fetchNext()
+            {
+                while ( position < Math.min( limit, length ) )
+                {
+                    long value = UnsafeUtil.getLong( logEntry( position++ ) );
+                    if ( value != REMOVED )
+                    {
+                        return next( value );
+                    }
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public <E extends Exception> void visitKeys( PrimitiveLongVisitor<E> visitor ) throws E
+    {
+        for ( int position = 0; position < length; position++ )
+        {
+            long value = UnsafeUtil.getLong( logEntry( position ) );
+            if ( value != REMOVED && visitor.visited( value ) )
+            {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    @Override
+    public void clear()
+    {
+        if ( index != 0 )
+        {
+            UnsafeUtil.setMemory( index, indexCapacity * (long) Integer.BYTES, (byte) EMPTY_SLOT );
+        }
+        length = 0;
+        occupiedSlots = 0;
+        size = 0;
+    }
+
+    @Override
+    public void close()
+    {
+        if ( log != 0 )
+        {
+            UnsafeUtil.free( log );
+            allocation.release( logCapacity * (long) Long.BYTES );
+            log = 0;
+            logCapacity = 0;
+        }
+        if ( index != 0 )
+        {
+            UnsafeUtil.free( index );
+            allocation.release( indexCapacity * (long) Integer.BYTES );
+            index = 0;
+            indexCapacity = 0;
+        }
+        length = 0;
+        occupiedSlots = 0;
+        size = 0;
+    }
+
+    /**
+     * @return a view of this set, for the diff sets and relationship changes of transaction state that hold
+     * {@link Set sets} of ids.
+     */
+    Set<Long> asSet()
+    {
+        return new AbstractSet<Long>()
+        {
+            @Override
+            public Iterator<Long> iterator()
+            {
+                PrimitiveLongIterator values = OffHeapLongSet.this.iterator();
+                return new Iterator<Long>()
+                {
+                    private long current = REMOVED;
+
+                    @Override
+                    public boolean hasNext()
+                    {
+                        return values.hasNext();
+                    }
+
+                    @Override
+                    public Long next()
+                    {
+                        current = values.next();
+                        return current;
+                    }
+
+                    @Override
+                    public void remove()
+                    {
+                        if ( current == REMOVED )
+                        {
+                            throw new IllegalStateException();
+                        }
+                        OffHeapLongSet.this.remove( current );
+                        current = REMOVED;
+                    }
+                };
+            }
+
+            @Override
+            public int size()
+            {
+                return size;
+            }
+
+            @Override
+            public boolean isEmpty()
+            {
+                return size == 0;
+            }
+
+            @Override
+            public boolean contains( Object o )
+            {
+                return o instanceof Long && OffHeapLongSet.this.contains( (Long) o );
+            }
+
+            @Override
+            public boolean add( Long value )
+            {
+                return OffHeapLongSet.this.add( value );
+            }
+
+            @Override
+            public boolean remove( Object o )
+            {
+                return o instanceof Long && OffHeapLongSet.this.remove( (Long) o );
+            }
+
+            @Override
+            public void clear()
+            {
+                OffHeapLongSet.this.clear();
+            }
+        };
+    }
+
+    private int findSlot( long value )
+    {
+        if ( index == 0 )
+        {
+            return -1;
+        }
+        int slot = slot( value, indexCapacity );
+        int position;
+        while ( (position = slotPosition( slot )) != EMPTY_SLOT )
+        {
+            if ( position >= 0 && UnsafeUtil.getLong( logEntry( position ) ) == value )
+            {
+                return slot;
+            }
+            slot = nextSlot( slot, indexCapacity );
+        }
+        return -1;
+    }
+
+    private void growLog()
+    {
+        int newCapacity = logCapacity == 0 ? INITIAL_LOG_CAPACITY : logCapacity * 2;
+        if ( newCapacity < 0 )
+        {
+            throw new IllegalStateException( "Can not keep more than " + logCapacity + " ids in one set" );
+        }
+        long bytes = newCapacity * (long) Long.BYTES;
+        allocation.reserve( bytes );
+        long newLog = UnsafeUtil.allocateMemory( bytes );
+        if ( log != 0 )
+        {
+            UnsafeUtil.copyMemory( log, newLog, length * (long) Long.BYTES );
+            UnsafeUtil.free( log );
+            allocation.release( logCapacity * (long) Long.BYTES );
+        }
+        log = newLog;
+        logCapacity = newCapacity;
+    }
+
+    private void rebuildIndex( long newCapacity )
+    {
+        if ( newCapacity > Integer.MAX_VALUE / 2 + 1 )
+        {
+            throw new IllegalStateException( "Can not keep more than " + size + " ids in one set" );
+        }
+        int capacity = (int) newCapacity;
+        long bytes = capacity * (long) Integer.BYTES;
+        allocation.reserve( bytes );
+        long newIndex = UnsafeUtil.allocateMemory( bytes );
+        UnsafeUtil.setMemory( newIndex, bytes, (byte) EMPTY_SLOT );
+        for ( int position = 0; position < length; position++ )
+        {
+            long value = UnsafeUtil.getLong( logEntry( position ) );
+            if ( value != REMOVED )
+            {
+                int slot = slot( value, capacity );
+                while ( UnsafeUtil.getInt( slotAddress( newIndex, slot ) ) != EMPTY_SLOT )
+                {
+                    slot = nextSlot( slot, capacity );
+                }
+                UnsafeUtil.putInt( slotAddress( newIndex, slot ), position );
+            }
+        }
+        if ( index != 0 )
+        {
+            UnsafeUtil.free( index );
+            allocation.release( indexCapacity * (long) Integer.BYTES );
+        }
+        index = newIndex;
+        indexCapacity = capacity;
+        occupiedSlots = size;
+    }
+
+    private long logEntry( int position )
+    {
+        return log + position * (long) Long.BYTES;
+    }
+
+    private int slotPosition( int slot )
+    {
+        return UnsafeUtil.getInt( slotAddress( index, slot ) );
+    }
+
+    private static long slotAddress( long index, int slot )
+    {
+        return index + slot * (long) Integer.BYTES;
+    }
+
+    private static int nextSlot( int slot, int capacity )
+    {
+        return (slot + 1) & (capacity - 1);
+    }
+
+    private static int slot( long value, int capacity )
+    {
+        long hash = value * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & (capacity - 1);
+    }
+}
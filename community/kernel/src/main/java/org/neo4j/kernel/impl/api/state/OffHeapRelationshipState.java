@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.state;
+
+import java.util.Iterator;
+
+import org.neo4j.kernel.api.exceptions.schema.ConstraintValidationException;
+import org.neo4j.kernel.impl.api.RelationshipVisitor;
+import org.neo4j.storageengine.api.StorageProperty;
+import org.neo4j.storageengine.api.txstate.RelationshipState;
+
+/**
+ * The {@link RelationshipState} of a relationship whose creation is recorded in {@link OffHeapCreatedRelationships}.
+ * The relationship itself is read from native memory, while its property changes, if it has any, come from the
+ * regular on-heap state.
+ */
+class OffHeapRelationshipState implements RelationshipState
+{
+    private final long id;
+    private final OffHeapCreatedRelationships createdRelationships;
+    private final RelationshipState properties;
+
+    OffHeapRelationshipState( long id, OffHeapCreatedRelationships createdRelationships, RelationshipState properties )
+    {
+        this.id = id;
+        this.createdRelationships = createdRelationships;
+        this.properties = properties;
+    }
+
+    @Override
+    public long getId()
+    {
+        return id;
+    }
+
+    @Override
+    public <EX extends Exception> boolean accept( RelationshipVisitor<EX> visitor ) throws EX
+    {
+        return createdRelationships.visit( id, visitor );
+    }
+
+    @Override
+    public Iterator<StorageProperty> addedProperties()
+    {
+        return properties.addedProperties();
+    }
+
+    @Override
+    public Iterator<StorageProperty> changedProperties()
+    {
+        return properties.changedProperties();
+    }
+
+    @Override
+    public Iterator<Integer> removedProperties()
+    {
+        return properties.removedProperties();
+    }
+
+    @Override
+    public Iterator<StorageProperty> addedAndChangedProperties()
+    {
+        return properties.addedAndChangedProperties();
+    }
+
+    @Override
+    public Iterator<StorageProperty> augmentProperties( Iterator<StorageProperty> iterator )
+    {
+        return properties.augmentProperties( iterator );
+    }
+
+    @Override
+    public void accept( Visitor visitor ) throws ConstraintValidationException
+    {
+        properties.accept( visitor );
+    }
+
+    @Override
+    public boolean hasChanges()
+    {
+        return properties.hasChanges();
+    }
+
+    @Override
+    public StorageProperty getChangedProperty( int propertyKeyId )
+    {
+        return properties.getChangedProperty( propertyKeyId );
+    }
+
+    @Override
+    public StorageProperty getAddedProperty( int propertyKeyId )
+    {
+        return properties.getAddedProperty( propertyKeyId );
+    }
+
+    @Override
+    public boolean isPropertyRemoved( int propertyKeyId )
+    {
+        return properties.isPropertyRemoved( propertyKeyId );
+    }
+}
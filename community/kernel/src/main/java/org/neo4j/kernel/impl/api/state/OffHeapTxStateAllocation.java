@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.state;
+
+import static java.lang.String.format;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.tx_state_max_off_heap_memory;
+
+/**
+ * The native memory of one transaction state, reserved from the {@link OffHeapTxStateMemory} budget shared by all
+ * transactions.
+ * <p>
+ * A refused reservation throws {@link OffHeapTxStateMemoryExhaustedException}, which may leave the transaction state
+ * half way through a change. The allocation remembers this, so that the transaction state can refuse to be committed.
+ */
+class OffHeapTxStateAllocation
+{
+    private final OffHeapTxStateMemory memory;
+    private OffHeapTxStateMemoryExhaustedException exhausted;
+
+    OffHeapTxStateAllocation( OffHeapTxStateMemory memory )
+    {
+        this.memory = memory;
+    }
+
+    /**
+     * @param bytes number of bytes about to be allocated.
+     * @throws OffHeapTxStateMemoryExhaustedException if that would exceed the budget.
+     */
+    void reserve( long bytes )
+    {
+        if ( !memory.reserve( bytes ) )
+        {
+            exhausted = new OffHeapTxStateMemoryExhaustedException( format(
+                    "The transaction state needed another %d bytes of off-heap memory, but %d of the %d bytes " +
+                    "allowed by '%s' are in use. Split the work into smaller transactions, or raise the limit.",
+                    bytes, memory.usedBytes(), memory.maxBytes(), tx_state_max_off_heap_memory.name() ) );
+            throw exhausted;
+        }
+    }
+
+    void release( long bytes )
+    {
+        memory.release( bytes );
+    }
+
+    /**
+     * @throws OffHeapTxStateMemoryExhaustedException if a reservation has been refused, since the transaction state
+     * may then be inconsistent.
+     */
+    void assertNotExhausted()
+    {
+        if ( exhausted != null )
+        {
+            throw new OffHeapTxStateMemoryExhaustedException(
+                    "Can not commit a transaction that ran out of off-heap memory for its state", exhausted );
+        }
+    }
+}
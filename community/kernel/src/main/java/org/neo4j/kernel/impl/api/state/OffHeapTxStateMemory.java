@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.state;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounds the native memory that off-heap transaction state may use, summed over all transactions of a database.
+ * <p>
+ * Transaction state reserves memory through an {@link OffHeapTxStateAllocation} before allocating it, and a refused
+ * reservation fails that transaction.
+ */
+public class OffHeapTxStateMemory
+{
+    private final long maxBytes;
+    private final AtomicLong usedBytes = new AtomicLong();
+
+    public OffHeapTxStateMemory( long maxBytes )
+    {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @param bytes number of bytes about to be allocated.
+     * @return {@code true} if the bytes were reserved, or {@code false} if that would exceed the budget.
+     */
+    boolean reserve( long bytes )
+    {
+        long used;
+        do
+        {
+            used = usedBytes.get();
+            if ( used + bytes > maxBytes )
+            {
+                return false;
+            }
+        }
+        while ( !usedBytes.compareAndSet( used, used + bytes ) );
+        return true;
+    }
+
+    void release( long bytes )
+    {
+        usedBytes.addAndGet( -bytes );
+    }
+
+    public long usedBytes()
+    {
+        return usedBytes.get();
+    }
+
+    public long maxBytes()
+    {
+        return maxBytes;
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.state;
+
+import org.neo4j.graphdb.TransientTransactionFailureException;
+import org.neo4j.kernel.api.exceptions.Status;
+
+/**
+ * Signals that the state of a transaction needed more native memory than is left of
+ * {@link org.neo4j.graphdb.factory.GraphDatabaseSettings#tx_state_max_off_heap_memory}. The transaction can not be
+ * committed after this.
+ */
+public class OffHeapTxStateMemoryExhaustedException extends TransientTransactionFailureException
+        implements Status.HasStatus
+{
+    public OffHeapTxStateMemoryExhaustedException( String message )
+    {
+        super( message );
+    }
+
+    public OffHeapTxStateMemoryExhaustedException( String message, Throwable cause )
+    {
+        super( message, cause );
+    }
+
+    @Override
+    public Status status()
+    {
+        return Status.Transaction.OffHeapMemoryExhausted;
+    }
+}
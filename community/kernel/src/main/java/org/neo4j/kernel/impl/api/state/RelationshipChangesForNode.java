@@ -26,6 +26,7 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import org.neo4j.collection.primitive.Primitive;
 import org.neo4j.collection.primitive.PrimitiveIntCollections;
@@ -175,6 +176,7 @@ public class RelationshipChangesForNode
 
     private final DiffStrategy diffStrategy;
     private final Home relationshipHome;
+    private final Supplier<Set<Long>> relationshipSets;
 
     private Map<Integer /* Type */, Set<Long /* Id */>> outgoing;
     private Map<Integer /* Type */, Set<Long /* Id */>> incoming;
@@ -185,16 +187,26 @@ public class RelationshipChangesForNode
     private int totalLoops;
 
     public RelationshipChangesForNode( DiffStrategy diffStrategy, RelationshipVisitor.Home relationshipHome )
+    {
+        this( diffStrategy, relationshipHome, () -> Collections.newSetFromMap( new VersionedHashMap<>() ) );
+    }
+
+    /**
+     * @param relationshipSets creates the sets of relationship ids kept per type and direction, which must allow
+     * changes while iterating over them, like sets backed by a {@link VersionedHashMap}.
+     */
+    public RelationshipChangesForNode( DiffStrategy diffStrategy, RelationshipVisitor.Home relationshipHome,
+            Supplier<Set<Long>> relationshipSets )
     {
         this.diffStrategy = diffStrategy;
         this.relationshipHome = relationshipHome;
+        this.relationshipSets = relationshipSets;
     }
 
     public void addRelationship( long relId, int typeId, Direction direction )
     {
         Map<Integer, Set<Long>> relTypeToRelsMap = getTypeToRelMapForDirection( direction );
-        Set<Long> rels =
-                relTypeToRelsMap.computeIfAbsent( typeId, k -> Collections.newSetFromMap( new VersionedHashMap<>() ) );
+        Set<Long> rels = relTypeToRelsMap.computeIfAbsent( typeId, k -> relationshipSets.get() );
 
         rels.add( relId );
 
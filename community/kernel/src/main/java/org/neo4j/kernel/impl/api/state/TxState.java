@@ -19,9 +19,12 @@
  */
 package org.neo4j.kernel.impl.api.state;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
@@ -51,6 +54,7 @@ import org.neo4j.kernel.impl.api.cursor.TxSinglePropertyCursor;
 import org.neo4j.kernel.impl.api.cursor.TxSingleRelationshipCursor;
 import org.neo4j.kernel.impl.api.store.RelationshipIterator;
 import org.neo4j.kernel.impl.util.InstanceCache;
+import org.neo4j.kernel.impl.util.VersionedHashMap;
 import org.neo4j.kernel.impl.util.diffsets.DiffSets;
 import org.neo4j.kernel.impl.util.diffsets.RelationshipDiffSets;
 import org.neo4j.storageengine.api.Direction;
@@ -167,11 +171,29 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     private InstanceCache<TxAllPropertyCursor> propertyCursor;
     private InstanceCache<TxSinglePropertyCursor> singlePropertyCursor;
 
+    /**
+     * Native memory of off-heap state, or {@code null} if all state is kept on the heap.
+     */
+    private final OffHeapTxStateAllocation offHeapAllocation;
+    private OffHeapCreatedRelationships offHeapCreatedRelationships;
+    private final List<OffHeapLongSet> offHeapLongSets = new ArrayList<>();
+
     private boolean hasChanges;
     private boolean hasDataChanges;
 
     public TxState()
     {
+        this( null );
+    }
+
+    /**
+     * @param offHeapMemory budget for keeping the bulk of the state of large transactions in native memory, or
+     * {@code null} to keep all state on the heap. Changes that need more than is left of the budget throw
+     * {@link OffHeapTxStateMemoryExhaustedException}, after which this state can no longer be committed.
+     */
+    public TxState( OffHeapTxStateMemory offHeapMemory )
+    {
+        this.offHeapAllocation = offHeapMemory == null ? null : new OffHeapTxStateAllocation( offHeapMemory );
         singleNodeCursor = new InstanceCache<TxSingleNodeCursor>()
         {
             @Override
@@ -219,6 +241,11 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     public void accept( final TxStateVisitor visitor )
             throws ConstraintValidationException, CreateConstraintFailureException
     {
+        if ( offHeapAllocation != null )
+        {
+            offHeapAllocation.assertNotExhausted();
+        }
+
         // Created nodes
         if ( nodes != null )
         {
@@ -525,7 +552,14 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
             getOrCreateNodeState( endNodeId ).addRelationship( id, relationshipTypeId, Direction.INCOMING );
         }
 
-        getOrCreateRelationshipState( id ).setMetaData( startNodeId, endNodeId, relationshipTypeId );
+        if ( offHeapAllocation != null )
+        {
+            offHeapCreatedRelationships().add( id, relationshipTypeId, startNodeId, endNodeId );
+        }
+        else
+        {
+            getOrCreateRelationshipState( id ).setMetaData( startNodeId, endNodeId, relationshipTypeId );
+        }
 
         dataChanged();
     }
@@ -568,6 +602,10 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
                 removed.clear();
             }
         }
+        if ( offHeapCreatedRelationships != null )
+        {
+            offHeapCreatedRelationships.remove( id );
+        }
 
         dataChanged();
     }
@@ -575,7 +613,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     @Override
     public void relationshipDoDeleteAddedInThisTx( long relationshipId )
     {
-        RELATIONSHIP_STATE.get( this, relationshipId ).accept( this::relationshipDoDelete );
+        relationshipVisit( relationshipId, this::relationshipDoDelete );
     }
 
     @Override
@@ -710,7 +748,12 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     @Override
     public RelationshipState getRelationshipState( long id )
     {
-        return RELATIONSHIP_STATE.get( this, id );
+        RelationshipState state = RELATIONSHIP_STATE.get( this, id );
+        if ( offHeapCreatedRelationships != null && offHeapCreatedRelationships.contains( id ) )
+        {
+            return new OffHeapRelationshipState( id, offHeapCreatedRelationships, state );
+        }
+        return state;
     }
 
     @Override
@@ -843,7 +886,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     {
         if ( nodes == null )
         {
-            nodes = new DiffSets<>();
+            nodes = offHeapAllocation == null ? new DiffSets<>() : new DiffSets<>( newIdSet(), newIdSet() );
         }
         return nodes;
     }
@@ -876,7 +919,8 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     {
         if ( relationships == null )
         {
-            relationships = new RelationshipDiffSets<>( this );
+            relationships = offHeapAllocation == null ? new RelationshipDiffSets<>( this )
+                                                      : new RelationshipDiffSets<>( this, newIdSet(), newIdSet() );
         }
         return relationships;
     }
@@ -897,6 +941,32 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
         return RELATIONSHIP_STATE.getOrCreate( this, relationshipId );
     }
 
+    private OffHeapCreatedRelationships offHeapCreatedRelationships()
+    {
+        if ( offHeapCreatedRelationships == null )
+        {
+            offHeapCreatedRelationships = new OffHeapCreatedRelationships( offHeapAllocation );
+        }
+        return offHeapCreatedRelationships;
+    }
+
+    /**
+     * @return a set for node or relationship ids, in native memory if off-heap state is enabled. Like sets backed by
+     * a {@link VersionedHashMap}, it may be changed while iterating over it.
+     */
+    Set<Long> newIdSet()
+    {
+        return offHeapAllocation == null ? Collections.newSetFromMap( new VersionedHashMap<>() )
+                                         : newOffHeapLongSet().asSet();
+    }
+
+    private OffHeapLongSet newOffHeapLongSet()
+    {
+        OffHeapLongSet set = new OffHeapLongSet( offHeapAllocation );
+        offHeapLongSets.add( set );
+        return set;
+    }
+
     private GraphState getOrCreateGraphState()
     {
         if ( graphState == null )
@@ -1326,9 +1396,27 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     @Override
     public <EX extends Exception> boolean relationshipVisit( long relId, RelationshipVisitor<EX> visitor ) throws EX
     {
+        if ( offHeapCreatedRelationships != null && offHeapCreatedRelationships.visit( relId, visitor ) )
+        {
+            return true;
+        }
         return RELATIONSHIP_STATE.get( this, relId ).accept( visitor );
     }
 
+    /**
+     * Frees the native memory held by this transaction state. The state must not be used after this.
+     */
+    public void close()
+    {
+        if ( offHeapCreatedRelationships != null )
+        {
+            offHeapCreatedRelationships.close();
+            offHeapCreatedRelationships = null;
+        }
+        offHeapLongSets.forEach( OffHeapLongSet::close );
+        offHeapLongSets.clear();
+    }
+
     @Override
     public boolean hasDataChanges()
     {
@@ -1339,7 +1427,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     {
         if ( nodesDeletedInTx == null )
         {
-            nodesDeletedInTx = Primitive.longSet();
+            nodesDeletedInTx = offHeapAllocation == null ? Primitive.longSet() : newOffHeapLongSet();
         }
         nodesDeletedInTx.add( id );
     }
@@ -1348,7 +1436,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     {
         if ( relationshipsDeletedInTx == null )
         {
-            relationshipsDeletedInTx = Primitive.longSet();
+            relationshipsDeletedInTx = offHeapAllocation == null ? Primitive.longSet() : newOffHeapLongSet();
         }
         relationshipsDeletedInTx.add( id );
     }
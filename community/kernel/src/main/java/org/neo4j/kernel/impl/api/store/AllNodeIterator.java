@@ -37,7 +37,7 @@ public class AllNodeIterator extends HighIdAwareIterator<NodeStore>
         {
             try
             {
-                if ( store.isInUse( currentId ) )
+                if ( store.isInUseScanning( currentId ) )
                 {
                     return next( currentId );
                 }
@@ -38,6 +38,7 @@ public class CommunityCommitProcessFactory implements CommitProcessFactory
         {
             return new ReadOnlyTransactionCommitProcess();
         }
-        return new TransactionRepresentationCommitProcess( appender, storageEngine );
+        return new TransactionRepresentationCommitProcess( appender, storageEngine,
+                config.get( GraphDatabaseSettings.pipelined_commit ) );
     }
 }
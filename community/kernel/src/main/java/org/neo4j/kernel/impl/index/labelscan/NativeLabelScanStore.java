@@ -56,8 +56,8 @@ import static org.neo4j.kernel.impl.store.MetaDataStore.DEFAULT_NAME;
 
 /**
  * {@link LabelScanStore} which is implemented using {@link GBPTree} atop a {@link PageCache}.
- * Only a single writer is allowed at any given point in time so synchronization or merging of updates
- * need to be handled externally.
+ * Multiple writers are allowed at the same time. Updates are applied to the tree as bit-wise merges of label bit sets,
+ * which gives the same result regardless of the order in which concurrent writers apply them.
  * <p>
  * About the {@link Layout} used in this instance of {@link GBPTree}:
  * <ul>
@@ -148,9 +148,9 @@ public class NativeLabelScanStore implements LabelScanStore
     private final RecoveryCleanupWorkCollector recoveryCleanupWorkCollector;
 
     /**
-     * The single instance of {@link NativeLabelScanWriter} used for updates.
+     * Number of updates each {@link NativeLabelScanWriter} buffers before applying them to the tree.
      */
-    private final NativeLabelScanWriter singleWriter;
+    private static final int WRITER_BATCH_SIZE = 1_000;
 
     /**
      * Write rebuilding bit to header.
@@ -181,7 +181,6 @@ public class NativeLabelScanStore implements LabelScanStore
         this.pageSize = pageSize;
         this.fullStoreChangeStream = fullStoreChangeStream;
         this.storeFile = getLabelScanStoreFile( storeDir );
-        this.singleWriter = new NativeLabelScanWriter( 1_000 );
         this.readOnly = readOnly;
         this.monitors = monitors;
         this.monitor = monitors.newMonitor( Monitor.class );
@@ -213,11 +212,9 @@ public class NativeLabelScanStore implements LabelScanStore
 
     /**
      * Returns {@link LabelScanWriter} capable of making changes to this {@link LabelScanStore}.
-     * Only a single writer is allowed at any given point in time.
+     * Multiple writers can be used concurrently, each by one thread at a time.
      *
      * @return {@link LabelScanWriter} capable of making changes to this {@link LabelScanStore}.
-     * @throws IllegalStateException if someone else has already acquired a writer and hasn't yet
-     * called {@link LabelScanWriter#close()}.
      */
     @Override
     public LabelScanWriter newWriter()
@@ -434,7 +431,8 @@ public class NativeLabelScanStore implements LabelScanStore
 
     private NativeLabelScanWriter writer() throws IOException
     {
-        return singleWriter.initialize( index.writer() );
+        // The tree supports concurrent writers, so each writer gets its own update buffer
+        return new NativeLabelScanWriter( WRITER_BATCH_SIZE ).initialize( index.writer() );
     }
 
     @Override
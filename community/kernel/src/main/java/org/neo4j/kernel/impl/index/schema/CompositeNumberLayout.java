@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import org.neo4j.index.internal.gbptree.Layout;
+import org.neo4j.io.pagecache.PageCursor;
+
+/**
+ * {@link Layout} for composite keys of numbers, see {@link CompositeSchemaNumberKey}. The number of slots
+ * is written as meta data of the tree and verified when opening it.
+ */
+abstract class CompositeNumberLayout extends Layout.Adapter<CompositeSchemaNumberKey,NativeSchemaValue>
+{
+    private final int numberOfSlots;
+
+    CompositeNumberLayout( int numberOfSlots )
+    {
+        this.numberOfSlots = numberOfSlots;
+    }
+
+    @Override
+    public CompositeSchemaNumberKey newKey()
+    {
+        return new CompositeSchemaNumberKey( numberOfSlots );
+    }
+
+    @Override
+    public CompositeSchemaNumberKey copyKey( CompositeSchemaNumberKey key, CompositeSchemaNumberKey into )
+    {
+        System.arraycopy( key.types, 0, into.types, 0, numberOfSlots );
+        System.arraycopy( key.rawValueBits, 0, into.rawValueBits, 0, numberOfSlots );
+        into.entityId = key.entityId;
+        into.entityIdIsSpecialTieBreaker = key.entityIdIsSpecialTieBreaker;
+        return into;
+    }
+
+    @Override
+    public NativeSchemaValue newValue()
+    {
+        return NativeSchemaValue.INSTANCE;
+    }
+
+    @Override
+    public int keySize()
+    {
+        return CompositeSchemaNumberKey.size( numberOfSlots );
+    }
+
+    @Override
+    public int valueSize()
+    {
+        return NativeSchemaValue.SIZE;
+    }
+
+    @Override
+    public void writeKey( PageCursor cursor, CompositeSchemaNumberKey key )
+    {
+        for ( int slot = 0; slot < numberOfSlots; slot++ )
+        {
+            cursor.putByte( key.types[slot] );
+            cursor.putLong( key.rawValueBits[slot] );
+        }
+        cursor.putLong( key.entityId );
+    }
+
+    @Override
+    public void writeValue( PageCursor cursor, NativeSchemaValue value )
+    {
+    }
+
+    @Override
+    public void readKey( PageCursor cursor, CompositeSchemaNumberKey into )
+    {
+        for ( int slot = 0; slot < numberOfSlots; slot++ )
+        {
+            into.types[slot] = cursor.getByte();
+            into.rawValueBits[slot] = cursor.getLong();
+        }
+        into.entityId = cursor.getLong();
+    }
+
+    @Override
+    public void readValue( PageCursor cursor, NativeSchemaValue into )
+    {
+    }
+
+    @Override
+    public void writeMetaData( PageCursor cursor )
+    {
+        cursor.putInt( numberOfSlots );
+    }
+
+    @Override
+    public void readMetaData( PageCursor cursor )
+    {
+        int storedNumberOfSlots = cursor.getInt();
+        if ( storedNumberOfSlots != numberOfSlots )
+        {
+            cursor.setCursorException( "Index was created with " + storedNumberOfSlots +
+                    " properties, but opened with " + numberOfSlots );
+        }
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.util.Arrays;
+
+import org.neo4j.values.storable.Value;
+import org.neo4j.values.storable.ValueTuple;
+import org.neo4j.values.storable.Values;
+
+import static java.lang.String.format;
+
+/**
+ * Key of a composite index of numbers, i.e. an index on multiple properties where all values are numbers.
+ * Generalisation of {@link SchemaNumberKey} to a {@link ValueTuple} of numbers, where each value is stored in its
+ * own slot as raw value bits and a type, see {@link RawBits}. Keys compare slot by slot, which makes it possible
+ * to seek for exact values of the first slots and a range of values in the slot after those.
+ */
+class CompositeSchemaNumberKey extends NativeSchemaKey
+{
+    static final int SLOT_SIZE =
+            Byte.BYTES + /* type of value */
+            Long.BYTES;  /* raw value bits */
+
+    final byte[] types;
+    final long[] rawValueBits;
+
+    /**
+     * Slot which the {@code write*} methods of this {@link org.neo4j.values.storable.ValueWriter} writes into.
+     */
+    private int currentSlot;
+
+    CompositeSchemaNumberKey( int numberOfSlots )
+    {
+        this.types = new byte[numberOfSlots];
+        this.rawValueBits = new long[numberOfSlots];
+    }
+
+    /**
+     * @param numberOfSlots number of values in each key.
+     * @return size, in bytes, of a key with {@code numberOfSlots} values.
+     */
+    static int size( int numberOfSlots )
+    {
+        return numberOfSlots * SLOT_SIZE + ENTITY_ID_SIZE;
+    }
+
+    int numberOfSlots()
+    {
+        return types.length;
+    }
+
+    @Override
+    void from( long entityId, Value... values )
+    {
+        assertValidValues( values );
+        for ( int slot = 0; slot < values.length; slot++ )
+        {
+            currentSlot = slot;
+            values[slot].writeTo( this );
+        }
+        this.entityId = entityId;
+        entityIdIsSpecialTieBreaker = false;
+    }
+
+    /**
+     * Sets the given slot to the given value, leaving other slots unchanged. Used together with
+     * {@link #initValueAsLowest(int)} and {@link #initValueAsHighest(int)} to build the bounds of a seek.
+     *
+     * @param slot slot to set.
+     * @param value number value to set the slot to.
+     */
+    void initValue( int slot, Value value )
+    {
+        assertNumber( value );
+        currentSlot = slot;
+        value.writeTo( this );
+    }
+
+    void initValueAsLowest( int slot )
+    {
+        currentSlot = slot;
+        writeFloatingPoint( Double.NEGATIVE_INFINITY );
+    }
+
+    void initValueAsHighest( int slot )
+    {
+        currentSlot = slot;
+        writeFloatingPoint( Double.POSITIVE_INFINITY );
+    }
+
+    private void assertValidValues( Value[] values )
+    {
+        if ( values.length != numberOfSlots() )
+        {
+            throw new IllegalArgumentException( format(
+                    "Key layout has %d slots, tried to create key from %d values", numberOfSlots(), values.length ) );
+        }
+        for ( Value value : values )
+        {
+            assertNumber( value );
+        }
+    }
+
+    private static void assertNumber( Value value )
+    {
+        if ( !Values.isNumberValue( value ) )
+        {
+            throw new IllegalArgumentException( "Key layout does only support numbers, tried to create key from " + value );
+        }
+    }
+
+    /**
+     * A composite key doesn't have a single value, values are written by {@link #from(long, Value...)}.
+     */
+    @Override
+    Value assertValidValue( Value... values )
+    {
+        throw new UnsupportedOperationException( "Composite key has one value per slot" );
+    }
+
+    /**
+     * A composite key doesn't have a single value, see {@link #asValues()}.
+     */
+    @Override
+    Value asValue()
+    {
+        throw new UnsupportedOperationException( "Composite key has one value per slot" );
+    }
+
+    /**
+     * @return the values of this key. Not valid for a key initialized as lowest or highest.
+     */
+    ValueTuple asValues()
+    {
+        Value[] values = new Value[numberOfSlots()];
+        for ( int slot = 0; slot < values.length; slot++ )
+        {
+            values[slot] = RawBits.asNumberValue( rawValueBits[slot], types[slot] );
+        }
+        return ValueTuple.of( values );
+    }
+
+    @Override
+    String propertiesAsString()
+    {
+        return asValues().toString();
+    }
+
+    @Override
+    void initValueAsLowest()
+    {
+        for ( int slot = 0; slot < numberOfSlots(); slot++ )
+        {
+            initValueAsLowest( slot );
+        }
+    }
+
+    @Override
+    void initValueAsHighest()
+    {
+        for ( int slot = 0; slot < numberOfSlots(); slot++ )
+        {
+            initValueAsHighest( slot );
+        }
+    }
+
+    /**
+     * Compares the values of this key to those of another key, slot by slot.
+     * This method is expected to be called in scenarios where inconsistent reads may happen (and later retried).
+     *
+     * @param other the {@link CompositeSchemaNumberKey} to compare to.
+     * @return comparison against the {@code other} {@link CompositeSchemaNumberKey}.
+     */
+    int compareValueTo( CompositeSchemaNumberKey other )
+    {
+        for ( int slot = 0; slot < numberOfSlots(); slot++ )
+        {
+            int comparison = RawBits.compare( rawValueBits[slot], types[slot], other.rawValueBits[slot], other.types[slot] );
+            if ( comparison != 0 )
+            {
+                return comparison;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public String toString()
+    {
+        return format( "types=%s,rawValues=%s,entityId=%d",
+                Arrays.toString( types ), Arrays.toString( rawValueBits ), entityId );
+    }
+
+    @Override
+    public void writeInteger( byte value )
+    {
+        types[currentSlot] = RawBits.BYTE;
+        rawValueBits[currentSlot] = value;
+    }
+
+    @Override
+    public void writeInteger( short value )
+    {
+        types[currentSlot] = RawBits.SHORT;
+        rawValueBits[currentSlot] = value;
+    }
+
+    @Override
+    public void writeInteger( int value )
+    {
+        types[currentSlot] = RawBits.INT;
+        rawValueBits[currentSlot] = value;
+    }
+
+    @Override
+    public void writeInteger( long value )
+    {
+        types[currentSlot] = RawBits.LONG;
+        rawValueBits[currentSlot] = value;
+    }
+
+    @Override
+    public void writeFloatingPoint( float value )
+    {
+        types[currentSlot] = RawBits.FLOAT;
+        rawValueBits[currentSlot] = Float.floatToIntBits( value );
+    }
+
+    @Override
+    public void writeFloatingPoint( double value )
+    {
+        types[currentSlot] = RawBits.DOUBLE;
+        rawValueBits[currentSlot] = Double.doubleToLongBits( value );
+    }
+}
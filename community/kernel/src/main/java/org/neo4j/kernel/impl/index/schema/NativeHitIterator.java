@@ -29,21 +29,21 @@ import org.neo4j.cursor.RawCursor;
 import org.neo4j.index.internal.gbptree.Hit;
 
 /**
- * Wraps number key/value results in a {@link PrimitiveLongIterator}.
+ * Wraps key/value results from a native schema index in a {@link PrimitiveLongIterator}.
  * The {@link RawCursor seeker} which gets passed in will have to be closed somewhere else because
  * the {@link PrimitiveLongIterator} is just a plain iterator, no resource.
  *
- * @param <KEY> type of {@link SchemaNumberKey}.
- * @param <VALUE> type of {@link SchemaNumberValue}.
+ * @param <KEY> type of {@link NativeSchemaKey}.
+ * @param <VALUE> type of {@link NativeSchemaValue}.
  */
-public class NumberHitIterator<KEY extends SchemaNumberKey, VALUE extends SchemaNumberValue>
+public class NativeHitIterator<KEY extends NativeSchemaKey, VALUE extends NativeSchemaValue>
         extends PrimitiveLongCollections.PrimitiveLongBaseIterator
 {
     private final RawCursor<Hit<KEY,VALUE>,IOException> seeker;
     private final Collection<RawCursor<Hit<KEY,VALUE>,IOException>> toRemoveFromWhenExhausted;
     private boolean closed;
 
-    NumberHitIterator( RawCursor<Hit<KEY,VALUE>,IOException> seeker,
+    NativeHitIterator( RawCursor<Hit<KEY,VALUE>,IOException> seeker,
             Collection<RawCursor<Hit<KEY,VALUE>,IOException>> toRemoveFromWhenExhausted )
     {
         this.seeker = seeker;
@@ -55,15 +55,16 @@ public class NumberHitIterator<KEY extends SchemaNumberKey, VALUE extends Schema
     {
         try
         {
-            if ( !closed && seeker.next() )
+            while ( !closed && seeker.next() )
             {
-                return next( seeker.get().key().entityId );
-            }
-            else
-            {
-                ensureCursorClosed();
-                return false;
+                KEY key = seeker.get().key();
+                if ( acceptValue( key ) )
+                {
+                    return next( key.entityId );
+                }
             }
+            ensureCursorClosed();
+            return false;
         }
         catch ( IOException e )
         {
@@ -71,6 +72,15 @@ public class NumberHitIterator<KEY extends SchemaNumberKey, VALUE extends Schema
         }
     }
 
+    /**
+     * @param key key of a hit from the seek.
+     * @return whether or not the entity id of this hit should be returned.
+     */
+    boolean acceptValue( KEY key )
+    {
+        return true;
+    }
+
     private void ensureCursorClosed() throws IOException
     {
         if ( !closed )
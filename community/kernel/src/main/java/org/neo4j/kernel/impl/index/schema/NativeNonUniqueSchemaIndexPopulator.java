@@ -32,22 +32,28 @@ import org.neo4j.kernel.impl.api.index.sampling.NonUniqueIndexSampler;
 import org.neo4j.storageengine.api.schema.IndexSample;
 
 /**
- * {@link NativeSchemaNumberIndexPopulator} which can accept duplicate values (for different entity ids).
+ * {@link NativeSchemaIndexPopulator} which can accept duplicate values (for different entity ids).
  */
-class NativeNonUniqueSchemaNumberIndexPopulator<KEY extends SchemaNumberKey, VALUE extends SchemaNumberValue>
-        extends NativeSchemaNumberIndexPopulator<KEY,VALUE>
+class NativeNonUniqueSchemaIndexPopulator<KEY extends NativeSchemaKey, VALUE extends NativeSchemaValue>
+        extends NativeSchemaIndexPopulator<KEY,VALUE>
 {
     private final IndexSamplingConfig samplingConfig;
     private boolean updateSampling;
     private NonUniqueIndexSampler sampler;
 
-    NativeNonUniqueSchemaNumberIndexPopulator( PageCache pageCache, File storeFile, Layout<KEY,VALUE> layout,
+    NativeNonUniqueSchemaIndexPopulator( PageCache pageCache, File storeFile, Layout<KEY,VALUE> layout,
             IndexSamplingConfig samplingConfig )
     {
         super( pageCache, storeFile, layout );
         this.samplingConfig = samplingConfig;
     }
 
+    @Override
+    boolean canBulkLoad()
+    {
+        return true;
+    }
+
     @Override
     public void includeSample( IndexEntryUpdate update )
     {
@@ -71,9 +77,10 @@ class NativeNonUniqueSchemaNumberIndexPopulator<KEY extends SchemaNumberKey, VAL
     {
         checkSampler();
 
-        // Close the writer before scanning
+        // Load sorted entries into the tree and close the writer before scanning
         try
         {
+            finishBulkLoad();
             closeWriter();
         }
         catch ( IOException e )
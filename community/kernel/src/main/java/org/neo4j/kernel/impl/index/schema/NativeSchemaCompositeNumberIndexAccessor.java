@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.Layout;
+import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.storageengine.api.schema.IndexReader;
+
+public class NativeSchemaCompositeNumberIndexAccessor<VALUE extends NativeSchemaValue>
+        extends NativeSchemaIndexAccessor<CompositeSchemaNumberKey,VALUE>
+{
+    NativeSchemaCompositeNumberIndexAccessor( PageCache pageCache, File storeFile,
+            Layout<CompositeSchemaNumberKey,VALUE> layout, RecoveryCleanupWorkCollector recoveryCleanupWorkCollector )
+            throws IOException
+    {
+        super( pageCache, storeFile, layout, recoveryCleanupWorkCollector );
+    }
+
+    @Override
+    IndexReader newReader( GBPTree<CompositeSchemaNumberKey,VALUE> tree, Layout<CompositeSchemaNumberKey,VALUE> layout )
+    {
+        return new NativeSchemaCompositeNumberIndexReader<>( tree, layout );
+    }
+}
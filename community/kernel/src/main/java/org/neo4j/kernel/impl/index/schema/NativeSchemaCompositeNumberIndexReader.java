@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.util.Arrays;
+
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.Layout;
+import org.neo4j.kernel.api.schema.IndexQuery;
+import org.neo4j.kernel.api.schema.IndexQuery.ExactPredicate;
+import org.neo4j.kernel.api.schema.IndexQuery.IndexQueryType;
+import org.neo4j.kernel.api.schema.IndexQuery.NumberRangePredicate;
+import org.neo4j.values.storable.Value;
+import org.neo4j.values.storable.ValueGroup;
+
+/**
+ * Reader of a composite index of numbers. Supports queries which translate into one range of keys in the tree,
+ * i.e. exact predicates on the first properties, optionally followed by a range predicate and lastly
+ * exists predicates on the remaining properties.
+ */
+class NativeSchemaCompositeNumberIndexReader<VALUE extends NativeSchemaValue>
+        extends NativeSchemaIndexReader<CompositeSchemaNumberKey,VALUE>
+{
+    NativeSchemaCompositeNumberIndexReader( GBPTree<CompositeSchemaNumberKey,VALUE> tree,
+            Layout<CompositeSchemaNumberKey,VALUE> layout )
+    {
+        super( tree, layout );
+    }
+
+    @Override
+    boolean initializeRangeForQuery( CompositeSchemaNumberKey treeKeyFrom, CompositeSchemaNumberKey treeKeyTo,
+            IndexQuery[] predicates )
+    {
+        if ( predicates.length != treeKeyFrom.numberOfSlots() )
+        {
+            // A scan may be expressed as an exists query on any subset of the properties
+            if ( !allExists( predicates ) )
+            {
+                throw new IllegalArgumentException( "IndexQuery of types " + types( predicates ) +
+                        " is not supported on a composite index of " + treeKeyFrom.numberOfSlots() + " properties, " +
+                        "other than exists predicates on any of the properties." );
+            }
+            treeKeyFrom.initAsLowest();
+            treeKeyTo.initAsHighest();
+            return false;
+        }
+
+        int slot = exactPrefixLength( predicates );
+        if ( slot == predicates.length )
+        {
+            Value[] values = new Value[predicates.length];
+            for ( int i = 0; i < values.length; i++ )
+            {
+                values[i] = ((ExactPredicate) predicates[i]).value();
+            }
+            treeKeyFrom.from( Long.MIN_VALUE, values );
+            treeKeyTo.from( Long.MAX_VALUE, values );
+            return false;
+        }
+
+        for ( int i = 0; i < slot; i++ )
+        {
+            Value value = ((ExactPredicate) predicates[i]).value();
+            treeKeyFrom.initValue( i, value );
+            treeKeyTo.initValue( i, value );
+        }
+        boolean fromInclusive = true;
+        boolean toInclusive = true;
+        IndexQuery predicate = predicates[slot];
+        switch ( predicate.type() )
+        {
+        case exists:
+            treeKeyFrom.initValueAsLowest( slot );
+            treeKeyTo.initValueAsHighest( slot );
+            break;
+        case rangeNumeric:
+            NumberRangePredicate rangePredicate = (NumberRangePredicate) predicate;
+            Value fromValue = rangePredicate.fromAsValue();
+            if ( fromValue.valueGroup() == ValueGroup.NO_VALUE )
+            {
+                treeKeyFrom.initValueAsLowest( slot );
+            }
+            else
+            {
+                treeKeyFrom.initValue( slot, fromValue );
+                fromInclusive = rangePredicate.fromInclusive();
+            }
+            Value toValue = rangePredicate.toAsValue();
+            if ( toValue.valueGroup() == ValueGroup.NO_VALUE )
+            {
+                treeKeyTo.initValueAsHighest( slot );
+            }
+            else
+            {
+                treeKeyTo.initValue( slot, toValue );
+                toInclusive = rangePredicate.toInclusive();
+            }
+            break;
+        default:
+            throw new IllegalArgumentException( "IndexQuery of type " + predicate.type() + " is not supported." );
+        }
+
+        // The remaining properties can have any value, which makes an exclusive bound skip past all keys
+        // with the bound value and an inclusive bound include them
+        for ( slot++; slot < predicates.length; slot++ )
+        {
+            if ( predicates[slot].type() != IndexQueryType.exists )
+            {
+                throw new IllegalArgumentException( "IndexQuery of type " + predicates[slot].type() +
+                        " is not supported after a query of type " + predicate.type() + " in a composite query." );
+            }
+            if ( fromInclusive )
+            {
+                treeKeyFrom.initValueAsLowest( slot );
+            }
+            else
+            {
+                treeKeyFrom.initValueAsHighest( slot );
+            }
+            if ( toInclusive )
+            {
+                treeKeyTo.initValueAsHighest( slot );
+            }
+            else
+            {
+                treeKeyTo.initValueAsLowest( slot );
+            }
+        }
+        treeKeyFrom.entityId = fromInclusive ? Long.MIN_VALUE : Long.MAX_VALUE;
+        treeKeyFrom.entityIdIsSpecialTieBreaker = true;
+        treeKeyTo.entityId = toInclusive ? Long.MAX_VALUE : Long.MIN_VALUE;
+        treeKeyTo.entityIdIsSpecialTieBreaker = true;
+        return false;
+    }
+
+    private static boolean allExists( IndexQuery[] predicates )
+    {
+        for ( IndexQuery predicate : predicates )
+        {
+            if ( predicate.type() != IndexQueryType.exists )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String types( IndexQuery[] predicates )
+    {
+        return Arrays.toString( Arrays.stream( predicates ).map( IndexQuery::type ).toArray() );
+    }
+
+    private static int exactPrefixLength( IndexQuery[] predicates )
+    {
+        int length = 0;
+        while ( length < predicates.length && predicates[length].type() == IndexQueryType.exact )
+        {
+            length++;
+        }
+        return length;
+    }
+
+    @Override
+    public boolean hasFullNumberPrecision( IndexQuery... predicates )
+    {
+        return true;
+    }
+}
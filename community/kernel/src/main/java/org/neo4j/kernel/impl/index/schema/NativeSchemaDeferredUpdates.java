@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+
+import org.neo4j.index.internal.gbptree.Layout;
+import org.neo4j.index.internal.gbptree.Writer;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.kernel.api.index.IndexEntryUpdate;
+import org.neo4j.values.storable.Value;
+
+/**
+ * Updates of a native schema index which are deferred until after its bulk load. Instead of being kept on heap
+ * the updates are spilled, in the order they're {@link #defer(IndexEntryUpdate) deferred}, to a file which is
+ * created when the first update is deferred and deleted on {@link #close()}. Each update is written as the removal
+ * of its entry before and/or the addition of its entry after the update, which are
+ * {@link #applyTo(Writer, NativeSchemaValue) applied} to the tree in that same order, one at a time.
+ * <p>
+ * Only meant for non-unique indexes, additions aren't checked for conflicts.
+ *
+ * @param <KEY> type of {@link NativeSchemaKey}.
+ */
+class NativeSchemaDeferredUpdates<KEY extends NativeSchemaKey> implements Closeable
+{
+    private static final byte REMOVE = 0;
+    private static final byte ADD = 1;
+
+    private final FileSystemAbstraction fs;
+    private final File file;
+    private final NativeSchemaKeySerializer<KEY> serializer;
+    private final KEY key;
+    private DataOutputStream out;
+
+    NativeSchemaDeferredUpdates( FileSystemAbstraction fs, File file, Layout<KEY,?> layout )
+    {
+        this.fs = fs;
+        this.file = file;
+        this.serializer = new NativeSchemaKeySerializer<>( layout );
+        this.key = layout.newKey();
+    }
+
+    /**
+     * Spills {@code update} to the file of deferred updates.
+     *
+     * @param update update to defer.
+     * @throws IOException on error writing the update.
+     */
+    void defer( IndexEntryUpdate<?> update ) throws IOException
+    {
+        switch ( update.updateMode() )
+        {
+        case ADDED:
+            write( ADD, update.getEntityId(), update.values() );
+            break;
+        case CHANGED:
+            write( REMOVE, update.getEntityId(), update.beforeValues() );
+            write( ADD, update.getEntityId(), update.values() );
+            break;
+        case REMOVED:
+            write( REMOVE, update.getEntityId(), update.values() );
+            break;
+        default:
+            throw new IllegalArgumentException( "Unknown update mode " + update.updateMode() );
+        }
+    }
+
+    /**
+     * Applies all deferred updates to {@code writer}, in the order they were deferred. No more updates can be
+     * deferred after this call.
+     *
+     * @param writer {@link Writer} of the tree to apply the updates to.
+     * @param value value to add entries with.
+     * @throws IOException on error reading the updates or writing to the tree.
+     */
+    <VALUE extends NativeSchemaValue> void applyTo( Writer<KEY,VALUE> writer, VALUE value ) throws IOException
+    {
+        if ( out == null )
+        {
+            return;
+        }
+        out.close();
+        out = null;
+        try ( DataInputStream in = new DataInputStream( new BufferedInputStream( fs.openAsInputStream( file ) ) ) )
+        {
+            int operation;
+            while ( (operation = in.read()) != -1 )
+            {
+                if ( !serializer.read( in, key ) )
+                {
+                    throw new EOFException( "Deferred updates in " + file + " ended in the middle of an update" );
+                }
+                if ( operation == ADD )
+                {
+                    writer.put( key, value );
+                }
+                else
+                {
+                    writer.remove( key );
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes the file of deferred updates, whether or not they have been applied.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if ( out != null )
+        {
+            out.close();
+            out = null;
+        }
+        if ( fs.fileExists( file ) )
+        {
+            fs.deleteFile( file );
+        }
+    }
+
+    private void write( byte operation, long entityId, Value[] values ) throws IOException
+    {
+        if ( out == null )
+        {
+            fs.mkdirs( file.getParentFile() );
+            out = new DataOutputStream( new BufferedOutputStream( fs.openAsOutputStream( file, false ) ) );
+        }
+        key.from( entityId, values );
+        out.writeByte( operation );
+        serializer.write( out, key );
+    }
+}
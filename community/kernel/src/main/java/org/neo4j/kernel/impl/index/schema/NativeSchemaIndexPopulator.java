@@ -28,12 +28,16 @@ import java.util.concurrent.ExecutionException;
 
 import org.neo4j.collection.primitive.PrimitiveLongSet;
 import org.neo4j.concurrent.Work;
+import org.neo4j.cursor.RawCursor;
 import org.neo4j.concurrent.WorkSync;
 import org.neo4j.helpers.Exceptions;
+import org.neo4j.index.internal.gbptree.BulkLoader;
 import org.neo4j.index.internal.gbptree.GBPTree;
 import org.neo4j.index.internal.gbptree.Layout;
 import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
 import org.neo4j.index.internal.gbptree.Writer;
+import org.neo4j.io.ByteUnit;
+import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.kernel.api.exceptions.index.IndexEntryConflictException;
@@ -41,50 +45,103 @@ import org.neo4j.kernel.api.index.IndexEntryUpdate;
 import org.neo4j.kernel.api.index.IndexPopulator;
 import org.neo4j.kernel.api.index.IndexUpdater;
 import org.neo4j.kernel.api.index.PropertyAccessor;
+import org.neo4j.kernel.impl.api.index.UpdateMode;
 import org.neo4j.kernel.impl.index.GBPTreeUtil;
+import org.neo4j.unsafe.impl.internal.dragons.FeatureToggles;
 
 import static org.neo4j.index.internal.gbptree.GBPTree.NO_HEADER_WRITER;
 
 /**
  * {@link IndexPopulator} backed by a {@link GBPTree}.
+ * <p>
+ * Populators which {@link #canBulkLoad() can bulk load} don't insert entries added by the store scan one by one.
+ * Instead they are sorted using a {@link NativeSchemaKeySorter}, which spills to disk, and then loaded into the
+ * tree bottom-up using a {@link BulkLoader} when population completes. Updates from
+ * {@link #newPopulatingUpdater(PropertyAccessor) populating updaters} are deferred until after the bulk load,
+ * since they may concern the entries being sorted, and are spilled to disk in the meantime using
+ * {@link NativeSchemaDeferredUpdates}.
  *
- * @param <KEY> type of {@link SchemaNumberKey}.
- * @param <VALUE> type of {@link SchemaNumberValue}.
+ * @param <KEY> type of {@link NativeSchemaKey}.
+ * @param <VALUE> type of {@link NativeSchemaValue}.
  */
-public abstract class NativeSchemaNumberIndexPopulator<KEY extends SchemaNumberKey, VALUE extends SchemaNumberValue>
-        extends NativeSchemaNumberIndex<KEY,VALUE> implements IndexPopulator
+public abstract class NativeSchemaIndexPopulator<KEY extends NativeSchemaKey, VALUE extends NativeSchemaValue>
+        extends NativeSchemaIndex<KEY,VALUE> implements IndexPopulator
 {
     static final byte BYTE_FAILED = 0;
     static final byte BYTE_ONLINE = 1;
     static final byte BYTE_POPULATING = 2;
 
+    private static final boolean BULK_LOAD =
+            FeatureToggles.flag( NativeSchemaIndexPopulator.class, "bulkLoad", true );
+    private static final double BULK_LOAD_FILL_FACTOR =
+            FeatureToggles.getDouble( NativeSchemaIndexPopulator.class, "bulkLoadFillFactor", 0.9 );
+    private static final long BULK_LOAD_BUFFER_BYTES =
+            FeatureToggles.getLong( NativeSchemaIndexPopulator.class, "bulkLoadBufferBytes", ByteUnit.mebiBytes( 8 ) );
+    private static final int BULK_LOAD_MERGE_FAN_IN =
+            FeatureToggles.getInteger( NativeSchemaIndexPopulator.class, "bulkLoadMergeFanIn", 64 );
+
     private final KEY treeKey;
     private final VALUE treeValue;
     private final ConflictDetectingValueMerger<KEY,VALUE> conflictDetectingValueMerger;
-    private final NativeSchemaNumberIndexUpdater<KEY,VALUE> singleUpdater;
+    private final NativeSchemaIndexUpdater<KEY,VALUE> singleUpdater;
     private WorkSync<IndexUpdateApply,IndexUpdateWork> workSync;
 
+    private final Object bulkLoadLock = new Object();
+    private final KEY bulkLoadKey;
+    private NativeSchemaKeySorter<KEY> bulkLoadSorter;
+    private NativeSchemaDeferredUpdates<KEY> deferredUpdates;
+
     private Writer<KEY,VALUE> singleTreeWriter;
     private byte[] failureBytes;
     private boolean dropped;
 
-    NativeSchemaNumberIndexPopulator( PageCache pageCache, File storeFile, Layout<KEY,VALUE> layout )
+    NativeSchemaIndexPopulator( PageCache pageCache, File storeFile, Layout<KEY,VALUE> layout )
     {
         super( pageCache, storeFile, layout );
         this.treeKey = layout.newKey();
         this.treeValue = layout.newValue();
         this.conflictDetectingValueMerger = new ConflictDetectingValueMerger<>();
-        singleUpdater = new NativeSchemaNumberIndexUpdater<>( layout.newKey(), layout.newValue() );
+        singleUpdater = new NativeSchemaIndexUpdater<>( layout.newKey(), layout.newValue() );
+        this.bulkLoadKey = layout.newKey();
     }
 
+    /**
+     * @return whether or not entries added during population can be sorted and bulk loaded into the tree
+     * when population completes. Populators which must check each entry as it's added should return {@code false}.
+     */
+    abstract boolean canBulkLoad();
+
     @Override
     public synchronized void create() throws IOException
     {
         GBPTreeUtil.deleteIfPresent( pageCache, storeFile );
-        pageCache.getCachedFileSystem().mkdirs( storeFile.getParentFile() );
+        FileSystemAbstraction fs = pageCache.getCachedFileSystem();
+        fs.mkdirs( storeFile.getParentFile() );
+        // Sorted runs and deferred updates left behind by an earlier population of this index,
+        // which didn't get to clean up after itself
+        fs.deleteRecursively( sortDirectory( storeFile ) );
         instantiateTree( RecoveryCleanupWorkCollector.IMMEDIATE, new NativeSchemaIndexHeaderWriter( BYTE_POPULATING ) );
         instantiateWriter();
         workSync = new WorkSync<>( new IndexUpdateApply<>( treeKey, treeValue, singleTreeWriter, conflictDetectingValueMerger ) );
+        if ( BULK_LOAD && canBulkLoad() )
+        {
+            closeBulkLoad();
+            File sortDirectory = sortDirectory( storeFile );
+            bulkLoadSorter = new NativeSchemaKeySorter<>( fs, new File( sortDirectory, "runs" ), layout,
+                    BULK_LOAD_BUFFER_BYTES, BULK_LOAD_MERGE_FAN_IN );
+            deferredUpdates = new NativeSchemaDeferredUpdates<>( fs, new File( sortDirectory, "deferred-updates" ),
+                    layout );
+        }
+    }
+
+    /**
+     * @return the temporary directory of the {@link NativeSchemaKeySorter} and {@link NativeSchemaDeferredUpdates}
+     * of a population of the index in {@code storeFile}. Each index has one of its own, so that its population can
+     * clean up after earlier ones.
+     */
+    static File sortDirectory( File storeFile )
+    {
+        return new File( storeFile.getParentFile(), storeFile.getName() + ".sort" );
     }
 
     void instantiateWriter() throws IOException
@@ -98,6 +155,7 @@ public abstract class NativeSchemaNumberIndexPopulator<KEY extends SchemaNumberK
     {
         try
         {
+            closeBulkLoad();
             closeWriter();
             closeTree();
             GBPTreeUtil.deleteIfPresent( pageCache, storeFile );
@@ -111,7 +169,10 @@ public abstract class NativeSchemaNumberIndexPopulator<KEY extends SchemaNumberK
     @Override
     public void add( Collection<? extends IndexEntryUpdate<?>> updates ) throws IndexEntryConflictException, IOException
     {
-        applyWithWorkSync( updates );
+        if ( !sortForBulkLoad( updates ) )
+        {
+            applyWithWorkSync( updates );
+        }
     }
 
     @Override
@@ -139,7 +200,10 @@ public abstract class NativeSchemaNumberIndexPopulator<KEY extends SchemaNumberK
             @Override
             public void close() throws IOException, IndexEntryConflictException
             {
-                applyWithWorkSync( updates );
+                if ( !deferUntilBulkLoaded( updates ) )
+                {
+                    applyWithWorkSync( updates );
+                }
                 closed = true;
             }
 
@@ -161,6 +225,11 @@ public abstract class NativeSchemaNumberIndexPopulator<KEY extends SchemaNumberK
     @Override
     public synchronized void close( boolean populationCompletedSuccessfully ) throws IOException
     {
+        if ( populationCompletedSuccessfully && failureBytes == null )
+        {
+            finishBulkLoad();
+        }
+        closeBulkLoad();
         closeWriter();
         if ( populationCompletedSuccessfully && failureBytes != null )
         {
@@ -187,6 +256,112 @@ public abstract class NativeSchemaNumberIndexPopulator<KEY extends SchemaNumberK
         }
     }
 
+    /**
+     * Sorts added entries for bulk loading, if this populator is still collecting entries for bulk loading.
+     * Any update which isn't an addition is deferred until after the bulk load.
+     *
+     * @return {@code true} if the updates were sorted or deferred, otherwise {@code false} and the updates
+     * should be applied to the tree directly.
+     */
+    private boolean sortForBulkLoad( Collection<? extends IndexEntryUpdate<?>> updates ) throws IOException
+    {
+        synchronized ( bulkLoadLock )
+        {
+            if ( bulkLoadSorter == null )
+            {
+                return false;
+            }
+            for ( IndexEntryUpdate<?> update : updates )
+            {
+                if ( update.updateMode() == UpdateMode.ADDED )
+                {
+                    bulkLoadKey.from( update.getEntityId(), update.values() );
+                    bulkLoadSorter.add( bulkLoadKey );
+                }
+                else
+                {
+                    deferredUpdates.defer( update );
+                }
+            }
+            return true;
+        }
+    }
+
+    private boolean deferUntilBulkLoaded( Collection<? extends IndexEntryUpdate<?>> updates ) throws IOException
+    {
+        synchronized ( bulkLoadLock )
+        {
+            if ( bulkLoadSorter == null )
+            {
+                return false;
+            }
+            for ( IndexEntryUpdate<?> update : updates )
+            {
+                deferredUpdates.defer( update );
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Loads all entries sorted so far into the tree and then applies the updates deferred during the bulk load.
+     * After this call updates are applied to the tree directly. Does nothing if there's no bulk load in progress.
+     *
+     * @throws IOException on error sorting or loading the entries.
+     */
+    void finishBulkLoad() throws IOException
+    {
+        synchronized ( bulkLoadLock )
+        {
+            if ( bulkLoadSorter == null )
+            {
+                return;
+            }
+
+            try
+            {
+                try ( RawCursor<KEY,IOException> sorted = bulkLoadSorter.sorted();
+                      BulkLoader<KEY,VALUE> bulkLoader = tree.bulkLoader( BULK_LOAD_FILL_FACTOR ) )
+                {
+                    VALUE value = layout.newValue();
+                    KEY previousKey = layout.newKey();
+                    boolean first = true;
+                    while ( sorted.next() )
+                    {
+                        KEY key = sorted.get();
+                        // The same entry may have been added more than once, it will only be inserted once
+                        if ( first || layout.compare( previousKey, key ) != 0 )
+                        {
+                            bulkLoader.add( key, value );
+                            layout.copyKey( key, previousKey );
+                            first = false;
+                        }
+                    }
+                }
+
+                // Nothing else uses the writer until the lock is released, since updates are deferred until then
+                deferredUpdates.applyTo( singleTreeWriter, layout.newValue() );
+            }
+            finally
+            {
+                closeBulkLoad();
+            }
+        }
+    }
+
+    private void closeBulkLoad() throws IOException
+    {
+        synchronized ( bulkLoadLock )
+        {
+            if ( bulkLoadSorter != null )
+            {
+                bulkLoadSorter = closeIfPresent( bulkLoadSorter );
+                deferredUpdates = closeIfPresent( deferredUpdates );
+                pageCache.getCachedFileSystem().deleteRecursively( sortDirectory( storeFile ) );
+            }
+        }
+    }
+
     private void applyWithWorkSync( Collection<? extends IndexEntryUpdate<?>> updates ) throws IOException
     {
         try
@@ -248,7 +423,7 @@ public abstract class NativeSchemaNumberIndexPopulator<KEY extends SchemaNumberK
         singleTreeWriter = closeIfPresent( singleTreeWriter );
     }
 
-    private static class IndexUpdateApply<KEY extends SchemaNumberKey, VALUE extends SchemaNumberValue>
+    private static class IndexUpdateApply<KEY extends NativeSchemaKey, VALUE extends NativeSchemaValue>
     {
         private final KEY treeKey;
         private final VALUE treeValue;
@@ -266,7 +441,7 @@ public abstract class NativeSchemaNumberIndexPopulator<KEY extends SchemaNumberK
 
         public void process( IndexEntryUpdate indexEntryUpdate ) throws Exception
         {
-            NativeSchemaNumberIndexUpdater.processUpdate( treeKey, treeValue, indexEntryUpdate, writer, conflictDetectingValueMerger );
+            NativeSchemaIndexUpdater.processUpdate( treeKey, treeValue, indexEntryUpdate, writer, conflictDetectingValueMerger );
         }
     }
 
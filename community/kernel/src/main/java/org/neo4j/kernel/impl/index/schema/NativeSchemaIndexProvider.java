@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.Layout;
+import org.neo4j.index.internal.gbptree.MetadataMismatchException;
+import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.api.index.IndexAccessor;
+import org.neo4j.kernel.api.index.IndexPopulator;
+import org.neo4j.kernel.api.index.InternalIndexState;
+import org.neo4j.kernel.api.index.SchemaIndexProvider;
+import org.neo4j.kernel.api.schema.index.IndexDescriptor;
+import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingConfig;
+import org.neo4j.kernel.impl.storemigration.StoreMigrationParticipant;
+import org.neo4j.logging.Log;
+import org.neo4j.logging.LogProvider;
+
+import static org.neo4j.kernel.impl.index.schema.NativeSchemaIndexPopulator.BYTE_FAILED;
+import static org.neo4j.kernel.impl.index.schema.NativeSchemaIndexPopulator.BYTE_ONLINE;
+import static org.neo4j.kernel.impl.index.schema.NativeSchemaIndexPopulator.BYTE_POPULATING;
+
+/**
+ * Schema index provider for native indexes backed by e.g. {@link GBPTree}. Each type of native index has its own
+ * provider, which decides the {@link Layout} of its keys and which queries it supports.
+ *
+ * @param <KEY> type of {@link NativeSchemaKey}.
+ * @param <VALUE> type of {@link NativeSchemaValue}.
+ */
+public abstract class NativeSchemaIndexProvider<KEY extends NativeSchemaKey, VALUE extends NativeSchemaValue>
+        extends SchemaIndexProvider
+{
+    final PageCache pageCache;
+    private final File nativeSchemaIndexBaseDir;
+    private final Log log;
+    final RecoveryCleanupWorkCollector recoveryCleanupWorkCollector;
+    private final boolean readOnly;
+
+    protected NativeSchemaIndexProvider( Descriptor descriptor, int priority, PageCache pageCache, File storeDir,
+            LogProvider logging, RecoveryCleanupWorkCollector recoveryCleanupWorkCollector, boolean readOnly )
+    {
+        super( descriptor, priority );
+        this.pageCache = pageCache;
+        this.nativeSchemaIndexBaseDir = getSchemaIndexStoreDirectory( storeDir );
+        this.log = logging.getLog( getClass() );
+        this.recoveryCleanupWorkCollector = recoveryCleanupWorkCollector;
+        this.readOnly = readOnly;
+    }
+
+    @Override
+    public IndexPopulator getPopulator( long indexId, IndexDescriptor descriptor, IndexSamplingConfig samplingConfig )
+    {
+        return newPopulator( indexId, descriptor, layout( descriptor.type() ), samplingConfig );
+    }
+
+    @Override
+    public IndexAccessor getOnlineAccessor( long indexId, IndexDescriptor descriptor, IndexSamplingConfig samplingConfig )
+            throws IOException
+    {
+        File storeFile = nativeIndexFileFromIndexId( indexId );
+        return newIndexAccessor( pageCache, storeFile, layout( descriptor.type() ), recoveryCleanupWorkCollector );
+    }
+
+    /**
+     * Creates a populator of an index with keys of the given {@link Layout}, which needn't be the layout of
+     * {@link #layout(IndexDescriptor.Type)}, e.g. for an index which keys has multiple values.
+     */
+    <K extends NativeSchemaKey, V extends NativeSchemaValue> IndexPopulator newPopulator( long indexId,
+            IndexDescriptor descriptor, Layout<K,V> layout, IndexSamplingConfig samplingConfig )
+    {
+        if ( readOnly )
+        {
+            throw new UnsupportedOperationException( "Can't create populator for read only index" );
+        }
+
+        File storeFile = nativeIndexFileFromIndexId( indexId );
+        switch ( descriptor.type() )
+        {
+        case GENERAL:
+            return new NativeNonUniqueSchemaIndexPopulator<>( pageCache, storeFile, layout, samplingConfig );
+        case UNIQUE:
+            return new NativeUniqueSchemaIndexPopulator<>( pageCache, storeFile, layout );
+        default:
+            throw new UnsupportedOperationException( "Can not create index populator of type " + descriptor.type() );
+        }
+    }
+
+    /**
+     * @param type type of index.
+     * @return {@link Layout} of the keys in an index of the given type.
+     * @throws UnsupportedOperationException if this provider doesn't support indexes of the given type.
+     */
+    abstract Layout<KEY,VALUE> layout( IndexDescriptor.Type type );
+
+    abstract NativeSchemaIndexAccessor<KEY,VALUE> newIndexAccessor( PageCache pageCache, File storeFile,
+            Layout<KEY,VALUE> layout, RecoveryCleanupWorkCollector recoveryCleanupWorkCollector ) throws IOException;
+
+    /**
+     * @param descriptor index to check the layout of, or {@code null} to check against any index of this provider.
+     * @param layoutIdentifier layout identifier of a tree.
+     * @param majorVersion major version of the layout of a tree.
+     * @param minorVersion minor version of the layout of a tree.
+     * @return whether or not a tree with the given layout can have been created by this provider for the given index.
+     */
+    boolean compatibleLayout( IndexDescriptor descriptor, long layoutIdentifier, int majorVersion, int minorVersion )
+    {
+        for ( IndexDescriptor.Type type : IndexDescriptor.Type.values() )
+        {
+            if ( layout( type ).compatibleWith( layoutIdentifier, majorVersion, minorVersion ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String getPopulationFailure( long indexId ) throws IllegalStateException
+    {
+        try
+        {
+            String failureMessage = readPopulationFailure( indexId );
+            if ( failureMessage == null )
+            {
+                throw new IllegalStateException( "Index " + indexId + " isn't failed" );
+            }
+            return failureMessage;
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( e );
+        }
+    }
+
+    private String readPopulationFailure( long indexId ) throws IOException
+    {
+        NativeSchemaIndexHeaderReader headerReader = new NativeSchemaIndexHeaderReader();
+        GBPTree.readHeader( pageCache, nativeIndexFileFromIndexId( indexId ), new ReadOnlyMetaNativeLayout( null ),
+                headerReader );
+        return headerReader.failureMessage;
+    }
+
+    @Override
+    public InternalIndexState getInitialState( long indexId, IndexDescriptor descriptor )
+    {
+        try
+        {
+            NativeSchemaIndexHeaderReader headerReader = new NativeSchemaIndexHeaderReader();
+            GBPTree.readHeader( pageCache, nativeIndexFileFromIndexId( indexId ),
+                    new ReadOnlyMetaNativeLayout( descriptor ), headerReader );
+            switch ( headerReader.state )
+            {
+            case BYTE_FAILED:
+                return InternalIndexState.FAILED;
+            case BYTE_ONLINE:
+                return InternalIndexState.ONLINE;
+            case BYTE_POPULATING:
+                return InternalIndexState.POPULATING;
+            default:
+                throw new IllegalStateException( "Unexpected initial state byte value " + headerReader.state );
+            }
+        }
+        catch ( IOException | MetadataMismatchException e )
+        {
+            log.error( "Failed to open index:" + indexId + ", requesting re-population.", e );
+            return InternalIndexState.POPULATING;
+        }
+    }
+
+    @Override
+    public StoreMigrationParticipant storeMigrationParticipant( FileSystemAbstraction fs, PageCache pageCache )
+    {
+        // Since this native provider is a new one, there's no need for migration on this level.
+        // Migration should happen in the combined layer for the time being.
+        return StoreMigrationParticipant.NOT_PARTICIPATING;
+    }
+
+    File nativeIndexFileFromIndexId( long indexId )
+    {
+        return new File( nativeSchemaIndexBaseDir, Long.toString( indexId ) );
+    }
+
+    private class ReadOnlyMetaNativeLayout extends Layout.ReadOnlyMetaLayout
+    {
+        private final IndexDescriptor descriptor;
+
+        ReadOnlyMetaNativeLayout( IndexDescriptor descriptor )
+        {
+            this.descriptor = descriptor;
+        }
+
+        @Override
+        public boolean compatibleWith( long layoutIdentifier, int majorVersion, int minorVersion )
+        {
+            return compatibleLayout( descriptor, layoutIdentifier, majorVersion, minorVersion );
+        }
+    }
+}
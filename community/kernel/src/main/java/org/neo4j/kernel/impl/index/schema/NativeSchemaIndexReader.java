@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.neo4j.collection.primitive.PrimitiveLongCollections;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.Hit;
+import org.neo4j.index.internal.gbptree.Layout;
+import org.neo4j.io.IOUtils;
+import org.neo4j.kernel.api.exceptions.index.IndexNotApplicableKernelException;
+import org.neo4j.kernel.api.schema.IndexQuery;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingConfig;
+import org.neo4j.storageengine.api.schema.IndexReader;
+import org.neo4j.storageengine.api.schema.IndexSampler;
+import org.neo4j.values.storable.Value;
+
+/**
+ * {@link IndexReader} of a native schema index. Each type of native index knows which queries it supports and
+ * how they translate into a range of keys to seek in the tree, see
+ * {@link #initializeRangeForQuery(NativeSchemaKey, NativeSchemaKey, IndexQuery[])}.
+ *
+ * @param <KEY> type of {@link NativeSchemaKey}.
+ * @param <VALUE> type of {@link NativeSchemaValue}.
+ */
+abstract class NativeSchemaIndexReader<KEY extends NativeSchemaKey, VALUE extends NativeSchemaValue>
+        implements IndexReader
+{
+    private final GBPTree<KEY,VALUE> tree;
+    private final Layout<KEY,VALUE> layout;
+    private final KEY treeKeyFrom;
+    private final KEY treeKeyTo;
+    private final Set<RawCursor<Hit<KEY,VALUE>,IOException>> openSeekers;
+
+    NativeSchemaIndexReader( GBPTree<KEY,VALUE> tree, Layout<KEY,VALUE> layout )
+    {
+        this.tree = tree;
+        this.layout = layout;
+        this.treeKeyFrom = layout.newKey();
+        this.treeKeyTo = layout.newKey();
+        this.openSeekers = new HashSet<>();
+    }
+
+    @Override
+    public void close()
+    {
+        ensureOpenSeekersClosed();
+    }
+
+    @Override
+    public IndexSampler createSampler()
+    {
+        // For an unique index there's an optimization, knowing that all values in it are unique, to simply count
+        // the number of indexes values and create a sample for that count. The GBPTree doesn't have an O(1)
+        // count mechanism, it will have to manually count the indexed values in it to get it.
+        // For that reason this implementation opts for keeping complexity down by just using the existing
+        // non-unique sampler which scans the index and counts (potentially duplicates, of which there will
+        // be none in a unique index).
+
+        IndexSamplingConfig indexSamplingConfig = new IndexSamplingConfig( Config.defaults() );
+        FullScanNonUniqueIndexSampler<KEY,VALUE> sampler =
+                new FullScanNonUniqueIndexSampler<>( tree, layout, indexSamplingConfig );
+        return sampler::result;
+    }
+
+    @Override
+    public long countIndexedNodes( long nodeId, Value... propertyValues )
+    {
+        treeKeyFrom.from( nodeId, propertyValues );
+        treeKeyTo.from( nodeId, propertyValues );
+        try ( RawCursor<Hit<KEY,VALUE>,IOException> seeker = tree.seek( treeKeyFrom, treeKeyTo ) )
+        {
+            long count = 0;
+            while ( seeker.next() )
+            {
+                if ( seeker.get().key().entityId == nodeId )
+                {
+                    count++;
+                }
+            }
+            return count;
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    @Override
+    public PrimitiveLongIterator query( IndexQuery... predicates ) throws IndexNotApplicableKernelException
+    {
+        boolean needFiltering = initializeRangeForQuery( treeKeyFrom, treeKeyTo, predicates );
+        return startSeekForInitializedRange( needFiltering ? predicates : null );
+    }
+
+    /**
+     * Initializes {@code treeKeyFrom} and {@code treeKeyTo} to the range of keys to seek for {@code predicates},
+     * one predicate per property of the index.
+     *
+     * @param treeKeyFrom key to initialize as the inclusive start of the range.
+     * @param treeKeyTo key to initialize as the end of the range, as seen by {@link GBPTree#seek(Object, Object)}.
+     * @param predicates the query.
+     * @return {@code true} if the range contains keys not matching {@code predicates}, which must be filtered out,
+     * otherwise {@code false}.
+     * @throws IllegalArgumentException if the type of query isn't supported by this index.
+     * @throws UnsupportedOperationException if the number of predicates isn't supported by this index.
+     */
+    abstract boolean initializeRangeForQuery( KEY treeKeyFrom, KEY treeKeyTo, IndexQuery[] predicates );
+
+    /**
+     * @param predicates the query of an index on a single property.
+     * @return the only predicate of the query.
+     * @throws UnsupportedOperationException if there's not exactly one predicate.
+     */
+    static IndexQuery singlePredicate( IndexQuery[] predicates )
+    {
+        if ( predicates.length != 1 )
+        {
+            throw new UnsupportedOperationException();
+        }
+        return predicates[0];
+    }
+
+    private PrimitiveLongIterator startSeekForInitializedRange( IndexQuery[] filters )
+    {
+        if ( layout.compare( treeKeyFrom, treeKeyTo ) > 0 )
+        {
+            return PrimitiveLongCollections.emptyIterator();
+        }
+        try
+        {
+            RawCursor<Hit<KEY,VALUE>,IOException> seeker = tree.seek( treeKeyFrom, treeKeyTo );
+            openSeekers.add( seeker );
+            return filters == null ? new NativeHitIterator<>( seeker, openSeekers )
+                                   : new FilteringNativeHitIterator<>( seeker, openSeekers, filters );
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    private void ensureOpenSeekersClosed()
+    {
+        try
+        {
+            IOUtils.closeAll( openSeekers );
+            openSeekers.clear();
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+    }
+}
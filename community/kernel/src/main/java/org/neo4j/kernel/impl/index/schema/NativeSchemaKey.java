@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.values.storable.Value;
+import org.neo4j.values.storable.ValueWriter;
+
+/**
+ * Key in a {@link GBPTree} of a native schema index. Includes value and entity id (to be able to handle
+ * non-unique values). How the value is represented is up to each type of key.
+ */
+abstract class NativeSchemaKey extends ValueWriter.Adapter<RuntimeException>
+{
+    static final int ENTITY_ID_SIZE = Long.BYTES;
+
+    long entityId;
+
+    /**
+     * Marks that comparisons with this key requires also comparing entityId, this allows functionality
+     * of inclusive/exclusive bounds of range queries.
+     * This is because {@link GBPTree} only support from inclusive and to exclusive.
+     * <p>
+     * Note that {@code entityIdIsSpecialTieBreaker} is only an in memory state.
+     */
+    boolean entityIdIsSpecialTieBreaker;
+
+    /**
+     * Sets this key to the given entity id and values.
+     *
+     * @param entityId entity id of the index entry.
+     * @param values values of the index entry.
+     * @throws IllegalArgumentException if the values can't be represented by this type of key.
+     */
+    void from( long entityId, Value... values )
+    {
+        assertValidValue( values ).writeTo( this );
+        this.entityId = entityId;
+        entityIdIsSpecialTieBreaker = false;
+    }
+
+    /**
+     * Sets this key to be lower than all keys with a value.
+     */
+    void initAsLowest()
+    {
+        initValueAsLowest();
+        entityId = Long.MIN_VALUE;
+        entityIdIsSpecialTieBreaker = true;
+    }
+
+    /**
+     * Sets this key to be higher than all keys with a value.
+     */
+    void initAsHighest()
+    {
+        initValueAsHighest();
+        entityId = Long.MAX_VALUE;
+        entityIdIsSpecialTieBreaker = true;
+    }
+
+    String propertiesAsString()
+    {
+        return asValue().toString();
+    }
+
+    /**
+     * @param values values of an index entry.
+     * @return the single value to write into this key.
+     * @throws IllegalArgumentException if the values can't be represented by this type of key.
+     */
+    abstract Value assertValidValue( Value... values );
+
+    /**
+     * @return the value of this key. Not valid for a key initialized as lowest or highest.
+     */
+    abstract Value asValue();
+
+    abstract void initValueAsLowest();
+
+    abstract void initValueAsHighest();
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+import org.neo4j.index.internal.gbptree.ByteArrayPageCursor;
+import org.neo4j.index.internal.gbptree.Layout;
+import org.neo4j.io.pagecache.PageCursor;
+
+/**
+ * Writes {@link NativeSchemaKey keys} to, and reads them back from, streams of temporary files. Each key is written
+ * by the {@link Layout}, prefixed by its size. Instances aren't thread safe, since they share one scratch buffer
+ * between all reads and writes.
+ *
+ * @param <KEY> type of {@link NativeSchemaKey}.
+ */
+class NativeSchemaKeySerializer<KEY extends NativeSchemaKey>
+{
+    private final Layout<KEY,?> layout;
+    private byte[] scratch = new byte[0];
+    private PageCursor scratchCursor = ByteArrayPageCursor.wrap( scratch );
+
+    NativeSchemaKeySerializer( Layout<KEY,?> layout )
+    {
+        this.layout = layout;
+    }
+
+    void write( DataOutputStream out, KEY key ) throws IOException
+    {
+        int keySize = layout.keySize( key );
+        ensureScratchCapacity( keySize );
+        scratchCursor.setOffset( 0 );
+        layout.writeKey( scratchCursor, key );
+        out.writeShort( keySize );
+        out.write( scratch, 0, keySize );
+    }
+
+    /**
+     * Reads the next key from {@code in} into {@code into}.
+     *
+     * @return {@code true} if a key was read, or {@code false} if the end of the stream had been reached.
+     * @throws IOException on error reading, or if the stream ends in the middle of a key.
+     */
+    boolean read( DataInputStream in, KEY into ) throws IOException
+    {
+        int keySize;
+        try
+        {
+            keySize = in.readUnsignedShort();
+        }
+        catch ( EOFException e )
+        {
+            return false;
+        }
+        ensureScratchCapacity( keySize );
+        in.readFully( scratch, 0, keySize );
+        scratchCursor.setOffset( 0 );
+        if ( layout.fixedSize() )
+        {
+            layout.readKey( scratchCursor, into );
+        }
+        else
+        {
+            layout.readKey( scratchCursor, into, keySize );
+        }
+        into.entityIdIsSpecialTieBreaker = false;
+        return true;
+    }
+
+    private void ensureScratchCapacity( int keySize )
+    {
+        if ( scratch.length < keySize )
+        {
+            scratch = new byte[Math.max( keySize, scratch.length * 2 )];
+            scratchCursor = ByteArrayPageCursor.wrap( scratch );
+        }
+    }
+}
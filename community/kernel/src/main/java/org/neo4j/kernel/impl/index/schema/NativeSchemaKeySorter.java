@@ -0,0 +1,331 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.index.internal.gbptree.Layout;
+import org.neo4j.io.fs.FileSystemAbstraction;
+
+/**
+ * External merge sort of {@link NativeSchemaKey keys}. Keys are {@link #add(NativeSchemaKey) added} into an in-memory
+ * buffer which, when its estimated size reaches the given number of bytes, is sorted and spilled to a file in a
+ * temporary directory as a sorted run, written by a {@link NativeSchemaKeySerializer}. The directory is owned by
+ * the sorter, it's created when the first run is spilled and deleted with all its contents on {@link #close()}.
+ * <p>
+ * {@link #sorted()} merges all runs, including what's left in the buffer, into one sorted stream of keys, ordered by
+ * the {@link Layout}. At most the given merge fan-in of runs are open at any time, so if there are more runs than that
+ * they are first merged, fan-in runs at a time, into bigger runs until few enough of them remain.
+ *
+ * @param <KEY> type of {@link NativeSchemaKey}.
+ */
+class NativeSchemaKeySorter<KEY extends NativeSchemaKey> implements Closeable
+{
+    /**
+     * Estimated number of bytes each buffered key takes on top of its {@link Layout#keySize(Object) size}, i.e.
+     * its object header, any fields which aren't part of its serialized form and its reference in the buffer.
+     */
+    static final int KEY_OVERHEAD_BYTES = 48;
+
+    private final FileSystemAbstraction fs;
+    private final File directory;
+    private final Layout<KEY,?> layout;
+    private final long bufferBytes;
+    private final int maxMergeFanIn;
+    private final NativeSchemaKeySerializer<KEY> serializer;
+    private final List<File> runs = new ArrayList<>();
+    private KEY[] buffer;
+    private int bufferedCount;
+    private long bufferedBytes;
+    private int runCount;
+    private boolean sorted;
+
+    @SuppressWarnings( "unchecked" )
+    NativeSchemaKeySorter( FileSystemAbstraction fs, File directory, Layout<KEY,?> layout, long bufferBytes,
+            int maxMergeFanIn )
+    {
+        if ( bufferBytes <= 0 )
+        {
+            throw new IllegalArgumentException( "Invalid buffer size " + bufferBytes );
+        }
+        if ( maxMergeFanIn < 2 )
+        {
+            throw new IllegalArgumentException( "Invalid merge fan-in " + maxMergeFanIn + ", must be at least 2" );
+        }
+        this.fs = fs;
+        this.directory = directory;
+        this.layout = layout;
+        this.bufferBytes = bufferBytes;
+        this.maxMergeFanIn = maxMergeFanIn;
+        this.serializer = new NativeSchemaKeySerializer<>( layout );
+        this.buffer = (KEY[]) new NativeSchemaKey[16];
+    }
+
+    /**
+     * Adds a copy of {@code key} to be sorted.
+     *
+     * @param key key to add, which may be reused by the caller after this call.
+     * @throws IOException on error spilling a sorted run to disk.
+     */
+    void add( KEY key ) throws IOException
+    {
+        if ( sorted )
+        {
+            throw new IllegalStateException( "Keys have already been sorted" );
+        }
+        if ( bufferedBytes >= bufferBytes )
+        {
+            spill();
+        }
+        if ( bufferedCount == buffer.length )
+        {
+            buffer = Arrays.copyOf( buffer, buffer.length * 2 );
+        }
+        KEY bufferKey = buffer[bufferedCount];
+        if ( bufferKey == null )
+        {
+            bufferKey = buffer[bufferedCount] = layout.newKey();
+        }
+        layout.copyKey( key, bufferKey );
+        bufferedCount++;
+        bufferedBytes += layout.keySize( bufferKey ) + KEY_OVERHEAD_BYTES;
+    }
+
+    /**
+     * @return all added keys in sorted order. Returned keys are reused between calls to {@link RawCursor#next()}.
+     * No more keys can be added after this call.
+     * @throws IOException on error merging or reading sorted runs on disk.
+     */
+    RawCursor<KEY,IOException> sorted() throws IOException
+    {
+        if ( sorted )
+        {
+            throw new IllegalStateException( "Keys have already been sorted" );
+        }
+        sorted = true;
+        Arrays.sort( buffer, 0, bufferedCount, layout );
+
+        // The buffer takes up one of the runs of the final merge, if there's anything left in it
+        mergeRunsDownTo( bufferedCount > 0 ? maxMergeFanIn - 1 : maxMergeFanIn );
+        List<Run> finalRuns = new ArrayList<>( runs.size() + 1 );
+        finalRuns.add( new BufferRun() );
+        for ( File file : runs )
+        {
+            finalRuns.add( new FileRun( file ) );
+        }
+        return new MergingCursor( finalRuns );
+    }
+
+    /**
+     * Deletes the directory of the sorted runs spilled to disk, with anything in it.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        fs.deleteRecursively( directory );
+        runs.clear();
+        bufferedCount = 0;
+        bufferedBytes = 0;
+    }
+
+    /**
+     * @return number of sorted runs on disk.
+     */
+    int numberOfRuns()
+    {
+        return runs.size();
+    }
+
+    private void spill() throws IOException
+    {
+        Arrays.sort( buffer, 0, bufferedCount, layout );
+        try ( DataOutputStream out = newRun() )
+        {
+            for ( int i = 0; i < bufferedCount; i++ )
+            {
+                serializer.write( out, buffer[i] );
+            }
+        }
+        bufferedCount = 0;
+        bufferedBytes = 0;
+    }
+
+    /**
+     * Merges runs on disk, oldest first, until no more than {@code maxRuns} of them remain. The first merge only
+     * merges as many runs as are needed to get the number of runs to a multiple of what the following merges,
+     * with the full fan-in, will reduce it by, so that the final merge in {@link #sorted()} gets the full fan-in.
+     */
+    private void mergeRunsDownTo( int maxRuns ) throws IOException
+    {
+        while ( runs.size() > maxRuns )
+        {
+            int partialReduction = (runs.size() - maxRuns) % (maxMergeFanIn - 1);
+            int fanIn = partialReduction == 0 ? maxMergeFanIn : partialReduction + 1;
+            List<File> merged = new ArrayList<>( runs.subList( 0, fanIn ) );
+            List<Run> mergedRuns = new ArrayList<>( fanIn );
+            for ( File file : merged )
+            {
+                mergedRuns.add( new FileRun( file ) );
+            }
+            try ( MergingCursor cursor = new MergingCursor( mergedRuns );
+                  DataOutputStream out = newRun() )
+            {
+                while ( cursor.next() )
+                {
+                    serializer.write( out, cursor.get() );
+                }
+            }
+            runs.removeAll( merged );
+            for ( File file : merged )
+            {
+                fs.deleteFile( file );
+            }
+        }
+    }
+
+    private DataOutputStream newRun() throws IOException
+    {
+        if ( runCount == 0 )
+        {
+            fs.mkdirs( directory );
+        }
+        File file = new File( directory, "run-" + runCount++ );
+        runs.add( file );
+        return new DataOutputStream( new BufferedOutputStream( fs.openAsOutputStream( file, false ) ) );
+    }
+
+    private class MergingCursor implements RawCursor<KEY,IOException>
+    {
+        private final PriorityQueue<Run> queue;
+        private final KEY current = layout.newKey();
+
+        MergingCursor( List<Run> runs ) throws IOException
+        {
+            queue = new PriorityQueue<>( runs.size(), ( a, b ) -> layout.compare( a.key, b.key ) );
+            for ( Run run : runs )
+            {
+                offerIfNotEmpty( run );
+            }
+        }
+
+        @Override
+        public boolean next() throws IOException
+        {
+            Run run = queue.poll();
+            if ( run == null )
+            {
+                return false;
+            }
+            layout.copyKey( run.key, current );
+            offerIfNotEmpty( run );
+            return true;
+        }
+
+        @Override
+        public KEY get()
+        {
+            return current;
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            for ( Run run : queue )
+            {
+                run.close();
+            }
+            queue.clear();
+        }
+
+        private void offerIfNotEmpty( Run run ) throws IOException
+        {
+            if ( run.next() )
+            {
+                queue.offer( run );
+            }
+            else
+            {
+                run.close();
+            }
+        }
+    }
+
+    private abstract class Run implements Closeable
+    {
+        KEY key;
+
+        abstract boolean next() throws IOException;
+
+        @Override
+        public void close() throws IOException
+        {   // Nothing to close by default
+        }
+    }
+
+    private class BufferRun extends Run
+    {
+        private int position;
+
+        @Override
+        boolean next()
+        {
+            if ( position < bufferedCount )
+            {
+                key = buffer[position++];
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private class FileRun extends Run
+    {
+        private final DataInputStream in;
+
+        FileRun( File file ) throws IOException
+        {
+            this.in = new DataInputStream( new BufferedInputStream( fs.openAsInputStream( file ) ) );
+            this.key = layout.newKey();
+        }
+
+        @Override
+        boolean next() throws IOException
+        {
+            return serializer.read( in, key );
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            in.close();
+        }
+    }
+}
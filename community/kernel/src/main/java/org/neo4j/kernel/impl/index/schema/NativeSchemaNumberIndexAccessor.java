@@ -21,95 +21,25 @@ package org.neo4j.kernel.impl.index.schema;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.UncheckedIOException;
 
-import org.neo4j.graphdb.ResourceIterator;
-import org.neo4j.helpers.collection.BoundedIterable;
+import org.neo4j.index.internal.gbptree.GBPTree;
 import org.neo4j.index.internal.gbptree.Layout;
 import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
-import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCache;
-import org.neo4j.kernel.api.exceptions.index.IndexEntryConflictException;
-import org.neo4j.kernel.api.index.IndexAccessor;
-import org.neo4j.kernel.api.index.IndexUpdater;
-import org.neo4j.kernel.api.index.PropertyAccessor;
-import org.neo4j.kernel.impl.api.index.IndexUpdateMode;
-import org.neo4j.kernel.impl.index.GBPTreeUtil;
 import org.neo4j.storageengine.api.schema.IndexReader;
 
-import static org.neo4j.helpers.collection.Iterators.asResourceIterator;
-import static org.neo4j.helpers.collection.Iterators.iterator;
-import static org.neo4j.index.internal.gbptree.GBPTree.NO_HEADER_WRITER;
-
-public class NativeSchemaNumberIndexAccessor<KEY extends SchemaNumberKey, VALUE extends SchemaNumberValue>
-        extends NativeSchemaNumberIndex<KEY,VALUE> implements IndexAccessor
+public class NativeSchemaNumberIndexAccessor<KEY extends SchemaNumberKey, VALUE extends NativeSchemaValue>
+        extends NativeSchemaIndexAccessor<KEY,VALUE>
 {
-    private final NativeSchemaNumberIndexUpdater<KEY,VALUE> singleUpdater;
-
     NativeSchemaNumberIndexAccessor( PageCache pageCache, File storeFile,
             Layout<KEY,VALUE> layout, RecoveryCleanupWorkCollector recoveryCleanupWorkCollector ) throws IOException
     {
-        super( pageCache, storeFile, layout );
-        singleUpdater = new NativeSchemaNumberIndexUpdater<>( layout.newKey(), layout.newValue() );
-        instantiateTree( recoveryCleanupWorkCollector, NO_HEADER_WRITER );
-    }
-
-    @Override
-    public void drop() throws IOException
-    {
-        closeTree();
-        GBPTreeUtil.delete( pageCache, storeFile );
+        super( pageCache, storeFile, layout, recoveryCleanupWorkCollector );
     }
 
     @Override
-    public IndexUpdater newUpdater( IndexUpdateMode mode )
+    IndexReader newReader( GBPTree<KEY,VALUE> tree, Layout<KEY,VALUE> layout )
     {
-        assertOpen();
-        try
-        {
-            return singleUpdater.initialize( tree.writer(), true );
-        }
-        catch ( IOException e )
-        {
-            throw new UncheckedIOException( e );
-        }
-    }
-
-    @Override
-    public void force() throws IOException
-    {
-        // TODO add IOLimiter arg
-        tree.checkpoint( IOLimiter.unlimited() );
-    }
-
-    @Override
-    public void close() throws IOException
-    {
-        closeTree();
-    }
-
-    @Override
-    public IndexReader newReader()
-    {
-        assertOpen();
         return new NativeSchemaNumberIndexReader<>( tree, layout );
     }
-
-    @Override
-    public BoundedIterable<Long> newAllEntriesReader()
-    {
-        return new NumberAllEntriesReader<>( tree, layout );
-    }
-
-    @Override
-    public ResourceIterator<File> snapshotFiles() throws IOException
-    {
-        return asResourceIterator( iterator( storeFile ) );
-    }
-
-    @Override
-    public void verifyDeferredConstraints( PropertyAccessor propertyAccessor )
-            throws IndexEntryConflictException, IOException
-    {   // Not needed since uniqueness is verified automatically w/o cost for every update.
-    }
 }
@@ -22,166 +22,119 @@ package org.neo4j.kernel.impl.index.schema;
 import java.io.File;
 import java.io.IOException;
 
-import org.neo4j.index.internal.gbptree.GBPTree;
 import org.neo4j.index.internal.gbptree.Layout;
 import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
-import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.kernel.api.index.IndexAccessor;
 import org.neo4j.kernel.api.index.IndexPopulator;
-import org.neo4j.kernel.api.index.InternalIndexState;
-import org.neo4j.kernel.api.index.SchemaIndexProvider;
 import org.neo4j.kernel.api.schema.index.IndexDescriptor;
 import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingConfig;
-import org.neo4j.kernel.impl.storemigration.StoreMigrationParticipant;
-import org.neo4j.logging.Log;
 import org.neo4j.logging.LogProvider;
 
-import static org.neo4j.kernel.impl.index.schema.NativeSchemaNumberIndexPopulator.BYTE_FAILED;
-import static org.neo4j.kernel.impl.index.schema.NativeSchemaNumberIndexPopulator.BYTE_ONLINE;
-import static org.neo4j.kernel.impl.index.schema.NativeSchemaNumberIndexPopulator.BYTE_POPULATING;
-
 /**
- * Schema index provider for native indexes backed by e.g. {@link GBPTree}.
+ * Schema index provider for native indexes of numbers. Indexes on multiple properties have keys of all
+ * values of an entity, see {@link CompositeSchemaNumberKey}.
  */
-public class NativeSchemaNumberIndexProvider extends SchemaIndexProvider
+public class NativeSchemaNumberIndexProvider extends NativeSchemaIndexProvider<SchemaNumberKey,NativeSchemaValue>
 {
     public static final String KEY = "native";
     public static final Descriptor NATIVE_PROVIDER_DESCRIPTOR = new Descriptor( KEY, "1.0" );
-    private final PageCache pageCache;
-    private final File nativeSchemaIndexBaseDir;
-    private final Log log;
-    private final RecoveryCleanupWorkCollector recoveryCleanupWorkCollector;
-    private final boolean readOnly;
 
     public NativeSchemaNumberIndexProvider( PageCache pageCache, File storeDir, LogProvider logging,
             RecoveryCleanupWorkCollector recoveryCleanupWorkCollector, boolean readOnly )
     {
-        super( NATIVE_PROVIDER_DESCRIPTOR, 0 );
-        this.pageCache = pageCache;
-        this.nativeSchemaIndexBaseDir = getSchemaIndexStoreDirectory( storeDir );
-        this.log = logging.getLog( getClass() );
-        this.recoveryCleanupWorkCollector = recoveryCleanupWorkCollector;
-        this.readOnly = readOnly;
+        super( NATIVE_PROVIDER_DESCRIPTOR, 0, pageCache, storeDir, logging, recoveryCleanupWorkCollector, readOnly );
     }
 
     @Override
     public IndexPopulator getPopulator( long indexId, IndexDescriptor descriptor, IndexSamplingConfig samplingConfig )
     {
-        if ( readOnly )
+        if ( isComposite( descriptor ) )
         {
-            throw new UnsupportedOperationException( "Can't create populator for read only index" );
+            return newPopulator( indexId, descriptor, compositeLayout( descriptor ), samplingConfig );
         }
+        return super.getPopulator( indexId, descriptor, samplingConfig );
+    }
 
-        File storeFile = nativeIndexFileFromIndexId( indexId );
-        switch ( descriptor.type() )
+    @Override
+    public IndexAccessor getOnlineAccessor( long indexId, IndexDescriptor descriptor, IndexSamplingConfig samplingConfig )
+            throws IOException
+    {
+        if ( isComposite( descriptor ) )
         {
-        case GENERAL:
-            return new NativeNonUniqueSchemaNumberIndexPopulator<>( pageCache, storeFile, new NonUniqueNumberLayout(), samplingConfig );
-        case UNIQUE:
-            return new NativeUniqueSchemaNumberIndexPopulator<>( pageCache, storeFile, new UniqueNumberLayout() );
-        default:
-            throw new UnsupportedOperationException( "Can not create index populator of type " + descriptor.type() );
+            return new NativeSchemaCompositeNumberIndexAccessor<>( pageCache, nativeIndexFileFromIndexId( indexId ),
+                    compositeLayout( descriptor ), recoveryCleanupWorkCollector );
         }
+        return super.getOnlineAccessor( indexId, descriptor, samplingConfig );
     }
 
     @Override
-    public IndexAccessor getOnlineAccessor( long indexId, IndexDescriptor descriptor, IndexSamplingConfig samplingConfig )
-            throws IOException
+    Layout<SchemaNumberKey,NativeSchemaValue> layout( IndexDescriptor.Type type )
     {
-        File storeFile = nativeIndexFileFromIndexId( indexId );
-        NumberLayout layout;
-        switch ( descriptor.type() )
+        switch ( type )
         {
         case GENERAL:
-            layout = new NonUniqueNumberLayout();
-            break;
+            return new NonUniqueNumberLayout();
         case UNIQUE:
-            layout = new UniqueNumberLayout();
-            break;
+            return new UniqueNumberLayout();
         default:
-            throw new UnsupportedOperationException( "Can not create index accessor of type " + descriptor.type() );
+            throw new UnsupportedOperationException( "Can not create index of type " + type );
         }
-        return new NativeSchemaNumberIndexAccessor<>( pageCache, storeFile, layout, recoveryCleanupWorkCollector );
     }
 
     @Override
-    public String getPopulationFailure( long indexId ) throws IllegalStateException
+    NativeSchemaIndexAccessor<SchemaNumberKey,NativeSchemaValue> newIndexAccessor( PageCache pageCache, File storeFile,
+            Layout<SchemaNumberKey,NativeSchemaValue> layout, RecoveryCleanupWorkCollector recoveryCleanupWorkCollector )
+            throws IOException
     {
-        try
-        {
-            String failureMessage = readPopulationFailure( indexId );
-            if ( failureMessage == null )
-            {
-                throw new IllegalStateException( "Index " + indexId + " isn't failed" );
-            }
-            return failureMessage;
-        }
-        catch ( IOException e )
-        {
-            throw new RuntimeException( e );
-        }
+        return new NativeSchemaNumberIndexAccessor<>( pageCache, storeFile, layout, recoveryCleanupWorkCollector );
     }
 
-    private String readPopulationFailure( long indexId ) throws IOException
+    @Override
+    boolean compatibleLayout( IndexDescriptor descriptor, long layoutIdentifier, int majorVersion, int minorVersion )
     {
-        NativeSchemaIndexHeaderReader headerReader = new NativeSchemaIndexHeaderReader();
-        GBPTree.readHeader( pageCache, nativeIndexFileFromIndexId( indexId ), new ReadOnlyMetaNumberLayout(),
-                headerReader );
-        return headerReader.failureMessage;
+        if ( descriptor == null )
+        {
+            return super.compatibleLayout( null, layoutIdentifier, majorVersion, minorVersion ) ||
+                    compatibleCompositeLayout( layoutIdentifier, majorVersion, minorVersion );
+        }
+        return isComposite( descriptor ) ? compatibleCompositeLayout( layoutIdentifier, majorVersion, minorVersion )
+                                         : super.compatibleLayout( descriptor, layoutIdentifier, majorVersion, minorVersion );
     }
 
-    @Override
-    public InternalIndexState getInitialState( long indexId, IndexDescriptor descriptor )
+    private static boolean compatibleCompositeLayout( long layoutIdentifier, int majorVersion, int minorVersion )
     {
-        try
+        // The number of slots is verified as meta data when opening the tree, so any number of slots will do here
+        for ( IndexDescriptor.Type type : IndexDescriptor.Type.values() )
         {
-            NativeSchemaIndexHeaderReader headerReader = new NativeSchemaIndexHeaderReader();
-            GBPTree.readHeader( pageCache, nativeIndexFileFromIndexId( indexId ), new ReadOnlyMetaNumberLayout(),
-                    headerReader );
-            switch ( headerReader.state )
+            if ( compositeLayout( type, 2 ).compatibleWith( layoutIdentifier, majorVersion, minorVersion ) )
             {
-            case BYTE_FAILED:
-                return InternalIndexState.FAILED;
-            case BYTE_ONLINE:
-                return InternalIndexState.ONLINE;
-            case BYTE_POPULATING:
-                return InternalIndexState.POPULATING;
-            default:
-                throw new IllegalStateException( "Unexpected initial state byte value " + headerReader.state );
+                return true;
             }
         }
-        catch ( IOException e )
-        {
-            log.error( "Failed to open index:" + indexId + ", requesting re-population.", e );
-            return InternalIndexState.POPULATING;
-        }
+        return false;
     }
 
-    @Override
-    public StoreMigrationParticipant storeMigrationParticipant( FileSystemAbstraction fs, PageCache pageCache )
+    private static boolean isComposite( IndexDescriptor descriptor )
     {
-        // Since this native provider is a new one, there's no need for migration on this level.
-        // Migration should happen in the combined layer for the time being.
-        return StoreMigrationParticipant.NOT_PARTICIPATING;
+        return descriptor.schema().getPropertyIds().length > 1;
     }
 
-    private File nativeIndexFileFromIndexId( long indexId )
+    private static CompositeNumberLayout compositeLayout( IndexDescriptor descriptor )
     {
-        return new File( nativeSchemaIndexBaseDir, Long.toString( indexId ) );
+        return compositeLayout( descriptor.type(), descriptor.schema().getPropertyIds().length );
     }
 
-    private class ReadOnlyMetaNumberLayout extends Layout.ReadOnlyMetaLayout
+    private static CompositeNumberLayout compositeLayout( IndexDescriptor.Type type, int numberOfSlots )
     {
-        @Override
-        public boolean compatibleWith( long layoutIdentifier, int majorVersion, int minorVersion )
+        switch ( type )
         {
-            return (layoutIdentifier == UniqueNumberLayout.IDENTIFIER &&
-                    majorVersion == UniqueNumberLayout.MAJOR_VERSION &&
-                    minorVersion == UniqueNumberLayout.MINOR_VERSION) ||
-                    (layoutIdentifier == NonUniqueNumberLayout.IDENTIFIER &&
-                            majorVersion == NonUniqueNumberLayout.MAJOR_VERSION &&
-                            minorVersion == NonUniqueNumberLayout.MINOR_VERSION);
+        case GENERAL:
+            return new NonUniqueCompositeNumberLayout( numberOfSlots );
+        case UNIQUE:
+            return new UniqueCompositeNumberLayout( numberOfSlots );
+        default:
+            throw new UnsupportedOperationException( "Can not create index of type " + type );
         }
     }
 }
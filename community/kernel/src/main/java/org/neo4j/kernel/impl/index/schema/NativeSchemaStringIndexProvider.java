@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.neo4j.index.internal.gbptree.Layout;
+import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.api.schema.index.IndexDescriptor;
+import org.neo4j.logging.LogProvider;
+
+/**
+ * Schema index provider for native indexes of strings. Only strings of at most
+ * {@link StringSchemaKey#MAX_STRING_BYTES} UTF-8 bytes can be indexed.
+ */
+public class NativeSchemaStringIndexProvider extends NativeSchemaIndexProvider<StringSchemaKey,NativeSchemaValue>
+{
+    public static final String KEY = "native-string";
+    public static final Descriptor NATIVE_STRING_PROVIDER_DESCRIPTOR = new Descriptor( KEY, "1.0" );
+
+    public NativeSchemaStringIndexProvider( PageCache pageCache, File storeDir, LogProvider logging,
+            RecoveryCleanupWorkCollector recoveryCleanupWorkCollector, boolean readOnly )
+    {
+        super( NATIVE_STRING_PROVIDER_DESCRIPTOR, 0, pageCache, storeDir, logging, recoveryCleanupWorkCollector,
+                readOnly );
+    }
+
+    @Override
+    Layout<StringSchemaKey,NativeSchemaValue> layout( IndexDescriptor.Type type )
+    {
+        switch ( type )
+        {
+        case GENERAL:
+            return new NonUniqueStringLayout();
+        case UNIQUE:
+            return new UniqueStringLayout();
+        default:
+            throw new UnsupportedOperationException( "Can not create index of type " + type );
+        }
+    }
+
+    @Override
+    NativeSchemaIndexAccessor<StringSchemaKey,NativeSchemaValue> newIndexAccessor( PageCache pageCache, File storeFile,
+            Layout<StringSchemaKey,NativeSchemaValue> layout, RecoveryCleanupWorkCollector recoveryCleanupWorkCollector )
+            throws IOException
+    {
+        return new NativeSchemaStringIndexAccessor<>( pageCache, storeFile, layout, recoveryCleanupWorkCollector );
+    }
+}
@@ -23,18 +23,18 @@ import org.neo4j.index.internal.gbptree.GBPTree;
 import org.neo4j.values.storable.Value;
 
 /**
- * Value in a {@link GBPTree} handling numbers suitable for schema indexing.
+ * Value in a {@link GBPTree} handling values suitable for schema indexing, shared by all native schema index layouts.
  *
- * NOTE:  For the time being no data exists in {@link SchemaNumberValue}, but since the layout is under development
+ * NOTE:  For the time being no data exists in {@link NativeSchemaValue}, but since the layout is under development
  * it's very convenient to have this class still exist so that it's very easy to try out different types
  * of layouts without changing the entire stack of arguments. In the end it may just be that this class
  * will be deleted, but for now it sticks around.
  */
-class SchemaNumberValue
+class NativeSchemaValue
 {
     static final int SIZE = 0;
 
-    static final SchemaNumberValue INSTANCE = new SchemaNumberValue();
+    static final NativeSchemaValue INSTANCE = new NativeSchemaValue();
 
     void from( Value... values )
     {
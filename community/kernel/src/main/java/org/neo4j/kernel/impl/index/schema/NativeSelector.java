@@ -20,26 +20,46 @@
 package org.neo4j.kernel.impl.index.schema;
 
 import org.neo4j.kernel.impl.index.schema.fusion.FusionSchemaIndexProvider;
+import org.neo4j.values.storable.TextValue;
 import org.neo4j.values.storable.Value;
 import org.neo4j.values.storable.ValueGroup;
+import org.neo4j.values.storable.Values;
 
 public class NativeSelector implements FusionSchemaIndexProvider.Selector
 {
     @Override
-    public <T> T select( T nativeInstance, T luceneInstance, Value... values )
+    public <T> T select( T numberInstance, T stringInstance, T luceneInstance, Value... values )
     {
         if ( values.length > 1 )
         {
-            // Multiple values must be handled by lucene
-            return luceneInstance;
+            // Multiple values can be handled by the native number index if they're all numbers,
+            // otherwise they must be handled by lucene
+            return allNumbers( values ) ? numberInstance : luceneInstance;
         }
 
         Value singleValue = values[0];
         if ( singleValue.valueGroup() == ValueGroup.NUMBER )
         {
             // It's a number, the native can handle this
-            return nativeInstance;
+            return numberInstance;
+        }
+        if ( Values.isTextValue( singleValue ) && StringSchemaKey.fitsInKey( (TextValue) singleValue ) )
+        {
+            // It's a string short enough to fit in a native key
+            return stringInstance;
         }
         return luceneInstance;
     }
+
+    private static boolean allNumbers( Value[] values )
+    {
+        for ( Value value : values )
+        {
+            if ( value.valueGroup() != ValueGroup.NUMBER )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
 }
@@ -28,19 +28,26 @@ import org.neo4j.kernel.impl.api.index.sampling.UniqueIndexSampler;
 import org.neo4j.storageengine.api.schema.IndexSample;
 
 /**
- * {@link NativeSchemaNumberIndexPopulator} which can enforces unique values.
+ * {@link NativeSchemaIndexPopulator} which can enforces unique values.
  */
-class NativeUniqueSchemaNumberIndexPopulator<KEY extends SchemaNumberKey, VALUE extends SchemaNumberValue>
-        extends NativeSchemaNumberIndexPopulator<KEY,VALUE>
+class NativeUniqueSchemaIndexPopulator<KEY extends NativeSchemaKey, VALUE extends NativeSchemaValue>
+        extends NativeSchemaIndexPopulator<KEY,VALUE>
 {
     private final UniqueIndexSampler sampler;
 
-    NativeUniqueSchemaNumberIndexPopulator( PageCache pageCache, File storeFile, Layout<KEY,VALUE> layout )
+    NativeUniqueSchemaIndexPopulator( PageCache pageCache, File storeFile, Layout<KEY,VALUE> layout )
     {
         super( pageCache, storeFile, layout );
         this.sampler = new UniqueIndexSampler();
     }
 
+    @Override
+    boolean canBulkLoad()
+    {
+        // Uniqueness is checked for each added entry as it's inserted
+        return false;
+    }
+
     @Override
     public void includeSample( IndexEntryUpdate update )
     {
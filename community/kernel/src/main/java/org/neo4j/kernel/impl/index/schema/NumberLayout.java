@@ -25,7 +25,7 @@ import org.neo4j.io.pagecache.PageCursor;
 /**
  * {@link Layout} for numbers where numbers doesn't need to be unique.
  */
-abstract class NumberLayout extends Layout.Adapter<SchemaNumberKey,SchemaNumberValue>
+abstract class NumberLayout extends Layout.Adapter<SchemaNumberKey,NativeSchemaValue>
 {
     @Override
     public SchemaNumberKey newKey()
@@ -45,9 +45,9 @@ abstract class NumberLayout extends Layout.Adapter<SchemaNumberKey,SchemaNumberV
     }
 
     @Override
-    public SchemaNumberValue newValue()
+    public NativeSchemaValue newValue()
     {
-        return SchemaNumberValue.INSTANCE;
+        return NativeSchemaValue.INSTANCE;
     }
 
     @Override
@@ -59,7 +59,7 @@ abstract class NumberLayout extends Layout.Adapter<SchemaNumberKey,SchemaNumberV
     @Override
     public int valueSize()
     {
-        return SchemaNumberValue.SIZE;
+        return NativeSchemaValue.SIZE;
     }
 
     @Override
@@ -71,7 +71,7 @@ abstract class NumberLayout extends Layout.Adapter<SchemaNumberKey,SchemaNumberV
     }
 
     @Override
-    public void writeValue( PageCursor cursor, SchemaNumberValue value )
+    public void writeValue( PageCursor cursor, NativeSchemaValue value )
     {
     }
 
@@ -84,7 +84,7 @@ abstract class NumberLayout extends Layout.Adapter<SchemaNumberKey,SchemaNumberV
     }
 
     @Override
-    public void readValue( PageCursor cursor, SchemaNumberValue into )
+    public void readValue( PageCursor cursor, NativeSchemaValue into )
     {
     }
 }
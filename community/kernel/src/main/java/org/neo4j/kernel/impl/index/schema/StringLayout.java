@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import org.neo4j.index.internal.gbptree.Layout;
+import org.neo4j.io.pagecache.PageCursor;
+
+/**
+ * {@link Layout} for strings, with keys of variable size.
+ * <p>
+ * Keys are written so that their bytes compare like the keys themselves, which lets the tree strip off the prefix
+ * which keys in a leaf have in common: each byte of the UTF-8 encoded string is written incremented by one,
+ * which can't overflow since 0xFF never occurs in UTF-8, followed by a zero byte, which compares lower than any
+ * byte of a longer string. Then follows the entity id with its sign bit flipped, so that its bytes compare like
+ * the entity ids themselves.
+ */
+abstract class StringLayout extends Layout.Adapter<StringSchemaKey,NativeSchemaValue>
+{
+    private static final int TERMINATOR_SIZE = Byte.BYTES;
+
+    @Override
+    public StringSchemaKey newKey()
+    {
+        return new StringSchemaKey();
+    }
+
+    @Override
+    public StringSchemaKey copyKey( StringSchemaKey key, StringSchemaKey into )
+    {
+        if ( key.bytes == null )
+        {
+            into.bytes = null;
+        }
+        else
+        {
+            if ( into.bytes == null || into.bytes.length != key.bytes.length )
+            {
+                into.bytes = new byte[key.bytes.length];
+            }
+            System.arraycopy( key.bytes, 0, into.bytes, 0, key.bytes.length );
+        }
+        into.entityId = key.entityId;
+        into.entityIdIsSpecialTieBreaker = key.entityIdIsSpecialTieBreaker;
+        return into;
+    }
+
+    @Override
+    public NativeSchemaValue newValue()
+    {
+        return NativeSchemaValue.INSTANCE;
+    }
+
+    @Override
+    public boolean fixedSize()
+    {
+        return false;
+    }
+
+    @Override
+    public int keySize()
+    {
+        return -1;
+    }
+
+    @Override
+    public int keySize( StringSchemaKey key )
+    {
+        return key.bytes.length + TERMINATOR_SIZE + NativeSchemaKey.ENTITY_ID_SIZE;
+    }
+
+    @Override
+    public int valueSize()
+    {
+        return NativeSchemaValue.SIZE;
+    }
+
+    @Override
+    public void writeKey( PageCursor cursor, StringSchemaKey key )
+    {
+        byte[] bytes = key.bytes;
+        for ( byte b : bytes )
+        {
+            cursor.putByte( (byte) (b + 1) );
+        }
+        cursor.putByte( (byte) 0 );
+        cursor.putLong( key.entityId ^ Long.MIN_VALUE );
+    }
+
+    @Override
+    public void writeValue( PageCursor cursor, NativeSchemaValue value )
+    {
+    }
+
+    @Override
+    public void readKey( PageCursor cursor, StringSchemaKey into )
+    {
+        throw new UnsupportedOperationException( "Size of key is needed to read it" );
+    }
+
+    @Override
+    public void readKey( PageCursor cursor, StringSchemaKey into, int keySize )
+    {
+        int length = keySize - TERMINATOR_SIZE - NativeSchemaKey.ENTITY_ID_SIZE;
+        if ( length < 0 )
+        {
+            cursor.setCursorException( "Unexpected size of string key " + keySize );
+            return;
+        }
+        if ( into.bytes == null || into.bytes.length != length )
+        {
+            into.bytes = new byte[length];
+        }
+        for ( int i = 0; i < length; i++ )
+        {
+            into.bytes[i] = (byte) (cursor.getByte() - 1);
+        }
+        cursor.getByte();
+        into.entityId = cursor.getLong() ^ Long.MIN_VALUE;
+    }
+
+    @Override
+    public void readValue( PageCursor cursor, NativeSchemaValue into )
+    {
+    }
+}
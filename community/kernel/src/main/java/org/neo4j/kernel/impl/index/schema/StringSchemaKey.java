@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.util.Arrays;
+
+import org.neo4j.values.storable.TextValue;
+import org.neo4j.values.storable.Value;
+import org.neo4j.values.storable.Values;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Includes value and entity id (to be able to handle non-unique values). A value can be any text and is
+ * represented as its UTF-8 bytes, which compare like the strings they encode when compared as unsigned bytes,
+ * i.e. in code point order. This is the same order as lucene keeps its terms in.
+ * <p>
+ * {@link #bytes} is {@code null} for a key {@link #initAsHighest() initialized as highest}, which compares
+ * higher than all keys with a value.
+ */
+class StringSchemaKey extends NativeSchemaKey
+{
+    /**
+     * Strings which are longer than this, in UTF-8 bytes, aren't indexed by the native string index and are left
+     * to the lucene index, see {@link NativeSelector}. A key needs a few bytes more than its string and must fit
+     * comfortably within the maximum key size of a tree with 8 KiB pages.
+     */
+    static final int MAX_STRING_BYTES = 1024;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    byte[] bytes;
+
+    /**
+     * @param value text value to check.
+     * @return whether or not the given text is short enough to be indexed by the native string index.
+     */
+    static boolean fitsInKey( TextValue value )
+    {
+        String string = value.stringValue();
+        if ( string.length() > MAX_STRING_BYTES )
+        {
+            return false;
+        }
+        int utf8Length = 0;
+        for ( int i = 0; i < string.length(); i++ )
+        {
+            char c = string.charAt( i );
+            // A surrogate pair, encoded as four bytes, consists of two chars
+            utf8Length += c < 0x80 ? 1 : c < 0x800 || Character.isSurrogate( c ) ? 2 : 3;
+        }
+        return utf8Length <= MAX_STRING_BYTES;
+    }
+
+    @Override
+    TextValue assertValidValue( Value... values )
+    {
+        if ( values.length > 1 )
+        {
+            throw new IllegalArgumentException( "Tried to create composite key with non-composite schema key layout" );
+        }
+        if ( values.length < 1 )
+        {
+            throw new IllegalArgumentException( "Tried to create key without value" );
+        }
+        if ( !Values.isTextValue( values[0] ) )
+        {
+            throw new IllegalArgumentException(
+                    "Key layout does only support strings, tried to create key from " + values[0] );
+        }
+        return (TextValue) values[0];
+    }
+
+    @Override
+    TextValue asValue()
+    {
+        return Values.utf8Value( bytes );
+    }
+
+    @Override
+    void initValueAsLowest()
+    {
+        bytes = EMPTY;
+    }
+
+    @Override
+    void initValueAsHighest()
+    {
+        bytes = null;
+    }
+
+    /**
+     * Initializes this key as the inclusive start of the range of all keys with a value starting with
+     * {@code prefix}.
+     *
+     * @param prefix the prefix.
+     */
+    void initAsPrefixLow( String prefix )
+    {
+        writeString( prefix );
+        entityId = Long.MIN_VALUE;
+        entityIdIsSpecialTieBreaker = true;
+    }
+
+    /**
+     * Initializes this key as the exclusive end of the range of all keys with a value starting with
+     * {@code prefix}. The prefix is followed by a byte which is higher than any byte in UTF-8 encoded text.
+     *
+     * @param prefix the prefix.
+     */
+    void initAsPrefixHigh( String prefix )
+    {
+        byte[] prefixBytes = prefix.getBytes( UTF_8 );
+        bytes = Arrays.copyOf( prefixBytes, prefixBytes.length + 1 );
+        bytes[prefixBytes.length] = (byte) 0xFF;
+        entityId = Long.MIN_VALUE;
+        entityIdIsSpecialTieBreaker = true;
+    }
+
+    /**
+     * Compares the value of this key to that of another key.
+     * This method is expected to be called in scenarios where inconsistent reads may happen (and later retried).
+     *
+     * @param other the {@link StringSchemaKey} to compare to.
+     * @return comparison against the {@code other} {@link StringSchemaKey}.
+     */
+    int compareValueTo( StringSchemaKey other )
+    {
+        if ( bytes == null || other.bytes == null )
+        {
+            return bytes == other.bytes ? 0 : bytes == null ? 1 : -1;
+        }
+        int length = Math.min( bytes.length, other.bytes.length );
+        for ( int i = 0; i < length; i++ )
+        {
+            int compare = Integer.compare( bytes[i] & 0xFF, other.bytes[i] & 0xFF );
+            if ( compare != 0 )
+            {
+                return compare;
+            }
+        }
+        return Integer.compare( bytes.length, other.bytes.length );
+    }
+
+    @Override
+    public String toString()
+    {
+        return format( "value=%s,entityId=%d", bytes == null ? "<highest>" : new String( bytes, UTF_8 ), entityId );
+    }
+
+    @Override
+    public void writeString( String value )
+    {
+        bytes = value.getBytes( UTF_8 );
+    }
+
+    @Override
+    public void writeString( char value )
+    {
+        writeString( String.valueOf( value ) );
+    }
+
+    @Override
+    public void writeUTF8( byte[] bytes, int offset, int length )
+    {
+        this.bytes = Arrays.copyOfRange( bytes, offset, offset + length );
+    }
+}
@@ -35,13 +35,16 @@ import static org.neo4j.kernel.impl.index.schema.fusion.FusionSchemaIndexProvide
 
 class FusionIndexPopulator implements IndexPopulator
 {
-    private final IndexPopulator nativePopulator;
+    private final IndexPopulator numberPopulator;
+    private final IndexPopulator stringPopulator;
     private final IndexPopulator lucenePopulator;
     private final Selector selector;
 
-    FusionIndexPopulator( IndexPopulator nativePopulator, IndexPopulator lucenePopulator, Selector selector )
+    FusionIndexPopulator( IndexPopulator numberPopulator, IndexPopulator stringPopulator, IndexPopulator lucenePopulator,
+            Selector selector )
     {
-        this.nativePopulator = nativePopulator;
+        this.numberPopulator = numberPopulator;
+        this.stringPopulator = stringPopulator;
         this.lucenePopulator = lucenePopulator;
         this.selector = selector;
     }
@@ -49,7 +52,8 @@ class FusionIndexPopulator implements IndexPopulator
     @Override
     public void create() throws IOException
     {
-        nativePopulator.create();
+        numberPopulator.create();
+        stringPopulator.create();
         lucenePopulator.create();
     }
 
@@ -58,11 +62,18 @@ class FusionIndexPopulator implements IndexPopulator
     {
         try
         {
-            nativePopulator.drop();
+            numberPopulator.drop();
         }
         finally
         {
-            lucenePopulator.drop();
+            try
+            {
+                stringPopulator.drop();
+            }
+            finally
+            {
+                lucenePopulator.drop();
+            }
         }
     }
 
@@ -70,20 +81,23 @@ class FusionIndexPopulator implements IndexPopulator
     public void add( Collection<? extends IndexEntryUpdate<?>> updates ) throws IndexEntryConflictException, IOException
     {
         Collection<IndexEntryUpdate<?>> luceneBatch = new ArrayList<>();
-        Collection<IndexEntryUpdate<?>> nativeBatch = new ArrayList<>();
+        Collection<IndexEntryUpdate<?>> numberBatch = new ArrayList<>();
+        Collection<IndexEntryUpdate<?>> stringBatch = new ArrayList<>();
         for ( IndexEntryUpdate<?> update : updates )
         {
-            selector.select( nativeBatch, luceneBatch, update.values() ).add( update );
+            selector.select( numberBatch, stringBatch, luceneBatch, update.values() ).add( update );
         }
         lucenePopulator.add( luceneBatch );
-        nativePopulator.add( nativeBatch );
+        numberPopulator.add( numberBatch );
+        stringPopulator.add( stringBatch );
     }
 
     @Override
     public void verifyDeferredConstraints( PropertyAccessor propertyAccessor )
             throws IndexEntryConflictException, IOException
     {
-        nativePopulator.verifyDeferredConstraints( propertyAccessor );
+        numberPopulator.verifyDeferredConstraints( propertyAccessor );
+        stringPopulator.verifyDeferredConstraints( propertyAccessor );
         lucenePopulator.verifyDeferredConstraints( propertyAccessor );
     }
 
@@ -91,7 +105,8 @@ class FusionIndexPopulator implements IndexPopulator
     public IndexUpdater newPopulatingUpdater( PropertyAccessor accessor ) throws IOException
     {
         return new FusionIndexUpdater(
-                nativePopulator.newPopulatingUpdater( accessor ),
+                numberPopulator.newPopulatingUpdater( accessor ),
+                stringPopulator.newPopulatingUpdater( accessor ),
                 lucenePopulator.newPopulatingUpdater( accessor ), selector );
     }
 
@@ -100,11 +115,18 @@ class FusionIndexPopulator implements IndexPopulator
     {
         try
         {
-            nativePopulator.close( populationCompletedSuccessfully );
+            numberPopulator.close( populationCompletedSuccessfully );
         }
         finally
         {
-            lucenePopulator.close( populationCompletedSuccessfully );
+            try
+            {
+                stringPopulator.close( populationCompletedSuccessfully );
+            }
+            finally
+            {
+                lucenePopulator.close( populationCompletedSuccessfully );
+            }
         }
     }
 
@@ -113,30 +135,39 @@ class FusionIndexPopulator implements IndexPopulator
     {
         try
         {
-            nativePopulator.markAsFailed( failure );
+            numberPopulator.markAsFailed( failure );
         }
         finally
         {
-            lucenePopulator.markAsFailed( failure );
+            try
+            {
+                stringPopulator.markAsFailed( failure );
+            }
+            finally
+            {
+                lucenePopulator.markAsFailed( failure );
+            }
         }
     }
 
     @Override
     public void includeSample( IndexEntryUpdate update )
     {
-        selector.select( nativePopulator, lucenePopulator, update.values() ).includeSample( update );
+        selector.select( numberPopulator, stringPopulator, lucenePopulator, update.values() ).includeSample( update );
     }
 
     @Override
     public void configureSampling( boolean onlineSampling )
     {
-        nativePopulator.configureSampling( onlineSampling );
+        numberPopulator.configureSampling( onlineSampling );
+        stringPopulator.configureSampling( onlineSampling );
         lucenePopulator.configureSampling( onlineSampling );
     }
 
     @Override
     public IndexSample sampleResult()
     {
-        return combineSamples( nativePopulator.sampleResult(), lucenePopulator.sampleResult() );
+        return combineSamples( numberPopulator.sampleResult(), stringPopulator.sampleResult(),
+                lucenePopulator.sampleResult() );
     }
 }
@@ -26,20 +26,27 @@ import org.neo4j.kernel.api.schema.IndexQuery;
 import org.neo4j.kernel.api.schema.IndexQuery.ExactPredicate;
 import org.neo4j.kernel.api.schema.IndexQuery.ExistsPredicate;
 import org.neo4j.kernel.api.schema.IndexQuery.NumberRangePredicate;
+import org.neo4j.kernel.api.schema.IndexQuery.StringContainsPredicate;
+import org.neo4j.kernel.api.schema.IndexQuery.StringPrefixPredicate;
+import org.neo4j.kernel.api.schema.IndexQuery.StringRangePredicate;
+import org.neo4j.kernel.api.schema.IndexQuery.StringSuffixPredicate;
 import org.neo4j.kernel.impl.index.schema.fusion.FusionSchemaIndexProvider.Selector;
 import org.neo4j.storageengine.api.schema.IndexReader;
 import org.neo4j.storageengine.api.schema.IndexSampler;
 import org.neo4j.values.storable.Value;
+import org.neo4j.values.storable.ValueGroup;
 
 class FusionIndexReader implements IndexReader
 {
-    private final IndexReader nativeReader;
+    private final IndexReader numberReader;
+    private final IndexReader stringReader;
     private final IndexReader luceneReader;
     private final Selector selector;
 
-    FusionIndexReader( IndexReader nativeReader, IndexReader luceneReader, Selector selector )
+    FusionIndexReader( IndexReader numberReader, IndexReader stringReader, IndexReader luceneReader, Selector selector )
     {
-        this.nativeReader = nativeReader;
+        this.numberReader = numberReader;
+        this.stringReader = stringReader;
         this.luceneReader = luceneReader;
         this.selector = selector;
     }
@@ -49,24 +56,33 @@ class FusionIndexReader implements IndexReader
     {
         try
         {
-            nativeReader.close();
+            numberReader.close();
         }
         finally
         {
-            luceneReader.close();
+            try
+            {
+                stringReader.close();
+            }
+            finally
+            {
+                luceneReader.close();
+            }
         }
     }
 
     @Override
     public long countIndexedNodes( long nodeId, Value... propertyValues )
     {
-        return selector.select( nativeReader, luceneReader, propertyValues ).countIndexedNodes( nodeId, propertyValues );
+        return selector.select( numberReader, stringReader, luceneReader, propertyValues )
+                .countIndexedNodes( nodeId, propertyValues );
     }
 
     @Override
     public IndexSampler createSampler()
     {
-        return new FusionIndexSampler( nativeReader.createSampler(), luceneReader.createSampler() );
+        return new FusionIndexSampler( numberReader.createSampler(), stringReader.createSampler(),
+                luceneReader.createSampler() );
     }
 
     @Override
@@ -74,26 +90,63 @@ class FusionIndexReader implements IndexReader
     {
         if ( predicates.length > 1 )
         {
-            return luceneReader.query( predicates );
+            return queryComposite( predicates );
         }
 
         if ( predicates[0] instanceof ExactPredicate )
         {
             ExactPredicate exactPredicate = (ExactPredicate) predicates[0];
-            return selector.select( nativeReader, luceneReader, exactPredicate.value() ).query( predicates );
+            return selector.select( numberReader, stringReader, luceneReader, exactPredicate.value() ).query( predicates );
         }
 
         if ( predicates[0] instanceof NumberRangePredicate )
         {
-            return nativeReader.query( predicates[0] );
+            return numberReader.query( predicates[0] );
+        }
+
+        // Strings too long for the native string index are in the lucene index and may also match
+        if ( predicates[0] instanceof StringRangePredicate || predicates[0] instanceof StringPrefixPredicate ||
+                predicates[0] instanceof StringSuffixPredicate || predicates[0] instanceof StringContainsPredicate )
+        {
+            PrimitiveLongIterator stringResult = stringReader.query( predicates[0] );
+            PrimitiveLongIterator luceneResult = luceneReader.query( predicates[0] );
+            return PrimitiveLongCollections.concat( stringResult, luceneResult );
         }
 
         // todo: There will be no ordering of the node ids here. Is this a problem?
         if ( predicates[0] instanceof ExistsPredicate )
         {
-            PrimitiveLongIterator nativeResult = nativeReader.query( predicates[0] );
+            PrimitiveLongIterator numberResult = numberReader.query( predicates[0] );
+            PrimitiveLongIterator stringResult = stringReader.query( predicates[0] );
             PrimitiveLongIterator luceneResult = luceneReader.query( predicates[0] );
-            return PrimitiveLongCollections.concat( nativeResult, luceneResult );
+            return PrimitiveLongCollections.concat( numberResult, stringResult, luceneResult );
+        }
+
+        return luceneReader.query( predicates );
+    }
+
+    private PrimitiveLongIterator queryComposite( IndexQuery[] predicates ) throws IndexNotApplicableKernelException
+    {
+        if ( allExact( predicates ) )
+        {
+            return selector.select( numberReader, stringReader, luceneReader, exactValues( predicates ) )
+                    .query( predicates );
+        }
+
+        if ( isCompositeNumberRangeSeek( predicates ) )
+        {
+            // All entries with numbers for all properties are in the native number index
+            return numberReader.query( predicates );
+        }
+
+        if ( allExists( predicates ) )
+        {
+            // The native string index only has entries for single properties, so there's nothing to find in it.
+            // Results are not in any particular order, which is fine since fusion indexes have no order capability
+            // for queries spanning multiple indexes
+            PrimitiveLongIterator numberResult = numberReader.query( predicates );
+            PrimitiveLongIterator luceneResult = luceneReader.query( predicates );
+            return PrimitiveLongCollections.concat( numberResult, luceneResult );
         }
 
         return luceneReader.query( predicates );
@@ -104,7 +157,14 @@ class FusionIndexReader implements IndexReader
     {
         if ( predicates.length > 1 )
         {
-            return false;
+            if ( allExact( predicates ) )
+            {
+                return selector.select(
+                        numberReader.hasFullNumberPrecision( predicates ),
+                        stringReader.hasFullNumberPrecision( predicates ),
+                        luceneReader.hasFullNumberPrecision( predicates ), exactValues( predicates ) );
+            }
+            return isCompositeNumberRangeSeek( predicates ) && numberReader.hasFullNumberPrecision( predicates );
         }
 
         IndexQuery predicate = predicates[0];
@@ -112,13 +172,72 @@ class FusionIndexReader implements IndexReader
         {
             Value value = ((ExactPredicate) predicate).value();
             return selector.select(
-                    nativeReader.hasFullNumberPrecision( predicates ),
+                    numberReader.hasFullNumberPrecision( predicates ),
+                    stringReader.hasFullNumberPrecision( predicates ),
                     luceneReader.hasFullNumberPrecision( predicates ), value );
         }
         if ( predicates[0] instanceof NumberRangePredicate )
         {
-            return nativeReader.hasFullNumberPrecision( predicates );
+            return numberReader.hasFullNumberPrecision( predicates );
         }
         return false;
     }
+
+    /**
+     * @return whether or not the predicates are exact predicates for numbers on all but the last property and a
+     * number range predicate on the last property, and entries with numbers for all properties are selected to
+     * the native number index. Only such entries can match the query, so then the native number index alone
+     * can answer it.
+     */
+    private boolean isCompositeNumberRangeSeek( IndexQuery[] predicates )
+    {
+        if ( !selector.selectsCompositeNumbers() )
+        {
+            return false;
+        }
+        int last = predicates.length - 1;
+        for ( int i = 0; i < last; i++ )
+        {
+            if ( !(predicates[i] instanceof ExactPredicate) ||
+                    ((ExactPredicate) predicates[i]).value().valueGroup() != ValueGroup.NUMBER )
+            {
+                return false;
+            }
+        }
+        return predicates[last] instanceof NumberRangePredicate;
+    }
+
+    private static boolean allExact( IndexQuery[] predicates )
+    {
+        for ( IndexQuery predicate : predicates )
+        {
+            if ( !(predicate instanceof ExactPredicate) )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean allExists( IndexQuery[] predicates )
+    {
+        for ( IndexQuery predicate : predicates )
+        {
+            if ( !(predicate instanceof ExistsPredicate) )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Value[] exactValues( IndexQuery[] predicates )
+    {
+        Value[] values = new Value[predicates.length];
+        for ( int i = 0; i < predicates.length; i++ )
+        {
+            values[i] = ((ExactPredicate) predicates[i]).value();
+        }
+        return values;
+    }
 }
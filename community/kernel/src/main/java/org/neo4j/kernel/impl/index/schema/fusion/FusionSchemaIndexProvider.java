@@ -34,26 +34,82 @@ import org.neo4j.storageengine.api.schema.IndexSample;
 import org.neo4j.values.storable.Value;
 
 /**
- * This {@link SchemaIndexProvider index provider} act as one logical index but is backed by two physical
- * indexes, the native index and the lucene index. All index entries that can be handled by the native index will be directed
- * there and the rest will be directed to the lucene index.
+ * This {@link SchemaIndexProvider index provider} act as one logical index but is backed by three physical
+ * indexes, the native number index, the native string index and the lucene index. All index entries that can be handled
+ * by one of the native indexes will be directed there and the rest will be directed to the lucene index.
  */
 public class FusionSchemaIndexProvider extends SchemaIndexProvider
 {
     public interface Selector
     {
-        <T> T select( T nativeInstance, T luceneInstance, Value... values );
+        <T> T select( T numberInstance, T stringInstance, T luceneInstance, Value... values );
+
+        /**
+         * @return whether or not entries with numbers for all of multiple properties are selected to the native
+         * number index, so that composite range seeks of numbers can be answered by it alone.
+         */
+        default boolean selectsCompositeNumbers()
+        {
+            return true;
+        }
     }
 
-    private final SchemaIndexProvider nativeProvider;
+    /**
+     * Provider of a part of fusion indexes which their {@link Selector} never selects, like the string part of fusion
+     * indexes created before strings got a native index of their own. It has no files and is always online and empty,
+     * so that those indexes come online as they are, without being rebuilt because of a part they never had.
+     */
+    public static final SchemaIndexProvider EMPTY_PART_PROVIDER =
+            new SchemaIndexProvider( new Descriptor( "fusion-empty-part", "1.0" ), -1 )
+            {
+                private final IndexAccessor accessor = new IndexAccessor.Adapter();
+                private final IndexPopulator populator = new IndexPopulator.Adapter();
+
+                @Override
+                public IndexPopulator getPopulator( long indexId, IndexDescriptor descriptor,
+                        IndexSamplingConfig samplingConfig )
+                {
+                    return populator;
+                }
+
+                @Override
+                public IndexAccessor getOnlineAccessor( long indexId, IndexDescriptor descriptor,
+                        IndexSamplingConfig samplingConfig )
+                {
+                    return accessor;
+                }
+
+                @Override
+                public String getPopulationFailure( long indexId ) throws IllegalStateException
+                {
+                    throw new IllegalStateException( "Empty part of fusion index can't fail" );
+                }
+
+                @Override
+                public InternalIndexState getInitialState( long indexId, IndexDescriptor descriptor )
+                {
+                    return InternalIndexState.ONLINE;
+                }
+
+                @Override
+                public StoreMigrationParticipant storeMigrationParticipant( FileSystemAbstraction fs,
+                        PageCache pageCache )
+                {
+                    return StoreMigrationParticipant.NOT_PARTICIPATING;
+                }
+            };
+
+    private final SchemaIndexProvider numberProvider;
+    private final SchemaIndexProvider stringProvider;
     private final SchemaIndexProvider luceneProvider;
     private final Selector selector;
 
-    public FusionSchemaIndexProvider( SchemaIndexProvider nativeProvider, SchemaIndexProvider luceneProvider, Selector selector,
-            SchemaIndexProvider.Descriptor descriptor, int priority )
+    public FusionSchemaIndexProvider( SchemaIndexProvider numberProvider, SchemaIndexProvider stringProvider,
+            SchemaIndexProvider luceneProvider, Selector selector, SchemaIndexProvider.Descriptor descriptor, int priority )
     {
         super( descriptor, priority );
-        this.nativeProvider = nativeProvider;
+        this.numberProvider = numberProvider;
+        this.stringProvider = stringProvider;
         this.luceneProvider = luceneProvider;
         this.selector = selector;
     }
@@ -62,7 +118,8 @@ public class FusionSchemaIndexProvider extends SchemaIndexProvider
     public IndexPopulator getPopulator( long indexId, IndexDescriptor descriptor, IndexSamplingConfig samplingConfig )
     {
         return new FusionIndexPopulator(
-                nativeProvider.getPopulator( indexId, descriptor, samplingConfig ),
+                numberProvider.getPopulator( indexId, descriptor, samplingConfig ),
+                stringProvider.getPopulator( indexId, descriptor, samplingConfig ),
                 luceneProvider.getPopulator( indexId, descriptor, samplingConfig ), selector );
     }
 
@@ -71,17 +128,26 @@ public class FusionSchemaIndexProvider extends SchemaIndexProvider
             IndexSamplingConfig samplingConfig ) throws IOException
     {
         return new FusionIndexAccessor(
-                nativeProvider.getOnlineAccessor( indexId, descriptor, samplingConfig ),
+                numberProvider.getOnlineAccessor( indexId, descriptor, samplingConfig ),
+                stringProvider.getOnlineAccessor( indexId, descriptor, samplingConfig ),
                 luceneProvider.getOnlineAccessor( indexId, descriptor, samplingConfig ), selector );
     }
 
     @Override
     public String getPopulationFailure( long indexId ) throws IllegalStateException
     {
-        String nativeFailure = null;
+        String numberFailure = null;
         try
         {
-            nativeFailure = nativeProvider.getPopulationFailure( indexId );
+            numberFailure = numberProvider.getPopulationFailure( indexId );
+        }
+        catch ( IllegalStateException e )
+        {   // Just catch
+        }
+        String stringFailure = null;
+        try
+        {
+            stringFailure = stringProvider.getPopulationFailure( indexId );
         }
         catch ( IllegalStateException e )
         {   // Just catch
@@ -95,9 +161,9 @@ public class FusionSchemaIndexProvider extends SchemaIndexProvider
         {   // Just catch
         }
 
-        if ( nativeFailure != null || luceneFailure != null )
+        if ( numberFailure != null || stringFailure != null || luceneFailure != null )
         {
-            return "native: " + nativeFailure + " lucene: " + luceneFailure;
+            return "number: " + numberFailure + " string: " + stringFailure + " lucene: " + luceneFailure;
         }
         throw new IllegalStateException( "None of the indexes were in a failed state" );
     }
@@ -105,20 +171,23 @@ public class FusionSchemaIndexProvider extends SchemaIndexProvider
     @Override
     public InternalIndexState getInitialState( long indexId, IndexDescriptor descriptor )
     {
-        InternalIndexState nativeState = nativeProvider.getInitialState( indexId, descriptor );
+        InternalIndexState numberState = numberProvider.getInitialState( indexId, descriptor );
+        InternalIndexState stringState = stringProvider.getInitialState( indexId, descriptor );
         InternalIndexState luceneState = luceneProvider.getInitialState( indexId, descriptor );
-        if ( nativeState == InternalIndexState.FAILED || luceneState == InternalIndexState.FAILED )
+        if ( numberState == InternalIndexState.FAILED || stringState == InternalIndexState.FAILED ||
+                luceneState == InternalIndexState.FAILED )
         {
             // One of the state is FAILED, the whole state must be considered FAILED
             return InternalIndexState.FAILED;
         }
-        if ( nativeState == InternalIndexState.POPULATING || luceneState == InternalIndexState.POPULATING )
+        if ( numberState == InternalIndexState.POPULATING || stringState == InternalIndexState.POPULATING ||
+                luceneState == InternalIndexState.POPULATING )
         {
             // No state is FAILED and one of the state is POPULATING, the whole state must be considered POPULATING
             return InternalIndexState.POPULATING;
         }
-        // This means that both states are ONLINE
-        return nativeState;
+        // This means that all states are ONLINE
+        return numberState;
     }
 
     @Override
@@ -128,11 +197,17 @@ public class FusionSchemaIndexProvider extends SchemaIndexProvider
         return StoreMigrationParticipant.NOT_PARTICIPATING;
     }
 
-    static IndexSample combineSamples( IndexSample first, IndexSample other )
+    static IndexSample combineSamples( IndexSample... samples )
     {
-        return new IndexSample(
-                first.indexSize() + other.indexSize(),
-                first.uniqueValues() + other.uniqueValues(),
-                first.sampleSize() + other.sampleSize() );
+        long indexSize = 0;
+        long uniqueValues = 0;
+        long sampleSize = 0;
+        for ( IndexSample sample : samples )
+        {
+            indexSize += sample.indexSize();
+            uniqueValues += sample.uniqueValues();
+            sampleSize += sample.sampleSize();
+        }
+        return new IndexSample( indexSize, uniqueValues, sampleSize );
     }
 }
@@ -50,6 +50,15 @@ final class CombinedTracer implements LockTracer
         return new CombinedEvent( events );
     }
 
+    @Override
+    public void deadlockDetected( ResourceType resourceType, long resourceId )
+    {
+        for ( LockTracer tracer : tracers )
+        {
+            tracer.deadlockDetected( resourceType, resourceId );
+        }
+    }
+
     @Override
     public LockTracer combine( LockTracer tracer )
     {
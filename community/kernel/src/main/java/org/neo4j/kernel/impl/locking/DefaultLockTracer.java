@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.neo4j.storageengine.api.lock.ResourceType;
+import org.neo4j.time.Clocks;
+import org.neo4j.time.SystemNanoClock;
+
+/**
+ * Lock tracer that counts the lock waits, the time spent waiting, and the deadlocks, per {@link ResourceType}.
+ * <p>
+ * Lock managers only produce wait events when a lock cannot be granted right away, so the uncontended paths are not
+ * affected by this tracer.
+ */
+public class DefaultLockTracer implements LockTracer, LockWaitMonitor
+{
+    private final SystemNanoClock clock;
+    private final ConcurrentMap<ResourceType,WaitCounters> counters = new ConcurrentHashMap<>();
+
+    public DefaultLockTracer()
+    {
+        this( Clocks.nanoClock() );
+    }
+
+    public DefaultLockTracer( SystemNanoClock clock )
+    {
+        this.clock = clock;
+    }
+
+    @Override
+    public LockWaitEvent waitForLock( boolean exclusive, ResourceType resourceType, long... resourceIds )
+    {
+        WaitCounters waitCounters = counters( resourceType );
+        long startTimeNanos = clock.nanos();
+        return () -> waitCounters.waited( clock.nanos() - startTimeNanos );
+    }
+
+    @Override
+    public void deadlockDetected( ResourceType resourceType, long resourceId )
+    {
+        counters( resourceType ).deadlocks.increment();
+    }
+
+    @Override
+    public long numberOfLockWaits( ResourceType resourceType )
+    {
+        WaitCounters waitCounters = counters.get( resourceType );
+        return waitCounters == null ? 0 : waitCounters.waits.sum();
+    }
+
+    @Override
+    public long lockWaitAccumulatedTotalTimeMillis( ResourceType resourceType )
+    {
+        WaitCounters waitCounters = counters.get( resourceType );
+        return waitCounters == null ? 0 : TimeUnit.NANOSECONDS.toMillis( waitCounters.waitTimeNanos.sum() );
+    }
+
+    @Override
+    public long numberOfDeadlocks( ResourceType resourceType )
+    {
+        WaitCounters waitCounters = counters.get( resourceType );
+        return waitCounters == null ? 0 : waitCounters.deadlocks.sum();
+    }
+
+    private WaitCounters counters( ResourceType resourceType )
+    {
+        return counters.computeIfAbsent( resourceType, type -> new WaitCounters() );
+    }
+
+    private static class WaitCounters
+    {
+        private final LongAdder waits = new LongAdder();
+        private final LongAdder waitTimeNanos = new LongAdder();
+        private final LongAdder deadlocks = new LongAdder();
+
+        void waited( long nanos )
+        {
+            waits.increment();
+            waitTimeNanos.add( nanos );
+        }
+    }
+}
@@ -25,6 +25,17 @@ public interface LockTracer
 {
     LockWaitEvent waitForLock( boolean exclusive, ResourceType resourceType, long... resourceIds );
 
+    /**
+     * Called when a lock client gives up waiting for a lock, because it was picked to abort in order to break a
+     * deadlock.
+     *
+     * @param resourceType the type of the resource that the client was waiting for.
+     * @param resourceId the id of the resource that the client was waiting for.
+     */
+    default void deadlockDetected( ResourceType resourceType, long resourceId )
+    {
+    }
+
     default LockTracer combine( LockTracer tracer )
     {
         if ( tracer == NONE )
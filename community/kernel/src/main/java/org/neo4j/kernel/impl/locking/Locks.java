@@ -79,12 +79,28 @@ public interface Locks
          * Can be grabbed when there are no locks or only share locks on a resource. If the lock cannot be acquired,
          * behavior is specified by the {@link WaitStrategy} for the given {@link ResourceType}.
          *
+         * <p>
+         * Multiple ids are acquired as one batch, in the given order, which is cheaper than acquiring them one call at
+         * a time. Callers locking several resources of the same type should pass them sorted in ascending order, so
+         * that all transactions agree on the order in which they are locked.
+         *
          * @param tracer a tracer for listening on lock events.
          * @param resourceType type or resource(s) to lock.
-         * @param resourceIds id(s) of resources to lock. Multiple ids should be ordered consistently by all callers
+         * @param resourceIds id(s) of resources to lock. Multiple ids should be sorted in ascending order
          */
         void acquireShared( LockTracer tracer, ResourceType resourceType, long... resourceIds ) throws AcquireLockTimeoutException;
 
+        /**
+         * Can be grabbed when no other client holds locks on the relevant resources. If the lock cannot be acquired,
+         * behavior is specified by the {@link WaitStrategy} for the given {@link ResourceType}.
+         * <p>
+         * Multiple ids are acquired as one batch, in the given order, see
+         * {@link #acquireShared(LockTracer, ResourceType, long...)}.
+         *
+         * @param tracer a tracer for listening on lock events.
+         * @param resourceType type or resource(s) to lock.
+         * @param resourceIds id(s) of resources to lock. Multiple ids should be sorted in ascending order
+         */
         @Override
         void acquireExclusive( LockTracer tracer, ResourceType resourceType, long... resourceIds ) throws AcquireLockTimeoutException;
 
@@ -20,9 +20,11 @@
 package org.neo4j.kernel.impl.locking.community;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 import org.neo4j.collection.primitive.Primitive;
@@ -100,6 +102,11 @@ public class CommunityLockClient implements Locks.Client
         try
         {
             PrimitiveLongObjectMap<LockResource> localLocks = localShared( resourceType );
+            if ( isSortedBatch( resourceIds ) )
+            {
+                acquireBatch( tracer, resourceType, resourceIds, localLocks, false );
+                return;
+            }
             for ( long resourceId : resourceIds )
             {
                 LockResource resource = localLocks.get( resourceId );
@@ -134,6 +141,11 @@ public class CommunityLockClient implements Locks.Client
         try
         {
             PrimitiveLongObjectMap<LockResource> localLocks = localExclusive( resourceType );
+            if ( isSortedBatch( resourceIds ) )
+            {
+                acquireBatch( tracer, resourceType, resourceIds, localLocks, true );
+                return;
+            }
             for ( long resourceId : resourceIds )
             {
                 LockResource resource = localLocks.get( resourceId );
@@ -161,6 +173,58 @@ public class CommunityLockClient implements Locks.Client
         }
     }
 
+    private void acquireBatch( LockTracer tracer, ResourceType resourceType, long[] resourceIds,
+            PrimitiveLongObjectMap<LockResource> localLocks, boolean exclusive )
+    {
+        LockResource[] batch = new LockResource[resourceIds.length];
+        int batchSize = 0;
+        for ( long resourceId : resourceIds )
+        {
+            LockResource resource = localLocks.get( resourceId );
+            if ( resource != null )
+            {
+                resource.acquireReference();
+            }
+            else
+            {
+                batch[batchSize++] = new LockResource( resourceType, resourceId );
+            }
+        }
+        if ( batchSize == 0 )
+        {
+            return;
+        }
+
+        batch = batchSize == batch.length ? batch : Arrays.copyOf( batch, batchSize );
+        Consumer<LockResource> acquired = resource -> localLocks.put( resource.resourceId(), resource );
+        boolean allAcquired = exclusive ? manager.getWriteLocks( tracer, batch, lockTransaction, acquired )
+                                        : manager.getReadLocks( tracer, batch, lockTransaction, acquired );
+        if ( !allAcquired )
+        {
+            throw new LockClientStoppedException( this );
+        }
+    }
+
+    /**
+     * Only ids in strictly ascending order are handed to the lock manager as a batch, anything else, like
+     * repeated ids, is acquired one id at a time.
+     */
+    private static boolean isSortedBatch( long[] resourceIds )
+    {
+        if ( resourceIds.length < 2 )
+        {
+            return false;
+        }
+        for ( int i = 1; i < resourceIds.length; i++ )
+        {
+            if ( resourceIds[i - 1] >= resourceIds[i] )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public boolean tryExclusiveLock( ResourceType resourceType, long resourceId )
     {
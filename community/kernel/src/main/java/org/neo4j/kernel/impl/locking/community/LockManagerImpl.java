@@ -22,6 +22,7 @@ package org.neo4j.kernel.impl.locking.community;
 import java.time.Clock;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.helpers.collection.Visitor;
@@ -73,6 +74,31 @@ public class LockManagerImpl
         return unusedResourceGuard( resource, tx, getRWLockForAcquiring( resource, tx ).tryAcquireWriteLock( tx ) );
     }
 
+    /**
+     * Acquire read locks on a batch of resources, in the given order. The locks backing all resources in the batch
+     * are looked up, or created, while holding the lock map monitor once for the whole batch.
+     *
+     * @param acquired called with each resource as soon as the lock on it has been acquired.
+     * @return {@code true} if all locks were acquired, or {@code false} if the transaction was terminated while
+     * waiting for one of them.
+     */
+    public boolean getReadLocks( LockTracer tracer, LockResource[] resources, Object tx,
+            Consumer<LockResource> acquired ) throws DeadlockDetectedException, IllegalResourceException
+    {
+        return getLocks( tracer, resources, tx, acquired, false );
+    }
+
+    /**
+     * Acquire write locks on a batch of resources, in the given order.
+     *
+     * @see #getReadLocks(LockTracer, LockResource[], Object, Consumer)
+     */
+    public boolean getWriteLocks( LockTracer tracer, LockResource[] resources, Object tx,
+            Consumer<LockResource> acquired ) throws DeadlockDetectedException, IllegalResourceException
+    {
+        return getLocks( tracer, resources, tx, acquired, true );
+    }
+
     public void releaseReadLock( Object resource, Object tx )
             throws LockNotFoundException, IllegalResourceException
     {
@@ -148,6 +174,62 @@ public class LockManagerImpl
         }
     }
 
+    private RWLock[] getRWLocksForAcquiring( LockResource[] resources, Object tx )
+    {
+        for ( LockResource resource : resources )
+        {
+            assertValidArguments( resource, tx );
+        }
+        RWLock[] locks = new RWLock[resources.length];
+        synchronized ( resourceLockMap )
+        {
+            for ( int i = 0; i < resources.length; i++ )
+            {
+                RWLock lock = resourceLockMap.get( resources[i] );
+                if ( lock == null )
+                {
+                    lock = createLock( resources[i] );
+                    resourceLockMap.put( resources[i], lock );
+                }
+                lock.mark();
+                locks[i] = lock;
+            }
+        }
+        return locks;
+    }
+
+    private boolean getLocks( LockTracer tracer, LockResource[] resources, Object tx,
+            Consumer<LockResource> acquired, boolean write )
+    {
+        RWLock[] locks = getRWLocksForAcquiring( resources, tx );
+        int next = 0;
+        try
+        {
+            while ( next < locks.length )
+            {
+                LockResource resource = resources[next];
+                RWLock lock = locks[next++];
+                boolean lockObtained = write ? lock.acquireWriteLock( tracer, tx ) : lock.acquireReadLock( tracer, tx );
+                if ( !unusedResourceGuard( resource, tx, lockObtained ) )
+                {
+                    return false;
+                }
+                acquired.accept( resource );
+            }
+            return true;
+        }
+        finally
+        {
+            // The locks we never got around to acquiring are still marked from the lookup above, and need
+            // to be unmarked so that they can be removed from the map again when unused
+            for ( int i = next; i < locks.length; i++ )
+            {
+                locks[i].unmarkUnused();
+                unusedResourceGuard( resources[i], tx, false );
+            }
+        }
+    }
+
     // visible for testing
     protected RWLock createLock( LockResource resource )
     {
@@ -162,6 +162,12 @@ class RWLock
         marked = Math.incrementExact( marked );
     }
 
+    /** Undo a {@link #mark()} for a lock that is not going to be acquired after all. */
+    synchronized void unmarkUnused()
+    {
+        unmark();
+    }
+
     /** synchronized by all caller methods */
     private void unmark()
     {
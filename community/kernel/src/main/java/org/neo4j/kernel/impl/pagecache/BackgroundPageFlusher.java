@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import java.io.IOException;
+
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.logging.Log;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.unsafe.impl.internal.dragons.FeatureToggles;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Writes the dirty pages of the page cache to the store files in the background, in between check points, at the
+ * pace allowed by the {@link IOLimiter}.
+ * <p>
+ * The pages are only written, not forced, and nothing else is flushed: indexes are not forced, the counts store is
+ * not rotated, and no check point is written to the transaction log. Writing a dirty page early is as safe as when
+ * the page is written by eviction, since recovery replays the transaction log from the last check point anyway.
+ * The check points still happen on their own triggers, but since most of the pages they need to flush have already
+ * been written in the background, their flushes are short and mostly consist of the forces.
+ */
+public class BackgroundPageFlusher extends LifecycleAdapter
+{
+    public static final long FLUSH_INTERVAL_MILLIS =
+            FeatureToggles.getLong( BackgroundPageFlusher.class, "flush_interval_millis", 1000 );
+
+    private final PageCache pageCache;
+    private final IOLimiter ioLimiter;
+    private final JobScheduler scheduler;
+    private final long intervalMillis;
+    private final Log log;
+
+    private volatile boolean stopped;
+    private volatile JobScheduler.JobHandle handle;
+
+    public BackgroundPageFlusher( PageCache pageCache, IOLimiter ioLimiter, JobScheduler scheduler,
+            long intervalMillis, Log log )
+    {
+        this.pageCache = pageCache;
+        this.ioLimiter = ioLimiter;
+        this.scheduler = scheduler;
+        this.intervalMillis = intervalMillis;
+        this.log = log;
+    }
+
+    @Override
+    public void start() throws Throwable
+    {
+        stopped = false;
+        schedule();
+    }
+
+    @Override
+    public void stop() throws Throwable
+    {
+        stopped = true;
+        JobScheduler.JobHandle jobHandle = handle;
+        if ( jobHandle != null )
+        {
+            jobHandle.cancel( false );
+        }
+        // Let an ongoing flush finish quickly, it must be done before the files can be unmapped
+        ioLimiter.disableLimit();
+        try
+        {
+            synchronized ( this )
+            {
+                handle = null;
+            }
+        }
+        finally
+        {
+            ioLimiter.enableLimit();
+        }
+    }
+
+    private void schedule()
+    {
+        handle = scheduler.schedule( JobScheduler.Groups.backgroundPageFlush, this::flushAndReschedule,
+                intervalMillis, MILLISECONDS );
+    }
+
+    private synchronized void flushAndReschedule()
+    {
+        if ( stopped )
+        {
+            return;
+        }
+        try
+        {
+            pageCache.flush( ioLimiter );
+        }
+        catch ( IOException e )
+        {
+            // The next check point flushes these pages, and deals with the failure if it persists
+            log.warn( "Failed to write dirty pages in the background", e );
+        }
+        if ( !stopped )
+        {
+            schedule();
+        }
+    }
+}
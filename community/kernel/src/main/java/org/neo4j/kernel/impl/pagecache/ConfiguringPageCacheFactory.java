@@ -33,7 +33,10 @@ import org.neo4j.kernel.impl.util.OsBeanUtil;
 import org.neo4j.logging.Log;
 
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.mapped_memory_page_size;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_eviction_policy;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_huge_pages;
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_memory;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_reservations;
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_swapper;
 import static org.neo4j.kernel.configuration.Settings.BYTES;
 import static org.neo4j.unsafe.impl.internal.dragons.FeatureToggles.getInteger;
@@ -82,10 +85,13 @@ public class ConfiguringPageCacheFactory
     {
         int cachePageSize = calculatePageSize( config, swapperFactory );
         int maxPages = calculateMaxPages( config, cachePageSize );
-        return new MuninnPageCache(
+        MuninnPageCache pageCache = new MuninnPageCache(
                 swapperFactory,
                 maxPages,
-                cachePageSize, pageCacheTracer, pageCursorTracerSupplier );
+                cachePageSize, pageCacheTracer, pageCursorTracerSupplier, config.get( pagecache_eviction_policy ),
+                config.get( pagecache_huge_pages ) );
+        config.get( pagecache_reservations ).forEach( pageCache::reservePages );
+        return pageCache;
     }
 
     public int calculateMaxPages( Config config, int cachePageSize )
@@ -188,7 +194,10 @@ public class ConfiguringPageCacheFactory
         long pageCacheMb = ByteUnit.Byte.toMebiBytes(maxPages * cachePageSize);
         String msg = "Physical mem: " + totalPhysicalMemMb + " MiB," +
                      " Heap size: " + maxVmUsageMb + " MiB," +
-                     " Page cache size: " + pageCacheMb + " MiB.";
+                     " Page cache size: " + pageCacheMb + " MiB," +
+                     " Page cache eviction policy: " + config.get( pagecache_eviction_policy ) + "," +
+                     " Page cache huge pages: " + config.get( pagecache_huge_pages ) + "," +
+                     " Page cache reservations: " + config.get( pagecache_reservations ) + ".";
 
         log.info( msg );
     }
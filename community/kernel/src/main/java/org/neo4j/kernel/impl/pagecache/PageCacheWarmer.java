@@ -0,0 +1,438 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.neo4j.io.IOUtils;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.logging.Log;
+import org.neo4j.scheduler.JobScheduler;
+
+import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_TRANSIENT;
+
+/**
+ * The page cache warmer periodically records which pages of the store files are in memory, in a profile file next to
+ * each store file. When the database starts, the pages recorded in the profiles are loaded back into the page cache,
+ * in the background and while the database is accepting requests, such that the database gets back to its full speed
+ * sooner than if the page cache had to be warmed up by the workload itself.
+ * <p>
+ * A profile is a gzip compressed bitmap, with one bit per page of the store file. Profiling only begins once the
+ * warmup has completed, so that a partially loaded cache never overwrites a good profile.
+ */
+public class PageCacheWarmer extends LifecycleAdapter
+{
+    public static final String SUFFIX_CACHEPROF = ".cacheprof";
+    private static final String SUFFIX_CACHEPROF_TMP = ".cacheprof.tmp";
+    private static final int PROGRESS_REPORT_INTERVAL = 1024;
+
+    public interface Monitor
+    {
+        void warmupStarted( long pagesToLoad );
+
+        void pagesLoaded( long pagesLoaded );
+
+        void warmupCompleted( long elapsedMillis, long pagesLoaded );
+
+        void profileCompleted( long elapsedMillis, long pagesInMemory );
+    }
+
+    private final FileSystemAbstraction fs;
+    private final PageCache pageCache;
+    private final JobScheduler scheduler;
+    private final File storeDir;
+    private final long profileIntervalMillis;
+    private final Monitor monitor;
+    private final Log log;
+    private final int parallelism;
+
+    private volatile boolean stopped;
+    private volatile JobScheduler.JobHandle warmupHandle;
+    private volatile JobScheduler.JobHandle profileHandle;
+    // Guarded by 'this'
+    private boolean warmedUp;
+
+    public PageCacheWarmer( FileSystemAbstraction fs, PageCache pageCache, JobScheduler scheduler, File storeDir,
+            long profileIntervalMillis, Monitor monitor, Log log )
+    {
+        this.fs = fs;
+        this.pageCache = pageCache;
+        this.scheduler = scheduler;
+        this.storeDir = storeDir;
+        this.profileIntervalMillis = profileIntervalMillis;
+        this.monitor = monitor;
+        this.log = log;
+        this.parallelism = Runtime.getRuntime().availableProcessors();
+    }
+
+    @Override
+    public void start() throws Throwable
+    {
+        stopped = false;
+        warmupHandle = scheduler.schedule( JobScheduler.Groups.pageCacheWarmup, this::warmUpAndScheduleProfiling );
+    }
+
+    @Override
+    public void stop() throws Throwable
+    {
+        stopped = true;
+        cancel( warmupHandle );
+        cancel( profileHandle );
+        warmupHandle = null;
+        profileHandle = null;
+        synchronized ( this )
+        {
+            // Record a final profile on shutdown, so the next start gets the most recent picture of the cache.
+            if ( warmedUp )
+            {
+                profileSafely();
+            }
+            warmedUp = false;
+        }
+    }
+
+    private static void cancel( JobScheduler.JobHandle handle )
+    {
+        if ( handle != null )
+        {
+            handle.cancel( false );
+        }
+    }
+
+    private void warmUpAndScheduleProfiling()
+    {
+        synchronized ( this )
+        {
+            if ( stopped )
+            {
+                return;
+            }
+            try
+            {
+                warmUp();
+            }
+            catch ( Exception e )
+            {
+                log.warn( "Page cache warmup failed.", e );
+            }
+            warmedUp = true;
+            if ( !stopped )
+            {
+                profileHandle = scheduler.scheduleRecurring( JobScheduler.Groups.pageCacheWarmup,
+                        this::profileIfStarted, profileIntervalMillis, profileIntervalMillis, TimeUnit.MILLISECONDS );
+            }
+        }
+    }
+
+    private void profileIfStarted()
+    {
+        synchronized ( this )
+        {
+            if ( !stopped && warmedUp )
+            {
+                profileSafely();
+            }
+        }
+    }
+
+    /**
+     * Load the pages recorded in the profiles of the currently mapped store files into the page cache.
+     *
+     * @return the number of pages that were loaded.
+     */
+    long warmUp() throws IOException, InterruptedException, ExecutionException
+    {
+        long startMillis = System.currentTimeMillis();
+        List<PagedFile> files = listStoreFiles();
+        try
+        {
+            Queue<FileProfile> profiles = new ConcurrentLinkedQueue<>();
+            long pagesToLoad = 0;
+            for ( PagedFile file : files )
+            {
+                byte[] bitmap = readProfile( file.file() );
+                if ( bitmap != null )
+                {
+                    profiles.add( new FileProfile( file, bitmap ) );
+                    pagesToLoad += countPages( bitmap );
+                }
+            }
+            if ( profiles.isEmpty() )
+            {
+                return 0;
+            }
+            monitor.warmupStarted( pagesToLoad );
+
+            // The files are loaded in parallel, but the pages of each file are loaded in ascending order, so that the
+            // page cache can read them in with sequential, and often vectored, reads.
+            AtomicLong pagesLoaded = new AtomicLong();
+            int workers = Math.min( parallelism, profiles.size() );
+            List<JobScheduler.JobHandle> handles = new ArrayList<>( workers );
+            for ( int i = 0; i < workers; i++ )
+            {
+                handles.add( scheduler.schedule( JobScheduler.Groups.pageCacheWarmup,
+                        () -> loadProfiles( profiles, pagesLoaded ) ) );
+            }
+            for ( JobScheduler.JobHandle handle : handles )
+            {
+                handle.waitTermination();
+            }
+
+            long elapsedMillis = System.currentTimeMillis() - startMillis;
+            monitor.warmupCompleted( elapsedMillis, pagesLoaded.get() );
+            log.info( "Page cache warmup completed. %d pages loaded in %d ms.", pagesLoaded.get(), elapsedMillis );
+            return pagesLoaded.get();
+        }
+        finally
+        {
+            IOUtils.closeAll( files );
+        }
+    }
+
+    private void loadProfiles( Queue<FileProfile> profiles, AtomicLong pagesLoaded )
+    {
+        FileProfile profile;
+        while ( !stopped && (profile = profiles.poll()) != null )
+        {
+            try
+            {
+                pagesLoaded.addAndGet( loadPages( profile.pagedFile, profile.bitmap ) );
+            }
+            catch ( IOException | IllegalStateException e )
+            {
+                // The file might have been unmapped concurrently, which is fine; we just stop warming it up.
+                log.debug( "Could not warm up " + profile.pagedFile.file() + ".", e );
+            }
+        }
+    }
+
+    private long loadPages( PagedFile pagedFile, byte[] bitmap ) throws IOException
+    {
+        long pagesLoaded = 0;
+        long pagesReported = 0;
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_READ_AHEAD ) )
+        {
+            for ( long pageId = 0; pageId < bitmap.length * 8L && !stopped; pageId++ )
+            {
+                if ( (bitmap[(int) (pageId >>> 3)] & (1 << (pageId & 7))) != 0 )
+                {
+                    if ( !cursor.next( pageId ) )
+                    {
+                        break;
+                    }
+                    pagesLoaded++;
+                    if ( pagesLoaded - pagesReported == PROGRESS_REPORT_INTERVAL )
+                    {
+                        monitor.pagesLoaded( PROGRESS_REPORT_INTERVAL );
+                        pagesReported = pagesLoaded;
+                    }
+                }
+            }
+        }
+        finally
+        {
+            // Report the pages that were loaded since the last report, also if we failed part way through the file.
+            if ( pagesLoaded > pagesReported )
+            {
+                monitor.pagesLoaded( pagesLoaded - pagesReported );
+            }
+        }
+        return pagesLoaded;
+    }
+
+    private void profileSafely()
+    {
+        try
+        {
+            profile();
+        }
+        catch ( Exception e )
+        {
+            log.warn( "Page cache profiling failed.", e );
+        }
+    }
+
+    /**
+     * Record which pages of the currently mapped store files are in memory, in the profile file of each store file.
+     * The pages are inspected with {@link PagedFile#PF_TRANSIENT transient} cursors, so profiling influences neither
+     * eviction nor the hit ratios of the page cache.
+     *
+     * @return the number of pages that were in memory.
+     */
+    long profile() throws IOException
+    {
+        long startMillis = System.currentTimeMillis();
+        long pagesInMemory = 0;
+        List<PagedFile> files = listStoreFiles();
+        try
+        {
+            for ( PagedFile file : files )
+            {
+                try
+                {
+                    pagesInMemory += profile( file );
+                }
+                catch ( IllegalStateException e )
+                {
+                    // The file was unmapped concurrently, so there is nothing to profile.
+                    log.debug( "Could not profile " + file.file() + ".", e );
+                }
+            }
+        }
+        finally
+        {
+            IOUtils.closeAll( files );
+        }
+        monitor.profileCompleted( System.currentTimeMillis() - startMillis, pagesInMemory );
+        return pagesInMemory;
+    }
+
+    private long profile( PagedFile pagedFile ) throws IOException
+    {
+        File file = pagedFile.file();
+        File tmpProfileFile = new File( file.getParentFile(), file.getName() + SUFFIX_CACHEPROF_TMP );
+        long pagesInMemory = 0;
+        try ( OutputStream out = new GZIPOutputStream( fs.openAsOutputStream( tmpProfileFile, false ) );
+              PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_NO_FAULT | PF_TRANSIENT ) )
+        {
+            int bits = 0;
+            int bitCount = 0;
+            while ( cursor.next() )
+            {
+                if ( cursor.getCurrentPageId() != PageCursor.UNBOUND_PAGE_ID )
+                {
+                    bits |= 1 << bitCount;
+                    pagesInMemory++;
+                }
+                bitCount++;
+                if ( bitCount == 8 )
+                {
+                    out.write( bits );
+                    bits = 0;
+                    bitCount = 0;
+                }
+            }
+            if ( bitCount > 0 )
+            {
+                out.write( bits );
+            }
+        }
+        fs.renameFile( tmpProfileFile, profileFile( file ), StandardCopyOption.REPLACE_EXISTING );
+        return pagesInMemory;
+    }
+
+    private byte[] readProfile( File file )
+    {
+        File profileFile = profileFile( file );
+        if ( !fs.fileExists( profileFile ) )
+        {
+            return null;
+        }
+        try ( InputStream in = new GZIPInputStream( fs.openAsInputStream( profileFile ) ) )
+        {
+            ByteArrayOutputStream bitmap = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ( (read = in.read( buffer )) != -1 )
+            {
+                bitmap.write( buffer, 0, read );
+            }
+            return bitmap.toByteArray();
+        }
+        catch ( IOException e )
+        {
+            log.warn( "Ignoring unreadable page cache profile " + profileFile + ".", e );
+            return null;
+        }
+    }
+
+    private static long countPages( byte[] bitmap )
+    {
+        long pages = 0;
+        for ( byte bits : bitmap )
+        {
+            pages += Integer.bitCount( bits & 0xFF );
+        }
+        return pages;
+    }
+
+    static File profileFile( File file )
+    {
+        return new File( file.getParentFile(), file.getName() + SUFFIX_CACHEPROF );
+    }
+
+    /**
+     * List the mapped files that belong to this database. The returned files must be closed by the caller.
+     */
+    private List<PagedFile> listStoreFiles() throws IOException
+    {
+        // The page cache canonicalises the files it maps, so we have to do the same to the store directory.
+        Path storePath = storeDir.getCanonicalFile().toPath();
+        List<PagedFile> storeFiles = new ArrayList<>();
+        List<PagedFile> otherFiles = new ArrayList<>();
+        for ( PagedFile pagedFile : pageCache.listExistingMappings() )
+        {
+            if ( pagedFile.file().toPath().startsWith( storePath ) )
+            {
+                storeFiles.add( pagedFile );
+            }
+            else
+            {
+                otherFiles.add( pagedFile );
+            }
+        }
+        IOUtils.closeAll( otherFiles );
+        return storeFiles;
+    }
+
+    private static class FileProfile
+    {
+        private final PagedFile pagedFile;
+        private final byte[] bitmap;
+
+        FileProfile( PagedFile pagedFile, byte[] bitmap )
+        {
+            this.pagedFile = pagedFile;
+            this.bitmap = bitmap;
+        }
+    }
+}
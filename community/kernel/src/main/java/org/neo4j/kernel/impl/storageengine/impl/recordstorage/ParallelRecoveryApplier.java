@@ -0,0 +1,384 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.storageengine.impl.recordstorage;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongIntMap;
+import org.neo4j.helpers.Exceptions;
+import org.neo4j.helpers.NamedThreadFactory;
+import org.neo4j.kernel.impl.api.BatchTransactionApplier;
+import org.neo4j.kernel.impl.api.TransactionApplier;
+import org.neo4j.kernel.impl.core.CacheAccessBackDoor;
+import org.neo4j.kernel.impl.locking.LockGroup;
+import org.neo4j.kernel.impl.locking.LockService;
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.impl.store.PropertyType;
+import org.neo4j.kernel.impl.store.record.AbstractBaseRecord;
+import org.neo4j.kernel.impl.store.record.DynamicRecord;
+import org.neo4j.kernel.impl.store.record.PropertyBlock;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.kernel.impl.transaction.command.Command;
+import org.neo4j.kernel.impl.transaction.command.NeoStoreTransactionApplier;
+import org.neo4j.storageengine.api.CommandsToApply;
+
+/**
+ * Applies batches of recovered transactions with multiple threads.
+ * <p>
+ * The commands in the transaction log are physical: they carry the full after-state of the records they change, so
+ * replaying them is idempotent, and the end result only depends on the order in which each individual record is
+ * written. The record changes of a batch are therefore partitioned by the store page of the record they target, and
+ * the partitions are written to the stores concurrently, each partition in log order. All the records that a single
+ * command writes, like the dynamic records of a property, or the secondary unit of a record, are written by the same
+ * partition. If a record id has been reused within the batch, such that two partitions would write the same record,
+ * the partitions collected so far are applied before the conflicting command is partitioned.
+ * Commands that are not about node, relationship, relationship group or property records are rare, and are all
+ * placed in the first partition, which keeps their relative order.
+ * <p>
+ * Once the records of the batch have been written, the counts store, schema and label scan store, and legacy index
+ * updates of the batch are reconciled by applying the transactions to the remaining appliers in order, on the
+ * calling thread. None of those appliers read the graph stores in recovery mode.
+ * <p>
+ * The threads are started by the first batch and reused by all the batches of the recovery, until the applier is
+ * {@link #close() closed}.
+ */
+public class ParallelRecoveryApplier implements AutoCloseable
+{
+    public interface Monitor
+    {
+        /**
+         * A batch of recovered transactions has been applied.
+         *
+         * @param transactions the number of transactions in the batch.
+         * @param commands the number of commands written to the stores in parallel.
+         * @param rounds the number of times the partitions were applied, which is more than one if record ids were
+         * reused within the batch.
+         * @param elapsedNanos the time it took to apply the batch.
+         */
+        default void batchRecovered( int transactions, long commands, int rounds, long elapsedNanos )
+        { // no-op by default
+        }
+    }
+
+    private static final int NODE = 0;
+    private static final int LABELS = 1;
+    private static final int RELATIONSHIP = 2;
+    private static final int RELATIONSHIP_GROUP = 3;
+    private static final int PROPERTY = 4;
+    private static final int STRINGS = 5;
+    private static final int ARRAYS = 6;
+    private static final int STORE_SHIFT = 56;
+
+    private final NeoStores neoStores;
+    private final CacheAccessBackDoor cacheAccess;
+    private final int parallelism;
+    private final Monitor monitor;
+    private final int[] recordsPerPage;
+    private ExecutorService executor;
+
+    ParallelRecoveryApplier( NeoStores neoStores, CacheAccessBackDoor cacheAccess, int parallelism, Monitor monitor )
+    {
+        this.neoStores = neoStores;
+        this.cacheAccess = cacheAccess;
+        this.parallelism = parallelism;
+        this.monitor = monitor;
+        this.recordsPerPage = new int[ARRAYS + 1];
+        recordsPerPage[NODE] = neoStores.getNodeStore().getRecordsPerPage();
+        recordsPerPage[LABELS] = neoStores.getNodeStore().getDynamicLabelStore().getRecordsPerPage();
+        recordsPerPage[RELATIONSHIP] = neoStores.getRelationshipStore().getRecordsPerPage();
+        recordsPerPage[RELATIONSHIP_GROUP] = neoStores.getRelationshipGroupStore().getRecordsPerPage();
+        recordsPerPage[PROPERTY] = neoStores.getPropertyStore().getRecordsPerPage();
+        recordsPerPage[STRINGS] = neoStores.getPropertyStore().getStringStore().getRecordsPerPage();
+        recordsPerPage[ARRAYS] = neoStores.getPropertyStore().getArrayStore().getRecordsPerPage();
+    }
+
+    /**
+     * Apply the given batch of recovered transactions.
+     *
+     * @param batch the transactions to apply, in log order.
+     * @param otherAppliers the appliers of everything but the graph stores, which are applied after the graph stores.
+     */
+    void apply( CommandsToApply batch, BatchTransactionApplier otherAppliers ) throws Exception
+    {
+        long startNanos = System.nanoTime();
+        if ( executor == null )
+        {
+            executor = Executors.newFixedThreadPool( parallelism, new NamedThreadFactory( "parallel-recovery", true ) );
+        }
+        Partitions partitions = new Partitions( executor );
+        int transactions = 0;
+        for ( CommandsToApply tx = batch; tx != null; tx = tx.next() )
+        {
+            long txId = tx.transactionId();
+            tx.accept( command ->
+            {
+                partitions.add( txId, (Command) command );
+                return false;
+            } );
+            transactions++;
+        }
+        partitions.applyAll();
+
+        try ( BatchTransactionApplier applier = otherAppliers )
+        {
+            for ( CommandsToApply tx = batch; tx != null; tx = tx.next() )
+            {
+                try ( LockGroup locks = new LockGroup();
+                      TransactionApplier txApplier = applier.startTx( tx, locks ) )
+                {
+                    tx.accept( txApplier );
+                }
+            }
+        }
+        monitor.batchRecovered( transactions, partitions.commands, partitions.rounds,
+                System.nanoTime() - startNanos );
+    }
+
+    /**
+     * Stops the threads applying the batches, once recovery is done. The applier can still be used afterwards, in
+     * which case it starts new threads.
+     */
+    @Override
+    public void close()
+    {
+        if ( executor != null )
+        {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    private class Partitions
+    {
+        private final ExecutorService executor;
+        private final List<List<RecoveredCommand>> partitions = new ArrayList<>( parallelism );
+        // The partition that writes each record, keyed by store and record id
+        private final PrimitiveLongIntMap writers = Primitive.longIntMap();
+        private long commands;
+        private int rounds;
+
+        Partitions( ExecutorService executor )
+        {
+            this.executor = executor;
+            for ( int i = 0; i < parallelism; i++ )
+            {
+                partitions.add( new ArrayList<>() );
+            }
+        }
+
+        void add( long txId, Command command ) throws IOException
+        {
+            int partition = partitionOf( command );
+            if ( partition != -1 && !claimRecords( command, partition ) )
+            {
+                // Some record of this command is written by another partition, get those writes done first.
+                applyAll();
+                claimRecords( command, partition );
+            }
+            partitions.get( Math.max( partition, 0 ) ).add( new RecoveredCommand( txId, command ) );
+            commands++;
+        }
+
+        /**
+         * @return the partition that should apply the given command, based on the page of the record it writes, or
+         * {@code -1} if the command should be applied by the first partition without any record tracking.
+         */
+        private int partitionOf( Command command )
+        {
+            if ( command instanceof Command.NodeCommand )
+            {
+                return partitionOf( NODE, command.getKey() );
+            }
+            if ( command instanceof Command.RelationshipCommand )
+            {
+                return partitionOf( RELATIONSHIP, command.getKey() );
+            }
+            if ( command instanceof Command.RelationshipGroupCommand )
+            {
+                return partitionOf( RELATIONSHIP_GROUP, command.getKey() );
+            }
+            if ( command instanceof Command.PropertyCommand )
+            {
+                return partitionOf( PROPERTY, command.getKey() );
+            }
+            return -1;
+        }
+
+        private int partitionOf( int store, long id )
+        {
+            long page = id / recordsPerPage[store];
+            return (int) Math.floorMod( page + store, (long) parallelism );
+        }
+
+        /**
+         * Claim all the records written by the given command for the given partition.
+         *
+         * @return {@code false} if any of the records have already been claimed by another partition.
+         */
+        private boolean claimRecords( Command command, int partition )
+        {
+            if ( command instanceof Command.NodeCommand )
+            {
+                Command.NodeCommand nodeCommand = (Command.NodeCommand) command;
+                return claimRecord( NODE, nodeCommand.getAfter(), partition ) &
+                       claimDynamicRecords( LABELS, nodeCommand.getAfter().getDynamicLabelRecords(), partition );
+            }
+            if ( command instanceof Command.RelationshipCommand )
+            {
+                return claimRecord( RELATIONSHIP, ((Command.RelationshipCommand) command).getAfter(), partition );
+            }
+            if ( command instanceof Command.RelationshipGroupCommand )
+            {
+                return claimRecord( RELATIONSHIP_GROUP, ((Command.RelationshipGroupCommand) command).getAfter(),
+                        partition );
+            }
+            PropertyRecord property = ((Command.PropertyCommand) command).getAfter();
+            boolean claimed = claimRecord( PROPERTY, property, partition );
+            for ( PropertyBlock block : property )
+            {
+                if ( !block.isLight() )
+                {
+                    claimed &= claimPropertyValueRecords( block.getValueRecords(), partition );
+                }
+            }
+            claimed &= claimPropertyValueRecords( property.getDeletedRecords(), partition );
+            return claimed;
+        }
+
+        private boolean claimPropertyValueRecords( List<DynamicRecord> records, int partition )
+        {
+            boolean claimed = true;
+            for ( DynamicRecord record : records )
+            {
+                claimed &= claimRecord( record.getType() == PropertyType.ARRAY ? ARRAYS : STRINGS, record, partition );
+            }
+            return claimed;
+        }
+
+        private boolean claimDynamicRecords( int store, Iterable<DynamicRecord> records, int partition )
+        {
+            boolean claimed = true;
+            for ( DynamicRecord record : records )
+            {
+                claimed &= claimRecord( store, record, partition );
+            }
+            return claimed;
+        }
+
+        private boolean claimRecord( int store, AbstractBaseRecord record, int partition )
+        {
+            boolean claimed = claimRecord( store, record.getId(), partition );
+            if ( record.hasSecondaryUnitId() )
+            {
+                claimed &= claimRecord( store, record.getSecondaryUnitId(), partition );
+            }
+            return claimed;
+        }
+
+        private boolean claimRecord( int store, long id, int partition )
+        {
+            long key = ((long) store << STORE_SHIFT) | id;
+            if ( writers.containsKey( key ) )
+            {
+                return writers.get( key ) == partition;
+            }
+            writers.put( key, partition );
+            return true;
+        }
+
+        void applyAll() throws IOException
+        {
+            List<Future<?>> futures = new ArrayList<>( parallelism );
+            for ( List<RecoveredCommand> partition : partitions )
+            {
+                if ( !partition.isEmpty() )
+                {
+                    futures.add( executor.submit( () ->
+                    {
+                        applyPartition( partition );
+                        return null;
+                    } ) );
+                }
+            }
+            try
+            {
+                for ( Future<?> future : futures )
+                {
+                    future.get();
+                }
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException( "Interrupted while applying recovered transactions" );
+            }
+            catch ( ExecutionException e )
+            {
+                throw Exceptions.launderedException( IOException.class, e.getCause() );
+            }
+            finally
+            {
+                for ( List<RecoveredCommand> partition : partitions )
+                {
+                    partition.clear();
+                }
+                writers.clear();
+                rounds++;
+            }
+        }
+
+        private void applyPartition( List<RecoveredCommand> partition ) throws IOException
+        {
+            // Nothing reads the stores while recovering, so there is no need for the record locks.
+            NeoStoreTransactionApplier applier = null;
+            long applierTxId = -1;
+            for ( RecoveredCommand recovered : partition )
+            {
+                if ( applier == null || applierTxId != recovered.txId )
+                {
+                    applierTxId = recovered.txId;
+                    applier = new NeoStoreTransactionApplier( neoStores, cacheAccess, LockService.NO_LOCK_SERVICE,
+                            applierTxId, new LockGroup() );
+                }
+                recovered.command.handle( applier );
+            }
+        }
+    }
+
+    private static class RecoveredCommand
+    {
+        private final long txId;
+        private final Command command;
+
+        RecoveredCommand( long txId, Command command )
+        {
+            this.txId = txId;
+            this.command = command;
+        }
+    }
+}
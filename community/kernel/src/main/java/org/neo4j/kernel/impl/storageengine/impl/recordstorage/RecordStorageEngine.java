@@ -142,6 +142,7 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
     private final SchemaCache schemaCache;
     private final IntegrityValidator integrityValidator;
     private final CacheAccessBackDoor cacheAccess;
+    private final ParallelRecoveryApplier parallelRecoveryApplier;
     private final LabelScanStore labelScanStore;
     private final SchemaIndexProviderMap schemaIndexProviderMap;
     private final LegacyIndexApplierLookup legacyIndexApplierLookup;
@@ -228,6 +229,11 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
             integrityValidator = new IntegrityValidator( neoStores, indexingService );
             cacheAccess = new BridgingCacheAccess( schemaCache, schemaState,
                     propertyKeyTokenHolder, relationshipTypeTokens, labelTokens );
+            int recoveryParallelism = config.get( GraphDatabaseSettings.recovery_parallelism );
+            parallelRecoveryApplier = recoveryParallelism > 1
+                    ? new ParallelRecoveryApplier( neoStores, cacheAccess, recoveryParallelism,
+                            monitors.newMonitor( ParallelRecoveryApplier.Monitor.class ) )
+                    : null;
 
             storeStatementSupplier = storeStatementSupplier( neoStores );
             storeLayer = new StorageLayer(
@@ -321,6 +327,12 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
     @Override
     public void apply( CommandsToApply batch, TransactionApplicationMode mode ) throws Exception
     {
+        if ( mode == TransactionApplicationMode.RECOVERY && parallelRecoveryApplier != null )
+        {
+            applyInParallel( batch, mode );
+            return;
+        }
+
         // Have these command appliers as separate try-with-resource to have better control over
         // point between closing this and the locks above
         try ( BatchTransactionApplier batchApplier = applier( mode ) )
@@ -346,6 +358,21 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
         }
     }
 
+    private void applyInParallel( CommandsToApply batch, TransactionApplicationMode mode ) throws Exception
+    {
+        try
+        {
+            parallelRecoveryApplier.apply( batch, applier( mode, false ) );
+        }
+        catch ( Throwable cause )
+        {
+            TransactionApplyKernelException kernelException =
+                    new TransactionApplyKernelException( cause, "Failed to apply transactions: %s", batch );
+            databaseHealth.panic( kernelException );
+            throw kernelException;
+        }
+    }
+
     /**
      * Creates a {@link BatchTransactionApplierFacade} that is to be used for all transactions
      * in a batch. Each transaction is handled by a {@link TransactionApplierFacade} which wraps the
@@ -354,10 +381,22 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
      * After all transactions have been applied the appliers are closed.
      */
     protected BatchTransactionApplierFacade applier( TransactionApplicationMode mode )
+    {
+        return applier( mode, true );
+    }
+
+    /**
+     * @param applyToGraphStores whether or not to write the records of the graph stores, which the
+     * {@link ParallelRecoveryApplier} does on its own.
+     */
+    private BatchTransactionApplierFacade applier( TransactionApplicationMode mode, boolean applyToGraphStores )
     {
         ArrayList<BatchTransactionApplier> appliers = new ArrayList<>();
         // Graph store application. The order of the decorated store appliers is irrelevant
-        appliers.add( new NeoStoreBatchTransactionApplier( neoStores, cacheAccess, lockService ) );
+        if ( applyToGraphStores )
+        {
+            appliers.add( new NeoStoreBatchTransactionApplier( neoStores, cacheAccess, lockService ) );
+        }
         if ( mode.needsHighIdTracking() )
         {
             appliers.add( new HighIdBatchTransactionApplier( neoStores ) );
@@ -408,6 +447,8 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
     @Override
     public void start() throws Throwable
     {
+        // Recovery happens when the data source is initialized, so it is done by now
+        closeParallelRecoveryApplier();
         neoStores.makeStoreOk();
 
         propertyKeyTokenHolder.setInitialTokens(
@@ -448,11 +489,20 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
     @Override
     public void shutdown() throws Throwable
     {
+        closeParallelRecoveryApplier();
         labelScanStore.shutdown();
         indexingService.shutdown();
         neoStores.close();
     }
 
+    private void closeParallelRecoveryApplier()
+    {
+        if ( parallelRecoveryApplier != null )
+        {
+            parallelRecoveryApplier.close();
+        }
+    }
+
     @Override
     public void flushAndForce( IOLimiter limiter )
     {
@@ -381,11 +381,28 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
     }
 
     public boolean isInUse( long id )
+    {
+        return isInUse( id, PF_SHARED_READ_LOCK );
+    }
+
+    /**
+     * Like {@link #isInUse(long)}, but for scans that check the records in order of increasing id, for which the
+     * pages of the store are read ahead.
+     *
+     * @param id the id of the record to check.
+     * @return whether or not the record is in use.
+     */
+    public boolean isInUseScanning( long id )
+    {
+        return isInUse( id, PF_SHARED_READ_LOCK | PF_READ_AHEAD );
+    }
+
+    private boolean isInUse( long id, int pf_flags )
     {
         long pageId = pageIdForRecord( id );
         int offset = offsetForId( id );
 
-        try ( PageCursor cursor = storeFile.io( pageId, PF_SHARED_READ_LOCK ) )
+        try ( PageCursor cursor = storeFile.io( pageId, pf_flags ) )
         {
             boolean recordIsInUse = false;
             if ( cursor.next() )
@@ -1108,7 +1125,7 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
     @Override
     public <EXCEPTION extends Exception> void scanAllRecords( Visitor<RECORD,EXCEPTION> visitor ) throws EXCEPTION
     {
-        try ( RecordCursor<RECORD> cursor = newRecordCursor( newRecord() ) )
+        try ( RecordCursor<RECORD> cursor = newScanRecordCursor( newRecord() ) )
         {
             long highId = getHighId();
             cursor.acquire( getNumberOfReservedLowIds(), CHECK );
@@ -1138,6 +1155,12 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
         return new StoreRecordCursor<>( record, this );
     }
 
+    @Override
+    public RecordCursor<RECORD> newScanRecordCursor( final RECORD record )
+    {
+        return new StoreRecordCursor<>( record, this, PF_SHARED_READ_LOCK | PF_READ_AHEAD );
+    }
+
     private void verifyAfterNotRead( RECORD record, RecordLoad mode )
     {
         record.clear();
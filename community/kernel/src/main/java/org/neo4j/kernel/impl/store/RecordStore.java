@@ -143,6 +143,16 @@ public interface RecordStore<RECORD extends AbstractBaseRecord> extends IdSequen
      */
     RecordCursor<RECORD> newRecordCursor( RECORD record );
 
+    /**
+     * Instantiates a new record cursor for going through the records in this store in order of increasing id,
+     * like {@link #newRecordCursor(AbstractBaseRecord)} does. The pages of the store are read ahead of the cursor,
+     * so it should only be used for sequential scans of the store.
+     *
+     * @param record instance to use when reading record data.
+     * @return a new {@link RecordCursor} instance for scanning the records in this store.
+     */
+    RecordCursor<RECORD> newScanRecordCursor( RECORD record );
+
     /**
      * Returns another record id which the given {@code record} references and which a {@link RecordCursor}
      * would follow and read next.
@@ -275,6 +285,12 @@ public interface RecordStore<RECORD extends AbstractBaseRecord> extends IdSequen
             return actual.newRecordCursor( record );
         }
 
+        @Override
+        public RecordCursor<R> newScanRecordCursor( R record )
+        {
+            return actual.newScanRecordCursor( record );
+        }
+
         @Override
         public long getNextRecordReference( R record )
         {
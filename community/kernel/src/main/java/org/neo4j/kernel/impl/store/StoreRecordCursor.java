@@ -32,14 +32,21 @@ class StoreRecordCursor<RECORD extends AbstractBaseRecord> implements RecordCurs
 {
     private final RECORD record;
     private CommonAbstractStore<RECORD,?> store;
+    private final int pf_flags;
     private long currentId;
     private RecordLoad mode;
     private PageCursor pageCursor;
 
     StoreRecordCursor( RECORD record, CommonAbstractStore<RECORD,?> store )
+    {
+        this( record, store, PF_SHARED_READ_LOCK );
+    }
+
+    StoreRecordCursor( RECORD record, CommonAbstractStore<RECORD,?> store, int pf_flags )
     {
         this.record = record;
         this.store = store;
+        this.pf_flags = pf_flags;
     }
 
     @Override
@@ -117,7 +124,7 @@ class StoreRecordCursor<RECORD extends AbstractBaseRecord> implements RecordCurs
         this.mode = mode;
         try
         {
-            this.pageCursor = store.storeFile.io( store.pageIdForRecord( id ), PF_SHARED_READ_LOCK );
+            this.pageCursor = store.storeFile.io( store.pageIdForRecord( id ), pf_flags );
         }
         catch ( IOException e )
         {
@@ -30,6 +30,7 @@ import java.util.concurrent.locks.ReentrantLock;
 
 import org.neo4j.kernel.impl.api.TransactionToApply;
 import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.entry.CommandCompressor;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryWriter;
 import org.neo4j.kernel.impl.transaction.log.rotation.LogRotation;
 import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
@@ -51,6 +52,39 @@ import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart.checksum
  */
 public class BatchingTransactionAppender extends LifecycleAdapter implements TransactionAppender
 {
+    public interface Monitor
+    {
+        /**
+         * The transaction log was forced, which made the given number of appended batches of transactions durable.
+         * Each committing thread appends one batch, which is a single transaction unless replicated transactions are
+         * being applied.
+         *
+         * @param batches the number of batches that were made durable by this force.
+         * @param elapsedNanos the time it took to force the log.
+         */
+        void logForced( int batches, long elapsedNanos );
+
+        /**
+         * A batch of transactions was appended to the log and made durable.
+         *
+         * @param elapsedNanos the time from when the batch started to be appended, until it was durable.
+         */
+        void batchCommitted( long elapsedNanos );
+    }
+
+    private static final Monitor NO_MONITOR = new Monitor()
+    {
+        @Override
+        public void logForced( int batches, long elapsedNanos )
+        {
+        }
+
+        @Override
+        public void batchCommitted( long elapsedNanos )
+        {
+        }
+    };
+
     // For the graph store and schema indexes order-of-updates are managed by the high level entity locks
     // such that changes are applied to the affected records in the same order that they are written to the
     // log. For the legacy indexes there are no such locks, and hence no such ordering. This queue below
@@ -65,6 +99,10 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
     private final LogPositionMarker positionMarker = new LogPositionMarker();
     private final DatabaseHealth databaseHealth;
     private final Lock forceLock = new ReentrantLock();
+    private final GroupCommitWindow groupCommitWindow;
+    private final Monitor monitor;
+    private final CommandCompressor commandCompressor;
+    private final TransactionLogPositionIndex positionIndex;
 
     private FlushablePositionAwareChannel writer;
     private TransactionLogWriter transactionLogWriter;
@@ -73,6 +111,26 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
     public BatchingTransactionAppender( LogFile logFile, LogRotation logRotation,
             TransactionMetadataCache transactionMetadataCache, TransactionIdStore transactionIdStore,
             IdOrderingQueue legacyIndexTransactionOrdering, DatabaseHealth databaseHealth )
+    {
+        this( logFile, logRotation, transactionMetadataCache, transactionIdStore, legacyIndexTransactionOrdering,
+                databaseHealth, 0, NO_MONITOR, null, null );
+    }
+
+    /**
+     * @param groupCommitMaxWindowNanos the maximum time that the thread which forces the log will wait for more
+     * transactions to be appended before it forces the log, or {@code 0} to force the log as soon as possible. The
+     * actual wait adapts to the force latency and transaction arrival rate, see {@link GroupCommitWindow}.
+     * @param monitor the monitor that is notified of log forces and commit latencies.
+     * @param commandCompressor compresses the commands of the appended transactions, or {@code null} to append
+     * them uncompressed.
+     * @param positionIndex indexes the log positions of the appended transactions, or {@code null} to not
+     * index them.
+     */
+    public BatchingTransactionAppender( LogFile logFile, LogRotation logRotation,
+            TransactionMetadataCache transactionMetadataCache, TransactionIdStore transactionIdStore,
+            IdOrderingQueue legacyIndexTransactionOrdering, DatabaseHealth databaseHealth,
+            long groupCommitMaxWindowNanos, Monitor monitor, CommandCompressor commandCompressor,
+            TransactionLogPositionIndex positionIndex )
     {
         this.logFile = logFile;
         this.logRotation = logRotation;
@@ -80,6 +138,11 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         this.legacyIndexTransactionOrdering = legacyIndexTransactionOrdering;
         this.databaseHealth = databaseHealth;
         this.transactionMetadataCache = transactionMetadataCache;
+        this.groupCommitWindow = groupCommitMaxWindowNanos > 0
+                                 ? new GroupCommitWindow( groupCommitMaxWindowNanos ) : GroupCommitWindow.NONE;
+        this.monitor = monitor;
+        this.commandCompressor = commandCompressor;
+        this.positionIndex = positionIndex;
     }
 
     @Override
@@ -87,12 +150,13 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
     {
         this.writer = logFile.getWriter();
         this.indexCommandDetector = new IndexCommandDetector();
-        this.transactionLogWriter = new TransactionLogWriter( new LogEntryWriter( writer ) );
+        this.transactionLogWriter = new TransactionLogWriter( new LogEntryWriter( writer, commandCompressor ) );
     }
 
     @Override
     public long append( TransactionToApply batch, LogAppendEvent logAppendEvent ) throws IOException
     {
+        long startNanos = System.nanoTime();
         // Assigned base tx id just to make compiler happy
         long lastTransactionId = TransactionIdStore.BASE_TX_ID;
         // Synchronized with logFile to get absolute control over concurrent rotations happening
@@ -127,6 +191,7 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         // as committed since they haven't been forced to disk yet. So here we force, or potentially
         // piggy-back on another force, but anyway after this call below we can be sure that all our transactions
         // in this batch exist durably on disk.
+        groupCommitWindow.transactionArrived();
         if ( forceAfterAppend( logAppendEvent ) )
         {
             // We got lucky and were the one forcing the log. It's enough if ones of all doing concurrent committerss
@@ -134,6 +199,7 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
             boolean logRotated = logRotation.rotateLogIfNeeded( logAppendEvent );
             logAppendEvent.setLogRotated( logRotated );
         }
+        monitor.batchCommitted( System.nanoTime() - startNanos );
 
         // Mark all transactions as committed
         publishAsCommitted( batch );
@@ -215,6 +281,10 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
             transactionMetadataCache
                     .cacheTransactionMetadata( transactionId, logPositionBeforeCommit, transaction.getMasterId(),
                             transaction.getAuthorId(), transactionChecksum, transaction.getTimeCommitted() );
+            if ( positionIndex != null )
+            {
+                positionIndex.transactionAppended( transactionId, logPositionBeforeCommit );
+            }
 
             transaction.accept( indexCommandDetector );
             boolean hasLegacyIndexChanges = indexCommandDetector.hasWrittenAnyLegacyIndexCommand();
@@ -291,10 +361,17 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
 
     private void forceLog( LogForceEvents logForceEvents ) throws IOException
     {
+        // With group commit, we give other committing threads a chance to append their transactions before we force,
+        // so that this force makes more transactions durable. The window is short, and we hold the force lock while
+        // we wait, so the threads that arrive in the meantime will park and have their links picked up below.
+        groupCommitWindow.awaitWindow();
         ThreadLink links = threadLinkHead.getAndSet( ThreadLink.END );
+        long startNanos = System.nanoTime();
+        boolean forced = false;
         try ( LogForceEvent logForceEvent = logForceEvents.beginLogForce() )
         {
             force();
+            forced = true;
         }
         catch ( final Throwable panic )
         {
@@ -303,14 +380,22 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         }
         finally
         {
-            unparkAll( links );
+            int batches = unparkAll( links );
+            if ( forced )
+            {
+                long elapsedNanos = System.nanoTime() - startNanos;
+                groupCommitWindow.logForced( elapsedNanos );
+                monitor.logForced( batches, elapsedNanos );
+            }
         }
     }
 
-    private void unparkAll( ThreadLink links )
+    private int unparkAll( ThreadLink links )
     {
+        int count = 0;
         do
         {
+            count++;
             links.done = true;
             links.unpark();
             ThreadLink tmp;
@@ -323,6 +408,7 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
             links = tmp;
         }
         while ( links != ThreadLink.END );
+        return count;
     }
 
     private void waitForLogForce()
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Decides how long the thread that is about to force the transaction log should wait for more transactions to be
+ * appended, so that they can be made durable by the same force.
+ * <p>
+ * The window adapts to the observed latency of forcing the log, and to the rate at which transactions arrive. It is
+ * never longer than half of the average force latency, nor longer than the configured maximum, and it is zero if no
+ * transaction is expected to arrive within it. This bounds the added commit latency, while allowing the batches to
+ * grow when transactions arrive faster than the log can be forced.
+ * <p>
+ * The averages are exponentially weighted moving averages, which are updated without synchronization. Lost updates
+ * only make the averages slightly less accurate, which is fine for this purpose.
+ */
+class GroupCommitWindow
+{
+    static final GroupCommitWindow NONE = new GroupCommitWindow( 0 );
+
+    // The weight of each new sample is 1/2^AVERAGE_WEIGHT_SHIFT.
+    private static final int AVERAGE_WEIGHT_SHIFT = 3;
+
+    private final long maxWindowNanos;
+    private final AtomicLong lastArrivalNanos = new AtomicLong();
+    private volatile long averageArrivalIntervalNanos = Long.MAX_VALUE;
+    private volatile long averageForceNanos;
+
+    GroupCommitWindow( long maxWindowNanos )
+    {
+        this.maxWindowNanos = maxWindowNanos;
+    }
+
+    /**
+     * Called by committing threads when they have appended their transactions and are about to wait for the force.
+     */
+    void transactionArrived()
+    {
+        if ( maxWindowNanos == 0 )
+        {
+            return;
+        }
+        long now = System.nanoTime();
+        long last = lastArrivalNanos.getAndSet( now );
+        if ( last != 0 )
+        {
+            long interval = now - last;
+            long average = averageArrivalIntervalNanos;
+            averageArrivalIntervalNanos = average == Long.MAX_VALUE ? interval : movingAverage( average, interval );
+        }
+    }
+
+    /**
+     * Called by the forcing thread after each successful force of the log.
+     */
+    void logForced( long forceNanos )
+    {
+        if ( maxWindowNanos == 0 )
+        {
+            return;
+        }
+        long average = averageForceNanos;
+        averageForceNanos = average == 0 ? forceNanos : movingAverage( average, forceNanos );
+    }
+
+    /**
+     * @return the number of nanoseconds the forcing thread should wait for more transactions, before forcing the log.
+     */
+    long windowNanos()
+    {
+        if ( maxWindowNanos == 0 )
+        {
+            return 0;
+        }
+        long window = Math.min( maxWindowNanos, averageForceNanos / 2 );
+        return averageArrivalIntervalNanos < window ? window : 0;
+    }
+
+    /**
+     * Wait for the current window to pass, if there is one.
+     */
+    void awaitWindow()
+    {
+        long window = windowNanos();
+        if ( window > 0 )
+        {
+            long deadline = System.nanoTime() + window;
+            long remaining = window;
+            do
+            {
+                LockSupport.parkNanos( this, remaining );
+                remaining = deadline - System.nanoTime();
+            }
+            while ( remaining > 0 );
+        }
+    }
+
+    private static long movingAverage( long average, long sample )
+    {
+        return average + ((sample - average) >> AVERAGE_WEIGHT_SHIFT);
+    }
+}
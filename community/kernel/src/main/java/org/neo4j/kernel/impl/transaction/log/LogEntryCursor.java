@@ -20,13 +20,21 @@
 package org.neo4j.kernel.impl.transaction.log;
 
 import java.io.IOException;
+import java.util.List;
 
 import org.neo4j.cursor.IOCursor;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntry;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommand;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCompressedCommands;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
 
+import static java.util.Collections.emptyList;
+
 /**
  * {@link IOCursor} abstraction on top of a {@link LogEntryReader}
+ * <p>
+ * {@link LogEntryCompressedCommands Compressed command entries} are expanded into the command entries that they
+ * contain, so that users of this cursor see the same entries regardless of whether or not they were compressed.
  */
 public class LogEntryCursor implements IOCursor<LogEntry>
 {
@@ -34,6 +42,8 @@ public class LogEntryCursor implements IOCursor<LogEntry>
     private final ReadableClosablePositionAwareChannel channel;
     private final LogPositionMarker position = new LogPositionMarker();
     private LogEntry entry;
+    private List<LogEntryCommand> compressedCommands = emptyList();
+    private int compressedCommandIndex;
 
     public LogEntryCursor( LogEntryReader<ReadableClosablePositionAwareChannel> logEntryReader,
                            ReadableClosablePositionAwareChannel channel )
@@ -51,9 +61,18 @@ public class LogEntryCursor implements IOCursor<LogEntry>
     @Override
     public boolean next() throws IOException
     {
-        entry = logEntryReader.readLogEntry( channel );
-
-        return entry != null;
+        while ( compressedCommandIndex >= compressedCommands.size() )
+        {
+            entry = logEntryReader.readLogEntry( channel );
+            if ( !(entry instanceof LogEntryCompressedCommands) )
+            {
+                return entry != null;
+            }
+            compressedCommands = ((LogEntryCompressedCommands) entry).getCommands();
+            compressedCommandIndex = 0;
+        }
+        entry = compressedCommands.get( compressedCommandIndex++ );
+        return true;
     }
 
     @Override
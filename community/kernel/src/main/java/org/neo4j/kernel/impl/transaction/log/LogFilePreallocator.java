@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executor;
+
+import org.neo4j.io.ByteUnit;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.logging.Log;
+
+import static java.lang.Math.min;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Preallocates transaction log files to the size at which they get rotated, by keeping a zero filled spare log
+ * file around for the next rotation to take over.
+ * <p>
+ * Appending to a preallocated log file doesn't change the size of the file, and doesn't allocate blocks for it, so
+ * forcing it only needs to flush the data that was written. The unwritten part of a preallocated log file is zeros,
+ * and since no log entry version is zero, readers see zeros at an entry boundary as the end of the log. A log file
+ * is truncated to the size of its contents when it's rotated away from, which means that only the current log file
+ * ever has such a tail.
+ * <p>
+ * The spare is prepared in the background, when the log files are started and whenever a rotation has taken the
+ * previous spare, so that it's normally ready by the time the next rotation needs it. It's zero filled in the
+ * {@link PhysicalLogFiles#getRecyclingLogFile() recycling file} and then renamed to the
+ * {@link PhysicalLogFiles#getSpareLogFile() spare file}, so a rotation never takes over a partially filled file.
+ * Pruning renames the last pruned log file to the recycling file, if there isn't one already, and the next spare is
+ * then made by overwriting that file, the blocks of which are already allocated, instead of creating a new file.
+ * A reader that still has the pruned log file open will see the zeros as the end of that log. If a rotation happens
+ * before the spare is ready, the new log file is only extended to the preallocated size, without writing it.
+ */
+public class LogFilePreallocator
+{
+    private static final int ZERO_FILL_CHUNK_SIZE = (int) ByteUnit.mebiBytes( 1 );
+
+    private final FileSystemAbstraction fileSystem;
+    private final PhysicalLogFiles logFiles;
+    private final long preallocatedSize;
+    private final Executor executor;
+    private final Log log;
+
+    // Guarded by 'this'
+    private boolean preparing;
+    private boolean started;
+
+    /**
+     * @param executor runs the preparation of the spare log file in the background.
+     */
+    public LogFilePreallocator( FileSystemAbstraction fileSystem, PhysicalLogFiles logFiles, long preallocatedSize,
+            Executor executor, Log log )
+    {
+        this.fileSystem = fileSystem;
+        this.logFiles = logFiles;
+        this.preallocatedSize = preallocatedSize;
+        this.executor = executor;
+        this.log = log;
+    }
+
+    /**
+     * Extends the file of the given channel to the preallocated size, if it's smaller than that.
+     * The position of the channel is not changed. This is for log files that couldn't be created from a spare.
+     *
+     * @param channel channel of the log file to preallocate.
+     * @throws IOException on failure to write to the channel.
+     */
+    public void preallocate( StoreChannel channel ) throws IOException
+    {
+        if ( channel.size() < preallocatedSize )
+        {
+            channel.writeAll( ByteBuffer.allocate( 1 ), preallocatedSize - 1 );
+        }
+    }
+
+    /**
+     * Renames the spare log file, if there is one, to the given log file, and starts preparing the next spare.
+     *
+     * @param logFile the log file to create from the spare log file. Must not exist.
+     * @return {@code true} if the spare log file was renamed to {@code logFile}, otherwise {@code false}.
+     * @throws IOException on failure to rename the spare log file.
+     */
+    public boolean reuseSpare( File logFile ) throws IOException
+    {
+        boolean reused;
+        synchronized ( this )
+        {
+            File spare = logFiles.getSpareLogFile();
+            reused = fileSystem.fileExists( spare );
+            if ( reused )
+            {
+                fileSystem.renameFile( spare, logFile );
+            }
+        }
+        prepareSpareInBackground();
+        return reused;
+    }
+
+    /**
+     * Renames a pruned log file to the recycling file, to be overwritten with zeros as the next spare, unless there
+     * already is a recycling file, in which case the pruned log file is deleted.
+     *
+     * @param prunedLogFile log file which has been pruned.
+     * @throws IOException on failure to rename the pruned log file.
+     */
+    public void renameToRecycle( File prunedLogFile ) throws IOException
+    {
+        synchronized ( this )
+        {
+            if ( preparing || fileSystem.fileExists( logFiles.getRecyclingLogFile() ) )
+            {
+                fileSystem.deleteFile( prunedLogFile );
+                return;
+            }
+            fileSystem.renameFile( prunedLogFile, logFiles.getRecyclingLogFile(), REPLACE_EXISTING );
+        }
+        prepareSpareInBackground();
+    }
+
+    /**
+     * Starts preparing spare log files in the background, beginning with one right away if there isn't one already.
+     */
+    public void start()
+    {
+        synchronized ( this )
+        {
+            started = true;
+        }
+        prepareSpareInBackground();
+    }
+
+    /**
+     * Stops preparing spare log files, and waits for the preparation in progress, if any, to give up.
+     */
+    public synchronized void stop()
+    {
+        started = false;
+        boolean interrupted = false;
+        while ( preparing )
+        {
+            try
+            {
+                wait();
+            }
+            catch ( InterruptedException e )
+            {
+                interrupted = true;
+            }
+        }
+        if ( interrupted )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void prepareSpareInBackground()
+    {
+        synchronized ( this )
+        {
+            if ( preparing || !started || fileSystem.fileExists( logFiles.getSpareLogFile() ) )
+            {
+                return;
+            }
+            preparing = true;
+        }
+        try
+        {
+            executor.execute( this::prepareSpare );
+        }
+        catch ( RuntimeException e )
+        {
+            synchronized ( this )
+            {
+                preparing = false;
+                notifyAll();
+            }
+            log.warn( "Failed to start preparing a spare transaction log file", e );
+        }
+    }
+
+    private void prepareSpare()
+    {
+        boolean filled = false;
+        try
+        {
+            // Either a pruned log file, or a partially filled file left from a crash, or nothing at all
+            File recycling = logFiles.getRecyclingLogFile();
+            try ( StoreChannel channel = fileSystem.fileExists( recycling )
+                                         ? fileSystem.open( recycling, "rw" ) : fileSystem.create( recycling ) )
+            {
+                filled = zeroFill( channel );
+                if ( filled )
+                {
+                    channel.truncate( preallocatedSize );
+                    channel.force( false );
+                }
+            }
+        }
+        catch ( IOException e )
+        {
+            // The spare is only an optimization, the next log file can just as well be created without it
+            log.warn( "Failed to prepare a spare transaction log file", e );
+        }
+        finally
+        {
+            synchronized ( this )
+            {
+                try
+                {
+                    if ( filled && started )
+                    {
+                        fileSystem.renameFile( logFiles.getRecyclingLogFile(), logFiles.getSpareLogFile(),
+                                REPLACE_EXISTING );
+                    }
+                }
+                catch ( IOException e )
+                {
+                    log.warn( "Failed to prepare a spare transaction log file", e );
+                }
+                finally
+                {
+                    preparing = false;
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} if the file was zero filled, or {@code false} if the preallocator was stopped first.
+     */
+    private boolean zeroFill( StoreChannel channel ) throws IOException
+    {
+        ByteBuffer zeros = ByteBuffer.allocate( (int) min( ZERO_FILL_CHUNK_SIZE, preallocatedSize ) );
+        for ( long position = 0; position < preallocatedSize; position += zeros.capacity() )
+        {
+            if ( !isStarted() )
+            {
+                return false;
+            }
+            zeros.clear();
+            zeros.limit( (int) min( zeros.capacity(), preallocatedSize - position ) );
+            channel.writeAll( zeros, position );
+        }
+        return true;
+    }
+
+    private synchronized boolean isStarted()
+    {
+        return started;
+    }
+}
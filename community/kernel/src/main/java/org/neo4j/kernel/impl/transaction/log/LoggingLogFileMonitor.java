@@ -20,7 +20,9 @@
 package org.neo4j.kernel.impl.transaction.log;
 
 import java.io.File;
+import java.util.concurrent.TimeUnit;
 
+import org.neo4j.kernel.impl.storageengine.impl.recordstorage.ParallelRecoveryApplier;
 import org.neo4j.kernel.impl.transaction.log.rotation.LogRotation;
 import org.neo4j.kernel.recovery.PositionToRecoverFrom;
 import org.neo4j.kernel.recovery.Recovery;
@@ -32,10 +34,12 @@ public class LoggingLogFileMonitor implements
         PhysicalLogFile.Monitor,
         LogRotation.Monitor,
         Recovery.Monitor,
-        PositionToRecoverFrom.Monitor
+        PositionToRecoverFrom.Monitor,
+        ParallelRecoveryApplier.Monitor
 {
     private long firstTransactionRecovered = -1;
     private long lastTransactionRecovered;
+    private long transactionsApplied;
     private final Log log;
 
     public LoggingLogFileMonitor( Log log )
@@ -85,6 +89,15 @@ public class LoggingLogFileMonitor implements
         lastTransactionRecovered = txId;
     }
 
+    @Override
+    public void batchRecovered( int transactions, long commands, int rounds, long elapsedNanos )
+    {
+        transactionsApplied += transactions;
+        log.info( format( "Recovery in progress. Applied %d transactions (%d commands, %d rounds) in %d ms, " +
+                        "%d transactions applied so far",
+                transactions, commands, rounds, TimeUnit.NANOSECONDS.toMillis( elapsedNanos ), transactionsApplied ) );
+    }
+
     @Override
     public void opened( File logFile, long logVersion, long lastTransactionId, boolean clean )
     {
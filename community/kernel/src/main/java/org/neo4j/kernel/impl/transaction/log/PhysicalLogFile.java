@@ -28,6 +28,7 @@ import java.util.function.Supplier;
 import org.neo4j.helpers.Exceptions;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
 import org.neo4j.kernel.impl.transaction.log.entry.LogHeader;
 import org.neo4j.kernel.lifecycle.Lifecycle;
 
@@ -70,6 +71,8 @@ public class PhysicalLogFile implements LogFile, Lifecycle
     private PositionAwarePhysicalFlushableChannel writer;
     private final LogVersionRepository logVersionRepository;
     private final LogVersionBridge readerLogVersionBridge;
+    private final LogFilePreallocator preallocator;
+    private final LogEntryReader<ReadableClosablePositionAwareChannel> logEntryReader;
 
     private volatile PhysicalLogVersionedStoreChannel channel;
 
@@ -77,6 +80,21 @@ public class PhysicalLogFile implements LogFile, Lifecycle
                             Supplier<Long> lastCommittedId, LogVersionRepository logVersionRepository,
                             Monitor monitor, LogHeaderCache logHeaderCache
     )
+    {
+        this( fileSystem, logFiles, rotateAtSize, lastCommittedId, logVersionRepository, monitor, logHeaderCache,
+                null, null );
+    }
+
+    /**
+     * @param preallocator preallocates and recycles the log files, or {@code null} to let log files grow as
+     * they're written to.
+     * @param logEntryReader used to find the end of the entries in a preallocated log file when starting.
+     * Only needed if there's a {@code preallocator}.
+     */
+    public PhysicalLogFile( FileSystemAbstraction fileSystem, PhysicalLogFiles logFiles, long rotateAtSize,
+            Supplier<Long> lastCommittedId, LogVersionRepository logVersionRepository, Monitor monitor,
+            LogHeaderCache logHeaderCache, LogFilePreallocator preallocator,
+            LogEntryReader<ReadableClosablePositionAwareChannel> logEntryReader )
     {
         this.fileSystem = fileSystem;
         this.rotateAtSize = rotateAtSize;
@@ -86,6 +104,8 @@ public class PhysicalLogFile implements LogFile, Lifecycle
         this.logHeaderCache = logHeaderCache;
         this.logFiles = logFiles;
         this.readerLogVersionBridge = new ReaderLogVersionBridge( fileSystem, logFiles );
+        this.preallocator = preallocator;
+        this.logEntryReader = logEntryReader;
     }
 
     @Override
@@ -105,10 +125,14 @@ public class PhysicalLogFile implements LogFile, Lifecycle
 
         long lastLogVersionUsed = logVersionRepository.getCurrentLogVersion();
         channel = createLogChannelForVersion( lastLogVersionUsed );
-        // Move to the end
-        channel.position( channel.size() );
+        // Move to the end, which for a preallocated log file isn't the end of the file
+        channel.position( preallocator != null ? endOfEntries( lastLogVersionUsed ) : channel.size() );
 
         writer = new PositionAwarePhysicalFlushableChannel( channel );
+        if ( preallocator != null )
+        {
+            preallocator.start();
+        }
     }
 
     @Override
@@ -123,8 +147,18 @@ public class PhysicalLogFile implements LogFile, Lifecycle
     @Override
     public void shutdown() throws IOException
     {
+        if ( preallocator != null )
+        {
+            preallocator.stop();
+        }
         if ( writer != null )
         {
+            if ( preallocator != null )
+            {
+                // Leave the log file without its preallocated tail, like a log file that isn't preallocated
+                writer.prepareForFlush();
+                channel.truncate( channel.position() );
+            }
             writer.close();
         }
         if ( channel != null )
@@ -158,17 +192,17 @@ public class PhysicalLogFile implements LogFile, Lifecycle
      *
      * Steps during rotation are:
      * <ol>
-     * <li>1: Increment log version, {@link LogVersionRepository#incrementAndGetVersion()} (also flushes the store)</li>
-     * <li>2: Flush current log</li>
-     * <li>3: Create new log file</li>
+     * <li>1: Flush current log, and if it's preallocated, truncate it to the end of its entries</li>
+     * <li>2: Increment log version, {@link LogVersionRepository#incrementAndGetVersion()} (also flushes the store)</li>
+     * <li>3: Create new log file, or rename the spare log file to it if preallocating</li>
      * <li>4: Write header</li>
      * </ol>
      *
      * Recovery: what happens if crash between:
      * <ol>
-     * <li>1-2: New log version has been set, starting the writer will create the new log file idempotently.
-     * At this point there may have been half-written transactions in the previous log version,
-     * although they haven't been considered committed and so they will be truncated from log during recovery</li>
+     * <li>1-2: The log version hasn't changed, so starting the writer will continue appending to the current
+     * log file. A preallocated log file has been truncated and forced before the log version is incremented,
+     * so that readers always reach the end of the file and continue into the next version.</li>
      * <li>2-3: New log version has been set, starting the writer will create the new log file idempotently.
      * At this point there may be complete transactions in the previous log version which may not have been
      * acknowledged to be committed back to the user, but will be considered committed anyway.</li>
@@ -181,10 +215,10 @@ public class PhysicalLogFile implements LogFile, Lifecycle
      *
      * Reading: what happens when rotation is between:
      * <ol>
-     * <li>1-2: Reader bridge will see that there's a new version (when asking {@link LogVersionRepository}
+     * <li>1-2: The log version hasn't changed, so readers are unaffected</li>
+     * <li>2-3: Reader bridge will see that there's a new version (when asking {@link LogVersionRepository}
      * and try to open it. The log file doesn't exist yet though. The bridge can parry for this by catching
      * {@link FileNotFoundException} and tell the reader that the stream has ended</li>
-     * <li>2-3: Same as (1-2)</li>
      * <li>3-4: Here the new log file exists, but the header may not be fully written yet.
      * the reader will fail when trying to read the header since it's reading it strictly and bridge
      * catches that exception, treating it the same as if the file didn't exist.</li>
@@ -196,11 +230,6 @@ public class PhysicalLogFile implements LogFile, Lifecycle
      */
     private PhysicalLogVersionedStoreChannel rotate( LogVersionedStoreChannel currentLog ) throws IOException
     {
-        /*
-         * The store is now flushed. If we fail now the recovery code will open the
-         * current log file and replay everything. That's unnecessary but totally ok.
-         */
-        long newLogVersion = logVersionRepository.incrementAndGetVersion();
         /*
          * Rotation can happen at any point, although not concurrently with an append,
          * although an append may have (most likely actually) left at least some bytes left
@@ -208,6 +237,20 @@ public class PhysicalLogFile implements LogFile, Lifecycle
          * transaction complete in the log we're rotating away. Awesome.
          */
         writer.prepareForFlush().flush();
+        if ( preallocator != null )
+        {
+            /*
+             * Readers only continue into the next log version at the end of the file, so the zero filled
+             * tail of the log we're rotating away must be gone before the new version becomes visible.
+             */
+            currentLog.truncate( currentLog.position() );
+            currentLog.force( false );
+        }
+        /*
+         * The store is now flushed. If we fail now the recovery code will open the
+         * current log file and replay everything. That's unnecessary but totally ok.
+         */
+        long newLogVersion = logVersionRepository.incrementAndGetVersion();
         /*
          * The log version is now in the store, flushed and persistent. If we crash
          * now, on recovery we'll attempt to open the version we're about to create
@@ -234,8 +277,18 @@ public class PhysicalLogFile implements LogFile, Lifecycle
     private PhysicalLogVersionedStoreChannel createLogChannelForVersion( long forVersion ) throws IOException
     {
         File toOpen = logFiles.getLogFileForVersion( forVersion );
+        if ( preallocator != null && !fileSystem.fileExists( toOpen ) )
+        {
+            preallocator.reuseSpare( toOpen );
+        }
         StoreChannel storeChannel = fileSystem.open( toOpen, "rw" );
         LogHeader header = readLogHeader( headerBuffer, storeChannel, false, toOpen );
+        if ( header != null && header.logFormatVersion == 0 )
+        {
+            // The zeros of a preallocated file, where the header hadn't been written yet
+            header = null;
+            storeChannel.position( 0 );
+        }
         if ( header == null )
         {
             // Either the header is not there in full or the file was new. Don't care
@@ -245,10 +298,33 @@ public class PhysicalLogFile implements LogFile, Lifecycle
             storeChannel.writeAll( headerBuffer );
             monitor.opened( toOpen, forVersion, lastTxId, true );
         }
+        if ( preallocator != null )
+        {
+            preallocator.preallocate( storeChannel );
+        }
         byte formatVersion = header == null ? CURRENT_LOG_VERSION : header.logFormatVersion;
         return new PhysicalLogVersionedStoreChannel( storeChannel, forVersion, formatVersion );
     }
 
+    /**
+     * The end of the entries in a preallocated log file can't be told from the size of the file,
+     * so read through the entries to find where the first zero version byte is.
+     */
+    private long endOfEntries( long version ) throws IOException
+    {
+        LogPositionMarker endOfEntries = new LogPositionMarker();
+        try ( ReadAheadLogChannel reader = new ReadAheadLogChannel(
+                openForVersion( logFiles, fileSystem, version, false ), LogVersionBridge.NO_MORE_CHANNELS ) )
+        {
+            reader.getCurrentPosition( endOfEntries );
+            while ( logEntryReader.readLogEntry( reader ) != null )
+            {
+                reader.getCurrentPosition( endOfEntries );
+            }
+        }
+        return endOfEntries.getByteOffset();
+    }
+
     @Override
     public FlushablePositionAwareChannel getWriter()
     {
@@ -21,9 +21,12 @@ package org.neo4j.kernel.impl.transaction.log;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.util.regex.Pattern;
 
 import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
 import org.neo4j.kernel.impl.transaction.log.entry.LogHeader;
 
 import static java.lang.Math.max;
@@ -57,7 +60,14 @@ public class PhysicalLogFiles
         }
     }
 
+    private static final String SPARE_SUFFIX = "spare";
+    private static final String RECYCLING_SUFFIX = "recycling";
+    private static final String POSITION_INDEX_SUFFIX = ".index";
+
     private final File logBaseName;
+    private static final Pattern DEFAULT_LOG_FILE_PATTERN =
+            Pattern.compile( PhysicalLogFile.REGEX_DEFAULT_NAME + REGEX_DEFAULT_VERSION_SUFFIX + "\\d+" );
+
     private final Pattern logFilePattern;
     private final FileSystemAbstraction fileSystem;
 
@@ -78,6 +88,34 @@ public class PhysicalLogFiles
         return new File( logBaseName.getPath() + DEFAULT_VERSION_SUFFIX + version );
     }
 
+    /**
+     * @return the {@link TransactionLogPositionIndex} file of the log file with the given version. Index files are
+     * local hints, which is why they aren't log files by {@link #isDefaultLogFileName(String)} and aren't included
+     * in backups or store copies.
+     */
+    public File getPositionIndexFileForVersion( long version )
+    {
+        return new File( getLogFileForVersion( version ).getPath() + POSITION_INDEX_SUFFIX );
+    }
+
+    /**
+     * @return the zero filled file which the next log version will be created from, if it exists.
+     * See {@link LogFilePreallocator}.
+     */
+    public File getSpareLogFile()
+    {
+        return new File( logBaseName.getPath() + DEFAULT_VERSION_SUFFIX + SPARE_SUFFIX );
+    }
+
+    /**
+     * @return the file the next {@link #getSpareLogFile() spare} is zero filled in, which may be a renamed pruned log
+     * file.
+     */
+    public File getRecyclingLogFile()
+    {
+        return new File( logBaseName.getPath() + DEFAULT_VERSION_SUFFIX + RECYCLING_SUFFIX );
+    }
+
     public boolean versionExists( long version )
     {
         return fileSystem.fileExists( getLogFileForVersion( version ) );
@@ -90,7 +128,22 @@ public class PhysicalLogFiles
 
     public boolean hasAnyEntries( long version )
     {
-        return fileSystem.getFileSize( getLogFileForVersion( version ) ) > LOG_HEADER_SIZE;
+        File logFile = getLogFileForVersion( version );
+        if ( fileSystem.getFileSize( logFile ) <= LOG_HEADER_SIZE )
+        {
+            return false;
+        }
+
+        // A preallocated log file is zero filled after its last entry, and no entry starts with a zero byte
+        try ( StoreChannel channel = fileSystem.open( logFile, "r" ) )
+        {
+            ByteBuffer firstByte = ByteBuffer.allocate( 1 );
+            return channel.read( firstByte, LOG_HEADER_SIZE ) == 1 && firstByte.get( 0 ) != 0;
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
     }
 
     public long getHighestLogVersion()
@@ -118,6 +171,15 @@ public class PhysicalLogFiles
         }
     }
 
+    /**
+     * @return {@code true} if the given file name is that of a versioned log file with the default name.
+     * The spare, recycling and position index files which share the prefix of the log files are not log files.
+     */
+    public static boolean isDefaultLogFileName( String fileName )
+    {
+        return DEFAULT_LOG_FILE_PATTERN.matcher( fileName ).matches();
+    }
+
     public static long getLogVersion( File historyLogFile )
     {
         // Get version based on the name
@@ -42,13 +42,26 @@ public class PhysicalLogicalTransactionStore implements LogicalTransactionStore
     private final LogFile logFile;
     private final TransactionMetadataCache transactionMetadataCache;
     private final LogEntryReader<ReadableClosablePositionAwareChannel> logEntryReader;
+    private final TransactionLogPositionIndex positionIndex;
 
     public PhysicalLogicalTransactionStore( LogFile logFile, TransactionMetadataCache transactionMetadataCache,
             LogEntryReader<ReadableClosablePositionAwareChannel> logEntryReader )
+    {
+        this( logFile, transactionMetadataCache, logEntryReader, null );
+    }
+
+    /**
+     * @param positionIndex used to find transactions which aren't in the {@code transactionMetadataCache}
+     * without scanning their log file from the start, or {@code null} to always scan.
+     */
+    public PhysicalLogicalTransactionStore( LogFile logFile, TransactionMetadataCache transactionMetadataCache,
+            LogEntryReader<ReadableClosablePositionAwareChannel> logEntryReader,
+            TransactionLogPositionIndex positionIndex )
     {
         this.logFile = logFile;
         this.transactionMetadataCache = transactionMetadataCache;
         this.logEntryReader = logEntryReader;
+        this.positionIndex = positionIndex;
     }
 
     @Override
@@ -77,11 +90,17 @@ public class PhysicalLogicalTransactionStore implements LogicalTransactionStore
             LogVersionLocator headerVisitor = new LogVersionLocator( transactionIdToStartFrom );
             logFile.accept( headerVisitor );
 
-            // ask LogFile
-            TransactionPositionLocator transactionPositionLocator =
-                    new TransactionPositionLocator( transactionIdToStartFrom, logEntryReader );
-            logFile.accept( transactionPositionLocator, headerVisitor.getLogPosition() );
-            LogPosition position = transactionPositionLocator.getAndCacheFoundLogPosition( transactionMetadataCache );
+            // ask the position index about where in that version it is, or at least close to
+            LogPosition position = locateUsingPositionIndex( transactionIdToStartFrom,
+                    headerVisitor.getLogPosition().getLogVersion() );
+            if ( position == null )
+            {
+                // ask LogFile
+                TransactionPositionLocator transactionPositionLocator =
+                        new TransactionPositionLocator( transactionIdToStartFrom, logEntryReader );
+                logFile.accept( transactionPositionLocator, headerVisitor.getLogPosition() );
+                position = transactionPositionLocator.getAndCacheFoundLogPosition( transactionMetadataCache );
+            }
             return new PhysicalTransactionCursor<>( logFile.getReader( position ), logEntryReader );
         }
         catch ( FileNotFoundException e )
@@ -92,6 +111,36 @@ public class PhysicalLogicalTransactionStore implements LogicalTransactionStore
         }
     }
 
+    /**
+     * @return the position of the given transaction, found by scanning from the closest indexed position
+     * before it, or {@code null} if there's no index or if the index turned out to be stale.
+     */
+    private LogPosition locateUsingPositionIndex( long transactionId, long logVersion )
+    {
+        if ( positionIndex == null )
+        {
+            return null;
+        }
+
+        try
+        {
+            LogPosition indexedPosition = positionIndex.lookup( transactionId, logVersion );
+            if ( indexedPosition == null )
+            {
+                return null;
+            }
+            TransactionPositionLocator transactionPositionLocator =
+                    new TransactionPositionLocator( transactionId, logEntryReader );
+            logFile.accept( transactionPositionLocator, indexedPosition );
+            return transactionPositionLocator.getAndCacheFoundLogPosition( transactionMetadataCache );
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            // The index is only a hint, scanning the log file from its start will tell for sure
+            return null;
+        }
+    }
+
     private static final TransactionMetadataCache.TransactionMetadata METADATA_FOR_EMPTY_STORE =
             new TransactionMetadataCache.TransactionMetadata( -1, -1, LogPosition.start( 0 ), BASE_TX_CHECKSUM,
                     BASE_TX_COMMIT_TIMESTAMP );
@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.neo4j.io.ByteUnit;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.kernel.impl.transaction.log.entry.LogHeader;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.logging.Log;
+import org.neo4j.logging.LogProvider;
+import org.neo4j.unsafe.impl.internal.dragons.FeatureToggles;
+
+/**
+ * Sparse, persistent index of where transactions start in each log version, so that transactions which are too
+ * old to be in the {@link TransactionMetadataCache} can be found without scanning their log file from the start.
+ * <p>
+ * There's one index file per log version, see {@link PhysicalLogFiles#getPositionIndexFileForVersion(long)}.
+ * It starts with the version and previous last committed transaction id of the log header, followed by
+ * entries of transaction id and byte offset, in transaction id order. A transaction is indexed when it starts
+ * at least {@link #INDEX_INTERVAL_BYTES} after the previously indexed one, which means that finding any
+ * transaction reads at most that many bytes of log entries before reaching it.
+ * <p>
+ * The index is written, but never forced, by the {@link TransactionAppender} as transactions are appended,
+ * so it is a hint. An offset looked up here must be verified by reading the transaction at it, and the log
+ * file scanned from its start if that fails. For the same reason a failure to write the index never fails the
+ * appended transaction, it logs a warning and disables the index, after which all lookups fall back to scanning.
+ */
+public class TransactionLogPositionIndex extends LifecycleAdapter
+{
+    static final long INDEX_INTERVAL_BYTES =
+            FeatureToggles.getLong( TransactionLogPositionIndex.class, "interval", ByteUnit.kibiBytes( 64 ) );
+    static final int HEADER_SIZE = 2 * Long.BYTES;
+    static final int ENTRY_SIZE = 2 * Long.BYTES;
+
+    private final FileSystemAbstraction fileSystem;
+    private final PhysicalLogFiles logFiles;
+    private final long indexIntervalBytes;
+    private final Log log;
+    private final ByteBuffer entryBuffer = ByteBuffer.allocate( ENTRY_SIZE );
+
+    private volatile boolean disabled;
+    private StoreChannel channel;
+    private long channelLogVersion = -1;
+    private long lastIndexedOffset;
+
+    public TransactionLogPositionIndex( FileSystemAbstraction fileSystem, PhysicalLogFiles logFiles,
+            LogProvider logProvider )
+    {
+        this( fileSystem, logFiles, logProvider, INDEX_INTERVAL_BYTES );
+    }
+
+    TransactionLogPositionIndex( FileSystemAbstraction fileSystem, PhysicalLogFiles logFiles,
+            LogProvider logProvider, long indexIntervalBytes )
+    {
+        this.fileSystem = fileSystem;
+        this.logFiles = logFiles;
+        this.log = logProvider.getLog( getClass() );
+        this.indexIntervalBytes = indexIntervalBytes;
+    }
+
+    /**
+     * Called for every appended transaction, in transaction id order, by the thread appending to the log.
+     * Failing to write to the index file disables the index, it doesn't fail the appended transaction.
+     *
+     * @param transactionId id of the appended transaction.
+     * @param startPosition position of the start entry of the appended transaction.
+     */
+    public synchronized void transactionAppended( long transactionId, LogPosition startPosition )
+    {
+        if ( disabled )
+        {
+            return;
+        }
+
+        try
+        {
+            if ( startPosition.getLogVersion() != channelLogVersion )
+            {
+                openForAppending( startPosition.getLogVersion(), transactionId );
+            }
+            else if ( startPosition.getByteOffset() - lastIndexedOffset < indexIntervalBytes )
+            {
+                return;
+            }
+
+            entryBuffer.clear();
+            entryBuffer.putLong( transactionId ).putLong( startPosition.getByteOffset() ).flip();
+            channel.writeAll( entryBuffer );
+            lastIndexedOffset = startPosition.getByteOffset();
+        }
+        catch ( IOException e )
+        {
+            disable( e );
+        }
+    }
+
+    /**
+     * @return {@code true} if the index has been disabled by a failure to write to it.
+     */
+    public boolean isDisabled()
+    {
+        return disabled;
+    }
+
+    /**
+     * Looks up the closest indexed position at or before the start of the given transaction.
+     *
+     * @param transactionId id of the transaction to find.
+     * @param logVersion version of the log file which contains the transaction.
+     * @return the start position of the closest indexed transaction at or before {@code transactionId},
+     * or {@code null} if there's no usable index for the log version or the index is disabled.
+     * The position is a hint, see class doc.
+     * @throws IOException on failure to read the index file or the header of the log file.
+     */
+    public LogPosition lookup( long transactionId, long logVersion ) throws IOException
+    {
+        if ( disabled )
+        {
+            return null;
+        }
+
+        File indexFile = logFiles.getPositionIndexFileForVersion( logVersion );
+        if ( !fileSystem.fileExists( indexFile ) || !logFiles.versionExists( logVersion ) )
+        {
+            return null;
+        }
+
+        ByteBuffer index = readFully( indexFile );
+        if ( index.limit() < HEADER_SIZE || !headerMatches( index, logVersion ) )
+        {
+            return null;
+        }
+
+        // Binary search for the last entry with a transaction id at or before the one we're looking for
+        int low = 0;
+        int high = (index.limit() - HEADER_SIZE) / ENTRY_SIZE - 1;
+        long offset = -1;
+        while ( low <= high )
+        {
+            int mid = (low + high) >>> 1;
+            int entryPosition = HEADER_SIZE + mid * ENTRY_SIZE;
+            if ( index.getLong( entryPosition ) <= transactionId )
+            {
+                offset = index.getLong( entryPosition + Long.BYTES );
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid - 1;
+            }
+        }
+        return offset == -1 ? null : new LogPosition( logVersion, offset );
+    }
+
+    @Override
+    public synchronized void shutdown() throws IOException
+    {
+        closeChannel();
+    }
+
+    private void disable( IOException cause )
+    {
+        // Index files written up until now may be incomplete, so don't use them for lookups either
+        disabled = true;
+        log.warn( "Failed to write to transaction log position index, disabling it. Transactions will be " +
+                  "located by scanning the transaction log files instead.", cause );
+        try
+        {
+            closeChannel();
+        }
+        catch ( IOException e )
+        {
+            cause.addSuppressed( e );
+        }
+    }
+
+    private void openForAppending( long logVersion, long firstTransactionId ) throws IOException
+    {
+        closeChannel();
+        File indexFile = logFiles.getPositionIndexFileForVersion( logVersion );
+        channel = fileSystem.open( indexFile, "rw" );
+        channelLogVersion = logVersion;
+        lastIndexedOffset = -1;
+
+        ByteBuffer index = readFully( indexFile );
+        long retainedSize = 0;
+        if ( index.limit() >= HEADER_SIZE && headerMatches( index, logVersion ) )
+        {
+            // Continuing a log version, e.g. after a restart. Entries for transactions from this one and onwards
+            // are from before a crash, which recovery has truncated from the log, so let them be overwritten.
+            retainedSize = HEADER_SIZE;
+            while ( retainedSize + ENTRY_SIZE <= index.limit() &&
+                    index.getLong( (int) retainedSize ) < firstTransactionId )
+            {
+                lastIndexedOffset = index.getLong( (int) retainedSize + Long.BYTES );
+                retainedSize += ENTRY_SIZE;
+            }
+        }
+        channel.truncate( retainedSize );
+        channel.position( retainedSize );
+        if ( retainedSize == 0 )
+        {
+            LogHeader logHeader = logFiles.extractHeader( logVersion );
+            ByteBuffer header = ByteBuffer.allocate( HEADER_SIZE );
+            header.putLong( logHeader.logVersion ).putLong( logHeader.lastCommittedTxId ).flip();
+            channel.writeAll( header );
+        }
+    }
+
+    /**
+     * An index file left from different log files with the same version, e.g. after a store copy,
+     * is recognized by it not having the same header as the log file.
+     */
+    private boolean headerMatches( ByteBuffer index, long logVersion ) throws IOException
+    {
+        LogHeader logHeader = logFiles.extractHeader( logVersion );
+        return index.getLong( 0 ) == logHeader.logVersion &&
+               index.getLong( Long.BYTES ) == logHeader.lastCommittedTxId;
+    }
+
+    private ByteBuffer readFully( File file ) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate( (int) fileSystem.getFileSize( file ) );
+        try ( StoreChannel reader = fileSystem.open( file, "r" ) )
+        {
+            while ( buffer.hasRemaining() && reader.read( buffer ) != -1 )
+            {
+                // keep reading until the end of the file
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private void closeChannel() throws IOException
+    {
+        if ( channel != null )
+        {
+            StoreChannel toClose = channel;
+            channel = null;
+            channelLogVersion = -1;
+            toClose.close();
+        }
+    }
+}
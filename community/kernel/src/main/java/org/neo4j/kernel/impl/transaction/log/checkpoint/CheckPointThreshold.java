@@ -19,6 +19,7 @@
  */
 package org.neo4j.kernel.impl.transaction.log.checkpoint;
 
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 /**
@@ -26,6 +27,11 @@ import java.util.function.Consumer;
  */
 public interface CheckPointThreshold
 {
+    /**
+     * The default interval at which thresholds are checked by the {@link CheckPointScheduler}.
+     */
+    long DEFAULT_CHECKING_FREQUENCY_MILLIS = TimeUnit.SECONDS.toMillis( 10 );
+
     /**
      * This method initialize the threshold by providing the initial transaction id
      *
@@ -51,4 +57,12 @@ public interface CheckPointThreshold
      * @param transactionId the latest transaction committed id used by the check point
      */
     void checkPointHappened( long transactionId );
+
+    /**
+     * @return how often, in milliseconds, this threshold should be checked by the {@link CheckPointScheduler}.
+     */
+    default long checkFrequencyMillis()
+    {
+        return DEFAULT_CHECKING_FREQUENCY_MILLIS;
+    }
 }
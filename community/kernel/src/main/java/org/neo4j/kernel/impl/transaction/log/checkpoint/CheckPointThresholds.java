@@ -19,10 +19,23 @@
  */
 package org.neo4j.kernel.impl.transaction.log.checkpoint;
 
+import java.time.Clock;
 import java.util.function.Consumer;
 
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.PhysicalLogFiles;
+import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
+import org.neo4j.kernel.monitoring.Monitors;
+
 public class CheckPointThresholds
 {
+    public static final String PERIODIC = "periodic";
+    public static final String CONTINUOUS = "continuous";
+    public static final String VOLUMETRIC = "volumetric";
+
     public static CheckPointThreshold or( final CheckPointThreshold... thresholds )
     {
         return new CheckPointThreshold()
@@ -58,9 +71,54 @@ public class CheckPointThresholds
                     threshold.checkPointHappened( transactionId );
                 }
             }
+
+            @Override
+            public long checkFrequencyMillis()
+            {
+                long frequency = DEFAULT_CHECKING_FREQUENCY_MILLIS;
+                for ( CheckPointThreshold threshold : thresholds )
+                {
+                    frequency = Math.min( frequency, threshold.checkFrequencyMillis() );
+                }
+                return frequency;
+            }
         };
     }
 
+    /**
+     * Create the check point threshold for the configured {@link GraphDatabaseSettings#check_point_policy}.
+     */
+    public static CheckPointThreshold createThreshold( Config config, Clock clock, Monitors monitors,
+            TransactionIdStore transactionIdStore, PhysicalLogFiles logFiles, FileSystemAbstraction fs )
+    {
+        String policy = config.get( GraphDatabaseSettings.check_point_policy );
+        switch ( policy )
+        {
+        case PERIODIC:
+        case CONTINUOUS:
+            // The continuous policy check points on the same triggers, and also flushes pages in the background
+            int txThreshold = config.get( GraphDatabaseSettings.check_point_interval_tx );
+            long timeMillisThreshold = config.get( GraphDatabaseSettings.check_point_interval_time ).toMillis();
+            return or( new CountCommittedTransactionThreshold( txThreshold ),
+                    new TimeCheckPointThreshold( timeMillisThreshold, clock ) );
+        case VOLUMETRIC:
+            VolumetricCheckPointThreshold threshold = new VolumetricCheckPointThreshold(
+                    config.get( GraphDatabaseSettings.check_point_recovery_time_objective ).toMillis(),
+                    config.get( GraphDatabaseSettings.check_point_recovery_rate_estimate ), clock,
+                    () ->
+                    {
+                        long[] lastClosedTransaction = transactionIdStore.getLastClosedTransaction();
+                        return new LogPosition( lastClosedTransaction[1], lastClosedTransaction[2] );
+                    },
+                    version -> fs.getFileSize( logFiles.getLogFileForVersion( version ) ),
+                    monitors.newMonitor( VolumetricCheckPointThreshold.Monitor.class ) );
+            monitors.addMonitorListener( threshold );
+            return threshold;
+        default:
+            throw new IllegalArgumentException( "Unknown check point policy: " + policy );
+        }
+    }
+
     private CheckPointThresholds()
     {
     }
@@ -65,4 +65,10 @@ public class TimeCheckPointThreshold extends AbstractCheckPointThreshold
         nextCheckPointTime = clock.millis() + timeMillisThreshold;
         lastCheckPointedTransactionId = transactionId;
     }
+
+    @Override
+    public long checkFrequencyMillis()
+    {
+        return Math.min( timeMillisThreshold, DEFAULT_CHECKING_FREQUENCY_MILLIS );
+    }
 }
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.checkpoint;
+
+import java.time.Clock;
+import java.util.function.LongUnaryOperator;
+import java.util.function.Supplier;
+
+import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.recovery.Recovery;
+
+/**
+ * A threshold that is reached when replaying the transaction log appended since the last check point would take
+ * about half of the configured recovery time objective. The other half is left as head room for the log that is
+ * appended while the check point is in progress.
+ * <p>
+ * The recovery time is estimated from the number of bytes of transaction log since the last check point, and the
+ * rate at which recovery replays the log. The rate starts out as a configured estimate, and is replaced by the rate
+ * that is measured whenever this database recovers a significant amount of log. Unlike a count or time based
+ * threshold, this works equally well for workloads with small transactions and for large batch loads.
+ */
+public class VolumetricCheckPointThreshold extends AbstractCheckPointThreshold implements Recovery.Monitor
+{
+    /**
+     * Below this many bytes of recovered log, the measured recovery rate is dominated by fixed costs and is ignored.
+     */
+    static final long MIN_MEASURED_RECOVERY_BYTES = 1024 * 1024;
+
+    public interface Monitor
+    {
+        void recoveryTimeEstimated( long bytesSinceCheckPoint, long recoveryBytesPerSecond,
+                long estimatedRecoveryTimeMillis );
+    }
+
+    private final long recoveryTimeObjectiveMillis;
+    private final Clock clock;
+    private final Supplier<LogPosition> lastClosedTransactionPosition;
+    private final LongUnaryOperator logFileSize;
+    private final Monitor monitor;
+
+    private volatile long recoveryBytesPerSecond;
+    private volatile LogPosition checkPointPosition;
+    private volatile LogPosition pendingCheckPointPosition;
+    private long bytesSinceCheckPoint;
+    private long estimatedRecoveryTimeMillis;
+
+    private LogPosition recoveryStartPosition;
+    private long recoveryStartMillis;
+    private long lastRecoveredTransactionMillis;
+
+    /**
+     * @param recoveryTimeObjectiveMillis the longest time that recovery should take after a crash.
+     * @param initialRecoveryBytesPerSecond the recovery rate to assume until one has been measured.
+     * @param clock the clock used to measure the recovery rate.
+     * @param lastClosedTransactionPosition the log position after the last closed transaction.
+     * @param logFileSize the size, in bytes, of the transaction log file with the given version.
+     * @param monitor receives the estimates made by this threshold.
+     */
+    public VolumetricCheckPointThreshold( long recoveryTimeObjectiveMillis, long initialRecoveryBytesPerSecond,
+            Clock clock, Supplier<LogPosition> lastClosedTransactionPosition, LongUnaryOperator logFileSize,
+            Monitor monitor )
+    {
+        this.recoveryTimeObjectiveMillis = recoveryTimeObjectiveMillis;
+        this.recoveryBytesPerSecond = Math.max( 1, initialRecoveryBytesPerSecond );
+        this.clock = clock;
+        this.lastClosedTransactionPosition = lastClosedTransactionPosition;
+        this.logFileSize = logFileSize;
+        this.monitor = monitor;
+    }
+
+    @Override
+    public void initialize( long transactionId )
+    {
+        checkPointPosition = lastClosedTransactionPosition.get();
+        pendingCheckPointPosition = null;
+    }
+
+    @Override
+    protected boolean thresholdReached( long lastCommittedTransactionId )
+    {
+        LogPosition position = lastClosedTransactionPosition.get();
+        bytesSinceCheckPoint = bytesBetween( checkPointPosition, position );
+        long bytesPerSecond = recoveryBytesPerSecond;
+        estimatedRecoveryTimeMillis = bytesSinceCheckPoint * 1000 / bytesPerSecond;
+        monitor.recoveryTimeEstimated( bytesSinceCheckPoint, bytesPerSecond, estimatedRecoveryTimeMillis );
+
+        boolean reached = estimatedRecoveryTimeMillis >= recoveryTimeObjectiveMillis / 2;
+        if ( reached )
+        {
+            // The check point that is about to happen will start from at least this position
+            pendingCheckPointPosition = position;
+        }
+        return reached;
+    }
+
+    @Override
+    protected String description()
+    {
+        return "recovery time threshold (" + bytesSinceCheckPoint + " bytes of log would take an estimated " +
+               estimatedRecoveryTimeMillis + "ms to recover)";
+    }
+
+    @Override
+    public void checkPointHappened( long transactionId )
+    {
+        LogPosition position = pendingCheckPointPosition;
+        checkPointPosition = position != null ? position : lastClosedTransactionPosition.get();
+        pendingCheckPointPosition = null;
+    }
+
+    @Override
+    public long checkFrequencyMillis()
+    {
+        return Math.max( 1, Math.min( DEFAULT_CHECKING_FREQUENCY_MILLIS, recoveryTimeObjectiveMillis / 10 ) );
+    }
+
+    @Override
+    public void recoveryRequired( LogPosition recoveryPosition )
+    {
+        recoveryStartPosition = recoveryPosition;
+        recoveryStartMillis = clock.millis();
+        lastRecoveredTransactionMillis = recoveryStartMillis;
+    }
+
+    @Override
+    public void transactionRecovered( long txId )
+    {
+        lastRecoveredTransactionMillis = clock.millis();
+    }
+
+    @Override
+    public void recoveryCompleted( int numberOfRecoveredTransactions )
+    {
+        if ( recoveryStartPosition == null )
+        {
+            return;
+        }
+        long recoveredBytes = bytesBetween( recoveryStartPosition, lastClosedTransactionPosition.get() );
+        long elapsedMillis = Math.max( 1, lastRecoveredTransactionMillis - recoveryStartMillis );
+        recoveryStartPosition = null;
+        if ( recoveredBytes >= MIN_MEASURED_RECOVERY_BYTES )
+        {
+            recoveryBytesPerSecond = Math.max( 1, recoveredBytes * 1000 / elapsedMillis );
+        }
+    }
+
+    private long bytesBetween( LogPosition from, LogPosition to )
+    {
+        if ( from.getLogVersion() == to.getLogVersion() )
+        {
+            return Math.max( 0, to.getByteOffset() - from.getByteOffset() );
+        }
+        if ( from.getLogVersion() > to.getLogVersion() )
+        {
+            return 0;
+        }
+        long bytes = Math.max( 0, logFileSize.applyAsLong( from.getLogVersion() ) - from.getByteOffset() );
+        for ( long version = from.getLogVersion() + 1; version < to.getLogVersion(); version++ )
+        {
+            bytes += logFileSize.applyAsLong( version );
+        }
+        return bytes + to.getByteOffset();
+    }
+}
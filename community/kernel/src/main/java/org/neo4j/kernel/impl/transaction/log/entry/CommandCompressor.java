@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.entry;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.neo4j.kernel.impl.transaction.log.FlushableChannel;
+
+import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryByteCodes.COMPRESSED_COMMANDS;
+
+/**
+ * Compresses the command entries of a transaction into a single {@link LogEntryCompressedCommands} entry, using
+ * {@link LZ4BlockCodec}. The command entries are first written, as they would otherwise have been written to the
+ * log, into an in-memory buffer obtained from {@link #commandChannel()}, and then {@link #writeTo(FlushableChannel)
+ * written} to the log, compressed if that makes them smaller, or as is otherwise.
+ * <p>
+ * Instances keep their buffers between transactions and are not thread safe.
+ */
+public class CommandCompressor
+{
+    public interface Monitor
+    {
+        /**
+         * The command entries of a transaction were written to the log.
+         *
+         * @param commandBytes the size of the command entries.
+         * @param writtenBytes the number of bytes that were written to the log for the command entries.
+         */
+        void commandsWritten( int commandBytes, int writtenBytes );
+    }
+
+    /**
+     * Command entries smaller than this are never compressed, since the header of the compressed entry would eat
+     * up most of the savings.
+     */
+    static final int MIN_COMPRESSIBLE_BYTES = 128;
+    static final int COMPRESSED_HEADER_SIZE = 2 + 4 + 4;
+
+    private final Monitor monitor;
+    private final CommandBuffer buffer = new CommandBuffer();
+    private final int[] hashTable = new int[LZ4BlockCodec.HASH_TABLE_SIZE];
+    private byte[] compressed = new byte[0];
+
+    public CommandCompressor( Monitor monitor )
+    {
+        this.monitor = monitor;
+    }
+
+    /**
+     * @return an empty channel to write the command entries of the next transaction to.
+     */
+    FlushableChannel commandChannel()
+    {
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Writes the command entries, that have been written to the {@link #commandChannel()}, to the given channel.
+     */
+    void writeTo( FlushableChannel channel ) throws IOException
+    {
+        int commandBytes = buffer.position();
+        byte[] commands = buffer.array();
+        int writtenBytes = commandBytes;
+        if ( commandBytes >= MIN_COMPRESSIBLE_BYTES )
+        {
+            int maxLength = LZ4BlockCodec.maxCompressedLength( commandBytes );
+            if ( compressed.length < maxLength )
+            {
+                compressed = new byte[maxLength];
+            }
+            int compressedBytes = LZ4BlockCodec.compress( commands, commandBytes, compressed, hashTable );
+            if ( compressedBytes + COMPRESSED_HEADER_SIZE < commandBytes )
+            {
+                channel.put( LogEntryVersion.V3_3.byteCode() ).put( COMPRESSED_COMMANDS );
+                channel.putInt( commandBytes ).putInt( compressedBytes ).put( compressed, compressedBytes );
+                writtenBytes = compressedBytes + COMPRESSED_HEADER_SIZE;
+            }
+        }
+        if ( writtenBytes == commandBytes )
+        {
+            channel.put( commands, commandBytes );
+        }
+        monitor.commandsWritten( commandBytes, writtenBytes );
+    }
+
+    /**
+     * A {@link FlushableChannel} over a growing in-memory buffer, with the same byte order as the log channels.
+     */
+    private static class CommandBuffer implements FlushableChannel
+    {
+        private ByteBuffer buffer = ByteBuffer.allocate( 8192 );
+
+        void clear()
+        {
+            buffer.clear();
+        }
+
+        int position()
+        {
+            return buffer.position();
+        }
+
+        byte[] array()
+        {
+            return buffer.array();
+        }
+
+        private ByteBuffer ensureCapacity( int bytes )
+        {
+            if ( buffer.remaining() < bytes )
+            {
+                ByteBuffer grown = ByteBuffer.allocate( Math.max( buffer.capacity() * 2, buffer.position() + bytes ) );
+                buffer.flip();
+                grown.put( buffer );
+                buffer = grown;
+            }
+            return buffer;
+        }
+
+        @Override
+        public Flushable prepareForFlush()
+        {
+            return () ->
+            {
+            };
+        }
+
+        @Override
+        public FlushableChannel put( byte value )
+        {
+            ensureCapacity( Byte.BYTES ).put( value );
+            return this;
+        }
+
+        @Override
+        public FlushableChannel putShort( short value )
+        {
+            ensureCapacity( Short.BYTES ).putShort( value );
+            return this;
+        }
+
+        @Override
+        public FlushableChannel putInt( int value )
+        {
+            ensureCapacity( Integer.BYTES ).putInt( value );
+            return this;
+        }
+
+        @Override
+        public FlushableChannel putLong( long value )
+        {
+            ensureCapacity( Long.BYTES ).putLong( value );
+            return this;
+        }
+
+        @Override
+        public FlushableChannel putFloat( float value )
+        {
+            ensureCapacity( Float.BYTES ).putFloat( value );
+            return this;
+        }
+
+        @Override
+        public FlushableChannel putDouble( double value )
+        {
+            ensureCapacity( Double.BYTES ).putDouble( value );
+            return this;
+        }
+
+        @Override
+        public FlushableChannel put( byte[] value, int length )
+        {
+            ensureCapacity( length ).put( value, 0, length );
+            return this;
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.entry;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A pure Java implementation of the LZ4 block format, used for compressing the commands of transactions in the
+ * transaction log, see {@link CommandCompressor}.
+ * <p>
+ * A block is a sequence of sequences, each consisting of a token byte, whose high and low 4 bits hold the number of
+ * literals and the length of the match, followed by any additional literal length bytes, the literals, a 2 byte
+ * little endian match offset and any additional match length bytes. The last sequence only holds literals.
+ * <p>
+ * The compressor uses a single hash table of 4 byte sequences, and favours speed over compression ratio, like the
+ * default "fast" mode of LZ4.
+ */
+final class LZ4BlockCodec
+{
+    private static final int HASH_LOG = 12;
+    static final int HASH_TABLE_SIZE = 1 << HASH_LOG;
+
+    private static final int MIN_MATCH = 4;
+    private static final int LAST_LITERALS = 5;
+    private static final int MATCH_FIND_LIMIT = 12;
+    private static final int MAX_DISTANCE = 0xFFFF;
+    private static final int RUN_MASK = 0xF;
+
+    private LZ4BlockCodec()
+    {
+        throw new AssertionError( "No instances" );
+    }
+
+    /**
+     * @param length number of bytes to compress.
+     * @return the largest number of bytes that compressing {@code length} bytes can produce.
+     */
+    static int maxCompressedLength( int length )
+    {
+        return length + length / 255 + 16;
+    }
+
+    /**
+     * Compresses {@code length} bytes of {@code source} into {@code target}.
+     *
+     * @param source the bytes to compress.
+     * @param length the number of bytes, from the start of {@code source}, to compress.
+     * @param target where to write the compressed bytes, must be at least {@link #maxCompressedLength(int)} long.
+     * @param hashTable scratch space of {@link #HASH_TABLE_SIZE} ints.
+     * @return the number of compressed bytes written to {@code target}.
+     */
+    static int compress( byte[] source, int length, byte[] target, int[] hashTable )
+    {
+        Arrays.fill( hashTable, -1 );
+        int anchor = 0;
+        int targetPos = 0;
+        if ( length > MATCH_FIND_LIMIT )
+        {
+            int matchLimit = length - LAST_LITERALS;
+            int findLimit = length - MATCH_FIND_LIMIT;
+            int pos = 0;
+            while ( pos < findLimit )
+            {
+                int sequence = readInt( source, pos );
+                int hash = hash( sequence );
+                int ref = hashTable[hash];
+                hashTable[hash] = pos;
+                if ( ref < 0 || pos - ref > MAX_DISTANCE || readInt( source, ref ) != sequence )
+                {
+                    pos++;
+                    continue;
+                }
+
+                while ( pos > anchor && ref > 0 && source[pos - 1] == source[ref - 1] )
+                {
+                    pos--;
+                    ref--;
+                }
+                int matchLength = MIN_MATCH;
+                while ( pos + matchLength < matchLimit && source[pos + matchLength] == source[ref + matchLength] )
+                {
+                    matchLength++;
+                }
+
+                targetPos = writeLiterals( source, anchor, pos - anchor, matchLength - MIN_MATCH, target, targetPos );
+                int offset = pos - ref;
+                target[targetPos++] = (byte) offset;
+                target[targetPos++] = (byte) (offset >>> 8);
+                if ( matchLength - MIN_MATCH >= RUN_MASK )
+                {
+                    targetPos = writeLength( matchLength - MIN_MATCH - RUN_MASK, target, targetPos );
+                }
+                pos += matchLength;
+                anchor = pos;
+            }
+        }
+        return writeLiterals( source, anchor, length - anchor, 0, target, targetPos );
+    }
+
+    /**
+     * Decompresses {@code length} bytes of {@code source}, starting at {@code offset}, into {@code target}.
+     *
+     * @param source the compressed bytes.
+     * @param offset where in {@code source} the compressed bytes start.
+     * @param length the number of compressed bytes.
+     * @param target where to write the decompressed bytes, which must fill the array exactly.
+     * @throws IOException if the compressed bytes are corrupt.
+     */
+    static void decompress( byte[] source, int offset, int length, byte[] target ) throws IOException
+    {
+        int pos = offset;
+        int end = offset + length;
+        int targetPos = 0;
+        while ( true )
+        {
+            checkBounds( pos < end, pos );
+            int token = source[pos++] & 0xFF;
+
+            int literals = token >>> 4;
+            if ( literals == RUN_MASK )
+            {
+                int b;
+                do
+                {
+                    checkBounds( pos < end, pos );
+                    b = source[pos++] & 0xFF;
+                    literals += b;
+                }
+                while ( b == 0xFF );
+            }
+            checkBounds( literals <= end - pos && literals <= target.length - targetPos, pos );
+            System.arraycopy( source, pos, target, targetPos, literals );
+            pos += literals;
+            targetPos += literals;
+            if ( pos == end )
+            {
+                break;
+            }
+
+            checkBounds( pos + 2 <= end, pos );
+            int matchOffset = (source[pos] & 0xFF) | ((source[pos + 1] & 0xFF) << 8);
+            pos += 2;
+            checkBounds( matchOffset > 0 && matchOffset <= targetPos, pos );
+
+            int matchLength = token & RUN_MASK;
+            if ( matchLength == RUN_MASK )
+            {
+                int b;
+                do
+                {
+                    checkBounds( pos < end, pos );
+                    b = source[pos++] & 0xFF;
+                    matchLength += b;
+                }
+                while ( b == 0xFF );
+            }
+            matchLength += MIN_MATCH;
+            checkBounds( matchLength <= target.length - targetPos, pos );
+            int matchPos = targetPos - matchOffset;
+            if ( matchOffset >= matchLength )
+            {
+                System.arraycopy( target, matchPos, target, targetPos, matchLength );
+                targetPos += matchLength;
+            }
+            else
+            {
+                // Overlapping match, which repeats the last matchOffset bytes
+                for ( int i = 0; i < matchLength; i++ )
+                {
+                    target[targetPos++] = target[matchPos++];
+                }
+            }
+        }
+        if ( targetPos != target.length )
+        {
+            throw new IOException( "Decompressed " + targetPos + " bytes, but expected " + target.length );
+        }
+    }
+
+    private static int writeLiterals( byte[] source, int start, int literals, int matchLengthCode, byte[] target,
+            int targetPos )
+    {
+        int token = (Math.min( literals, RUN_MASK ) << 4) | Math.min( matchLengthCode, RUN_MASK );
+        target[targetPos++] = (byte) token;
+        if ( literals >= RUN_MASK )
+        {
+            targetPos = writeLength( literals - RUN_MASK, target, targetPos );
+        }
+        System.arraycopy( source, start, target, targetPos, literals );
+        return targetPos + literals;
+    }
+
+    private static int writeLength( int length, byte[] target, int targetPos )
+    {
+        while ( length >= 0xFF )
+        {
+            target[targetPos++] = (byte) 0xFF;
+            length -= 0xFF;
+        }
+        target[targetPos++] = (byte) length;
+        return targetPos;
+    }
+
+    private static int readInt( byte[] bytes, int pos )
+    {
+        return (bytes[pos] & 0xFF) | ((bytes[pos + 1] & 0xFF) << 8) |
+               ((bytes[pos + 2] & 0xFF) << 16) | ((bytes[pos + 3] & 0xFF) << 24);
+    }
+
+    private static int hash( int sequence )
+    {
+        return (sequence * -1640531535) >>> (Integer.SIZE - HASH_LOG);
+    }
+
+    private static void checkBounds( boolean inBounds, int pos ) throws IOException
+    {
+        if ( !inBounds )
+        {
+            throw new IOException( "Malformed compressed data at offset " + pos );
+        }
+    }
+}
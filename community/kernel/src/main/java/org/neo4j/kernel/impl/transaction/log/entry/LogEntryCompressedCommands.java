@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.entry;
+
+import java.util.List;
+
+/**
+ * The command entries of a transaction, that were written to the log compressed by a {@link CommandCompressor}.
+ * {@link org.neo4j.kernel.impl.transaction.log.LogEntryCursor} returns the {@link #getCommands() commands}
+ * of this entry one by one, in place of this entry, so readers of transactions never see it.
+ */
+public class LogEntryCompressedCommands extends AbstractLogEntry
+{
+    private final List<LogEntryCommand> commands;
+    private final int compressedBytes;
+
+    public LogEntryCompressedCommands( LogEntryVersion version, List<LogEntryCommand> commands, int compressedBytes )
+    {
+        super( version, LogEntryByteCodes.COMPRESSED_COMMANDS );
+        this.commands = commands;
+        this.compressedBytes = compressedBytes;
+    }
+
+    public List<LogEntryCommand> getCommands()
+    {
+        return commands;
+    }
+
+    public int getCompressedBytes()
+    {
+        return compressedBytes;
+    }
+
+    @Override
+    @SuppressWarnings( "unchecked" )
+    public <T extends LogEntry> T as()
+    {
+        return (T) this;
+    }
+
+    @Override
+    public boolean equals( Object o )
+    {
+        if ( this == o )
+        {
+            return true;
+        }
+        if ( o == null || getClass() != o.getClass() )
+        {
+            return false;
+        }
+        return commands.equals( ((LogEntryCompressedCommands) o).commands );
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return commands.hashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CompressedCommands[" + commands.size() + " commands in " + compressedBytes + " bytes]";
+    }
+}
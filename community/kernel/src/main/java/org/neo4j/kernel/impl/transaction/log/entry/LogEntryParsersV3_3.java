@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.entry;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.kernel.impl.transaction.log.InMemoryClosableChannel;
+import org.neo4j.kernel.impl.transaction.log.LogPositionMarker;
+import org.neo4j.kernel.impl.transaction.log.ReadableClosableChannel;
+import org.neo4j.storageengine.api.CommandReaderFactory;
+
+/**
+ * The log entry layout of {@link LogEntryParsersV2_3}, with the addition of {@link #COMPRESSED_COMMANDS}.
+ */
+public enum LogEntryParsersV3_3 implements LogEntryParser<LogEntry>
+{
+    TX_START( LogEntryParsersV2_3.TX_START ),
+
+    COMMAND( LogEntryParsersV2_3.COMMAND ),
+
+    TX_1P_COMMIT( LogEntryParsersV2_3.TX_1P_COMMIT ),
+
+    CHECK_POINT( LogEntryParsersV2_3.CHECK_POINT ),
+
+    COMPRESSED_COMMANDS( null )
+            {
+                @Override
+                public LogEntry parse( LogEntryVersion version, ReadableClosableChannel channel, LogPositionMarker marker,
+                                       CommandReaderFactory commandReader ) throws IOException
+                {
+                    int commandBytes = channel.getInt();
+                    int compressedBytes = channel.getInt();
+                    if ( compressedBytes < 0 || commandBytes < 0 ||
+                         commandBytes > (long) compressedBytes * 255 + CommandCompressor.COMPRESSED_HEADER_SIZE )
+                    {
+                        throw new IOException( "Invalid compressed commands entry, " + compressedBytes +
+                                               " bytes compressed from " + commandBytes + " bytes" );
+                    }
+                    byte[] compressed = new byte[compressedBytes];
+                    channel.get( compressed, compressedBytes );
+                    byte[] commands = new byte[commandBytes];
+                    LZ4BlockCodec.decompress( compressed, 0, compressedBytes, commands );
+
+                    InMemoryClosableChannel commandChannel = new InMemoryClosableChannel( commands, true );
+                    List<LogEntryCommand> entries = new ArrayList<>();
+                    while ( commandChannel.availableBytesToRead() > 0 )
+                    {
+                        LogEntryVersion commandVersion = LogEntryVersion.byVersion( commandChannel.get() );
+                        LogEntry entry = commandVersion.entryParser( commandChannel.get() )
+                                .parse( commandVersion, commandChannel, marker, commandReader );
+                        if ( !(entry instanceof LogEntryCommand) )
+                        {
+                            throw new IOException( "Expected only commands in compressed commands entry, but read " +
+                                                   entry );
+                        }
+                        entries.add( (LogEntryCommand) entry );
+                    }
+                    return new LogEntryCompressedCommands( version, entries, compressedBytes );
+                }
+
+                @Override
+                public byte byteCode()
+                {
+                    return LogEntryByteCodes.COMPRESSED_COMMANDS;
+                }
+            };
+
+    private final LogEntryParser<LogEntry> delegate;
+
+    LogEntryParsersV3_3( LogEntryParser<LogEntry> delegate )
+    {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public LogEntry parse( LogEntryVersion version, ReadableClosableChannel channel, LogPositionMarker marker,
+                           CommandReaderFactory commandReader ) throws IOException
+    {
+        return delegate.parse( version, channel, marker, commandReader );
+    }
+
+    @Override
+    public byte byteCode()
+    {
+        return delegate.byteCode();
+    }
+
+    @Override
+    public boolean skip()
+    {
+        return false;
+    }
+}
@@ -81,11 +81,15 @@ public enum LogEntryVersion
     // as of 2017-05-26: the records in command log entries include a bit that specifies if the command is serialised
     // using a fixed-width reference format, or not. This change is technically backwards compatible, so we bump the
     // log version to prevent mixed-version clusters from forming.
-    V3_0_10( -10, LogEntryParsersV2_3.class );
+    V3_0_10( -10, LogEntryParsersV2_3.class ),
+    // adds the compressed commands entry type, see CommandCompressor. Compression is optional, so only the
+    // compressed entries themselves use this version, and all other entries are still written as CURRENT.
+    // The commands inside of the compressed entries have their own log entry headers.
+    V3_3( -11, LogEntryParsersV3_3.class );
 
     public static final LogEntryVersion CURRENT = V3_0_10;
     private static final LogEntryVersion[] ALL = values();
-    private static final LogEntryVersion[] LOOKUP_BY_VERSION = new LogEntryVersion[11]; // pessimistic size
+    private static final LogEntryVersion[] LOOKUP_BY_VERSION = new LogEntryVersion[12]; // pessimistic size
     static
     {
         for ( LogEntryVersion version : ALL )
@@ -142,7 +146,8 @@ public enum LogEntryVersion
     {
         byte flattenedVersion = (byte) -version;
 
-        if ( flattenedVersion >= 0 && flattenedVersion < LOOKUP_BY_VERSION.length )
+        if ( flattenedVersion >= 0 && flattenedVersion < LOOKUP_BY_VERSION.length &&
+             LOOKUP_BY_VERSION[flattenedVersion] != null )
         {
             return LOOKUP_BY_VERSION[flattenedVersion];
         }
@@ -38,14 +38,31 @@ public class LogEntryWriter
 {
     private final FlushableChannel channel;
     private final Visitor<StorageCommand,IOException> serializer;
+    private final CommandCompressor compressor;
 
     public LogEntryWriter( FlushableChannel channel )
+    {
+        this( channel, null );
+    }
+
+    /**
+     * @param channel the channel to write log entries to.
+     * @param compressor compresses the command entries of each serialized transaction, or {@code null} to write
+     * them uncompressed.
+     */
+    public LogEntryWriter( FlushableChannel channel, CommandCompressor compressor )
     {
         this.channel = channel;
         this.serializer = new StorageCommandSerializer( channel );
+        this.compressor = compressor;
     }
 
     private void writeLogEntryHeader( byte type ) throws IOException
+    {
+        writeLogEntryHeader( channel, type );
+    }
+
+    private static void writeLogEntryHeader( FlushableChannel channel, byte type ) throws IOException
     {
         channel.put( CURRENT.byteCode() ).put( type );
     }
@@ -66,10 +83,32 @@ public class LogEntryWriter
 
     public void serialize( TransactionRepresentation tx ) throws IOException
     {
-        tx.accept( serializer );
+        if ( compressor != null )
+        {
+            tx.accept( new StorageCommandSerializer( compressor.commandChannel() ) );
+            compressor.writeTo( channel );
+        }
+        else
+        {
+            tx.accept( serializer );
+        }
     }
 
     public void serialize( Collection<StorageCommand> commands ) throws IOException
+    {
+        if ( compressor != null )
+        {
+            serialize( commands, new StorageCommandSerializer( compressor.commandChannel() ) );
+            compressor.writeTo( channel );
+        }
+        else
+        {
+            serialize( commands, serializer );
+        }
+    }
+
+    private static void serialize( Collection<StorageCommand> commands,
+            Visitor<StorageCommand,IOException> serializer ) throws IOException
     {
         for ( StorageCommand command : commands )
         {
@@ -84,7 +123,7 @@ public class LogEntryWriter
                 putLong( logPosition.getByteOffset() );
     }
 
-    private class StorageCommandSerializer implements Visitor<StorageCommand,IOException>
+    private static class StorageCommandSerializer implements Visitor<StorageCommand,IOException>
     {
         private final FlushableChannel channel;
 
@@ -96,7 +135,7 @@ public class LogEntryWriter
         @Override
         public boolean visit( StorageCommand command ) throws IOException
         {
-            writeLogEntryHeader( COMMAND );
+            writeLogEntryHeader( channel, COMMAND );
             command.serialize( channel );
             return false;
         }
@@ -40,9 +40,20 @@ import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryVersion.byVers
  * different versions to exchange transaction data, either directly or via logical logs.
  *
  * Read all about it at {@link LogEntryVersion}.
+ *
+ * The unwritten part of a preallocated log file is zeros. A zero version byte followed by zeros is the end of the
+ * log, and so is an entry which doesn't make sense and runs into such zeros, since that's an entry which was only
+ * partially written before a crash. Both are read like a log which ends there, with the channel positioned
+ * at the start of that entry.
  */
 public class VersionAwareLogEntryReader<SOURCE extends ReadableClosablePositionAwareChannel> implements LogEntryReader<SOURCE>
 {
+    /**
+     * Number of bytes which must be zeros for a position to be considered the zero filled tail of a preallocated
+     * log file. Covers the fixed size part of any log entry.
+     */
+    private static final int ZERO_TAIL_CHECK_SIZE = 64;
+
     private final CommandReaderFactory commandReaderFactory;
     private final InvalidLogEntryHandler invalidLogEntryHandler;
 
@@ -70,6 +81,10 @@ public class VersionAwareLogEntryReader<SOURCE extends ReadableClosablePositionA
                 channel.getCurrentPosition( positionMarker );
 
                 byte versionCode = channel.get();
+                if ( versionCode == 0 && isEndOfPreallocatedLog( channel, positionMarker ) )
+                {
+                    return null;
+                }
                 byte typeCode = channel.get();
 
                 LogEntryVersion version = null;
@@ -80,6 +95,10 @@ public class VersionAwareLogEntryReader<SOURCE extends ReadableClosablePositionA
                     version = byVersion( versionCode );
                     entryReader = version.entryParser( typeCode );
                     entry = entryReader.parse( version, channel, positionMarker, commandReaderFactory );
+                    if ( entry != null && !logEntryMakesSense( entry ) && isTornEntry( channel, positionMarker ) )
+                    {
+                        return null;
+                    }
                     if ( entry != null && skipped > 0 )
                     {
                         // Take extra care when reading an entry in a bad section. Just because entry reading
@@ -95,7 +114,13 @@ public class VersionAwareLogEntryReader<SOURCE extends ReadableClosablePositionA
                     }
                 }
                 catch ( Exception e )
-                {   // Tag all other exceptions with log position and other useful information
+                {
+                    if ( isTornEntry( channel, positionMarker ) )
+                    {
+                        return null;
+                    }
+
+                    // Tag all other exceptions with log position and other useful information
                     LogPosition position = positionMarker.newPosition();
                     e = withMessage( e, e.getMessage() + ". At position " + position +
                             " and entry version " + version );
@@ -122,6 +147,101 @@ public class VersionAwareLogEntryReader<SOURCE extends ReadableClosablePositionA
         }
     }
 
+    /**
+     * Called after reading a zero version byte at the start of an entry.
+     *
+     * @return {@code true} if the entry area is zeros, with the channel positioned at the start of the entry,
+     * or {@code false} with the channel positioned right after the version byte.
+     */
+    private boolean isEndOfPreallocatedLog( SOURCE channel, LogPositionMarker entryStart ) throws IOException
+    {
+        if ( !channelSupportsPositioning( channel ) )
+        {
+            // No log entry version is zero, so this can't be anything but the end of the log
+            return true;
+        }
+
+        // The version byte itself is the first zero
+        if ( isZeroTail( channel, entryStart.getLogVersion(), 0 ) )
+        {
+            positionAtEntryStart( channel, entryStart );
+            return true;
+        }
+        ((PositionableChannel) channel).setCurrentPosition( entryStart.getByteOffset() + 1 );
+        return false;
+    }
+
+    /**
+     * Called after reading an entry which doesn't make sense, or failing to read an entry.
+     *
+     * @return {@code true} if the entry ran into the zero filled tail of a preallocated log file, with the channel
+     * positioned at the start of the entry, otherwise {@code false} with the channel position unchanged.
+     */
+    private boolean isTornEntry( SOURCE channel, LogPositionMarker entryStart ) throws IOException
+    {
+        if ( !channelSupportsPositioning( channel ) )
+        {
+            return false;
+        }
+
+        LogPositionMarker current = new LogPositionMarker();
+        channel.getCurrentPosition( current );
+        if ( current.getLogVersion() != entryStart.getLogVersion() )
+        {
+            // The entry continued into the next log version, so it didn't run into a zero filled tail
+            return false;
+        }
+        // An entry which just happens to be the last one in the log isn't followed by any zeros
+        if ( isZeroTail( channel, entryStart.getLogVersion(), 1 ) )
+        {
+            positionAtEntryStart( channel, entryStart );
+            return true;
+        }
+        ((PositionableChannel) channel).setCurrentPosition( current.getByteOffset() );
+        return false;
+    }
+
+    /**
+     * Reads ahead to see if the channel is at the zero filled tail of a log file. Reaching the end of the log
+     * version after at least {@code minZeros} zeros counts as a zero filled tail. The channel is only left in
+     * another log version if this returns {@code true}.
+     */
+    private boolean isZeroTail( SOURCE channel, long logVersion, int minZeros ) throws IOException
+    {
+        LogPositionMarker position = new LogPositionMarker();
+        int zeros = 0;
+        try
+        {
+            while ( zeros < ZERO_TAIL_CHECK_SIZE )
+            {
+                byte value = channel.get();
+                if ( channel.getCurrentPosition( position ).getLogVersion() != logVersion )
+                {
+                    break;
+                }
+                if ( value != 0 )
+                {
+                    return false;
+                }
+                zeros++;
+            }
+        }
+        catch ( ReadPastEndException e )
+        {
+            // Zeros all the way to the end of the log
+        }
+        return zeros >= minZeros;
+    }
+
+    private void positionAtEntryStart( SOURCE channel, LogPositionMarker entryStart ) throws IOException
+    {
+        LogPositionMarker current = new LogPositionMarker();
+        if ( channel.getCurrentPosition( current ).getLogVersion() == entryStart.getLogVersion() )
+        {
+            ((PositionableChannel) channel).setCurrentPosition( entryStart.getByteOffset() );
+        }
+    }
+
     private boolean channelSupportsPositioning( SOURCE channel )
     {
         return channel instanceof PositionableChannel;
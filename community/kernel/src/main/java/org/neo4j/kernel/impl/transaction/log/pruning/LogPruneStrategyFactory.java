@@ -21,6 +21,7 @@ package org.neo4j.kernel.impl.transaction.log.pruning;
 
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.kernel.impl.transaction.log.LogFileInformation;
+import org.neo4j.kernel.impl.transaction.log.LogFilePreallocator;
 import org.neo4j.kernel.impl.transaction.log.PhysicalLogFiles;
 import org.neo4j.kernel.impl.transaction.log.pruning.ThresholdConfigParser.ThresholdConfigValue;
 import org.neo4j.time.Clocks;
@@ -68,6 +69,17 @@ public class LogPruneStrategyFactory
                                                     LogFileInformation logFileInformation,
                                                     PhysicalLogFiles files,
                                                     String configValue )
+    {
+        return fromConfigValue( fileSystem, logFileInformation, files, configValue, null );
+    }
+
+    /**
+     * Same as {@link #fromConfigValue(FileSystemAbstraction, LogFileInformation, PhysicalLogFiles, String)},
+     * but recycling pruned log files with the given {@link LogFilePreallocator}, if it's not {@code null}.
+     */
+    public static LogPruneStrategy fromConfigValue( FileSystemAbstraction fileSystem,
+            LogFileInformation logFileInformation, PhysicalLogFiles files, String configValue,
+            LogFilePreallocator preallocator )
     {
         ThresholdConfigValue value = parse( configValue );
 
@@ -77,7 +89,7 @@ public class LogPruneStrategyFactory
         }
 
         Threshold thresholdToUse = getThresholdByType( fileSystem, value, configValue );
-        return new ThresholdBasedPruneStrategy( fileSystem, logFileInformation, files, thresholdToUse );
+        return new ThresholdBasedPruneStrategy( fileSystem, logFileInformation, files, thresholdToUse, preallocator );
     }
 
     // visible for testing
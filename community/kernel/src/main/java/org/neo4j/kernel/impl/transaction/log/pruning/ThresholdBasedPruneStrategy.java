@@ -20,9 +20,11 @@
 package org.neo4j.kernel.impl.transaction.log.pruning;
 
 import java.io.File;
+import java.io.IOException;
 
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.kernel.impl.transaction.log.LogFileInformation;
+import org.neo4j.kernel.impl.transaction.log.LogFilePreallocator;
 import org.neo4j.kernel.impl.transaction.log.PhysicalLogFiles;
 
 import static org.neo4j.kernel.impl.transaction.log.LogVersionRepository.INITIAL_LOG_VERSION;
@@ -34,14 +36,26 @@ public class ThresholdBasedPruneStrategy implements LogPruneStrategy
     private final LogFileInformation logFileInformation;
     private final PhysicalLogFiles files;
     private final Threshold threshold;
+    private final LogFilePreallocator preallocator;
 
     public ThresholdBasedPruneStrategy( FileSystemAbstraction fileSystem, LogFileInformation logFileInformation,
                                         PhysicalLogFiles files, Threshold threshold )
+    {
+        this( fileSystem, logFileInformation, files, threshold, null );
+    }
+
+    /**
+     * @param preallocator recycles the last pruned log file into a spare log file, or {@code null} to only delete
+     * pruned log files.
+     */
+    public ThresholdBasedPruneStrategy( FileSystemAbstraction fileSystem, LogFileInformation logFileInformation,
+            PhysicalLogFiles files, Threshold threshold, LogFilePreallocator preallocator )
     {
         this.fileSystem = fileSystem;
         this.logFileInformation = logFileInformation;
         this.files = files;
         this.threshold = threshold;
+        this.preallocator = preallocator;
     }
 
     @Override
@@ -106,7 +120,29 @@ public class ThresholdBasedPruneStrategy implements LogPruneStrategy
         // we can be sure that no holes are created
         for ( long version = lower; version <= upper; version++ )
         {
-            fileSystem.deleteFile( files.getLogFileForVersion( version ) );
+            File file = files.getLogFileForVersion( version );
+            fileSystem.deleteFile( files.getPositionIndexFileForVersion( version ) );
+            if ( version == upper && preallocator != null )
+            {
+                recycle( file );
+            }
+            else
+            {
+                fileSystem.deleteFile( file );
+            }
+        }
+    }
+
+    private void recycle( File file )
+    {
+        try
+        {
+            preallocator.renameToRecycle( file );
+        }
+        catch ( IOException e )
+        {
+            // The spare is only an optimization, the next log file can just as well be created without it
+            fileSystem.deleteFile( file );
         }
     }
 }
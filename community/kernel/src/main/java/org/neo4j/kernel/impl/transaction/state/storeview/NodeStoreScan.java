@@ -25,6 +25,7 @@ import org.neo4j.kernel.impl.api.index.StoreScan;
 import org.neo4j.kernel.impl.locking.Lock;
 import org.neo4j.kernel.impl.locking.LockService;
 import org.neo4j.kernel.impl.store.NodeStore;
+import org.neo4j.kernel.impl.store.RecordCursor;
 import org.neo4j.kernel.impl.store.StoreIdIterator;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
 import org.neo4j.storageengine.api.schema.PopulationProgress;
@@ -60,8 +61,11 @@ public abstract class NodeStoreScan<FAILURE extends Exception> implements StoreS
     @Override
     public void run() throws FAILURE
     {
-        try ( PrimitiveLongResourceIterator nodeIds = getNodeIdIterator() )
+        // Node ids come in increasing order, so the node store is read ahead of the scan
+        try ( PrimitiveLongResourceIterator nodeIds = getNodeIdIterator();
+              RecordCursor<NodeRecord> cursor = nodeStore.newScanRecordCursor( record ) )
         {
+            cursor.acquire( 0, FORCE );
             continueScanning = true;
             while ( continueScanning && nodeIds.hasNext() )
             {
@@ -69,7 +73,7 @@ public abstract class NodeStoreScan<FAILURE extends Exception> implements StoreS
                 try ( Lock ignored = locks.acquireNodeLock( id, LockService.LockType.READ_LOCK ) )
                 {
                     count++;
-                    if ( nodeStore.getRecord( id, record, FORCE ).inUse() )
+                    if ( cursor.next( id ) )
                     {
                         process( record );
                     }
@@ -22,6 +22,7 @@ package org.neo4j.graphdb.factory;
 import org.junit.Test;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -37,6 +38,7 @@ import org.neo4j.kernel.configuration.BoltConnector;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.configuration.HttpConnector;
 
+import static java.util.Arrays.asList;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
@@ -77,6 +79,49 @@ public class GraphDatabaseSettingsTest
         Config.defaults( setting, "" + ( pageSize * 2 - 1 ) ).get( setting );
     }
 
+    @Test
+    public void pageCacheReservationsMustBeParsedInOrder() throws Exception
+    {
+        Setting<Map<String,Double>> setting = GraphDatabaseSettings.pagecache_reservations;
+        Map<String,Double> reservations =
+                Config.defaults( setting, "neostore.nodestore.db:0.1, index-*:0.05" ).get( setting );
+        assertEquals( asList( "neostore.nodestore.db", "index-*" ), new ArrayList<>( reservations.keySet() ) );
+        assertEquals( asList( 0.1, 0.05 ), new ArrayList<>( reservations.values() ) );
+        assertTrue( Config.defaults().get( setting ).isEmpty() );
+    }
+
+    @Test
+    public void pageCacheReservationsMustRejectInvalidPairs() throws Exception
+    {
+        assertInvalidPageCacheReservations( "neostore.nodestore.db" );
+        assertInvalidPageCacheReservations( ":0.1" );
+        assertInvalidPageCacheReservations( "neostore.nodestore.db:a" );
+        assertInvalidPageCacheReservations( "neostore.nodestore.db:0" );
+        assertInvalidPageCacheReservations( "neostore.nodestore.db:-0.1" );
+        assertInvalidPageCacheReservations( "neostore.nodestore.db:1.1" );
+        assertInvalidPageCacheReservations( "neostore.nodestore.db:0.1,neostore.nodestore.db:0.2" );
+    }
+
+    @Test
+    public void pageCacheReservationsMustRejectTooLargeTotalFraction() throws Exception
+    {
+        assertInvalidPageCacheReservations( "neostore.nodestore.db:0.3,neostore.relationshipstore.db:0.3" );
+    }
+
+    private static void assertInvalidPageCacheReservations( String value )
+    {
+        Setting<Map<String,Double>> setting = GraphDatabaseSettings.pagecache_reservations;
+        try
+        {
+            Config.defaults( setting, value ).get( setting );
+            fail( "Expected page cache reservations '" + value + "' to be rejected" );
+        }
+        catch ( InvalidSettingException e )
+        {
+            // good
+        }
+    }
+
     @Test
     public void noDuplicateSettingsAreAllowed() throws Exception
     {
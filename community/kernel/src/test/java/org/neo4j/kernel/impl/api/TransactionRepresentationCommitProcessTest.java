@@ -23,6 +23,9 @@ import org.junit.Test;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.neo4j.kernel.api.exceptions.TransactionFailureException;
 import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
@@ -35,14 +38,18 @@ import org.neo4j.kernel.impl.transaction.tracing.CommitEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
 import org.neo4j.storageengine.api.StorageEngine;
 import org.neo4j.storageengine.api.TransactionApplicationMode;
+import org.neo4j.test.Race;
 
 import static org.hamcrest.CoreMatchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -138,6 +145,84 @@ public class TransactionRepresentationCommitProcessTest
         verify( transactionIdStore ).transactionCommitted( txId, FakeCommitment.CHECKSUM, FakeCommitment.TIMESTAMP );
     }
 
+    @Test
+    public void shouldCloseTransactionThatFailedToApplyInPipelinedMode() throws Exception
+    {
+        // GIVEN
+        TransactionIdStore transactionIdStore = mock( TransactionIdStore.class );
+        TransactionAppender appender = new TestableTransactionAppender( transactionIdStore );
+        long txId = 11;
+        when( transactionIdStore.nextCommittingTransactionId() ).thenReturn( txId );
+        IOException rootCause = new IOException( "Mock exception" );
+        StorageEngine storageEngine = mock( StorageEngine.class );
+        doThrow( new IOException( rootCause ) ).when( storageEngine ).apply(
+                any( TransactionToApply.class ), any( TransactionApplicationMode.class ) );
+        TransactionCommitProcess commitProcess = new TransactionRepresentationCommitProcess(
+                appender, storageEngine, true );
+
+        // WHEN
+        try
+        {
+            commitProcess.commit( mockedTransaction(), commitEvent, INTERNAL );
+            fail( "Should have failed to apply the transaction" );
+        }
+        catch ( TransactionFailureException e )
+        {
+            assertThat( e.getMessage(), containsString( "Could not apply the transaction to the store" ) );
+            assertTrue( contains( e, rootCause.getMessage(), rootCause.getClass() ) );
+        }
+
+        // THEN
+        verify( transactionIdStore, times( 1 ) ).transactionClosed( eq( txId ), anyLong(), anyLong() );
+    }
+
+    @Test
+    public void pipelinedCommitMustApplyEveryConcurrentlyCommittedTransactionExactlyOnce() throws Throwable
+    {
+        // GIVEN
+        int threads = 8;
+        int commitsPerThread = 200;
+        AtomicLong nextTxId = new AtomicLong( TransactionIdStore.BASE_TX_ID );
+        TransactionIdStore transactionIdStore = mock( TransactionIdStore.class );
+        when( transactionIdStore.nextCommittingTransactionId() ).thenAnswer( invocation -> nextTxId.incrementAndGet() );
+        TransactionAppender appender = new TestableTransactionAppender( transactionIdStore );
+        Set<Long> appliedTxIds = ConcurrentHashMap.newKeySet();
+        AtomicLong applications = new AtomicLong();
+        StorageEngine storageEngine = mock( StorageEngine.class );
+        doAnswer( invocation ->
+        {
+            applications.incrementAndGet();
+            TransactionToApply batch = invocation.getArgumentAt( 0, TransactionToApply.class );
+            while ( batch != null )
+            {
+                assertTrue( "Applied transaction " + batch.transactionId() + " twice",
+                        appliedTxIds.add( batch.transactionId() ) );
+                batch = batch.next();
+            }
+            return null;
+        } ).when( storageEngine ).apply( any( TransactionToApply.class ), any( TransactionApplicationMode.class ) );
+        TransactionCommitProcess commitProcess = new TransactionRepresentationCommitProcess(
+                appender, storageEngine, true );
+
+        // WHEN
+        Race race = new Race();
+        race.addContestants( threads, Race.throwing( () ->
+        {
+            for ( int i = 0; i < commitsPerThread; i++ )
+            {
+                TransactionToApply transaction = mockedTransaction();
+                commitProcess.commit( transaction, commitEvent, INTERNAL );
+                assertTrue( appliedTxIds.contains( transaction.transactionId() ) );
+                assertNull( transaction.next() );
+            }
+        } ) );
+        race.go();
+
+        // THEN
+        assertEquals( threads * commitsPerThread, appliedTxIds.size() );
+        assertTrue( applications.get() <= threads * commitsPerThread );
+    }
+
     private TransactionToApply mockedTransaction()
     {
         TransactionRepresentation transaction = mock( TransactionRepresentation.class );
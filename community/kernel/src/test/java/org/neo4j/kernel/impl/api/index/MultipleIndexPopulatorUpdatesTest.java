@@ -49,11 +49,11 @@ import org.neo4j.kernel.impl.store.InlineNodeLabels;
 import org.neo4j.kernel.impl.store.NeoStores;
 import org.neo4j.kernel.impl.store.NodeStore;
 import org.neo4j.kernel.impl.store.PropertyStore;
+import org.neo4j.kernel.impl.store.RecordCursor;
 import org.neo4j.kernel.impl.store.counts.CountsTracker;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
 import org.neo4j.kernel.impl.store.record.PropertyBlock;
 import org.neo4j.kernel.impl.store.record.PropertyRecord;
-import org.neo4j.kernel.impl.store.record.RecordLoad;
 import org.neo4j.kernel.impl.transaction.state.storeview.NeoStoreIndexStoreView;
 import org.neo4j.kernel.impl.transaction.state.storeview.StoreViewNodeStoreScan;
 import org.neo4j.kernel.impl.util.Listener;
@@ -65,10 +65,12 @@ import org.neo4j.values.storable.Values;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.when;
+import static org.neo4j.test.MockedNeoStores.mockedRecordCursor;
 
 @RunWith( MockitoJUnitRunner.class )
 public class MultipleIndexPopulatorUpdatesTest
@@ -99,10 +101,10 @@ public class MultipleIndexPopulatorUpdatesTest
                 .thenReturn( Registers.newDoubleLongRegister( 3, 3 ) );
         when( nodeStore.getHighestPossibleIdInUse() ).thenReturn( 20L );
         when( nodeStore.newRecord() ).thenReturn( nodeRecord );
-        when( nodeStore.getRecord( anyInt(), eq( nodeRecord ), any( RecordLoad.class ) ) ).thenAnswer(
-                new SetNodeIdRecordAnswer( nodeRecord, 1 ) );
-        when( nodeStore.getRecord( eq(7L), eq( nodeRecord ), any( RecordLoad.class ) ) ).thenAnswer( new
-                SetNodeIdRecordAnswer( nodeRecord, 7 ) );
+        RecordCursor<NodeRecord> nodeCursor = mockedRecordCursor();
+        when( nodeStore.newScanRecordCursor( nodeRecord ) ).thenReturn( nodeCursor );
+        when( nodeCursor.next( anyLong() ) ).thenAnswer( new SetNodeIdRecordAnswer( nodeRecord, 1 ) );
+        when( nodeCursor.next( eq( 7L ) ) ).thenAnswer( new SetNodeIdRecordAnswer( nodeRecord, 7 ) );
 
         ProcessListenableNeoStoreIndexView
                 storeView = new ProcessListenableNeoStoreIndexView( LockService.NO_LOCK_SERVICE, neoStores );
@@ -165,7 +167,7 @@ public class MultipleIndexPopulatorUpdatesTest
                 flippableIndexProxy, failedIndexProxyFactory, "userIndexDescription" );
     }
 
-    private static class SetNodeIdRecordAnswer implements Answer<NodeRecord>
+    private static class SetNodeIdRecordAnswer implements Answer<Boolean>
     {
         private final NodeRecord nodeRecord;
         private final long id;
@@ -177,10 +179,10 @@ public class MultipleIndexPopulatorUpdatesTest
         }
 
         @Override
-        public NodeRecord answer( InvocationOnMock invocation ) throws Throwable
+        public Boolean answer( InvocationOnMock invocation ) throws Throwable
         {
             nodeRecord.setId( id );
-            return nodeRecord;
+            return nodeRecord.inUse();
         }
     }
 
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.state;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.neo4j.kernel.impl.api.RelationshipVisitor;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class OffHeapCreatedRelationshipsTest
+{
+    private final OffHeapTxStateMemory memory = new OffHeapTxStateMemory( Long.MAX_VALUE );
+    private final OffHeapCreatedRelationships relationships =
+            new OffHeapCreatedRelationships( new OffHeapTxStateAllocation( memory ) );
+
+    @After
+    public void tearDown()
+    {
+        relationships.close();
+    }
+
+    @Test
+    public void shouldVisitAddedRelationships() throws Exception
+    {
+        // given
+        relationships.add( 10, 1, 100, 200 );
+        relationships.add( 11, 2, 101, 201 );
+
+        // then
+        assertRelationship( 10, 1, 100, 200 );
+        assertRelationship( 11, 2, 101, 201 );
+        assertFalse( relationships.contains( 12 ) );
+        assertFalse( relationships.visit( 12, failingVisitor() ) );
+        assertEquals( 2, relationships.size() );
+    }
+
+    @Test
+    public void shouldNotVisitRemovedRelationships() throws Exception
+    {
+        // given
+        relationships.add( 10, 1, 100, 200 );
+        relationships.add( 11, 2, 101, 201 );
+
+        // when
+        assertTrue( relationships.remove( 10 ) );
+
+        // then
+        assertFalse( relationships.contains( 10 ) );
+        assertFalse( relationships.remove( 10 ) );
+        assertRelationship( 11, 2, 101, 201 );
+        assertEquals( 1, relationships.size() );
+
+        // and when added again
+        relationships.add( 10, 3, 102, 202 );
+
+        // then
+        assertRelationship( 10, 3, 102, 202 );
+        assertEquals( 2, relationships.size() );
+    }
+
+    @Test
+    public void shouldKeepAllRelationshipsWhenGrowing() throws Exception
+    {
+        // given
+        int count = 100_000;
+        for ( int i = 0; i < count; i++ )
+        {
+            relationships.add( i * 7L, i % 13, i, i + 1L );
+            if ( i % 3 == 0 )
+            {
+                relationships.remove( i * 7L );
+            }
+        }
+
+        // then
+        for ( int i = 0; i < count; i++ )
+        {
+            if ( i % 3 == 0 )
+            {
+                assertFalse( relationships.contains( i * 7L ) );
+            }
+            else
+            {
+                assertRelationship( i * 7L, i % 13, i, i + 1L );
+            }
+        }
+        assertEquals( count - (count + 2) / 3, relationships.size() );
+    }
+
+    @Test
+    public void shouldRefuseToGrowBeyondMemoryBudget() throws Exception
+    {
+        // given
+        OffHeapTxStateMemory smallMemory = new OffHeapTxStateMemory( 64 * 1024 );
+        try ( OffHeapCreatedRelationships small =
+                      new OffHeapCreatedRelationships( new OffHeapTxStateAllocation( smallMemory ) ) )
+        {
+            // when
+            int added = 0;
+            try
+            {
+                while ( true )
+                {
+                    small.add( added, 0, added, added );
+                    added++;
+                }
+            }
+            catch ( OffHeapTxStateMemoryExhaustedException e )
+            {
+                assertThat( e.getMessage(), containsString( "dbms.tx_state.max_off_heap_memory" ) );
+            }
+
+            // then
+            assertTrue( added > 0 );
+            assertTrue( smallMemory.usedBytes() <= smallMemory.maxBytes() );
+            for ( int i = 0; i < added; i++ )
+            {
+                assertTrue( small.contains( i ) );
+            }
+        }
+        assertEquals( 0, smallMemory.usedBytes() );
+    }
+
+    @Test
+    public void shouldReleaseMemoryOnClose() throws Exception
+    {
+        // given
+        relationships.add( 1, 0, 2, 3 );
+        assertTrue( memory.usedBytes() > 0 );
+
+        // when
+        relationships.close();
+
+        // then
+        assertEquals( 0, memory.usedBytes() );
+        assertFalse( relationships.contains( 1 ) );
+    }
+
+    private void assertRelationship( long id, int type, long startNode, long endNode )
+    {
+        assertTrue( relationships.contains( id ) );
+        assertTrue( relationships.visit( id, ( relId, relType, start, end ) ->
+        {
+            assertEquals( id, relId );
+            assertEquals( type, relType );
+            assertEquals( startNode, start );
+            assertEquals( endNode, end );
+        } ) );
+    }
+
+    private static RelationshipVisitor<RuntimeException> failingVisitor()
+    {
+        return ( relId, relType, start, end ) ->
+        {
+            throw new AssertionError( "Should not visit " + relId );
+        };
+    }
+}
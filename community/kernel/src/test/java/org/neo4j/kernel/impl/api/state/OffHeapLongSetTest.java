@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.state;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.neo4j.collection.primitive.PrimitiveLongCollections.asArray;
+
+public class OffHeapLongSetTest
+{
+    private final OffHeapTxStateMemory memory = new OffHeapTxStateMemory( Long.MAX_VALUE );
+    private final OffHeapLongSet set = new OffHeapLongSet( new OffHeapTxStateAllocation( memory ) );
+
+    @After
+    public void tearDown()
+    {
+        set.close();
+    }
+
+    @Test
+    public void shouldAddAndRemoveValues() throws Exception
+    {
+        // when
+        assertTrue( set.add( 10 ) );
+        assertTrue( set.add( 0 ) );
+        assertFalse( set.add( 10 ) );
+        assertTrue( set.remove( 0 ) );
+        assertFalse( set.remove( 0 ) );
+        assertFalse( set.remove( 11 ) );
+
+        // then
+        assertTrue( set.contains( 10 ) );
+        assertFalse( set.contains( 0 ) );
+        assertEquals( 1, set.size() );
+        assertTrue( memory.usedBytes() > 0 );
+    }
+
+    @Test
+    public void shouldNotAllocateAnythingUntilFirstAdd() throws Exception
+    {
+        // when
+        assertFalse( set.contains( 1 ) );
+        assertFalse( set.remove( 1 ) );
+
+        // then
+        assertTrue( set.isEmpty() );
+        assertFalse( set.iterator().hasNext() );
+        assertEquals( 0, memory.usedBytes() );
+    }
+
+    @Test
+    public void shouldIterateInInsertionOrder() throws Exception
+    {
+        // given
+        set.add( 5 );
+        set.add( 3 );
+        set.add( 9 );
+        set.remove( 3 );
+        set.add( 3 );
+
+        // then
+        assertArrayEquals( new long[]{5, 9, 3}, asArray( set.iterator() ) );
+    }
+
+    @Test
+    public void shouldKeepAllValuesWhenGrowing() throws Exception
+    {
+        // given
+        int count = 100_000;
+        for ( int i = 0; i < count; i++ )
+        {
+            set.add( i * 7L );
+            if ( i % 3 == 0 )
+            {
+                set.remove( i * 7L );
+            }
+        }
+
+        // then
+        assertEquals( count - (count + 2) / 3, set.size() );
+        for ( int i = 0; i < count; i++ )
+        {
+            assertEquals( i % 3 != 0, set.contains( i * 7L ) );
+        }
+        List<Long> visited = new ArrayList<>();
+        set.visitKeys( value -> !visited.add( value ) );
+        assertEquals( set.size(), visited.size() );
+    }
+
+    @Test
+    public void iteratorShouldSkipRemovedButNotSeeAddedValues() throws Exception
+    {
+        // given
+        set.add( 1 );
+        set.add( 2 );
+        set.add( 3 );
+        PrimitiveLongIterator iterator = set.iterator();
+        assertEquals( 1, iterator.next() );
+
+        // when
+        set.remove( 2 );
+        set.add( 4 );
+        for ( long value = 100; value < 200; value++ )
+        {
+            set.add( value );
+        }
+
+        // then
+        assertEquals( 3, iterator.next() );
+        assertFalse( iterator.hasNext() );
+    }
+
+    @Test
+    public void shouldRejectNegativeValues() throws Exception
+    {
+        try
+        {
+            set.add( -1 );
+            fail( "Should not accept negative values" );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            // then good
+        }
+    }
+
+    @Test
+    public void shouldClear() throws Exception
+    {
+        // given
+        set.add( 1 );
+        set.add( 2 );
+
+        // when
+        set.clear();
+
+        // then
+        assertTrue( set.isEmpty() );
+        assertFalse( set.contains( 1 ) );
+        assertFalse( set.iterator().hasNext() );
+        assertTrue( set.add( 2 ) );
+    }
+
+    @Test
+    public void shouldChangeThroughSetView() throws Exception
+    {
+        // given
+        Set<Long> view = set.asSet();
+
+        // when
+        view.add( 1L );
+        view.add( 2L );
+        view.add( 3L );
+        view.remove( 2L );
+        view.removeIf( value -> value == 3L );
+
+        // then
+        assertEquals( new HashSet<>( asList( 1L ) ), view );
+        assertTrue( set.contains( 1 ) );
+        assertFalse( set.contains( 3 ) );
+        assertFalse( view.contains( "1" ) );
+    }
+
+    @Test
+    public void shouldRefuseToGrowBeyondMemoryBudgetAndReleaseMemoryOnClose() throws Exception
+    {
+        // given
+        OffHeapTxStateMemory smallMemory = new OffHeapTxStateMemory( 4 * 1024 );
+        try ( OffHeapLongSet small = new OffHeapLongSet( new OffHeapTxStateAllocation( smallMemory ) ) )
+        {
+            // when
+            int added = 0;
+            try
+            {
+                while ( true )
+                {
+                    small.add( added );
+                    added++;
+                }
+            }
+            catch ( OffHeapTxStateMemoryExhaustedException e )
+            {
+                // then good
+            }
+
+            // then
+            assertTrue( added > 0 );
+            assertTrue( smallMemory.usedBytes() <= smallMemory.maxBytes() );
+            for ( int i = 0; i < added; i++ )
+            {
+                assertTrue( small.contains( i ) );
+            }
+        }
+        assertEquals( 0, smallMemory.usedBytes() );
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.state;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+
+import org.neo4j.kernel.api.exceptions.Status;
+import org.neo4j.kernel.impl.api.RelationshipVisitor;
+import org.neo4j.storageengine.api.Direction;
+import org.neo4j.storageengine.api.StorageProperty;
+import org.neo4j.storageengine.api.txstate.RelationshipState;
+import org.neo4j.storageengine.api.txstate.TxStateVisitor;
+import org.neo4j.values.storable.Values;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.neo4j.collection.primitive.PrimitiveLongCollections.toSet;
+
+public class OffHeapTxStateTest
+{
+    private final OffHeapTxStateMemory memory = new OffHeapTxStateMemory( Long.MAX_VALUE );
+    private final TxState state = new TxState( memory );
+
+    @After
+    public void tearDown()
+    {
+        state.close();
+    }
+
+    @Test
+    public void shouldKeepCreatedRelationshipsOffHeap() throws Exception
+    {
+        // when
+        state.relationshipDoCreate( 10, 1, 100, 200 );
+
+        // then
+        assertTrue( memory.usedBytes() > 0 );
+        assertFalse( state.modifiedRelationships().iterator().hasNext() );
+        assertTrue( state.relationshipIsAddedInThisTx( 10 ) );
+        assertTrue( state.relationshipVisit( 10, ( id, type, start, end ) ->
+        {
+            assertEquals( 1, type );
+            assertEquals( 100, start );
+            assertEquals( 200, end );
+        } ) );
+    }
+
+    @Test
+    public void shouldCombineOffHeapRelationshipWithItsPropertyChanges() throws Exception
+    {
+        // given
+        state.relationshipDoCreate( 10, 1, 100, 200 );
+
+        // when
+        state.relationshipDoReplaceProperty( 10, 5, Values.NO_VALUE, Values.of( "value" ) );
+
+        // then
+        RelationshipState relationshipState = state.getRelationshipState( 10 );
+        assertEquals( 10, relationshipState.getId() );
+        RelationshipVisitor<RuntimeException> visitor = ( id, type, start, end ) -> assertEquals( 100, start );
+        assertTrue( relationshipState.accept( visitor ) );
+        assertEquals( Values.of( "value" ), relationshipState.getAddedProperty( 5 ).value() );
+    }
+
+    @Test
+    public void shouldVisitOffHeapRelationshipsOnCommit() throws Exception
+    {
+        // given
+        state.relationshipDoCreate( 10, 1, 100, 200 );
+        state.relationshipDoCreate( 11, 2, 101, 201 );
+        state.relationshipDoReplaceProperty( 11, 5, Values.NO_VALUE, Values.of( 42 ) );
+
+        // when
+        List<Long> created = new ArrayList<>();
+        List<Long> propertyChanges = new ArrayList<>();
+        state.accept( new TxStateVisitor.Adapter()
+        {
+            @Override
+            public void visitCreatedRelationship( long id, int type, long startNode, long endNode )
+            {
+                created.add( id );
+            }
+
+            @Override
+            public void visitRelPropertyChanges( long id, Iterator<StorageProperty> added,
+                    Iterator<StorageProperty> changed, Iterator<Integer> removed )
+            {
+                propertyChanges.add( id );
+            }
+        } );
+
+        // then
+        created.sort( Long::compare );
+        assertEquals( asList( 10L, 11L ), created );
+        assertEquals( singletonList( 11L ), propertyChanges );
+    }
+
+    @Test
+    public void shouldDeleteOffHeapRelationshipCreatedInThisTx() throws Exception
+    {
+        // given
+        state.relationshipDoCreate( 10, 1, 100, 200 );
+
+        // when
+        state.relationshipDoDeleteAddedInThisTx( 10 );
+
+        // then
+        assertFalse( state.relationshipIsAddedInThisTx( 10 ) );
+        assertTrue( state.relationshipIsDeletedInThisTx( 10 ) );
+        assertFalse( state.relationshipVisit( 10, ( id, type, start, end ) ->
+        {
+            throw new AssertionError( "Should not visit deleted relationship" );
+        } ) );
+        assertEquals( 0, state.getNodeState( 100 ).augmentDegree( Direction.BOTH, 0 ) );
+    }
+
+    @Test
+    public void shouldKeepNodeAndRelationshipChangesOffHeap() throws Exception
+    {
+        // given
+        state.nodeDoCreate( 100 );
+        state.nodeDoCreate( 101 );
+        state.relationshipDoCreate( 10, 1, 100, 200 );
+        state.relationshipDoCreate( 11, 1, 101, 100 );
+
+        // when
+        state.nodeDoDelete( 101 );
+        state.nodeDoDelete( 300 );
+        state.relationshipDoDelete( 20, 1, 100, 400 );
+
+        // then
+        assertEquals( singleton( 100L ), state.addedAndRemovedNodes().getAdded() );
+        assertEquals( singleton( 300L ), state.addedAndRemovedNodes().getRemoved() );
+        assertTrue( state.nodeIsDeletedInThisTx( 300 ) );
+        assertEquals( new HashSet<>( asList( 10L, 11L ) ), state.addedAndRemovedRelationships().getAdded() );
+        assertTrue( state.relationshipIsDeletedInThisTx( 20 ) );
+        assertEquals( new HashSet<>( asList( 10L, 11L ) ),
+                toSet( state.getNodeState( 100 ).getAddedRelationships( Direction.BOTH ) ) );
+        assertEquals( 1, state.getNodeState( 100 ).augmentDegree( Direction.OUTGOING, 1 ) );
+        assertEquals( 0, state.getNodeState( 200 ).augmentDegree( Direction.OUTGOING, 0 ) );
+        assertEquals( 1, state.getNodeState( 200 ).augmentDegree( Direction.INCOMING, 0 ) );
+    }
+
+    @Test
+    public void shouldFailWhenOffHeapMemoryIsUsedUp() throws Exception
+    {
+        // given
+        TxState smallState = new TxState( new OffHeapTxStateMemory( 0 ) );
+        try
+        {
+            // when
+            try
+            {
+                smallState.nodeDoCreate( 100 );
+                fail( "Should have run out of off-heap memory" );
+            }
+            catch ( OffHeapTxStateMemoryExhaustedException e )
+            {
+                assertThat( e.getMessage(), containsString( "dbms.tx_state.max_off_heap_memory" ) );
+                assertEquals( Status.Transaction.OffHeapMemoryExhausted, e.status() );
+            }
+
+            // then
+            try
+            {
+                smallState.accept( new TxStateVisitor.Adapter() );
+                fail( "Should not commit state that ran out of off-heap memory" );
+            }
+            catch ( OffHeapTxStateMemoryExhaustedException e )
+            {
+                assertThat( e.getCause(), instanceOf( OffHeapTxStateMemoryExhaustedException.class ) );
+            }
+        }
+        finally
+        {
+            smallState.close();
+        }
+    }
+
+    @Test
+    public void shouldReleaseOffHeapMemoryOnClose() throws Exception
+    {
+        // given
+        state.nodeDoCreate( 100 );
+        state.nodeDoDelete( 300 );
+        state.relationshipDoCreate( 10, 1, 100, 200 );
+
+        // when
+        state.close();
+
+        // then
+        assertEquals( 0, memory.usedBytes() );
+    }
+}
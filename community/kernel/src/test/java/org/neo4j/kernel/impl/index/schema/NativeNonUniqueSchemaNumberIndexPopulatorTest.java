@@ -31,21 +31,24 @@ import org.neo4j.kernel.api.index.IndexUpdater;
 import org.neo4j.kernel.api.schema.index.IndexDescriptor;
 import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingConfig;
 import org.neo4j.storageengine.api.schema.IndexSample;
+import org.neo4j.values.storable.Value;
 import org.neo4j.values.storable.Values;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.neo4j.helpers.ArrayUtil.array;
 import static org.neo4j.kernel.impl.index.schema.LayoutTestUtil.countUniqueValues;
 
 public class NativeNonUniqueSchemaNumberIndexPopulatorTest
-        extends NativeSchemaNumberIndexPopulatorTest<SchemaNumberKey,SchemaNumberValue>
+        extends NativeSchemaNumberIndexPopulatorTest<SchemaNumberKey,NativeSchemaValue>
 {
     @Override
-    NativeSchemaNumberIndexPopulator<SchemaNumberKey,SchemaNumberValue> createPopulator( PageCache pageCache, File indexFile,
-            Layout<SchemaNumberKey,SchemaNumberValue> layout, IndexSamplingConfig samplingConfig )
+    NativeSchemaIndexPopulator<SchemaNumberKey,NativeSchemaValue> createPopulator( PageCache pageCache, File indexFile,
+            Layout<SchemaNumberKey,NativeSchemaValue> layout, IndexSamplingConfig samplingConfig )
     {
-        return new NativeNonUniqueSchemaNumberIndexPopulator<>( pageCache, indexFile, layout, samplingConfig );
+        return new NativeNonUniqueSchemaIndexPopulator<>( pageCache, indexFile, layout, samplingConfig );
     }
 
     @Test
@@ -83,6 +86,53 @@ public class NativeNonUniqueSchemaNumberIndexPopulatorTest
         verifyUpdates( updates );
     }
 
+    @Test
+    public void updaterShouldApplyUpdatesToEntriesAddedBeforeThem() throws Exception
+    {
+        // given
+        populator.create();
+        IndexEntryUpdate<IndexDescriptor>[] updates = layoutUtil.someUpdates();
+        populator.add( Arrays.asList( updates ) );
+
+        // when
+        IndexEntryUpdate<IndexDescriptor> removed = updates[0];
+        IndexEntryUpdate<IndexDescriptor> changed = updates[1];
+        Value changedValue = Values.of( 123_456_789 );
+        try ( IndexUpdater updater = populator.newPopulatingUpdater( null_property_accessor ) )
+        {
+            updater.process( IndexEntryUpdate.remove( removed.getEntityId(), indexDescriptor, removed.values() ) );
+            updater.process( IndexEntryUpdate.change( changed.getEntityId(), indexDescriptor,
+                    changed.values()[0], changedValue ) );
+        }
+
+        // then
+        populator.close( true );
+        IndexEntryUpdate<IndexDescriptor>[] expected = Arrays.copyOfRange( updates, 1, updates.length );
+        expected[0] = layoutUtil.add( changed.getEntityId(), changedValue );
+        verifyUpdates( expected );
+    }
+
+    @Test
+    @SuppressWarnings( "unchecked" )
+    public void updaterShouldSpillUpdatesDeferredUntilBulkLoadToDisk() throws Exception
+    {
+        // given
+        populator.create();
+        File sortDirectory = NativeSchemaIndexPopulator.sortDirectory( indexFile );
+
+        // when
+        try ( IndexUpdater updater = populator.newPopulatingUpdater( null_property_accessor ) )
+        {
+            updater.process( layoutUtil.add( 1, Values.of( 1 ) ) );
+        }
+
+        // then
+        assertTrue( fs.fileExists( new File( sortDirectory, "deferred-updates" ) ) );
+        populator.close( true );
+        assertFalse( fs.fileExists( sortDirectory ) );
+        verifyUpdates( array( layoutUtil.add( 1, Values.of( 1 ) ) ) );
+    }
+
     @Test
     public void shouldFailOnSampleBeforeConfiguredSampling() throws Exception
     {
@@ -152,7 +202,7 @@ public class NativeNonUniqueSchemaNumberIndexPopulatorTest
     }
 
     @Override
-    protected LayoutTestUtil<SchemaNumberKey,SchemaNumberValue> createLayoutTestUtil()
+    protected LayoutTestUtil<SchemaNumberKey,NativeSchemaValue> createLayoutTestUtil()
     {
         return new NonUniqueLayoutTestUtil();
     }
@@ -0,0 +1,311 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.neo4j.collection.primitive.PrimitiveLongCollections;
+import org.neo4j.index.internal.gbptree.Layout;
+import org.neo4j.index.internal.gbptree.MetadataMismatchException;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.api.exceptions.index.IndexEntryConflictException;
+import org.neo4j.kernel.api.index.IndexEntryUpdate;
+import org.neo4j.kernel.api.index.IndexUpdater;
+import org.neo4j.kernel.api.schema.IndexQuery;
+import org.neo4j.kernel.api.schema.index.IndexDescriptor;
+import org.neo4j.kernel.api.schema.index.IndexDescriptorFactory;
+import org.neo4j.storageengine.api.schema.IndexReader;
+import org.neo4j.test.rule.PageCacheRule;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.test.rule.fs.DefaultFileSystemRule;
+import org.neo4j.values.storable.Value;
+import org.neo4j.values.storable.Values;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.junit.rules.RuleChain.outerRule;
+import static org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector.IMMEDIATE;
+import static org.neo4j.kernel.api.index.IndexEntryUpdate.change;
+import static org.neo4j.kernel.api.index.IndexEntryUpdate.remove;
+import static org.neo4j.kernel.impl.api.index.IndexUpdateMode.ONLINE;
+import static org.neo4j.test.rule.PageCacheRule.config;
+
+/**
+ * Tests for
+ * <ul>
+ * <li>{@link NativeSchemaCompositeNumberIndexAccessor}</li>
+ * <li>{@link NativeSchemaCompositeNumberIndexReader}</li>
+ * <li>{@link CompositeNumberLayout}</li>
+ * </ul>
+ */
+public class NativeSchemaCompositeNumberIndexAccessorTest
+{
+    private static final int PROP_KEY_1 = 666;
+    private static final int PROP_KEY_2 = 667;
+    private static final int PROP_KEY_3 = 668;
+
+    private final DefaultFileSystemRule fs = new DefaultFileSystemRule();
+    private final TestDirectory directory = TestDirectory.testDirectory( getClass(), fs.get() );
+    private final PageCacheRule pageCacheRule = new PageCacheRule( config().withAccessChecks( true ) );
+    @Rule
+    public final RuleChain rules = outerRule( fs ).around( directory ).around( pageCacheRule );
+
+    private final IndexDescriptor descriptor = IndexDescriptorFactory.forLabel( 42, PROP_KEY_1, PROP_KEY_2 );
+    private final IndexDescriptor uniqueDescriptor = IndexDescriptorFactory.uniqueForLabel( 42, PROP_KEY_1, PROP_KEY_2 );
+    private final IndexDescriptor threePropertyDescriptor =
+            IndexDescriptorFactory.forLabel( 42, PROP_KEY_1, PROP_KEY_2, PROP_KEY_3 );
+    private PageCache pageCache;
+    private File indexFile;
+    private NativeSchemaCompositeNumberIndexAccessor<NativeSchemaValue> accessor;
+
+    @Before
+    public void setup()
+    {
+        pageCache = pageCacheRule.getPageCache( fs );
+        indexFile = directory.file( "index" );
+    }
+
+    @After
+    public void closeAccessor() throws IOException
+    {
+        if ( accessor != null )
+        {
+            accessor.close();
+        }
+    }
+
+    @Test
+    public void shouldFindExactMatches() throws Exception
+    {
+        // given
+        openAccessor( new NonUniqueCompositeNumberLayout( 2 ) );
+        processAll( add( descriptor, 0, 1, 10 ), add( descriptor, 1, 1, 20 ), add( descriptor, 2, 2, 10 ),
+                add( descriptor, 3, 1, 10 ), add( descriptor, 4, 1, 10.0 ), add( descriptor, 5, 10, 1 ) );
+
+        // then
+        assertQuery( exact( PROP_KEY_1, 1 ), exact( PROP_KEY_2, 10 ), 0, 3, 4 );
+        assertQuery( exact( PROP_KEY_1, 10 ), exact( PROP_KEY_2, 1 ), 5 );
+        assertQuery( exact( PROP_KEY_1, 2 ), exact( PROP_KEY_2, 20 ) );
+    }
+
+    @Test
+    public void shouldFindRangeMatchesOnLastPropertyAfterExactMatch() throws Exception
+    {
+        // given
+        openAccessor( new NonUniqueCompositeNumberLayout( 2 ) );
+        processAll( add( descriptor, 0, 1, 5 ), add( descriptor, 1, 1, 10 ), add( descriptor, 2, 1, 15.5 ),
+                add( descriptor, 3, 2, 10 ), add( descriptor, 4, 0, 10 ), add( descriptor, 5, 1, 20 ) );
+
+        // then
+        assertQuery( exact( PROP_KEY_1, 1 ), IndexQuery.range( PROP_KEY_2, 10, true, 15.5, true ), 1, 2 );
+        assertQuery( exact( PROP_KEY_1, 1 ), IndexQuery.range( PROP_KEY_2, 10, false, 20, false ), 2 );
+        assertQuery( exact( PROP_KEY_1, 1 ), IndexQuery.range( PROP_KEY_2, null, false, 10, true ), 0, 1 );
+        assertQuery( exact( PROP_KEY_1, 1 ), IndexQuery.range( PROP_KEY_2, 15, true, null, false ), 2, 5 );
+        assertQuery( exact( PROP_KEY_1, 1 ), IndexQuery.exists( PROP_KEY_2 ), 0, 1, 2, 5 );
+        assertQuery( exact( PROP_KEY_1, 3 ), IndexQuery.range( PROP_KEY_2, (Number) null, false, null, false ) );
+    }
+
+    @Test
+    public void shouldFindRangeMatchesFollowedByExists() throws Exception
+    {
+        // given
+        openAccessor( new NonUniqueCompositeNumberLayout( 3 ) );
+        processAll( add( threePropertyDescriptor, 0, 1, 1, 1 ), add( threePropertyDescriptor, 1, 1, 2, -5 ),
+                add( threePropertyDescriptor, 2, 1, 2, 7.5 ), add( threePropertyDescriptor, 3, 1, 3, 0 ),
+                add( threePropertyDescriptor, 4, 2, 2, 2 ) );
+
+        // then
+        assertQuery( exact( PROP_KEY_1, 1 ), IndexQuery.range( PROP_KEY_2, 2, true, 3, false ),
+                IndexQuery.exists( PROP_KEY_3 ), 1, 2 );
+        assertQuery( exact( PROP_KEY_1, 1 ), IndexQuery.range( PROP_KEY_2, 1, false, 2, true ),
+                IndexQuery.exists( PROP_KEY_3 ), 1, 2 );
+        assertQuery( exact( PROP_KEY_1, 1 ), IndexQuery.range( PROP_KEY_2, 1, true, 2, false ),
+                IndexQuery.exists( PROP_KEY_3 ), 0 );
+        assertQuery( IndexQuery.exists( PROP_KEY_1 ), IndexQuery.exists( PROP_KEY_2 ),
+                IndexQuery.exists( PROP_KEY_3 ), 0, 1, 2, 3, 4 );
+    }
+
+    @Test
+    public void shouldScanAllEntriesForExistsOnSomeOfTheProperties() throws Exception
+    {
+        // given
+        openAccessor( new NonUniqueCompositeNumberLayout( 2 ) );
+        processAll( add( descriptor, 0, 1, 1 ), add( descriptor, 1, 2, 1 ), add( descriptor, 2, -1, 3.5 ) );
+
+        // then
+        assertQuery( new IndexQuery[]{IndexQuery.exists( PROP_KEY_1 )}, 0, 1, 2 );
+        assertQuery( new IndexQuery[]{IndexQuery.exists( PROP_KEY_2 )}, 0, 1, 2 );
+    }
+
+    @Test
+    public void shouldNotSupportQueriesWhichAreNotOneRangeOfKeys() throws Exception
+    {
+        // given
+        openAccessor( new NonUniqueCompositeNumberLayout( 2 ) );
+
+        // then
+        try ( IndexReader reader = accessor.newReader() )
+        {
+            try
+            {
+                reader.query( IndexQuery.range( PROP_KEY_1, 1, true, 2, true ), exact( PROP_KEY_2, 1 ) );
+                fail( "Should have failed" );
+            }
+            catch ( IllegalArgumentException e )
+            {
+                // then good
+            }
+            try
+            {
+                reader.query( exact( PROP_KEY_1, 1 ) );
+                fail( "Should have failed" );
+            }
+            catch ( IllegalArgumentException e )
+            {
+                // then
+                assertThat( e.getMessage(), containsString( "[exact]" ) );
+            }
+        }
+    }
+
+    @Test
+    public void shouldHandleChangeAndRemove() throws Exception
+    {
+        // given
+        openAccessor( new NonUniqueCompositeNumberLayout( 2 ) );
+        processAll( add( descriptor, 0, 1, 1 ), add( descriptor, 1, 1, 2 ) );
+
+        // when
+        processAll( change( 0, descriptor, values( 1, 1 ), values( 1, 3 ) ), remove( 1, descriptor, values( 1, 2 ) ) );
+
+        // then
+        assertQuery( exact( PROP_KEY_1, 1 ), IndexQuery.exists( PROP_KEY_2 ), 0 );
+        assertQuery( exact( PROP_KEY_1, 1 ), exact( PROP_KEY_2, 1 ) );
+        assertQuery( exact( PROP_KEY_1, 1 ), exact( PROP_KEY_2, 3 ), 0 );
+    }
+
+    @Test
+    public void shouldDetectUniquenessConflictOfAllValues() throws Exception
+    {
+        // given
+        openAccessor( new UniqueCompositeNumberLayout( 2 ) );
+        processAll( add( uniqueDescriptor, 0, 1, 2 ), add( uniqueDescriptor, 1, 1, 3 ) );
+
+        // when
+        try
+        {
+            processAll( add( uniqueDescriptor, 2, 1, 2.0 ) );
+            fail( "Should have failed" );
+        }
+        catch ( IndexEntryConflictException e )
+        {
+            // then good
+        }
+    }
+
+    @Test
+    public void shouldNotOpenIndexWithOtherNumberOfProperties() throws Exception
+    {
+        // given
+        openAccessor( new NonUniqueCompositeNumberLayout( 2 ) );
+        accessor.close();
+        accessor = null;
+
+        // when
+        try
+        {
+            openAccessor( new NonUniqueCompositeNumberLayout( 3 ) );
+            fail( "Should have failed" );
+        }
+        catch ( MetadataMismatchException e )
+        {
+            // then good
+        }
+    }
+
+    private void openAccessor( Layout<CompositeSchemaNumberKey,NativeSchemaValue> layout ) throws IOException
+    {
+        accessor = new NativeSchemaCompositeNumberIndexAccessor<>( pageCache, indexFile, layout, IMMEDIATE );
+    }
+
+    @SafeVarargs
+    private final void processAll( IndexEntryUpdate<IndexDescriptor>... updates )
+            throws IOException, IndexEntryConflictException
+    {
+        try ( IndexUpdater updater = accessor.newUpdater( ONLINE ) )
+        {
+            for ( IndexEntryUpdate<IndexDescriptor> update : updates )
+            {
+                updater.process( update );
+            }
+        }
+    }
+
+    private static IndexEntryUpdate<IndexDescriptor> add( IndexDescriptor descriptor, long nodeId, Number... values )
+    {
+        return IndexEntryUpdate.add( nodeId, descriptor, values( values ) );
+    }
+
+    private static Value[] values( Number... numbers )
+    {
+        Value[] values = new Value[numbers.length];
+        for ( int i = 0; i < numbers.length; i++ )
+        {
+            values[i] = Values.numberValue( numbers[i] );
+        }
+        return values;
+    }
+
+    private static IndexQuery exact( int propertyKeyId, Number value )
+    {
+        return IndexQuery.exact( propertyKeyId, value );
+    }
+
+    private void assertQuery( IndexQuery first, IndexQuery second, long... expectedNodeIds ) throws Exception
+    {
+        assertQuery( new IndexQuery[]{first, second}, expectedNodeIds );
+    }
+
+    private void assertQuery( IndexQuery first, IndexQuery second, IndexQuery third, long... expectedNodeIds )
+            throws Exception
+    {
+        assertQuery( new IndexQuery[]{first, second, third}, expectedNodeIds );
+    }
+
+    private void assertQuery( IndexQuery[] query, long... expectedNodeIds ) throws Exception
+    {
+        try ( IndexReader reader = accessor.newReader() )
+        {
+            long[] actual = PrimitiveLongCollections.asArray( reader.query( query ) );
+            Arrays.sort( actual );
+            assertArrayEquals( Arrays.toString( query ), expectedNodeIds, actual );
+        }
+    }
+}
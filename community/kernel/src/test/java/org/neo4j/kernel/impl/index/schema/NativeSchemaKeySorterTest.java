@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.kernel.api.index.IndexEntryUpdate;
+import org.neo4j.kernel.api.schema.index.IndexDescriptor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NativeSchemaKeySorterTest extends SchemaNumberIndexTestUtil<SchemaNumberKey,NativeSchemaValue>
+{
+    private static final int MERGE_FAN_IN = 4;
+
+    @Test
+    public void shouldSortKeysInMemory() throws Exception
+    {
+        shouldSortKeys( 1_000, bytesOfKeys( 10_000 ) );
+    }
+
+    @Test
+    public void shouldSortKeysSpillingToDisk() throws Exception
+    {
+        shouldSortKeys( 200, bytesOfKeys( 99 ) );
+    }
+
+    @Test
+    public void shouldSortKeysMergingRunsInMultiplePasses() throws Exception
+    {
+        shouldSortKeys( 10_000, bytesOfKeys( 99 ) );
+    }
+
+    @Test
+    public void shouldSpillRunsWhenBufferedKeysReachBufferBytes() throws Exception
+    {
+        try ( NativeSchemaKeySorter<SchemaNumberKey> sorter = newSorter( bytesOfKeys( 10 ) ) )
+        {
+            // when
+            addKeys( sorter, 100 );
+
+            // then
+            assertEquals( 9, sorter.numberOfRuns() );
+        }
+    }
+
+    @Test
+    public void shouldNotMergeMoreRunsThanMergeFanInAtOnce() throws Exception
+    {
+        try ( NativeSchemaKeySorter<SchemaNumberKey> sorter = newSorter( bytesOfKeys( 10 ) ) )
+        {
+            // given
+            addKeys( sorter, 100 );
+
+            // when
+            sorter.sorted().close();
+
+            // then
+            assertTrue( sorter.numberOfRuns() < MERGE_FAN_IN );
+        }
+    }
+
+    @Test
+    public void shouldSortNoKeys() throws Exception
+    {
+        try ( NativeSchemaKeySorter<SchemaNumberKey> sorter = newSorter( bytesOfKeys( 10 ) );
+              RawCursor<SchemaNumberKey,IOException> sorted = sorter.sorted() )
+        {
+            assertFalse( sorted.next() );
+        }
+    }
+
+    @Test
+    public void shouldDeleteSortedRunsOnClose() throws Exception
+    {
+        // given
+        try ( NativeSchemaKeySorter<SchemaNumberKey> sorter = newSorter( bytesOfKeys( 10 ) ) )
+        {
+            addKeys( sorter, 100 );
+            assertTrue( sortedRuns().length > 0 );
+        }
+
+        // then
+        assertEquals( 0, sortedRuns().length );
+        assertFalse( fs.fileExists( sortDirectory() ) );
+    }
+
+    @Test( expected = IllegalStateException.class )
+    public void shouldNotAcceptKeysAfterSorting() throws Exception
+    {
+        try ( NativeSchemaKeySorter<SchemaNumberKey> sorter = newSorter( bytesOfKeys( 10 ) ) )
+        {
+            sorter.sorted().close();
+            sorter.add( layout.newKey() );
+        }
+    }
+
+    private void shouldSortKeys( int count, long bufferBytes ) throws IOException
+    {
+        // given
+        List<SchemaNumberKey> expected;
+        List<SchemaNumberKey> actual = new ArrayList<>();
+        try ( NativeSchemaKeySorter<SchemaNumberKey> sorter = newSorter( bufferBytes ) )
+        {
+            expected = addKeys( sorter, count );
+
+            // when
+            try ( RawCursor<SchemaNumberKey,IOException> sorted = sorter.sorted() )
+            {
+                while ( sorted.next() )
+                {
+                    SchemaNumberKey key = layout.newKey();
+                    layout.copyKey( sorted.get(), key );
+                    actual.add( key );
+                }
+            }
+        }
+
+        // then
+        expected.sort( layout );
+        assertEquals( expected.size(), actual.size() );
+        for ( int i = 0; i < expected.size(); i++ )
+        {
+            assertEquals( 0, layout.compare( expected.get( i ), actual.get( i ) ) );
+        }
+    }
+
+    private List<SchemaNumberKey> addKeys( NativeSchemaKeySorter<SchemaNumberKey> sorter, int count ) throws IOException
+    {
+        List<SchemaNumberKey> keys = new ArrayList<>();
+        Iterator<IndexEntryUpdate<IndexDescriptor>> updates = layoutUtil.randomUpdateGenerator( random );
+        for ( int i = 0; i < count; i++ )
+        {
+            IndexEntryUpdate<IndexDescriptor> update = updates.next();
+            SchemaNumberKey key = layout.newKey();
+            key.from( update.getEntityId(), update.values() );
+            sorter.add( key );
+            keys.add( key );
+        }
+        return keys;
+    }
+
+    private NativeSchemaKeySorter<SchemaNumberKey> newSorter( long bufferBytes )
+    {
+        return new NativeSchemaKeySorter<>( fs, sortDirectory(), layout, bufferBytes, MERGE_FAN_IN );
+    }
+
+    private long bytesOfKeys( int count )
+    {
+        return (long) count * (layout.keySize( layout.newKey() ) + NativeSchemaKeySorter.KEY_OVERHEAD_BYTES);
+    }
+
+    private File sortDirectory()
+    {
+        return NativeSchemaIndexPopulator.sortDirectory( indexFile );
+    }
+
+    private File[] sortedRuns()
+    {
+        File[] runs = fs.listFiles( sortDirectory() );
+        return runs == null ? new File[0] : runs;
+    }
+
+    @Override
+    protected LayoutTestUtil<SchemaNumberKey,NativeSchemaValue> createLayoutTestUtil()
+    {
+        return new NonUniqueLayoutTestUtil();
+    }
+}
@@ -72,11 +72,11 @@ import static org.neo4j.values.storable.Values.of;
  * Tests for
  * <ul>
  * <li>{@link NativeSchemaNumberIndexAccessor}</li>
- * <li>{@link NativeSchemaNumberIndexUpdater}</li>
+ * <li>{@link NativeSchemaIndexUpdater}</li>
  * <li>{@link NativeSchemaNumberIndexReader}</li>
  * </ul>
  */
-public abstract class NativeSchemaNumberIndexAccessorTest<KEY extends SchemaNumberKey, VALUE extends SchemaNumberValue>
+public abstract class NativeSchemaNumberIndexAccessorTest<KEY extends SchemaNumberKey, VALUE extends NativeSchemaValue>
         extends SchemaNumberIndexTestUtil<KEY,VALUE>
 {
     private NativeSchemaNumberIndexAccessor<KEY,VALUE> accessor;
@@ -466,22 +466,29 @@ public abstract class NativeSchemaNumberIndexAccessorTest<KEY extends SchemaNumb
     }
 
     @Test
-    public void requestForSecondUpdaterMustThrow() throws Exception
+    public void shouldAllowMultipleUpdatersAtTheSameTime() throws Exception
     {
         // given
-        try ( IndexUpdater ignored = accessor.newUpdater( ONLINE ) )
+        IndexEntryUpdate<IndexDescriptor>[] updates = layoutUtil.someUpdates();
+        int half = updates.length / 2;
+        try ( IndexUpdater firstUpdater = accessor.newUpdater( ONLINE );
+              IndexUpdater secondUpdater = accessor.newUpdater( ONLINE ) )
         {
             // when
-            try
+            for ( int i = 0; i < half; i++ )
             {
-                accessor.newUpdater( ONLINE );
-                fail( "Should have failed" );
+                firstUpdater.process( updates[i] );
+                secondUpdater.process( updates[half + i] );
             }
-            catch ( IllegalStateException e )
+            for ( int i = half * 2; i < updates.length; i++ )
             {
-                // then good
+                secondUpdater.process( updates[i] );
             }
         }
+
+        // then
+        forceAndCloseAccessor();
+        verifyUpdates( updates );
     }
 
     @Test
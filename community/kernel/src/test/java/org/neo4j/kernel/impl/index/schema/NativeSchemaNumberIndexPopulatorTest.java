@@ -58,10 +58,10 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.neo4j.index.internal.gbptree.GBPTree.NO_HEADER_WRITER;
-import static org.neo4j.kernel.impl.index.schema.NativeSchemaNumberIndexPopulator.BYTE_FAILED;
-import static org.neo4j.kernel.impl.index.schema.NativeSchemaNumberIndexPopulator.BYTE_ONLINE;
+import static org.neo4j.kernel.impl.index.schema.NativeSchemaIndexPopulator.BYTE_FAILED;
+import static org.neo4j.kernel.impl.index.schema.NativeSchemaIndexPopulator.BYTE_ONLINE;
 
-public abstract class NativeSchemaNumberIndexPopulatorTest<KEY extends SchemaNumberKey,VALUE extends SchemaNumberValue>
+public abstract class NativeSchemaNumberIndexPopulatorTest<KEY extends SchemaNumberKey,VALUE extends NativeSchemaValue>
         extends SchemaNumberIndexTestUtil<KEY,VALUE>
 {
     private static final int LARGE_AMOUNT_OF_UPDATES = 1_000;
@@ -70,7 +70,7 @@ public abstract class NativeSchemaNumberIndexPopulatorTest<KEY extends SchemaNum
         throw new RuntimeException( "Did not expect an attempt to go to store" );
     };
 
-    NativeSchemaNumberIndexPopulator<KEY,VALUE> populator;
+    NativeSchemaIndexPopulator<KEY,VALUE> populator;
 
     @Before
     public void setupPopulator()
@@ -79,7 +79,7 @@ public abstract class NativeSchemaNumberIndexPopulatorTest<KEY extends SchemaNum
         populator = createPopulator( pageCache, indexFile, layout, samplingConfig );
     }
 
-    abstract NativeSchemaNumberIndexPopulator<KEY,VALUE> createPopulator( PageCache pageCache, File indexFile,
+    abstract NativeSchemaIndexPopulator<KEY,VALUE> createPopulator( PageCache pageCache, File indexFile,
             Layout<KEY,VALUE> layout, IndexSamplingConfig samplingConfig );
 
     @Test
@@ -116,6 +116,23 @@ public abstract class NativeSchemaNumberIndexPopulatorTest<KEY extends SchemaNum
         populator.close( true );
     }
 
+    @Test
+    public void createShouldDeleteSortedRunsLeftByEarlierPopulation() throws Exception
+    {
+        // given
+        File sortDirectory = NativeSchemaIndexPopulator.sortDirectory( indexFile );
+        fs.mkdirs( sortDirectory );
+        File leftover = new File( sortDirectory, "run-0" );
+        fs.create( leftover ).close();
+
+        // when
+        populator.create();
+
+        // then
+        assertFalse( fs.fileExists( leftover ) );
+        populator.close( true );
+    }
+
     @Test
     public void dropShouldDeleteExistingFile() throws Exception
     {
@@ -542,7 +559,7 @@ public abstract class NativeSchemaNumberIndexPopulatorTest<KEY extends SchemaNum
         return RandomStringUtils.random( length, true, true );
     }
 
-    private void applyInterleaved( IndexEntryUpdate<IndexDescriptor>[] updates, NativeSchemaNumberIndexPopulator<KEY,VALUE> populator )
+    private void applyInterleaved( IndexEntryUpdate<IndexDescriptor>[] updates, NativeSchemaIndexPopulator<KEY,VALUE> populator )
             throws IOException, IndexEntryConflictException
     {
         boolean useUpdater = true;
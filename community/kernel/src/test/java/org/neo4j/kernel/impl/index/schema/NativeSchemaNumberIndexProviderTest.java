@@ -26,7 +26,9 @@ import org.junit.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 
+import org.neo4j.collection.primitive.PrimitiveLongCollections;
 import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.kernel.api.exceptions.index.IndexEntryConflictException;
@@ -35,12 +37,14 @@ import org.neo4j.kernel.api.index.IndexEntryUpdate;
 import org.neo4j.kernel.api.index.IndexPopulator;
 import org.neo4j.kernel.api.index.IndexUpdater;
 import org.neo4j.kernel.api.index.InternalIndexState;
+import org.neo4j.kernel.api.schema.IndexQuery;
 import org.neo4j.kernel.api.schema.index.IndexDescriptor;
 import org.neo4j.kernel.api.schema.index.IndexDescriptorFactory;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.impl.api.index.IndexUpdateMode;
 import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingConfig;
 import org.neo4j.logging.AssertableLogProvider;
+import org.neo4j.storageengine.api.schema.IndexReader;
 import org.neo4j.test.rule.PageCacheAndDependenciesRule;
 import org.neo4j.values.storable.Value;
 import org.neo4j.values.storable.Values;
@@ -50,6 +54,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.neo4j.helpers.collection.Iterators.asSet;
 
 public class NativeSchemaNumberIndexProviderTest
 {
@@ -101,7 +106,7 @@ public class NativeSchemaNumberIndexProviderTest
         IndexPopulator populator = provider.getPopulator( indexId, descriptorUnique(), samplingConfig() );
 
         // then
-        assertTrue( "Expected populator to be unique populator", populator instanceof NativeUniqueSchemaNumberIndexPopulator );
+        assertTrue( "Expected populator to be unique populator", populator instanceof NativeUniqueSchemaIndexPopulator );
     }
 
     @Test
@@ -114,7 +119,7 @@ public class NativeSchemaNumberIndexProviderTest
         IndexPopulator populator = provider.getPopulator( indexId, descriptor(), samplingConfig() );
 
         // then
-        assertTrue( "Expected populator to be non-unique populator", populator instanceof NativeNonUniqueSchemaNumberIndexPopulator );
+        assertTrue( "Expected populator to be non-unique populator", populator instanceof NativeNonUniqueSchemaIndexPopulator );
     }
 
     /* getOnlineAccessor */
@@ -366,6 +371,67 @@ public class NativeSchemaNumberIndexProviderTest
         assertEquals( InternalIndexState.ONLINE, state );
     }
 
+    @Test
+    public void shouldReportInitialStateAsOnlineIfCompositePopulationCompletedSuccessfully() throws Exception
+    {
+        // given
+        provider = newProvider();
+        IndexPopulator populator = provider.getPopulator( indexId, descriptorComposite(), samplingConfig() );
+        populator.create();
+        populator.close( true );
+
+        // when
+        InternalIndexState state = provider.getInitialState( indexId, descriptorComposite() );
+
+        // then
+        assertEquals( InternalIndexState.ONLINE, state );
+    }
+
+    @Test
+    public void shouldReportInitialStateAsPopulatingIfCompositeIndexHasSinglePropertyLayout() throws Exception
+    {
+        // given
+        provider = newProvider();
+        IndexPopulator populator = provider.getPopulator( indexId, descriptor(), samplingConfig() );
+        populator.create();
+        populator.close( true );
+
+        // when
+        InternalIndexState state = provider.getInitialState( indexId, descriptorComposite() );
+
+        // then
+        assertEquals( InternalIndexState.POPULATING, state );
+        logging.assertContainsLogCallContaining( "Failed to open index" );
+    }
+
+    /* composite */
+
+    @Test
+    public void shouldPopulateAndQueryCompositeIndex() throws Exception
+    {
+        // given
+        provider = newProvider();
+        IndexDescriptor descriptor = descriptorComposite();
+        IndexPopulator populator = provider.getPopulator( indexId, descriptor, samplingConfig() );
+        populator.create();
+        populator.add( Arrays.asList(
+                IndexEntryUpdate.add( 1, descriptor.schema(), Values.intValue( 1 ), Values.longValue( 10 ) ),
+                IndexEntryUpdate.add( 2, descriptor.schema(), Values.intValue( 1 ), Values.doubleValue( 20.5 ) ),
+                IndexEntryUpdate.add( 3, descriptor.schema(), Values.intValue( 2 ), Values.longValue( 15 ) ) ) );
+        populator.close( true );
+
+        // when
+        try ( IndexAccessor accessor = provider.getOnlineAccessor( indexId, descriptor, samplingConfig() );
+              IndexReader reader = accessor.newReader() )
+        {
+            // then
+            assertEquals( asSet( 1L ), PrimitiveLongCollections.toSet( reader.query(
+                    IndexQuery.exact( propId, 1 ), IndexQuery.exact( propId + 1, 10 ) ) ) );
+            assertEquals( asSet( 1L, 2L ), PrimitiveLongCollections.toSet( reader.query(
+                    IndexQuery.exact( propId, 1 ), IndexQuery.range( propId + 1, 10, true, 30, false ) ) ) );
+        }
+    }
+
     /* storeMigrationParticipant */
 
     private IndexSamplingConfig samplingConfig()
@@ -378,6 +444,11 @@ public class NativeSchemaNumberIndexProviderTest
         return IndexDescriptorFactory.forLabel( labelId, propId );
     }
 
+    private IndexDescriptor descriptorComposite()
+    {
+        return IndexDescriptorFactory.forLabel( labelId, propId, propId + 1 );
+    }
+
     private IndexDescriptor descriptorUnique()
     {
         return IndexDescriptorFactory.uniqueForLabel( labelId, propId );
@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.neo4j.collection.primitive.PrimitiveLongCollections;
+import org.neo4j.index.internal.gbptree.Layout;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.api.exceptions.index.IndexEntryConflictException;
+import org.neo4j.kernel.api.index.IndexEntryUpdate;
+import org.neo4j.kernel.api.index.IndexUpdater;
+import org.neo4j.kernel.api.schema.IndexQuery;
+import org.neo4j.kernel.api.schema.index.IndexDescriptor;
+import org.neo4j.kernel.api.schema.index.IndexDescriptorFactory;
+import org.neo4j.storageengine.api.schema.IndexReader;
+import org.neo4j.test.rule.PageCacheRule;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.test.rule.fs.DefaultFileSystemRule;
+import org.neo4j.values.storable.Values;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.apache.commons.lang3.StringUtils.repeat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.rules.RuleChain.outerRule;
+import static org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector.IMMEDIATE;
+import static org.neo4j.kernel.api.index.IndexEntryUpdate.change;
+import static org.neo4j.kernel.api.index.IndexEntryUpdate.remove;
+import static org.neo4j.kernel.impl.api.index.IndexUpdateMode.ONLINE;
+import static org.neo4j.test.rule.PageCacheRule.config;
+
+/**
+ * Tests for
+ * <ul>
+ * <li>{@link NativeSchemaStringIndexAccessor}</li>
+ * <li>{@link NativeSchemaStringIndexReader}</li>
+ * <li>{@link StringLayout}</li>
+ * </ul>
+ */
+public class NativeSchemaStringIndexAccessorTest
+{
+    private static final int PROP_KEY = 666;
+
+    private final DefaultFileSystemRule fs = new DefaultFileSystemRule();
+    private final TestDirectory directory = TestDirectory.testDirectory( getClass(), fs.get() );
+    private final PageCacheRule pageCacheRule = new PageCacheRule( config().withAccessChecks( true ) );
+    @Rule
+    public final RuleChain rules = outerRule( fs ).around( directory ).around( pageCacheRule );
+
+    private final IndexDescriptor nonUniqueDescriptor = IndexDescriptorFactory.forLabel( 42, PROP_KEY );
+    private final IndexDescriptor uniqueDescriptor = IndexDescriptorFactory.uniqueForLabel( 42, PROP_KEY );
+    private PageCache pageCache;
+    private File indexFile;
+    private NativeSchemaStringIndexAccessor<StringSchemaKey,NativeSchemaValue> accessor;
+
+    @Before
+    public void setup()
+    {
+        pageCache = pageCacheRule.getPageCache( fs );
+        indexFile = directory.file( "index" );
+    }
+
+    @After
+    public void closeAccessor() throws IOException
+    {
+        if ( accessor != null )
+        {
+            accessor.close();
+        }
+    }
+
+    @Test
+    public void shouldFindExactMatches() throws Exception
+    {
+        // given
+        openAccessor( new NonUniqueStringLayout() );
+        processAll( add( 0, "a" ), add( 1, "ab" ), add( 2, "abc" ), add( 3, "b" ), add( 4, "ab" ), add( 5, "" ) );
+
+        // then
+        assertQuery( IndexQuery.exact( PROP_KEY, "ab" ), 1, 4 );
+        assertQuery( IndexQuery.exact( PROP_KEY, "" ), 5 );
+        assertQuery( IndexQuery.exact( PROP_KEY, "abcd" ) );
+    }
+
+    @Test
+    public void shouldFindPrefixMatches() throws Exception
+    {
+        // given
+        openAccessor( new NonUniqueStringLayout() );
+        processAll( add( 0, "a" ), add( 1, "ab" ), add( 2, "abc" ), add( 3, "b" ), add( 4, "abd" ), add( 5, "aa" ) );
+
+        // then
+        assertQuery( IndexQuery.stringPrefix( PROP_KEY, "ab" ), 1, 2, 4 );
+        assertQuery( IndexQuery.stringPrefix( PROP_KEY, "a" ), 0, 1, 2, 4, 5 );
+        assertQuery( IndexQuery.stringPrefix( PROP_KEY, "" ), 0, 1, 2, 3, 4, 5 );
+        assertQuery( IndexQuery.stringPrefix( PROP_KEY, "c" ) );
+    }
+
+    @Test
+    public void shouldFindRangeMatches() throws Exception
+    {
+        // given
+        openAccessor( new NonUniqueStringLayout() );
+        processAll( add( 0, "a" ), add( 1, "ab" ), add( 2, "abc" ), add( 3, "b" ), add( 4, "bc" ), add( 5, "c" ) );
+
+        // then
+        assertQuery( IndexQuery.range( PROP_KEY, "ab", true, "b", true ), 1, 2, 3 );
+        assertQuery( IndexQuery.range( PROP_KEY, "ab", false, "b", false ), 2 );
+        assertQuery( IndexQuery.range( PROP_KEY, null, false, "ab", true ), 0, 1 );
+        assertQuery( IndexQuery.range( PROP_KEY, "bc", true, null, false ), 4, 5 );
+    }
+
+    @Test
+    public void shouldFindSuffixAndContainsMatches() throws Exception
+    {
+        // given
+        openAccessor( new NonUniqueStringLayout() );
+        processAll( add( 0, "abc" ), add( 1, "bcd" ), add( 2, "xbc" ), add( 3, "cb" ) );
+
+        // then
+        assertQuery( IndexQuery.stringSuffix( PROP_KEY, "bc" ), 0, 2 );
+        assertQuery( IndexQuery.stringContains( PROP_KEY, "bc" ), 0, 1, 2 );
+    }
+
+    @Test
+    public void shouldOrderNonAsciiStringsInUtf8ByteOrder() throws Exception
+    {
+        // given
+        openAccessor( new NonUniqueStringLayout() );
+        processAll( add( 0, "z" ), add( 1, "å" ), add( 2, "世" ), add( 3, "😀" ) );
+
+        // then
+        assertQuery( IndexQuery.range( PROP_KEY, "z", true, "世", true ), 0, 1, 2 );
+        assertQuery( IndexQuery.range( PROP_KEY, "世", false, null, false ), 3 );
+        assertQuery( IndexQuery.exact( PROP_KEY, "😀" ), 3 );
+    }
+
+    @Test
+    public void shouldHandleManyKeysWithLongCommonPrefix() throws Exception
+    {
+        // given
+        openAccessor( new NonUniqueStringLayout() );
+        String prefix = repeat( 'x', StringSchemaKey.MAX_STRING_BYTES - 10 );
+        int count = 1_000;
+        try ( IndexUpdater updater = accessor.newUpdater( ONLINE ) )
+        {
+            for ( int i = 0; i < count; i++ )
+            {
+                updater.process( add( i, prefix + i ) );
+            }
+        }
+
+        // then
+        long[] all = new long[count];
+        for ( int i = 0; i < count; i++ )
+        {
+            all[i] = i;
+        }
+        assertQuery( IndexQuery.stringPrefix( PROP_KEY, prefix ), all );
+        assertQuery( IndexQuery.exact( PROP_KEY, prefix + 567 ), 567 );
+    }
+
+    @Test
+    public void shouldHandleChangeAndRemove() throws Exception
+    {
+        // given
+        openAccessor( new NonUniqueStringLayout() );
+        processAll( add( 0, "a" ), add( 1, "b" ) );
+
+        // when
+        processAll( change( 0, nonUniqueDescriptor, Values.stringValue( "a" ), Values.stringValue( "c" ) ),
+                remove( 1, nonUniqueDescriptor, Values.stringValue( "b" ) ) );
+
+        // then
+        assertQuery( IndexQuery.exact( PROP_KEY, "a" ) );
+        assertQuery( IndexQuery.exact( PROP_KEY, "b" ) );
+        assertQuery( IndexQuery.exact( PROP_KEY, "c" ), 0 );
+    }
+
+    @Test
+    public void shouldDetectUniquenessConflict() throws Exception
+    {
+        // given
+        openAccessor( new UniqueStringLayout() );
+        processAll( IndexEntryUpdate.add( 0, uniqueDescriptor, Values.stringValue( "a" ) ) );
+
+        // when
+        try
+        {
+            processAll( IndexEntryUpdate.add( 1, uniqueDescriptor, Values.stringValue( "a" ) ) );
+            fail( "Should have failed" );
+        }
+        catch ( IndexEntryConflictException e )
+        {
+            // then good
+        }
+    }
+
+    @Test
+    public void shouldNotFitStringsLongerThanMaxBytesInKey() throws Exception
+    {
+        assertTrue( StringSchemaKey.fitsInKey( Values.stringValue( repeat( 'a', StringSchemaKey.MAX_STRING_BYTES ) ) ) );
+        assertFalse( StringSchemaKey.fitsInKey( Values.stringValue( repeat( 'a', StringSchemaKey.MAX_STRING_BYTES + 1 ) ) ) );
+        // three UTF-8 bytes each
+        assertFalse( StringSchemaKey.fitsInKey(
+                Values.stringValue( repeat( '世', StringSchemaKey.MAX_STRING_BYTES / 3 + 1 ) ) ) );
+    }
+
+    private void openAccessor( Layout<StringSchemaKey,NativeSchemaValue> layout ) throws IOException
+    {
+        accessor = new NativeSchemaStringIndexAccessor<>( pageCache, indexFile, layout, IMMEDIATE );
+    }
+
+    @SafeVarargs
+    private final void processAll( IndexEntryUpdate<IndexDescriptor>... updates )
+            throws IOException, IndexEntryConflictException
+    {
+        try ( IndexUpdater updater = accessor.newUpdater( ONLINE ) )
+        {
+            for ( IndexEntryUpdate<IndexDescriptor> update : updates )
+            {
+                updater.process( update );
+            }
+        }
+    }
+
+    private IndexEntryUpdate<IndexDescriptor> add( long nodeId, String value )
+    {
+        return IndexEntryUpdate.add( nodeId, nonUniqueDescriptor, Values.stringValue( value ) );
+    }
+
+    private void assertQuery( IndexQuery query, long... expectedNodeIds ) throws Exception
+    {
+        try ( IndexReader reader = accessor.newReader() )
+        {
+            long[] actual = PrimitiveLongCollections.asArray( reader.query( query ) );
+            Arrays.sort( actual );
+            assertArrayEquals( query.toString(), expectedNodeIds, actual );
+        }
+    }
+}
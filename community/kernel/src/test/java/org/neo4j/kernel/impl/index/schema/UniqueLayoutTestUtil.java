@@ -24,7 +24,7 @@ import org.neo4j.kernel.api.index.IndexEntryUpdate;
 import org.neo4j.kernel.api.schema.index.IndexDescriptor;
 import org.neo4j.kernel.api.schema.index.IndexDescriptorFactory;
 
-public class UniqueLayoutTestUtil extends LayoutTestUtil<SchemaNumberKey,SchemaNumberValue>
+public class UniqueLayoutTestUtil extends LayoutTestUtil<SchemaNumberKey,NativeSchemaValue>
 {
     UniqueLayoutTestUtil()
     {
@@ -32,7 +32,7 @@ public class UniqueLayoutTestUtil extends LayoutTestUtil<SchemaNumberKey,SchemaN
     }
 
     @Override
-    public Layout<SchemaNumberKey,SchemaNumberValue> createLayout()
+    public Layout<SchemaNumberKey,NativeSchemaValue> createLayout()
     {
         return new UniqueNumberLayout();
     }
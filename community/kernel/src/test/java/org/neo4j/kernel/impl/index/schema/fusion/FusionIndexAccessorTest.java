@@ -51,6 +51,7 @@ import static org.neo4j.kernel.impl.index.schema.fusion.FusionIndexTestHelp.veri
 public class FusionIndexAccessorTest
 {
     private IndexAccessor nativeAccessor;
+    private IndexAccessor stringAccessor;
     private IndexAccessor luceneAccessor;
     private FusionIndexAccessor fusionIndexAccessor;
 
@@ -58,8 +59,11 @@ public class FusionIndexAccessorTest
     public void setup()
     {
         nativeAccessor = mock( IndexAccessor.class );
+        stringAccessor = mock( IndexAccessor.class );
         luceneAccessor = mock( IndexAccessor.class );
-        fusionIndexAccessor = new FusionIndexAccessor( nativeAccessor, luceneAccessor, new NativeSelector() );
+        // string part is empty unless a test says otherwise
+        mockSingleAllEntriesReader( stringAccessor, new long[0] );
+        fusionIndexAccessor = new FusionIndexAccessor( nativeAccessor, stringAccessor, luceneAccessor, new NativeSelector() );
     }
 
     /* drop */
@@ -68,10 +72,11 @@ public class FusionIndexAccessorTest
     public void dropMustDropNativeAndLucene() throws Exception
     {
         // when
-        // ... both drop successful
+        // ... all drop successful
         fusionIndexAccessor.drop();
         // then
         verify( nativeAccessor, times( 1 ) ).drop();
+        verify( stringAccessor, times( 1 ) ).drop();
         verify( luceneAccessor, times( 1 ) ).drop();
     }
 
@@ -82,6 +87,34 @@ public class FusionIndexAccessorTest
         verifyFailOnSingleDropFailure( nativeAccessor, fusionIndexAccessor );
     }
 
+    @Test
+    public void dropMustThrowIfDropStringFail() throws Exception
+    {
+        // when
+        verifyFailOnSingleDropFailure( stringAccessor, fusionIndexAccessor );
+    }
+
+    @Test
+    public void dropMustDropOthersIfDropStringFail() throws Exception
+    {
+        // given
+        doThrow( new IOException( "fail" ) ).when( stringAccessor ).drop();
+
+        // when
+        try
+        {
+            fusionIndexAccessor.drop();
+            fail( "Should have failed" );
+        }
+        catch ( IOException ignore )
+        {
+        }
+
+        // then
+        verify( nativeAccessor, times( 1 ) ).drop();
+        verify( luceneAccessor, times( 1 ) ).drop();
+    }
+
     @Test
     public void dropMustThrowIfDropLuceneFail() throws Exception
     {
@@ -133,14 +166,33 @@ public class FusionIndexAccessorTest
     public void closeMustCloseNativeAndLucene() throws Exception
     {
         // when
-        // ... both drop successful
+        // ... all close successful
         fusionIndexAccessor.close();
 
         // then
         verify( nativeAccessor, times( 1 ) ).close();
+        verify( stringAccessor, times( 1 ) ).close();
         verify( luceneAccessor, times( 1 ) ).close();
     }
 
+    @Test
+    public void closeMustThrowIfStringThrow() throws Exception
+    {
+        verifyFusionCloseThrowOnSingleCloseThrow( stringAccessor, fusionIndexAccessor );
+    }
+
+    @Test
+    public void closeMustCloseNativeIfStringThrow() throws Exception
+    {
+        verifyOtherIsClosedOnSingleThrow( stringAccessor, nativeAccessor, fusionIndexAccessor );
+    }
+
+    @Test
+    public void closeMustCloseLuceneIfStringThrow() throws Exception
+    {
+        verifyOtherIsClosedOnSingleThrow( stringAccessor, luceneAccessor, fusionIndexAccessor );
+    }
+
     @Test
     public void closeMustThrowIfLuceneThrow() throws Exception
     {
@@ -189,6 +241,25 @@ public class FusionIndexAccessorTest
         assertResultContainsAll( result, luceneEntries );
     }
 
+    @Test
+    public void allEntriesReaderMustCombineResultFromNativeStringAndLucene() throws Exception
+    {
+        // given
+        long[] nativeEntries = {0, 1, 2};
+        long[] stringEntries = {5, 6};
+        long[] luceneEntries = {3, 4, 7, 8};
+        mockAllEntriesReaders( nativeEntries, luceneEntries );
+        mockSingleAllEntriesReader( stringAccessor, stringEntries );
+
+        // when
+        Set<Long> result = Iterables.asSet( fusionIndexAccessor.newAllEntriesReader() );
+
+        // then
+        assertResultContainsAll( result, nativeEntries );
+        assertResultContainsAll( result, stringEntries );
+        assertResultContainsAll( result, luceneEntries );
+    }
+
     @Test
     public void allEntriesReaderMustCombineResultFromNativeAndLuceneWithEmptyNative() throws Exception
     {
@@ -253,6 +324,20 @@ public class FusionIndexAccessorTest
         verify( luceneAllEntriesReader, times( 1 ) ).close();
     }
 
+    @Test
+    public void allEntriesReaderMustCloseNativeAndLuceneIfStringThrow() throws Exception
+    {
+        // given
+        BoundedIterable<Long> nativeAllEntriesReader = mockSingleAllEntriesReader( nativeAccessor, new long[0] );
+        BoundedIterable<Long> stringAllEntriesReader = mockSingleAllEntriesReader( stringAccessor, new long[0] );
+        BoundedIterable<Long> luceneAllEntriesReader = mockSingleAllEntriesReader( luceneAccessor, new long[0] );
+
+        // then
+        BoundedIterable<Long> fusionAllEntriesReader = fusionIndexAccessor.newAllEntriesReader();
+        verifyOtherIsClosedOnSingleThrow( stringAllEntriesReader, nativeAllEntriesReader, fusionAllEntriesReader );
+        verify( luceneAllEntriesReader, times( 1 ) ).close();
+    }
+
     @Test
     public void allEntriesReaderMustCloseNativeIfLuceneThrow() throws Exception
     {
@@ -326,6 +411,19 @@ public class FusionIndexAccessorTest
         assertThat( fusionAllEntriesReader.maxCount(), is( BoundedIterable.UNKNOWN_MAX_COUNT ) );
     }
 
+    @Test
+    public void allEntriesReaderMustReportUnknownMaxCountIfStringReportUnknownMaxCount() throws Exception
+    {
+        // given
+        mockSingleAllEntriesReader( nativeAccessor, new long[0] );
+        mockSingleAllEntriesReaderWithUnknownMaxCount( stringAccessor, new long[0] );
+        mockSingleAllEntriesReader( luceneAccessor, new long[0] );
+
+        // then
+        BoundedIterable<Long> fusionAllEntriesReader = fusionIndexAccessor.newAllEntriesReader();
+        assertThat( fusionAllEntriesReader.maxCount(), is( BoundedIterable.UNKNOWN_MAX_COUNT ) );
+    }
+
     @Test
     public void allEntriesReaderMustReportFusionMaxCountOfNativeAndLucene() throws Exception
     {
@@ -337,6 +435,18 @@ public class FusionIndexAccessorTest
         assertThat( fusionAllEntriesReader.maxCount(), is( 4L ) );
     }
 
+    @Test
+    public void allEntriesReaderMustReportFusionMaxCountOfNativeStringAndLucene() throws Exception
+    {
+        mockSingleAllEntriesReader( nativeAccessor, new long[]{1, 2} );
+        mockSingleAllEntriesReader( stringAccessor, new long[]{5} );
+        mockSingleAllEntriesReader( luceneAccessor, new long[]{3, 4} );
+
+        // then
+        BoundedIterable<Long> fusionAllEntriesReader = fusionIndexAccessor.newAllEntriesReader();
+        assertThat( fusionAllEntriesReader.maxCount(), is( 5L ) );
+    }
+
     private void assertResultContainsAll( Set<Long> result, long[] nativeEntries )
     {
         for ( long nativeEntry : nativeEntries )
@@ -48,11 +48,13 @@ import static org.mockito.Mockito.verify;
 import static java.util.Arrays.asList;
 
 import static org.neo4j.kernel.impl.index.schema.fusion.FusionIndexTestHelp.add;
+import static org.neo4j.kernel.impl.index.schema.fusion.FusionIndexTestHelp.compositeSupportedByNative;
 import static org.neo4j.kernel.impl.index.schema.fusion.FusionIndexTestHelp.verifyCallFail;
 
 public class FusionIndexPopulatorTest
 {
     private IndexPopulator nativePopulator;
+    private IndexPopulator stringPopulator;
     private IndexPopulator lucenePopulator;
     private FusionIndexPopulator fusionIndexPopulator;
 
@@ -60,8 +62,9 @@ public class FusionIndexPopulatorTest
     public void mockComponents()
     {
         nativePopulator = mock( IndexPopulator.class );
+        stringPopulator = mock( IndexPopulator.class );
         lucenePopulator = mock( IndexPopulator.class );
-        fusionIndexPopulator = new FusionIndexPopulator( nativePopulator, lucenePopulator, new NativeSelector() );
+        fusionIndexPopulator = new FusionIndexPopulator( nativePopulator, stringPopulator, lucenePopulator, new NativeSelector() );
     }
 
     /* create */
@@ -74,6 +77,7 @@ public class FusionIndexPopulatorTest
 
         // then
         verify( nativePopulator, times( 1 ) ).create();
+        verify( stringPopulator, times( 1 ) ).create();
         verify( lucenePopulator, times( 1 ) ).create();
     }
 
@@ -91,6 +95,20 @@ public class FusionIndexPopulatorTest
         } );
     }
 
+    @Test
+    public void createMustThrowIfCreateStringThrow() throws Exception
+    {
+        // given
+        IOException failure = new IOException( "fail" );
+        doThrow( failure ).when( stringPopulator ).create();
+
+        verifyCallFail( failure, () ->
+        {
+            fusionIndexPopulator.create();
+            return null;
+        } );
+    }
+
     @Test
     public void createMustThrowIfCreateLuceneThrow() throws Exception
     {
@@ -115,6 +133,7 @@ public class FusionIndexPopulatorTest
 
         // then
         verify( nativePopulator, times( 1 ) ).drop();
+        verify( stringPopulator, times( 1 ) ).drop();
         verify( lucenePopulator, times( 1 ) ).drop();
     }
 
@@ -132,6 +151,20 @@ public class FusionIndexPopulatorTest
         } );
     }
 
+    @Test
+    public void dropMustThrowIfDropStringThrow() throws Exception
+    {
+        // given
+        IOException failure = new IOException( "fail" );
+        doThrow( failure ).when( stringPopulator ).drop();
+
+        verifyCallFail( failure, () ->
+        {
+            fusionIndexPopulator.drop();
+            return null;
+        } );
+    }
+
     @Test
     public void dropMustThrowIfDropLuceneThrow() throws Exception
     {
@@ -153,38 +186,49 @@ public class FusionIndexPopulatorTest
     {
         // given
         Value[] numberValues = FusionIndexTestHelp.valuesSupportedByNative();
+        Value[] stringValues = FusionIndexTestHelp.valuesSupportedByNativeString();
         Value[] otherValues = FusionIndexTestHelp.valuesNotSupportedByNative();
         Value[] allValues = FusionIndexTestHelp.allValues();
 
         // Add with native for number values
         for ( Value numberValue : numberValues )
         {
-            verifyAddWithCorrectPopulator( nativePopulator, lucenePopulator, numberValue );
+            verifyAddWithCorrectPopulator( nativePopulator, numberValue );
+        }
+
+        // Add with native string for string values
+        for ( Value stringValue : stringValues )
+        {
+            verifyAddWithCorrectPopulator( stringPopulator, stringValue );
         }
 
         // Add with lucene for other values
         for ( Value otherValue : otherValues )
         {
-            verifyAddWithCorrectPopulator( lucenePopulator, nativePopulator, otherValue );
+            verifyAddWithCorrectPopulator( lucenePopulator, otherValue );
         }
 
-        // All composite values should go to lucene
+        // Composite values of only numbers should go to native, all other composite values to lucene
         for ( Value firstValue : allValues )
         {
             for ( Value secondValue : allValues )
             {
-                verifyAddWithCorrectPopulator( lucenePopulator, nativePopulator, firstValue, secondValue );
+                verifyAddWithCorrectPopulator( compositeSupportedByNative( firstValue, secondValue ) ? nativePopulator
+                                                                                                   : lucenePopulator,
+                        firstValue, secondValue );
             }
         }
     }
 
-    private void verifyAddWithCorrectPopulator( IndexPopulator correctPopulator, IndexPopulator wrongPopulator, Value... numberValues )
+    private void verifyAddWithCorrectPopulator( IndexPopulator correctPopulator, Value... values )
             throws IndexEntryConflictException, IOException
     {
-        Collection<IndexEntryUpdate<LabelSchemaDescriptor>> update = asList( add( numberValues ) );
+        Collection<IndexEntryUpdate<LabelSchemaDescriptor>> update = asList( add( values ) );
         fusionIndexPopulator.add( update );
-        verify( correctPopulator, times( 1 ) ).add( update );
-        verify( wrongPopulator, times( 0 ) ).add( update );
+        for ( IndexPopulator populator : asList( nativePopulator, stringPopulator, lucenePopulator ) )
+        {
+            verify( populator, times( populator == correctPopulator ? 1 : 0 ) ).add( update );
+        }
     }
 
     /* verifyDeferredConstraints */
@@ -203,6 +247,20 @@ public class FusionIndexPopulatorTest
         } );
     }
 
+    @Test
+    public void verifyDeferredConstraintsMustThrowIfStringThrow() throws Exception
+    {
+        // given
+        IndexEntryConflictException failure = mock( IndexEntryConflictException.class );
+        doThrow( failure ).when( stringPopulator ).verifyDeferredConstraints( any() );
+
+        verifyCallFail( failure, () ->
+        {
+            fusionIndexPopulator.verifyDeferredConstraints( null );
+            return null;
+        } );
+    }
+
     @Test
     public void verifyDeferredConstraintsMustThrowIfLuceneThrow() throws Exception
     {
@@ -223,23 +281,24 @@ public class FusionIndexPopulatorTest
     public void successfulCloseMustCloseBothNativeAndLucene() throws Exception
     {
         // when
-        closeAndVerifyPropagation( nativePopulator, lucenePopulator, fusionIndexPopulator, true );
+        closeAndVerifyPropagation( fusionIndexPopulator, true );
     }
 
     @Test
     public void unsuccessfulCloseMustCloseBothNativeAndLucene() throws Exception
     {
         // when
-        closeAndVerifyPropagation( nativePopulator, lucenePopulator, fusionIndexPopulator, false );
+        closeAndVerifyPropagation( fusionIndexPopulator, false );
     }
 
-    private void closeAndVerifyPropagation( IndexPopulator nativePopulator, IndexPopulator lucenePopulator,
-            FusionIndexPopulator fusionIndexPopulator, boolean populationCompletedSuccessfully ) throws IOException
+    private void closeAndVerifyPropagation( FusionIndexPopulator fusionIndexPopulator, boolean populationCompletedSuccessfully )
+            throws IOException
     {
         fusionIndexPopulator.close( populationCompletedSuccessfully );
 
         // then
         verify( nativePopulator, times( 1 ) ).close( populationCompletedSuccessfully );
+        verify( stringPopulator, times( 1 ) ).close( populationCompletedSuccessfully );
         verify( lucenePopulator, times( 1 ) ).close( populationCompletedSuccessfully );
     }
 
@@ -313,6 +372,28 @@ public class FusionIndexPopulatorTest
         verify( lucenePopulator, times( 1 ) ).close( true );
     }
 
+    @Test
+    public void closeMustCloseNativeAndLuceneIfStringThrow() throws Exception
+    {
+        // given
+        IOException failure = new IOException( "fail" );
+        doThrow( failure ).when( stringPopulator ).close( anyBoolean() );
+
+        // when
+        try
+        {
+            fusionIndexPopulator.close( true );
+            fail( "Should have failed" );
+        }
+        catch ( IOException ignore )
+        {
+        }
+
+        // then
+        verify( nativePopulator, times( 1 ) ).close( true );
+        verify( lucenePopulator, times( 1 ) ).close( true );
+    }
+
     @Test
     public void closeMustThrowIfBothThrow() throws Exception
     {
@@ -346,6 +427,7 @@ public class FusionIndexPopulatorTest
 
         // then
         verify( nativePopulator, times( 1 ) ).markAsFailed( failureMessage );
+        verify( stringPopulator, times( 1 ) ).markAsFailed( failureMessage );
         verify( lucenePopulator, times( 1 ) ).markAsFailed( failureMessage );
     }
 
@@ -384,6 +466,7 @@ public class FusionIndexPopulatorTest
     {
         // given
         Value[] numberValues = FusionIndexTestHelp.valuesSupportedByNative();
+        Value[] stringValues = FusionIndexTestHelp.valuesSupportedByNativeString();
         Value[] otherValues = FusionIndexTestHelp.valuesNotSupportedByNative();
 
         for ( Value value : numberValues )
@@ -397,6 +480,17 @@ public class FusionIndexPopulatorTest
             reset( nativePopulator );
         }
 
+        for ( Value value : stringValues )
+        {
+            // when
+            IndexEntryUpdate<LabelSchemaDescriptor> update = add( value );
+            fusionIndexPopulator.includeSample( update );
+
+            // then
+            verify( stringPopulator ).includeSample( update );
+            reset( stringPopulator );
+        }
+
         for ( Value value : otherValues )
         {
             // when
@@ -410,13 +504,14 @@ public class FusionIndexPopulatorTest
     }
 
     @Test
-    public void shouldConfigureSamplingOnBothPopulators() throws Exception
+    public void shouldConfigureSamplingOnAllPopulators() throws Exception
     {
         // when
         fusionIndexPopulator.configureSampling( true );
 
         // then
         verify( nativePopulator ).configureSampling( true );
+        verify( stringPopulator ).configureSampling( true );
         verify( lucenePopulator ).configureSampling( true );
     }
 }
@@ -33,43 +33,49 @@ import org.neo4j.kernel.api.schema.IndexQuery.StringContainsPredicate;
 import org.neo4j.kernel.api.schema.IndexQuery.StringPrefixPredicate;
 import org.neo4j.kernel.api.schema.IndexQuery.StringRangePredicate;
 import org.neo4j.kernel.api.schema.IndexQuery.StringSuffixPredicate;
+import org.neo4j.kernel.impl.index.schema.LegacyNativeSelector;
 import org.neo4j.kernel.impl.index.schema.NativeSelector;
 import org.neo4j.storageengine.api.schema.IndexReader;
 import org.neo4j.values.storable.Value;
 
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
-import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
+import static org.neo4j.kernel.impl.index.schema.fusion.FusionIndexTestHelp.compositeSupportedByNative;
 
 public class FusionIndexReaderTest
 {
     private IndexReader nativeReader;
+    private IndexReader stringReader;
     private IndexReader luceneReader;
     private FusionIndexReader fusionIndexReader;
     private static final int PROP_KEY = 1;
+    private static final int PROP_KEY_2 = 2;
 
     @Before
     public void setup()
     {
         nativeReader = mock( IndexReader.class );
+        stringReader = mock( IndexReader.class );
         luceneReader = mock( IndexReader.class );
-        fusionIndexReader = new FusionIndexReader( nativeReader, luceneReader, new NativeSelector() );
+        fusionIndexReader = new FusionIndexReader( nativeReader, stringReader, luceneReader, new NativeSelector() );
     }
 
     /* close */
 
     @Test
-    public void closeMustCloseBothNativeAndLucene() throws Exception
+    public void closeMustCloseAllReaders() throws Exception
     {
         // when
         fusionIndexReader.close();
 
         // then
         verify( nativeReader, times( 1 ) ).close();
+        verify( stringReader, times( 1 ) ).close();
         verify( luceneReader, times( 1 ) ).close();
     }
 
@@ -80,34 +86,44 @@ public class FusionIndexReaderTest
     {
         // given
         Value[] nativeValues = FusionIndexTestHelp.valuesSupportedByNative();
+        Value[] stringValues = FusionIndexTestHelp.valuesSupportedByNativeString();
         Value[] otherValues = FusionIndexTestHelp.valuesNotSupportedByNative();
         Value[] allValues = FusionIndexTestHelp.allValues();
 
         // when
         for ( Value nativeValue : nativeValues )
         {
-            verifyCountIndexedNodesWithCorrectReader( nativeReader, luceneReader, nativeValue );
+            verifyCountIndexedNodesWithCorrectReader( nativeReader, nativeValue );
+        }
+
+        for ( Value stringValue : stringValues )
+        {
+            verifyCountIndexedNodesWithCorrectReader( stringReader, stringValue );
         }
 
         for ( Value otherValue : otherValues )
         {
-            verifyCountIndexedNodesWithCorrectReader( luceneReader, nativeReader, otherValue );
+            verifyCountIndexedNodesWithCorrectReader( luceneReader, otherValue );
         }
 
         for ( Value firstValue : allValues )
         {
             for ( Value secondValue : allValues )
             {
-                verifyCountIndexedNodesWithCorrectReader( luceneReader, nativeReader, firstValue, secondValue );
+                verifyCountIndexedNodesWithCorrectReader(
+                        compositeSupportedByNative( firstValue, secondValue ) ? nativeReader : luceneReader,
+                        firstValue, secondValue );
             }
         }
     }
 
-    private void verifyCountIndexedNodesWithCorrectReader( IndexReader correct, IndexReader wrong, Value... nativeValue )
+    private void verifyCountIndexedNodesWithCorrectReader( IndexReader correct, Value... values )
     {
-        fusionIndexReader.countIndexedNodes( 0, nativeValue );
-        verify( correct, times( 1 ) ).countIndexedNodes( 0, nativeValue );
-        verify( wrong, times( 0 ) ).countIndexedNodes( 0, nativeValue );
+        fusionIndexReader.countIndexedNodes( 0, values );
+        for ( IndexReader reader : new IndexReader[]{nativeReader, stringReader, luceneReader} )
+        {
+            verify( reader, times( reader == correct ? 1 : 0 ) ).countIndexedNodes( 0, values );
+        }
     }
 
     /* query */
@@ -116,7 +132,60 @@ public class FusionIndexReaderTest
     public void mustSelectLuceneForCompositePredicate() throws Exception
     {
         // then
-        verifyQueryWithCorrectReader( luceneReader, nativeReader, any( IndexQuery.class ), any( IndexQuery.class ) );
+        verifyQueryWithCorrectReader( luceneReader, IndexQuery.exact( PROP_KEY, "a" ), IndexQuery.exact( PROP_KEY_2, 1 ) );
+        verifyQueryWithCorrectReader( luceneReader, IndexQuery.exact( PROP_KEY, 1 ), IndexQuery.exists( PROP_KEY_2 ) );
+    }
+
+    @Test
+    public void mustSelectNativeForCompositeExactPredicateWithNumberValues() throws Exception
+    {
+        // given
+        for ( Value firstValue : FusionIndexTestHelp.valuesSupportedByNative() )
+        {
+            for ( Value secondValue : FusionIndexTestHelp.valuesSupportedByNative() )
+            {
+                // then
+                verifyQueryWithCorrectReader( nativeReader,
+                        IndexQuery.exact( PROP_KEY, firstValue ), IndexQuery.exact( PROP_KEY_2, secondValue ) );
+            }
+        }
+    }
+
+    @Test
+    public void mustSelectNativeForCompositeRangeNumericPredicateAfterExactNumbers() throws Exception
+    {
+        // given
+        IndexQuery exact = IndexQuery.exact( PROP_KEY, 10 );
+        NumberRangePredicate numberRange = IndexQuery.range( PROP_KEY_2, 0, true, 1, false );
+
+        // then
+        verifyQueryWithCorrectReader( nativeReader, exact, numberRange );
+    }
+
+    @Test
+    public void mustSelectLuceneForCompositeRangeNumericPredicateAfterExactNonNumber() throws Exception
+    {
+        // given
+        IndexQuery exact = IndexQuery.exact( PROP_KEY, "a" );
+        NumberRangePredicate numberRange = IndexQuery.range( PROP_KEY_2, 0, true, 1, false );
+
+        // then
+        verifyQueryWithCorrectReader( luceneReader, exact, numberRange );
+    }
+
+    @Test
+    public void mustSelectLuceneForCompositeNumberPredicatesWithLegacySelector() throws Exception
+    {
+        // given
+        fusionIndexReader =
+                new FusionIndexReader( nativeReader, stringReader, luceneReader, new LegacyNativeSelector() );
+        IndexQuery exact = IndexQuery.exact( PROP_KEY, 10 );
+        NumberRangePredicate numberRange = IndexQuery.range( PROP_KEY_2, 0, true, 1, false );
+
+        // then
+        verifyQueryWithCorrectReader( luceneReader, exact, numberRange );
+        verifyQueryWithCorrectReader( luceneReader, exact, IndexQuery.exact( PROP_KEY_2, 1 ) );
+        assertFalse( fusionIndexReader.hasFullNumberPrecision( exact, numberRange ) );
     }
 
     @Test
@@ -128,31 +197,44 @@ public class FusionIndexReaderTest
             IndexQuery indexQuery = IndexQuery.exact( PROP_KEY, numberValue );
 
             // then
-            verifyQueryWithCorrectReader( nativeReader, luceneReader, indexQuery );
+            verifyQueryWithCorrectReader( nativeReader, indexQuery );
         }
     }
 
     @Test
-    public void mustSelectLuceneForExactPredicateWithNonNumberValue() throws Exception
+    public void mustSelectStringForExactPredicateWithStringValue() throws Exception
     {
         // given
-        for ( Object nonNumberValue : FusionIndexTestHelp.valuesNotSupportedByNative() )
+        for ( Object stringValue : FusionIndexTestHelp.valuesSupportedByNativeString() )
         {
-            IndexQuery indexQuery = IndexQuery.exact( PROP_KEY, nonNumberValue );
+            IndexQuery indexQuery = IndexQuery.exact( PROP_KEY, stringValue );
 
             // then
-            verifyQueryWithCorrectReader( luceneReader, nativeReader, indexQuery );
+            verifyQueryWithCorrectReader( stringReader, indexQuery );
         }
     }
 
     @Test
-    public void mustSelectLuceneForRangeStringPredicate() throws Exception
+    public void mustSelectLuceneForExactPredicateWithOtherValue() throws Exception
+    {
+        // given
+        for ( Object otherValue : FusionIndexTestHelp.valuesNotSupportedByNative() )
+        {
+            IndexQuery indexQuery = IndexQuery.exact( PROP_KEY, otherValue );
+
+            // then
+            verifyQueryWithCorrectReader( luceneReader, indexQuery );
+        }
+    }
+
+    @Test
+    public void mustSelectStringAndLuceneForRangeStringPredicate() throws Exception
     {
         // given
         StringRangePredicate stringRange = IndexQuery.range( PROP_KEY, "abc", true, "def", false );
 
         // then
-        verifyQueryWithCorrectReader( luceneReader, nativeReader, stringRange );
+        verifyQueryWithStringAndLuceneReaders( stringRange );
     }
 
     @Test
@@ -162,37 +244,56 @@ public class FusionIndexReaderTest
         NumberRangePredicate numberRange = IndexQuery.range( PROP_KEY, 0, true, 1, false );
 
         // then
-        verifyQueryWithCorrectReader( nativeReader, luceneReader, numberRange );
+        verifyQueryWithCorrectReader( nativeReader, numberRange );
     }
 
     @Test
-    public void mustSelectLuceneForStringPrefixPredicate() throws Exception
+    public void mustSelectStringAndLuceneForStringPrefixPredicate() throws Exception
     {
         // given
         StringPrefixPredicate stringPrefix = IndexQuery.stringPrefix( PROP_KEY, "abc" );
 
         // then
-        verifyQueryWithCorrectReader( luceneReader, nativeReader, stringPrefix );
+        verifyQueryWithStringAndLuceneReaders( stringPrefix );
     }
 
     @Test
-    public void mustSelectLuceneForStringSuffixPredicate() throws Exception
+    public void mustSelectStringAndLuceneForStringSuffixPredicate() throws Exception
     {
         // given
-        StringSuffixPredicate stringPrefix = IndexQuery.stringSuffix( PROP_KEY, "abc" );
+        StringSuffixPredicate stringSuffix = IndexQuery.stringSuffix( PROP_KEY, "abc" );
 
         // then
-        verifyQueryWithCorrectReader( luceneReader, nativeReader, stringPrefix );
+        verifyQueryWithStringAndLuceneReaders( stringSuffix );
     }
 
     @Test
-    public void mustSelectLuceneForStringContainsPredicate() throws Exception
+    public void mustSelectStringAndLuceneForStringContainsPredicate() throws Exception
     {
         // given
         StringContainsPredicate stringContains = IndexQuery.stringContains( PROP_KEY, "abc" );
 
         // then
-        verifyQueryWithCorrectReader( luceneReader, nativeReader, stringContains );
+        verifyQueryWithStringAndLuceneReaders( stringContains );
+    }
+
+    @Test
+    public void mustCombineResultFromStringAndLuceneForStringPredicate() throws Exception
+    {
+        // given
+        StringPrefixPredicate stringPrefix = IndexQuery.stringPrefix( PROP_KEY, "abc" );
+        when( stringReader.query( stringPrefix ) ).thenReturn( Primitive.iterator( 0L, 2L ) );
+        when( luceneReader.query( stringPrefix ) ).thenReturn( Primitive.iterator( 1L ) );
+
+        // when
+        PrimitiveLongIterator result = fusionIndexReader.query( stringPrefix );
+
+        // then
+        PrimitiveLongSet resultSet = PrimitiveLongCollections.asSet( result );
+        for ( long i = 0L; i < 3L; i++ )
+        {
+            assertTrue( "Expected to contain " + i + ", but was " + resultSet, resultSet.contains( i ) );
+        }
     }
 
     @Test
@@ -201,6 +302,7 @@ public class FusionIndexReaderTest
         // given
         IndexQuery.ExistsPredicate exists = IndexQuery.exists( PROP_KEY );
         when( nativeReader.query( exists ) ).thenReturn( Primitive.iterator( 0L, 1L, 3L, 4L, 7L ) );
+        when( stringReader.query( exists ) ).thenReturn( Primitive.iterator( 8L, 9L ) );
         when( luceneReader.query( exists ) ).thenReturn( Primitive.iterator( 2L, 5L, 6L ) );
 
         // when
@@ -208,13 +310,33 @@ public class FusionIndexReaderTest
 
         // then
         PrimitiveLongSet resultSet = PrimitiveLongCollections.asSet( result );
-        for ( long i = 0L; i < 8L; i++ )
+        for ( long i = 0L; i < 10L; i++ )
         {
             assertTrue( "Expected to contain " + i + ", but was " + resultSet, resultSet.contains( i ) );
         }
     }
 
-    private void verifyQueryWithCorrectReader( IndexReader expectedReader, IndexReader unexpectedReader, IndexQuery... indexQuery )
+    @Test
+    public void mustCombineResultFromNativeAndLuceneForCompositeExistsPredicate() throws Exception
+    {
+        // given
+        IndexQuery[] exists = {IndexQuery.exists( PROP_KEY ), IndexQuery.exists( PROP_KEY_2 )};
+        when( nativeReader.query( exists ) ).thenReturn( Primitive.iterator( 0L, 1L, 3L ) );
+        when( luceneReader.query( exists ) ).thenReturn( Primitive.iterator( 2L, 4L ) );
+
+        // when
+        PrimitiveLongIterator result = fusionIndexReader.query( exists );
+
+        // then
+        PrimitiveLongSet resultSet = PrimitiveLongCollections.asSet( result );
+        for ( long i = 0L; i < 5L; i++ )
+        {
+            assertTrue( "Expected to contain " + i + ", but was " + resultSet, resultSet.contains( i ) );
+        }
+        verifyNoMoreInteractions( stringReader );
+    }
+
+    private void verifyQueryWithCorrectReader( IndexReader expectedReader, IndexQuery... indexQuery )
             throws IndexNotApplicableKernelException
     {
         // when
@@ -222,6 +344,23 @@ public class FusionIndexReaderTest
 
         // then
         verify( expectedReader, times( 1 ) ).query( indexQuery );
-        verifyNoMoreInteractions( unexpectedReader );
+        for ( IndexReader reader : new IndexReader[]{nativeReader, stringReader, luceneReader} )
+        {
+            if ( reader != expectedReader )
+            {
+                verifyNoMoreInteractions( reader );
+            }
+        }
+    }
+
+    private void verifyQueryWithStringAndLuceneReaders( IndexQuery indexQuery ) throws IndexNotApplicableKernelException
+    {
+        // when
+        fusionIndexReader.query( indexQuery );
+
+        // then
+        verify( stringReader, times( 1 ) ).query( indexQuery );
+        verify( luceneReader, times( 1 ) ).query( indexQuery );
+        verifyNoMoreInteractions( nativeReader );
     }
 }
@@ -20,6 +20,7 @@
 package org.neo4j.kernel.impl.index.schema.fusion;
 
 import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.mockito.Mockito;
 
 import java.io.IOException;
@@ -53,11 +54,17 @@ class FusionIndexTestHelp
                     Values.floatValue( 5.6f ),
                     Values.doubleValue( 7.8 )
             };
-    private static final Value[] otherValues = new Value[]
+    private static final Value[] stringValues = new Value[]
             {
-                    Values.booleanValue( true ),
                     Values.charValue( 'a' ),
                     Values.stringValue( "bcd" ),
+                    Values.stringValue( "" )
+            };
+    private static final Value[] otherValues = new Value[]
+            {
+                    Values.booleanValue( true ),
+                    // too long to fit in the native string index
+                    Values.stringValue( StringUtils.repeat( 'a', 5_000 ) ),
                     Values.booleanArray( new boolean[2] ),
                     Values.byteArray( new byte[]{1, 2} ),
                     Values.shortArray( new short[]{3, 4} ),
@@ -75,14 +82,31 @@ class FusionIndexTestHelp
         return numberValues;
     }
 
+    static Value[] valuesSupportedByNativeString()
+    {
+        return stringValues;
+    }
+
     static Value[] valuesNotSupportedByNative()
     {
         return otherValues;
     }
 
+    static boolean compositeSupportedByNative( Value... values )
+    {
+        for ( Value value : values )
+        {
+            if ( !ArrayUtils.contains( numberValues, value ) )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
     static Value[] allValues()
     {
-        return ArrayUtils.addAll( numberValues, otherValues );
+        return ArrayUtils.addAll( ArrayUtils.addAll( numberValues, stringValues ), otherValues );
     }
 
     static void verifyCallFail( Exception expectedFailure, Callable failingCall ) throws Exception
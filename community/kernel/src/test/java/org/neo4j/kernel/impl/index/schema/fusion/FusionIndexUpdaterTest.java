@@ -39,11 +39,13 @@ import static org.mockito.Mockito.verify;
 
 import static org.neo4j.kernel.impl.index.schema.fusion.FusionIndexTestHelp.add;
 import static org.neo4j.kernel.impl.index.schema.fusion.FusionIndexTestHelp.change;
+import static org.neo4j.kernel.impl.index.schema.fusion.FusionIndexTestHelp.compositeSupportedByNative;
 import static org.neo4j.kernel.impl.index.schema.fusion.FusionIndexTestHelp.remove;
 
 public class FusionIndexUpdaterTest
 {
     private IndexUpdater nativeUpdater;
+    private IndexUpdater stringUpdater;
     private IndexUpdater luceneUpdater;
     private FusionIndexUpdater fusionIndexUpdater;
 
@@ -51,14 +53,15 @@ public class FusionIndexUpdaterTest
     public void setup()
     {
         nativeUpdater = mock( IndexUpdater.class );
+        stringUpdater = mock( IndexUpdater.class );
         luceneUpdater = mock( IndexUpdater.class );
-        fusionIndexUpdater = new FusionIndexUpdater( nativeUpdater, luceneUpdater, new NativeSelector() );
+        fusionIndexUpdater = new FusionIndexUpdater( nativeUpdater, stringUpdater, luceneUpdater, new NativeSelector() );
     }
 
     /* remove */
 
     @Test
-    public void removeMustRemoveFromBothNativeAndLucene() throws Exception
+    public void removeMustRemoveFromAllUpdaters() throws Exception
     {
         // when
         PrimitiveLongSet nodeIds = asPrimitiveSet( 1, 2, 3 );
@@ -66,6 +69,7 @@ public class FusionIndexUpdaterTest
 
         // then
         verify( nativeUpdater, times( 1 ) ).remove( nodeIds );
+        verify( stringUpdater, times( 1 ) ).remove( nodeIds );
         verify( luceneUpdater, times( 1 ) ).remove( nodeIds );
     }
 
@@ -86,6 +90,7 @@ public class FusionIndexUpdaterTest
     {
         // given
         Value[] supportedByNative = FusionIndexTestHelp.valuesSupportedByNative();
+        Value[] supportedByNativeString = FusionIndexTestHelp.valuesSupportedByNativeString();
         Value[] notSupportedByNative = FusionIndexTestHelp.valuesNotSupportedByNative();
         Value[] allValues = FusionIndexTestHelp.allValues();
 
@@ -94,14 +99,21 @@ public class FusionIndexUpdaterTest
         for ( Value value : supportedByNative )
         {
             //then
-            verifyAddWithCorrectUpdater( nativeUpdater, luceneUpdater, value );
+            verifyAddWithCorrectUpdater( nativeUpdater, value );
+        }
+
+        // when
+        // ... value supported by native string
+        for ( Value value : supportedByNativeString )
+        {
+            verifyAddWithCorrectUpdater( stringUpdater, value );
         }
 
         // when
         // ... value not supported by native
         for ( Value value : notSupportedByNative )
         {
-            verifyAddWithCorrectUpdater( luceneUpdater, nativeUpdater, value );
+            verifyAddWithCorrectUpdater( luceneUpdater, value );
         }
 
         // when
@@ -110,7 +122,9 @@ public class FusionIndexUpdaterTest
         {
             for ( Value secondValue : allValues )
             {
-                verifyAddWithCorrectUpdater( luceneUpdater, nativeUpdater, firstValue, secondValue );
+                verifyAddWithCorrectUpdater(
+                        compositeSupportedByNative( firstValue, secondValue ) ? nativeUpdater : luceneUpdater,
+                        firstValue, secondValue );
             }
         }
     }
@@ -120,6 +134,7 @@ public class FusionIndexUpdaterTest
     {
         // given
         Value[] supportedByNative = FusionIndexTestHelp.valuesSupportedByNative();
+        Value[] supportedByNativeString = FusionIndexTestHelp.valuesSupportedByNativeString();
         Value[] notSupportedByNative = FusionIndexTestHelp.valuesNotSupportedByNative();
         Value[] allValues = FusionIndexTestHelp.allValues();
 
@@ -128,14 +143,21 @@ public class FusionIndexUpdaterTest
         for ( Value value : supportedByNative )
         {
             //then
-            verifyRemoveWithCorrectUpdater( nativeUpdater, luceneUpdater, value );
+            verifyRemoveWithCorrectUpdater( nativeUpdater, value );
+        }
+
+        // when
+        // ... value supported by native string
+        for ( Value value : supportedByNativeString )
+        {
+            verifyRemoveWithCorrectUpdater( stringUpdater, value );
         }
 
         // when
         // ... value not supported by native
         for ( Value value : notSupportedByNative )
         {
-            verifyRemoveWithCorrectUpdater( luceneUpdater, nativeUpdater, value );
+            verifyRemoveWithCorrectUpdater( luceneUpdater, value );
         }
 
         // when
@@ -144,7 +166,9 @@ public class FusionIndexUpdaterTest
         {
             for ( Value secondValue : allValues )
             {
-                verifyRemoveWithCorrectUpdater( luceneUpdater, nativeUpdater, firstValue, secondValue );
+                verifyRemoveWithCorrectUpdater(
+                        compositeSupportedByNative( firstValue, secondValue ) ? nativeUpdater : luceneUpdater,
+                        firstValue, secondValue );
             }
         }
     }
@@ -162,7 +186,25 @@ public class FusionIndexUpdaterTest
         {
             for ( Value after : supportedByNative )
             {
-                verifyChangeWithCorrectUpdaterNotMixed( nativeUpdater, luceneUpdater, before, after );
+                verifyChangeWithCorrectUpdaterNotMixed( nativeUpdater, before, after );
+            }
+        }
+    }
+
+    @Test
+    public void processMustSelectCorrectForChangeSupportedByNativeString() throws Exception
+    {
+        // given
+        Value[] supportedByNativeString = FusionIndexTestHelp.valuesSupportedByNativeString();
+
+        // when
+        // ... before - supported
+        // ... after - supported
+        for ( Value before : supportedByNativeString )
+        {
+            for ( Value after : supportedByNativeString )
+            {
+                verifyChangeWithCorrectUpdaterNotMixed( stringUpdater, before, after );
             }
         }
     }
@@ -180,7 +222,7 @@ public class FusionIndexUpdaterTest
         {
             for ( Value after : notSupportedByNative )
             {
-                verifyChangeWithCorrectUpdaterNotMixed( luceneUpdater, nativeUpdater, before, after );
+                verifyChangeWithCorrectUpdaterNotMixed( luceneUpdater, before, after );
             }
         }
     }
@@ -211,31 +253,63 @@ public class FusionIndexUpdaterTest
         verifyChangeWithCorrectUpdaterMixed( luceneUpdater, nativeUpdater, notSupportedByNative, supportedByNative );
     }
 
-    private void verifyAddWithCorrectUpdater( IndexUpdater correctPopulator, IndexUpdater wrongPopulator, Value... numberValues )
+    @Test
+    public void processMustSelectCorrectForChangeFromNativeToNativeString() throws Exception
+    {
+        // given
+        Value[] supportedByNative = FusionIndexTestHelp.valuesSupportedByNative();
+        Value[] supportedByNativeString = FusionIndexTestHelp.valuesSupportedByNativeString();
+
+        // when
+        // ... before - number
+        // ... after - string
+        verifyChangeWithCorrectUpdaterMixed( nativeUpdater, stringUpdater, supportedByNative, supportedByNativeString );
+    }
+
+    @Test
+    public void processMustSelectCorrectForChangeFromNativeStringToLucene() throws Exception
+    {
+        // given
+        Value[] supportedByNativeString = FusionIndexTestHelp.valuesSupportedByNativeString();
+        Value[] notSupportedByNative = FusionIndexTestHelp.valuesNotSupportedByNative();
+
+        // when
+        // ... before - string
+        // ... after - not supported
+        verifyChangeWithCorrectUpdaterMixed( stringUpdater, luceneUpdater, supportedByNativeString, notSupportedByNative );
+    }
+
+    private void verifyAddWithCorrectUpdater( IndexUpdater correctPopulator, Value... values )
             throws IndexEntryConflictException, IOException
     {
-        IndexEntryUpdate<LabelSchemaDescriptor> update = add( numberValues );
+        IndexEntryUpdate<LabelSchemaDescriptor> update = add( values );
         fusionIndexUpdater.process( update );
-        verify( correctPopulator, times( 1 ) ).process( update );
-        verify( wrongPopulator, times( 0 ) ).process( update );
+        verifyProcessedOnlyBy( correctPopulator, update );
     }
 
-    private void verifyRemoveWithCorrectUpdater( IndexUpdater correctPopulator, IndexUpdater wrongPopulator, Value... numberValues )
+    private void verifyRemoveWithCorrectUpdater( IndexUpdater correctPopulator, Value... values )
             throws IndexEntryConflictException, IOException
     {
-        IndexEntryUpdate<LabelSchemaDescriptor> update = FusionIndexTestHelp.remove( numberValues );
+        IndexEntryUpdate<LabelSchemaDescriptor> update = FusionIndexTestHelp.remove( values );
         fusionIndexUpdater.process( update );
-        verify( correctPopulator, times( 1 ) ).process( update );
-        verify( wrongPopulator, times( 0 ) ).process( update );
+        verifyProcessedOnlyBy( correctPopulator, update );
     }
 
-    private void verifyChangeWithCorrectUpdaterNotMixed( IndexUpdater correctPopulator, IndexUpdater wrongPopulator, Value before,
-            Value after ) throws IndexEntryConflictException, IOException
+    private void verifyChangeWithCorrectUpdaterNotMixed( IndexUpdater correctPopulator, Value before, Value after )
+            throws IndexEntryConflictException, IOException
     {
         IndexEntryUpdate<LabelSchemaDescriptor> update = FusionIndexTestHelp.change( before, after );
         fusionIndexUpdater.process( update );
-        verify( correctPopulator, times( 1 ) ).process( update );
-        verify( wrongPopulator, times( 0 ) ).process( update );
+        verifyProcessedOnlyBy( correctPopulator, update );
+    }
+
+    private void verifyProcessedOnlyBy( IndexUpdater correctPopulator, IndexEntryUpdate<LabelSchemaDescriptor> update )
+            throws IndexEntryConflictException, IOException
+    {
+        for ( IndexUpdater updater : new IndexUpdater[]{nativeUpdater, stringUpdater, luceneUpdater} )
+        {
+            verify( updater, times( updater == correctPopulator ? 1 : 0 ) ).process( update );
+        }
     }
 
     private void verifyChangeWithCorrectUpdaterMixed( IndexUpdater expectRemoveFrom, IndexUpdater expectAddTo, Value[] beforeValues,
@@ -261,13 +335,14 @@ public class FusionIndexUpdaterTest
     /* close */
 
     @Test
-    public void closeMustCloseBothNativeAndLucene() throws Exception
+    public void closeMustCloseAllUpdaters() throws Exception
     {
         // when
         fusionIndexUpdater.close();
 
         // then
         verify( nativeUpdater, times( 1 ) ).close();
+        verify( stringUpdater, times( 1 ) ).close();
         verify( luceneUpdater, times( 1 ) ).close();
     }
 
@@ -283,6 +358,19 @@ public class FusionIndexUpdaterTest
         FusionIndexTestHelp.verifyFusionCloseThrowOnSingleCloseThrow( nativeUpdater, fusionIndexUpdater );
     }
 
+    @Test
+    public void closeMustThrowIfStringThrow() throws Exception
+    {
+        FusionIndexTestHelp.verifyFusionCloseThrowOnSingleCloseThrow( stringUpdater, fusionIndexUpdater );
+    }
+
+    @Test
+    public void closeMustCloseNativeAndLuceneIfStringThrow() throws Exception
+    {
+        FusionIndexTestHelp.verifyOtherIsClosedOnSingleThrow( stringUpdater, nativeUpdater, fusionIndexUpdater );
+        verify( luceneUpdater, times( 1 ) ).close();
+    }
+
     @Test
     public void closeMustCloseNativeIfLuceneThrow() throws Exception
     {
@@ -27,6 +27,7 @@ import org.neo4j.kernel.api.index.InternalIndexState;
 import org.neo4j.kernel.api.index.SchemaIndexProvider;
 import org.neo4j.kernel.api.schema.index.IndexDescriptor;
 import org.neo4j.kernel.api.schema.index.IndexDescriptorFactory;
+import org.neo4j.kernel.impl.index.schema.LegacyNativeSelector;
 import org.neo4j.kernel.impl.index.schema.NativeSelector;
 import org.neo4j.kernel.impl.index.schema.fusion.FusionSchemaIndexProvider.Selector;
 import org.neo4j.storageengine.api.schema.IndexSample;
@@ -43,21 +44,27 @@ import static org.mockito.Matchers.anyLong;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.neo4j.helpers.ArrayUtil.array;
+import static org.neo4j.kernel.impl.index.schema.fusion.FusionIndexTestHelp.compositeSupportedByNative;
 
 public class FusionSchemaIndexProviderTest
 {
     private static final SchemaIndexProvider.Descriptor DESCRIPTOR = new SchemaIndexProvider.Descriptor( "test-fusion", "1" );
 
     private SchemaIndexProvider nativeProvider;
+    private SchemaIndexProvider stringProvider;
     private SchemaIndexProvider luceneProvider;
 
     @Before
     public void setup()
     {
         nativeProvider = mock( SchemaIndexProvider.class );
+        stringProvider = mock( SchemaIndexProvider.class );
         luceneProvider = mock( SchemaIndexProvider.class );
         when( nativeProvider.getProviderDescriptor() ).thenReturn( new SchemaIndexProvider.Descriptor( "native", "1" ) );
+        when( stringProvider.getProviderDescriptor() ).thenReturn( new SchemaIndexProvider.Descriptor( "string", "1" ) );
         when( luceneProvider.getProviderDescriptor() ).thenReturn( new SchemaIndexProvider.Descriptor( "lucene", "1" ) );
+        when( stringProvider.getPopulationFailure( anyLong() ) ).thenThrow( new IllegalStateException( "no string failure" ) );
+        setInitialState( stringProvider, InternalIndexState.ONLINE );
     }
 
     @Rule
@@ -68,6 +75,7 @@ public class FusionSchemaIndexProviderTest
     {
         // given
         Value[] numberValues = FusionIndexTestHelp.valuesSupportedByNative();
+        Value[] stringValues = FusionIndexTestHelp.valuesSupportedByNativeString();
         Value[] otherValues = FusionIndexTestHelp.valuesNotSupportedByNative();
         Value[] allValues = FusionIndexTestHelp.allValues();
 
@@ -76,32 +84,44 @@ public class FusionSchemaIndexProviderTest
         for ( Value numberValue : numberValues )
         {
             // when
-            SchemaIndexProvider selected = selector.select( nativeProvider, luceneProvider, numberValue );
+            SchemaIndexProvider selected = selector.select( nativeProvider, stringProvider, luceneProvider, numberValue );
 
             // then
             assertSame( nativeProvider, selected );
         }
 
+        // String values should go to native string provider
+        for ( Value stringValue : stringValues )
+        {
+            // when
+            SchemaIndexProvider selected = selector.select( nativeProvider, stringProvider, luceneProvider, stringValue );
+
+            // then
+            assertSame( stringProvider, selected );
+        }
+
         // Other values should go to lucene provider
         for ( Value otherValue : otherValues )
         {
             // when
-            SchemaIndexProvider selected = selector.select( nativeProvider, luceneProvider, otherValue );
+            SchemaIndexProvider selected = selector.select( nativeProvider, stringProvider, luceneProvider, otherValue );
 
             // then
             assertSame( luceneProvider, selected );
         }
 
-        // All composite values should go to lucene
+        // Composite values of only numbers should go to native provider, all other composite values to lucene
         for ( Value firstValue : allValues )
         {
             for ( Value secondValue : allValues )
             {
                 // when
-                SchemaIndexProvider selected = selector.select( nativeProvider, luceneProvider, firstValue, secondValue );
+                SchemaIndexProvider selected =
+                        selector.select( nativeProvider, stringProvider, luceneProvider, firstValue, secondValue );
 
                 // then
-                assertSame( luceneProvider, selected );
+                assertSame( compositeSupportedByNative( firstValue, secondValue ) ? nativeProvider : luceneProvider,
+                        selected );
             }
         }
     }
@@ -120,13 +140,18 @@ public class FusionSchemaIndexProviderTest
         int luceneSampleSize = random.nextInt( 0, 1_000_000 );
         IndexSample luceneSample = new IndexSample( luceneIndexSize, luceneUniqueValues, luceneSampleSize );
 
+        int stringIndexSize = random.nextInt( 0, 1_000_000 );
+        int stringUniqueValues = random.nextInt( 0, 1_000_000 );
+        int stringSampleSize = random.nextInt( 0, 1_000_000 );
+        IndexSample stringSample = new IndexSample( stringIndexSize, stringUniqueValues, stringSampleSize );
+
         // when
-        IndexSample fusionSample = FusionSchemaIndexProvider.combineSamples( nativeSample, luceneSample );
+        IndexSample fusionSample = FusionSchemaIndexProvider.combineSamples( nativeSample, stringSample, luceneSample );
 
         // then
-        assertEquals( nativeIndexSize + luceneIndexSize, fusionSample.indexSize() );
-        assertEquals( nativeUniqueValues + luceneUniqueValues, fusionSample.uniqueValues() );
-        assertEquals( nativeSampleSize + luceneSampleSize, fusionSample.sampleSize() );
+        assertEquals( nativeIndexSize + stringIndexSize + luceneIndexSize, fusionSample.indexSize() );
+        assertEquals( nativeUniqueValues + stringUniqueValues + luceneUniqueValues, fusionSample.uniqueValues() );
+        assertEquals( nativeSampleSize + stringSampleSize + luceneSampleSize, fusionSample.sampleSize() );
     }
 
     @Test
@@ -182,6 +207,21 @@ public class FusionSchemaIndexProviderTest
         assertThat( fusionSchemaIndexProvider.getPopulationFailure( 0 ), containsString( luceneFailure ) );
     }
 
+    @Test
+    public void getPopulationFailureMustReportFailureWhenStringFailure() throws Exception
+    {
+        FusionSchemaIndexProvider fusionSchemaIndexProvider = fusionProvider();
+
+        // when
+        // ... string failure
+        String stringFailure = "string failure";
+        when( nativeProvider.getPopulationFailure( anyLong() ) ).thenThrow( new IllegalStateException( "no native failure" ) );
+        when( stringProvider.getPopulationFailure( anyLong() ) ).thenReturn( stringFailure );
+        when( luceneProvider.getPopulationFailure( anyLong() ) ).thenThrow( new IllegalStateException( "no lucene failure" ) );
+        // then
+        assertThat( fusionSchemaIndexProvider.getPopulationFailure( 0 ), containsString( stringFailure ) );
+    }
+
     @Test
     public void getPopulationFailureMustReportFailureWhenBothFailure() throws Exception
     {
@@ -217,9 +257,15 @@ public class FusionSchemaIndexProviderTest
             setInitialState( luceneProvider, InternalIndexState.FAILED );
             InternalIndexState failed2 = provider.getInitialState( 0, indexDescriptor );
 
+            setInitialState( luceneProvider, state );
+            setInitialState( stringProvider, InternalIndexState.FAILED );
+            InternalIndexState failed3 = provider.getInitialState( 0, indexDescriptor );
+            setInitialState( stringProvider, InternalIndexState.ONLINE );
+
             // then
             assertEquals( InternalIndexState.FAILED, failed1 );
             assertEquals( InternalIndexState.FAILED, failed2 );
+            assertEquals( InternalIndexState.FAILED, failed3 );
         }
     }
 
@@ -241,15 +287,39 @@ public class FusionSchemaIndexProviderTest
             setInitialState( luceneProvider, InternalIndexState.POPULATING );
             InternalIndexState failed2 = provider.getInitialState( 0, indexDescriptor );
 
+            setInitialState( luceneProvider, state );
+            setInitialState( stringProvider, InternalIndexState.POPULATING );
+            InternalIndexState failed3 = provider.getInitialState( 0, indexDescriptor );
+            setInitialState( stringProvider, InternalIndexState.ONLINE );
+
             // then
             assertEquals( InternalIndexState.POPULATING, failed1 );
             assertEquals( InternalIndexState.POPULATING, failed2 );
+            assertEquals( InternalIndexState.POPULATING, failed3 );
         }
     }
 
+    @Test
+    public void shouldReportOnlineWithEmptyStringPartIfOthersAreOnline() throws Exception
+    {
+        // given
+        IndexDescriptor indexDescriptor = IndexDescriptorFactory.forLabel( 1, 1 );
+        FusionSchemaIndexProvider fusionProvider = new FusionSchemaIndexProvider( nativeProvider,
+                FusionSchemaIndexProvider.EMPTY_PART_PROVIDER, luceneProvider, new LegacyNativeSelector(), DESCRIPTOR,
+                10 );
+        setInitialState( nativeProvider, InternalIndexState.ONLINE );
+        setInitialState( luceneProvider, InternalIndexState.ONLINE );
+
+        // when
+        InternalIndexState state = fusionProvider.getInitialState( 0, indexDescriptor );
+
+        // then
+        assertEquals( InternalIndexState.ONLINE, state );
+    }
+
     private FusionSchemaIndexProvider fusionProvider()
     {
-        return new FusionSchemaIndexProvider( nativeProvider, luceneProvider, new NativeSelector(), DESCRIPTOR, 10 );
+        return new FusionSchemaIndexProvider( nativeProvider, stringProvider, luceneProvider, new NativeSelector(), DESCRIPTOR, 10 );
     }
 
     private void setInitialState( SchemaIndexProvider mockedProvider, InternalIndexState state )
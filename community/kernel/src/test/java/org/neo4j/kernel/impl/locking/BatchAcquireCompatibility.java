@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.concurrent.Future;
+
+import org.neo4j.storageengine.api.lock.AcquireLockTimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.kernel.impl.locking.ResourceTypes.NODE;
+
+@Ignore( "Not a test. This is a compatibility suite, run from LockingCompatibilityTestSuite." )
+public class BatchAcquireCompatibility extends LockingCompatibilityTestSuite.Compatibility
+{
+    public BatchAcquireCompatibility( LockingCompatibilityTestSuite suite )
+    {
+        super( suite );
+    }
+
+    @Test
+    public void shouldAcquireAllExclusiveLocksInBatch() throws Exception
+    {
+        // When
+        clientA.acquireExclusive( LockTracer.NONE, NODE, 1L, 2L, 3L );
+
+        // Then
+        assertEquals( 3, clientA.activeLockCount() );
+        assertFalse( clientB.trySharedLock( NODE, 1L ) );
+        assertFalse( clientB.trySharedLock( NODE, 2L ) );
+        assertFalse( clientB.trySharedLock( NODE, 3L ) );
+
+        // And when
+        clientA.releaseExclusive( NODE, 1L, 2L, 3L );
+
+        // Then
+        assertTrue( clientB.tryExclusiveLock( NODE, 1L ) );
+        assertTrue( clientB.tryExclusiveLock( NODE, 2L ) );
+        assertTrue( clientB.tryExclusiveLock( NODE, 3L ) );
+    }
+
+    @Test
+    public void shouldAcquireAllSharedLocksInBatch() throws Exception
+    {
+        // When
+        clientA.acquireShared( LockTracer.NONE, NODE, 1L, 2L, 3L );
+
+        // Then
+        assertEquals( 3, clientA.activeLockCount() );
+        assertTrue( clientB.trySharedLock( NODE, 2L ) );
+        assertFalse( clientC.tryExclusiveLock( NODE, 1L ) );
+        assertFalse( clientC.tryExclusiveLock( NODE, 3L ) );
+    }
+
+    @Test
+    public void shouldStackBatchOnLocksAlreadyHeld() throws Exception
+    {
+        // Given
+        clientA.acquireExclusive( LockTracer.NONE, NODE, 2L );
+
+        // When
+        clientA.acquireExclusive( LockTracer.NONE, NODE, 1L, 2L, 3L );
+        clientA.releaseExclusive( NODE, 1L, 2L, 3L );
+
+        // Then the lock taken before the batch is still held
+        assertTrue( clientB.tryExclusiveLock( NODE, 1L ) );
+        assertFalse( clientB.tryExclusiveLock( NODE, 2L ) );
+        assertTrue( clientB.tryExclusiveLock( NODE, 3L ) );
+
+        // And when
+        clientA.releaseExclusive( NODE, 2L );
+
+        // Then
+        assertTrue( clientB.tryExclusiveLock( NODE, 2L ) );
+    }
+
+    @Test
+    public void shouldWaitForContendedLockInBatchAndThenAcquireTheRest() throws Exception
+    {
+        // Given
+        clientB.acquireExclusive( LockTracer.NONE, NODE, 2L );
+
+        // When
+        Future<Object> batch = new LockCommand( threadA, clientA )
+        {
+            @Override
+            void doWork( Locks.Client client ) throws AcquireLockTimeoutException
+            {
+                client.acquireExclusive( LockTracer.NONE, NODE, 1L, 2L, 3L );
+            }
+        }.callAndAssertWaiting();
+
+        // Then the locks before the contended one are held while waiting
+        assertFalse( clientC.tryExclusiveLock( NODE, 1L ) );
+
+        // And when
+        clientB.releaseExclusive( NODE, 2L );
+
+        // Then
+        assertNotWaiting( clientA, batch );
+        assertEquals( 3, clientA.activeLockCount() );
+        assertFalse( clientC.tryExclusiveLock( NODE, 3L ) );
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.time.Clocks;
+import org.neo4j.time.FakeClock;
+
+import static org.junit.Assert.assertEquals;
+
+public class DefaultLockTracerTest
+{
+    private final FakeClock clock = Clocks.fakeClock();
+
+    @Test
+    public void shouldCountLockWaitsAndWaitTimePerResourceType() throws Exception
+    {
+        DefaultLockTracer tracer = new DefaultLockTracer( clock );
+
+        waitForLock( tracer, ResourceTypes.NODE, 20 );
+        waitForLock( tracer, ResourceTypes.NODE, 30 );
+        waitForLock( tracer, ResourceTypes.RELATIONSHIP, 5 );
+
+        assertEquals( 2, tracer.numberOfLockWaits( ResourceTypes.NODE ) );
+        assertEquals( 50, tracer.lockWaitAccumulatedTotalTimeMillis( ResourceTypes.NODE ) );
+        assertEquals( 1, tracer.numberOfLockWaits( ResourceTypes.RELATIONSHIP ) );
+        assertEquals( 5, tracer.lockWaitAccumulatedTotalTimeMillis( ResourceTypes.RELATIONSHIP ) );
+    }
+
+    @Test
+    public void shouldCountDeadlocksPerResourceType() throws Exception
+    {
+        DefaultLockTracer tracer = new DefaultLockTracer( clock );
+
+        tracer.deadlockDetected( ResourceTypes.NODE, 1 );
+        tracer.deadlockDetected( ResourceTypes.NODE, 2 );
+        tracer.deadlockDetected( ResourceTypes.RELATIONSHIP, 1 );
+
+        assertEquals( 2, tracer.numberOfDeadlocks( ResourceTypes.NODE ) );
+        assertEquals( 1, tracer.numberOfDeadlocks( ResourceTypes.RELATIONSHIP ) );
+    }
+
+    @Test
+    public void shouldReturnZeroForResourceTypesWithoutWaits() throws Exception
+    {
+        DefaultLockTracer tracer = new DefaultLockTracer( clock );
+
+        assertEquals( 0, tracer.numberOfLockWaits( ResourceTypes.LABEL ) );
+        assertEquals( 0, tracer.lockWaitAccumulatedTotalTimeMillis( ResourceTypes.LABEL ) );
+        assertEquals( 0, tracer.numberOfDeadlocks( ResourceTypes.LABEL ) );
+    }
+
+    private void waitForLock( DefaultLockTracer tracer, ResourceTypes resourceType, long waitMillis )
+    {
+        try ( LockWaitEvent event = tracer.waitForLock( false, resourceType, 1 ) )
+        {
+            clock.forward( waitMillis, TimeUnit.MILLISECONDS );
+        }
+    }
+}
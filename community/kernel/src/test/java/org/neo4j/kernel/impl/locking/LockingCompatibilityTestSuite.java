@@ -60,6 +60,7 @@ import static org.neo4j.test.rule.concurrent.OtherThreadRule.isWaiting;
         AcquisitionTimeoutCompatibility.class,
         TracerCompatibility.class,
         ActiveLocksListingCompatibility.class,
+        BatchAcquireCompatibility.class,
 } )
 public abstract class LockingCompatibilityTestSuite
 {
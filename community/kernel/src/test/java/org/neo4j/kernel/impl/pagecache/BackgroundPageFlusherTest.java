@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.impl.util.Neo4jJobScheduler;
+import org.neo4j.kernel.lifecycle.LifeSupport;
+import org.neo4j.logging.NullLog;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+public class BackgroundPageFlusherTest
+{
+    private final LifeSupport life = new LifeSupport();
+    private final PageCache pageCache = mock( PageCache.class );
+    private final IOLimiter limiter = mock( IOLimiter.class );
+    private Neo4jJobScheduler scheduler;
+
+    @Before
+    public void setUp()
+    {
+        scheduler = life.add( new Neo4jJobScheduler() );
+        life.start();
+    }
+
+    @After
+    public void tearDown()
+    {
+        life.shutdown();
+    }
+
+    @Test
+    public void mustRepeatedlyWritePagesWithoutForcingThem() throws Throwable
+    {
+        // given
+        BackgroundPageFlusher flusher = flusher();
+
+        // when
+        flusher.start();
+
+        // then
+        verify( pageCache, timeout( 10_000 ).atLeast( 3 ) ).flush( limiter );
+        verify( pageCache, never() ).flushAndForce( limiter );
+        verify( pageCache, never() ).flushAndForce();
+        flusher.stop();
+    }
+
+    @Test
+    public void mustKeepFlushingAfterFailure() throws Throwable
+    {
+        // given
+        doThrow( new IOException( "boom" ) ).when( pageCache ).flush( limiter );
+        BackgroundPageFlusher flusher = flusher();
+
+        // when
+        flusher.start();
+
+        // then
+        verify( pageCache, timeout( 10_000 ).atLeast( 3 ) ).flush( limiter );
+        flusher.stop();
+    }
+
+    @Test
+    public void mustNotFlushAfterStop() throws Throwable
+    {
+        // given
+        AtomicInteger flushes = new AtomicInteger();
+        doAnswer( invocation -> flushes.incrementAndGet() ).when( pageCache ).flush( limiter );
+        BackgroundPageFlusher flusher = flusher();
+        flusher.start();
+        verify( pageCache, timeout( 10_000 ) ).flush( limiter );
+
+        // when
+        flusher.stop();
+        int flushesAtStop = flushes.get();
+        Thread.sleep( 100 );
+
+        // then
+        assertThat( flushes.get(), is( flushesAtStop ) );
+    }
+
+    private BackgroundPageFlusher flusher()
+    {
+        return new BackgroundPageFlusher( pageCache, limiter, scheduler, 1, NullLog.getInstance() );
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+
+import java.io.File;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.kernel.impl.util.Neo4jJobScheduler;
+import org.neo4j.kernel.lifecycle.LifeSupport;
+import org.neo4j.logging.NullLog;
+import org.neo4j.test.rule.PageCacheRule;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.test.rule.fs.EphemeralFileSystemRule;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+import static org.neo4j.test.rule.PageCacheRule.config;
+
+public class PageCacheWarmerTest
+{
+    private static final int PAGE_SIZE = 8192;
+    private static final int FILE_PAGES = 10;
+
+    private final EphemeralFileSystemRule fsRule = new EphemeralFileSystemRule();
+    private final PageCacheRule pageCacheRule = new PageCacheRule( config().withInconsistentReads( false ) );
+    private final TestDirectory testDirectory = TestDirectory.testDirectory( fsRule.get() );
+
+    @Rule
+    public RuleChain ruleChain = RuleChain.outerRule( pageCacheRule ).around( fsRule ).around( testDirectory );
+
+    private final LifeSupport life = new LifeSupport();
+    private final PageCacheWarmer.Monitor monitor = mock( PageCacheWarmer.Monitor.class );
+    private Neo4jJobScheduler scheduler;
+    private FileSystemAbstraction fs;
+    private File storeDir;
+    private File file;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        scheduler = life.add( new Neo4jJobScheduler() );
+        life.start();
+        fs = fsRule.get();
+        storeDir = testDirectory.graphDbDir();
+        file = new File( storeDir, "store" );
+
+        PageCache pageCache = pageCacheRule.getPageCache( fs );
+        try ( PagedFile pagedFile = pageCache.map( file, PAGE_SIZE, CREATE );
+              PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+        {
+            for ( int i = 0; i < FILE_PAGES; i++ )
+            {
+                assertTrue( cursor.next() );
+            }
+        }
+    }
+
+    @After
+    public void tearDown()
+    {
+        life.shutdown();
+    }
+
+    @Test
+    public void mustLoadProfiledPagesOnWarmup() throws Exception
+    {
+        PageCache pageCache = pageCacheRule.getPageCache( fs );
+        try ( PagedFile pagedFile = pageCache.map( file, PAGE_SIZE ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK ) )
+            {
+                assertTrue( cursor.next( 2 ) );
+                assertTrue( cursor.next( 5 ) );
+                assertTrue( cursor.next( 7 ) );
+            }
+            assertThat( warmer( pageCache ).profile(), is( 3L ) );
+        }
+        assertTrue( fs.fileExists( PageCacheWarmer.profileFile( file ) ) );
+
+        pageCache = pageCacheRule.getPageCache( fs );
+        try ( PagedFile pagedFile = pageCache.map( file, PAGE_SIZE ) )
+        {
+            assertThat( warmer( pageCache ).warmUp(), is( 3L ) );
+            verify( monitor ).warmupStarted( 3 );
+            verify( monitor ).pagesLoaded( 3 );
+
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_NO_FAULT ) )
+            {
+                for ( long pageId = 0; pageId < FILE_PAGES; pageId++ )
+                {
+                    assertTrue( cursor.next() );
+                    boolean profiled = pageId == 2 || pageId == 5 || pageId == 7;
+                    assertThat( cursor.getCurrentPageId() != PageCursor.UNBOUND_PAGE_ID, is( profiled ) );
+                }
+            }
+        }
+    }
+
+    @Test
+    public void mustNotLoadAnyPagesWithoutProfile() throws Exception
+    {
+        PageCache pageCache = pageCacheRule.getPageCache( fs );
+        try ( PagedFile pagedFile = pageCache.map( file, PAGE_SIZE ) )
+        {
+            assertFalse( fs.fileExists( PageCacheWarmer.profileFile( file ) ) );
+            assertThat( warmer( pageCache ).warmUp(), is( 0L ) );
+        }
+    }
+
+    @Test
+    public void mustIgnoreFilesOutsideOfStoreDirectory() throws Exception
+    {
+        File otherFile = testDirectory.file( "other" );
+        PageCache pageCache = pageCacheRule.getPageCache( fs );
+        try ( PagedFile pagedFile = pageCache.map( otherFile, PAGE_SIZE, CREATE ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+            }
+            assertThat( warmer( pageCache ).profile(), is( 0L ) );
+        }
+        assertFalse( fs.fileExists( PageCacheWarmer.profileFile( otherFile ) ) );
+    }
+
+    private PageCacheWarmer warmer( PageCache pageCache )
+    {
+        return new PageCacheWarmer( fs, pageCache, scheduler, storeDir, 1000, monitor, NullLog.getInstance() );
+    }
+}
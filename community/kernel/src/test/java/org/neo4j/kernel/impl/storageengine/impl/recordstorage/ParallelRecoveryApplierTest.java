@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.storageengine.impl.recordstorage;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neo4j.kernel.impl.api.TransactionToApply;
+import org.neo4j.kernel.impl.core.CacheAccessBackDoor;
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.impl.store.RecordStore;
+import org.neo4j.kernel.impl.store.record.DynamicRecord;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.Record;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+import org.neo4j.kernel.impl.transaction.command.Command;
+import org.neo4j.kernel.impl.transaction.command.Command.NodeCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.RelationshipCommand;
+import org.neo4j.kernel.impl.transaction.command.Commands;
+import org.neo4j.kernel.impl.transaction.command.HighIdBatchTransactionApplier;
+import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
+import org.neo4j.storageengine.api.StorageCommand;
+import org.neo4j.test.rule.NeoStoresRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.neo4j.kernel.impl.store.record.RecordLoad.FORCE;
+
+public class ParallelRecoveryApplierTest
+{
+    @Rule
+    public final NeoStoresRule neoStoresRule = new NeoStoresRule( getClass() );
+
+    @Test
+    public void shouldWriteTheLastVersionOfEveryRecord() throws Exception
+    {
+        // GIVEN
+        NeoStores neoStores = neoStoresRule.builder().build();
+        neoStores.deleteIdGenerators(); // like the storage engine does before recovery
+        List<List<Command>> transactions = new ArrayList<>();
+        int relationshipsPerTransaction = 10;
+        for ( int tx = 0; tx < 50; tx++ )
+        {
+            List<Command> commands = new ArrayList<>();
+            for ( int i = 0; i < relationshipsPerTransaction; i++ )
+            {
+                commands.add( Commands.createRelationship( tx * relationshipsPerTransaction + i, 1, 2, 0 ) );
+            }
+            transactions.add( commands );
+        }
+        for ( int tx = 0; tx < 50; tx++ )
+        {
+            List<Command> commands = new ArrayList<>();
+            for ( int i = 0; i < relationshipsPerTransaction; i++ )
+            {
+                commands.add( Commands.createRelationship( tx * relationshipsPerTransaction + i, 1, 2, 1 ) );
+            }
+            transactions.add( commands );
+        }
+        RelationshipRecord deleted = new RelationshipRecord( 42 );
+        transactions.add(
+                Collections.singletonList( new RelationshipCommand( new RelationshipRecord( 42 ), deleted ) ) );
+
+        // WHEN
+        try ( ParallelRecoveryApplier applier = new ParallelRecoveryApplier( neoStores,
+                mock( CacheAccessBackDoor.class ), 4, new ParallelRecoveryApplier.Monitor()
+                {
+                } ) )
+        {
+            applier.apply( batch( transactions ), new HighIdBatchTransactionApplier( neoStores ) );
+        }
+
+        // THEN
+        RecordStore<RelationshipRecord> relationshipStore = neoStores.getRelationshipStore();
+        for ( int id = 0; id < 50 * relationshipsPerTransaction; id++ )
+        {
+            RelationshipRecord record = relationshipStore.getRecord( id, relationshipStore.newRecord(), FORCE );
+            if ( id == 42 )
+            {
+                assertFalse( record.inUse() );
+            }
+            else
+            {
+                assertTrue( record.inUse() );
+                assertEquals( 1, record.getType() );
+            }
+        }
+    }
+
+    @Test
+    public void shouldWriteRecordsReusedByDifferentPartitionsInLogOrder() throws Exception
+    {
+        // GIVEN
+        NeoStores neoStores = neoStoresRule.builder().build();
+        neoStores.deleteIdGenerators(); // like the storage engine does before recovery
+        int dynamicLabelRecordId = 3;
+        NodeCommand first = Commands.createNode( 0, dynamicLabelRecordId );
+        // A node on the next page, which is applied by another partition, reusing the same dynamic label record
+        long otherNodeId = neoStores.getNodeStore().getRecordsPerPage();
+        NodeRecord otherNode = new NodeRecord( otherNodeId ).initialize( true, Record.NO_NEXT_PROPERTY.intValue(),
+                false, Record.NO_NEXT_RELATIONSHIP.intValue(), 0 );
+        DynamicRecord unusedLabelRecord = new DynamicRecord( dynamicLabelRecordId );
+        unusedLabelRecord.setInUse( false );
+        otherNode.setLabelField( 0, Collections.singletonList( unusedLabelRecord ) );
+        NodeCommand second = new NodeCommand( new NodeRecord( otherNodeId ), otherNode );
+        AtomicInteger rounds = new AtomicInteger();
+
+        // WHEN
+        List<List<Command>> transactions = new ArrayList<>();
+        transactions.add( Collections.singletonList( first ) );
+        transactions.add( Collections.singletonList( second ) );
+        try ( ParallelRecoveryApplier applier = new ParallelRecoveryApplier( neoStores,
+                mock( CacheAccessBackDoor.class ), 2, new ParallelRecoveryApplier.Monitor()
+                {
+                    @Override
+                    public void batchRecovered( int transactions, long commands, int round, long elapsedNanos )
+                    {
+                        rounds.set( round );
+                    }
+                } ) )
+        {
+            applier.apply( batch( transactions ), new HighIdBatchTransactionApplier( neoStores ) );
+        }
+
+        // THEN
+        assertEquals( 2, rounds.get() );
+        RecordStore<DynamicRecord> labelStore = neoStores.getNodeStore().getDynamicLabelStore();
+        assertFalse( labelStore.getRecord( dynamicLabelRecordId, labelStore.newRecord(), FORCE ).inUse() );
+        RecordStore<NodeRecord> nodeStore = neoStores.getNodeStore();
+        assertTrue( nodeStore.getRecord( 0, nodeStore.newRecord(), FORCE ).inUse() );
+        assertTrue( nodeStore.getRecord( otherNodeId, nodeStore.newRecord(), FORCE ).inUse() );
+    }
+
+    @Test
+    public void shouldReuseThreadsForAllBatchesUntilClosed() throws Exception
+    {
+        // GIVEN
+        NeoStores neoStores = neoStoresRule.builder().build();
+        neoStores.deleteIdGenerators(); // like the storage engine does before recovery
+        long otherNodeId = neoStores.getNodeStore().getRecordsPerPage();
+        ParallelRecoveryApplier applier = new ParallelRecoveryApplier( neoStores, mock( CacheAccessBackDoor.class ), 2,
+                new ParallelRecoveryApplier.Monitor()
+                {
+                } );
+
+        // WHEN
+        applier.apply( batch( Collections.singletonList(
+                Arrays.asList( Commands.createNode( 0 ), Commands.createNode( otherNodeId ) ) ) ),
+                new HighIdBatchTransactionApplier( neoStores ) );
+        Set<Thread> threadsOfFirstBatch = recoveryThreads();
+        applier.apply( batch( Collections.singletonList(
+                Arrays.asList( Commands.createNode( 1 ), Commands.createNode( otherNodeId + 1 ) ) ) ),
+                new HighIdBatchTransactionApplier( neoStores ) );
+        Set<Thread> threadsOfSecondBatch = recoveryThreads();
+        applier.close();
+
+        // THEN
+        assertEquals( 2, threadsOfFirstBatch.size() );
+        assertEquals( threadsOfFirstBatch, threadsOfSecondBatch );
+        for ( Thread thread : threadsOfSecondBatch )
+        {
+            thread.join( TimeUnit.MINUTES.toMillis( 1 ) );
+            assertFalse( thread.isAlive() );
+        }
+    }
+
+    private static Set<Thread> recoveryThreads()
+    {
+        Set<Thread> threads = new HashSet<>();
+        for ( Thread thread : Thread.getAllStackTraces().keySet() )
+        {
+            if ( thread.isAlive() && thread.getName().startsWith( "parallel-recovery" ) )
+            {
+                threads.add( thread );
+            }
+        }
+        return threads;
+    }
+
+    private static TransactionToApply batch( List<List<Command>> transactions )
+    {
+        TransactionToApply first = null;
+        TransactionToApply last = null;
+        long txId = 2;
+        for ( List<Command> commands : transactions )
+        {
+            PhysicalTransactionRepresentation representation =
+                    new PhysicalTransactionRepresentation( new ArrayList<StorageCommand>( commands ) );
+            representation.setHeader( new byte[0], -1, -1, -1, -1, -1, -1 );
+            TransactionToApply tx = new TransactionToApply( representation, txId++ );
+            if ( first == null )
+            {
+                first = tx;
+            }
+            else
+            {
+                last.next( tx );
+            }
+            last = tx;
+        }
+        return first;
+    }
+}
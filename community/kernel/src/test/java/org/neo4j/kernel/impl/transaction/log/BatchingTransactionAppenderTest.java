@@ -23,11 +23,13 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.io.File;
 import java.io.Flushable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 
+import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.kernel.impl.api.TransactionToApply;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
 import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
@@ -42,6 +44,7 @@ import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogCheckPointEvent;
 import org.neo4j.kernel.internal.DatabaseHealth;
 import org.neo4j.kernel.lifecycle.LifeRule;
+import org.neo4j.logging.NullLogProvider;
 import org.neo4j.storageengine.api.StorageCommand;
 import org.neo4j.test.rule.CleanupRule;
 
@@ -51,15 +54,19 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyByte;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.RETURNS_MOCKS;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -229,6 +236,34 @@ public class BatchingTransactionAppenderTest
         }
     }
 
+    @Test
+    public void shouldCommitTransactionEvenIfPositionIndexFailsToWrite() throws Exception
+    {
+        // GIVEN
+        when( logFile.getWriter() ).thenReturn( channel );
+        long txId = 15;
+        when( transactionIdStore.nextCommittingTransactionId() ).thenReturn( txId );
+        FileSystemAbstraction fs = mock( FileSystemAbstraction.class );
+        when( fs.open( any( File.class ), anyString() ) ).thenThrow( new IOException( "No space left on device" ) );
+        TransactionLogPositionIndex positionIndex = new TransactionLogPositionIndex( fs,
+                new PhysicalLogFiles( new File( "dir" ), fs ), NullLogProvider.getInstance() );
+        Mockito.reset( databaseHealth );
+        TransactionAppender appender = life.add( new BatchingTransactionAppender( logFile, NO_ROTATION, positionCache,
+                transactionIdStore, BYPASS, databaseHealth, 0, mock( BatchingTransactionAppender.Monitor.class ), null,
+                positionIndex ) );
+
+        // WHEN
+        TransactionToApply batch = new TransactionToApply(
+                transaction( singleCreateNodeCommand( 0 ), new byte[0], 0, 0, 0, 1, 0 ) );
+        long appendedTxId = appender.append( batch, logAppendEvent );
+
+        // THEN
+        assertEquals( txId, appendedTxId );
+        assertTrue( positionIndex.isDisabled() );
+        verify( databaseHealth, never() ).panic( any( Throwable.class ) );
+        verify( transactionIdStore ).transactionCommitted( eq( txId ), anyLong(), anyLong() );
+    }
+
     @Test
     public void shouldNotCallTransactionClosedOnFailedAppendedTransaction() throws Exception
     {
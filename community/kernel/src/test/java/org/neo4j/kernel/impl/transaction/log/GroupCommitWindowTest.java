@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GroupCommitWindowTest
+{
+    private static final long MAX_WINDOW = TimeUnit.MILLISECONDS.toNanos( 2 );
+
+    @Test
+    public void disabledWindowMustNeverWait() throws Exception
+    {
+        GroupCommitWindow window = GroupCommitWindow.NONE;
+        for ( int i = 0; i < 100; i++ )
+        {
+            window.transactionArrived();
+            window.logForced( TimeUnit.MILLISECONDS.toNanos( 10 ) );
+        }
+        assertEquals( 0, window.windowNanos() );
+    }
+
+    @Test
+    public void mustNotWaitBeforeAnyLogForceHasBeenObserved() throws Exception
+    {
+        GroupCommitWindow window = new GroupCommitWindow( MAX_WINDOW );
+        for ( int i = 0; i < 100; i++ )
+        {
+            window.transactionArrived();
+        }
+        assertEquals( 0, window.windowNanos() );
+    }
+
+    @Test
+    public void mustNotWaitWhenNoTransactionsAreArriving() throws Exception
+    {
+        GroupCommitWindow window = new GroupCommitWindow( MAX_WINDOW );
+        window.logForced( TimeUnit.MILLISECONDS.toNanos( 1 ) );
+        assertEquals( 0, window.windowNanos() );
+    }
+
+    @Test
+    public void windowMustBeBoundedByHalfTheAverageLogForceTime() throws Exception
+    {
+        GroupCommitWindow window = new GroupCommitWindow( MAX_WINDOW );
+        long forceNanos = TimeUnit.MICROSECONDS.toNanos( 500 );
+        for ( int i = 0; i < 100; i++ )
+        {
+            window.transactionArrived();
+            window.logForced( forceNanos );
+        }
+        long windowNanos = window.windowNanos();
+        // Back-to-back arrivals are much closer together than the force time, so the window must be open.
+        assertTrue( "window should be open, but was " + windowNanos, windowNanos > 0 );
+        assertTrue( "window should be at most half the force time, but was " + windowNanos,
+                windowNanos <= forceNanos / 2 );
+    }
+
+    @Test
+    public void windowMustBeBoundedByTheConfiguredMaximum() throws Exception
+    {
+        GroupCommitWindow window = new GroupCommitWindow( MAX_WINDOW );
+        for ( int i = 0; i < 100; i++ )
+        {
+            window.transactionArrived();
+            window.logForced( TimeUnit.MILLISECONDS.toNanos( 100 ) );
+        }
+        assertEquals( MAX_WINDOW, window.windowNanos() );
+    }
+
+    @Test
+    public void awaitWindowMustWaitForTheWindow() throws Exception
+    {
+        GroupCommitWindow window = new GroupCommitWindow( MAX_WINDOW );
+        for ( int i = 0; i < 100; i++ )
+        {
+            window.transactionArrived();
+            window.logForced( TimeUnit.MILLISECONDS.toNanos( 100 ) );
+        }
+        long start = System.nanoTime();
+        window.awaitWindow();
+        assertTrue( System.nanoTime() - start >= MAX_WINDOW );
+    }
+}
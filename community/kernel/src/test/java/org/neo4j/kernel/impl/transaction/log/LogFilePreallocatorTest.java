@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.logging.NullLog;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.test.rule.fs.DefaultFileSystemRule;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LogFilePreallocatorTest
+{
+    private static final int PREALLOCATED_SIZE = 1000;
+
+    private final TestDirectory directory = TestDirectory.testDirectory();
+    private final DefaultFileSystemRule fileSystemRule = new DefaultFileSystemRule();
+
+    @Rule
+    public RuleChain ruleChain = RuleChain.outerRule( directory ).around( fileSystemRule );
+
+    @Test
+    public void shouldExtendFileToPreallocatedSizeWithoutMovingPosition() throws Exception
+    {
+        // GIVEN
+        FileSystemAbstraction fs = fileSystemRule.get();
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( directory.directory(), "log", fs );
+        LogFilePreallocator preallocator = preallocator( fs, logFiles );
+
+        try ( StoreChannel channel = fs.create( logFiles.getLogFileForVersion( 0 ) ) )
+        {
+            channel.writeAll( ByteBuffer.wrap( new byte[]{1, 2, 3} ) );
+
+            // WHEN
+            preallocator.preallocate( channel );
+
+            // THEN
+            assertEquals( PREALLOCATED_SIZE, channel.size() );
+            assertEquals( 3, channel.position() );
+        }
+    }
+
+    @Test
+    public void shouldPrepareZeroFilledSpareWhenStarted() throws Exception
+    {
+        // GIVEN
+        FileSystemAbstraction fs = fileSystemRule.get();
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( directory.directory(), "log", fs );
+        LogFilePreallocator preallocator = preallocator( fs, logFiles );
+
+        // WHEN
+        preallocator.start();
+
+        // THEN
+        assertFalse( fs.fileExists( logFiles.getRecyclingLogFile() ) );
+        assertArrayEquals( new byte[PREALLOCATED_SIZE], readAllBytes( fs, logFiles.getSpareLogFile() ) );
+    }
+
+    @Test
+    public void shouldRecyclePrunedLogFileIntoZeroFilledSpare() throws Exception
+    {
+        // GIVEN
+        FileSystemAbstraction fs = fileSystemRule.get();
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( directory.directory(), "log", fs );
+        LogFilePreallocator preallocator = preallocator( fs, logFiles );
+        File prunedLogFile = logFiles.getLogFileForVersion( 0 );
+        writeNonZeroBytes( fs, prunedLogFile, PREALLOCATED_SIZE + 100 );
+
+        // WHEN
+        preallocator.renameToRecycle( prunedLogFile );
+
+        // THEN
+        assertFalse( fs.fileExists( prunedLogFile ) );
+        assertEquals( PREALLOCATED_SIZE + 100, fs.getFileSize( logFiles.getRecyclingLogFile() ) );
+
+        // WHEN
+        preallocator.start();
+
+        // THEN
+        assertFalse( fs.fileExists( logFiles.getRecyclingLogFile() ) );
+        assertArrayEquals( new byte[PREALLOCATED_SIZE], readAllBytes( fs, logFiles.getSpareLogFile() ) );
+    }
+
+    @Test
+    public void shouldDeletePrunedLogFileIfThereAlreadyIsOneToRecycle() throws Exception
+    {
+        // GIVEN
+        FileSystemAbstraction fs = fileSystemRule.get();
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( directory.directory(), "log", fs );
+        LogFilePreallocator preallocator = preallocator( fs, logFiles );
+        File firstPrunedLogFile = logFiles.getLogFileForVersion( 0 );
+        File secondPrunedLogFile = logFiles.getLogFileForVersion( 1 );
+        writeNonZeroBytes( fs, firstPrunedLogFile, PREALLOCATED_SIZE );
+        writeNonZeroBytes( fs, secondPrunedLogFile, PREALLOCATED_SIZE + 1 );
+        preallocator.renameToRecycle( firstPrunedLogFile );
+
+        // WHEN
+        preallocator.renameToRecycle( secondPrunedLogFile );
+
+        // THEN
+        assertFalse( fs.fileExists( secondPrunedLogFile ) );
+        assertEquals( PREALLOCATED_SIZE, fs.getFileSize( logFiles.getRecyclingLogFile() ) );
+    }
+
+    @Test
+    public void shouldKeepPrunedLogFileToRecycleForTheSpareAfterTheCurrentOne() throws Exception
+    {
+        // GIVEN
+        FileSystemAbstraction fs = fileSystemRule.get();
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( directory.directory(), "log", fs );
+        LogFilePreallocator preallocator = preallocator( fs, logFiles );
+        preallocator.start();
+        File prunedLogFile = logFiles.getLogFileForVersion( 0 );
+        writeNonZeroBytes( fs, prunedLogFile, PREALLOCATED_SIZE );
+
+        // WHEN
+        preallocator.renameToRecycle( prunedLogFile );
+
+        // THEN
+        assertTrue( fs.fileExists( logFiles.getSpareLogFile() ) );
+        assertTrue( fs.fileExists( logFiles.getRecyclingLogFile() ) );
+
+        // WHEN
+        assertTrue( preallocator.reuseSpare( logFiles.getLogFileForVersion( 1 ) ) );
+
+        // THEN
+        assertFalse( fs.fileExists( logFiles.getRecyclingLogFile() ) );
+        assertArrayEquals( new byte[PREALLOCATED_SIZE], readAllBytes( fs, logFiles.getSpareLogFile() ) );
+    }
+
+    @Test
+    public void shouldOnlyReuseSpareIfThereIsOne() throws Exception
+    {
+        // GIVEN
+        FileSystemAbstraction fs = fileSystemRule.get();
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( directory.directory(), "log", fs );
+        LogFilePreallocator preallocator = preallocator( fs, logFiles );
+        File nextLogFile = logFiles.getLogFileForVersion( 1 );
+
+        // WHEN/THEN
+        assertFalse( preallocator.reuseSpare( nextLogFile ) );
+        assertFalse( fs.fileExists( nextLogFile ) );
+
+        preallocator.start();
+        assertTrue( preallocator.reuseSpare( nextLogFile ) );
+        assertArrayEquals( new byte[PREALLOCATED_SIZE], readAllBytes( fs, nextLogFile ) );
+    }
+
+    @Test
+    public void shouldPrepareNextSpareWhenSpareHasBeenReused() throws Exception
+    {
+        // GIVEN
+        FileSystemAbstraction fs = fileSystemRule.get();
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( directory.directory(), "log", fs );
+        List<Runnable> jobs = new ArrayList<>();
+        LogFilePreallocator preallocator =
+                new LogFilePreallocator( fs, logFiles, PREALLOCATED_SIZE, jobs::add, NullLog.getInstance() );
+        preallocator.start();
+        jobs.remove( 0 ).run();
+
+        // WHEN
+        preallocator.reuseSpare( logFiles.getLogFileForVersion( 1 ) );
+
+        // THEN
+        assertFalse( fs.fileExists( logFiles.getSpareLogFile() ) );
+        assertEquals( 1, jobs.size() );
+        jobs.remove( 0 ).run();
+        assertArrayEquals( new byte[PREALLOCATED_SIZE], readAllBytes( fs, logFiles.getSpareLogFile() ) );
+    }
+
+    private static LogFilePreallocator preallocator( FileSystemAbstraction fs, PhysicalLogFiles logFiles )
+    {
+        return new LogFilePreallocator( fs, logFiles, PREALLOCATED_SIZE, Runnable::run, NullLog.getInstance() );
+    }
+
+    private static void writeNonZeroBytes( FileSystemAbstraction fs, File file, int length ) throws IOException
+    {
+        byte[] bytes = new byte[length];
+        Arrays.fill( bytes, (byte) 7 );
+        try ( StoreChannel channel = fs.create( file ) )
+        {
+            channel.writeAll( ByteBuffer.wrap( bytes ) );
+        }
+    }
+
+    private static byte[] readAllBytes( FileSystemAbstraction fs, File file ) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate( (int) fs.getFileSize( file ) );
+        try ( StoreChannel channel = fs.open( file, "r" ) )
+        {
+            while ( buffer.hasRemaining() && channel.read( buffer ) != -1 )
+            {
+                // keep reading
+            }
+        }
+        return buffer.array();
+    }
+}
@@ -34,13 +34,17 @@ import org.neo4j.kernel.impl.transaction.DeadSimpleLogVersionRepository;
 import org.neo4j.kernel.impl.transaction.DeadSimpleTransactionIdStore;
 import org.neo4j.kernel.impl.transaction.log.PhysicalLogFile.Monitor;
 import org.neo4j.kernel.impl.transaction.log.entry.IncompleteLogHeaderException;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryWriter;
 import org.neo4j.kernel.impl.transaction.log.entry.LogHeader;
+import org.neo4j.kernel.impl.transaction.log.entry.VersionAwareLogEntryReader;
 import org.neo4j.kernel.lifecycle.LifeRule;
+import org.neo4j.logging.NullLog;
 import org.neo4j.test.rule.TestDirectory;
 import org.neo4j.test.rule.fs.DefaultFileSystemRule;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
@@ -51,6 +55,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.neo4j.kernel.impl.transaction.log.TransactionIdStore.BASE_TX_COMMIT_TIMESTAMP;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogHeader.LOG_HEADER_SIZE;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogHeaderReader.readLogHeader;
 
 public class PhysicalLogFileTest
@@ -276,6 +281,92 @@ public class PhysicalLogFileTest
         }
     }
 
+    @Test
+    public void shouldContinueAfterLastEntryOfPreallocatedLogFile() throws Exception
+    {
+        // GIVEN
+        FileSystemAbstraction fs = fileSystemRule.get();
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( directory.directory(), "log", fs );
+        PhysicalLogFile crashedLogFile = preallocatedLogFile( fs, logFiles );
+        crashedLogFile.init();
+        crashedLogFile.start();
+        FlushablePositionAwareChannel writer = crashedLogFile.getWriter();
+        new LogEntryWriter( writer ).writeCheckPointEntry( new LogPosition( 1, LOG_HEADER_SIZE ) );
+        writer.prepareForFlush().flush();
+        LogPositionMarker endOfEntries = new LogPositionMarker();
+        writer.getCurrentPosition( endOfEntries );
+        assertEquals( 1000, fs.getFileSize( logFiles.getLogFileForVersion( 1 ) ) );
+
+        // WHEN starting again, without having shut down
+        LogFile logFile = life.add( preallocatedLogFile( fs, logFiles ) );
+
+        // THEN
+        LogPositionMarker position = new LogPositionMarker();
+        logFile.getWriter().getCurrentPosition( position );
+        assertEquals( endOfEntries.newPosition(), position.newPosition() );
+        crashedLogFile.shutdown();
+    }
+
+    @Test
+    public void shouldTruncatePreallocatedLogFileWhenRotatingAwayFromIt() throws Exception
+    {
+        // GIVEN
+        FileSystemAbstraction fs = fileSystemRule.get();
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( directory.directory(), "log", fs );
+        LogFile logFile = life.add( preallocatedLogFile( fs, logFiles ) );
+        logFile.getWriter().putInt( 45 ).putLong( 4854587 );
+
+        // WHEN
+        logFile.rotate();
+
+        // THEN
+        assertEquals( LOG_HEADER_SIZE + 12, fs.getFileSize( logFiles.getLogFileForVersion( 1 ) ) );
+        assertEquals( 1000, fs.getFileSize( logFiles.getLogFileForVersion( 2 ) ) );
+        assertFalse( logFiles.hasAnyEntries( 2 ) );
+    }
+
+    @Test
+    public void shouldCreateNextLogFileFromRecycledSpare() throws Exception
+    {
+        // GIVEN
+        FileSystemAbstraction fs = fileSystemRule.get();
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( directory.directory(), "log", fs );
+        File prunedLogFile = logFiles.getLogFileForVersion( 0 );
+        try ( StoreChannel channel = fs.create( prunedLogFile ) )
+        {
+            channel.writeAll( ByteBuffer.wrap( someBytes( 800 ) ) );
+        }
+        preallocator( fs, logFiles ).renameToRecycle( prunedLogFile );
+        LogFile logFile = life.add( preallocatedLogFile( fs, logFiles ) );
+
+        // WHEN
+        logFile.rotate();
+
+        // THEN
+        File rotatedTo = logFiles.getLogFileForVersion( 2 );
+        assertFalse( fs.fileExists( prunedLogFile ) );
+        assertFalse( fs.fileExists( logFiles.getRecyclingLogFile() ) );
+        // The rotation took the spare, and the next one has been prepared in its place
+        assertEquals( 1000, fs.getFileSize( logFiles.getSpareLogFile() ) );
+        assertEquals( 1000, fs.getFileSize( rotatedTo ) );
+        LogHeader header = readLogHeader( fs, rotatedTo );
+        assertEquals( 2L, header.logVersion );
+        assertEquals( 5L, header.lastCommittedTxId );
+        assertFalse( logFiles.hasAnyEntries( 2 ) );
+    }
+
+    private PhysicalLogFile preallocatedLogFile( FileSystemAbstraction fs, PhysicalLogFiles logFiles )
+    {
+        return new PhysicalLogFile( fs, logFiles, 1000, transactionIdStore::getLastCommittedTransactionId,
+                logVersionRepository, mock( Monitor.class ), new LogHeaderCache( 10 ),
+                preallocator( fs, logFiles ), new VersionAwareLogEntryReader<>() );
+    }
+
+    private static LogFilePreallocator preallocator( FileSystemAbstraction fs, PhysicalLogFiles logFiles )
+    {
+        return new LogFilePreallocator( fs, logFiles, 1000, Runnable::run, NullLog.getInstance() );
+    }
+
     private byte[] readBytes( ReadableClosableChannel reader, int length ) throws IOException
     {
         byte[] result = new byte[length];
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.neo4j.graphdb.mockfs.DelegatingFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.logging.AssertableLogProvider;
+import org.neo4j.logging.NullLogProvider;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.test.rule.fs.DefaultFileSystemRule;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogHeaderWriter.writeLogHeader;
+import static org.neo4j.logging.AssertableLogProvider.inLog;
+
+public class TransactionLogPositionIndexTest
+{
+    private final TestDirectory directory = TestDirectory.testDirectory();
+    private final DefaultFileSystemRule fileSystemRule = new DefaultFileSystemRule();
+
+    @Rule
+    public RuleChain ruleChain = RuleChain.outerRule( directory ).around( fileSystemRule );
+
+    private FileSystemAbstraction fs;
+    private PhysicalLogFiles logFiles;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        fs = fileSystemRule.get();
+        logFiles = new PhysicalLogFiles( directory.directory(), "log", fs );
+        writeLogHeader( fs, logFiles.getLogFileForVersion( 0 ), 0, 0 );
+    }
+
+    @Test
+    public void shouldIndexFirstTransactionInLogVersionAndThenOnePerInterval() throws Exception
+    {
+        // GIVEN
+        TransactionLogPositionIndex index = newIndex( fs );
+
+        // WHEN
+        index.transactionAppended( 1, new LogPosition( 0, 16 ) );
+        index.transactionAppended( 2, new LogPosition( 0, 50 ) );
+        index.transactionAppended( 3, new LogPosition( 0, 120 ) );
+        index.transactionAppended( 4, new LogPosition( 0, 200 ) );
+        index.transactionAppended( 5, new LogPosition( 0, 250 ) );
+        index.shutdown();
+
+        // THEN
+        assertNull( index.lookup( 0, 0 ) );
+        assertEquals( new LogPosition( 0, 16 ), index.lookup( 1, 0 ) );
+        assertEquals( new LogPosition( 0, 16 ), index.lookup( 2, 0 ) );
+        assertEquals( new LogPosition( 0, 120 ), index.lookup( 3, 0 ) );
+        assertEquals( new LogPosition( 0, 120 ), index.lookup( 4, 0 ) );
+        assertEquals( new LogPosition( 0, 250 ), index.lookup( 5, 0 ) );
+        assertEquals( new LogPosition( 0, 250 ), index.lookup( 6, 0 ) );
+    }
+
+    @Test
+    public void shouldKeepOneIndexFilePerLogVersion() throws Exception
+    {
+        // GIVEN
+        TransactionLogPositionIndex index = newIndex( fs );
+        index.transactionAppended( 1, new LogPosition( 0, 16 ) );
+        index.transactionAppended( 2, new LogPosition( 0, 150 ) );
+        writeLogHeader( fs, logFiles.getLogFileForVersion( 1 ), 1, 2 );
+
+        // WHEN
+        index.transactionAppended( 3, new LogPosition( 1, 16 ) );
+        index.transactionAppended( 4, new LogPosition( 1, 60 ) );
+        index.shutdown();
+
+        // THEN
+        assertEquals( new LogPosition( 0, 150 ), index.lookup( 2, 0 ) );
+        assertEquals( new LogPosition( 1, 16 ), index.lookup( 3, 1 ) );
+        assertEquals( new LogPosition( 1, 16 ), index.lookup( 4, 1 ) );
+        assertNull( index.lookup( 3, 2 ) );
+    }
+
+    @Test
+    public void shouldIgnoreIndexFileOfAnotherLogFileWithSameVersion() throws Exception
+    {
+        // GIVEN
+        TransactionLogPositionIndex index = newIndex( fs );
+        index.transactionAppended( 1, new LogPosition( 0, 16 ) );
+        index.shutdown();
+
+        // WHEN e.g. a store copy replaced the log file
+        writeLogHeader( fs, logFiles.getLogFileForVersion( 0 ), 0, 10 );
+
+        // THEN
+        assertNull( index.lookup( 11, 0 ) );
+    }
+
+    @Test
+    public void shouldOverwriteEntriesOfTransactionsTruncatedFromLogWhenContinuingLogVersion() throws Exception
+    {
+        // GIVEN
+        TransactionLogPositionIndex index = newIndex( fs );
+        index.transactionAppended( 1, new LogPosition( 0, 16 ) );
+        index.transactionAppended( 2, new LogPosition( 0, 150 ) );
+        index.transactionAppended( 3, new LogPosition( 0, 300 ) );
+        index.shutdown();
+
+        // WHEN transaction 3 was truncated by recovery and another transaction 3 was appended after restart
+        TransactionLogPositionIndex restartedIndex = newIndex( fs );
+        restartedIndex.transactionAppended( 3, new LogPosition( 0, 200 ) );
+        restartedIndex.transactionAppended( 4, new LogPosition( 0, 260 ) );
+        restartedIndex.shutdown();
+
+        // THEN
+        assertEquals( new LogPosition( 0, 150 ), restartedIndex.lookup( 2, 0 ) );
+        assertEquals( new LogPosition( 0, 200 ), restartedIndex.lookup( 3, 0 ) );
+        assertEquals( new LogPosition( 0, 200 ), restartedIndex.lookup( 4, 0 ) );
+    }
+
+    @Test
+    public void shouldDisableIndexAndLogOnceOnFailureToWriteIt() throws Exception
+    {
+        // GIVEN
+        TransactionLogPositionIndex index = newIndex( fs );
+        index.transactionAppended( 1, new LogPosition( 0, 16 ) );
+        index.shutdown();
+        writeLogHeader( fs, logFiles.getLogFileForVersion( 1 ), 1, 1 );
+        AssertableLogProvider logProvider = new AssertableLogProvider();
+        TransactionLogPositionIndex failingIndex = new TransactionLogPositionIndex(
+                new FailingIndexFileSystem( fs ), logFiles, logProvider, 100 );
+
+        // WHEN
+        failingIndex.transactionAppended( 2, new LogPosition( 1, 16 ) );
+        failingIndex.transactionAppended( 3, new LogPosition( 1, 200 ) );
+        writeLogHeader( fs, logFiles.getLogFileForVersion( 2 ), 2, 3 );
+        failingIndex.transactionAppended( 4, new LogPosition( 2, 16 ) );
+
+        // THEN
+        assertTrue( failingIndex.isDisabled() );
+        assertNull( failingIndex.lookup( 1, 0 ) );
+        logProvider.assertExactly( inLog( TransactionLogPositionIndex.class )
+                .warn( containsString( "disabling it" ), instanceOf( IOException.class ) ) );
+    }
+
+    private TransactionLogPositionIndex newIndex( FileSystemAbstraction fs )
+    {
+        return new TransactionLogPositionIndex( fs, logFiles, NullLogProvider.getInstance(), 100 );
+    }
+
+    private static class FailingIndexFileSystem extends DelegatingFileSystemAbstraction
+    {
+        FailingIndexFileSystem( FileSystemAbstraction delegate )
+        {
+            super( delegate );
+        }
+
+        @Override
+        public StoreChannel open( File fileName, String openMode ) throws IOException
+        {
+            if ( fileName.getName().endsWith( ".index" ) && openMode.contains( "w" ) )
+            {
+                throw new IOException( "No space left on device" );
+            }
+            return super.open( fileName, openMode );
+        }
+    }
+}
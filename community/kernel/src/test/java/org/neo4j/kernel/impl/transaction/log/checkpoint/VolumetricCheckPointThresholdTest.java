@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.checkpoint;
+
+import org.junit.Test;
+
+import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.time.Clocks;
+import org.neo4j.time.FakeClock;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.neo4j.kernel.impl.transaction.log.checkpoint.VolumetricCheckPointThreshold.MIN_MEASURED_RECOVERY_BYTES;
+
+public class VolumetricCheckPointThresholdTest
+{
+    private static final long LOG_FILE_SIZE = 10_000;
+
+    private final FakeClock clock = Clocks.fakeClock();
+    private final TriggerInfo triggerInfo = mock( TriggerInfo.class );
+    private final VolumetricCheckPointThreshold.Monitor monitor = mock( VolumetricCheckPointThreshold.Monitor.class );
+    private LogPosition lastClosedPosition = new LogPosition( 0, 100 );
+
+    @Test
+    public void checkPointIsNotNeededWhileEstimatedRecoveryTimeIsBelowHalfTheObjective() throws Throwable
+    {
+        // given 1000 bytes per second, and an objective of 10 seconds
+        VolumetricCheckPointThreshold threshold = newThreshold( 10_000, 1000 );
+        threshold.initialize( 2 );
+
+        // when
+        lastClosedPosition = new LogPosition( 0, 4_000 );
+        boolean checkPointingNeeded = threshold.isCheckPointingNeeded( 10, triggerInfo );
+
+        // then
+        assertFalse( checkPointingNeeded );
+        verifyZeroInteractions( triggerInfo );
+        verify( monitor ).recoveryTimeEstimated( 3_900, 1000, 3_900 );
+    }
+
+    @Test
+    public void checkPointIsNeededWhenEstimatedRecoveryTimeReachesHalfTheObjective() throws Throwable
+    {
+        // given
+        VolumetricCheckPointThreshold threshold = newThreshold( 10_000, 1000 );
+        threshold.initialize( 2 );
+
+        // when
+        lastClosedPosition = new LogPosition( 0, 5_100 );
+        boolean checkPointingNeeded = threshold.isCheckPointingNeeded( 10, triggerInfo );
+
+        // then
+        assertTrue( checkPointingNeeded );
+        verify( triggerInfo, times( 1 ) ).accept( threshold.description() );
+        verify( monitor ).recoveryTimeEstimated( 5_000, 1000, 5_000 );
+    }
+
+    @Test
+    public void shouldCountBytesAcrossRotatedLogFiles() throws Throwable
+    {
+        // given
+        VolumetricCheckPointThreshold threshold = newThreshold( 100_000, 1000 );
+        threshold.initialize( 2 );
+
+        // when
+        lastClosedPosition = new LogPosition( 2, 500 );
+        threshold.isCheckPointingNeeded( 10, triggerInfo );
+
+        // then the rest of log 0, all of log 1, and the beginning of log 2
+        verify( monitor ).recoveryTimeEstimated( 9_900 + LOG_FILE_SIZE + 500, 1000, 20_400 );
+    }
+
+    @Test
+    public void shouldCountBytesFromWhereTheLastCheckPointStarted() throws Throwable
+    {
+        // given
+        VolumetricCheckPointThreshold threshold = newThreshold( 10_000, 1000 );
+        threshold.initialize( 2 );
+        lastClosedPosition = new LogPosition( 0, 6_000 );
+        assertTrue( threshold.isCheckPointingNeeded( 10, triggerInfo ) );
+
+        // when transactions are committed while the check point is in progress
+        lastClosedPosition = new LogPosition( 0, 7_000 );
+        threshold.checkPointHappened( 10 );
+        boolean checkPointingNeeded = threshold.isCheckPointingNeeded( 12, triggerInfo );
+
+        // then
+        assertFalse( checkPointingNeeded );
+        verify( monitor ).recoveryTimeEstimated( 1_000, 1000, 1_000 );
+    }
+
+    @Test
+    public void shouldUseMeasuredRecoveryRate() throws Throwable
+    {
+        // given
+        VolumetricCheckPointThreshold threshold = newThreshold( 10_000, 1000 );
+        LogPosition recoveryStart = new LogPosition( 0, 100 );
+        long recoveredBytes = 2 * MIN_MEASURED_RECOVERY_BYTES;
+
+        // when recovering at twice the configured rate
+        threshold.recoveryRequired( recoveryStart );
+        clock.forward( recoveredBytes / 2, MILLISECONDS );
+        threshold.transactionRecovered( 42 );
+        lastClosedPosition = new LogPosition( 0, 100 + recoveredBytes );
+        clock.forward( 1000, MILLISECONDS );
+        threshold.recoveryCompleted( 1 );
+
+        threshold.initialize( 42 );
+        lastClosedPosition = new LogPosition( 0, 100 + recoveredBytes + 6_000 );
+        boolean checkPointingNeeded = threshold.isCheckPointingNeeded( 43, triggerInfo );
+
+        // then
+        assertFalse( checkPointingNeeded );
+        verify( monitor ).recoveryTimeEstimated( 6_000, 2000, 3_000 );
+    }
+
+    @Test
+    public void shouldIgnoreRecoveryRateOfSmallRecoveries() throws Throwable
+    {
+        // given
+        VolumetricCheckPointThreshold threshold = newThreshold( 10_000, 1000 );
+
+        // when
+        threshold.recoveryRequired( new LogPosition( 0, 100 ) );
+        clock.forward( 1, MILLISECONDS );
+        threshold.transactionRecovered( 42 );
+        lastClosedPosition = new LogPosition( 0, 1_100 );
+        threshold.recoveryCompleted( 1 );
+
+        threshold.initialize( 42 );
+        lastClosedPosition = new LogPosition( 0, 3_100 );
+        threshold.isCheckPointingNeeded( 43, triggerInfo );
+
+        // then
+        verify( monitor ).recoveryTimeEstimated( 2_000, 1000, 2_000 );
+    }
+
+    @Test
+    public void shouldCheckMoreOftenForShortRecoveryTimeObjectives() throws Throwable
+    {
+        assertEquals( CheckPointThreshold.DEFAULT_CHECKING_FREQUENCY_MILLIS,
+                newThreshold( 1_000_000, 1000 ).checkFrequencyMillis() );
+        assertEquals( 500, newThreshold( 5_000, 1000 ).checkFrequencyMillis() );
+    }
+
+    private VolumetricCheckPointThreshold newThreshold( long recoveryTimeObjectiveMillis, long bytesPerSecond )
+    {
+        return new VolumetricCheckPointThreshold( recoveryTimeObjectiveMillis, bytesPerSecond, clock,
+                () -> lastClosedPosition, version -> LOG_FILE_SIZE, monitor );
+    }
+}
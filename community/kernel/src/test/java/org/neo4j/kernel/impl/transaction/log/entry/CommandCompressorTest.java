@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.entry;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.transaction.command.Command;
+import org.neo4j.kernel.impl.transaction.log.InMemoryClosableChannel;
+import org.neo4j.kernel.impl.transaction.log.LogEntryCursor;
+import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.ReadableClosablePositionAwareChannel;
+import org.neo4j.storageengine.api.StorageCommand;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CommandCompressorTest
+{
+    private final LogEntryReader<ReadableClosablePositionAwareChannel> reader = new VersionAwareLogEntryReader<>();
+    private final RecordingMonitor monitor = new RecordingMonitor();
+    private final InMemoryClosableChannel channel = new InMemoryClosableChannel( 1_000_000 );
+    private final LogEntryWriter writer = new LogEntryWriter( channel, new CommandCompressor( monitor ) );
+
+    @Test
+    public void shouldCompressCommandsOfLargeTransactions() throws Exception
+    {
+        // given
+        List<StorageCommand> commands = nodeCommands( 1_000 );
+
+        // when
+        writeTransaction( commands );
+
+        // then
+        assertTrue( "compressed " + monitor.commandBytes + " to " + monitor.writtenBytes + " bytes",
+                monitor.writtenBytes < monitor.commandBytes / 2 );
+        assertEquals( monitor.writtenBytes, channel.writerPosition() - transactionOverhead() );
+        LogEntryCompressedCommands compressed = (LogEntryCompressedCommands) readEntries( reader ).get( 1 );
+        assertEquals( LogEntryVersion.V3_3, compressed.getVersion() );
+        assertEquals( commands.size(), compressed.getCommands().size() );
+    }
+
+    @Test
+    public void shouldNotCompressCommandsOfSmallTransactions() throws Exception
+    {
+        // given
+        List<StorageCommand> commands = nodeCommands( 1 );
+
+        // when
+        writeTransaction( commands );
+
+        // then
+        assertEquals( monitor.commandBytes, monitor.writtenBytes );
+        for ( LogEntry entry : readEntries( reader ) )
+        {
+            assertFalse( entry instanceof LogEntryCompressedCommands );
+        }
+    }
+
+    @Test
+    public void logEntryCursorShouldExpandCompressedCommands() throws Exception
+    {
+        // given
+        List<StorageCommand> commands = nodeCommands( 1_000 );
+        writeTransaction( commands );
+
+        // when
+        List<LogEntry> entries = new ArrayList<>();
+        try ( LogEntryCursor cursor = new LogEntryCursor( reader, channel ) )
+        {
+            while ( cursor.next() )
+            {
+                entries.add( cursor.get() );
+            }
+        }
+
+        // then
+        assertEquals( commands.size() + 2, entries.size() );
+        assertTrue( entries.get( 0 ) instanceof LogEntryStart );
+        for ( int i = 0; i < commands.size(); i++ )
+        {
+            assertEquals( commands.get( i ), ((LogEntryCommand) entries.get( i + 1 )).getXaCommand() );
+        }
+        assertTrue( entries.get( entries.size() - 1 ) instanceof LogEntryCommit );
+    }
+
+    private void writeTransaction( List<StorageCommand> commands ) throws IOException
+    {
+        PhysicalTransactionRepresentation tx = new PhysicalTransactionRepresentation( commands );
+        tx.setHeader( new byte[0], 1, 2, 3, 4, 5, 6 );
+        writer.writeStartEntry( 1, 2, 3, 4, new byte[0] );
+        writer.serialize( tx );
+        writer.writeCommitEntry( 42, 5 );
+    }
+
+    private static int transactionOverhead()
+    {
+        // start entry and commit entry
+        return (2 + 4 + 4 + 8 + 8 + 4) + (2 + 8 + 8);
+    }
+
+    private List<LogEntry> readEntries( LogEntryReader<ReadableClosablePositionAwareChannel> reader )
+            throws IOException
+    {
+        List<LogEntry> entries = new ArrayList<>();
+        LogEntry entry;
+        while ( (entry = reader.readLogEntry( channel )) != null )
+        {
+            entries.add( entry );
+        }
+        return entries;
+    }
+
+    private static List<StorageCommand> nodeCommands( int count )
+    {
+        List<StorageCommand> commands = new ArrayList<>();
+        for ( int i = 0; i < count; i++ )
+        {
+            NodeRecord before = new NodeRecord( i );
+            NodeRecord after = new NodeRecord( i, false, i * 3, i * 5 );
+            after.setInUse( true );
+            commands.add( new Command.NodeCommand( before, after ) );
+        }
+        return commands;
+    }
+
+    private static class RecordingMonitor implements CommandCompressor.Monitor
+    {
+        private int commandBytes;
+        private int writtenBytes;
+
+        @Override
+        public void commandsWritten( int commandBytes, int writtenBytes )
+        {
+            this.commandBytes += commandBytes;
+            this.writtenBytes += writtenBytes;
+        }
+    }
+}
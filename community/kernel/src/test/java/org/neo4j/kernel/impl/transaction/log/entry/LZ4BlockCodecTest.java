@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.entry;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.neo4j.test.rule.RandomRule;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LZ4BlockCodecTest
+{
+    @Rule
+    public final RandomRule random = new RandomRule();
+
+    private final int[] hashTable = new int[LZ4BlockCodec.HASH_TABLE_SIZE];
+
+    @Test
+    public void shouldRoundTripEmptyInput() throws Exception
+    {
+        assertRoundTrip( new byte[0] );
+    }
+
+    @Test
+    public void shouldRoundTripInputShorterThanMinimumMatch() throws Exception
+    {
+        assertRoundTrip( new byte[]{1, 2, 3} );
+        assertRoundTrip( new byte[]{1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1} );
+    }
+
+    @Test
+    public void shouldCompressRepetitiveInput() throws Exception
+    {
+        byte[] data = new byte[100_000];
+        for ( int i = 0; i < data.length; i++ )
+        {
+            data[i] = (byte) (i % 7);
+        }
+
+        int compressedLength = assertRoundTrip( data );
+
+        assertTrue( "compressed to " + compressedLength, compressedLength < data.length / 50 );
+    }
+
+    @Test
+    public void shouldRoundTripRandomInput() throws Exception
+    {
+        for ( int i = 0; i < 100; i++ )
+        {
+            byte[] data = new byte[random.nextInt( 10_000 )];
+            random.nextBytes( data );
+            assertRoundTrip( data );
+        }
+    }
+
+    @Test
+    public void shouldRoundTripInputWithSomeRepetition() throws Exception
+    {
+        for ( int i = 0; i < 100; i++ )
+        {
+            byte[] data = new byte[random.nextInt( 100_000 )];
+            for ( int j = 0; j < data.length; j++ )
+            {
+                // A small alphabet with long runs gives both literals and matches of all lengths
+                data[j] = random.nextInt( 10 ) == 0 ? (byte) random.nextInt( 4 ) : data[Math.max( 0, j - 1 )];
+            }
+            assertRoundTrip( data );
+        }
+    }
+
+    @Test
+    public void shouldDetectTruncatedInput() throws Exception
+    {
+        byte[] data = new byte[1000];
+        for ( int i = 0; i < data.length; i++ )
+        {
+            data[i] = (byte) (i % 13);
+        }
+        byte[] compressed = new byte[LZ4BlockCodec.maxCompressedLength( data.length )];
+        int compressedLength = LZ4BlockCodec.compress( data, data.length, compressed, hashTable );
+
+        try
+        {
+            LZ4BlockCodec.decompress( compressed, 0, compressedLength - 1, new byte[data.length] );
+            fail( "Should have failed" );
+        }
+        catch ( IOException e )
+        {
+            // expected
+        }
+    }
+
+    private int assertRoundTrip( byte[] data ) throws IOException
+    {
+        byte[] compressed = new byte[LZ4BlockCodec.maxCompressedLength( data.length )];
+        int compressedLength = LZ4BlockCodec.compress( data, data.length, compressed, hashTable );
+
+        byte[] decompressed = new byte[data.length];
+        LZ4BlockCodec.decompress( compressed, 0, compressedLength, decompressed );
+        assertArrayEquals( data, decompressed );
+        return compressedLength;
+    }
+}
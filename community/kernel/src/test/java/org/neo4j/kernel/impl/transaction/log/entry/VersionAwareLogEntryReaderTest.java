@@ -29,6 +29,7 @@ import org.neo4j.kernel.impl.transaction.command.Command;
 import org.neo4j.kernel.impl.transaction.command.NeoCommandType;
 import org.neo4j.kernel.impl.transaction.log.InMemoryClosableChannel;
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.LogPositionMarker;
 import org.neo4j.kernel.impl.transaction.log.ReadableClosablePositionAwareChannel;
 
 import static java.lang.System.currentTimeMillis;
@@ -268,4 +269,97 @@ public class VersionAwareLogEntryReaderTest
             this.bytesSkipped += bytesSkipped;
         }
     }
+
+    @Test
+    public void shouldReturnNullWhenReachingZeroFilledTailOfPreallocatedLog() throws IOException
+    {
+        // given
+        LogEntryVersion version = LogEntryVersion.CURRENT;
+        final InMemoryClosableChannel channel = new InMemoryClosableChannel();
+
+        channel.put( version.byteCode() );
+        channel.put( LogEntryByteCodes.TX_1P_COMMIT );
+        channel.putLong( 42 );
+        channel.putLong( 21 );
+        channel.put( new byte[100], 100 );
+
+        // when
+        final LogEntry logEntry = logEntryReader.readLogEntry( channel );
+        final LogEntry afterLastEntry = logEntryReader.readLogEntry( channel );
+
+        // then
+        assertEquals( new OnePhaseCommit( version, 42, 21 ), logEntry );
+        assertNull( afterLastEntry );
+    }
+
+    @Test
+    public void shouldLeavePositionAtStartOfZeroFilledTailOfPreallocatedLog() throws IOException
+    {
+        // given
+        InMemoryClosableChannel channel = new InMemoryClosableChannel( 1_000 );
+        LogEntryWriter writer = new LogEntryWriter( channel.writer() );
+        writer.writeCommitEntry( 4, currentTimeMillis() );
+        int endOfEntries = channel.writerPosition();
+        channel.put( new byte[200], 200 );
+
+        // when
+        LogEntry logEntry = logEntryReader.readLogEntry( channel.reader() );
+        LogEntry afterLastEntry = logEntryReader.readLogEntry( channel.reader() );
+
+        // then
+        assertEquals( 4, logEntry.<LogEntryCommit>as().getTxId() );
+        assertNull( afterLastEntry );
+        assertEquals( endOfEntries, channel.reader().getCurrentPosition( new LogPositionMarker() ).getByteOffset() );
+    }
+
+    @Test
+    public void shouldTreatPartiallyWrittenEntryFollowedByZerosAsEndOfLog() throws IOException
+    {
+        // given a commit entry of which only the version, type and half the transaction id made it to disk
+        InMemoryClosableChannel channel = new InMemoryClosableChannel( 1_000 );
+        LogEntryWriter writer = new LogEntryWriter( channel.writer() );
+        writer.writeCommitEntry( 4, currentTimeMillis() );
+        int endOfEntries = channel.writerPosition();
+        channel.put( LogEntryVersion.CURRENT.byteCode() );
+        channel.put( LogEntryByteCodes.TX_1P_COMMIT );
+        channel.putInt( 0 );
+        channel.put( new byte[200], 200 );
+
+        // when
+        LogEntry logEntry = logEntryReader.readLogEntry( channel.reader() );
+        LogEntry tornEntry = logEntryReader.readLogEntry( channel.reader() );
+
+        // then
+        assertEquals( 4, logEntry.<LogEntryCommit>as().getTxId() );
+        assertNull( tornEntry );
+        assertEquals( endOfEntries, channel.reader().getCurrentPosition( new LogPositionMarker() ).getByteOffset() );
+    }
+
+    @Test
+    public void shouldReadUnrealisticEntryWhichIsNotFollowedByZeros() throws IOException
+    {
+        // given
+        InMemoryClosableChannel channel = new InMemoryClosableChannel( 1_000 );
+        LogEntryWriter writer = new LogEntryWriter( channel.writer() );
+        writer.writeCommitEntry( 4, 0 );
+
+        // when
+        LogEntry logEntry = logEntryReader.readLogEntry( channel.reader() );
+
+        // then
+        assertEquals( new OnePhaseCommit( 4, 0 ), logEntry );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void shouldNotTreatZeroVersionFollowedByNonZeroBytesAsEndOfLog() throws IOException
+    {
+        // given
+        InMemoryClosableChannel channel = new InMemoryClosableChannel( 1_000 );
+        channel.put( (byte) 0 );
+        channel.put( new byte[10], 10 );
+        channel.put( (byte) 5 );
+
+        // when
+        logEntryReader.readLogEntry( channel.reader() );
+    }
 }
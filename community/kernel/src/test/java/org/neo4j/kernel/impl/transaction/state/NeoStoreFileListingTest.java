@@ -34,6 +34,7 @@ import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
 import org.neo4j.kernel.NeoStoreDataSource;
 import org.neo4j.kernel.api.labelscan.LabelScanStore;
 import org.neo4j.kernel.impl.api.LegacyIndexProviderLookup;
@@ -41,11 +42,13 @@ import org.neo4j.kernel.impl.api.index.IndexingService;
 import org.neo4j.kernel.impl.store.StoreType;
 import org.neo4j.kernel.impl.storemigration.LogFiles;
 import org.neo4j.kernel.impl.transaction.log.PhysicalLogFile;
+import org.neo4j.kernel.impl.transaction.log.PhysicalLogFiles;
 import org.neo4j.storageengine.api.StorageEngine;
 import org.neo4j.storageengine.api.StoreFileMetadata;
 import org.neo4j.test.rule.EmbeddedDatabaseRule;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
@@ -182,6 +185,24 @@ public class NeoStoreFileListingTest
                 .anyMatch( fileName -> LogFiles.FILENAME_FILTER.accept( null, fileName ) ) );
     }
 
+    @Test
+    public void shouldNotListSpareOrRecyclingFilesOfTxLogs() throws Exception
+    {
+        // Given
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( db.getStoreDir(), new DefaultFileSystemAbstraction() );
+        File[] notLogFiles = {logFiles.getSpareLogFile(), logFiles.getRecyclingLogFile()};
+        assertNotListedWithTxLogs( logFiles, notLogFiles );
+    }
+
+    @Test
+    public void shouldNotListPositionIndexFilesOfTxLogs() throws Exception
+    {
+        // Given
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( db.getStoreDir(), new DefaultFileSystemAbstraction() );
+        File[] notLogFiles = {logFiles.getPositionIndexFileForVersion( 0 )};
+        assertNotListedWithTxLogs( logFiles, notLogFiles );
+    }
+
     @Test
     public void shouldNotListTxLogFiles() throws Exception
     {
@@ -248,4 +269,21 @@ public class NeoStoreFileListingTest
             files.add( file );
         }
     }
+
+    private void assertNotListedWithTxLogs( PhysicalLogFiles logFiles, File[] notLogFiles ) throws IOException
+    {
+        for ( File file : notLogFiles )
+        {
+            assertTrue( file.exists() || file.createNewFile() );
+        }
+        List<String> listedFileNames = neoStoreDataSource.listStoreFiles( true ).stream()
+                .map( metaData -> metaData.file().getName() )
+                .collect( Collectors.toList() );
+
+        assertTrue( listedFileNames.contains( logFiles.getLogFileForVersion( 0 ).getName() ) );
+        for ( File file : notLogFiles )
+        {
+            assertFalse( listedFileNames.contains( file.getName() ) );
+        }
+    }
 }
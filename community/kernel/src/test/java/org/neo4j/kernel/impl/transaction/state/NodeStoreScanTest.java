@@ -19,45 +19,71 @@
  */
 package org.neo4j.kernel.impl.transaction.state;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.RuleChain;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.OpenOption;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.function.Supplier;
 
+import org.neo4j.io.pagecache.DelegatingPageCache;
+import org.neo4j.io.pagecache.DelegatingPagedFile;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.kernel.api.index.IndexEntryUpdate;
 import org.neo4j.kernel.impl.api.index.MultipleIndexPopulator;
 import org.neo4j.kernel.impl.api.index.StoreScan;
 import org.neo4j.kernel.impl.locking.LockService;
 import org.neo4j.kernel.impl.store.NodeStore;
+import org.neo4j.kernel.impl.store.RecordCursor;
+import org.neo4j.kernel.impl.store.StoreType;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
-import org.neo4j.kernel.impl.store.record.RecordLoad;
+import org.neo4j.kernel.impl.store.record.Record;
 import org.neo4j.kernel.impl.transaction.state.storeview.NodeStoreScan;
 import org.neo4j.storageengine.api.schema.PopulationProgress;
+import org.neo4j.test.rule.NeoStoresRule;
+import org.neo4j.test.rule.PageCacheRule;
+import org.neo4j.test.rule.fs.EphemeralFileSystemRule;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Mockito.RETURNS_MOCKS;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
+import static org.neo4j.test.MockedNeoStores.mockedRecordCursor;
 
 public class NodeStoreScanTest
 {
     private final LockService locks = mock( LockService.class, RETURNS_MOCKS );
     private final NodeStore nodeStore = mock( NodeStore.class );
 
+    private final EphemeralFileSystemRule fsRule = new EphemeralFileSystemRule();
+    private final PageCacheRule pageCacheRule = new PageCacheRule();
+    private final NeoStoresRule neoStoresRule = new NeoStoresRule( getClass(), StoreType.NODE, StoreType.NODE_LABEL );
+
+    @Rule
+    public final RuleChain ruleChain = RuleChain.outerRule( fsRule ).around( pageCacheRule ).around( neoStoresRule );
+
     @Test
     public void shouldGiveBackCompletionPercentage() throws Throwable
     {
         // given
         final int total = 10;
         when( nodeStore.getHighId() ).thenReturn( (long) total );
-        NodeRecord inUseRecord = new NodeRecord( 42 );
-        inUseRecord.setInUse( true );
-        when( nodeStore.getRecord( anyLong(), any( NodeRecord.class ), any( RecordLoad.class ) ) ).thenReturn(
-                inUseRecord, inUseRecord, inUseRecord, inUseRecord,
-                inUseRecord, inUseRecord, inUseRecord, inUseRecord, inUseRecord, inUseRecord );
+        RecordCursor<NodeRecord> cursor = mockedRecordCursor();
+        when( cursor.next( anyLong() ) ).thenReturn( true );
+        when( nodeStore.newScanRecordCursor( any() ) ).thenReturn( cursor );
 
         final PercentageSupplier percentageSupplier = new PercentageSupplier();
 
@@ -94,6 +120,76 @@ public class NodeStoreScanTest
         scan.run();
     }
 
+    @Test
+    public void shouldReadAheadInNodeStoreWhenScanning() throws Throwable
+    {
+        // given
+        List<Integer> nodeStoreIoFlags = new ArrayList<>();
+        PageCache pageCache = new DelegatingPageCache( pageCacheRule.getPageCache( fsRule.get() ) )
+        {
+            @Override
+            public PagedFile map( File file, int pageSize, OpenOption... openOptions ) throws IOException
+            {
+                PagedFile pagedFile = super.map( file, pageSize, openOptions );
+                if ( !file.getName().endsWith( "nodestore.db" ) )
+                {
+                    return pagedFile;
+                }
+                return new DelegatingPagedFile( pagedFile )
+                {
+                    @Override
+                    public PageCursor io( long pageId, int pf_flags ) throws IOException
+                    {
+                        nodeStoreIoFlags.add( pf_flags );
+                        return super.io( pageId, pf_flags );
+                    }
+                };
+            }
+        };
+        NodeStore store = neoStoresRule.builder().with( fsRule.get() ).with( pageCache ).build().getNodeStore();
+        int total = 100;
+        for ( int i = 0; i < total; i++ )
+        {
+            store.updateRecord( new NodeRecord( store.nextId() ).initialize( true,
+                    Record.NO_NEXT_PROPERTY.intValue(), false, Record.NO_NEXT_RELATIONSHIP.intValue(),
+                    Record.NO_LABELS_FIELD.intValue() ) );
+        }
+        nodeStoreIoFlags.clear();
+        List<Long> processed = new ArrayList<>();
+        NodeStoreScan<RuntimeException> scan = new NodeStoreScan<RuntimeException>( store, locks, total )
+        {
+            @Override
+            public void acceptUpdate( MultipleIndexPopulator.MultipleIndexUpdater updater, IndexEntryUpdate update,
+                    long currentlyIndexedNodeId )
+            {
+                // no-op
+            }
+
+            @Override
+            public void configure( Collection populations )
+            {
+                // no-op
+            }
+
+            @Override
+            public void process( NodeRecord node )
+            {
+                processed.add( node.getId() );
+            }
+        };
+
+        // when
+        scan.run();
+
+        // then
+        assertEquals( total, processed.size() );
+        assertFalse( nodeStoreIoFlags.isEmpty() );
+        for ( int pf_flags : nodeStoreIoFlags )
+        {
+            assertTrue( "Expected node store to be read ahead of the scan", (pf_flags & PF_READ_AHEAD) != 0 );
+        }
+    }
+
     private static class PercentageSupplier implements Supplier<Float>
     {
         private StoreScan storeScan;
@@ -36,9 +36,9 @@ import org.neo4j.kernel.impl.api.index.StoreScan;
 import org.neo4j.kernel.impl.locking.LockService;
 import org.neo4j.kernel.impl.store.NeoStores;
 import org.neo4j.kernel.impl.store.NodeStore;
+import org.neo4j.kernel.impl.store.RecordCursor;
 import org.neo4j.kernel.impl.store.counts.CountsTracker;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
-import org.neo4j.kernel.impl.store.record.RecordLoad;
 import org.neo4j.logging.NullLogProvider;
 import org.neo4j.register.Register;
 import org.neo4j.register.Registers;
@@ -50,12 +50,14 @@ import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.when;
+import static org.neo4j.test.MockedNeoStores.mockedRecordCursor;
 
 public class DynamicIndexStoreViewTest
 {
     private final LabelScanStore labelScanStore = mock( LabelScanStore.class );
     private final NeoStores neoStores = mock( NeoStores.class );
     private final NodeStore nodeStore = mock( NodeStore.class );
+    private final RecordCursor<NodeRecord> nodeCursor = mockedRecordCursor();
     private final CountsTracker countStore = mock( CountsTracker.class );
     private final Visitor<NodeUpdates,Exception> propertyUpdateVisitor = mock( Visitor.class );
     private final Visitor<NodeLabelUpdate,Exception> labelUpdateVisitor = mock( Visitor.class );
@@ -70,7 +72,8 @@ public class DynamicIndexStoreViewTest
         when( neoStores.getCounts() ).thenReturn( countStore );
         when( neoStores.getNodeStore() ).thenReturn( nodeStore );
         when( nodeStore.newRecord() ).thenReturn( nodeRecord );
-        when( nodeStore.getRecord( anyLong(), any( NodeRecord.class ), any( RecordLoad.class ) ) ).thenReturn( nodeRecord );
+        when( nodeStore.newScanRecordCursor( any( NodeRecord.class ) ) ).thenReturn( nodeCursor );
+        when( nodeCursor.next( anyLong() ) ).thenReturn( true );
     }
 
     @Test
@@ -95,8 +98,7 @@ public class DynamicIndexStoreViewTest
 
         storeScan.run();
 
-        Mockito.verify( nodeStore, times( 8 ) )
-                .getRecord( anyLong(), any( NodeRecord.class ), any( RecordLoad.class ) );
+        Mockito.verify( nodeCursor, times( 8 ) ).next( anyLong() );
     }
 
     @Test
@@ -117,8 +119,7 @@ public class DynamicIndexStoreViewTest
 
         storeScan.run();
 
-        Mockito.verify( nodeStore, times( 20 ) )
-                .getRecord( anyLong(), any( NodeRecord.class ), any( RecordLoad.class ) );
+        Mockito.verify( nodeCursor, times( 20 ) ).next( anyLong() );
     }
 
     private DynamicIndexStoreView dynamicIndexStoreView()
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.api.impl.schema;
+
+import org.neo4j.helpers.Service;
+import org.neo4j.kernel.extension.KernelExtensionFactory;
+import org.neo4j.kernel.impl.index.schema.LegacyNativeSelector;
+import org.neo4j.kernel.impl.index.schema.fusion.FusionSchemaIndexProvider;
+import org.neo4j.kernel.impl.spi.KernelContext;
+
+import static org.neo4j.kernel.api.impl.schema.NativeLuceneFusionSchemaIndexProviderFactory.LEGACY_DESCRIPTOR;
+
+/**
+ * Provides the fusion indexes created with {@link NativeLuceneFusionSchemaIndexProviderFactory#LEGACY_DESCRIPTOR},
+ * which keep strings in the lucene index. They keep that layout, instead of being rebuilt with the current one,
+ * since a version of neo4j which only knows that descriptor would otherwise not find the strings in them.
+ * They have no native string part.
+ * This provider is never the default, new indexes get the current descriptor.
+ */
+@Service.Implementation( KernelExtensionFactory.class )
+public class LegacyNativeLuceneFusionSchemaIndexProviderFactory
+        extends KernelExtensionFactory<NativeLuceneFusionSchemaIndexProviderFactory.Dependencies>
+{
+    public static final String KEY = NativeLuceneFusionSchemaIndexProviderFactory.KEY + "-" +
+                                     LEGACY_DESCRIPTOR.getVersion();
+    private static final int PRIORITY = -1;
+
+    public LegacyNativeLuceneFusionSchemaIndexProviderFactory()
+    {
+        super( KEY );
+    }
+
+    @Override
+    public FusionSchemaIndexProvider newInstance( KernelContext context,
+            NativeLuceneFusionSchemaIndexProviderFactory.Dependencies dependencies ) throws Throwable
+    {
+        return NativeLuceneFusionSchemaIndexProviderFactory.create( dependencies.pageCache(), context.storeDir(),
+                dependencies.fileSystem(), dependencies.getLogging().getInternalLogProvider(),
+                dependencies.getConfig(), context.databaseInfo().operationalMode,
+                dependencies.recoveryCleanupWorkCollector(), false, new LegacyNativeSelector(), LEGACY_DESCRIPTOR,
+                PRIORITY );
+    }
+}
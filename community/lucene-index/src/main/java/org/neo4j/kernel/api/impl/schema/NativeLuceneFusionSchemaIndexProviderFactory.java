@@ -31,6 +31,7 @@ import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.extension.KernelExtensionFactory;
 import org.neo4j.kernel.impl.factory.OperationalMode;
 import org.neo4j.kernel.impl.index.schema.NativeSchemaNumberIndexProvider;
+import org.neo4j.kernel.impl.index.schema.NativeSchemaStringIndexProvider;
 import org.neo4j.kernel.impl.index.schema.NativeSelector;
 import org.neo4j.kernel.impl.index.schema.fusion.FusionSchemaIndexProvider;
 import org.neo4j.kernel.impl.spi.KernelContext;
@@ -43,7 +44,13 @@ public class NativeLuceneFusionSchemaIndexProviderFactory
     public static final String KEY = LuceneSchemaIndexProviderFactory.KEY + "+" + NativeSchemaNumberIndexProvider.KEY;
     private static final int PRIORITY = LuceneSchemaIndexProvider.PRIORITY + 1;
 
-    private static final SchemaIndexProvider.Descriptor DESCRIPTOR = new SchemaIndexProvider.Descriptor( KEY, "0.1" );
+    public static final SchemaIndexProvider.Descriptor DESCRIPTOR = new SchemaIndexProvider.Descriptor( KEY, "0.2" );
+    /**
+     * Descriptor of fusion indexes created before strings were moved from the lucene index to the native
+     * string index, see {@link LegacyNativeLuceneFusionSchemaIndexProviderFactory}.
+     */
+    public static final SchemaIndexProvider.Descriptor LEGACY_DESCRIPTOR =
+            new SchemaIndexProvider.Descriptor( KEY, "0.1" );
 
     public interface Dependencies extends LuceneSchemaIndexProviderFactory.Dependencies
     {
@@ -73,15 +80,33 @@ public class NativeLuceneFusionSchemaIndexProviderFactory
     public static FusionSchemaIndexProvider newInstance( PageCache pageCache, File storeDir, FileSystemAbstraction fs,
             LogProvider logProvider, Config config, OperationalMode operationalMode,
             RecoveryCleanupWorkCollector recoveryCleanupWorkCollector )
+    {
+        boolean useNativeIndex = config.get( GraphDatabaseSettings.enable_native_schema_index );
+        int priority = useNativeIndex ? PRIORITY : 0;
+        return create( pageCache, storeDir, fs, logProvider, config, operationalMode, recoveryCleanupWorkCollector,
+                true, new NativeSelector(), DESCRIPTOR, priority );
+    }
+
+    /**
+     * @param nativeStrings whether or not the fusion indexes have a native string part. Without one the string part
+     * is {@link FusionSchemaIndexProvider#EMPTY_PART_PROVIDER empty} and the {@code selector} must never select it.
+     */
+    static FusionSchemaIndexProvider create( PageCache pageCache, File storeDir, FileSystemAbstraction fs,
+            LogProvider logProvider, Config config, OperationalMode operationalMode,
+            RecoveryCleanupWorkCollector recoveryCleanupWorkCollector, boolean nativeStrings,
+            FusionSchemaIndexProvider.Selector selector, SchemaIndexProvider.Descriptor descriptor, int priority )
     {
         boolean readOnly = isReadOnly( config, operationalMode );
         NativeSchemaNumberIndexProvider nativeProvider =
                 new NativeSchemaNumberIndexProvider( pageCache, storeDir, logProvider, recoveryCleanupWorkCollector, readOnly );
+        SchemaIndexProvider stringProvider = nativeStrings
+                ? new NativeSchemaStringIndexProvider( pageCache, storeDir, logProvider, recoveryCleanupWorkCollector,
+                        readOnly )
+                : FusionSchemaIndexProvider.EMPTY_PART_PROVIDER;
         LuceneSchemaIndexProvider luceneProvider = LuceneSchemaIndexProviderFactory.create( fs, storeDir, logProvider, config,
                 operationalMode );
-        boolean useNativeIndex = config.get( GraphDatabaseSettings.enable_native_schema_index );
-        int priority = useNativeIndex ? PRIORITY : 0;
-        return new FusionSchemaIndexProvider( nativeProvider, luceneProvider, new NativeSelector(), DESCRIPTOR, priority );
+        return new FusionSchemaIndexProvider( nativeProvider, stringProvider, luceneProvider, selector,
+                descriptor, priority );
     }
 
     private static boolean isReadOnly( Config config, OperationalMode operationalMode )
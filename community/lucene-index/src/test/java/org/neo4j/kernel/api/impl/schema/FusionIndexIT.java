@@ -25,21 +25,32 @@ import org.junit.Test;
 
 import java.io.File;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.graphdb.schema.IndexDefinition;
+import org.neo4j.graphdb.schema.Schema;
 import org.neo4j.helpers.collection.Iterators;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.kernel.api.index.SchemaIndexProvider;
+import org.neo4j.kernel.api.schema.index.IndexDescriptor;
+import org.neo4j.kernel.impl.api.index.IndexingService;
+import org.neo4j.kernel.impl.api.index.SchemaIndexProviderMap;
 import org.neo4j.kernel.configuration.Settings;
 import org.neo4j.kernel.impl.index.schema.NativeSchemaNumberIndexProvider;
+import org.neo4j.kernel.impl.index.schema.NativeSchemaStringIndexProvider;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.kernel.monitoring.Monitors;
+import org.neo4j.test.TestGraphDatabaseFactory;
 import org.neo4j.test.rule.DatabaseRule;
 import org.neo4j.test.rule.EmbeddedDatabaseRule;
 
+import static java.util.Collections.singletonList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 
 public class FusionIndexIT
@@ -75,6 +86,21 @@ public class FusionIndexIT
         verifyContent();
     }
 
+    @Test
+    public void mustRebuildFusionIndexIfNativeStringPartIsMissing() throws Exception
+    {
+        // given
+        initializeIndexWithDataAndShutdown();
+
+        // when
+        SchemaIndexProvider.Descriptor descriptor = NativeSchemaStringIndexProvider.NATIVE_STRING_PROVIDER_DESCRIPTOR;
+        deleteIndexFilesFor( descriptor );
+
+        // then
+        // ... should rebuild
+        verifyContent();
+    }
+
     @Test
     public void mustRebuildFusionIndexIfLucenePartIsMissing() throws Exception
     {
@@ -99,14 +125,87 @@ public class FusionIndexIT
         // when
         SchemaIndexProvider.Descriptor luceneDescriptor = LuceneSchemaIndexProviderFactory.PROVIDER_DESCRIPTOR;
         SchemaIndexProvider.Descriptor nativeDescriptor = NativeSchemaNumberIndexProvider.NATIVE_PROVIDER_DESCRIPTOR;
+        SchemaIndexProvider.Descriptor nativeStringDescriptor =
+                NativeSchemaStringIndexProvider.NATIVE_STRING_PROVIDER_DESCRIPTOR;
         deleteIndexFilesFor( luceneDescriptor );
         deleteIndexFilesFor( nativeDescriptor );
+        deleteIndexFilesFor( nativeStringDescriptor );
 
         // then
         // ... should rebuild
         verifyContent();
     }
 
+    @Test
+    public void mustProvideIndexesWithLegacyDescriptorWithoutCreatingNewIndexesWithIt() throws Exception
+    {
+        // when
+        SchemaIndexProviderMap providers = db.getDependencyResolver().resolveDependency( SchemaIndexProviderMap.class );
+
+        // then
+        assertEquals( NativeLuceneFusionSchemaIndexProviderFactory.DESCRIPTOR,
+                providers.getDefaultProvider().getProviderDescriptor() );
+        assertEquals( NativeLuceneFusionSchemaIndexProviderFactory.LEGACY_DESCRIPTOR,
+                providers.apply( NativeLuceneFusionSchemaIndexProviderFactory.LEGACY_DESCRIPTOR )
+                        .getProviderDescriptor() );
+    }
+
+    @Test
+    public void mustBringIndexWrittenWithLegacyDescriptorOnlineWithoutRebuildingIt() throws Exception
+    {
+        // given an index written by the provider of the legacy descriptor alone, like before it was legacy
+        db.shutdownAndKeepStore();
+        GraphDatabaseService legacyDb = new TestGraphDatabaseFactory()
+                .setKernelExtensions( singletonList( new LegacyNativeLuceneFusionSchemaIndexProviderFactory() ) )
+                .newEmbeddedDatabase( storeDir );
+        try
+        {
+            createIndexWithData( legacyDb );
+        }
+        finally
+        {
+            legacyDb.shutdown();
+        }
+        File nativeStringDirectory = SchemaIndexProvider.getSchemaIndexStoreDirectory( storeDir,
+                NativeSchemaStringIndexProvider.NATIVE_STRING_PROVIDER_DESCRIPTOR );
+        assertFalse( fs.fileExists( nativeStringDirectory ) );
+
+        // when
+        Monitors monitors = new Monitors();
+        AtomicInteger populations = new AtomicInteger();
+        monitors.addMonitorListener( new IndexingService.MonitorAdapter()
+        {
+            @Override
+            public void populationCompleteOn( IndexDescriptor descriptor )
+            {
+                populations.incrementAndGet();
+            }
+        } );
+        GraphDatabaseService newDb = new TestGraphDatabaseFactory()
+                .setMonitors( monitors )
+                .newEmbeddedDatabaseBuilder( storeDir )
+                .setConfig( GraphDatabaseSettings.enable_native_schema_index, Settings.TRUE )
+                .newGraphDatabase();
+        try
+        {
+            // then
+            try ( Transaction tx = newDb.beginTx() )
+            {
+                IndexDefinition index = Iterators.single( newDb.schema().getIndexes( label ).iterator() );
+                assertEquals( Schema.IndexState.ONLINE, newDb.schema().getIndexState( index ) );
+                newDb.schema().awaitIndexesOnline( 10, TimeUnit.SECONDS );
+                assertNotNull( newDb.findNode( label, propKey, 1 ) );
+                assertNotNull( newDb.findNode( label, propKey, "string" ) );
+                tx.success();
+            }
+            assertEquals( 0, populations.get() );
+        }
+        finally
+        {
+            newDb.shutdown();
+        }
+    }
+
     private void verifyContent()
     {
         GraphDatabaseAPI newDb = db.getGraphDatabaseAPI();
@@ -131,26 +230,31 @@ public class FusionIndexIT
 
     private void initializeIndexWithDataAndShutdown()
     {
-        createIndex();
-        try ( Transaction tx = db.beginTx() )
+        createIndexWithData( db );
+        db.shutdown();
+    }
+
+    private void createIndexWithData( GraphDatabaseService database )
+    {
+        createIndex( database );
+        try ( Transaction tx = database.beginTx() )
         {
-            db.createNode( label ).setProperty( propKey, 1 );
-            db.createNode( label ).setProperty( propKey, "string" );
+            database.createNode( label ).setProperty( propKey, 1 );
+            database.createNode( label ).setProperty( propKey, "string" );
             tx.success();
         }
-        db.shutdown();
     }
 
-    private void createIndex()
+    private void createIndex( GraphDatabaseService database )
     {
-        try ( Transaction tx = db.beginTx() )
+        try ( Transaction tx = database.beginTx() )
         {
-            IndexDefinition indexDefinition = db.schema().indexFor( label ).on( propKey ).create();
+            IndexDefinition indexDefinition = database.schema().indexFor( label ).on( propKey ).create();
             tx.success();
         }
-        try ( Transaction tx = db.beginTx() )
+        try ( Transaction tx = database.beginTx() )
         {
-            db.schema().awaitIndexesOnline( 10, TimeUnit.SECONDS );
+            database.schema().awaitIndexesOnline( 10, TimeUnit.SECONDS );
             tx.success();
         }
     }
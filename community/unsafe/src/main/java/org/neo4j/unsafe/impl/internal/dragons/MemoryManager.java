@@ -26,6 +26,12 @@ package org.neo4j.unsafe.impl.internal.dragons;
  * aligned, and plays well with transparent huge pages and other operating system optimisations.
  *
  * The memory manager assumes that the memory claimed from it is evenly divisible in units of pages.
+ *
+ * Optionally, the memory can be allocated in huge page slabs instead. Each slab is then a multiple of
+ * {@link #HUGE_PAGE_SIZE} in size, and starts at an address that is aligned to the huge page size. Ordinary grabs are
+ * too small to ever contain a fully aligned huge page, so this is what allows the transparent huge pages support of the
+ * operating system to back the memory with huge pages, which greatly reduces the number of TLB misses when the
+ * memory is large.
  */
 public final class MemoryManager
 {
@@ -34,11 +40,25 @@ public final class MemoryManager
      */
     private static final long GRAB_SIZE = FeatureToggles.getInteger( MemoryManager.class, "GRAB_SIZE", 512 * 1024 ); // 512 KiB
 
+    /**
+     * The size of the huge pages that huge page slabs are aligned to.
+     */
+    public static final long HUGE_PAGE_SIZE = 2 * 1024 * 1024; // 2 MiB
+
+    /**
+     * The amount of memory, in bytes, to grab in each huge page slab. This is rounded up to a multiple of
+     * {@link #HUGE_PAGE_SIZE}.
+     */
+    private static final long HUGE_PAGE_SLAB_SIZE = roundUpToHugePageSize(
+            FeatureToggles.getLong( MemoryManager.class, "HUGE_PAGE_SLAB_SIZE", 32 * 1024 * 1024 ) ); // 32 MiB
+
     /**
      * The amount of memory that this memory manager can still allocate.
      */
     private long memoryReserve;
     private final long alignment;
+    private final long grabSize;
+    private final long grabAlignment;
 
     private Grab grabs;
 
@@ -50,6 +70,20 @@ public final class MemoryManager
      * @param alignment The byte multiple that the allocated pointers have to be aligned at.
      */
     public MemoryManager( long expectedMaxMemory, long alignment )
+    {
+        this( expectedMaxMemory, alignment, false );
+    }
+
+    /**
+     * Create a new MemoryManager that will allocate the given amount of memory, to pointers that are aligned to the
+     * given alignment size.
+     * @param expectedMaxMemory The maximum amount of memory that this memory manager is expected to allocate. The
+     * actual amount of memory used can end up greater than this value, if some of it gets wasted on alignment padding.
+     * @param alignment The byte multiple that the allocated pointers have to be aligned at.
+     * @param hugePageSlabs {@code true} if the memory should be allocated in slabs that are aligned to, and a multiple
+     * of, the {@link #HUGE_PAGE_SIZE huge page size}. This wastes up to one huge page of padding per slab.
+     */
+    public MemoryManager( long expectedMaxMemory, long alignment, boolean hugePageSlabs )
     {
         if ( alignment == 0 )
         {
@@ -57,6 +91,13 @@ public final class MemoryManager
         }
         this.memoryReserve = expectedMaxMemory;
         this.alignment = alignment;
+        this.grabSize = hugePageSlabs ? HUGE_PAGE_SLAB_SIZE : GRAB_SIZE;
+        this.grabAlignment = hugePageSlabs ? HUGE_PAGE_SIZE : 1;
+    }
+
+    private static long roundUpToHugePageSize( long size )
+    {
+        return Math.max( HUGE_PAGE_SIZE, (size + HUGE_PAGE_SIZE - 1) & ~(HUGE_PAGE_SIZE - 1) );
     }
 
     public synchronized long sumUsedMemory()
@@ -78,15 +119,15 @@ public final class MemoryManager
      */
     public synchronized long allocateAligned( long bytes )
     {
-        if ( bytes > GRAB_SIZE )
+        if ( bytes > grabSize )
         {
             // This is a huge allocation. Put it in its own grab and keep any existing grab at the head.
             Grab nextGrab = grabs == null ? null : grabs.next;
-            Grab allocationGrab = new Grab( nextGrab, bytes, alignment );
+            Grab allocationGrab = newGrab( nextGrab, bytes );
             if ( !allocationGrab.canAllocate( bytes ) )
             {
                 allocationGrab.free();
-                allocationGrab = new Grab( nextGrab, bytes + alignment, alignment );
+                allocationGrab = newGrab( nextGrab, bytes + alignment );
             }
             long allocation = allocationGrab.allocate( bytes );
             grabs = grabs == null ? allocationGrab : grabs.setNext( allocationGrab );
@@ -96,11 +137,11 @@ public final class MemoryManager
 
         if ( grabs == null || !grabs.canAllocate( bytes ) )
         {
-            long desiredGrabSize = Math.min( GRAB_SIZE, memoryReserve );
+            long desiredGrabSize = Math.min( grabSize, memoryReserve );
             if ( desiredGrabSize < bytes )
             {
                 desiredGrabSize = bytes;
-                Grab grab = new Grab( grabs, desiredGrabSize, alignment );
+                Grab grab = newGrab( grabs, desiredGrabSize );
                 if ( grab.canAllocate( bytes ) )
                 {
                     memoryReserve -= desiredGrabSize;
@@ -111,11 +152,20 @@ public final class MemoryManager
                 desiredGrabSize = bytes + alignment;
             }
             memoryReserve -= desiredGrabSize;
-            grabs = new Grab( grabs, desiredGrabSize, alignment );
+            grabs = newGrab( grabs, desiredGrabSize );
         }
         return grabs.allocate( bytes );
     }
 
+    private Grab newGrab( Grab next, long size )
+    {
+        if ( grabAlignment > 1 )
+        {
+            size = roundUpToHugePageSize( size );
+        }
+        return new Grab( next, size, alignment, grabAlignment );
+    }
+
     @Override
     protected synchronized void finalize() throws Throwable
     {
@@ -137,14 +187,17 @@ public final class MemoryManager
         private final long alignMask;
         private long nextAlignedPointer;
 
-        Grab( Grab next, long size, long alignment )
+        Grab( Grab next, long size, long alignment, long grabAlignment )
         {
             this.next = next;
-            this.address = UnsafeUtil.allocateMemory( size );
-            this.limit = address + size;
+            // Over-allocate, so that the grab can start at an address that is aligned to the grab alignment.
+            this.address = UnsafeUtil.allocateMemory( size + grabAlignment - 1 );
+            long grabAlignMask = grabAlignment - 1;
+            long start = (address + grabAlignMask) & ~grabAlignMask;
+            this.limit = start + size;
             this.alignMask = alignment - 1;
 
-            nextAlignedPointer = nextAligned( address );
+            nextAlignedPointer = nextAligned( start );
         }
 
         Grab( Grab next, long address, long limit, long alignMask, long nextAlignedPointer )
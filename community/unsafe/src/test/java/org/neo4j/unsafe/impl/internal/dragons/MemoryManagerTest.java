@@ -71,4 +71,24 @@ public class MemoryManagerTest
         assertThat( largeBlock, is( not( 0L ) ) );
         assertThat( page2, is( not( 0L ) ) );
     }
+
+    @Test
+    public void hugePageSlabsMustBeAlignedToHugePageSize() throws Exception
+    {
+        MemoryManager mman = new MemoryManager( 32 * 1024 * 1024, 8, true );
+        long first = mman.allocateAligned( 8192 );
+        long second = mman.allocateAligned( 8192 );
+        assertThat( first % MemoryManager.HUGE_PAGE_SIZE, is( 0L ) );
+        assertThat( second, is( first + 8192 ) );
+    }
+
+    @Test
+    public void mustBeAbleToAllocateHugePageSlabsLargerThanSlabSize() throws Exception
+    {
+        MemoryManager mman = new MemoryManager( 8192, 8, true );
+        long page = mman.allocateAligned( 8192 );
+        long largeBlock = mman.allocateAligned( 64 * 1024 * 1024 ); // 64 MiB
+        assertThat( page % MemoryManager.HUGE_PAGE_SIZE, is( 0L ) );
+        assertThat( largeBlock % MemoryManager.HUGE_PAGE_SIZE, is( 0L ) );
+    }
 }
@@ -69,6 +69,9 @@ import static java.lang.String.format;
  */
 public class ForsetiClient implements Locks.Client
 {
+    /** How many tries a client waits between looking for deadlocks in an unchanged wait-for graph. */
+    private static final int WAIT_FOR_GRAPH_RECHECK_INTERVAL = 64;
+
     /** Id for this client */
     private final int clientId;
 
@@ -138,10 +141,38 @@ public class ForsetiClient implements Locks.Client
      */
     private volatile ForsetiLockManager.Lock waitingForLock;
 
+    /**
+     * The wait-for graph used for deadlock detection, or {@code null} if deadlocks are detected by the wait lists and
+     * the {@link DeadlockResolutionStrategy}.
+     */
+    private final WaitForGraph waitForGraph;
+
+    /** Tells the age of the transaction this client currently works for, see {@link WaitForGraph}. */
+    private volatile long transactionSequence;
+
+    /** Set by the {@link WaitForGraph} when this client has been picked to abort, in order to break a deadlock. */
+    private volatile String deadlockVictimMessage;
+
+    /** Whether this client is registered in the {@link #waitForGraph}, and which holders it is registered with. */
+    private boolean registeredInWaitForGraph;
+    private final Set<ForsetiClient> registeredHolders = new HashSet<>();
+    private final Set<ForsetiClient> currentHolders = new HashSet<>();
+    private ResourceType registeredResourceType;
+    private long registeredResourceId;
+
     public ForsetiClient( int id, ConcurrentMap<Long,ForsetiLockManager.Lock>[] lockMaps,
                           WaitStrategy<AcquireLockTimeoutException>[] waitStrategies, Pool<ForsetiClient> clientPool,
                           DeadlockResolutionStrategy deadlockResolutionStrategy, IntFunction<ForsetiClient> clientById,
                           long lockAcquisitionTimeoutMillis, Clock clock )
+    {
+        this( id, lockMaps, waitStrategies, clientPool, deadlockResolutionStrategy, clientById,
+                lockAcquisitionTimeoutMillis, clock, null );
+    }
+
+    public ForsetiClient( int id, ConcurrentMap<Long,ForsetiLockManager.Lock>[] lockMaps,
+                          WaitStrategy<AcquireLockTimeoutException>[] waitStrategies, Pool<ForsetiClient> clientPool,
+                          DeadlockResolutionStrategy deadlockResolutionStrategy, IntFunction<ForsetiClient> clientById,
+                          long lockAcquisitionTimeoutMillis, Clock clock, WaitForGraph waitForGraph )
     {
         this.clientId = id;
         this.lockMaps = lockMaps;
@@ -153,6 +184,7 @@ public class ForsetiClient implements Locks.Client
         this.exclusiveLockCounts = new PrimitiveLongIntMap[lockMaps.length];
         this.lockAcquisitionTimeoutMillis = lockAcquisitionTimeoutMillis;
         this.clock = clock;
+        this.waitForGraph = waitForGraph;
 
         for ( int i = 0; i < sharedLockCounts.length; i++ )
         {
@@ -168,6 +200,10 @@ public class ForsetiClient implements Locks.Client
     public void reset()
     {
         stateHolder.reset();
+        if ( waitForGraph != null )
+        {
+            transactionSequence = waitForGraph.nextTransactionSequence();
+        }
     }
 
     @Override
@@ -211,12 +247,20 @@ public class ForsetiClient implements Locks.Client
                 // We don't hold the lock, so we need to grab it via the global lock map
                 int tries = 0;
                 SharedLock mySharedLock = null;
-                long waitStartMillis = clock.millis();
+                // Only read the clock once we actually have to wait, most ids in a batch are uncontended
+                long waitStartMillis = 0;
 
                 // Retry loop
                 while ( true )
                 {
-                    assertValid( waitStartMillis, resourceType, resourceId );
+                    if ( tries == 0 )
+                    {
+                        assertNotStopped();
+                    }
+                    else
+                    {
+                        assertValid( waitStartMillis, resourceType, resourceId );
+                    }
 
                     // Check if there is a lock for this entity in the map
                     ForsetiLockManager.Lock existingLock = lockMap.get( resourceId );
@@ -261,12 +305,16 @@ public class ForsetiClient implements Locks.Client
                         throw new UnsupportedOperationException( "Unknown lock type: " + existingLock );
                     }
 
+                    if ( tries == 0 )
+                    {
+                        waitStartMillis = clock.millis();
+                    }
                     if ( waitEvent == null )
                     {
                         waitEvent = tracer.waitForLock( false, resourceType, resourceId );
                     }
                     // And take note of who we are waiting for. This is used for deadlock detection.
-                    waitFor( existingLock, resourceType, resourceId, tries++ );
+                    waitFor( tracer, existingLock, resourceType, resourceId, tries++ );
                 }
 
                 // Make a local note about the fact that we now hold this lock
@@ -280,7 +328,7 @@ public class ForsetiClient implements Locks.Client
                 waitEvent.close();
             }
             clearWaitList();
-            waitingForLock = null;
+            stopWaiting();
             stateHolder.decrementActiveClients();
         }
     }
@@ -311,9 +359,14 @@ public class ForsetiClient implements Locks.Client
                 // Grab the global lock
                 ForsetiLockManager.Lock existingLock;
                 int tries = 0;
-                long waitStartMillis = clock.millis();
+                long waitStartMillis = 0;
                 while ( (existingLock = lockMap.putIfAbsent( resourceId, myExclusiveLock )) != null )
                 {
+                    if ( tries == 0 )
+                    {
+                        // Only read the clock once we actually have to wait, most ids in a batch are uncontended
+                        waitStartMillis = clock.millis();
+                    }
                     assertValid( waitStartMillis, resourceType, resourceId );
 
                     // If this is a shared lock:
@@ -335,7 +388,7 @@ public class ForsetiClient implements Locks.Client
                     {
                         waitEvent = tracer.waitForLock( true, resourceType, resourceId );
                     }
-                    waitFor( existingLock, resourceType, resourceId, tries++ );
+                    waitFor( tracer, existingLock, resourceType, resourceId, tries++ );
                 }
 
                 heldLocks.put( resourceId, 1 );
@@ -348,7 +401,7 @@ public class ForsetiClient implements Locks.Client
                 waitEvent.close();
             }
             clearWaitList();
-            waitingForLock = null;
+            stopWaiting();
             stateHolder.decrementActiveClients();
         }
     }
@@ -911,7 +964,7 @@ public class ForsetiClient implements Locks.Client
                     {
                         waitEvent = tracer.waitForLock( true, resourceType, resourceId );
                     }
-                    waitFor( sharedLock, resourceType, resourceId, tries++ );
+                    waitFor( tracer, sharedLock, resourceType, resourceId, tries++ );
                 }
 
                 return true;
@@ -932,7 +985,7 @@ public class ForsetiClient implements Locks.Client
                     waitEvent.close();
                 }
                 clearWaitList();
-                waitingForLock = null;
+                stopWaiting();
             }
         }
         return false;
@@ -943,13 +996,20 @@ public class ForsetiClient implements Locks.Client
         waitListCheckPoint = waitList.checkPointAndPut( waitListCheckPoint, clientId );
     }
 
-    private void waitFor( ForsetiLockManager.Lock lock, ResourceType type, long resourceId, int tries )
+    private void waitFor( LockTracer tracer, ForsetiLockManager.Lock lock, ResourceType type, long resourceId,
+            int tries )
     {
         waitingForLock = lock;
         clearWaitList();
         lock.copyHolderWaitListsInto( waitList );
         applyWaitStrategy( type, tries );
 
+        if ( waitForGraph != null )
+        {
+            detectDeadlockInWaitForGraph( tracer, lock, type, resourceId, tries );
+            return;
+        }
+
         int b = lock.detectDeadlock( id() );
         if ( b != -1 && deadlockResolutionStrategy.shouldAbort( this, clientById.apply( b ) ) )
         {
@@ -975,12 +1035,74 @@ public class ForsetiClient implements Locks.Client
                 if ( isDeadlockReal( lock, tries ) )
                 {
                     // After checking several times, this really does look like a real deadlock.
+                    tracer.deadlockDetected( type, resourceId );
                     throw new DeadlockDetectedException( message );
                 }
             }
         }
     }
 
+    private void detectDeadlockInWaitForGraph( LockTracer tracer, ForsetiLockManager.Lock lock, ResourceType type,
+            long resourceId, int tries )
+    {
+        abortIfDeadlockVictim( tracer, type, resourceId );
+
+        // Only tell the graph about our wait when who we wait for has changed, the cycle that a new edge closes is
+        // detected right away. Now and then we look again anyway, in case a cycle was forming while we last looked,
+        // such that it could not yet be verified.
+        currentHolders.clear();
+        lock.collectOwners( currentHolders );
+        if ( registeredInWaitForGraph && registeredResourceType == type && registeredResourceId == resourceId &&
+             registeredHolders.equals( currentHolders ) && tries % WAIT_FOR_GRAPH_RECHECK_INTERVAL != 0 )
+        {
+            return;
+        }
+        registeredInWaitForGraph = true;
+        registeredResourceType = type;
+        registeredResourceId = resourceId;
+        registeredHolders.clear();
+        registeredHolders.addAll( currentHolders );
+        if ( waitForGraph.waitFor( this, type, resourceId, currentHolders ) == this )
+        {
+            abortIfDeadlockVictim( tracer, type, resourceId );
+        }
+    }
+
+    private void abortIfDeadlockVictim( LockTracer tracer, ResourceType type, long resourceId )
+    {
+        String message = deadlockVictimMessage;
+        if ( message != null )
+        {
+            tracer.deadlockDetected( type, resourceId );
+            throw new DeadlockDetectedException( message );
+        }
+    }
+
+    private void stopWaiting()
+    {
+        waitingForLock = null;
+        if ( registeredInWaitForGraph )
+        {
+            registeredInWaitForGraph = false;
+            waitForGraph.stopWaiting( this );
+        }
+    }
+
+    void markAsDeadlockVictim( String message )
+    {
+        deadlockVictimMessage = message;
+    }
+
+    long transactionSequence()
+    {
+        return transactionSequence;
+    }
+
+    boolean isWaiting()
+    {
+        return waitingForLock != null;
+    }
+
     private boolean isDeadlockReal( ForsetiLockManager.Lock lock, int tries )
     {
         Set<ForsetiLockManager.Lock> waitedUpon = new HashSet<>();
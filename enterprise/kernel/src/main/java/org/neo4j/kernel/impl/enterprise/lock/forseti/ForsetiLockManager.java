@@ -37,6 +37,7 @@ import org.neo4j.kernel.impl.util.collection.SimpleBitSet;
 import org.neo4j.storageengine.api.lock.AcquireLockTimeoutException;
 import org.neo4j.storageengine.api.lock.ResourceType;
 import org.neo4j.storageengine.api.lock.WaitStrategy;
+import org.neo4j.unsafe.impl.internal.dragons.FeatureToggles;
 
 /**
  * <h1>Forseti, the Nordic god of justice</h1>
@@ -106,6 +107,13 @@ import org.neo4j.storageengine.api.lock.WaitStrategy;
  * traversing the graph like this until we either find ourselves amongst the owners - a deadlock - or we run out of
  * locks that are being waited upon - no deadlock.
  * <p/>
+ * <h2>Wait-for graph</h2>
+ * <p/>
+ * By default, the algorithms above are replaced by an explicit {@link WaitForGraph}. Blocked clients register the
+ * clients they wait for in the graph whenever that set changes, and whoever closes a cycle finds it right away. The
+ * cycle is verified against the current lock owners, and the youngest transaction in it is aborted. The graph can be
+ * turned off with the {@code waitForGraph} feature toggle, which brings back the wait list based detection.
+ * <p/>
  */
 public class ForsetiLockManager implements Locks
 {
@@ -185,6 +193,9 @@ public class ForsetiLockManager implements Locks
         boolean shouldAbort( ForsetiClient clientThatsAsking, ForsetiClient clientWereDeadlockedWith );
     }
 
+    private static final boolean USE_WAIT_FOR_GRAPH =
+            FeatureToggles.flag( ForsetiLockManager.class, "waitForGraph", true );
+
     /** Pointers to lock maps, one array per resource type. */
     private final ConcurrentMap<Long,ForsetiLockManager.Lock>[] lockMaps;
 
@@ -217,7 +228,8 @@ public class ForsetiLockManager implements Locks
         // TODO be good enough. In fact, we could add the required fields for such a stack
         // TODO to the ForsetiClient objects themselves, making the stack garbage-free in
         // TODO the (presumably) common case of client re-use.
-        clientPool = new ForsetiClientFlyweightPool( config, clock, lockMaps, waitStrategies );
+        WaitForGraph waitForGraph = USE_WAIT_FOR_GRAPH ? new WaitForGraph( lockMaps ) : null;
+        clientPool = new ForsetiClientFlyweightPool( config, clock, lockMaps, waitStrategies, waitForGraph );
     }
 
     /**
@@ -285,15 +297,17 @@ public class ForsetiLockManager implements Locks
         private final ConcurrentMap<Long,ForsetiLockManager.Lock>[] lockMaps;
         private final WaitStrategy<AcquireLockTimeoutException>[] waitStrategies;
         private final DeadlockResolutionStrategy deadlockResolutionStrategy = DeadlockStrategies.DEFAULT;
+        private final WaitForGraph waitForGraph;
 
         ForsetiClientFlyweightPool( Config config, Clock clock, ConcurrentMap<Long,Lock>[] lockMaps,
-                WaitStrategy<AcquireLockTimeoutException>[] waitStrategies )
+                WaitStrategy<AcquireLockTimeoutException>[] waitStrategies, WaitForGraph waitForGraph )
         {
             super( 128, null );
             this.config = config;
             this.clock = clock;
             this.lockMaps = lockMaps;
             this.waitStrategies = waitStrategies;
+            this.waitForGraph = waitForGraph;
         }
 
         @Override
@@ -306,7 +320,7 @@ public class ForsetiLockManager implements Locks
             }
             long lockAcquisitionTimeoutMillis = config.get( GraphDatabaseSettings.lock_acquisition_timeout ).toMillis();
             ForsetiClient client = new ForsetiClient( id, lockMaps, waitStrategies, this,
-                    deadlockResolutionStrategy, clientsById::get, lockAcquisitionTimeoutMillis, clock );
+                    deadlockResolutionStrategy, clientsById::get, lockAcquisitionTimeoutMillis, clock, waitForGraph );
             clientsById.put( id, client );
             return client;
         }
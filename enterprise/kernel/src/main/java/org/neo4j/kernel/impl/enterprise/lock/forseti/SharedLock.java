@@ -21,13 +21,21 @@ package org.neo4j.kernel.impl.enterprise.lock.forseti;
 
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.neo4j.kernel.impl.util.collection.SimpleBitSet;
+import org.neo4j.unsafe.impl.internal.dragons.FeatureToggles;
 
 /**
  * A Forseti share lock. Can be upgraded to an update lock, which will block new attempts at acquiring shared lock,
  * but will allow existing holders to complete.
+ * <p>
+ * Shared locks start out counting their holders in a single {@link #refCount}. When enough concurrent clients fight
+ * over that counter, the lock is inflated into a striped lock: the central count is frozen and clients instead
+ * increment and decrement a padded, per-client stripe. A striped lock is released in a handshake; whoever brings the
+ * total down to zero sets the {@link #RELEASED_FLAG} and then checks the total again, while acquiring clients check
+ * the flags again after incrementing their stripe, and back off if they see either the update or the released flag.
  */
 class SharedLock implements ForsetiLockManager.Lock
 {
@@ -44,11 +52,41 @@ class SharedLock implements ForsetiLockManager.Lock
      */
     private static final int MAX_HOLDERS = 4680;
 
+    /**
+     * Set when the lock has been inflated, after which the ref count bits of {@link #refCount} never change, and the
+     * changes in the number of holders are instead recorded in {@link #stripes}.
+     */
+    private static final int STRIPED_FLAG = 1 << 30;
+
+    /** Set on a striped lock when it has been released by its last holder, and can no longer be acquired. */
+    private static final int RELEASED_FLAG = 1 << 29;
+
+    private static final int REF_COUNT_MASK = RELEASED_FLAG - 1;
+
+    private static final boolean STRIPING_ENABLED = FeatureToggles.flag( SharedLock.class, "striping", true );
+
+    /** The number of failed ref count CAS operations, in a single acquire, that will make us inflate the lock. */
+    private static final int INFLATION_THRESHOLD =
+            FeatureToggles.getInteger( SharedLock.class, "inflationThreshold", 4 );
+
+    static final int STRIPE_COUNT = stripeCount( FeatureToggles.getInteger( SharedLock.class, "maxStripes", 64 ) );
+
+    /** Each stripe is padded out to 128 bytes, to keep the stripes on separate cache lines. */
+    private static final int STRIPE_PADDING = 16;
+
     // TODO Investigate inlining and padding the refCount.
     // TODO My gut feeling tells me there's a high chance of false-sharing
     // TODO on these unpadded AtomicIntegers.
     private final AtomicInteger refCount = new AtomicInteger( 1 );
 
+    /**
+     * The per-client stripes of a striped lock, or {@code null} if this lock has not been inflated. The number of
+     * holders of a striped lock is the frozen ref count plus the sum of the stripes. Individual stripes may go
+     * negative, when clients that acquired this lock before it was inflated release it again.
+     * This is published by the {@link #STRIPED_FLAG} CAS on {@link #refCount}, so it does not need to be volatile.
+     */
+    private AtomicLongArray stripes;
+
     /**
      * When reading this, keep in mind the main design goals here: Releasing and acquiring this lock should not require
      * synchronization, and the lock should have as low of a memory footprint as possible.
@@ -85,7 +123,7 @@ class SharedLock implements ForsetiLockManager.Lock
     public boolean acquire( ForsetiClient client )
     {
         // First, bump refcount to make sure no one drops this lock on the floor
-        if ( !acquireReference() )
+        if ( !acquireReference( client ) )
         {
             return false;
         }
@@ -95,19 +133,21 @@ class SharedLock implements ForsetiLockManager.Lock
         if ( !clientHoldsThisLock( client ) )
         {
             // try to add client to a clients that holding current lock.
-            return addClientHoldingLock( client );
-        }
-        else
-        {
-            releaseReference();
-            return false;
+            if ( addClientHoldingLock( client ) )
+            {
+                return true;
+            }
         }
+        // We still hold a reference to this lock, from before or from being one of the many holders that filled up
+        // the holder list, so releasing our new reference cannot bring the lock down to zero holders.
+        releaseReference( client );
+        return false;
     }
 
     public boolean release( ForsetiClient client )
     {
         removeClientHoldingLock( client );
-        return releaseReference();
+        return releaseReference( client );
     }
 
     @Override
@@ -150,7 +190,8 @@ class SharedLock implements ForsetiLockManager.Lock
         while ( true )
         {
             int refs = refCount.get();
-            if ( refs > 0 /* UPDATE_LOCK flips the sign bit, so refs will be < 0 if it is an update lock. */ )
+            if ( refs > 0 /* UPDATE_LOCK flips the sign bit, so refs will be < 0 if it is an update lock. */ &&
+                 (refs & RELEASED_FLAG) == 0 )
             {
                 if ( refCount.compareAndSet( refs, refs | UPDATE_LOCK_FLAG ) )
                 {
@@ -185,7 +226,17 @@ class SharedLock implements ForsetiLockManager.Lock
 
     public int numberOfHolders()
     {
-        return refCount.get() & ~UPDATE_LOCK_FLAG;
+        int refs = refCount.get();
+        if ( (refs & STRIPED_FLAG) == 0 )
+        {
+            return refs & ~UPDATE_LOCK_FLAG;
+        }
+        return (int) ((refs & REF_COUNT_MASK) + sumOfStripes());
+    }
+
+    boolean isStriped()
+    {
+        return (refCount.get() & STRIPED_FLAG) != 0;
     }
 
     public boolean isUpdateLock()
@@ -242,7 +293,7 @@ class SharedLock implements ForsetiLockManager.Lock
         {
             return "UpdateLock{" +
                    "objectId=" + System.identityHashCode( this ) +
-                   ", refCount=" + (refCount.get() & ~UPDATE_LOCK_FLAG) +
+                   ", refCount=" + numberOfHolders() +
                    ", holder=" + updateHolder +
                    '}';
         }
@@ -250,7 +301,8 @@ class SharedLock implements ForsetiLockManager.Lock
         {
             return "SharedLock{" +
                    "objectId=" + System.identityHashCode( this ) +
-                   ", refCount=" + refCount +
+                   ", refCount=" + numberOfHolders() +
+                   (isStriped() ? ", striped" : "") +
                    '}';
         }
     }
@@ -282,6 +334,9 @@ class SharedLock implements ForsetiLockManager.Lock
 
     private boolean addClientHoldingLock( ForsetiClient client )
     {
+        // Clients start looking for a free slot at different offsets, so that concurrent clients don't all CAS
+        // their way through the same, recently taken, slots.
+        int offset = client.id() & Integer.MAX_VALUE;
         while ( true )
         {
             for ( int i = 0; i < clientsHoldingThisLock.length; i++ )
@@ -292,8 +347,10 @@ class SharedLock implements ForsetiLockManager.Lock
                     holders = addHolderArray( i );
                 }
 
-                for ( int j = 0; j < holders.length(); j++ )
+                int length = holders.length();
+                for ( int k = 0; k < length; k++ )
                 {
+                    int j = (offset + k) % length;
                     ForsetiClient c = holders.get( j );
                     if ( c == null )
                     {
@@ -308,14 +365,26 @@ class SharedLock implements ForsetiLockManager.Lock
                     }
                 }
             }
+
+            if ( isStriped() )
+            {
+                // The ref count no longer bounds the number of holders to the number of slots, so we cannot be sure
+                // that a slot will free up for us. Let the caller back off and retry instead.
+                return false;
+            }
         }
     }
 
-    private boolean acquireReference()
+    private boolean acquireReference( ForsetiClient client )
     {
+        int failedAttempts = 0;
         while ( true )
         {
             int refs = refCount.get();
+            if ( (refs & STRIPED_FLAG) != 0 )
+            {
+                return acquireStripedReference( client );
+            }
             // UPDATE_LOCK flips the sign bit, so refs will be < 0 if it is an update lock.
             if ( refs > 0 && refs < MAX_HOLDERS )
             {
@@ -323,6 +392,10 @@ class SharedLock implements ForsetiLockManager.Lock
                 {
                     return true;
                 }
+                if ( STRIPING_ENABLED && ++failedAttempts == INFLATION_THRESHOLD )
+                {
+                    inflate();
+                }
             }
             else
             {
@@ -331,11 +404,41 @@ class SharedLock implements ForsetiLockManager.Lock
         }
     }
 
-    private boolean releaseReference()
+    private boolean acquireStripedReference( ForsetiClient client )
+    {
+        int stripe = stripeIndex( client );
+        while ( true )
+        {
+            if ( (refCount.get() & (UPDATE_LOCK_FLAG | RELEASED_FLAG)) != 0 )
+            {
+                return false;
+            }
+
+            stripes.incrementAndGet( stripe );
+            if ( (refCount.get() & (UPDATE_LOCK_FLAG | RELEASED_FLAG)) == 0 )
+            {
+                // Any update lock holder or releasing client that comes after this point will see our reference.
+                return true;
+            }
+
+            // We raced with an update lock holder or a releasing client, so we back off. The releasing client either
+            // saw our reference and will clear its released flag again, or it didn't and the lock is now dead.
+            // If the flags are gone by the time we have backed off, then we have to try again, because we could
+            // otherwise leave a lock with no holders behind in the lock map.
+            stripes.decrementAndGet( stripe );
+        }
+    }
+
+    private boolean releaseReference( ForsetiClient client )
     {
         while ( true )
         {
             int refAndUpdateFlag = refCount.get();
+            if ( (refAndUpdateFlag & STRIPED_FLAG) != 0 )
+            {
+                stripes.decrementAndGet( stripeIndex( client ) );
+                return tryMarkStripedLockReleased();
+            }
             int newRefCount = (refAndUpdateFlag & ~UPDATE_LOCK_FLAG) - 1;
             if ( refCount.compareAndSet( refAndUpdateFlag, newRefCount | (refAndUpdateFlag & UPDATE_LOCK_FLAG) ) )
             {
@@ -344,6 +447,95 @@ class SharedLock implements ForsetiLockManager.Lock
         }
     }
 
+    /**
+     * @return {@code true} if the striped lock had no holders and we were the one to mark it as released.
+     */
+    private boolean tryMarkStripedLockReleased()
+    {
+        while ( true )
+        {
+            int refs = refCount.get();
+            if ( (refs & RELEASED_FLAG) != 0 || stripedHolders( refs ) != 0 )
+            {
+                return false;
+            }
+            if ( !refCount.compareAndSet( refs, refs | RELEASED_FLAG ) )
+            {
+                continue;
+            }
+
+            // From here on, no client can acquire a new reference, so if there are still no holders then there
+            // never will be.
+            if ( stripedHolders( refs ) == 0 )
+            {
+                return true;
+            }
+
+            // A client incremented its stripe before it could see our flag. Take the flag back and look again.
+            int flagged;
+            do
+            {
+                flagged = refCount.get();
+            }
+            while ( !refCount.compareAndSet( flagged, flagged & ~RELEASED_FLAG ) );
+        }
+    }
+
+    private long stripedHolders( int refs )
+    {
+        return (refs & REF_COUNT_MASK) + sumOfStripes();
+    }
+
+    private long sumOfStripes()
+    {
+        long sum = 0;
+        for ( int i = 0; i < STRIPE_COUNT; i++ )
+        {
+            sum += stripes.get( i * STRIPE_PADDING );
+        }
+        return sum;
+    }
+
+    private int stripeIndex( ForsetiClient client )
+    {
+        return (client.id() & (STRIPE_COUNT - 1)) * STRIPE_PADDING;
+    }
+
+    /**
+     * Switch this lock over to counting its holders in stripes. Only a lock that is alive, and is not an update lock,
+     * is inflated; there is no point in striping a lock that cannot be acquired.
+     */
+    synchronized void inflate()
+    {
+        if ( stripes == null )
+        {
+            stripes = new AtomicLongArray( STRIPE_COUNT * STRIPE_PADDING );
+        }
+        while ( true )
+        {
+            int refs = refCount.get();
+            if ( refs <= 0 || (refs & STRIPED_FLAG) != 0 )
+            {
+                return;
+            }
+            if ( refCount.compareAndSet( refs, refs | STRIPED_FLAG ) )
+            {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the smallest power of two that covers the number of processors, but no more than {@code maxStripes}.
+     */
+    private static int stripeCount( int maxStripes )
+    {
+        int limit = Integer.highestOneBit( Math.max( 1, maxStripes ) );
+        int processors = Runtime.getRuntime().availableProcessors();
+        int stripes = Integer.highestOneBit( Math.max( 1, processors ) * 2 - 1 );
+        return Math.min( stripes, limit );
+    }
+
     private synchronized AtomicReferenceArray<ForsetiClient> addHolderArray( int slot )
     {
         if ( clientsHoldingThisLock[slot] == null )
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.enterprise.lock.forseti;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.storageengine.api.lock.ResourceType;
+
+import static java.lang.String.format;
+
+/**
+ * An explicit wait-for graph of the {@link ForsetiClient clients} that are currently blocked on locks.
+ * <p>
+ * A client registers the resource it waits for, and the clients that held that resource at the time, whenever that
+ * set of holders changes. The new edges are then immediately checked for a path back to the waiting client, so a
+ * deadlock is detected by whichever client closes the cycle, as soon as it is formed. Since lock holders release
+ * their locks without consulting the graph, any cycle that is found is verified against the current owners of the
+ * locks in the lock maps, before it is reported.
+ * <p>
+ * The youngest transaction in a verified cycle, the one whose client was most recently handed out by the lock
+ * manager, is picked as the victim, and is marked such that it aborts the next time it checks on its wait. Only
+ * blocked clients ever touch the graph, so it is guarded by a plain monitor.
+ */
+class WaitForGraph
+{
+    private final ConcurrentMap<Long,ForsetiLockManager.Lock>[] lockMaps;
+    private final AtomicLong transactionSequence = new AtomicLong();
+    private final Map<ForsetiClient,Wait> waits = new HashMap<>();
+
+    WaitForGraph( ConcurrentMap<Long,ForsetiLockManager.Lock>[] lockMaps )
+    {
+        this.lockMaps = lockMaps;
+    }
+
+    /**
+     * @return a new sequence number, used to tell which of the transactions in a deadlock is the youngest.
+     */
+    long nextTransactionSequence()
+    {
+        return transactionSequence.incrementAndGet();
+    }
+
+    /**
+     * Register that the given client is blocked waiting for the given resource, which is held by the given holders,
+     * and look for a deadlock that this wait closes. If there is one, then the victim, which may be the waiter itself,
+     * is {@link ForsetiClient#markAsDeadlockVictim(String) marked} for abortion.
+     *
+     * @return the client that was marked for abortion, or {@code null} if there is no deadlock.
+     */
+    synchronized ForsetiClient waitFor( ForsetiClient waiter, ResourceType resourceType, long resourceId,
+            Set<ForsetiClient> holders )
+    {
+        Wait wait = waits.get( waiter );
+        if ( wait == null )
+        {
+            wait = new Wait();
+            waits.put( waiter, wait );
+        }
+        wait.resourceType = resourceType;
+        wait.resourceId = resourceId;
+        wait.holders.clear();
+        wait.holders.addAll( holders );
+        wait.holders.remove( waiter );
+
+        List<ForsetiClient> cycle = findCycle( waiter );
+        if ( cycle == null || !isCycleReal( cycle ) )
+        {
+            return null;
+        }
+
+        ForsetiClient victim = cycle.get( 0 );
+        for ( ForsetiClient client : cycle )
+        {
+            if ( client.transactionSequence() > victim.transactionSequence() )
+            {
+                victim = client;
+            }
+        }
+        victim.markAsDeadlockVictim( describeCycle( victim, cycle ) );
+        return victim;
+    }
+
+    /**
+     * Remove the given client from the graph, because it is no longer blocked. This also takes back any deadlock
+     * victim mark that was not acted upon, since the client is evidently no longer deadlocked.
+     */
+    synchronized void stopWaiting( ForsetiClient waiter )
+    {
+        waits.remove( waiter );
+        waiter.markAsDeadlockVictim( null );
+    }
+
+    /**
+     * Depth first search for a path from the holders that the waiter is blocked on, back to the waiter.
+     *
+     * @return the clients in the cycle, starting with the waiter, or {@code null} if there is no cycle.
+     */
+    private List<ForsetiClient> findCycle( ForsetiClient waiter )
+    {
+        List<ForsetiClient> path = new ArrayList<>();
+        path.add( waiter );
+        return findCycle( waiter, waiter, path, new HashSet<>() ) ? path : null;
+    }
+
+    private boolean findCycle( ForsetiClient waiter, ForsetiClient current, List<ForsetiClient> path,
+            Set<ForsetiClient> visited )
+    {
+        Wait wait = waits.get( current );
+        if ( wait == null )
+        {
+            return false;
+        }
+        for ( ForsetiClient holder : wait.holders )
+        {
+            if ( holder.equals( waiter ) )
+            {
+                return true;
+            }
+            if ( visited.add( holder ) )
+            {
+                path.add( holder );
+                if ( findCycle( waiter, holder, path, visited ) )
+                {
+                    return true;
+                }
+                path.remove( path.size() - 1 );
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check that every client in the cycle is still blocked, on a resource that is still held by the next client in
+     * the cycle. A blocked client can be in the middle of being granted its lock, so a released lock is only noticed
+     * here, and not by the graph itself.
+     */
+    private boolean isCycleReal( List<ForsetiClient> cycle )
+    {
+        Set<ForsetiClient> owners = new HashSet<>();
+        for ( int i = 0; i < cycle.size(); i++ )
+        {
+            ForsetiClient waiter = cycle.get( i );
+            ForsetiClient holder = cycle.get( (i + 1) % cycle.size() );
+            Wait wait = waits.get( waiter );
+            if ( wait == null || !waiter.isWaiting() )
+            {
+                return false;
+            }
+            ForsetiLockManager.Lock lock = lockMaps[wait.resourceType.typeId()].get( wait.resourceId );
+            if ( lock == null )
+            {
+                return false;
+            }
+            owners.clear();
+            lock.collectOwners( owners );
+            if ( !owners.contains( holder ) )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String describeCycle( ForsetiClient victim, List<ForsetiClient> cycle )
+    {
+        StringBuilder sb = new StringBuilder( victim.toString() )
+                .append( " was aborted to break a deadlock, as the youngest transaction in the wait cycle:" );
+        for ( int i = 0; i < cycle.size(); i++ )
+        {
+            ForsetiClient waiter = cycle.get( i );
+            Wait wait = waits.get( waiter );
+            sb.append( format( "%n %s waits for %s(%d), held by %s", waiter, wait.resourceType, wait.resourceId,
+                    cycle.get( (i + 1) % cycle.size() ) ) );
+        }
+        return sb.toString();
+    }
+
+    private static class Wait
+    {
+        private ResourceType resourceType;
+        private long resourceId;
+        private final Set<ForsetiClient> holders = new HashSet<>();
+    }
+}
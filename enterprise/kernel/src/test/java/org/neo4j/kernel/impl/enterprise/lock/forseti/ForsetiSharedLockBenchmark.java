@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.enterprise.lock.forseti;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.locking.LockTracer;
+import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.kernel.impl.locking.ResourceTypes;
+import org.neo4j.time.Clocks;
+
+/**
+ * Measures the throughput of acquiring and releasing shared locks in the {@link ForsetiLockManager}, as the number of
+ * threads grows. With a single resource, all threads share the same hot lock, which is where the striping of the
+ * {@link SharedLock} reference count matters. The {@code striping} feature toggle can be turned off with
+ * {@code -Dorg.neo4j.kernel.impl.enterprise.lock.forseti.SharedLock.striping=false} to compare against the
+ * unstriped locks.
+ * <p>
+ * Use the JMH {@code -t} option to run the benchmark with, for instance, 1, 2, 4, 8 and 16 threads, to see how the
+ * throughput scales with the number of threads.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 5 )
+@Fork( 1 )
+public class ForsetiSharedLockBenchmark
+{
+    @Param( {"1", "1024"} )
+    public int resources;
+
+    private Locks locks;
+
+    @State( Scope.Thread )
+    public static class ClientState
+    {
+        private Locks.Client client;
+
+        @Setup
+        public void setUp( ForsetiSharedLockBenchmark benchmark )
+        {
+            client = benchmark.locks.newClient();
+        }
+
+        @TearDown
+        public void tearDown()
+        {
+            client.close();
+        }
+    }
+
+    @Setup
+    public void setUp()
+    {
+        locks = new ForsetiLockManager( Config.defaults(), Clocks.systemClock(), ResourceTypes.values() );
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        locks.close();
+    }
+
+    @Benchmark
+    public void acquireAndReleaseSharedLock( ClientState state )
+    {
+        long resourceId = resources == 1 ? 0 : ThreadLocalRandom.current().nextInt( resources );
+        state.client.acquireShared( LockTracer.NONE, ResourceTypes.NODE, resourceId );
+        state.client.releaseShared( ResourceTypes.NODE, resourceId );
+    }
+}
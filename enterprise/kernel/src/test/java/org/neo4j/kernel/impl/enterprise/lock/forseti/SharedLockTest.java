@@ -21,10 +21,18 @@ package org.neo4j.kernel.impl.enterprise.lock.forseti;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class SharedLockTest
 {
@@ -62,4 +70,120 @@ public class SharedLockTest
         assertThat( lock.isUpdateLock(), equalTo( false ) );
     }
 
+    @Test
+    public void shouldCountHoldersOfStripedLock() throws Exception
+    {
+        // Given
+        ForsetiClient clientA = client( 1 );
+        ForsetiClient clientB = client( 2 );
+        ForsetiClient clientC = client( 3 );
+        SharedLock lock = new SharedLock( clientA );
+        lock.inflate();
+
+        // When
+        assertTrue( lock.acquire( clientB ) );
+        assertTrue( lock.acquire( clientC ) );
+
+        // Then
+        assertTrue( lock.isStriped() );
+        assertThat( lock.numberOfHolders(), equalTo( 3 ) );
+        assertFalse( lock.release( clientB ) );
+        assertFalse( lock.release( clientA ) );
+        assertThat( lock.numberOfHolders(), equalTo( 1 ) );
+        assertTrue( lock.release( clientC ) );
+        assertThat( lock.numberOfHolders(), equalTo( 0 ) );
+    }
+
+    @Test
+    public void shouldNotAcquireReleasedStripedLock() throws Exception
+    {
+        // Given
+        ForsetiClient clientA = client( 1 );
+        ForsetiClient clientB = client( 2 );
+        SharedLock lock = new SharedLock( clientA );
+        lock.inflate();
+
+        // When
+        assertTrue( lock.release( clientA ) );
+
+        // Then
+        assertFalse( lock.acquire( clientB ) );
+        assertFalse( lock.tryAcquireUpdateLock( clientB ) );
+        assertThat( lock.numberOfHolders(), equalTo( 0 ) );
+    }
+
+    @Test
+    public void shouldNotAcquireStripedLockWhileItIsAnUpdateLock() throws Exception
+    {
+        // Given
+        ForsetiClient clientA = client( 1 );
+        ForsetiClient clientB = client( 2 );
+        ForsetiClient clientC = client( 3 );
+        SharedLock lock = new SharedLock( clientA );
+        lock.inflate();
+        assertTrue( lock.acquire( clientB ) );
+
+        // When
+        assertTrue( lock.tryAcquireUpdateLock( clientA ) );
+
+        // Then
+        assertFalse( lock.acquire( clientC ) );
+        assertThat( lock.numberOfHolders(), equalTo( 2 ) );
+        assertThat( lock.isUpdateLock(), equalTo( true ) );
+
+        lock.releaseUpdateLock();
+        assertTrue( lock.acquire( clientC ) );
+        assertThat( lock.numberOfHolders(), equalTo( 3 ) );
+    }
+
+    @Test
+    public void shouldKeepCountOfHoldersWhenContendedLockIsInflated() throws Exception
+    {
+        // Given
+        int threads = 8;
+        int iterations = 10_000;
+        ForsetiClient owner = client( 0 );
+        SharedLock lock = new SharedLock( owner );
+        ExecutorService executor = Executors.newFixedThreadPool( threads );
+
+        // When
+        try
+        {
+            List<Future<?>> futures = new ArrayList<>();
+            for ( int i = 1; i <= threads; i++ )
+            {
+                ForsetiClient client = client( i );
+                futures.add( executor.submit( () ->
+                {
+                    for ( int j = 0; j < iterations; j++ )
+                    {
+                        while ( !lock.acquire( client ) )
+                        {
+                            Thread.yield();
+                        }
+                        assertFalse( lock.release( client ) );
+                    }
+                } ) );
+            }
+            for ( Future<?> future : futures )
+            {
+                future.get();
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        // Then
+        assertThat( lock.numberOfHolders(), equalTo( 1 ) );
+        assertTrue( lock.release( owner ) );
+    }
+
+    private static ForsetiClient client( int id )
+    {
+        ForsetiClient client = mock( ForsetiClient.class );
+        when( client.id() ).thenReturn( id );
+        return client;
+    }
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.enterprise.lock.forseti;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.neo4j.kernel.impl.locking.ResourceTypes;
+
+import static java.util.Collections.singleton;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.neo4j.kernel.impl.locking.ResourceTypes.NODE;
+
+public class WaitForGraphTest
+{
+    private ConcurrentMap<Long,ForsetiLockManager.Lock> nodeLocks;
+    private WaitForGraph graph;
+
+    @Before
+    @SuppressWarnings( "unchecked" )
+    public void setUp()
+    {
+        ConcurrentMap<Long,ForsetiLockManager.Lock>[] lockMaps = new ConcurrentMap[ResourceTypes.values().length];
+        nodeLocks = new ConcurrentHashMap<>();
+        lockMaps[NODE.typeId()] = nodeLocks;
+        graph = new WaitForGraph( lockMaps );
+    }
+
+    @Test
+    public void shouldNotFindDeadlockWithoutCycle() throws Exception
+    {
+        ForsetiClient clientA = waitingClient( 1 );
+        ForsetiClient clientB = waitingClient( 2 );
+        ForsetiClient clientC = waitingClient( 3 );
+        nodeLocks.put( 2L, new ExclusiveLock( clientB ) );
+        nodeLocks.put( 3L, new ExclusiveLock( clientC ) );
+
+        assertNull( graph.waitFor( clientA, NODE, 2, singleton( clientB ) ) );
+        assertNull( graph.waitFor( clientB, NODE, 3, singleton( clientC ) ) );
+        verify( clientA, never() ).markAsDeadlockVictim( anyString() );
+        verify( clientB, never() ).markAsDeadlockVictim( anyString() );
+    }
+
+    @Test
+    public void shouldAbortYoungestTransactionInCycle() throws Exception
+    {
+        ForsetiClient clientA = waitingClient( 1 );
+        ForsetiClient clientB = waitingClient( 3 );
+        ForsetiClient clientC = waitingClient( 2 );
+        nodeLocks.put( 1L, new ExclusiveLock( clientA ) );
+        nodeLocks.put( 2L, new ExclusiveLock( clientB ) );
+        nodeLocks.put( 3L, new ExclusiveLock( clientC ) );
+
+        assertNull( graph.waitFor( clientA, NODE, 2, singleton( clientB ) ) );
+        assertNull( graph.waitFor( clientB, NODE, 3, singleton( clientC ) ) );
+        assertSame( clientB, graph.waitFor( clientC, NODE, 1, singleton( clientA ) ) );
+        verify( clientB ).markAsDeadlockVictim( anyString() );
+        verify( clientA, never() ).markAsDeadlockVictim( anyString() );
+        verify( clientC, never() ).markAsDeadlockVictim( anyString() );
+    }
+
+    @Test
+    public void shouldNotFindDeadlockWhenLockInCycleHasBeenReleased() throws Exception
+    {
+        ForsetiClient clientA = waitingClient( 1 );
+        ForsetiClient clientB = waitingClient( 2 );
+        nodeLocks.put( 1L, new ExclusiveLock( clientA ) );
+
+        // clientB released node 2 after clientA registered, but before clientA got around to taking it
+        assertNull( graph.waitFor( clientA, NODE, 2, singleton( clientB ) ) );
+        assertNull( graph.waitFor( clientB, NODE, 1, singleton( clientA ) ) );
+        verify( clientA, never() ).markAsDeadlockVictim( anyString() );
+        verify( clientB, never() ).markAsDeadlockVictim( anyString() );
+    }
+
+    @Test
+    public void shouldNotFindDeadlockWithClientThatStoppedWaiting() throws Exception
+    {
+        ForsetiClient clientA = waitingClient( 1 );
+        ForsetiClient clientB = waitingClient( 2 );
+        nodeLocks.put( 1L, new ExclusiveLock( clientA ) );
+        nodeLocks.put( 2L, new ExclusiveLock( clientB ) );
+
+        assertNull( graph.waitFor( clientA, NODE, 2, singleton( clientB ) ) );
+        graph.stopWaiting( clientA );
+        assertNull( graph.waitFor( clientB, NODE, 1, singleton( clientA ) ) );
+        verify( clientA ).markAsDeadlockVictim( null );
+        verify( clientB, never() ).markAsDeadlockVictim( anyString() );
+    }
+
+    private static ForsetiClient waitingClient( long transactionSequence )
+    {
+        ForsetiClient client = mock( ForsetiClient.class );
+        when( client.transactionSequence() ).thenReturn( transactionSequence );
+        when( client.isWaiting() ).thenReturn( true );
+        return client;
+    }
+}
@@ -90,6 +90,11 @@ public class MetricsSettings implements LoadableConfig
     public static Setting<Boolean> neoLogRotationEnabled = buildSetting(
             "metrics.neo4j.logrotation.enabled", BOOLEAN ).inherits( neoEnabled ).build();
 
+    @Description( "Enable reporting metrics about lock waits; how many times transactions had to wait for a lock, " +
+                  "for how long, and how many of those waits ended in a deadlock, per resource type." )
+    public static Setting<Boolean> neoLockingEnabled = buildSetting(
+            "metrics.neo4j.locking.enabled", BOOLEAN ).inherits( neoEnabled ).build();
+
     @Description( "Enable reporting metrics about HA cluster info." )
     public static Setting<Boolean> neoClusterEnabled = buildSetting(
             "metrics.neo4j.cluster.enabled", BOOLEAN ).inherits( neoEnabled ).build();
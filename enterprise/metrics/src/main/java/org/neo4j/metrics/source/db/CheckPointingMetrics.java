@@ -27,6 +27,7 @@ import java.util.TreeMap;
 import org.neo4j.kernel.impl.annotations.Documented;
 import org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointerMonitor;
 import org.neo4j.kernel.impl.transaction.log.checkpoint.DefaultCheckPointerTracer;
+import org.neo4j.kernel.impl.transaction.log.checkpoint.VolumetricCheckPointThreshold;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
 import org.neo4j.kernel.monitoring.Monitors;
 import org.neo4j.metrics.output.EventReporter;
@@ -46,11 +47,22 @@ public class CheckPointingMetrics extends LifecycleAdapter
     public static final String CHECK_POINT_TOTAL_TIME = name( CHECK_POINT_PREFIX, "total_time" );
     @Documented( "The duration of the check point event" )
     public static final String CHECK_POINT_DURATION = name( CHECK_POINT_PREFIX, "check_point_duration" );
+    @Documented( "The number of bytes of transaction log written since the last check point " +
+                 "(only with the volumetric check point policy)" )
+    public static final String CHECK_POINT_LOG_BYTES = name( CHECK_POINT_PREFIX, "log_bytes_since_check_point" );
+    @Documented( "The estimated time in milliseconds to recover the transaction log written since the last " +
+                 "check point (only with the volumetric check point policy)" )
+    public static final String CHECK_POINT_ESTIMATED_RECOVERY_TIME =
+            name( CHECK_POINT_PREFIX, "estimated_recovery_time" );
+    @Documented( "The rate in bytes per second at which recovery is assumed to replay the transaction log " +
+                 "(only with the volumetric check point policy)" )
+    public static final String CHECK_POINT_RECOVERY_RATE = name( CHECK_POINT_PREFIX, "recovery_rate" );
 
     private final MetricRegistry registry;
     private final Monitors monitors;
     private final CheckPointerMonitor checkPointerMonitor;
     private final DefaultCheckPointerTracer.Monitor listener;
+    private final RecoveryTimeListener recoveryTimeListener = new RecoveryTimeListener();
 
     public CheckPointingMetrics( EventReporter reporter, MetricRegistry registry,
             Monitors monitors, CheckPointerMonitor checkPointerMonitor )
@@ -70,18 +82,43 @@ public class CheckPointingMetrics extends LifecycleAdapter
     public void start()
     {
         monitors.addMonitorListener( listener );
+        monitors.addMonitorListener( recoveryTimeListener );
 
         registry.register( CHECK_POINT_EVENTS, (Gauge<Long>) checkPointerMonitor::numberOfCheckPointEvents );
         registry.register( CHECK_POINT_TOTAL_TIME,
                 (Gauge<Long>) checkPointerMonitor::checkPointAccumulatedTotalTimeMillis );
+        registry.register( CHECK_POINT_LOG_BYTES, (Gauge<Long>) () -> recoveryTimeListener.bytesSinceCheckPoint );
+        registry.register( CHECK_POINT_ESTIMATED_RECOVERY_TIME,
+                (Gauge<Long>) () -> recoveryTimeListener.estimatedRecoveryTimeMillis );
+        registry.register( CHECK_POINT_RECOVERY_RATE, (Gauge<Long>) () -> recoveryTimeListener.bytesPerSecond );
     }
 
     @Override
     public void stop()
     {
         monitors.removeMonitorListener( listener );
+        monitors.removeMonitorListener( recoveryTimeListener );
 
         registry.remove( CHECK_POINT_EVENTS );
         registry.remove( CHECK_POINT_TOTAL_TIME );
+        registry.remove( CHECK_POINT_LOG_BYTES );
+        registry.remove( CHECK_POINT_ESTIMATED_RECOVERY_TIME );
+        registry.remove( CHECK_POINT_RECOVERY_RATE );
+    }
+
+    private static class RecoveryTimeListener implements VolumetricCheckPointThreshold.Monitor
+    {
+        private volatile long bytesSinceCheckPoint;
+        private volatile long estimatedRecoveryTimeMillis;
+        private volatile long bytesPerSecond;
+
+        @Override
+        public void recoveryTimeEstimated( long bytesSinceCheckPoint, long recoveryBytesPerSecond,
+                long estimatedRecoveryTimeMillis )
+        {
+            this.bytesSinceCheckPoint = bytesSinceCheckPoint;
+            this.bytesPerSecond = recoveryBytesPerSecond;
+            this.estimatedRecoveryTimeMillis = estimatedRecoveryTimeMillis;
+        }
     }
 }
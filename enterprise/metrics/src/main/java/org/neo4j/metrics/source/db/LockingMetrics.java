@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.metrics.source.db;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+
+import org.neo4j.kernel.impl.annotations.Documented;
+import org.neo4j.kernel.impl.locking.LockWaitMonitor;
+import org.neo4j.kernel.impl.locking.ResourceTypes;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.storageengine.api.lock.ResourceType;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+@Documented( ".Database Lock Metrics" )
+public class LockingMetrics extends LifecycleAdapter
+{
+    private static final String LOCKS_PREFIX = "neo4j.locks";
+
+    @Documented( "The total number of times transactions had to wait for a lock, reported per resource type as " +
+                 "`neo4j.locks.waits.<resource type>`" )
+    public static final String LOCK_WAITS = name( LOCKS_PREFIX, "waits" );
+    @Documented( "The total time in milliseconds transactions spent waiting for locks, reported per resource type as " +
+                 "`neo4j.locks.wait_time.<resource type>`" )
+    public static final String LOCK_WAIT_TIME = name( LOCKS_PREFIX, "wait_time" );
+    @Documented( "The total number of lock waits that were aborted to break a deadlock, reported per resource type as " +
+                 "`neo4j.locks.deadlocks.<resource type>`" )
+    public static final String DEADLOCKS = name( LOCKS_PREFIX, "deadlocks" );
+
+    private final MetricRegistry registry;
+    private final LockWaitMonitor lockWaitMonitor;
+
+    public LockingMetrics( MetricRegistry registry, LockWaitMonitor lockWaitMonitor )
+    {
+        this.registry = registry;
+        this.lockWaitMonitor = lockWaitMonitor;
+    }
+
+    @Override
+    public void start()
+    {
+        for ( ResourceTypes type : ResourceTypes.values() )
+        {
+            registry.register( waitsName( type ), (Gauge<Long>) () -> lockWaitMonitor.numberOfLockWaits( type ) );
+            registry.register( waitTimeName( type ),
+                    (Gauge<Long>) () -> lockWaitMonitor.lockWaitAccumulatedTotalTimeMillis( type ) );
+            registry.register( deadlocksName( type ), (Gauge<Long>) () -> lockWaitMonitor.numberOfDeadlocks( type ) );
+        }
+    }
+
+    @Override
+    public void stop()
+    {
+        for ( ResourceTypes type : ResourceTypes.values() )
+        {
+            registry.remove( waitsName( type ) );
+            registry.remove( waitTimeName( type ) );
+            registry.remove( deadlocksName( type ) );
+        }
+    }
+
+    static String waitsName( ResourceType type )
+    {
+        return name( LOCK_WAITS, type.name().toLowerCase() );
+    }
+
+    static String waitTimeName( ResourceType type )
+    {
+        return name( LOCK_WAIT_TIME, type.name().toLowerCase() );
+    }
+
+    static String deadlocksName( ResourceType type )
+    {
+        return name( DEADLOCKS, type.name().toLowerCase() );
+    }
+}
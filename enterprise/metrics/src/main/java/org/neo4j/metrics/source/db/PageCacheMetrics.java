@@ -22,7 +22,13 @@ package org.neo4j.metrics.source.db;
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.MetricRegistry;
 
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
 import org.neo4j.io.pagecache.monitoring.PageCacheCounters;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
+import org.neo4j.io.pagecache.monitoring.PagedFileCountersListener;
 import org.neo4j.kernel.impl.annotations.Documented;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
 
@@ -49,9 +55,53 @@ public class PageCacheMetrics extends LifecycleAdapter
     public static final String PC_HITS = name( PAGE_CACHE_PREFIX, "hits" );
     @Documented( "The ratio of hits to the total number of lookups in the page cache" )
     public static final String PC_HIT_RATIO = name( PAGE_CACHE_PREFIX, "hit_ratio" );
+    @Documented( "The total number of page faults where the eviction policy put the page on probation" )
+    public static final String PC_ADMISSIONS_REJECTED = name( PAGE_CACHE_PREFIX, "admissions_rejected" );
+    @Documented( "The total number of page faults for pages that the eviction policy remembered as recently evicted" )
+    public static final String PC_GHOST_HITS = name( PAGE_CACHE_PREFIX, "ghost_hits" );
+    @Documented( "The number of bytes per second written by the most recent flush of the whole page cache" )
+    public static final String PC_FLUSH_THROUGHPUT = name( PAGE_CACHE_PREFIX, "flush_throughput" );
+    @Documented( "The ratio of hits to the total number of lookups in the page cache, for each of the store files " +
+                 "that are currently mapped. The metric name is suffixed with the file name" )
+    public static final String PC_FILE_HIT_RATIO = name( PAGE_CACHE_PREFIX, "file_hit_ratio" );
 
     private final MetricRegistry registry;
     private final PageCacheCounters pageCacheCounters;
+    private final Map<String,PagedFileCounters> fileHitRatioCounters = new HashMap<>();
+    private final PagedFileCountersListener fileHitRatios = new PagedFileCountersListener()
+    {
+        @Override
+        public void mapped( PagedFileCounters counters )
+        {
+            String metricName = fileHitRatioName( counters.file() );
+            synchronized ( fileHitRatioCounters )
+            {
+                // Files in different directories can have the same name, in which case we only report the first one.
+                PagedFileCounters reported = fileHitRatioCounters.get( metricName );
+                if ( reported == null || reported.file().equals( counters.file() ) )
+                {
+                    fileHitRatioCounters.put( metricName, counters );
+                    registry.remove( metricName );
+                    registry.register( metricName, (Gauge<Double>) counters::hitRatio );
+                }
+            }
+        }
+
+        @Override
+        public void unmapped( File file )
+        {
+            String metricName = fileHitRatioName( file );
+            synchronized ( fileHitRatioCounters )
+            {
+                PagedFileCounters reported = fileHitRatioCounters.get( metricName );
+                if ( reported != null && reported.file().equals( file ) )
+                {
+                    fileHitRatioCounters.remove( metricName );
+                    registry.remove( metricName );
+                }
+            }
+        }
+    };
 
     public PageCacheMetrics( MetricRegistry registry, PageCacheCounters pageCacheCounters )
     {
@@ -70,6 +120,10 @@ public class PageCacheMetrics extends LifecycleAdapter
         registry.register( PC_FLUSHES, (Gauge<Long>) pageCacheCounters::flushes );
         registry.register( PC_EVICTION_EXCEPTIONS, (Gauge<Long>) pageCacheCounters::evictionExceptions );
         registry.register( PC_HIT_RATIO, (Gauge<Double>) pageCacheCounters::hitRatio );
+        registry.register( PC_ADMISSIONS_REJECTED, (Gauge<Long>) pageCacheCounters::admissionsRejected );
+        registry.register( PC_GHOST_HITS, (Gauge<Long>) pageCacheCounters::ghostHits );
+        registry.register( PC_FLUSH_THROUGHPUT, (Gauge<Long>) pageCacheCounters::flushThroughput );
+        pageCacheCounters.addPagedFileCountersListener( fileHitRatios );
     }
 
     @Override
@@ -83,5 +137,19 @@ public class PageCacheMetrics extends LifecycleAdapter
         registry.remove( PC_FLUSHES );
         registry.remove( PC_EVICTION_EXCEPTIONS );
         registry.remove( PC_HIT_RATIO );
+        registry.remove( PC_ADMISSIONS_REJECTED );
+        registry.remove( PC_GHOST_HITS );
+        registry.remove( PC_FLUSH_THROUGHPUT );
+        pageCacheCounters.removePagedFileCountersListener( fileHitRatios );
+        synchronized ( fileHitRatioCounters )
+        {
+            fileHitRatioCounters.keySet().forEach( registry::remove );
+            fileHitRatioCounters.clear();
+        }
+    }
+
+    private static String fileHitRatioName( File file )
+    {
+        return name( PC_FILE_HIT_RATIO, file.getName() );
     }
 }
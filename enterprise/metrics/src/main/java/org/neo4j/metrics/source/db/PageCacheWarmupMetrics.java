@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.metrics.source.db;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.helpers.MathUtil;
+import org.neo4j.kernel.impl.annotations.Documented;
+import org.neo4j.kernel.impl.pagecache.PageCacheWarmer;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.kernel.monitoring.Monitors;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+@Documented( ".Database PageCache Warmup Metrics" )
+public class PageCacheWarmupMetrics extends LifecycleAdapter
+{
+    private static final String PAGE_CACHE_WARMUP_PREFIX = "neo4j.page_cache.warmup";
+
+    @Documented( "The number of pages that the page cache warmup will load from the page cache profiles" )
+    public static final String PC_WARMUP_PAGES_TO_LOAD = name( PAGE_CACHE_WARMUP_PREFIX, "pages_to_load" );
+    @Documented( "The number of pages loaded by the page cache warmup so far" )
+    public static final String PC_WARMUP_PAGES_LOADED = name( PAGE_CACHE_WARMUP_PREFIX, "pages_loaded" );
+    @Documented( "The ratio of pages loaded to pages to load by the page cache warmup, from 0 to 1" )
+    public static final String PC_WARMUP_PROGRESS = name( PAGE_CACHE_WARMUP_PREFIX, "progress" );
+    @Documented( "The time in milliseconds that the page cache warmup took, or 0 if it has not completed" )
+    public static final String PC_WARMUP_DURATION = name( PAGE_CACHE_WARMUP_PREFIX, "duration" );
+    @Documented( "The number of pages that were in memory when the page cache was most recently profiled" )
+    public static final String PC_WARMUP_PROFILED_PAGES = name( PAGE_CACHE_WARMUP_PREFIX, "profiled_pages" );
+
+    private final MetricRegistry registry;
+    private final Monitors monitors;
+    private final WarmupMonitor warmupMonitor = new WarmupMonitor();
+
+    public PageCacheWarmupMetrics( MetricRegistry registry, Monitors monitors )
+    {
+        this.registry = registry;
+        this.monitors = monitors;
+    }
+
+    @Override
+    public void init()
+    {
+        // The warmup begins as soon as the database has started, which may be before this component is started.
+        monitors.addMonitorListener( warmupMonitor );
+    }
+
+    @Override
+    public void start()
+    {
+        registry.register( PC_WARMUP_PAGES_TO_LOAD, (Gauge<Long>) warmupMonitor.pagesToLoad::get );
+        registry.register( PC_WARMUP_PAGES_LOADED, (Gauge<Long>) warmupMonitor.pagesLoaded::get );
+        registry.register( PC_WARMUP_PROGRESS, (Gauge<Double>) () ->
+                MathUtil.portion( warmupMonitor.pagesLoaded.get(),
+                        warmupMonitor.pagesToLoad.get() - warmupMonitor.pagesLoaded.get() ) );
+        registry.register( PC_WARMUP_DURATION, (Gauge<Long>) warmupMonitor.durationMillis::get );
+        registry.register( PC_WARMUP_PROFILED_PAGES, (Gauge<Long>) warmupMonitor.profiledPages::get );
+    }
+
+    @Override
+    public void stop()
+    {
+        registry.remove( PC_WARMUP_PAGES_TO_LOAD );
+        registry.remove( PC_WARMUP_PAGES_LOADED );
+        registry.remove( PC_WARMUP_PROGRESS );
+        registry.remove( PC_WARMUP_DURATION );
+        registry.remove( PC_WARMUP_PROFILED_PAGES );
+    }
+
+    @Override
+    public void shutdown()
+    {
+        monitors.removeMonitorListener( warmupMonitor );
+    }
+
+    private static class WarmupMonitor implements PageCacheWarmer.Monitor
+    {
+        private final AtomicLong pagesToLoad = new AtomicLong();
+        private final AtomicLong pagesLoaded = new AtomicLong();
+        private final AtomicLong durationMillis = new AtomicLong();
+        private final AtomicLong profiledPages = new AtomicLong();
+
+        @Override
+        public void warmupStarted( long pagesToLoad )
+        {
+            this.pagesToLoad.set( pagesToLoad );
+            this.pagesLoaded.set( 0 );
+            this.durationMillis.set( 0 );
+        }
+
+        @Override
+        public void pagesLoaded( long pagesLoaded )
+        {
+            this.pagesLoaded.addAndGet( pagesLoaded );
+        }
+
+        @Override
+        public void warmupCompleted( long elapsedMillis, long pagesLoaded )
+        {
+            this.pagesLoaded.set( pagesLoaded );
+            this.durationMillis.set( elapsedMillis );
+        }
+
+        @Override
+        public void profileCompleted( long elapsedMillis, long pagesInMemory )
+        {
+            this.profiledPages.set( pagesInMemory );
+        }
+    }
+}
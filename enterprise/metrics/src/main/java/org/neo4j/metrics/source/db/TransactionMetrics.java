@@ -20,14 +20,20 @@
 package org.neo4j.metrics.source.db;
 
 import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.MetricRegistry;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Supplier;
 
 import org.neo4j.kernel.impl.annotations.Documented;
 import org.neo4j.kernel.impl.transaction.TransactionCounters;
+import org.neo4j.kernel.impl.transaction.log.BatchingTransactionAppender;
 import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
+import org.neo4j.kernel.impl.transaction.log.entry.CommandCompressor;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.kernel.monitoring.Monitors;
 
 import static com.codahale.metrics.MetricRegistry.name;
 
@@ -74,14 +80,34 @@ public class TransactionMetrics extends LifecycleAdapter
     @Documented( "The ID of the last closed transaction" )
     public static final String LAST_CLOSED_TX_ID = name( TRANSACTION_PREFIX, "last_closed_tx_id" );
 
+    @Documented( "The distribution of the number of commit batches made durable by each transaction log force" )
+    public static final String COMMITS_PER_LOG_FORCE = name( TRANSACTION_PREFIX, "commits_per_log_force" );
+    @Documented( "The distribution of the time in microseconds from the start of appending a commit batch to the " +
+                 "transaction log, until it was durable" )
+    public static final String COMMIT_LATENCY = name( TRANSACTION_PREFIX, "commit_latency" );
+
+    @Documented( "The total size in bytes of the commands of all transactions written to the transaction log, " +
+                 "before compression" )
+    public static final String LOG_COMMAND_BYTES = name( TRANSACTION_PREFIX, "log_command_bytes" );
+    @Documented( "The total number of bytes written to the transaction log for the commands of all transactions, " +
+                 "after compression" )
+    public static final String LOG_COMMAND_BYTES_WRITTEN = name( TRANSACTION_PREFIX, "log_command_bytes_written" );
+    @Documented( "The ratio between the size of the commands written to the transaction log before and after " +
+                 "compression, when transaction log compression is enabled" )
+    public static final String LOG_COMPRESSION_RATIO = name( TRANSACTION_PREFIX, "log_compression_ratio" );
+
     private final MetricRegistry registry;
+    private final Monitors monitors;
     private final TransactionCounters transactionCounters;
     private final Supplier<TransactionIdStore> transactionIdStore;
+    private final AppenderMonitor appenderMonitor = new AppenderMonitor();
+    private final CompressionMonitor compressionMonitor = new CompressionMonitor();
 
-    public TransactionMetrics( MetricRegistry registry,
+    public TransactionMetrics( MetricRegistry registry, Monitors monitors,
             Supplier<TransactionIdStore> transactionIdStore, TransactionCounters transactionCounters )
     {
         this.registry = registry;
+        this.monitors = monitors;
         this.transactionIdStore = transactionIdStore;
         this.transactionCounters = transactionCounters;
     }
@@ -89,6 +115,14 @@ public class TransactionMetrics extends LifecycleAdapter
     @Override
     public void start()
     {
+        appenderMonitor.commitsPerLogForce = registry.histogram( COMMITS_PER_LOG_FORCE );
+        appenderMonitor.commitLatency = registry.histogram( COMMIT_LATENCY );
+        monitors.addMonitorListener( appenderMonitor );
+        monitors.addMonitorListener( compressionMonitor );
+        registry.register( LOG_COMMAND_BYTES, (Gauge<Long>) compressionMonitor.commandBytes::sum );
+        registry.register( LOG_COMMAND_BYTES_WRITTEN, (Gauge<Long>) compressionMonitor.writtenBytes::sum );
+        registry.register( LOG_COMPRESSION_RATIO, (Gauge<Double>) compressionMonitor::compressionRatio );
+
         registry.register( TX_STARTED, (Gauge<Long>) transactionCounters::getNumberOfStartedTransactions );
         registry.register( TX_PEAK_CONCURRENT,
                 (Gauge<Long>) transactionCounters::getPeakConcurrentNumberOfTransactions );
@@ -123,6 +157,14 @@ public class TransactionMetrics extends LifecycleAdapter
     @Override
     public void stop()
     {
+        monitors.removeMonitorListener( appenderMonitor );
+        registry.remove( COMMITS_PER_LOG_FORCE );
+        registry.remove( COMMIT_LATENCY );
+        monitors.removeMonitorListener( compressionMonitor );
+        registry.remove( LOG_COMMAND_BYTES );
+        registry.remove( LOG_COMMAND_BYTES_WRITTEN );
+        registry.remove( LOG_COMPRESSION_RATIO );
+
         registry.remove( TX_STARTED );
         registry.remove( TX_PEAK_CONCURRENT );
 
@@ -145,4 +187,41 @@ public class TransactionMetrics extends LifecycleAdapter
         registry.remove( LAST_COMMITTED_TX_ID );
         registry.remove( LAST_CLOSED_TX_ID );
     }
+
+    private static class AppenderMonitor implements BatchingTransactionAppender.Monitor
+    {
+        private volatile Histogram commitsPerLogForce;
+        private volatile Histogram commitLatency;
+
+        @Override
+        public void logForced( int batches, long elapsedNanos )
+        {
+            commitsPerLogForce.update( batches );
+        }
+
+        @Override
+        public void batchCommitted( long elapsedNanos )
+        {
+            commitLatency.update( TimeUnit.NANOSECONDS.toMicros( elapsedNanos ) );
+        }
+    }
+
+    private static class CompressionMonitor implements CommandCompressor.Monitor
+    {
+        private final LongAdder commandBytes = new LongAdder();
+        private final LongAdder writtenBytes = new LongAdder();
+
+        @Override
+        public void commandsWritten( int commandBytes, int writtenBytes )
+        {
+            this.commandBytes.add( commandBytes );
+            this.writtenBytes.add( writtenBytes );
+        }
+
+        double compressionRatio()
+        {
+            long written = writtenBytes.sum();
+            return written == 0 ? 1.0 : (double) commandBytes.sum() / written;
+        }
+    }
 }
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.metrics.source.db;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
+import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.neo4j.metrics.source.db.PageCacheMetrics.PC_FILE_HIT_RATIO;
+
+public class PageCacheMetricsTest
+{
+    private final MetricRegistry registry = new MetricRegistry();
+    private final DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+    private final PageCacheMetrics metrics = new PageCacheMetrics( registry, tracer );
+
+    @Before
+    public void setUp()
+    {
+        metrics.start();
+    }
+
+    @After
+    public void tearDown()
+    {
+        metrics.stop();
+    }
+
+    @Test
+    public void shouldReportHitRatioOfFilesMappedAfterStart() throws Exception
+    {
+        // when
+        tracer.mappedFile( new File( "a", "neostore" ), counters( new File( "a", "neostore" ), 0.5 ) );
+
+        // then
+        assertEquals( 0.5, fileHitRatio( "neostore" ), 0.0 );
+    }
+
+    @Test
+    public void shouldStopReportingHitRatioOfUnmappedFiles() throws Exception
+    {
+        // given
+        tracer.mappedFile( new File( "a", "neostore" ), counters( new File( "a", "neostore" ), 0.5 ) );
+
+        // when
+        tracer.unmappedFile( new File( "a", "neostore" ) );
+
+        // then
+        assertFalse( registry.getGauges().containsKey( MetricRegistry.name( PC_FILE_HIT_RATIO, "neostore" ) ) );
+    }
+
+    @Test
+    public void shouldReportFirstOfFilesWithTheSameName() throws Exception
+    {
+        // given
+        tracer.mappedFile( new File( "a", "neostore" ), counters( new File( "a", "neostore" ), 0.5 ) );
+
+        // when
+        tracer.mappedFile( new File( "b", "neostore" ), counters( new File( "b", "neostore" ), 0.25 ) );
+        tracer.unmappedFile( new File( "b", "neostore" ) );
+
+        // then
+        assertEquals( 0.5, fileHitRatio( "neostore" ), 0.0 );
+    }
+
+    @Test
+    public void shouldRemoveHitRatiosOfFilesWhenStopped() throws Exception
+    {
+        // given
+        tracer.mappedFile( new File( "a", "neostore" ), counters( new File( "a", "neostore" ), 0.5 ) );
+
+        // when
+        metrics.stop();
+        tracer.mappedFile( new File( "a", "neostore.id" ), counters( new File( "a", "neostore.id" ), 0.5 ) );
+
+        // then
+        assertFalse( registry.getNames().stream().anyMatch( name -> name.startsWith( PC_FILE_HIT_RATIO ) ) );
+    }
+
+    private double fileHitRatio( String fileName )
+    {
+        Gauge gauge = registry.getGauges().get( MetricRegistry.name( PC_FILE_HIT_RATIO, fileName ) );
+        return (Double) gauge.getValue();
+    }
+
+    private static PagedFileCounters counters( File file, double hitRatio )
+    {
+        PagedFileCounters counters = mock( PagedFileCounters.class );
+        when( counters.file() ).thenReturn( file );
+        when( counters.hitRatio() ).thenReturn( hitRatio );
+        return counters;
+    }
+}